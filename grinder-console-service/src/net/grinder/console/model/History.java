@@ -0,0 +1,115 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+
+package net.grinder.console.model;
+
+import net.grinder.console.service.Bootstrap;
+
+import java.util.*;
+
+/**
+ * Range queries over the statistics recorded by the {@link SampleHistory}.
+ *
+ * @author Philip Aston
+ */
+public class History {
+
+    static final List<String> COLUMNS = Collections.unmodifiableList(Arrays.asList(
+            "time",
+            "period",
+            "tests",
+            "errors",
+            "tps",
+            "mean-test-time",
+            "test-time-standard-deviation"));
+
+    SampleHistory sampleHistory = null;
+
+    public void init() {
+        if (this.sampleHistory == null) {
+            if (Bootstrap.getInstance() != null &&
+                Bootstrap.getInstance().getSampleHistory() != null) {
+                this.sampleHistory = Bootstrap.getInstance().getSampleHistory();
+            }
+            else {
+                throw new IllegalStateException("History not correctly initialized.");
+            }
+        }
+    }
+
+    /**
+     * Return the recorded samples in a time range.
+     * The map has the following keys:
+     * :columns Vector of column names, in same order as sample vectors.
+     * :tests Vector of test data maps, one per test.
+     * :totals Vector of total samples.
+     * Each test data map has the following keys:
+     * :test The test number.
+     * :description The test description.
+     * :samples Vector of samples, each a vector of values. Older samples
+     * cover longer periods.
+     *
+     * @param test Only return the samples for this test, or null for all tests.
+     * @param from The start of the time range, in milliseconds since the Epoch.
+     * @param to The end of the time range, in milliseconds since the Epoch.
+     * @return The samples.
+     */
+    public Map<String, Object> data(Integer test, long from, long to) {
+        init();
+        List<Map<String, Object>> tests = new ArrayList<>();
+        for (Map.Entry<Integer, String> entry : sampleHistory.getTests().entrySet()) {
+            if (test == null || test.equals(entry.getKey())) {
+                Map<String, Object> testInfo = new HashMap<>();
+                testInfo.put("test", entry.getKey());
+                testInfo.put("description", entry.getValue());
+                testInfo.put("samples", samples(entry.getKey(), from, to));
+                tests.add(testInfo);
+            }
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("columns", COLUMNS);
+        result.put("tests", tests);
+        result.put("totals", samples(SampleHistory.TOTALS, from, to));
+        return result;
+    }
+
+    private List<List<Number>> samples(int series, long from, long to) {
+        List<TimeSeriesStore.Sample> samples = sampleHistory.getSamples(series, from, to);
+        List<List<Number>> result = new ArrayList<>(samples.size());
+        for (TimeSeriesStore.Sample sample : samples) {
+            List<Number> values = new ArrayList<>(COLUMNS.size());
+            values.add(sample.getTime());
+            values.add(sample.getPeriod());
+            values.add(sample.getTests());
+            values.add(sample.getErrors());
+            values.add(sample.getTPS());
+            values.add(finite(sample.getMeanTestTime()));
+            values.add(finite(sample.getTestTimeStandardDeviation()));
+            result.add(values);
+        }
+        return result;
+    }
+
+    private static Double finite(double value) {
+        return Double.isNaN(value) || Double.isInfinite(value) ? null : value;
+    }
+}
@@ -0,0 +1,611 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.console.model;
+
+import net.grinder.common.Test;
+import net.grinder.console.service.Bootstrap;
+import net.grinder.statistics.ExpressionView;
+import net.grinder.statistics.StatisticExpression;
+import net.grinder.statistics.StatisticsSet;
+import net.grinder.statistics.TestStatisticsQueries;
+import net.grinder.util.thread.ExecutorFactory;
+
+import java.util.*;
+import java.util.concurrent.Executor;
+
+/**
+ * Pushes the recording data to subscribers as it is sampled.
+ *
+ * <p>
+ * Each sample is encoded once, as a JSON frame that is shared by all
+ * subscribers. The first frame a subscriber receives is a full frame:
+ * </p>
+ *
+ * <pre>
+ * {"full":true,
+ *  "status":{...},
+ *  "columns":{"cumulative":[...],"latest":[...]},
+ *  "tests":[{"test":1,"description":"...","cumulative":[...],"latest":[...]}],
+ *  "totals":{"cumulative":[...],"latest":[...]}}
+ * </pre>
+ *
+ * <p>
+ * Subsequent frames have no <code>full</code>, <code>columns</code> or test
+ * descriptions, and only contain the tests that have changed. A test has
+ * changed if it was invoked in the sample interval, or if its interval
+ * statistics differ from those previously sent. A frame that only contains
+ * <code>status</code> is sent when the model state changes.
+ * </p>
+ *
+ * <p>
+ * Frames are sent to each subscriber from a pool thread, so a slow subscriber
+ * never delays the sample model or the other subscribers. If more than
+ * {@link #MAX_PENDING_FRAMES} frames are waiting for a subscriber, they are
+ * discarded and it is sent a single full frame when it catches up.
+ * </p>
+ *
+ * @author Philip Aston
+ */
+public class LiveStatistics {
+
+    /**
+     * The number of frames that can be queued for a subscriber before it is
+     * resynchronised with a full frame.
+     */
+    public static final int MAX_PENDING_FRAMES = 8;
+
+    /**
+     * A receiver of frames.
+     */
+    public interface Subscriber {
+
+        /**
+         * Send a frame. Called from a single thread at a time.
+         *
+         * @param frame The JSON frame.
+         * @throws Exception If the frame could not be sent. The subscriber
+         *  is unsubscribed.
+         */
+        void send(String frame) throws Exception;
+    }
+
+    SampleModel model = null;
+    SampleModelViews statisticsView = null;
+
+    private final Executor executor;
+    private final Object lock = new Object();
+
+    // Guarded by lock.
+    private final Map<Test, Row> tests = new TreeMap<>();
+    private final Set<Test> changedTests = new HashSet<>();
+    private final Row totals = new Row();
+    private final List<Subscription> subscriptions = new ArrayList<>();
+    private Map<String, String> lastStatus = null;
+    private boolean structureChanged = true;
+    private String fullFrame = null;
+
+    public LiveStatistics() {
+        this(ExecutorFactory.createCachedThreadPool("live statistics"));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param executor Used to send frames to subscribers.
+     */
+    public LiveStatistics(Executor executor) {
+        this.executor = executor;
+    }
+
+    public void init() {
+        if (this.model == null) {
+            if (Bootstrap.getInstance() != null) {
+                this.model = Bootstrap.getInstance().getModel();
+                this.statisticsView = Bootstrap.getInstance().getSampleModelViews();
+                listen(Bootstrap.getInstance().getTestIndex());
+            }
+            else {
+                throw new IllegalStateException("Live statistics not correctly initialized.");
+            }
+        }
+    }
+
+    private void listen(ModelTestIndex existingTests) {
+        model.addModelListener(new SampleModel.Listener() {
+            @Override
+            public void stateChanged() {
+                publishStatus();
+            }
+
+            @Override
+            public void newSample() {
+                publishSample();
+            }
+
+            @Override
+            public void newTests(Set<Test> newTests, ModelTestIndex modelTestIndex) {
+                addTests(newTests);
+            }
+
+            @Override
+            public void resetTests() {
+                synchronized (lock) {
+                    tests.clear();
+                    changedTests.clear();
+                    structureChanged();
+                }
+            }
+        });
+
+        statisticsView.addListener(new SampleModelViews.Listener() {
+            @Override
+            public void newStatisticExpression(ExpressionView statisticExpression) {
+                synchronized (lock) {
+                    structureChanged();
+                }
+            }
+
+            @Override
+            public void resetStatisticsViews() {
+                synchronized (lock) {
+                    structureChanged();
+                }
+            }
+        });
+
+        model.addTotalSampleListener(new SampleListener() {
+            @Override
+            public void update(StatisticsSet intervalStatistics, StatisticsSet cumulativeStatistics) {
+                synchronized (lock) {
+                    totals.update(intervalStatistics, cumulativeStatistics);
+                }
+            }
+        });
+
+        if (existingTests != null) {
+            final Set<Test> existing = new HashSet<>();
+
+            for (int i = 0; i < existingTests.getNumberOfTests(); ++i) {
+                existing.add(existingTests.getTest(i));
+            }
+
+            addTests(existing);
+        }
+    }
+
+    private void addTests(Set<Test> newTests) {
+        for (final Test test : newTests) {
+            final Row row = new Row();
+
+            synchronized (lock) {
+                if (tests.containsKey(test)) {
+                    continue;
+                }
+
+                tests.put(test, row);
+                structureChanged();
+            }
+
+            model.addSampleListener(test, new SampleListener() {
+                @Override
+                public void update(StatisticsSet intervalStatistics, StatisticsSet cumulativeStatistics) {
+                    synchronized (lock) {
+                        // Ignore listeners for tests discarded by a reset.
+                        if (tests.get(test) == row &&
+                            row.update(intervalStatistics, cumulativeStatistics)) {
+                            changedTests.add(test);
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+    private void structureChanged() {
+        structureChanged = true;
+        fullFrame = null;
+    }
+
+    /**
+     * Subscribe to the stream of frames. The subscriber is first sent a full
+     * frame describing the current recording data.
+     *
+     * @param subscriber The subscriber.
+     * @return A handle that can be used to unsubscribe.
+     */
+    public Subscription subscribe(Subscriber subscriber) {
+        init();
+
+        final Subscription subscription = new Subscription(subscriber);
+
+        synchronized (lock) {
+            subscriptions.add(subscription);
+            subscription.schedule();
+        }
+
+        return subscription;
+    }
+
+    /**
+     * The number of current subscribers.
+     *
+     * @return The number of subscribers.
+     */
+    public int getNumberOfSubscribers() {
+        synchronized (lock) {
+            return subscriptions.size();
+        }
+    }
+
+    private void publishSample() {
+        synchronized (lock) {
+            final Map<String, String> status = Recording.status(model);
+            lastStatus = status;
+            fullFrame = null;
+
+            final String frame;
+
+            if (structureChanged) {
+                structureChanged = false;
+                frame = fullFrame();
+            }
+            else {
+                final StringBuilder result = new StringBuilder();
+                result.append("{\"status\":");
+                appendStatus(result, status);
+                result.append(",\"tests\":[");
+
+                boolean first = true;
+
+                for (Map.Entry<Test, Row> entry : tests.entrySet()) {
+                    if (changedTests.contains(entry.getKey())) {
+                        if (!first) {
+                            result.append(',');
+                        }
+
+                        first = false;
+                        appendTest(result, entry.getKey(), entry.getValue(), false);
+                    }
+                }
+
+                result.append("],\"totals\":");
+                totals.append(result);
+                result.append('}');
+                frame = result.toString();
+            }
+
+            changedTests.clear();
+            publish(frame);
+        }
+    }
+
+    private void publishStatus() {
+        synchronized (lock) {
+            final Map<String, String> status = Recording.status(model);
+
+            // The sample count changes with every sample, and is sent with
+            // the sample frames.
+            if (lastStatus == null ||
+                !status.get("state").equals(lastStatus.get("state"))) {
+                lastStatus = status;
+                fullFrame = null;
+
+                final StringBuilder result = new StringBuilder();
+                result.append("{\"status\":");
+                appendStatus(result, status);
+                result.append('}');
+                publish(result.toString());
+            }
+        }
+    }
+
+    private void publish(String frame) {
+        for (Subscription subscription : new ArrayList<>(subscriptions)) {
+            subscription.offer(frame);
+        }
+    }
+
+    private String fullFrame() {
+        if (fullFrame == null) {
+            final StringBuilder result = new StringBuilder();
+            result.append("{\"full\":true,\"status\":");
+            appendStatus(result, lastStatus != null ? lastStatus : Recording.status(model));
+            result.append(",\"columns\":{\"cumulative\":");
+            appendColumns(result, statisticsView.getCumulativeStatisticsView().getExpressionViews());
+            result.append(",\"latest\":");
+            appendColumns(result, statisticsView.getIntervalStatisticsView().getExpressionViews());
+            result.append("},\"tests\":[");
+
+            boolean first = true;
+
+            for (Map.Entry<Test, Row> entry : tests.entrySet()) {
+                if (!first) {
+                    result.append(',');
+                }
+
+                first = false;
+                appendTest(result, entry.getKey(), entry.getValue(), true);
+            }
+
+            result.append("],\"totals\":");
+            totals.append(result);
+            result.append('}');
+            fullFrame = result.toString();
+        }
+
+        return fullFrame;
+    }
+
+    private static void appendStatus(StringBuilder result, Map<String, String> status) {
+        result.append("{\"state\":");
+        appendString(result, status.get("state"));
+        result.append(",\"description\":");
+        appendString(result, status.get("description"));
+        result.append(",\"sample-count\":");
+        appendString(result, status.get("sample-count"));
+        result.append('}');
+    }
+
+    private static void appendColumns(StringBuilder result, ExpressionView[] views) {
+        result.append('[');
+
+        for (int i = 0; i < views.length; ++i) {
+            if (i > 0) {
+                result.append(',');
+            }
+
+            appendString(result, views[i].getDisplayName());
+        }
+
+        result.append(']');
+    }
+
+    private static void appendTest(StringBuilder result, Test test, Row row, boolean full) {
+        result.append("{\"test\":").append(test.getNumber());
+
+        if (full) {
+            result.append(",\"description\":");
+            appendString(result, test.getDescription());
+        }
+
+        result.append(',');
+        row.appendValues(result);
+        result.append('}');
+    }
+
+    private static void appendValues(StringBuilder result, Number[] values) {
+        result.append('[');
+
+        if (values != null) {
+            for (int i = 0; i < values.length; ++i) {
+                if (i > 0) {
+                    result.append(',');
+                }
+
+                final Number value = values[i];
+
+                if (value instanceof Double &&
+                    (((Double) value).isNaN() || ((Double) value).isInfinite())) {
+                    result.append("null");
+                }
+                else {
+                    result.append(value);
+                }
+            }
+        }
+
+        result.append(']');
+    }
+
+    private static void appendString(StringBuilder result, String value) {
+        if (value == null) {
+            result.append("null");
+            return;
+        }
+
+        result.append('"');
+
+        for (int i = 0; i < value.length(); ++i) {
+            final char c = value.charAt(i);
+
+            switch (c) {
+                case '"':
+                    result.append("\\\"");
+                    break;
+                case '\\':
+                    result.append("\\\\");
+                    break;
+                case '\n':
+                    result.append("\\n");
+                    break;
+                case '\r':
+                    result.append("\\r");
+                    break;
+                case '\t':
+                    result.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        result.append(String.format("\\u%04x", (int) c));
+                    }
+                    else {
+                        result.append(c);
+                    }
+            }
+        }
+
+        result.append('"');
+    }
+
+    private Number[] values(ExpressionView[] views, StatisticsSet statistics) {
+        final Number[] result = new Number[views.length];
+
+        for (int i = 0; i < views.length; ++i) {
+            final StatisticExpression e = views[i].getExpression();
+
+            try {
+                if (e.isDouble()) {
+                    result[i] = e.getDoubleValue(statistics);
+                }
+                else {
+                    result[i] = e.getLongValue(statistics);
+                }
+            }
+            catch (NullPointerException npe) {
+                result[i] = 0;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * The statistics last sampled for a test, or for the totals.
+     */
+    private final class Row {
+        private Number[] cumulative;
+        private Number[] latest;
+
+        /**
+         * @return {@code true} if the test has changed.
+         */
+        boolean update(StatisticsSet intervalStatistics, StatisticsSet cumulativeStatistics) {
+            final Number[] newLatest = values(
+                statisticsView.getIntervalStatisticsView().getExpressionViews(),
+                intervalStatistics);
+
+            cumulative = values(
+                statisticsView.getCumulativeStatisticsView().getExpressionViews(),
+                cumulativeStatistics);
+
+            final TestStatisticsQueries queries = statisticsView.getTestStatisticsQueries();
+
+            final boolean changed =
+                !Arrays.equals(newLatest, latest) ||
+                queries.getNumberOfTests(intervalStatistics) != 0 ||
+                queries.getNumberOfErrors(intervalStatistics) != 0;
+
+            latest = newLatest;
+
+            return changed;
+        }
+
+        void appendValues(StringBuilder result) {
+            result.append("\"cumulative\":");
+            LiveStatistics.appendValues(result, cumulative);
+            result.append(",\"latest\":");
+            LiveStatistics.appendValues(result, latest);
+        }
+
+        void append(StringBuilder result) {
+            result.append('{');
+            appendValues(result);
+            result.append('}');
+        }
+    }
+
+    /**
+     * A subscription to the stream of frames.
+     */
+    public final class Subscription implements Runnable {
+        private final Subscriber subscriber;
+
+        // Guarded by lock.
+        private final Deque<String> pending = new ArrayDeque<>();
+        private boolean resynchronise = true;
+        private boolean sending = false;
+        private boolean closed = false;
+
+        private Subscription(Subscriber subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        private void offer(String frame) {
+            if (!resynchronise) {
+                if (pending.size() < MAX_PENDING_FRAMES) {
+                    pending.add(frame);
+                }
+                else {
+                    // The subscriber is not keeping up. Replace the backlog
+                    // with a full frame, created when it is next sent.
+                    pending.clear();
+                    resynchronise = true;
+                }
+            }
+
+            schedule();
+        }
+
+        private void schedule() {
+            if (!sending && !closed) {
+                sending = true;
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                final String frame;
+
+                synchronized (lock) {
+                    if (closed) {
+                        sending = false;
+                        return;
+                    }
+
+                    if (resynchronise) {
+                        resynchronise = false;
+                        pending.clear();
+                        frame = fullFrame();
+                    }
+                    else {
+                        frame = pending.poll();
+
+                        if (frame == null) {
+                            sending = false;
+                            return;
+                        }
+                    }
+                }
+
+                try {
+                    subscriber.send(frame);
+                }
+                catch (Exception e) {
+                    close();
+                }
+            }
+        }
+
+        /**
+         * Stop sending frames to the subscriber.
+         */
+        public void close() {
+            synchronized (lock) {
+                closed = true;
+                pending.clear();
+                subscriptions.remove(this);
+            }
+        }
+    }
+}
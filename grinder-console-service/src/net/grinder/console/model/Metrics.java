@@ -0,0 +1,545 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.console.model;
+
+import net.grinder.common.Test;
+import net.grinder.common.processidentity.ProcessReport;
+import net.grinder.common.processidentity.WorkerProcessReport;
+import net.grinder.console.communication.ProcessControl;
+import net.grinder.console.service.Bootstrap;
+import net.grinder.statistics.StatisticExpression;
+import net.grinder.statistics.StatisticsIndexMap;
+import net.grinder.statistics.StatisticsServicesImplementation;
+import net.grinder.statistics.StatisticsSet;
+import net.grinder.statistics.TestStatisticsQueries;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Renders the recording data and the process status in the OpenMetrics text
+ * format, so they can be scraped by Prometheus and similar monitoring systems.
+ *
+ * <p>
+ * The following metric families are written. Each test's series have
+ * <code>test</code> and <code>description</code> labels.
+ * </p>
+ *
+ * <ul>
+ * <li><code>grinder_state</code> - the sample model state.</li>
+ * <li><code>grinder_tests_total</code>, <code>grinder_errors_total</code> -
+ * the cumulative number of tests and errors.</li>
+ * <li><code>grinder_test_time</code> - a histogram of the cumulative test
+ * times.</li>
+ * <li><code>grinder_tps</code> - the TPS of the latest sample.</li>
+ * <li><code>grinder_agent_state</code>, <code>grinder_worker_state</code>,
+ * <code>grinder_worker_threads</code>,
+ * <code>grinder_worker_maximum_threads</code> - the status of the connected
+ * agent and worker processes.</li>
+ * </ul>
+ *
+ * <p>
+ * The exposition is encoded into a buffer that is reused between scrapes, and
+ * the labels of each test are only encoded once, so a scrape does very little
+ * allocation however many tests there are.
+ * </p>
+ *
+ * @author Philip Aston
+ */
+public class Metrics {
+
+    /**
+     * The content type of the exposition.
+     */
+    public static final String CONTENT_TYPE =
+            "application/openmetrics-text; version=1.0.0; charset=utf-8";
+
+    /**
+     * The upper bounds of the test time histogram buckets, in the
+     * worker process reporting time unit.
+     */
+    static final long[] BUCKETS = {
+        1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 20000, 60000,
+    };
+
+    private static final byte[][] BUCKET_LABELS = new byte[BUCKETS.length][];
+
+    static {
+        for (int i = 0; i < BUCKETS.length; ++i) {
+            BUCKET_LABELS[i] = bytes("le=\"" + BUCKETS[i] + ".0\"} ");
+        }
+    }
+
+    private static final byte[] INFINITE_BUCKET_LABEL = bytes("le=\"+Inf\"} ");
+
+    private static final byte[] STATE_FAMILY = bytes(
+            "# TYPE grinder_state stateset\n" +
+            "# HELP grinder_state The console sample model state.\n");
+
+    private static final byte[] TESTS_FAMILY = bytes(
+            "# TYPE grinder_tests counter\n" +
+            "# HELP grinder_tests Tests performed, including those that failed.\n");
+
+    private static final byte[] ERRORS_FAMILY = bytes(
+            "# TYPE grinder_errors counter\n" +
+            "# HELP grinder_errors Tests that failed.\n");
+
+    private static final byte[] TEST_TIME_FAMILY = bytes(
+            "# TYPE grinder_test_time histogram\n" +
+            "# HELP grinder_test_time Test time of successful tests, " +
+            "in the worker process grinder.reportTimeUnit, milliseconds by default.\n");
+
+    private static final byte[] TPS_FAMILY = bytes(
+            "# TYPE grinder_tps gauge\n" +
+            "# HELP grinder_tps Tests per second over the latest sample interval.\n");
+
+    private static final byte[] AGENT_STATE_FAMILY = bytes(
+            "# TYPE grinder_agent_state stateset\n" +
+            "# HELP grinder_agent_state The state of each connected agent process.\n");
+
+    private static final byte[] WORKER_STATE_FAMILY = bytes(
+            "# TYPE grinder_worker_state stateset\n" +
+            "# HELP grinder_worker_state The state of each worker process.\n");
+
+    private static final byte[] WORKER_THREADS_FAMILY = bytes(
+            "# TYPE grinder_worker_threads gauge\n" +
+            "# HELP grinder_worker_threads The number of running worker threads.\n");
+
+    private static final byte[] WORKER_MAXIMUM_THREADS_FAMILY = bytes(
+            "# TYPE grinder_worker_maximum_threads gauge\n" +
+            "# HELP grinder_worker_maximum_threads The number of worker threads.\n");
+
+    private static final byte[] EOF = bytes("# EOF\n");
+
+    SampleModel model = null;
+    SampleModelViews statisticsView = null;
+
+    private final StatisticsIndexMap.LongSampleIndex timedTestsIndex =
+            StatisticsServicesImplementation.getInstance()
+                    .getStatisticsIndexMap().getLongSampleIndex("timedTests");
+
+    private volatile ModelTestIndex testIndex;
+    private volatile ProcessControl.ProcessReports[] processReports;
+
+    // Guarded by this.
+    private final Map<Test, byte[]> testLabels = new HashMap<>();
+    private final long[] counts = new long[BUCKETS.length];
+    private byte[] buffer = new byte[8192];
+    private int length;
+
+    public void init() {
+        if (this.model == null) {
+            if (Bootstrap.getInstance() != null) {
+                this.model = Bootstrap.getInstance().getModel();
+                this.statisticsView = Bootstrap.getInstance().getSampleModelViews();
+                this.testIndex = Bootstrap.getInstance().getTestIndex();
+
+                this.model.addModelListener(new SampleModel.AbstractListener() {
+                    @Override
+                    public void newTests(Set<Test> newTests, ModelTestIndex modelTestIndex) {
+                        testIndex = modelTestIndex;
+                    }
+
+                    @Override
+                    public void resetTests() {
+                        testIndex = null;
+                    }
+                });
+
+                Bootstrap.getInstance().getProcessControl().addProcessStatusListener(
+                        new ProcessControl.Listener() {
+                            @Override
+                            public void update(ProcessControl.ProcessReports[] reports) {
+                                processReports = reports;
+                            }
+                        });
+            }
+            else {
+                throw new IllegalStateException("Metrics not correctly initialized.");
+            }
+        }
+    }
+
+    /**
+     * Write the exposition.
+     *
+     * @param out Where to write it.
+     * @throws IOException If the exposition could not be written.
+     */
+    public synchronized void write(OutputStream out) throws IOException {
+        init();
+        length = 0;
+
+        writeModelState();
+
+        final ModelTestIndex index = testIndex;
+
+        if (index == null) {
+            testLabels.clear();
+        }
+        else {
+            writeTests(index);
+        }
+
+        writeProcesses(processReports);
+
+        append(EOF);
+        out.write(buffer, 0, length);
+    }
+
+    private void writeModelState() {
+        append(STATE_FAMILY);
+
+        final SampleModel.State.Value state = model.getState().getValue();
+
+        for (SampleModel.State.Value value : SampleModel.State.Value.values()) {
+            appendStateSetValue("grinder_state", null, value.name(), value == state);
+        }
+    }
+
+    private void writeTests(ModelTestIndex index) {
+        final int numberOfTests = index.getNumberOfTests();
+        final TestStatisticsQueries queries = statisticsView.getTestStatisticsQueries();
+
+        append(TESTS_FAMILY);
+
+        for (int i = 0; i < numberOfTests; ++i) {
+            appendSample("grinder_tests_total", labels(index.getTest(i)),
+                    queries.getNumberOfTests(index.getCumulativeStatistics(i)));
+        }
+
+        append(ERRORS_FAMILY);
+
+        for (int i = 0; i < numberOfTests; ++i) {
+            appendSample("grinder_errors_total", labels(index.getTest(i)),
+                    queries.getNumberOfErrors(index.getCumulativeStatistics(i)));
+        }
+
+        append(TEST_TIME_FAMILY);
+
+        for (int i = 0; i < numberOfTests; ++i) {
+            final byte[] labels = labels(index.getTest(i));
+            final StatisticsSet statistics = index.getCumulativeStatistics(i);
+            final long count;
+            final long sum;
+
+            // Hold the statistics lock so the buckets agree with the count.
+            synchronized (statistics) {
+                count = statistics.getCount(timedTestsIndex);
+                sum = statistics.getSum(timedTestsIndex);
+
+                if (statistics.getCumulativeCounts(timedTestsIndex, BUCKETS, counts)) {
+                    for (int j = 0; j < BUCKETS.length; ++j) {
+                        appendName("grinder_test_time_bucket");
+                        append((byte) '{');
+                        append(labels);
+                        append((byte) ',');
+                        append(BUCKET_LABELS[j]);
+                        appendLong(counts[j]);
+                        append((byte) '\n');
+                    }
+                }
+            }
+
+            appendName("grinder_test_time_bucket");
+            append((byte) '{');
+            append(labels);
+            append((byte) ',');
+            append(INFINITE_BUCKET_LABEL);
+            appendLong(count);
+            append((byte) '\n');
+
+            appendSample("grinder_test_time_count", labels, count);
+            appendSample("grinder_test_time_sum", labels, sum);
+        }
+
+        append(TPS_FAMILY);
+
+        final StatisticExpression tpsExpression = model.getTPSExpression();
+
+        for (int i = 0; i < numberOfTests; ++i) {
+            appendName("grinder_tps");
+            appendLabels(labels(index.getTest(i)));
+            appendDouble(tpsExpression.getDoubleValue(index.getLastSampleStatistics(i)));
+            append((byte) '\n');
+        }
+    }
+
+    private void writeProcesses(ProcessControl.ProcessReports[] reports) {
+        if (reports == null) {
+            return;
+        }
+
+        append(AGENT_STATE_FAMILY);
+
+        for (ProcessControl.ProcessReports report : reports) {
+            final ProcessReport agent = report.getAgentProcessReport();
+            final String name = agent.getProcessAddress().getIdentity().getName();
+
+            for (ProcessReport.State value : ProcessReport.State.values()) {
+                appendStateSetValue("grinder_agent_state", name, value.name(),
+                        value == agent.getState());
+            }
+        }
+
+        append(WORKER_STATE_FAMILY);
+
+        for (ProcessControl.ProcessReports report : reports) {
+            for (WorkerProcessReport worker : report.getWorkerProcessReports()) {
+                for (ProcessReport.State value : ProcessReport.State.values()) {
+                    appendName("grinder_worker_state");
+                    append((byte) '{');
+                    appendWorkerLabels(report, worker);
+                    appendLabel(",grinder_worker_state=\"", value.name());
+                    append((byte) '}');
+                    append((byte) ' ');
+                    append((byte) (value == worker.getState() ? '1' : '0'));
+                    append((byte) '\n');
+                }
+            }
+        }
+
+        append(WORKER_THREADS_FAMILY);
+
+        for (ProcessControl.ProcessReports report : reports) {
+            for (WorkerProcessReport worker : report.getWorkerProcessReports()) {
+                appendWorkerSample("grinder_worker_threads", report, worker,
+                        worker.getNumberOfRunningThreads());
+            }
+        }
+
+        append(WORKER_MAXIMUM_THREADS_FAMILY);
+
+        for (ProcessControl.ProcessReports report : reports) {
+            for (WorkerProcessReport worker : report.getWorkerProcessReports()) {
+                appendWorkerSample("grinder_worker_maximum_threads", report, worker,
+                        worker.getMaximumNumberOfThreads());
+            }
+        }
+    }
+
+    private byte[] labels(Test test) {
+        byte[] result = testLabels.get(test);
+
+        if (result == null) {
+            final int start = length;
+            appendLabel("test=\"", Integer.toString(test.getNumber()));
+            appendLabel(",description=\"",
+                    test.getDescription() != null ? test.getDescription() : "");
+            result = new byte[length - start];
+            System.arraycopy(buffer, start, result, 0, result.length);
+            length = start;
+            testLabels.put(test, result);
+        }
+
+        return result;
+    }
+
+    private void appendStateSetValue(String name, String agent, String value, boolean set) {
+        appendName(name);
+        append((byte) '{');
+
+        if (agent != null) {
+            appendLabel("agent=\"", agent);
+            append((byte) ',');
+        }
+
+        appendLabel(name + "=\"", value);
+        append((byte) '}');
+        append((byte) ' ');
+        append((byte) (set ? '1' : '0'));
+        append((byte) '\n');
+    }
+
+    private void appendWorkerLabels(ProcessControl.ProcessReports report,
+                                    WorkerProcessReport worker) {
+        appendLabel("agent=\"",
+                report.getAgentProcessReport().getProcessAddress().getIdentity().getName());
+        appendLabel(",worker=\"", worker.getWorkerIdentity().getName());
+    }
+
+    private void appendWorkerSample(String name,
+                                    ProcessControl.ProcessReports report,
+                                    WorkerProcessReport worker,
+                                    long value) {
+        appendName(name);
+        append((byte) '{');
+        appendWorkerLabels(report, worker);
+        append((byte) '}');
+        append((byte) ' ');
+        appendLong(value);
+        append((byte) '\n');
+    }
+
+    private void appendSample(String name, byte[] labels, long value) {
+        appendName(name);
+        appendLabels(labels);
+        appendLong(value);
+        append((byte) '\n');
+    }
+
+    private void appendLabels(byte[] labels) {
+        append((byte) '{');
+        append(labels);
+        append((byte) '}');
+        append((byte) ' ');
+    }
+
+    /**
+     * Append a label name, which includes the opening quote, and the escaped
+     * label value, followed by the closing quote.
+     */
+    private void appendLabel(String name, String value) {
+        appendName(name);
+
+        for (int i = 0; i < value.length(); ++i) {
+            final char c = value.charAt(i);
+
+            switch (c) {
+                case '\\':
+                    append((byte) '\\');
+                    append((byte) '\\');
+                    break;
+
+                case '"':
+                    append((byte) '\\');
+                    append((byte) '"');
+                    break;
+
+                case '\n':
+                    append((byte) '\\');
+                    append((byte) 'n');
+                    break;
+
+                default:
+                    if (c < 0x80) {
+                        append((byte) c);
+                    }
+                    else if (c < 0x800) {
+                        append((byte) (0xc0 | c >> 6));
+                        append((byte) (0x80 | c & 0x3f));
+                    }
+                    else if (Character.isHighSurrogate(c) &&
+                             i + 1 < value.length() &&
+                             Character.isLowSurrogate(value.charAt(i + 1))) {
+                        final int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                        append((byte) (0xf0 | codePoint >> 18));
+                        append((byte) (0x80 | codePoint >> 12 & 0x3f));
+                        append((byte) (0x80 | codePoint >> 6 & 0x3f));
+                        append((byte) (0x80 | codePoint & 0x3f));
+                    }
+                    else if (Character.isSurrogate(c)) {
+                        append((byte) '?');
+                    }
+                    else {
+                        append((byte) (0xe0 | c >> 12));
+                        append((byte) (0x80 | c >> 6 & 0x3f));
+                        append((byte) (0x80 | c & 0x3f));
+                    }
+            }
+        }
+
+        append((byte) '"');
+    }
+
+    /**
+     * Append a string that is known to be ASCII.
+     */
+    private void appendName(String name) {
+        final int n = name.length();
+        ensureCapacity(n);
+
+        for (int i = 0; i < n; ++i) {
+            buffer[length++] = (byte) name.charAt(i);
+        }
+    }
+
+    private void appendLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            appendName(Long.toString(value));
+            return;
+        }
+
+        ensureCapacity(20);
+
+        if (value < 0) {
+            buffer[length++] = '-';
+            value = -value;
+        }
+
+        final int start = length;
+
+        do {
+            buffer[length++] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        while (value != 0);
+
+        for (int i = start, j = length - 1; i < j; ++i, --j) {
+            final byte b = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = b;
+        }
+    }
+
+    private void appendDouble(double value) {
+        if (Double.isNaN(value)) {
+            appendName("NaN");
+        }
+        else if (Double.isInfinite(value)) {
+            appendName(value > 0 ? "+Inf" : "-Inf");
+        }
+        else if (value == (long) value) {
+            appendLong((long) value);
+        }
+        else {
+            appendName(Double.toString(value));
+        }
+    }
+
+    private void append(byte b) {
+        ensureCapacity(1);
+        buffer[length++] = b;
+    }
+
+    private void append(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+    }
+
+    private void ensureCapacity(int n) {
+        if (length + n > buffer.length) {
+            final byte[] newBuffer = new byte[Math.max(buffer.length * 2, length + n)];
+            System.arraycopy(buffer, 0, newBuffer, 0, length);
+            buffer = newBuffer;
+        }
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -125,6 +125,19 @@ public class Processes {
         return "success";
     }
 
+    /**
+     * Change the arrival rate of worker processes that are running an open
+     * workload. The rate is in runs per second, for each worker process.
+     */
+    public String setArrivalRate(double runsPerSecond) {
+        init();
+        if (runsPerSecond < 0) {
+            return "error";
+        }
+        pc.setArrivalRate(runsPerSecond);
+        return "success";
+    }
+
     /**
      * Stop the agents, and their workers.
      */
@@ -146,10 +159,11 @@ public class Processes {
         return agent;
     }
 
-    private Map<String, Short> toWorkerReport(WorkerProcessReport workerReport) {
-        Map<String, Short> result = new HashMap<>(2);
+    private Map<String, Integer> toWorkerReport(WorkerProcessReport workerReport) {
+        Map<String, Integer> result = new HashMap<>(2);
         result.put("running-threads", workerReport.getNumberOfRunningThreads());
         result.put("maximum-threads", workerReport.getMaximumNumberOfThreads());
+        result.put("saturated", workerReport.isSaturated() ? 1 : 0);
         return result;
     }
 }
@@ -133,6 +133,10 @@ public class Recording {
      */
     public Map<String, String> status() {
         init();
+        return status(model);
+    }
+
+    static Map<String, String> status(SampleModel model) {
         SampleModel.State s = model.getState();
         String description = "";
         String state = "unknown";
@@ -28,6 +28,7 @@ import net.grinder.console.communication.ProcessControl;
 import net.grinder.console.distribution.FileDistribution;
 import net.grinder.console.model.ConsoleProperties;
 import net.grinder.console.model.ModelTestIndex;
+import net.grinder.console.model.SampleHistory;
 import net.grinder.console.model.SampleModel;
 import net.grinder.console.model.SampleModelViews;
 import org.picocontainer.Startable;
@@ -43,6 +44,7 @@ public class Bootstrap implements Startable {
     protected ConsoleProperties consoleProperties;
     protected final SampleModel model;
     protected final SampleModelViews sampleModelViews;
+    protected final SampleHistory sampleHistory;
     protected ProcessControl processControl;
     protected FileDistribution fileDistribution;
     protected ProcessControl.ProcessReports[] m_processReports;
@@ -70,6 +72,24 @@ public class Bootstrap implements Startable {
                      ErrorQueue errorQueue,
                      FileDistribution fileDistribution)
             throws ConsoleException    {
+        this(consoleProperties,
+             modelParam,
+             sampleModelViewsParam,
+             null,
+             processControl,
+             errorQueue,
+             fileDistribution);
+    }
+
+    public Bootstrap(ConsoleProperties consoleProperties,
+                     SampleModel modelParam,
+                     SampleModelViews sampleModelViewsParam,
+                     SampleHistory sampleHistoryParam,
+                     ProcessControl processControl,
+                     ErrorQueue errorQueue,
+                     FileDistribution fileDistribution)
+            throws ConsoleException    {
+        this.sampleHistory = sampleHistoryParam;
         try {
             this.errorQueue = errorQueue;
             this.consoleProperties = consoleProperties;
@@ -119,4 +139,12 @@ public class Bootstrap implements Startable {
     public SampleModel getModel() {
         return model;
     }
+
+    public SampleHistory getSampleHistory() {
+        return sampleHistory;
+    }
+
+    public ModelTestIndex getTestIndex() {
+        return testIndex;
+    }
 }
\ No newline at end of file
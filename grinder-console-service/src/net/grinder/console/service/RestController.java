@@ -11,8 +11,12 @@ import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
@@ -25,6 +29,9 @@ public class RestController {
     static Processes processes = new Processes();
     static Files     files     = new Files();
     static Recording recording = new Recording();
+    static LiveStatistics liveStatistics = new LiveStatistics();
+    static History history = new History();
+    static Metrics metrics = new Metrics();
 
     /**
      * Returns the version of The Grinder.
@@ -111,6 +118,16 @@ public class RestController {
         return processes.stopWorkers();
     }
 
+    /**
+     * Change the arrival rate of worker processes that are running an open workload.
+     */
+    @RequestMapping(value="/agents/arrival-rate", method = RequestMethod.POST, produces={MediaType.TEXT_PLAIN_VALUE})
+    @ResponseBody
+    String setArrivalRate(@RequestBody Map<String, Double> rate){
+        Double runsPerSecond = rate.get("rate");
+        return runsPerSecond == null ? "error" : processes.setArrivalRate(runsPerSecond);
+    }
+
     /**
      * Start the distribution of files to agents that have an out of date cache. Distribution may take some time,
      * so the service will return immediately and the files will be distributed in proceeds in the background.
@@ -150,6 +167,58 @@ public class RestController {
         return recording.dataLatest();
     }
 
+    /**
+     * Stream the recorded data as server-sent events, as each sample is taken. The first event contains all the
+     * data; each subsequent event contains the changes. See {@link LiveStatistics} for the format.
+     */
+    @RequestMapping(value="/recording/stream", method = RequestMethod.GET, produces={MediaType.TEXT_EVENT_STREAM_VALUE})
+    @ResponseBody
+    SseEmitter getRecordingStream(){
+        final SseEmitter emitter = new SseEmitter(0L);
+        final LiveStatistics.Subscription subscription = liveStatistics.subscribe(
+                new LiveStatistics.Subscriber() {
+                    @Override
+                    public void send(String frame) throws Exception {
+                        emitter.send(SseEmitter.event().data(frame, MediaType.APPLICATION_JSON));
+                    }
+                });
+        final Runnable close = new Runnable() {
+            @Override
+            public void run() {
+                subscription.close();
+            }
+        };
+        emitter.onCompletion(close);
+        emitter.onTimeout(close);
+        return emitter;
+    }
+
+    /**
+     * Return the data recorded for each sample in a time range, for each test and the totals. Recent samples
+     * are at the sample interval; older samples have been combined into longer periods.
+     * @param test only return the samples for this test number
+     * @param from the start of the time range, in milliseconds since the Epoch
+     * @param to the end of the time range, in milliseconds since the Epoch
+     */
+    @RequestMapping(value="/recording/history", method = RequestMethod.GET, produces={MediaType.APPLICATION_JSON_VALUE})
+    @ResponseBody
+    Map<String, Object> getRecordingHistory(@RequestParam(value="test", required=false) Integer test,
+                                            @RequestParam(value="from", defaultValue="0") long from,
+                                            @RequestParam(value="to", defaultValue="" + Long.MAX_VALUE) long to){
+        return history.data(test, from, to);
+    }
+
+    /**
+     * Return the cumulative statistics of each test, its latest TPS, and the status of the agent and worker
+     * processes, in the OpenMetrics text format. See {@link Metrics} for the metrics.
+     * @param response the response to write the metrics to
+     */
+    @RequestMapping(value="/metrics", method = RequestMethod.GET)
+    void getMetrics(HttpServletResponse response) throws IOException {
+        response.setContentType(Metrics.CONTENT_TYPE);
+        metrics.write(response.getOutputStream());
+    }
+
     /**
      * Start capturing data. An initial number of samples may be ignored, depending on the configured console options.
      */
@@ -0,0 +1,154 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+
+package net.grinder.test.console.model;
+
+import net.grinder.common.StubTest;
+import net.grinder.console.common.ConsoleException;
+import net.grinder.console.common.ErrorHandler;
+import net.grinder.console.communication.ProcessControl;
+import net.grinder.console.model.*;
+import net.grinder.console.service.Bootstrap;
+import net.grinder.statistics.StatisticsIndexMap;
+import net.grinder.statistics.StatisticsServices;
+import net.grinder.statistics.StatisticsServicesImplementation;
+import net.grinder.statistics.StatisticsSet;
+import net.grinder.util.TimeAuthority;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.mockito.internal.util.reflection.Whitebox;
+
+import java.util.*;
+
+/**
+ * Unit tests for {@link History}.
+ *
+ * @author Philip Aston
+ */
+public class TestHistory {
+
+    private final StatisticsServices statisticsServices =
+            StatisticsServicesImplementation.getInstance();
+
+    @Test
+    public void testUninitialised() throws ConsoleException {
+        Bootstrap bootstrap = Mockito.mock(Bootstrap.class);
+        Whitebox.setInternalState(bootstrap, "INSTANCE", null);
+        try {
+            new History().data(null, 0, Long.MAX_VALUE);
+            Assert.fail();
+        }
+        catch (IllegalStateException e) {
+            Assert.assertTrue(true);
+        }
+
+        // A Bootstrap without a sample history.
+        Whitebox.setInternalState(bootstrap, "INSTANCE", new Bootstrap(
+                null,
+                Mockito.mock(SampleModel.class),
+                null,
+                Mockito.mock(ProcessControl.class),
+                null,
+                null ));
+        try {
+            new History().data(null, 0, Long.MAX_VALUE);
+            Assert.fail();
+        }
+        catch (IllegalStateException e) {
+            Assert.assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testData() throws ConsoleException {
+        SampleModel model = Mockito.mock(SampleModel.class);
+        final long[] time = { 5000 };
+        SampleHistory sampleHistory = new SampleHistory(model, statisticsServices, new TimeAuthority() {
+            @Override
+            public long getTimeInMilliseconds() { return time[0]; }
+            @Override
+            public long getTimeInNanoseconds() { return time[0] * 1000000; }
+        }, Mockito.mock(ErrorHandler.class));
+
+        Bootstrap bootstrap = Mockito.mock(Bootstrap.class);
+        Whitebox.setInternalState(bootstrap, "INSTANCE", new Bootstrap(
+                null,
+                model,
+                null,
+                sampleHistory,
+                Mockito.mock(ProcessControl.class),
+                null,
+                null ));
+
+        History history = new History();
+        Map<String, Object> result = history.data(null, 0, Long.MAX_VALUE);
+        Assert.assertEquals(Arrays.asList("time", "period", "tests", "errors", "tps", "mean-test-time",
+                "test-time-standard-deviation"), result.get("columns"));
+        Assert.assertEquals(Collections.emptyList(), result.get("tests"));
+        Assert.assertEquals(Collections.emptyList(), result.get("totals"));
+
+        // Register two tests, and take a sample.
+        ArgumentCaptor<SampleModel.Listener> modelListener = ArgumentCaptor.forClass(SampleModel.Listener.class);
+        Mockito.verify(model, Mockito.atLeastOnce()).addModelListener(modelListener.capture());
+        for (SampleModel.Listener listener : modelListener.getAllValues()) {
+            listener.newTests(new HashSet<net.grinder.common.Test>(Arrays.asList(
+                    new StubTest(1, "first"), new StubTest(2, "second"))), new ModelTestIndex());
+        }
+
+        ArgumentCaptor<SampleListener> testListener = ArgumentCaptor.forClass(SampleListener.class);
+        Mockito.verify(model, Mockito.times(2)).addSampleListener(
+                Mockito.any(net.grinder.common.Test.class), testListener.capture());
+        ArgumentCaptor<SampleListener> totalListener = ArgumentCaptor.forClass(SampleListener.class);
+        Mockito.verify(model).addTotalSampleListener(totalListener.capture());
+
+        StatisticsIndexMap.LongSampleIndex timedTests =
+                statisticsServices.getStatisticsIndexMap().getLongSampleIndex("timedTests");
+        StatisticsIndexMap.LongIndex period = statisticsServices.getStatisticsIndexMap().getLongIndex("period");
+        StatisticsSet statistics = statisticsServices.getStatisticsSetFactory().create();
+        statistics.setValue(period, 1000);
+        statistics.addSample(timedTests, 10);
+        statistics.addSample(timedTests, 30);
+
+        for (SampleListener listener : testListener.getAllValues()) {
+            listener.update(statistics, statistics);
+        }
+        totalListener.getValue().update(statistics, statistics);
+        for (SampleModel.Listener listener : modelListener.getAllValues()) {
+            listener.newSample();
+        }
+
+        result = history.data(2, 0, Long.MAX_VALUE);
+        List<?> tests = (List<?>) result.get("tests");
+        Assert.assertEquals(1, tests.size());
+        Map<?, ?> test = (Map<?, ?>) tests.get(0);
+        Assert.assertEquals(2, test.get("test"));
+        Assert.assertEquals("second", test.get("description"));
+        List<Number> expected = Arrays.<Number>asList(5000L, 1000L, 2L, 0L, 2.0, 20.0, 10.0);
+        Assert.assertEquals(Collections.singletonList(expected), test.get("samples"));
+        Assert.assertEquals(Collections.singletonList(expected), result.get("totals"));
+
+        Assert.assertEquals(2, ((List<?>) history.data(null, 0, Long.MAX_VALUE).get("tests")).size());
+        Assert.assertEquals(Collections.emptyList(), history.data(null, 6000, 7000).get("totals"));
+    }
+}
@@ -0,0 +1,317 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.test.console.model;
+
+import net.grinder.common.StubTest;
+import net.grinder.console.common.ConsoleException;
+import net.grinder.console.communication.ProcessControl;
+import net.grinder.console.model.*;
+import net.grinder.console.service.Bootstrap;
+import net.grinder.statistics.StatisticsIndexMap;
+import net.grinder.statistics.StatisticsServices;
+import net.grinder.statistics.StatisticsServicesImplementation;
+import net.grinder.statistics.StatisticsSet;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.mockito.internal.util.reflection.Whitebox;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.*;
+import java.util.concurrent.Executor;
+
+/**
+ * Unit tests for {@link LiveStatistics}.
+ *
+ * @author Philip Aston
+ */
+public class TestLiveStatistics {
+
+    private static final StatisticsServices statisticsServices =
+            StatisticsServicesImplementation.getInstance();
+
+    private final StatisticsIndexMap.LongSampleIndex timedTestsIndex =
+            statisticsServices.getStatisticsIndexMap().getLongSampleIndex("timedTests");
+
+    private final StatisticsIndexMap.LongIndex periodIndex =
+            statisticsServices.getStatisticsIndexMap().getLongIndex("period");
+
+    private final net.grinder.common.Test test1 = new StubTest(1, "first");
+    private final net.grinder.common.Test test2 = new StubTest(2, "second");
+
+    private final List<Runnable> queuedTasks = new ArrayList<>();
+    private boolean queueTasks = false;
+
+    private final Executor executor = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            if (queueTasks) {
+                queuedTasks.add(command);
+            }
+            else {
+                command.run();
+            }
+        }
+    };
+
+    private final Map<net.grinder.common.Test, StatisticsSet> cumulative = new HashMap<>();
+
+    private SampleModel model;
+    private String state;
+    private LiveStatistics liveStatistics;
+
+    @Before
+    public void setUp() throws ConsoleException {
+        model = Mockito.mock(SampleModel.class);
+        state = "Recording";
+        Mockito.when(model.getState()).thenAnswer(new Answer<SampleModel.State>() {
+            @Override
+            public SampleModel.State answer(InvocationOnMock invocation) throws Throwable {
+                return new SampleModel.State() {
+                    @Override
+                    public Value getValue() { return Value.valueOf(state); }
+                    @Override
+                    public String getDescription() { return "description"; }
+                    @Override
+                    public long getSampleCount() { return 0; }
+                };
+            }
+        });
+
+        SampleModelViews views = Mockito.mock(SampleModelViews.class);
+        Mockito.when(views.getCumulativeStatisticsView()).thenReturn(
+                statisticsServices.getSummaryStatisticsView());
+        Mockito.when(views.getIntervalStatisticsView()).thenReturn(
+                statisticsServices.getSummaryStatisticsView());
+        Mockito.when(views.getTestStatisticsQueries()).thenReturn(
+                statisticsServices.getTestStatisticsQueries());
+
+        Bootstrap bootstrap = Mockito.mock(Bootstrap.class);
+        ProcessControl pc = Mockito.mock(ProcessControl.class);
+        Whitebox.setInternalState(bootstrap, "INSTANCE", new Bootstrap(
+                null,
+                model,
+                views,
+                pc,
+                null,
+                null ));
+
+        liveStatistics = new LiveStatistics(executor);
+    }
+
+    private List<SampleModel.Listener> modelListeners() {
+        ArgumentCaptor<SampleModel.Listener> captor = ArgumentCaptor.forClass(SampleModel.Listener.class);
+        Mockito.verify(model, Mockito.atLeastOnce()).addModelListener(captor.capture());
+        return captor.getAllValues();
+    }
+
+    private void newTests(net.grinder.common.Test... tests) {
+        for (SampleModel.Listener listener : modelListeners()) {
+            listener.newTests(new HashSet<>(Arrays.asList(tests)), new ModelTestIndex());
+        }
+    }
+
+    private void sample(net.grinder.common.Test... invokedTests) {
+        final Set<net.grinder.common.Test> invoked = new HashSet<>(Arrays.asList(invokedTests));
+
+        ArgumentCaptor<net.grinder.common.Test> testCaptor = ArgumentCaptor.forClass(net.grinder.common.Test.class);
+        ArgumentCaptor<SampleListener> listenerCaptor = ArgumentCaptor.forClass(SampleListener.class);
+        Mockito.verify(model, Mockito.atLeast(0)).addSampleListener(testCaptor.capture(), listenerCaptor.capture());
+
+        for (int i = 0; i < testCaptor.getAllValues().size(); ++i) {
+            net.grinder.common.Test test = testCaptor.getAllValues().get(i);
+            StatisticsSet interval = statisticsServices.getStatisticsSetFactory().create();
+            interval.setValue(periodIndex, 1000);
+
+            if (invoked.contains(test)) {
+                interval.addSample(timedTestsIndex, 10);
+            }
+
+            if (!cumulative.containsKey(test)) {
+                cumulative.put(test, statisticsServices.getStatisticsSetFactory().create());
+            }
+
+            cumulative.get(test).add(interval);
+            listenerCaptor.getAllValues().get(i).update(interval, cumulative.get(test));
+        }
+
+        for (SampleModel.Listener listener : modelListeners()) {
+            listener.stateChanged();
+            listener.newSample();
+        }
+    }
+
+    @Test
+    public void testUninitialised() {
+        Bootstrap bootstrap = Mockito.mock(Bootstrap.class);
+        Whitebox.setInternalState(bootstrap, "INSTANCE", null);
+
+        try {
+            new LiveStatistics(executor).subscribe(new FrameList());
+            Assert.fail();
+        }
+        catch (IllegalStateException e) {
+            Assert.assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testFullFrameOnSubscribe() {
+        newTests(test1);
+        FrameList frames = new FrameList();
+        liveStatistics.subscribe(frames);
+
+        Assert.assertEquals(1, frames.size());
+        Assert.assertTrue(frames.get(0).startsWith("{\"full\":true,"));
+        Assert.assertTrue(frames.get(0).contains("\"columns\":{\"cumulative\":[\"Tests\","));
+        Assert.assertTrue(frames.get(0).contains("{\"test\":1,\"description\":\"first\","));
+        Assert.assertEquals(1, liveStatistics.getNumberOfSubscribers());
+    }
+
+    @Test
+    public void testOnlyChangedTestsSent() {
+        FrameList frames = new FrameList();
+        liveStatistics.subscribe(frames);
+        newTests(test1, test2);
+
+        // New tests result in a full frame.
+        sample(test1, test2);
+        Assert.assertTrue(frames.last().startsWith("{\"full\":true,"));
+
+        // test2 has become idle, so its interval statistics have changed.
+        sample(test1);
+        Assert.assertFalse(frames.last().contains("\"full\""));
+        Assert.assertFalse(frames.last().contains("\"columns\""));
+        Assert.assertTrue(frames.last().contains("\"test\":1,"));
+        Assert.assertTrue(frames.last().contains("\"test\":2,"));
+
+        sample(test1);
+        Assert.assertTrue(frames.last().contains("\"test\":1,"));
+        Assert.assertFalse(frames.last().contains("\"test\":2,"));
+
+        sample();
+        Assert.assertTrue(frames.last().contains("\"test\":1,"));
+
+        sample();
+        Assert.assertTrue(frames.last().contains("\"tests\":[]"));
+        Assert.assertTrue(frames.last().contains("\"totals\":{\"cumulative\":"));
+    }
+
+    @Test
+    public void testFramesShared() {
+        FrameList frames1 = new FrameList();
+        FrameList frames2 = new FrameList();
+        liveStatistics.subscribe(frames1);
+        liveStatistics.subscribe(frames2);
+        newTests(test1);
+        sample(test1);
+        sample(test1);
+
+        Assert.assertSame(frames1.last(), frames2.last());
+    }
+
+    @Test
+    public void testStatusFrame() {
+        FrameList frames = new FrameList();
+        liveStatistics.subscribe(frames);
+        sample();
+        int size = frames.size();
+
+        for (SampleModel.Listener listener : modelListeners()) {
+            listener.stateChanged();
+        }
+
+        Assert.assertEquals(size, frames.size());
+
+        state = "Stopped";
+        for (SampleModel.Listener listener : modelListeners()) {
+            listener.stateChanged();
+        }
+
+        Assert.assertEquals(size + 1, frames.size());
+        Assert.assertTrue(frames.last().startsWith("{\"status\":{\"state\":\"Stopped\","));
+    }
+
+    @Test
+    public void testSlowSubscriberResynchronised() {
+        newTests(test1);
+        queueTasks = true;
+        FrameList frames = new FrameList();
+        liveStatistics.subscribe(frames);
+
+        // Frames published before the first frame is sent are superseded.
+        sample(test1);
+        Assert.assertEquals(1, queuedTasks.size());
+        queuedTasks.remove(0).run();
+        Assert.assertEquals(1, frames.size());
+        Assert.assertTrue(frames.get(0).startsWith("{\"full\":true,"));
+
+        sample(test1);
+        Assert.assertEquals(1, queuedTasks.size());
+        queuedTasks.remove(0).run();
+        Assert.assertEquals(2, frames.size());
+        Assert.assertFalse(frames.get(1).contains("\"full\""));
+
+        for (int i = 0; i < LiveStatistics.MAX_PENDING_FRAMES + 1; ++i) {
+            sample(test1);
+        }
+
+        Assert.assertEquals(1, queuedTasks.size());
+        queuedTasks.remove(0).run();
+        Assert.assertEquals(3, frames.size());
+        Assert.assertTrue(frames.last().startsWith("{\"full\":true,"));
+    }
+
+    @Test
+    public void testFailedSubscriberRemoved() {
+        FrameList frames = new FrameList();
+        LiveStatistics.Subscription subscription = liveStatistics.subscribe(frames);
+        liveStatistics.subscribe(new LiveStatistics.Subscriber() {
+            @Override
+            public void send(String frame) throws Exception {
+                throw new java.io.IOException("broken pipe");
+            }
+        });
+
+        Assert.assertEquals(1, liveStatistics.getNumberOfSubscribers());
+
+        subscription.close();
+        Assert.assertEquals(0, liveStatistics.getNumberOfSubscribers());
+
+        sample();
+        Assert.assertEquals(1, frames.size());
+    }
+
+    private static class FrameList extends ArrayList<String> implements LiveStatistics.Subscriber {
+        @Override
+        public void send(String frame) {
+            add(frame);
+        }
+
+        String last() {
+            return get(size() - 1);
+        }
+    }
+}
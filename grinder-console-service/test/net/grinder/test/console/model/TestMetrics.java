@@ -0,0 +1,209 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.test.console.model;
+
+import net.grinder.common.StubTest;
+import net.grinder.common.processidentity.ProcessReport;
+import net.grinder.common.processidentity.WorkerProcessReport;
+import net.grinder.console.common.Resources;
+import net.grinder.console.common.processidentity.StubAgentProcessReport;
+import net.grinder.console.common.processidentity.StubWorkerProcessReport;
+import net.grinder.console.communication.ProcessControl;
+import net.grinder.console.model.*;
+import net.grinder.console.service.Bootstrap;
+import net.grinder.engine.agent.StubAgentIdentity;
+import net.grinder.messages.console.AgentAndCacheReport;
+import net.grinder.statistics.StatisticsServicesImplementation;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.mockito.internal.util.reflection.Whitebox;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.Arrays;
+
+/**
+ * Unit tests for {@link Metrics}.
+ *
+ * @author Philip Aston
+ */
+public class TestMetrics {
+
+    private SampleModel model;
+    private ProcessControl pc;
+
+    @Before
+    public void setUp() throws Exception {
+        File f = File.createTempFile("grindertest", "tmp");
+        ConsoleProperties consoleProperties = new ConsoleProperties(null, f);
+
+        Resources mockResources = Mockito.mock(Resources.class);
+        Mockito.doAnswer(new Answer<String>() {
+            @Override
+            public String answer(InvocationOnMock invocation) throws Throwable {
+                return (String)invocation.getArguments()[0];
+            }
+        }).when(mockResources).getString(Mockito.anyString());
+
+        model = new SampleModelImplementation(
+                consoleProperties,
+                StatisticsServicesImplementation.getInstance(),
+                null,
+                mockResources,
+                null
+        );
+
+        SampleModelViews sampleModelView = Mockito.mock(SampleModelViews.class);
+        Mockito.when(sampleModelView.getTestStatisticsQueries()).thenReturn(
+                StatisticsServicesImplementation.getInstance().getTestStatisticsQueries());
+
+        Bootstrap bootstrap = Mockito.mock(Bootstrap.class);
+        pc = Mockito.mock(ProcessControl.class);
+        Whitebox.setInternalState(bootstrap, "INSTANCE", new Bootstrap(
+                consoleProperties,
+                model,
+                sampleModelView,
+                pc,
+                null,
+                null ));
+    }
+
+    private static String write(Metrics metrics) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        metrics.write(out);
+        return out.toString("UTF-8");
+    }
+
+    @Test
+    public void testUninitialised() throws Exception {
+        Bootstrap bootstrap = Mockito.mock(Bootstrap.class);
+        Whitebox.setInternalState(bootstrap, "INSTANCE", null);
+
+        try {
+            write(new Metrics());
+            Assert.fail();
+        }
+        catch (IllegalStateException e) {
+            Assert.assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testNoTests() throws Exception {
+        String result = write(new Metrics());
+
+        Assert.assertTrue(result.startsWith("# TYPE grinder_state stateset\n"));
+        Assert.assertTrue(result.contains("grinder_state{grinder_state=\"WaitingForFirstReport\"} 1\n"));
+        Assert.assertTrue(result.contains("grinder_state{grinder_state=\"Recording\"} 0\n"));
+        Assert.assertFalse(result.contains("grinder_tests"));
+        Assert.assertFalse(result.contains("grinder_agent_state"));
+        Assert.assertTrue(result.endsWith("\n# EOF\n"));
+    }
+
+    @Test
+    public void testTests() throws Exception {
+        Metrics metrics = new Metrics();
+        write(metrics);
+
+        model.registerTests(Arrays.asList(new net.grinder.common.Test[] {
+                new StubTest(1, "test \"one\"\n\u00e9"),
+                new StubTest(2, "test two"),
+        }));
+
+        String result = write(metrics);
+
+        Assert.assertTrue(result.contains(
+                "# TYPE grinder_tests counter\n" +
+                "# HELP grinder_tests Tests performed, including those that failed.\n" +
+                "grinder_tests_total{test=\"1\",description=\"test \\\"one\\\"\\n\u00e9\"} 0\n" +
+                "grinder_tests_total{test=\"2\",description=\"test two\"} 0\n"));
+        Assert.assertTrue(result.contains(
+                "grinder_errors_total{test=\"2\",description=\"test two\"} 0\n"));
+        Assert.assertTrue(result.contains(
+                "grinder_test_time_bucket{test=\"2\",description=\"test two\",le=\"1.0\"} 0\n"));
+        Assert.assertTrue(result.contains(
+                "grinder_test_time_bucket{test=\"2\",description=\"test two\",le=\"60000.0\"} 0\n" +
+                "grinder_test_time_bucket{test=\"2\",description=\"test two\",le=\"+Inf\"} 0\n" +
+                "grinder_test_time_count{test=\"2\",description=\"test two\"} 0\n" +
+                "grinder_test_time_sum{test=\"2\",description=\"test two\"} 0\n"));
+        Assert.assertTrue(result.contains(
+                "grinder_tps{test=\"1\",description=\"test \\\"one\\\"\\n\u00e9\"} NaN\n"));
+
+        // The labels are encoded once, and reused.
+        Assert.assertEquals(result, write(metrics));
+
+        model.reset();
+        Assert.assertFalse(write(metrics).contains("grinder_tests"));
+    }
+
+    @Test
+    public void testProcesses() throws Exception {
+        Metrics metrics = new Metrics();
+        write(metrics);
+
+        ArgumentCaptor<ProcessControl.Listener> captor =
+                ArgumentCaptor.forClass(ProcessControl.Listener.class);
+        // The first listener is the Bootstrap's.
+        Mockito.verify(pc, Mockito.times(2)).addProcessStatusListener(captor.capture());
+
+        StubAgentIdentity agentIdentity = new StubAgentIdentity("agent");
+        final AgentAndCacheReport agentReport =
+                new StubAgentProcessReport(agentIdentity, ProcessReport.State.RUNNING);
+        final WorkerProcessReport workerReport =
+                new StubWorkerProcessReport(agentIdentity.createWorkerIdentity(),
+                                            ProcessReport.State.RUNNING, 3, 5);
+
+        captor.getAllValues().get(1).update(new ProcessControl.ProcessReports[] {
+                new ProcessControl.ProcessReports() {
+                    @Override
+                    public AgentAndCacheReport getAgentProcessReport() {
+                        return agentReport;
+                    }
+
+                    @Override
+                    public WorkerProcessReport[] getWorkerProcessReports() {
+                        return new WorkerProcessReport[] { workerReport };
+                    }
+                }
+        });
+
+        String result = write(metrics);
+        String worker = workerReport.getWorkerIdentity().getName();
+
+        Assert.assertTrue(result.contains(
+                "grinder_agent_state{agent=\"agent\",grinder_agent_state=\"STARTED\"} 0\n" +
+                "grinder_agent_state{agent=\"agent\",grinder_agent_state=\"RUNNING\"} 1\n"));
+        Assert.assertTrue(result.contains(
+                "grinder_worker_state{agent=\"agent\",worker=\"" + worker +
+                "\",grinder_worker_state=\"RUNNING\"} 1\n"));
+        Assert.assertTrue(result.contains(
+                "grinder_worker_threads{agent=\"agent\",worker=\"" + worker + "\"} 3\n"));
+        Assert.assertTrue(result.contains(
+                "grinder_worker_maximum_threads{agent=\"agent\",worker=\"" + worker + "\"} 5\n"));
+        Assert.assertTrue(result.endsWith("\n# EOF\n"));
+    }
+}
@@ -176,6 +176,18 @@ public class TestProcesses {
         Assert.assertTrue(called.getValue());
     }
 
+    @Test
+    public void testSetArrivalRate() {
+        Processes processes = new Processes();
+        Whitebox.setInternalState(processes, "pc", pc);
+
+        Assert.assertEquals("success", processes.setArrivalRate(12.5));
+        Mockito.verify(pc).setArrivalRate(12.5);
+
+        Assert.assertEquals("error", processes.setArrivalRate(-1));
+        Mockito.verifyNoMoreInteractions(pc);
+    }
+
     @Test
     public void testStatusWithNoReports() throws ConsoleException {
         final Wrapper<ProcessControl.Listener> listener = new Wrapper();
@@ -285,15 +297,20 @@ public class TestProcesses {
                     }
 
                     @Override
-                    public short getNumberOfRunningThreads() {
+                    public int getNumberOfRunningThreads() {
                         return 2;
                     }
 
                     @Override
-                    public short getMaximumNumberOfThreads() {
+                    public int getMaximumNumberOfThreads() {
                         return 22;
                     }
 
+                    @Override
+                    public boolean isSaturated() {
+                        return false;
+                    }
+
                     @Override
                     public ProcessAddress<? extends ProcessIdentity> getProcessAddress() {
                         return null;
@@ -315,9 +332,10 @@ public class TestProcesses {
         expectedReport.setName("bar");
         expectedReport.setId("16");
         expectedReport.setNumber(51);
-        Map<String, Short> workerReport = new HashMap<>(2);
-        workerReport.put("running-threads", (short)2);
-        workerReport.put("maximum-threads", (short)22);
+        Map<String, Integer> workerReport = new HashMap<>(2);
+        workerReport.put("running-threads", 2);
+        workerReport.put("maximum-threads", 22);
+        workerReport.put("saturated", 0);
         expectedReport.addWorkerReport(workerReport);
         Assert.assertEquals(expectedReport, processes.status().get(0));
     }
@@ -415,15 +433,20 @@ public class TestProcesses {
                     }
 
                     @Override
-                    public short getNumberOfRunningThreads() {
+                    public int getNumberOfRunningThreads() {
                         return 2;
                     }
 
                     @Override
-                    public short getMaximumNumberOfThreads() {
+                    public int getMaximumNumberOfThreads() {
                         return 22;
                     }
 
+                    @Override
+                    public boolean isSaturated() {
+                        return false;
+                    }
+
                     @Override
                     public ProcessAddress<? extends ProcessIdentity> getProcessAddress() {
                         return null;
@@ -213,7 +213,9 @@ public class TestRecording {
         Assert.assertEquals(new ArrayList<String>(), tests);
         Assert.assertNotNull(totals);
         Assert.assertEquals(Arrays.asList(
-                "Tests,Errors,Mean Test Time (ms),Test Time Standard Deviation (ms),TPS"
+                "Tests,Errors,Mean Test Time (ms),Test Time Standard Deviation (ms),TPS," +
+                "Median Test Time (ms),95th Percentile Test Time (ms)," +
+                "99th Percentile Test Time (ms)"
                         .split(",")), columns);
 
     }
@@ -285,19 +287,19 @@ public class TestRecording {
         List<Number> totals  = (List)data.get("totals");
         List<Map<String,Object>> tests = (List)data.get("tests");
 
-        Assert.assertEquals("[0, 0, NaN, 0.0, NaN]", totals.toString());
-        Assert.assertEquals("[Tests, Errors, Mean Test Time (ms), Test Time Standard Deviation (ms), TPS]", columns.toString());
+        Assert.assertEquals("[0, 0, NaN, 0.0, NaN, 0, 0, 0]", totals.toString());
+        Assert.assertEquals("[Tests, Errors, Mean Test Time (ms), Test Time Standard Deviation (ms), TPS, Median Test Time (ms), 95th Percentile Test Time (ms), 99th Percentile Test Time (ms)]", columns.toString());
         Assert.assertEquals(2, tests.size());
 
         Map<String,Object> test = tests.get(0);
         Assert.assertEquals(new Integer(1), (Integer)test.get("test"));
         Assert.assertEquals("test one", (String)test.get("description"));
-        Assert.assertEquals("[0, 0, NaN, 0.0, NaN]", test.get("statistics").toString());
+        Assert.assertEquals("[0, 0, NaN, 0.0, NaN, 0, 0, 0]", test.get("statistics").toString());
 
         test = tests.get(1);
         Assert.assertEquals(new Integer(2), (Integer)test.get("test"));
         Assert.assertEquals("test two", (String)test.get("description"));
-        Assert.assertEquals("[0, 0, NaN, 0.0, NaN]", test.get("statistics").toString());
+        Assert.assertEquals("[0, 0, NaN, 0.0, NaN, 0, 0, 0]", test.get("statistics").toString());
 
     }
 
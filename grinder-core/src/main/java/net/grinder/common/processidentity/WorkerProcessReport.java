@@ -43,13 +43,21 @@ public interface WorkerProcessReport extends ProcessReport {
    *
    * @return The number of threads that are running.
    */
-  short getNumberOfRunningThreads();
+  int getNumberOfRunningThreads();
 
   /**
    * Get the maximum number of threads.
    *
    * @return The maximum number of threads.
    */
-  short getMaximumNumberOfThreads();
+  int getMaximumNumberOfThreads();
+
+  /**
+   * Whether the process is running an open workload, and its threads are
+   * unable to keep up with the arrival rate.
+   *
+   * @return <code>true</code> => the process is saturated.
+   */
+  boolean isSaturated();
 }
 
@@ -22,9 +22,12 @@
 package net.grinder.communication;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.InetAddress;
-import java.net.ServerSocket;
+import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ArrayBlockingQueue;
@@ -42,11 +45,17 @@ import net.grinder.util.thread.InterruptibleRunnableAdapter;
 /**
  * Active object that accepts connections on a ServerSocket.
  *
+ * <p>
+ * Connections are accepted using a {@link ServerSocketChannel}, so each
+ * accepted socket has a {@link SocketChannel} that a {@link ServerReceiver}
+ * can register with a {@link java.nio.channels.Selector}.
+ * </p>
+ *
  * @author Philip Aston
  */
 public final class Acceptor {
 
-  private final ServerSocket m_serverSocket;
+  private final ServerSocketChannel m_serverSocketChannel;
   private final ExecutorService m_executor;
   private final BlockingQueue<Exception> m_exceptionQueue =
     new ArrayBlockingQueue<Exception>(10);
@@ -90,8 +99,9 @@ public final class Acceptor {
 
     if (addressString.length() > 0) {
       try {
-        m_serverSocket =
-          new ServerSocket(port, 50, InetAddress.getByName(addressString));
+        m_serverSocketChannel =
+          bind(new InetSocketAddress(InetAddress.getByName(addressString),
+                                     port));
       }
       catch (IOException e) {
         UncheckedInterruptedException.ioException(e);
@@ -101,7 +111,7 @@ public final class Acceptor {
     }
     else {
       try {
-        m_serverSocket = new ServerSocket(port, 50);
+        m_serverSocketChannel = bind(new InetSocketAddress(port));
       }
       catch (IOException e) {
         UncheckedInterruptedException.ioException(e);
@@ -118,6 +128,22 @@ public final class Acceptor {
     }
   }
 
+  private static ServerSocketChannel bind(InetSocketAddress address)
+    throws IOException {
+
+    final ServerSocketChannel channel = ServerSocketChannel.open();
+
+    try {
+      channel.socket().bind(address, 50);
+    }
+    catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+
+    return channel;
+  }
+
   /**
    * Shut down this acceptor.
    *
@@ -136,7 +162,7 @@ public final class Acceptor {
     }
 
     try {
-      m_serverSocket.close();
+      m_serverSocketChannel.close();
     }
     catch (IOException e) {
       UncheckedInterruptedException.ioException(e);
@@ -175,7 +201,7 @@ public final class Acceptor {
    * @return The port.
    */
   public int getPort() {
-    return m_serverSocket.getLocalPort();
+    return m_serverSocketChannel.socket().getLocalPort();
   }
 
   /**
@@ -353,17 +379,38 @@ public final class Acceptor {
       socketWrapper.setAddress(connectDetails.getAddress());
 
       // Possible minor race if the socket is closed between here...
-      final ResourcePool.Closeable closeable =
-        getSocketSet(connectDetails.getConnectionType()).add(socketWrapper);
+      final ResourcePool.Reservation reservation =
+        getSocketSet(connectDetails.getConnectionType())
+        .addReserved(socketWrapper);
 
       // .. and the time a listener is registered. Will pick up such a zombie
       // the next time we try to use the resource.
       socketWrapper.addClosedListener(new SocketWrapper.ClosedListener() {
           public void socketClosed() {
-            closeable.close();
+            reservation.close();
           }
         });
 
+      try {
+        if (connectDetails.isWireProtocolOffered()) {
+          // Our receivers understand all versions up to our own. The
+          // connector waits for the reply, so it can't send messages on
+          // other connections until this one has been added. We hold the
+          // reservation so that no other message can precede the reply.
+          // Listeners are told about the connection once it is freed.
+          final OutputStream out = socketWrapper.getOutputStream();
+          out.write(WireProtocol.BINARY_VERSION);
+          out.flush();
+        }
+      }
+      catch (IOException e) {
+        UncheckedInterruptedException.ioException(e);
+        socketWrapper.close();
+      }
+      finally {
+        reservation.free();
+      }
+
       // We did good.
       closeSocket = false;
     }
@@ -392,8 +439,8 @@ public final class Acceptor {
     public void interruptibleRun() {
       try {
         while (true) {
-          final Socket localSocket = m_serverSocket.accept();
-          discriminateConnection(localSocket);
+          final SocketChannel localChannel = m_serverSocketChannel.accept();
+          discriminateConnection(localChannel.socket());
         }
       }
       catch (IOException e) {
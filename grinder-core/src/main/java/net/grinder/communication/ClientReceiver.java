@@ -45,13 +45,13 @@ public final class ClientReceiver extends StreamReceiver {
   public static ClientReceiver connect(Connector connector, Address address)
     throws CommunicationException {
 
-    return new ClientReceiver(new SocketWrapper(connector.connect(address)));
+    return new ClientReceiver(connector.connectSocketWrapper(address));
   }
 
   private final SocketWrapper m_socketWrapper;
 
   private ClientReceiver(SocketWrapper socketWrapper) {
-    super(socketWrapper.getInputStream());
+    super(socketWrapper.getInputStream(), socketWrapper.getWireProtocol());
     m_socketWrapper = socketWrapper;
   }
 
@@ -50,7 +50,7 @@ public final class ClientSender extends StreamSender implements BlockingSender {
   public static ClientSender connect(Connector connector, Address address)
     throws CommunicationException {
 
-    return new ClientSender(new SocketWrapper(connector.connect(address)));
+    return new ClientSender(connector.connectSocketWrapper(address));
   }
 
   /**
@@ -73,7 +73,7 @@ public final class ClientSender extends StreamSender implements BlockingSender {
   private ClientSender(SocketWrapper socketWrapper)
     throws CommunicationException {
 
-    super(socketWrapper.getOutputStream());
+    super(socketWrapper.getOutputStream(), socketWrapper.getWireProtocol());
     m_socketWrapper = socketWrapper;
   }
 
@@ -113,7 +113,8 @@ public final class ClientSender extends StreamSender implements BlockingSender {
       send(messageRequiringResponse);
 
       final Receiver receiver =
-        new StreamReceiver(m_socketWrapper.getInputStream());
+        new StreamReceiver(m_socketWrapper.getInputStream(),
+                           m_socketWrapper.getWireProtocol());
 
       result = receiver.waitForMessage();
     }
@@ -21,28 +21,55 @@
 
 package net.grinder.communication;
 
+import java.io.EOFException;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.ObjectStreamConstants;
 import java.io.OutputStream;
 import java.net.InetAddress;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
 import java.net.UnknownHostException;
 
+import net.grinder.common.Closer;
 import net.grinder.common.UncheckedInterruptedException;
 
 
 /**
  * Connection factory.
  *
+ * <p>
+ * The connection handshake identifies the connection type and the address of
+ * the client. A {@code Connector} can also offer the binary
+ * {@link WireProtocol}. An offer is made by resetting the handshake stream
+ * before the connection type is written. {@link ObjectInputStream}s ignore
+ * the reset, so acceptors that don't understand the offer read the handshake
+ * as before. Acceptors that do reply with the protocol version they accept
+ * once the connection has been added to the appropriate socket set, and the
+ * {@link ClientSender} for the connection will use it to send messages.
+ * </p>
+ *
+ * <p>
+ * Waiting for the reply also means that messages sent on the connection
+ * can't be overtaken by messages the client sends later on other
+ * connections. If no reply arrives within a few seconds, the acceptor is
+ * assumed not to understand the offer, and Java serialisation is used.
+ * </p>
+ *
  * @author Philip Aston
  */
 public final class Connector {
 
+  private static final int ACKNOWLEDGEMENT_TIMEOUT = 5000;
+
   private final String m_hostString;
   private final int m_port;
   private final ConnectionType m_connectionType;
+  private final WireProtocol m_wireProtocol;
+  private final int m_acknowledgementTimeout;
 
   /**
    * Constructor.
@@ -54,9 +81,39 @@ public final class Connector {
   public Connector(String hostString,
                    int port,
                    ConnectionType connectionType) {
+    this(hostString, port, connectionType, null);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param hostString TCP address to connect to.
+   * @param port TCP port to connect to.
+   * @param connectionType Connection type.
+   * @param wireProtocol The binary {@link WireProtocol} to offer, or
+   * {@code null} to use Java serialisation.
+   */
+  public Connector(String hostString,
+                   int port,
+                   ConnectionType connectionType,
+                   WireProtocol wireProtocol) {
+    this(hostString, port, connectionType, wireProtocol,
+         ACKNOWLEDGEMENT_TIMEOUT);
+  }
+
+  /**
+   * Package scope for unit tests.
+   */
+  Connector(String hostString,
+            int port,
+            ConnectionType connectionType,
+            WireProtocol wireProtocol,
+            int acknowledgementTimeout) {
     m_hostString = hostString;
     m_port = port;
     m_connectionType = connectionType;
+    m_wireProtocol = wireProtocol;
+    m_acknowledgementTimeout = acknowledgementTimeout;
   }
 
   /**
@@ -72,6 +129,28 @@ public final class Connector {
   }
 
   Socket connect(Address address) throws CommunicationException {
+    final Socket socket = createSocket();
+    handshake(socket, address);
+    return socket;
+  }
+
+  /**
+   * Factory method that makes a TCP connection and returns a corresponding
+   * socket wrapper that uses the negotiated wire protocol.
+   *
+   * @param address Identifies the client process.
+   * @return The socket wrapper.
+   * @throws CommunicationException If connection could not be
+   * establish.
+   */
+  SocketWrapper connectSocketWrapper(Address address)
+    throws CommunicationException {
+
+    final Socket socket = createSocket();
+    return new SocketWrapper(socket, handshake(socket, address));
+  }
+
+  private Socket createSocket() throws CommunicationException {
     final InetAddress inetAddress;
 
     try {
@@ -84,21 +163,70 @@ public final class Connector {
 
     try {
       // Bind to any local port.
-      final Socket socket = new Socket(inetAddress, m_port);
+      return new Socket(inetAddress, m_port);
+    }
+    catch (IOException e) {
+      UncheckedInterruptedException.ioException(e);
+      throw new CommunicationException(
+        "Failed to connect to '" + inetAddress + ':' + m_port + '\'', e);
+    }
+  }
 
+  /**
+   * Send the connection details.
+   *
+   * @return The wire protocol to use to send messages, or {@code null} if
+   * the server did not accept the offer.
+   */
+  private WireProtocol handshake(Socket socket, Address address)
+    throws CommunicationException {
+
+    try {
       final OutputStream outputStream = socket.getOutputStream();
 
       final ObjectOutputStream objectStream =
         new ObjectOutputStream(outputStream);
+
+      if (m_wireProtocol != null) {
+        // Offer the binary protocol, see Connector#read.
+        objectStream.reset();
+      }
+
       objectStream.writeObject(m_connectionType);
       objectStream.writeObject(address);
       objectStream.flush();
-      return socket;
+
+      if (m_wireProtocol == null) {
+        return null;
+      }
+
+      final int accepted;
+
+      socket.setSoTimeout(m_acknowledgementTimeout);
+
+      try {
+        accepted = socket.getInputStream().read();
+      }
+      catch (SocketTimeoutException e) {
+        // The server doesn't understand the offer.
+        return null;
+      }
+      finally {
+        socket.setSoTimeout(0);
+      }
+
+      if (accepted < 0) {
+        throw new EOFException("Connection closed during handshake");
+      }
+
+      return accepted >= WireProtocol.BINARY_VERSION ? m_wireProtocol : null;
     }
     catch (IOException e) {
+      Closer.close(socket);
       UncheckedInterruptedException.ioException(e);
       throw new CommunicationException(
-        "Failed to connect to '" + inetAddress + ':' + m_port + '\'', e);
+        "Failed to connect to '" + socket.getInetAddress() + ':' + m_port +
+        '\'', e);
     }
   }
 
@@ -125,6 +253,7 @@ public final class Connector {
 
     return
       m_port == other.m_port &&
+      m_wireProtocol == other.m_wireProtocol &&
       m_connectionType.equals(other.m_connectionType) &&
       m_hostString.equals(other.m_hostString);
   }
@@ -154,10 +283,14 @@ public final class Connector {
   static final class ConnectDetails {
     private final ConnectionType m_connectionType;
     private final Address m_address;
+    private final boolean m_wireProtocolOffered;
 
-    private ConnectDetails(ConnectionType connectionType, Address address) {
+    private ConnectDetails(ConnectionType connectionType,
+                           Address address,
+                           boolean wireProtocolOffered) {
       m_connectionType = connectionType;
       m_address = address;
+      m_wireProtocolOffered = wireProtocolOffered;
     }
 
     public ConnectionType getConnectionType() {
@@ -167,6 +300,16 @@ public final class Connector {
     public Address getAddress() {
       return m_address;
     }
+
+    /**
+     * Whether the client offered the binary {@link WireProtocol}.
+     *
+     * @return {@code true} if the client made an offer. The acceptor must
+     * then reply with the version it accepts.
+     */
+    public boolean isWireProtocolOffered() {
+      return m_wireProtocolOffered;
+    }
   }
 
   /**
@@ -179,11 +322,29 @@ public final class Connector {
   static ConnectDetails read(InputStream in) throws CommunicationException {
 
     try {
-      final ObjectInputStream objectInputStream = new ObjectInputStream(in);
-      final ConnectionType type =
-        (ConnectionType) objectInputStream.readObject();
-      final Address address = (Address) objectInputStream.readObject();
-      return new ConnectDetails(type, address);
+      final HandshakeInputStream handshakeStream =
+        new HandshakeInputStream(in);
+
+      final ObjectInputStream objectInputStream =
+        new ObjectInputStream(handshakeStream);
+
+      final Object type = objectInputStream.readObject();
+
+      if (!(type instanceof ConnectionType)) {
+        throw new CommunicationException(
+          "Expected a connection type, received " + describe(type));
+      }
+
+      final Object address = objectInputStream.readObject();
+
+      if (address != null && !(address instanceof Address)) {
+        throw new CommunicationException(
+          "Expected an address, received " + describe(address));
+      }
+
+      return new ConnectDetails((ConnectionType) type,
+                                (Address) address,
+                                handshakeStream.isResetAfterHeader());
     }
     catch (IOException e) {
       throw new CommunicationException("Could not read address details", e);
@@ -192,4 +353,55 @@ public final class Connector {
       throw new CommunicationException("Could not read address details", e);
     }
   }
+
+  private static String describe(Object o) {
+    return o != null ? o.getClass().getName() : "null";
+  }
+
+  /**
+   * Notes whether the byte that follows the stream header is a reset.
+   * {@link ObjectInputStream} doesn't read ahead, so neither do we.
+   */
+  private static final class HandshakeInputStream extends FilterInputStream {
+
+    // Length of the magic number and version that start the stream.
+    private static final int HEADER_LENGTH = 4;
+
+    private long m_position;
+    private boolean m_resetAfterHeader;
+
+    public HandshakeInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override public int read() throws IOException {
+      final int b = super.read();
+
+      if (b >= 0) {
+        check(m_position++, (byte) b);
+      }
+
+      return b;
+    }
+
+    @Override public int read(byte[] b, int off, int len) throws IOException {
+      final int n = super.read(b, off, len);
+
+      for (int i = 0; i < n; ++i) {
+        check(m_position++, b[off + i]);
+      }
+
+      return n;
+    }
+
+    private void check(long position, byte b) {
+      if (position == HEADER_LENGTH) {
+        m_resetAfterHeader = b == ObjectStreamConstants.TC_RESET;
+      }
+    }
+
+    public boolean isResetAfterHeader() {
+      return m_resetAfterHeader;
+    }
+  }
 }
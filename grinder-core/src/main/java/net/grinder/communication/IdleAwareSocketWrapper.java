@@ -22,8 +22,8 @@
 package net.grinder.communication;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.Socket;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import net.grinder.util.TimeAuthority;
 
@@ -36,8 +36,10 @@ final class IdleAwareSocketWrapper extends SocketWrapper {
 
   private final TimeAuthority m_timeAuthority;
 
-  // Guarded by parent's inputStream. The time at which a socket was first found
-  // to be idle, or -1.
+  private final AtomicBoolean m_claimed = new AtomicBoolean();
+
+  // Guarded by this. The time at which a socket was first found to be idle,
+  // or -1.
   private long m_idleStart;
 
 
@@ -50,10 +52,6 @@ final class IdleAwareSocketWrapper extends SocketWrapper {
    *          described in {@link SocketWrapper}.
    * @param timeAuthority
    *          Something that knows the time.
-   * @param idlePollTimeout
-   *          The duration in milliseconds after which a socket with no
-   *          available input data is closed. This is checked in
-   *          {@link #hasData()}.
    * @throws CommunicationException
    *           If an error occurred.
    */
@@ -69,48 +67,62 @@ final class IdleAwareSocketWrapper extends SocketWrapper {
   }
 
   /**
-   * Check whether the socket's input stream has any data.
+   * Claim the socket for a {@link ServerReceiver}. Only one receiver may read
+   * from a socket.
+   *
+   * @return {@code true} if the caller is the first to claim the socket.
+   */
+  public boolean claimForReceiver() {
+    return m_claimed.compareAndSet(false, true);
+  }
+
+  /**
+   * Record that data has been read from the socket.
+   */
+  public synchronized void dataReceived() {
+    m_idleStart = -1;
+  }
+
+  /**
+   * Close the socket if it has been idle for too long.
    *
    * <p>
-   * Java only detects that a peer has closed a connection if we do a blocking
-   * read, or attempt to send data. To avoid zombie sockets in a
-   * {@code CLOSE_WAIT} state, if repeated calls this method detect that the
-   * socket has had no input data for more than inactiveClientTimeOut, the
-   * socket will be closed. We expect the caller to clean up using a
-   * {@link ClosedListener}.
+   * Java only detects that a peer has closed a connection if we read from, or
+   * attempt to send data to, the socket. To avoid zombie sockets in a
+   * {@code CLOSE_WAIT} state, a receiver calls this method periodically. If
+   * repeated calls find that no data has been received for more than
+   * inactiveClientTimeOut, the socket will be closed. We expect the caller to
+   * clean up using a {@link ClosedListener}.
    * </p>
    *
    * @param inactiveClientTimeOut
    *          Time out in milliseconds for connections that present no data.
-   * @return {@code true} If there is data available to be read from the input
-   *         stream.
+   * @return {@code true} If the socket was closed.
    * @throws IOException
    *           If the socket was closed at the start of the call.
    */
-  public boolean hasData(long inactiveClientTimeOut) throws IOException {
+  public boolean closeIfIdle(long inactiveClientTimeOut) throws IOException {
 
     if (isClosed()) {
       throw new IOException("Socket is closed");
     }
 
-    final InputStream inputStream = getInputStream();
-
-    synchronized (inputStream) {
-      if (inputStream.available() > 0) {
-        m_idleStart = -1;
-        return true;
-      }
+    final boolean idle;
 
+    synchronized (this) {
       final long now = m_timeAuthority.getTimeInMilliseconds();
 
       if (m_idleStart == -1) {
         m_idleStart = now;
       }
-      else if (m_idleStart + inactiveClientTimeOut < now) {
-        close();
-      }
 
-      return false;
+      idle = m_idleStart + inactiveClientTimeOut < now;
+    }
+
+    if (idle) {
+      close();
     }
+
+    return idle;
   }
 }
@@ -44,6 +44,15 @@ interface ResourcePool {
    */
   Closeable add(final Resource resource);
 
+  /**
+   * Adds a resource to the pool, reserved for exclusive use by the caller.
+   *
+   * @param resource The resource to add.
+   * @return The reservation. It is up to the caller to free or close the
+   * reservation.
+   */
+  Reservation addReserved(Resource resource);
+
   /**
    * Returns a resource, reserved for exclusive use by the caller.
    *
@@ -65,6 +74,17 @@ interface ResourcePool {
    */
   List<? extends Reservation> reserveAll();
 
+  /**
+   * Returns a reservation for a particular resource. Blocks until the
+   * resource can be reserved.
+   *
+   * @param resource The resource.
+   * @return The reservation, or {@code null} if the resource is not in the
+   *         pool or has been closed. It is up to the caller to free or close
+   *         the reservation.
+   */
+  Reservation reserve(Resource resource);
+
   /**
    * Close the resources currently in the pool. Resources can be closed
    * while reserved.
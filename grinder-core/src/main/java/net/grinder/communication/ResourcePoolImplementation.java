@@ -69,16 +69,36 @@ final class ResourcePoolImplementation implements ResourcePool {
    * resource has been closed.
    */
   @Override public Closeable add(final Resource resource) {
+    return add(resource, false);
+  }
+
+  /**
+   * Adds a resource to the pool, reserved for exclusive use by the caller.
+   * Listeners are not told about the resource until the reservation is
+   * first freed, so they can use it.
+   *
+   * @param resource The resource to add.
+   * @return The reservation. It is up to the caller to free or close the
+   * reservation.
+   */
+  @Override public Reservation addReserved(Resource resource) {
+    return add(resource, true);
+  }
+
+  private ResourceWrapper add(final Resource resource, boolean reserved) {
     final ResourceWrapper resourceWrapper = new ResourceWrapper(resource);
 
+    if (reserved) {
+      resourceWrapper.reserve();
+    }
+
     synchronized (m_reservablesMutex) {
       m_reservables.add(resourceWrapper);
     }
 
-    m_listeners.apply(
-      new ListenerSupport.Informer<Listener>() {
-        public void inform(Listener l) { l.resourceAdded(resource); }
-      });
+    if (!reserved) {
+      resourceWrapper.announce();
+    }
 
     return resourceWrapper;
   }
@@ -174,6 +194,53 @@ final class ResourcePoolImplementation implements ResourcePool {
     }
   }
 
+  /**
+   * Returns a reservation for a particular resource. Blocks until the
+   * resource can be reserved.
+   *
+   * @param resource The resource.
+   * @return The reservation, or {@code null} if the resource is not in the
+   *         pool or has been closed. It is up to the caller to free or close
+   *         the reservation.
+   */
+  public Reservation reserve(Resource resource) {
+
+    Reservable target = null;
+
+    synchronized (m_reservablesMutex) {
+      for (Reservable reservable : m_reservables) {
+        if (reservable.getResource() == resource) {
+          target = reservable;
+          break;
+        }
+      }
+    }
+
+    if (target == null) {
+      return null;
+    }
+
+    while (!target.reserve()) {
+      if (target.isClosed()) {
+        return null;
+      }
+
+      // Block until a resource is freed.
+      synchronized (m_reservableFreedMutex) {
+        try {
+          // Don't block for ever because the resource might have already
+          // been freed.
+          m_reservableFreedMutex.wait(1000);
+        }
+        catch (InterruptedException e) {
+          throw new UncheckedInterruptedException(e);
+        }
+      }
+    }
+
+    return target;
+  }
+
   /**
    * Close the resources currently in the pool. Resources can be closed
    * while reserved.
@@ -285,6 +352,7 @@ final class ResourcePoolImplementation implements ResourcePool {
     private final Resource m_resource;
     private boolean m_busy = false;
     private boolean m_closed;
+    private boolean m_announced;
 
     public ResourceWrapper(Resource resource) {
       m_resource = resource;
@@ -321,6 +389,26 @@ final class ResourcePoolImplementation implements ResourcePool {
           m_reservableFreedMutex.notifyAll();
         }
       }
+
+      announce();
+    }
+
+    /**
+     * Tell the listeners about the resource, if we haven't already.
+     */
+    public void announce() {
+      synchronized (this) {
+        if (m_announced || m_closed) {
+          return;
+        }
+
+        m_announced = true;
+      }
+
+      m_listeners.apply(
+        new ListenerSupport.Informer<Listener>() {
+          public void inform(Listener l) { l.resourceAdded(m_resource); }
+        });
     }
 
     public Resource getResource() {
@@ -330,9 +418,11 @@ final class ResourcePoolImplementation implements ResourcePool {
     public void close() {
 
       final boolean stateChanged;
+      final boolean announced;
 
       synchronized (this) {
         stateChanged = !m_closed;
+        announced = m_announced;
 
         // If the outside world is closing us, we'll be reserved.
         // If the ResourcePoolImplementation is closing, we might not be.
@@ -352,6 +442,11 @@ final class ResourcePoolImplementation implements ResourcePool {
           m_reservableFreedMutex.notifyAll();
         }
 
+        if (!announced) {
+          // Listeners never knew about it.
+          return;
+        }
+
         final ListenerSupport.Informer<Listener> informer;
 
         try {
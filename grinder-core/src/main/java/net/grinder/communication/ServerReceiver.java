@@ -21,9 +21,24 @@
 
 package net.grinder.communication;
 
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.io.OptionalDataException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import net.grinder.common.UncheckedInterruptedException;
 import net.grinder.communication.ResourcePool.Reservation;
@@ -35,17 +50,51 @@ import net.grinder.util.thread.InterruptibleRunnableAdapter;
 /**
  * Manages the receipt of messages from many clients.
  *
+ * <p>
+ * Each connection is read by one of a small number of threads, each of which
+ * multiplexes many non-blocking channels using a {@link Selector}. Bytes are
+ * buffered per connection until a complete message can be de-serialised, so
+ * a slow client never blocks a thread.
+ * </p>
+ *
  * @author Philip Aston
  */
 public final class ServerReceiver implements Receiver {
 
+  private static final int INITIAL_BUFFER_SIZE = 8192;
+
+  private final WireProtocol m_wireProtocol;
   private final MessageQueue m_messageQueue = new MessageQueue(true);
   private final ExecutorService m_executor =
     ExecutorFactory.createCachedThreadPool("ServerReceiver");
 
+  /** Guarded by this. */
+  private final List<SelectorRunnable> m_selectorRunnables =
+    new ArrayList<SelectorRunnable>();
+
+  /**
+   * Constructor. Only the binary frames for the communication package's
+   * messages can be decoded.
+   */
+  public ServerReceiver() {
+    this(new WireProtocol());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param wireProtocol
+   *          Used to decode binary frames. Clients should offer a
+   *          {@link WireProtocol} with the same codecs to their
+   *          {@link Connector}.
+   */
+  public ServerReceiver(WireProtocol wireProtocol) {
+    m_wireProtocol = wireProtocol;
+  }
+
   /**
    * Registers a new {@link Acceptor} from which the <code>ServerReceiver</code>
-   * should process messages. Actively polls connections of the given types for
+   * should process messages. Reads connections of the given types for
    * messages, de-serialises them, and queues them for retrieval using
    * {@link #waitForMessage()}.
    *
@@ -54,7 +103,7 @@ public final class ServerReceiver implements Receiver {
    * {@link Acceptor}s. You can register the same {@link Acceptor} with
    * multiple {@code ServerReceiver}s, but then there is no way of
    * controlling which receiver will receive messages from a given
-   * {@link Acceptor}.
+   * connection.
    * </p>
    *
    * @param acceptor
@@ -62,13 +111,12 @@ public final class ServerReceiver implements Receiver {
    * @param connectionTypes
    *          Type of connections to listen for.
    * @param numberOfThreads
-   *          How many threads to dedicate to processing the Acceptor. The
-   *          threads this method spawns just read, deserialise, and queue. Set
-   *          {@code numberOfThreads} to the number of concurrent streams
-   *          you expect to be able to read.
+   *          How many threads to dedicate to processing the Acceptor. Each
+   *          thread reads, deserialises, and queues messages from its share
+   *          of the connections. A few threads can serve thousands of
+   *          connections.
    * @param idleThreadPollDelay
-   *          Time in milliseconds that an idle thread should sleep if there are
-   *          no sockets to process.
+   *          Time in milliseconds between checks for inactive connections.
    * @param inactiveClientTimeOut
    *          How long before we consider a client connection that presents no
    *          data to be inactive.
@@ -95,16 +143,64 @@ public final class ServerReceiver implements Receiver {
       acceptedSocketSets[i] = acceptor.getSocketSet(connectionTypes[i]);
     }
 
+    final SelectorRunnable[] selectorRunnables =
+      new SelectorRunnable[Math.max(1, numberOfThreads)];
+
     synchronized (this) {
       m_messageQueue.checkIfShutdown();
 
-      for (int i = 0; i < numberOfThreads; ++i) {
+      for (int i = 0; i < selectorRunnables.length; ++i) {
+        try {
+          selectorRunnables[i] =
+            new SelectorRunnable(Selector.open(),
+                                 idleThreadPollDelay,
+                                 inactiveClientTimeOut);
+        }
+        catch (IOException e) {
+          UncheckedInterruptedException.ioException(e);
+          throw new CommunicationException("Failed to open selector", e);
+        }
+
+        m_selectorRunnables.add(selectorRunnables[i]);
+
         m_executor.submit(
-          new InterruptibleRunnableAdapter(
-            new ServerReceiverRunnable(
-              new CombinedResourcePool(acceptedSocketSets),
-              idleThreadPollDelay,
-              inactiveClientTimeOut)));
+          new InterruptibleRunnableAdapter(selectorRunnables[i]));
+      }
+    }
+
+    final AtomicInteger next = new AtomicInteger();
+
+    for (final ResourcePool socketSet : acceptedSocketSets) {
+      socketSet.addListener(new ResourcePool.Listener() {
+          public void resourceAdded(ResourcePool.Resource resource) {
+            final int i =
+              (next.getAndIncrement() & Integer.MAX_VALUE) %
+              selectorRunnables.length;
+
+            selectorRunnables[i].register(
+              socketSet, (IdleAwareSocketWrapper)resource);
+          }
+
+          public void resourceClosed(ResourcePool.Resource resource) {
+            // The channel's selection key is cancelled when it is closed.
+          }
+        });
+
+      // Pick up connections that were accepted before we added the listener.
+      // Connections that are also announced to the listener are ignored
+      // because they can only be claimed once.
+      for (Reservation reservation : socketSet.reserveAll()) {
+        final int i =
+          (next.getAndIncrement() & Integer.MAX_VALUE) %
+          selectorRunnables.length;
+
+        try {
+          selectorRunnables[i].register(
+            socketSet, (IdleAwareSocketWrapper)reservation.getResource());
+        }
+        finally {
+          reservation.free();
+        }
       }
     }
   }
@@ -136,199 +232,467 @@ public final class ServerReceiver implements Receiver {
 
     m_messageQueue.shutdown();
 
-    m_executor.shutdownNow();
+    // We don't interrupt the selector threads. Interrupting a thread whilst
+    // it reads from a channel closes the channel, and the connections belong
+    // to the Acceptor.
+    for (SelectorRunnable selectorRunnable : m_selectorRunnables) {
+      selectorRunnable.wakeup();
+    }
+
+    m_selectorRunnables.clear();
+
+    m_executor.shutdown();
   }
 
   /**
-   * Obtain reservations from multiple ResourcePools. Delegates reserveNext()
-   * to the next resource pool.
-   *
-   * @author Philip Aston
+   * The state of a connection being read by a {@link SelectorRunnable}.
    */
-  private static final class CombinedResourcePool {
-    private final ResourcePool[] m_resourcePools;
+  private static final class Connection {
+    private final ResourcePool m_socketSet;
+    private final IdleAwareSocketWrapper m_socketWrapper;
+    private final SocketChannel m_channel;
+    private final WireProtocol m_wireProtocol;
+
+    /**
+     * Bytes read from the channel. Those between {@link #m_readPosition} and
+     * the buffer's position are yet to be de-serialised.
+     */
+    private ByteBuffer m_buffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private int m_readPosition;
+
+    /** The length of an incomplete binary frame, or 0. */
+    private int m_frameLength;
+
+    /**
+     * How many bytes we had when we last failed to de-serialise an
+     * incomplete Java serialised message, or 0.
+     */
+    private int m_incompleteLength;
+
+    Connection(ResourcePool socketSet,
+               IdleAwareSocketWrapper socketWrapper,
+               WireProtocol wireProtocol) {
+      m_socketSet = socketSet;
+      m_socketWrapper = socketWrapper;
+      m_channel = socketWrapper.getChannel();
+      m_wireProtocol = wireProtocol;
+    }
+
+    /**
+     * Read what is available from the channel.
+     *
+     * @return {@code false} if the peer has closed the connection.
+     */
+    public boolean read() throws IOException {
+      if (m_readPosition > 0) {
+        m_buffer.flip();
+        m_buffer.position(m_readPosition);
+        m_buffer.compact();
+        m_readPosition = 0;
+      }
 
-    // Guarded by m_resourcePools.
-    private int m_next;
+      if (m_buffer.capacity() > INITIAL_BUFFER_SIZE &&
+          m_buffer.position() <= INITIAL_BUFFER_SIZE &&
+          m_frameLength <= INITIAL_BUFFER_SIZE) {
+        // Don't hold on to the space used by a large message.
+        resize(INITIAL_BUFFER_SIZE);
+      }
+
+      if (m_buffer.capacity() < m_frameLength) {
+        resize(m_frameLength);
+      }
+      else if (!m_buffer.hasRemaining()) {
+        resize(m_buffer.capacity() * 2);
+      }
 
-    CombinedResourcePool(ResourcePool[] resourcePools) {
-      assert resourcePools.length > 0;
-      m_resourcePools = resourcePools;
+      final int n = m_channel.read(m_buffer);
+
+      if (n > 0) {
+        m_socketWrapper.dataReceived();
+      }
+
+      return n >= 0;
+    }
+
+    private void resize(int capacity) {
+      final ByteBuffer buffer = ByteBuffer.allocate(capacity);
+      m_buffer.flip();
+      buffer.put(m_buffer);
+      m_buffer = buffer;
     }
 
-    public Reservation reserveNext() {
-      int i = 0;
-      int start;
+    /**
+     * Whether we are holding back an attempt to de-serialise a Java
+     * serialised message, see {@link #nextMessage}.
+     */
+    public boolean hasDeferredMessage() {
+      return m_incompleteLength > 0 &&
+             m_buffer.position() - m_readPosition > m_incompleteLength;
+    }
 
-      synchronized (m_resourcePools) {
-        start = ++m_next;
+    /**
+     * De-serialise the next complete message from the bytes read so far.
+     *
+     * <p>
+     * {@link WireProtocol} binary frames have a header that gives their
+     * length, so we wait for the whole frame. Every message from a client
+     * that accepted the binary protocol is framed.
+     * </p>
+     *
+     * <p>
+     * Other clients write each message with a new {@code ObjectOutputStream}.
+     * {@code ObjectInputStream} never reads beyond the end of an object, so
+     * the bytes consumed are exactly those of the message. If
+     * de-serialisation runs out of bytes, the message is incomplete. To avoid
+     * de-serialising a large message from the start every time a little more
+     * of it arrives, we don't try again until we have twice as many bytes, or
+     * {@code force} is set. Any other failure means the stream is corrupt.
+     * </p>
+     *
+     * @param force
+     *          Try to de-serialise an incomplete Java serialised message even
+     *          if little more of it has arrived.
+     * @return The message, or {@code null} if no complete message has been
+     *         read.
+     */
+    public Message nextMessage(boolean force)
+      throws IOException, ClassNotFoundException {
+
+      final int available = m_buffer.position() - m_readPosition;
+
+      if (available == 0) {
+        return null;
       }
 
-      while (true) {
-        final Reservation reservation =
-          m_resourcePools[(start + i) % m_resourcePools.length].reserveNext();
+      if (m_buffer.get(m_readPosition) == WireProtocol.MARKER) {
+        return nextFrame(available);
+      }
+
+      if (!force && available < 2 * m_incompleteLength) {
+        return null;
+      }
 
-        if (!reservation.isSentinel() ||
-            i == m_resourcePools.length - 1) {
-          return reservation;
+      final ByteArrayInputStream in =
+        new ByteArrayInputStream(m_buffer.array(), m_readPosition, available);
+
+      final Object object;
+
+      try {
+        object = new ObjectInputStream(in).readObject();
+      }
+      catch (EOFException e) {
+        return incomplete(in, available, e);
+      }
+      catch (OptionalDataException e) {
+        if (!e.eof) {
+          throw e;
         }
 
-        ++i;
+        return incomplete(in, available, e);
       }
+
+      m_incompleteLength = 0;
+      m_readPosition += available - in.available();
+
+      if (!(object instanceof Message)) {
+        throw new IOException(
+          "Received an object that is not a message: " + object);
+      }
+
+      return (Message)object;
+    }
+
+    private Message incomplete(ByteArrayInputStream in,
+                               int available,
+                               IOException e)
+      throws IOException {
+
+      if (in.available() != 0) {
+        throw e;
+      }
+
+      m_incompleteLength = available;
+      return null;
+    }
+
+    private Message nextFrame(int available)
+      throws IOException, ClassNotFoundException {
+
+      final int frameLength =
+        WireProtocol.frameLength(m_buffer.array(), m_readPosition, available);
+
+      if (frameLength < 0) {
+        // Incomplete header.
+        return null;
+      }
+
+      if (frameLength > available) {
+        // Incomplete. Remember the length so read() can make room.
+        m_frameLength = frameLength;
+        return null;
+      }
+
+      final Message message =
+        m_wireProtocol.read(
+          new DataInputStream(
+            new ByteArrayInputStream(m_buffer.array(),
+                                     m_readPosition,
+                                     frameLength)));
+
+      m_frameLength = 0;
+      m_readPosition += frameLength;
+
+      return message;
     }
   }
 
-  private final class ServerReceiverRunnable
-    implements InterruptibleRunnable {
+  private final class SelectorRunnable implements InterruptibleRunnable {
 
-    private final CombinedResourcePool m_sockets;
+    private final Selector m_selector;
     private final long m_delay;
     private final long m_inactiveClientTimeOut;
+    private final Queue<Connection> m_newConnections =
+      new ConcurrentLinkedQueue<Connection>();
 
-    private ServerReceiverRunnable(CombinedResourcePool sockets,
-                                   long delay,
-                                   long inactiveClientTimeOut) {
-      m_sockets = sockets;
+    private long m_lastIdleCheck = System.currentTimeMillis();
+
+    private SelectorRunnable(Selector selector,
+                             long delay,
+                             long inactiveClientTimeOut) {
+      m_selector = selector;
       m_delay = delay;
       m_inactiveClientTimeOut = inactiveClientTimeOut;
     }
 
+    public void register(ResourcePool socketSet,
+                         IdleAwareSocketWrapper socketWrapper) {
+
+      if (socketWrapper.claimForReceiver()) {
+        m_newConnections.add(
+          new Connection(socketSet, socketWrapper, m_wireProtocol));
+        m_selector.wakeup();
+      }
+    }
+
+    public void wakeup() {
+      m_selector.wakeup();
+    }
+
     public void interruptibleRun() {
       try {
-        // Did we do some work on the last pass?
-        boolean idle = false;
-
         while (true) {
-          final Reservation reservation = m_sockets.reserveNext();
-          boolean holdReservation = false;
+          m_messageQueue.checkIfShutdown();
 
-          try {
-            if (reservation.isSentinel()) {
-              if (idle) {
-                Thread.sleep(m_delay);
-              }
+          registerNewConnections();
 
-              idle = true;
-            }
-            else {
-              final IdleAwareSocketWrapper socketWrapper =
-                (IdleAwareSocketWrapper)reservation.getResource();
+          m_selector.select(Math.max(1, m_delay));
 
-              // We don't need to synchronise access to the SocketWrapper
-              // stream; access is protected through the socket set and only we
-              // hold the reservation.
+          final Iterator<SelectionKey> keys =
+            m_selector.selectedKeys().iterator();
 
-              if (socketWrapper.hasData(m_inactiveClientTimeOut)) {
-                idle = false;
+          while (keys.hasNext()) {
+            final SelectionKey key = keys.next();
+            keys.remove();
 
-                final ObjectInputStream objectStream =
-                  new ObjectInputStream(socketWrapper.getInputStream());
+            if (key.isValid() && key.isReadable()) {
+              process(key, (Connection)key.attachment(), true);
+            }
+          }
 
-                final Message message = (Message)objectStream.readObject();
+          final long now = System.currentTimeMillis();
 
-                if (message instanceof CloseCommunicationMessage) {
-                  reservation.close();
-                  continue;
-                }
+          if (now - m_lastIdleCheck >= m_delay) {
+            m_lastIdleCheck = now;
+            processDeferredMessages();
+            closeIdleConnections();
+          }
+        }
+      }
+      catch (MessageQueue.ShutdownException e) {
+        // We've been shutdown, exit this thread.
+      }
+      catch (IOException e) {
+        UncheckedInterruptedException.ioException(e);
+
+        try {
+          m_messageQueue.queue(e);
+        }
+        catch (MessageQueue.ShutdownException e2) {
+          // Ignore.
+        }
+      }
+      finally {
+        // Deregisters the channels, but does not close them.
+        try {
+          m_selector.close();
+        }
+        catch (IOException e) {
+          // Ignore.
+        }
 
-                if (message instanceof AddressAwareMessage) {
-                  final AddressAwareMessage addressAware =
-                    (AddressAwareMessage)message;
+        // Ensure we're shutdown.
+        shutdown();
+      }
+    }
 
-                  addressAware.setAddress(socketWrapper.getAddress());
-                }
+    private void registerNewConnections() throws MessageQueue.ShutdownException {
+      while (true) {
+        final Connection connection = m_newConnections.poll();
 
-                if (message instanceof MessageRequiringResponse) {
+        if (connection == null) {
+          break;
+        }
 
-                  final MessageRequiringResponse messageRequiringResponse =
-                    (MessageRequiringResponse)message;
+        try {
+          connection.m_channel.configureBlocking(false);
+          connection.m_channel.register(m_selector,
+                                        SelectionKey.OP_READ,
+                                        connection);
+        }
+        catch (ClosedChannelException e) {
+          // Connection closed before we got to it.
+        }
+        catch (IOException e) {
+          connection.m_socketWrapper.close();
+          UncheckedInterruptedException.ioException(e);
+          m_messageQueue.queue(e);
+        }
+      }
+    }
 
-                  messageRequiringResponse.setResponder(
-                    new SenderWithReservation(
-                      new StreamSender(socketWrapper.getOutputStream()),
-                      reservation));
+    /**
+     * Process messages from a connection.
+     *
+     * @param read
+     *          {@code true} to read from the channel first. Otherwise, force
+     *          an attempt to de-serialise any deferred message.
+     */
+    private void process(SelectionKey key, Connection connection, boolean read)
+      throws MessageQueue.ShutdownException {
 
-                  m_messageQueue.queue(message);
+      try {
+        if (read && !connection.read()) {
+          // The peer closed the connection without telling us.
+          key.cancel();
+          connection.m_socketWrapper.close();
+          return;
+        }
 
-                  // Whatever handles the MessageExpectingResponse takes
-                  // responsibility for the reservation.
-                  holdReservation = true;
-                }
-                else {
-                  m_messageQueue.queue(message);
-                }
-              }
-            }
-          }
-          catch (CommunicationException e) {
-            reservation.close();
-            m_messageQueue.queue(e);
-          }
-          catch (IOException e) {
-            reservation.close();
-            UncheckedInterruptedException.ioException(e);
-            m_messageQueue.queue(e);
+        while (true) {
+          final Message message = connection.nextMessage(!read);
+
+          if (message == null) {
+            break;
           }
-          catch (ClassNotFoundException e) {
-            reservation.close();
-            m_messageQueue.queue(e);
+
+          if (message instanceof CloseCommunicationMessage) {
+            key.cancel();
+            connection.m_socketWrapper.close();
+            break;
           }
-          catch (InterruptedException e) {
-            reservation.close();
-            throw new UncheckedInterruptedException(e);
+
+          if (message instanceof AddressAwareMessage) {
+            final AddressAwareMessage addressAware =
+              (AddressAwareMessage)message;
+
+            addressAware.setAddress(connection.m_socketWrapper.getAddress());
           }
-          finally {
-            if (!holdReservation) {
-              reservation.free();
-            }
+
+          if (message instanceof MessageRequiringResponse) {
+            final MessageRequiringResponse messageRequiringResponse =
+              (MessageRequiringResponse)message;
+
+            messageRequiringResponse.setResponder(
+              new ReservingSender(connection.m_socketSet,
+                                  connection.m_socketWrapper));
           }
+
+          m_messageQueue.queue(message);
         }
       }
-      catch (MessageQueue.ShutdownException e) {
-        // We've been shutdown, exit this thread.
+      catch (ClosedChannelException e) {
+        // Closed by another thread.
+        key.cancel();
       }
-      finally {
-        // Ensure we're shutdown.
-        shutdown();
+      catch (CommunicationException e) {
+        key.cancel();
+        connection.m_socketWrapper.close();
+        m_messageQueue.queue(e);
+      }
+      catch (IOException e) {
+        key.cancel();
+        connection.m_socketWrapper.close();
+        UncheckedInterruptedException.ioException(e);
+        m_messageQueue.queue(e);
+      }
+      catch (ClassNotFoundException e) {
+        key.cancel();
+        connection.m_socketWrapper.close();
+        m_messageQueue.queue(e);
+      }
+    }
+
+    private void processDeferredMessages()
+      throws MessageQueue.ShutdownException {
+
+      for (SelectionKey key : m_selector.keys()) {
+        final Connection connection = (Connection)key.attachment();
+
+        if (key.isValid() && connection.hasDeferredMessage()) {
+          process(key, connection, false);
+        }
+      }
+    }
+
+    private void closeIdleConnections() {
+      for (SelectionKey key : m_selector.keys()) {
+        final Connection connection = (Connection)key.attachment();
+
+        try {
+          if (connection.m_socketWrapper.closeIfIdle(m_inactiveClientTimeOut)) {
+            key.cancel();
+          }
+        }
+        catch (IOException e) {
+          // Already closed.
+          key.cancel();
+        }
       }
     }
   }
 
   /**
-   * SenderWithReservation. A one-shot use Sender, only accessed through a
+   * A one-shot use Sender, only accessed through a
    * {@link MessageRequiringResponse} wrapper which ensures send() is called at
-   * most once.
-   *
-   * <p>
-   * If no {@link MessageRequiringResponse#sendResponse(Message)} is not called,
-   * the reservation will not be freed. No way to avoid this - we're handing off
-   * responsibility to respond to a stream.
-   * </p>
-   *
+   * most once. Writes are made whilst holding a reservation for the socket, so
+   * they cannot interleave with those of a {@link FanOutServerSender}.
    */
-  private static final class SenderWithReservation implements Sender {
-    private final Sender m_delegateSender;
-    private final Reservation m_reservation;
-
-    private SenderWithReservation(Sender delegateSender,
-                                  Reservation reservation) {
-      m_delegateSender = delegateSender;
-      m_reservation = reservation;
+  private static final class ReservingSender implements Sender {
+    private final ResourcePool m_socketSet;
+    private final SocketWrapper m_socketWrapper;
+
+    private ReservingSender(ResourcePool socketSet,
+                            SocketWrapper socketWrapper) {
+      m_socketSet = socketSet;
+      m_socketWrapper = socketWrapper;
     }
 
     public void send(Message message) throws CommunicationException {
+      final Reservation reservation = m_socketSet.reserve(m_socketWrapper);
+
+      if (reservation == null) {
+        throw new CommunicationException("Connection closed");
+      }
+
       try {
-        m_delegateSender.send(message);
+        new StreamSender(m_socketWrapper.getOutputStream()).send(message);
       }
       finally {
-        shutdown();
+        reservation.free();
       }
     }
 
     public void shutdown() {
-      // We rely on our ResponseSender's single call to send to ensure we don't
-      // free the reservation multiple times.
-      m_reservation.free();
     }
   }
 }
@@ -0,0 +1,114 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.communication;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+
+/**
+ * An {@link OutputStream} that writes to a {@link SocketChannel}.
+ *
+ * <p>
+ * Unlike the stream returned by {@link java.net.Socket#getOutputStream()},
+ * this works whether or not the channel is in blocking mode. This allows a
+ * {@link ServerReceiver} to read from the channel using a {@link Selector},
+ * whilst other threads write to it. If the channel is in non-blocking mode
+ * and the socket send buffer is full, writes block until the channel is
+ * writable. The {@link Selector} used to wait is opened on first use and
+ * kept until the stream is closed.
+ * </p>
+ *
+ * @author Philip Aston
+ */
+final class SocketChannelOutputStream extends OutputStream {
+
+  private final SocketChannel m_channel;
+
+  /** Set whilst holding this. */
+  private volatile Selector m_selector;
+
+  /**
+   * Constructor.
+   *
+   * @param channel The channel.
+   */
+  public SocketChannelOutputStream(SocketChannel channel) {
+    m_channel = channel;
+  }
+
+  @Override public void write(int b) throws IOException {
+    write(new byte[] { (byte) b }, 0, 1);
+  }
+
+  @Override public void write(byte[] bytes, int offset, int length)
+    throws IOException {
+
+    final ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, length);
+
+    while (buffer.hasRemaining()) {
+      if (m_channel.write(buffer) == 0) {
+        awaitWritable();
+      }
+    }
+  }
+
+  private synchronized void awaitWritable() throws IOException {
+    if (m_selector == null) {
+      m_selector = Selector.open();
+      m_channel.register(m_selector, SelectionKey.OP_WRITE);
+    }
+
+    m_selector.select();
+    m_selector.selectedKeys().clear();
+
+    if (Thread.currentThread().isInterrupted()) {
+      throw new InterruptedIOException("Interrupted whilst writing");
+    }
+  }
+
+  @Override public void close() throws IOException {
+    try {
+      m_channel.close();
+    }
+    finally {
+      final Selector selector = m_selector;
+
+      if (selector != null) {
+        // Release any writer waiting in awaitWritable().
+        selector.wakeup();
+      }
+
+      synchronized (this) {
+        if (m_selector != null) {
+          m_selector.close();
+          m_selector = null;
+        }
+      }
+    }
+  }
+}
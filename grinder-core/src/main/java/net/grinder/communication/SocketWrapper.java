@@ -25,6 +25,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.Socket;
+import java.nio.channels.SocketChannel;
 
 import net.grinder.common.Closer;
 import net.grinder.util.ListenerSupport;
@@ -41,6 +42,13 @@ import net.grinder.util.ListenerSupport;
  * particular stream object while they use it.
  * </p>
  *
+ * <p>
+ * If the socket was created by a {@link SocketChannel}, the output stream
+ * writes to the channel and remains usable if the channel is later switched
+ * to non-blocking mode. The input stream can only be used while the channel
+ * is in blocking mode.
+ * </p>
+ *
  * @author Philip Aston
  */
 class SocketWrapper implements ResourcePool.Resource {
@@ -49,6 +57,7 @@ class SocketWrapper implements ResourcePool.Resource {
   private final ConnectionIdentity m_connectionIdentity;
   private final InputStream m_inputStream;
   private final OutputStream m_outputStream;
+  private final WireProtocol m_wireProtocol;
 
   private final ListenerSupport<ClosedListener> m_closedListeners =
     new ListenerSupport<ClosedListener>();
@@ -71,11 +80,39 @@ class SocketWrapper implements ResourcePool.Resource {
    *           If an error occurred.
    */
   public SocketWrapper(Socket socket) throws CommunicationException {
+    this(socket, null);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param socket
+   *          Socket to wrap. If the caller maintains any references to the
+   *          socket, if should synchronise access to the socket streams as
+   *          described in {@link SocketWrapper}.
+   * @param wireProtocol
+   *          The {@link WireProtocol} that was negotiated for messages sent
+   *          over the socket, or {@code null} for Java serialisation.
+   * @throws CommunicationException
+   *           If an error occurred.
+   */
+  public SocketWrapper(Socket socket, WireProtocol wireProtocol)
+    throws CommunicationException {
+
     m_socket = socket;
+    m_wireProtocol = wireProtocol;
 
     try {
       m_inputStream = m_socket.getInputStream();
-      m_outputStream = m_socket.getOutputStream();
+
+      final SocketChannel channel = m_socket.getChannel();
+
+      if (channel != null) {
+        m_outputStream = new SocketChannelOutputStream(channel);
+      }
+      else {
+        m_outputStream = m_socket.getOutputStream();
+      }
 
       m_connectionIdentity =
         new ConnectionIdentity(m_socket.getInetAddress(),
@@ -145,6 +182,25 @@ class SocketWrapper implements ResourcePool.Resource {
     return m_outputStream;
   }
 
+  /**
+   * Return the channel that created the socket.
+   *
+   * @return The channel, or {@code null} if the socket was not created by a
+   *         channel.
+   */
+  public SocketChannel getChannel() {
+    return m_socket.getChannel();
+  }
+
+  /**
+   * Return the {@link WireProtocol} to use to send messages.
+   *
+   * @return The wire protocol, or {@code null} for Java serialisation.
+   */
+  public WireProtocol getWireProtocol() {
+    return m_wireProtocol;
+  }
+
   /**
    * Socket event notification interface.
    */
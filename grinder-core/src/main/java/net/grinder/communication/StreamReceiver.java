@@ -21,9 +21,12 @@
 
 package net.grinder.communication;
 
+import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.InputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.io.PushbackInputStream;
 
 import net.grinder.common.Closer;
 import net.grinder.common.UncheckedInterruptedException;
@@ -38,6 +41,11 @@ public class StreamReceiver implements Receiver {
 
   private final InputStream m_inputStream;
   private final Object m_streamLock;
+  private final WireProtocol m_wireProtocol;
+
+  // Used to peek at the first byte of each message. Guarded by m_streamLock.
+  private final PushbackInputStream m_pushbackStream;
+  private final DataInputStream m_dataStream;
 
   // Guarded by m_streamLock.
   private boolean m_shutdown = false;
@@ -48,7 +56,20 @@ public class StreamReceiver implements Receiver {
    * @param inputStream The input stream to read from.
    */
   public StreamReceiver(InputStream inputStream) {
-    this(inputStream, inputStream);
+    this(inputStream, null);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param inputStream The input stream to read from.
+   * @param wireProtocol Used to decode binary frames. If {@code null}, only
+   * the frames for the communication package's messages can be decoded.
+   */
+  StreamReceiver(InputStream inputStream, WireProtocol wireProtocol) {
+    this(inputStream,
+         inputStream,
+         wireProtocol != null ? wireProtocol : new WireProtocol());
   }
 
   /**
@@ -56,10 +77,16 @@ public class StreamReceiver implements Receiver {
    *
    * @param inputStream The input stream to read from.
    * @param streamLock Lock on this object around all stream operations.
+   * @param wireProtocol Used to decode binary frames.
    */
-  private StreamReceiver(InputStream inputStream, Object streamLock) {
+  private StreamReceiver(InputStream inputStream,
+                         Object streamLock,
+                         WireProtocol wireProtocol) {
     m_inputStream = inputStream;
     m_streamLock = streamLock;
+    m_wireProtocol = wireProtocol;
+    m_pushbackStream = new PushbackInputStream(inputStream, 1);
+    m_dataStream = new DataInputStream(m_pushbackStream);
   }
 
   /**
@@ -80,10 +107,30 @@ public class StreamReceiver implements Receiver {
           return null;
         }
 
-        final ObjectInputStream objectStream =
-          new ObjectInputStream(m_inputStream);
+        // Senders can use Java serialisation or binary frames, see
+        // WireProtocol. Peek at the first byte to tell which.
+        int first = m_pushbackStream.read();
 
-        message = (Message)objectStream.readObject();
+        while (first > WireProtocol.JAVA_SERIALISATION &&
+               first <= WireProtocol.BINARY_VERSION) {
+          // A reply to a Connector's wire protocol offer that arrived after
+          // the Connector stopped waiting for it.
+          first = m_pushbackStream.read();
+        }
+
+        if (first < 0) {
+          throw new EOFException();
+        }
+
+        m_pushbackStream.unread(first);
+
+        if (first == WireProtocol.MARKER) {
+          message = m_wireProtocol.read(m_dataStream);
+        }
+        else {
+          message =
+            (Message)new ObjectInputStream(m_pushbackStream).readObject();
+        }
 
         if (message instanceof CloseCommunicationMessage) {
           shutdown();
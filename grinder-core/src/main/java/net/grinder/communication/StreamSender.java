@@ -37,6 +37,7 @@ public class StreamSender extends AbstractSender {
 
   private final OutputStream m_outputStream;
   private final Object m_streamLock;
+  private final WireProtocol m_wireProtocol;
 
   /**
    * Constructor.
@@ -44,7 +45,18 @@ public class StreamSender extends AbstractSender {
    * @param outputStream The output stream to write to.
    */
   public StreamSender(OutputStream outputStream) {
-    this(outputStream, outputStream);
+    this(outputStream, null);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param outputStream The output stream to write to.
+   * @param wireProtocol The {@link WireProtocol} accepted by the receiver, or
+   * {@code null} to use Java serialisation.
+   */
+  StreamSender(OutputStream outputStream, WireProtocol wireProtocol) {
+    this(outputStream, outputStream, wireProtocol);
   }
 
   /**
@@ -52,10 +64,15 @@ public class StreamSender extends AbstractSender {
    *
    * @param outputStream The output stream to write to.
    * @param streamLock Lock on this object around all stream operations.
+   * @param wireProtocol The {@link WireProtocol} accepted by the receiver, or
+   * {@code null} to use Java serialisation.
    */
-  private StreamSender(OutputStream outputStream, Object streamLock) {
+  private StreamSender(OutputStream outputStream,
+                       Object streamLock,
+                       WireProtocol wireProtocol) {
     m_outputStream = new BufferedOutputStream(outputStream);
     m_streamLock = streamLock;
+    m_wireProtocol = wireProtocol;
   }
 
   /**
@@ -67,7 +84,12 @@ public class StreamSender extends AbstractSender {
   @Override
   protected final void writeMessage(Message message) throws IOException {
     synchronized (m_streamLock) {
-      writeMessageToStream(message, m_outputStream);
+      if (m_wireProtocol != null) {
+        m_wireProtocol.write(message, m_outputStream);
+      }
+      else {
+        writeMessageToStream(message, m_outputStream);
+      }
     }
   }
 
@@ -0,0 +1,392 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+
+package net.grinder.communication;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * Compact binary encoding for frequently sent messages.
+ *
+ * <p>
+ * Messages are usually sent using Java serialisation, which writes a class
+ * descriptor with every message. The messages that processes send
+ * periodically can instead register a {@link MessageCodec} with a
+ * {@code WireProtocol}. Every message sent to a peer that accepts the binary
+ * protocol when the connection is established (see {@link Connector}) is
+ * sent as a binary frame. Messages without a codec are framed with a Java
+ * serialised payload, so that receivers always know how many bytes to
+ * expect. Messages sent to peers that don't accept the binary protocol
+ * continue to use Java serialisation.
+ * </p>
+ *
+ * <p>
+ * A frame consists of:
+ * </p>
+ *
+ * <ul>
+ * <li>A marker byte, which can't be the first byte of a Java serialisation
+ * stream.</li>
+ * <li>The protocol version byte.</li>
+ * <li>The message type identifier (a {@code short}).</li>
+ * <li>The payload length (an {@code int}).</li>
+ * <li>The payload, written by the message type's {@link MessageCodec}, or
+ * the Java serialised message if there is no codec.</li>
+ * </ul>
+ *
+ * <p>
+ * Receivers accept both frames and Java serialised messages, so the protocol
+ * only needs to be negotiated for the sending direction.
+ * </p>
+ *
+ * <p>
+ * Each instance holds its own set of codecs. The sending and receiving
+ * processes must register the same codecs with the instances they pass to
+ * their {@link Connector} and {@link ServerReceiver}.
+ * </p>
+ *
+ * @author Philip Aston
+ */
+public final class WireProtocol {
+
+  /** Protocol version that indicates that only Java serialisation is used. */
+  public static final int JAVA_SERIALISATION = 0;
+
+  /** The current binary protocol version. */
+  public static final int BINARY_VERSION = 1;
+
+  /** First byte of every binary frame. */
+  static final byte MARKER = 'G';
+
+  /** Length of the frame header, in bytes. */
+  static final int HEADER_LENGTH = 8;
+
+  private static final int MAXIMUM_PAYLOAD_LENGTH = 64 * 1024 * 1024;
+
+  private static final int SERIALISED_MESSAGE_TYPE = 0;
+  private static final int KEEP_ALIVE_MESSAGE_TYPE = 1;
+  private static final int CLOSE_COMMUNICATION_MESSAGE_TYPE = 2;
+
+  /**
+   * Encodes and decodes a particular message type.
+   *
+   * @param <T> The message type.
+   */
+  public interface MessageCodec<T extends Message> {
+
+    /**
+     * Write a message.
+     *
+     * @param message The message.
+     * @param out Where to write the message.
+     * @throws IOException If an I/O error occurs.
+     */
+    void write(T message, DataOutput out) throws IOException;
+
+    /**
+     * Read a message.
+     *
+     * @param in Where to read the message from.
+     * @return The message.
+     * @throws IOException If an I/O error occurs, or the message is invalid.
+     */
+    T read(DataInput in) throws IOException;
+  }
+
+  private static final class Registration {
+    private final int m_type;
+    private final Class<? extends Message> m_messageClass;
+    private final MessageCodec<? extends Message> m_codec;
+
+    public Registration(int type,
+                        Class<? extends Message> messageClass,
+                        MessageCodec<? extends Message> codec) {
+      m_type = type;
+      m_messageClass = messageClass;
+      m_codec = codec;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void write(Message message, DataOutput out) throws IOException {
+      ((MessageCodec<Message>)m_codec).write(message, out);
+    }
+  }
+
+  // Guarded by this.
+  private final Map<Class<? extends Message>, Registration> m_byClass =
+    new HashMap<Class<? extends Message>, Registration>();
+
+  // Guarded by this.
+  private final Map<Integer, Registration> m_byType =
+    new HashMap<Integer, Registration>();
+
+  /**
+   * Constructor. The codecs for the messages that the communication package
+   * sends are registered.
+   */
+  public WireProtocol() {
+    register(KEEP_ALIVE_MESSAGE_TYPE,
+             KeepAliveMessage.class,
+             new EmptyMessageCodec<KeepAliveMessage>() {
+               public KeepAliveMessage read(DataInput in) {
+                 return new KeepAliveMessage();
+               }
+             });
+
+    register(CLOSE_COMMUNICATION_MESSAGE_TYPE,
+             CloseCommunicationMessage.class,
+             new EmptyMessageCodec<CloseCommunicationMessage>() {
+               public CloseCommunicationMessage read(DataInput in) {
+                 return new CloseCommunicationMessage();
+               }
+             });
+  }
+
+  private abstract static class EmptyMessageCodec<T extends Message>
+    implements MessageCodec<T> {
+
+    public void write(T message, DataOutput out) {
+    }
+  }
+
+  /**
+   * Register a codec for a message type. Registering the same codec for the
+   * same type more than once has no effect.
+   *
+   * @param <T> The message type.
+   * @param type
+   *          Identifies the message type in the binary frame. Values less
+   *          than 16 are reserved for the communication package.
+   * @param messageClass
+   *          The message class. Subclasses are not encoded.
+   * @param codec
+   *          The codec.
+   * @throws IllegalStateException
+   *           If the type identifier or message class is already registered
+   *           with different parameters.
+   */
+  public synchronized <T extends Message> void register(
+    int type, Class<T> messageClass, MessageCodec<T> codec) {
+
+    if (type <= SERIALISED_MESSAGE_TYPE || type > Short.MAX_VALUE) {
+      throw new IllegalArgumentException("Invalid message type " + type);
+    }
+
+    final Registration existing = m_byType.get(type);
+
+    if (existing != null) {
+      if (existing.m_messageClass == messageClass &&
+          existing.m_codec.getClass() == codec.getClass()) {
+        return;
+      }
+
+      throw new IllegalStateException(
+        "Message type " + type + " is already registered for " +
+        existing.m_messageClass.getName());
+    }
+
+    if (m_byClass.containsKey(messageClass)) {
+      throw new IllegalStateException(
+        messageClass.getName() + " is already registered");
+    }
+
+    final Registration registration =
+      new Registration(type, messageClass, codec);
+
+    m_byType.put(type, registration);
+    m_byClass.put(messageClass, registration);
+  }
+
+  private synchronized Registration getRegistration(Message message) {
+    return m_byClass.get(message.getClass());
+  }
+
+  private synchronized Registration getRegistration(int type) {
+    return m_byType.get(type);
+  }
+
+  /**
+   * Write a message as a binary frame. If the message has no registered
+   * codec, the payload is the Java serialised message.
+   *
+   * @param message
+   *          The message.
+   * @param stream
+   *          The stream to write to. The stream is flushed.
+   * @throws IOException
+   *           If an I/O error occurs.
+   */
+  public void write(Message message, OutputStream stream)
+    throws IOException {
+
+    final Registration registration = getRegistration(message);
+
+    final ByteArrayOutputStream byteStream = new ByteArrayOutputStream(256);
+    final DataOutputStream out = new DataOutputStream(byteStream);
+
+    out.writeByte(MARKER);
+    out.writeByte(BINARY_VERSION);
+    out.writeShort(
+      registration != null ? registration.m_type : SERIALISED_MESSAGE_TYPE);
+    out.writeInt(0);
+
+    if (registration != null) {
+      registration.write(message, out);
+    }
+    else {
+      final ObjectOutputStream objectStream = new ObjectOutputStream(out);
+      objectStream.writeObject(message);
+      objectStream.flush();
+    }
+
+    out.flush();
+
+    final byte[] bytes = byteStream.toByteArray();
+    final int payloadLength = bytes.length - HEADER_LENGTH;
+    bytes[4] = (byte)(payloadLength >>> 24);
+    bytes[5] = (byte)(payloadLength >>> 16);
+    bytes[6] = (byte)(payloadLength >>> 8);
+    bytes[7] = (byte)payloadLength;
+
+    stream.write(bytes);
+    stream.flush();
+  }
+
+  /**
+   * Return the length of the binary frame at the start of a buffer.
+   *
+   * @param bytes
+   *          The buffer.
+   * @param offset
+   *          The offset of the frame.
+   * @param length
+   *          The number of bytes available.
+   * @return The frame length including the header, or {@code -1} if not
+   *         enough bytes are available to read the header.
+   * @throws IOException
+   *           If the bytes don't start with a valid header.
+   */
+  static int frameLength(byte[] bytes, int offset, int length)
+    throws IOException {
+
+    if (length < HEADER_LENGTH) {
+      return -1;
+    }
+
+    final DataInputStream in =
+      new DataInputStream(new ByteArrayInputStream(bytes, offset, length));
+
+    return HEADER_LENGTH + readHeader(in).m_payloadLength;
+  }
+
+  private static final class Header {
+    private final int m_type;
+    private final int m_payloadLength;
+
+    public Header(int type, int payloadLength) {
+      m_type = type;
+      m_payloadLength = payloadLength;
+    }
+  }
+
+  private static Header readHeader(DataInput in) throws IOException {
+    final byte marker = in.readByte();
+
+    if (marker != MARKER) {
+      throw new IOException("Invalid frame marker " + marker);
+    }
+
+    final int version = in.readUnsignedByte();
+
+    if (version == JAVA_SERIALISATION || version > BINARY_VERSION) {
+      throw new IOException("Unsupported protocol version " + version);
+    }
+
+    final int type = in.readUnsignedShort();
+    final int payloadLength = in.readInt();
+
+    if (payloadLength < 0 || payloadLength > MAXIMUM_PAYLOAD_LENGTH) {
+      throw new IOException("Invalid payload length " + payloadLength);
+    }
+
+    return new Header(type, payloadLength);
+  }
+
+  /**
+   * Read a binary frame.
+   *
+   * <p>
+   * Exactly the bytes of the frame are consumed. A codec that does not read
+   * the whole of its payload is allowed - later protocol versions may append
+   * fields.
+   * </p>
+   *
+   * @param in
+   *          Where to read the frame from.
+   * @return The message.
+   * @throws IOException
+   *           If an I/O error occurs, or the frame is invalid.
+   * @throws ClassNotFoundException
+   *           If the class of a Java serialised message could not be found.
+   */
+  public Message read(DataInput in)
+    throws IOException, ClassNotFoundException {
+
+    final Header header = readHeader(in);
+
+    final byte[] payload = new byte[header.m_payloadLength];
+    in.readFully(payload);
+
+    if (header.m_type == SERIALISED_MESSAGE_TYPE) {
+      final Object object =
+        new ObjectInputStream(new ByteArrayInputStream(payload)).readObject();
+
+      if (!(object instanceof Message)) {
+        throw new IOException(
+          "Received an object that is not a message: " + object);
+      }
+
+      return (Message)object;
+    }
+
+    final Registration registration = getRegistration(header.m_type);
+
+    if (registration == null) {
+      throw new IOException("Unknown message type " + header.m_type);
+    }
+
+    return registration.m_codec.read(
+      new DataInputStream(new ByteArrayInputStream(payload)));
+  }
+}
@@ -145,6 +145,7 @@ public final class ConsoleFoundation {
 
     m_container.addComponent(SampleModelImplementation.class);
     m_container.addComponent(SampleModelViewsImplementation.class);
+    m_container.addComponent(SampleHistory.class);
     m_container.addComponent(ConsoleCommunicationImplementation.class);
     m_container.addComponent(DistributionControlImplementation.class);
     m_container.addComponent(ProcessControlImplementation.class);
@@ -213,6 +214,7 @@ public final class ConsoleFoundation {
     m_container.getComponent(WireMessageDispatch.class);
     m_container.getComponent(WireFileDistribution.class);
     m_container.getComponent(WireDistributedBarriers.class);
+    m_container.getComponent(SampleHistory.class);
 
     final ConsoleCommunication communication =
       m_container.getComponent(ConsoleCommunication.class);
@@ -42,6 +42,7 @@ public final class ProcessReportDescriptionFactory {
   private final String m_stateConnectedString;
   private final String m_stateDisconnectedString;
   private final String m_stateUnknownString;
+  private final String m_saturatedString;
 
   /**
    * Constructor.
@@ -62,6 +63,7 @@ public final class ProcessReportDescriptionFactory {
     m_stateDisconnectedString =
       resources.getString("processState.disconnected.label");
     m_stateUnknownString = resources.getString("processState.unknown.label");
+    m_saturatedString = resources.getString("processState.saturated.label");
   }
 
   /**
@@ -124,7 +126,10 @@ public final class ProcessReportDescriptionFactory {
         state = m_stateRunningString + " (" +
                 workerProcessReport.getNumberOfRunningThreads() + "/" +
                 workerProcessReport.getMaximumNumberOfThreads() + " " +
-                m_threadsString + ")";
+                m_threadsString +
+                (workerProcessReport.isSaturated() ?
+                  ", " + m_saturatedString : "") +
+                ")";
         break;
 
       case FINISHED:
@@ -36,10 +36,12 @@ import net.grinder.communication.Message;
 import net.grinder.communication.MessageDispatchRegistry;
 import net.grinder.communication.MessageDispatchSender;
 import net.grinder.communication.ServerReceiver;
+import net.grinder.communication.WireProtocol;
 import net.grinder.console.common.DisplayMessageConsoleException;
 import net.grinder.console.common.ErrorHandler;
 import net.grinder.console.common.Resources;
 import net.grinder.console.model.ConsoleProperties;
+import net.grinder.messages.console.ConsoleMessageCodecs;
 import net.grinder.util.TimeAuthority;
 import net.grinder.util.thread.BooleanCondition;
 
@@ -204,7 +206,10 @@ public final class ConsoleCommunicationImplementation
     acceptorProblemListener.setDaemon(true);
     acceptorProblemListener.start();
 
-    m_receiver = new ServerReceiver();
+    final WireProtocol wireProtocol = new WireProtocol();
+    ConsoleMessageCodecs.register(wireProtocol);
+
+    m_receiver = new ServerReceiver(wireProtocol);
 
     try {
       m_receiver.receiveFrom(m_acceptor,
@@ -79,6 +79,16 @@ public interface ProcessControl {
    */
   void stopAgentAndWorkerProcesses();
 
+  /**
+   * Change the arrival rate of worker processes that are running an open
+   * workload. Worker processes that were not started with a
+   * {@code grinder.arrivalRate} ignore this.
+   *
+   * @param runsPerSecond
+   *          The new arrival rate for each worker process.
+   */
+  void setArrivalRate(double runsPerSecond);
+
   /**
    * Add a listener for process status data.
    *
@@ -32,6 +32,7 @@ import net.grinder.console.common.ConsoleException;
 import net.grinder.console.common.DisplayMessageConsoleException;
 import net.grinder.console.common.Resources;
 import net.grinder.messages.agent.ResetGrinderMessage;
+import net.grinder.messages.agent.SetArrivalRateMessage;
 import net.grinder.messages.agent.StartGrinderMessage;
 import net.grinder.messages.agent.StopGrinderMessage;
 import net.grinder.messages.console.AgentAddress;
@@ -183,6 +184,15 @@ public class ProcessControlImplementation implements ProcessControl {
     m_consoleCommunication.sendToAgents(new StopGrinderMessage());
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void setArrivalRate(final double runsPerSecond) {
+    m_consoleCommunication.sendToAgents(
+      new SetArrivalRateMessage(runsPerSecond));
+  }
+
   /**
    * {@inheritDoc}
    */
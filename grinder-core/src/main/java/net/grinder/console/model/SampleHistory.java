@@ -0,0 +1,236 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+
+package net.grinder.console.model;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import net.grinder.common.Test;
+import net.grinder.console.common.ConsoleException;
+import net.grinder.console.common.ErrorHandler;
+import net.grinder.statistics.StatisticsIndexMap;
+import net.grinder.statistics.StatisticsServices;
+import net.grinder.statistics.StatisticsSet;
+import net.grinder.statistics.TestStatisticsQueries;
+import net.grinder.util.TimeAuthority;
+
+
+/**
+ * Records the statistics of every sample taken by the {@link SampleModel},
+ * for each test and for the totals, so they can be queried after the event.
+ *
+ * <p>
+ * The samples are held in a {@link TimeSeriesStore} backed by a temporary
+ * file, which is created when the first sample is recorded. Recent samples
+ * are kept at full resolution, and older samples are automatically
+ * downsampled. The space used by each test is fixed, so the memory used is
+ * bounded however long the console runs.
+ * </p>
+ *
+ * @author Philip Aston
+ */
+public final class SampleHistory {
+
+  /**
+   * The series used for the total statistics.
+   */
+  public static final int TOTALS = Integer.MIN_VALUE;
+
+  // Each tier holds 4K samples of each test. With a one second sample
+  // interval, this keeps full resolution samples for the last 1.1 hours,
+  // ten second samples for 11 hours, and so on. Each test uses 896 KB.
+  private static final int CAPACITY = 1 << 12;
+  private static final int DOWNSAMPLE_FACTOR = 10;
+  private static final int TIERS = 4;
+
+  private final TimeSeriesStore m_store;
+  private final TimeAuthority m_timeAuthority;
+  private final ErrorHandler m_errorHandler;
+  private final TestStatisticsQueries m_testStatisticsQueries;
+  private final StatisticsIndexMap.LongIndex m_periodIndex;
+  private final StatisticsIndexMap.LongSampleIndex m_timedTestsIndex;
+
+  // Guarded by this.
+  private final Map<Integer, StatisticsSet> m_pending =
+    new HashMap<Integer, StatisticsSet>();
+
+  // Guarded by this.
+  private final Map<Integer, String> m_tests = new TreeMap<Integer, String>();
+
+  // Guarded by this.
+  private boolean m_failed;
+
+  /**
+   * Constructor.
+   *
+   * @param model
+   *          The sample model.
+   * @param statisticsServices
+   *          Statistics services.
+   * @param timeAuthority
+   *          Time authority.
+   * @param errorHandler
+   *          Told if samples can't be recorded.
+   */
+  public SampleHistory(final SampleModel model,
+                       final StatisticsServices statisticsServices,
+                       final TimeAuthority timeAuthority,
+                       final ErrorHandler errorHandler) {
+
+    this(model,
+         statisticsServices,
+         timeAuthority,
+         errorHandler,
+         new TimeSeriesStore(CAPACITY, DOWNSAMPLE_FACTOR, TIERS));
+  }
+
+  SampleHistory(final SampleModel model,
+                final StatisticsServices statisticsServices,
+                final TimeAuthority timeAuthority,
+                final ErrorHandler errorHandler,
+                final TimeSeriesStore store) {
+
+    m_store = store;
+    m_timeAuthority = timeAuthority;
+    m_errorHandler = errorHandler;
+    m_testStatisticsQueries = statisticsServices.getTestStatisticsQueries();
+
+    final StatisticsIndexMap indexMap =
+      statisticsServices.getStatisticsIndexMap();
+
+    m_periodIndex = indexMap.getLongIndex("period");
+    m_timedTestsIndex = indexMap.getLongSampleIndex("timedTests");
+
+    model.addTotalSampleListener(new HistoryListener(TOTALS));
+
+    model.addModelListener(new SampleModel.AbstractListener() {
+      @Override
+      public void newTests(final Set<Test> newTests,
+                           final ModelTestIndex modelTestIndex) {
+
+        for (final Test test : newTests) {
+          synchronized (SampleHistory.this) {
+            m_tests.put(test.getNumber(), test.getDescription());
+          }
+
+          model.addSampleListener(test, new HistoryListener(test.getNumber()));
+        }
+      }
+
+      @Override
+      public void newSample() {
+        record();
+      }
+    });
+  }
+
+  private synchronized void record() {
+    // Once we've failed, don't report the failure for every sample.
+    if (!m_failed) {
+      try {
+        record(m_timeAuthority.getTimeInMilliseconds());
+      }
+      catch (final IOException e) {
+        m_failed = true;
+        m_errorHandler.handleException(
+          new ConsoleException("Failed to record sample history", e));
+      }
+    }
+
+    m_pending.clear();
+  }
+
+  private void record(final long now) throws IOException {
+    for (final Map.Entry<Integer, StatisticsSet> entry : m_pending.entrySet()) {
+      final StatisticsSet statistics = entry.getValue();
+      final long timedTests = statistics.getCount(m_timedTestsIndex);
+      final long testTime = statistics.getSum(m_timedTestsIndex);
+
+      final double sumOfSquares = timedTests == 0 ? 0 :
+        statistics.getVariance(m_timedTestsIndex) * timedTests +
+        (double) testTime * testTime / timedTests;
+
+      m_store.append(
+        entry.getKey(),
+        new TimeSeriesStore.Sample(
+          now,
+          statistics.getValue(m_periodIndex),
+          m_testStatisticsQueries.getNumberOfTests(statistics),
+          m_testStatisticsQueries.getNumberOfErrors(statistics),
+          timedTests,
+          testTime,
+          sumOfSquares));
+    }
+  }
+
+  /**
+   * Return the tests that have been recorded.
+   *
+   * @return Map of test number to test description, in test number order.
+   */
+  public synchronized Map<Integer, String> getTests() {
+    return new TreeMap<Integer, String>(m_tests);
+  }
+
+  /**
+   * Return the recorded samples for a test, or for the totals.
+   *
+   * @param series
+   *          The test number, or {@link #TOTALS}.
+   * @param from
+   *          The start of the time range, in milliseconds since the Epoch,
+   *          inclusive.
+   * @param to
+   *          The end of the time range, in milliseconds since the Epoch,
+   *          inclusive.
+   * @return The samples, oldest first. Older samples are at a coarser
+   *         resolution.
+   */
+  public List<TimeSeriesStore.Sample> getSamples(final int series,
+                                                 final long from,
+                                                 final long to) {
+    return m_store.getSamples(series, from, to);
+  }
+
+  private final class HistoryListener implements SampleListener {
+    private final int m_series;
+
+    public HistoryListener(final int series) {
+      m_series = series;
+    }
+
+    @Override
+    public void update(final StatisticsSet intervalStatistics,
+                       final StatisticsSet cumulativeStatistics) {
+      // The model creates new interval statistics for every sample, so we
+      // can keep a reference.
+      synchronized (SampleHistory.this) {
+        m_pending.put(m_series, intervalStatistics);
+      }
+    }
+  }
+}
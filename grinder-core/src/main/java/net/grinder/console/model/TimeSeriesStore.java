@@ -0,0 +1,553 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+
+package net.grinder.console.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Bounded, memory-mapped store of per-interval samples.
+ *
+ * <p>
+ * Each record belongs to a <em>series</em>, identified by an {@code int}.
+ * Samples of a series are appended to a number of tiers, each of which is a
+ * fixed size ring of records in a memory-mapped file. The first tier holds
+ * each sample. Every {@code downsampleFactor} samples in one tier are
+ * combined into a single sample in the next tier, so each tier covers
+ * {@code downsampleFactor} times the duration of the previous one. When a
+ * tier is full, its oldest records are overwritten.
+ * </p>
+ *
+ * <p>
+ * Space for a series is added to the file when its first sample is appended,
+ * so nothing is created until the store is used. The memory used for each
+ * series is fixed, however long the store is used.
+ * </p>
+ *
+ * @author Philip Aston
+ */
+public final class TimeSeriesStore {
+
+  // time, period, tests, errors, timed tests, test time,
+  // test time sum of squares.
+  private static final int RECORD_SIZE = 56;
+
+  private final int m_capacity;
+  private final int m_downsampleFactor;
+  private final int m_tiers;
+  private final int m_seriesLength;
+
+  // Guarded by this.
+  private File m_file;
+  private RandomAccessFile m_randomAccessFile;
+  private final Map<Integer, Series> m_series = new HashMap<Integer, Series>();
+
+  /**
+   * Constructor for a store backed by a temporary file. The file is created
+   * when the first sample is appended, and deleted when the JVM exits.
+   *
+   * @param capacity
+   *          The number of records held by each tier of each series.
+   * @param downsampleFactor
+   *          The number of samples in a tier combined into a single sample of
+   *          the next tier.
+   * @param tiers
+   *          The number of tiers.
+   */
+  public TimeSeriesStore(final int capacity,
+                         final int downsampleFactor,
+                         final int tiers) {
+    this(null, capacity, downsampleFactor, tiers);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param file
+   *          The file to map. Its contents are replaced when the first sample
+   *          is appended.
+   * @param capacity
+   *          The number of records held by each tier of each series.
+   * @param downsampleFactor
+   *          The number of samples in a tier combined into a single sample of
+   *          the next tier.
+   * @param tiers
+   *          The number of tiers.
+   */
+  public TimeSeriesStore(final File file,
+                         final int capacity,
+                         final int downsampleFactor,
+                         final int tiers) {
+
+    if (capacity <= 0 || tiers <= 0) {
+      throw new IllegalArgumentException(
+        "Capacity and number of tiers must be positive");
+    }
+
+    if (downsampleFactor < 2) {
+      throw new IllegalArgumentException(
+        "Downsample factor must be at least 2");
+    }
+
+    final long seriesLength = (long) capacity * tiers * RECORD_SIZE;
+
+    if (seriesLength > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Store too large");
+    }
+
+    m_file = file;
+    m_capacity = capacity;
+    m_downsampleFactor = downsampleFactor;
+    m_tiers = tiers;
+    m_seriesLength = (int) seriesLength;
+  }
+
+  /**
+   * Append a sample. The samples of a series must be appended in time order.
+   *
+   * @param series
+   *          The series.
+   * @param sample
+   *          The sample.
+   * @throws IOException
+   *           If space for a new series could not be mapped.
+   */
+  public synchronized void append(final int series, final Sample sample)
+    throws IOException {
+
+    Series s = m_series.get(series);
+
+    if (s == null) {
+      s = new Series(map(m_series.size()));
+      m_series.put(series, s);
+    }
+
+    s.append(0, sample);
+  }
+
+  private MappedByteBuffer map(final int index) throws IOException {
+    if (m_randomAccessFile == null) {
+      if (m_file == null) {
+        m_file = File.createTempFile("grinder-samples", ".dat");
+        m_file.deleteOnExit();
+      }
+
+      m_randomAccessFile = new RandomAccessFile(m_file, "rw");
+      m_randomAccessFile.setLength(0);
+    }
+
+    // Mapping beyond the end of the file extends it.
+    return m_randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE,
+                                               (long) index * m_seriesLength,
+                                               m_seriesLength);
+  }
+
+  /**
+   * Return the samples of a series in a time range, oldest first.
+   *
+   * <p>
+   * The samples are taken from the finest tier that holds them. Older
+   * samples that have been overwritten in the finer tiers are taken from
+   * the coarser tiers. If a finer tier only holds the end of the interval
+   * covered by a coarser sample, the coarser sample is used, so no interval
+   * is lost or counted twice.
+   * </p>
+   *
+   * @param series
+   *          The series.
+   * @param from
+   *          The start of the time range, inclusive.
+   * @param to
+   *          The end of the time range, inclusive.
+   * @return The samples.
+   */
+  public synchronized List<Sample> getSamples(final int series,
+                                              final long from,
+                                              final long to) {
+    final Series s = m_series.get(series);
+
+    if (s == null) {
+      return Collections.emptyList();
+    }
+
+    return s.getSamples(from, to);
+  }
+
+  /**
+   * Release the store.
+   *
+   * @throws IOException
+   *           If the file could not be closed.
+   */
+  public synchronized void close() throws IOException {
+    m_series.clear();
+
+    if (m_randomAccessFile != null) {
+      m_randomAccessFile.close();
+      m_randomAccessFile = null;
+    }
+  }
+
+  /**
+   * The tiers of one series. Each tier is a ring of records in the series'
+   * region of the file.
+   */
+  private final class Series {
+    private final MappedByteBuffer m_buffer;
+    private final int[] m_next = new int[m_tiers];
+    private final int[] m_size = new int[m_tiers];
+    private final long[] m_count = new long[m_tiers];
+    private final Aggregate[] m_aggregates = new Aggregate[m_tiers];
+
+    Series(final MappedByteBuffer buffer) {
+      m_buffer = buffer;
+    }
+
+    void append(final int tier, final Sample sample) {
+      write(tier, sample);
+
+      if (tier + 1 < m_tiers) {
+        Aggregate aggregate = m_aggregates[tier + 1];
+
+        if (aggregate == null) {
+          aggregate = new Aggregate();
+          m_aggregates[tier + 1] = aggregate;
+        }
+
+        aggregate.add(sample);
+
+        if (aggregate.m_count == m_downsampleFactor) {
+          m_aggregates[tier + 1] = null;
+          append(tier + 1, aggregate.toSample());
+        }
+      }
+    }
+
+    private void write(final int tier, final Sample sample) {
+      final int position = (tier * m_capacity + m_next[tier]) * RECORD_SIZE;
+
+      m_buffer.putLong(position, sample.m_time);
+      m_buffer.putLong(position + 8, sample.m_period);
+      m_buffer.putLong(position + 16, sample.m_tests);
+      m_buffer.putLong(position + 24, sample.m_errors);
+      m_buffer.putLong(position + 32, sample.m_timedTests);
+      m_buffer.putLong(position + 40, sample.m_testTime);
+      m_buffer.putDouble(position + 48, sample.m_testTimeSumOfSquares);
+
+      m_next[tier] = (m_next[tier] + 1) % m_capacity;
+      m_size[tier] = Math.min(m_size[tier] + 1, m_capacity);
+      ++m_count[tier];
+    }
+
+    private int position(final int tier, final int index) {
+      final int oldest =
+        (m_next[tier] - m_size[tier] + m_capacity) % m_capacity;
+      return (tier * m_capacity + (oldest + index) % m_capacity) * RECORD_SIZE;
+    }
+
+    private long time(final int tier, final int index) {
+      return m_buffer.getLong(position(tier, index));
+    }
+
+    private Sample read(final int position) {
+      return new Sample(m_buffer.getLong(position),
+                        m_buffer.getLong(position + 8),
+                        m_buffer.getLong(position + 16),
+                        m_buffer.getLong(position + 24),
+                        m_buffer.getLong(position + 32),
+                        m_buffer.getLong(position + 40),
+                        m_buffer.getDouble(position + 48));
+    }
+
+    /**
+     * The index of the first sample in a tier with a time no earlier than
+     * {@code time}. Records are in time order, so we can binary search.
+     */
+    private int search(final int tier, final long time) {
+      int low = 0;
+      int high = m_size[tier];
+
+      while (low < high) {
+        final int middle = (low + high) >>> 1;
+
+        if (time(tier, middle) < time) {
+          low = middle + 1;
+        }
+        else {
+          high = middle;
+        }
+      }
+
+      return low;
+    }
+
+    /**
+     * The number of the oldest samples in a tier that belong to an aggregate
+     * whose earlier samples have been overwritten. The next tier holds the
+     * whole aggregate, so it is used instead of these samples.
+     */
+    private int overlap(final int tier) {
+      if (tier + 1 == m_tiers) {
+        return 0;
+      }
+
+      final long oldest = m_count[tier] - m_size[tier];
+      final int offset = (int) (oldest % m_downsampleFactor);
+      final long aggregate = oldest / m_downsampleFactor;
+
+      if (offset == 0 || m_count[tier + 1] <= aggregate) {
+        return 0;
+      }
+
+      return m_downsampleFactor - offset;
+    }
+
+    List<Sample> getSamples(final long from, final long to) {
+      final List<List<Sample>> tiers = new ArrayList<List<Sample>>();
+
+      // Samples with a time before the cutoff are not held by a finer tier.
+      long cutoff = Long.MAX_VALUE;
+
+      for (int tier = 0; tier < m_tiers && m_size[tier] > 0; ++tier) {
+        final List<Sample> samples = new ArrayList<Sample>();
+
+        final int overlap = overlap(tier);
+
+        for (int i = Math.max(search(tier, from), overlap);
+             i < m_size[tier];
+             ++i) {
+          final int position = position(tier, i);
+          final long time = m_buffer.getLong(position);
+
+          if (time > to || time >= cutoff) {
+            break;
+          }
+
+          samples.add(read(position));
+        }
+
+        tiers.add(samples);
+
+        // The next tier's sample for the overlapping aggregate has the time
+        // of the aggregate's last sample, so is included.
+        cutoff = Math.min(cutoff,
+                          overlap < m_size[tier] ?
+                            time(tier, overlap) :
+                            time(tier, overlap - 1) + 1);
+      }
+
+      Collections.reverse(tiers);
+
+      final List<Sample> result = new ArrayList<Sample>();
+
+      for (final List<Sample> samples : tiers) {
+        result.addAll(samples);
+      }
+
+      return result;
+    }
+  }
+
+  private static final class Aggregate {
+    private int m_count;
+    private long m_time;
+    private long m_period;
+    private long m_tests;
+    private long m_errors;
+    private long m_timedTests;
+    private long m_testTime;
+    private double m_testTimeSumOfSquares;
+
+    void add(final Sample sample) {
+      ++m_count;
+      m_time = sample.m_time;
+      m_period += sample.m_period;
+      m_tests += sample.m_tests;
+      m_errors += sample.m_errors;
+      m_timedTests += sample.m_timedTests;
+      m_testTime += sample.m_testTime;
+      m_testTimeSumOfSquares += sample.m_testTimeSumOfSquares;
+    }
+
+    Sample toSample() {
+      return new Sample(m_time,
+                        m_period,
+                        m_tests,
+                        m_errors,
+                        m_timedTests,
+                        m_testTime,
+                        m_testTimeSumOfSquares);
+    }
+  }
+
+  /**
+   * The statistics for an interval.
+   */
+  public static final class Sample {
+    private final long m_time;
+    private final long m_period;
+    private final long m_tests;
+    private final long m_errors;
+    private final long m_timedTests;
+    private final long m_testTime;
+    private final double m_testTimeSumOfSquares;
+
+    /**
+     * Constructor.
+     *
+     * @param time
+     *          The time at the end of the interval, in milliseconds since the
+     *          Epoch.
+     * @param period
+     *          The length of the interval, in milliseconds.
+     * @param tests
+     *          The number of tests, timed and untimed.
+     * @param errors
+     *          The number of errors.
+     * @param timedTests
+     *          The number of timed tests.
+     * @param testTime
+     *          The sum of the test times.
+     * @param testTimeSumOfSquares
+     *          The sum of the squares of the test times.
+     */
+    public Sample(final long time,
+                  final long period,
+                  final long tests,
+                  final long errors,
+                  final long timedTests,
+                  final long testTime,
+                  final double testTimeSumOfSquares) {
+      m_time = time;
+      m_period = period;
+      m_tests = tests;
+      m_errors = errors;
+      m_timedTests = timedTests;
+      m_testTime = testTime;
+      m_testTimeSumOfSquares = testTimeSumOfSquares;
+    }
+
+    /**
+     * The time at the end of the interval.
+     *
+     * @return The time, in milliseconds since the Epoch.
+     */
+    public long getTime() {
+      return m_time;
+    }
+
+    /**
+     * The length of the interval.
+     *
+     * @return The period, in milliseconds.
+     */
+    public long getPeriod() {
+      return m_period;
+    }
+
+    /**
+     * The number of tests, timed and untimed.
+     *
+     * @return The number of tests.
+     */
+    public long getTests() {
+      return m_tests;
+    }
+
+    /**
+     * The number of errors.
+     *
+     * @return The number of errors.
+     */
+    public long getErrors() {
+      return m_errors;
+    }
+
+    /**
+     * The number of timed tests.
+     *
+     * @return The number of timed tests.
+     */
+    public long getTimedTests() {
+      return m_timedTests;
+    }
+
+    /**
+     * The sum of the test times.
+     *
+     * @return The total test time.
+     */
+    public long getTestTime() {
+      return m_testTime;
+    }
+
+    /**
+     * The sum of the squares of the test times.
+     *
+     * @return The sum of the squares.
+     */
+    public double getTestTimeSumOfSquares() {
+      return m_testTimeSumOfSquares;
+    }
+
+    /**
+     * The number of tests per second.
+     *
+     * @return The TPS, or {@code 0} if the period is {@code 0}.
+     */
+    public double getTPS() {
+      return m_period == 0 ? 0 : m_tests * 1000d / m_period;
+    }
+
+    /**
+     * The mean test time.
+     *
+     * @return The mean time, or {@code NaN} if there were no timed tests.
+     */
+    public double getMeanTestTime() {
+      return (double) m_testTime / m_timedTests;
+    }
+
+    /**
+     * The standard deviation of the test times.
+     *
+     * @return The standard deviation, or {@code NaN} if there were no timed
+     *         tests.
+     */
+    public double getTestTimeStandardDeviation() {
+      final double mean = getMeanTestTime();
+
+      return Math.sqrt(
+        Math.max(0, m_testTimeSumOfSquares / m_timedTests - mean * mean));
+    }
+  }
+}
@@ -14,9 +14,12 @@ import net.grinder.communication.MessageDispatchRegistry.AbstractHandler;
 import net.grinder.console.communication.ConsoleCommunication;
 import net.grinder.console.communication.ProcessControl;
 import net.grinder.console.communication.ProcessControl.ProcessReports;
+import net.grinder.synchronisation.BarrierGroup;
 import net.grinder.synchronisation.BarrierGroups;
 import net.grinder.synchronisation.messages.AddBarrierMessage;
 import net.grinder.synchronisation.messages.AddWaiterMessage;
+import net.grinder.synchronisation.messages.AddWaitersMessage;
+import net.grinder.synchronisation.messages.BarrierIdentity;
 import net.grinder.synchronisation.messages.CancelWaiterMessage;
 import net.grinder.synchronisation.messages.RemoveBarriersMessage;
 
@@ -103,6 +106,22 @@ public class WireDistributedBarriers {
         }
       });
 
+    messageDispatch.set(
+      AddWaitersMessage.class,
+      new AbstractHandler<AddWaitersMessage>() {
+        public void handle(AddWaitersMessage message)
+          throws CommunicationException {
+
+          final BarrierGroup group =
+            getBarrierGroupsForProcess(message.getProcessIdentity())
+            .getGroup(message.getName());
+
+          for (BarrierIdentity waiter : message.getBarrierIdentities()) {
+            group.addWaiter(waiter);
+          }
+        }
+      });
+
     messageDispatch.set(
       CancelWaiterMessage.class,
       new AbstractHandler<CancelWaiterMessage>() {
@@ -44,6 +44,7 @@ import net.grinder.communication.FanOutStreamSender;
 import net.grinder.communication.IgnoreShutdownSender;
 import net.grinder.communication.MessageDispatchSender;
 import net.grinder.communication.MessagePump;
+import net.grinder.communication.Sender;
 import net.grinder.communication.TeeSender;
 import net.grinder.engine.common.ConnectorFactory;
 import net.grinder.engine.common.EngineException;
@@ -52,6 +53,7 @@ import net.grinder.engine.communication.ConsoleListener;
 import net.grinder.messages.agent.StartGrinderMessage;
 import net.grinder.messages.console.AgentAddress;
 import net.grinder.messages.console.AgentProcessReportMessage;
+import net.grinder.scriptengine.jython.JythonScriptEngineService;
 import net.grinder.util.Directory;
 import net.grinder.util.thread.Condition;
 
@@ -87,6 +89,11 @@ public final class AgentImplementation implements Agent {
    */
   private volatile FileStore m_fileStore;
 
+  /**
+   * Pre-started worker processes. Kept between runs.
+   */
+  private WorkerProcessPool m_workerProcessPool;
+
   /**
    * Constructor.
    *
@@ -236,10 +243,16 @@ public final class AgentImplementation implements Agent {
         while (script == null);
 
         if (script != null) {
+          final StatisticsAggregator statisticsAggregator =
+            createStatisticsAggregator(consoleCommunication, properties);
+
+          setJythonCacheDirectory(properties);
+
           final String jvmArguments =
             properties.getProperty("grinder.jvm.arguments");
 
           final WorkerFactory workerFactory;
+          WorkerProcessPool workerProcessPool = null;
 
           if (!properties.getBoolean("grinder.debug.singleprocess", false)) {
 
@@ -251,10 +264,13 @@ public final class AgentImplementation implements Agent {
 
             m_logger.info("Worker process command line: {}", workerCommandLine);
 
+            workerProcessPool = getWorkerProcessPool(properties);
+
             workerFactory =
               new ProcessWorkerFactory(
                 workerCommandLine, m_agentIdentity, m_fanOutStreamSender,
-                consoleCommunication != null, script, properties);
+                consoleCommunication != null, script, properties,
+                workerProcessPool);
           }
           else {
             m_logger.info(
@@ -330,6 +346,16 @@ public final class AgentImplementation implements Agent {
           }
 
           workerLauncher.shutdown();
+
+          if (statisticsAggregator != null) {
+            statisticsAggregator.shutdown();
+          }
+
+          if (workerProcessPool != null) {
+            // Start processes for the next run now that they won't compete
+            // with this one.
+            workerProcessPool.refill();
+          }
         }
 
         if (consoleCommunication == null) {
@@ -361,6 +387,7 @@ public final class AgentImplementation implements Agent {
     }
     finally {
       shutdownConsoleCommunication(consoleCommunication);
+      shutdownWorkerProcessPool();
     }
   }
 
@@ -391,6 +418,88 @@ public final class AgentImplementation implements Agent {
     return properties;
   }
 
+  /**
+   * Return the pool of pre-started worker processes, creating or resizing
+   * it if necessary.
+   *
+   * @return The pool, or {@code null} if worker processes should not be
+   *         started in advance.
+   */
+  private WorkerProcessPool getWorkerProcessPool(
+    GrinderProperties properties) {
+
+    final int size = properties.getInt("grinder.prestartProcesses", 0);
+
+    if (m_workerProcessPool != null &&
+        m_workerProcessPool.getSize() != size) {
+      shutdownWorkerProcessPool();
+    }
+
+    if (m_workerProcessPool == null && size > 0) {
+      m_workerProcessPool =
+        new WorkerProcessPool(size, System.out, System.err, m_logger);
+    }
+
+    return m_workerProcessPool;
+  }
+
+  private void shutdownWorkerProcessPool() {
+    if (m_workerProcessPool != null) {
+      m_workerProcessPool.shutdown();
+      m_workerProcessPool = null;
+    }
+  }
+
+  /**
+   * If the agent has a file store, tell the workers to cache compiled
+   * Jython code alongside it. The cache is cleared with the file store.
+   */
+  private void setJythonCacheDirectory(GrinderProperties properties) {
+    if (m_fileStore != null &&
+        !properties.containsKey(
+          JythonScriptEngineService.CACHE_DIRECTORY_PROPERTY)) {
+
+      properties.setFile(
+        JythonScriptEngineService.CACHE_DIRECTORY_PROPERTY,
+        new File(m_fileStore.getDerivedDataDirectory().getFile(), "jython"));
+    }
+  }
+
+  /**
+   * If requested, start aggregating worker statistics, and tell the workers
+   * where to send them.
+   */
+  private StatisticsAggregator createStatisticsAggregator(
+    ConsoleCommunication consoleCommunication,
+    GrinderProperties properties) {
+
+    if (consoleCommunication == null ||
+        !properties.getBoolean("grinder.reportToConsole.aggregate", false)) {
+      return null;
+    }
+
+    try {
+      final StatisticsAggregator statisticsAggregator =
+        new StatisticsAggregator(
+          consoleCommunication.getSender(),
+          m_timer,
+          properties.getInt("grinder.reportToConsole.interval", 500),
+          m_logger);
+
+      properties.setInt(StatisticsAggregator.PORT_PROPERTY,
+                        statisticsAggregator.getPort());
+
+      return statisticsAggregator;
+    }
+    catch (final CommunicationException e) {
+      m_logger.warn(
+        "{}, workers will report statistics directly to the console",
+        e.getMessage());
+
+      return null;
+    }
+  }
+
   private void shutdownConsoleCommunication(
     ConsoleCommunication consoleCommunication) {
 
@@ -520,6 +629,10 @@ public final class AgentImplementation implements Agent {
       return m_connector;
     }
 
+    public Sender getSender() {
+      return m_sender;
+    }
+
     public void shutdown() {
       m_reportRunningTask.cancel();
 
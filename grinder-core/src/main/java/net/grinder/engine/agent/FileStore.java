@@ -57,6 +57,8 @@ final class FileStore {
 
   private final Directory m_currentDirectory;
 
+  private final Directory m_derivedDirectory;
+
   // Guarded by m_incomingDirectory
   private boolean m_incremental;
 
@@ -86,6 +88,7 @@ final class FileStore {
     try {
       m_incomingDirectory = new Directory(new File(rootDirectory, "incoming"));
       m_currentDirectory = new Directory(new File(rootDirectory, "current"));
+      m_derivedDirectory = new Directory(new File(rootDirectory, "derived"));
     }
     catch (Directory.DirectoryException e) {
       throw new FileStoreException(e.getMessage(), e);
@@ -112,6 +115,18 @@ final class FileStore {
     }
   }
 
+  /**
+   * Return a directory that worker processes can use to store data derived
+   * from the distributed files, such as compiled scripts. The directory is
+   * not created until it is used, and its contents are deleted when the
+   * console clears the file store.
+   *
+   * @return The directory.
+   */
+  public Directory getDerivedDataDirectory() {
+    return m_derivedDirectory;
+  }
+
   public CacheHighWaterMark getCacheHighWaterMark() {
     return m_cacheHighWaterMark;
   }
@@ -136,6 +151,7 @@ final class FileStore {
           try {
             synchronized (m_incomingDirectory) {
               m_incomingDirectory.deleteContents();
+              m_derivedDirectory.deleteContents();
               m_incremental = false;
             }
           }
@@ -25,6 +25,7 @@ package net.grinder.engine.agent;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.List;
 
 import net.grinder.common.UncheckedInterruptedException;
 import net.grinder.common.processidentity.WorkerIdentity;
@@ -44,9 +45,7 @@ import net.grinder.util.StreamCopier;
 final class ProcessWorker implements Worker {
 
   private final WorkerIdentity m_workerIdentity;
-  private final Process m_process;
-  private final Redirector m_stdoutRedirector;
-  private final Redirector m_stderrRedirector;
+  private final ChildProcess m_process;
 
   /**
    * Constructor.
@@ -65,30 +64,23 @@ final class ProcessWorker implements Worker {
                        OutputStream errorStream)
     throws EngineException {
 
-    m_workerIdentity = workerIdentity;
-
-    final ProcessBuilder processBuilder =
-      new ProcessBuilder(commandLine.getCommandList());
-
-    processBuilder.directory(commandLine.getWorkingDirectory().getFile());
-
-    try {
-      m_process = processBuilder.start();
-    }
-    catch (IOException e) {
-      UncheckedInterruptedException.ioException(e);
-      throw new EngineException("Could not start process", e);
-    }
-
-    m_stdoutRedirector =
-      new Redirector(m_process.getInputStream(),
-                     outputStream,
-                     m_process.toString());
+    this(workerIdentity,
+         new ChildProcess(commandLine.getCommandList(),
+                          commandLine,
+                          outputStream,
+                          errorStream));
+  }
 
-    m_stderrRedirector =
-      new Redirector(m_process.getErrorStream(),
-                     errorStream,
-                     m_process.toString());
+  /**
+   * Constructor for a worker that uses a process that has already been
+   * started.
+   *
+   * @param workerIdentity The process identity.
+   * @param process The process.
+   */
+  ProcessWorker(WorkerIdentity workerIdentity, ChildProcess process) {
+    m_workerIdentity = workerIdentity;
+    m_process = process;
   }
 
   /**
@@ -117,42 +109,108 @@ final class ProcessWorker implements Worker {
    * valid values.
    */
   public int waitFor() {
-    try {
-      m_process.waitFor();
-    }
-    catch (InterruptedException e) {
-      throw new UncheckedInterruptedException(e);
-    }
-    finally {
-      m_stdoutRedirector.stop();
-      m_stderrRedirector.stop();
-    }
-
-    return m_process.exitValue();
+    return m_process.waitFor();
   }
 
   /**
    * Destroy the worker.
    */
   public void destroy() {
-    // Experimentation shows we can't interrupt threads blocked waiting
-    // on a live process stream, nor can we close that stream.
-    //m_stdoutRedirector.stop();
-    //m_stderrRedirector.stop();
-
-    // Calling destroy sometimes stoves W2K in such a way that some types
-    // of new process can't be launched. (Including Java, Cygwin processes).
-    // Replicated with: JRockit 1.4.2_05, and SUN JRE's 1.4.2_05 and 1.5.0_03.
-    // A brief sleep appears to be a workaround.
-
-    try {
-      Thread.sleep(100);
+    m_process.destroy();
+  }
+
+  /**
+   * A child process, with its standard output and error streams redirected
+   * to our streams.
+   */
+  static final class ChildProcess {
+    private final Process m_process;
+    private final Redirector m_stdoutRedirector;
+    private final Redirector m_stderrRedirector;
+
+    /**
+     * Constructor.
+     *
+     * @param command The command.
+     * @param commandLine Supplies the working directory.
+     * @param outputStream Output stream to which child process stdout
+     * should be redirected. Will not be closed by this class.
+     * @param errorStream Output stream to which child process stderr
+     * should be redirected. Will not be closed by this class.
+     * @throws EngineException If the process could not be started.
+     */
+    public ChildProcess(List<String> command,
+                        CommandLine commandLine,
+                        OutputStream outputStream,
+                        OutputStream errorStream)
+      throws EngineException {
+
+      final ProcessBuilder processBuilder = new ProcessBuilder(command);
+
+      processBuilder.directory(commandLine.getWorkingDirectory().getFile());
+
+      try {
+        m_process = processBuilder.start();
+      }
+      catch (IOException e) {
+        UncheckedInterruptedException.ioException(e);
+        throw new EngineException("Could not start process", e);
+      }
+
+      m_stdoutRedirector =
+        new Redirector(m_process.getInputStream(),
+                       outputStream,
+                       m_process.toString());
+
+      m_stderrRedirector =
+        new Redirector(m_process.getErrorStream(),
+                       errorStream,
+                       m_process.toString());
     }
-    catch (InterruptedException e) {
-      throw new UncheckedInterruptedException(e);
+
+    public OutputStream getOutputStream() {
+      return m_process.getOutputStream();
     }
 
-    m_process.destroy();
+    public boolean isAlive() {
+      return m_process.isAlive();
+    }
+
+    public int waitFor() {
+      try {
+        m_process.waitFor();
+      }
+      catch (InterruptedException e) {
+        throw new UncheckedInterruptedException(e);
+      }
+      finally {
+        m_stdoutRedirector.stop();
+        m_stderrRedirector.stop();
+      }
+
+      return m_process.exitValue();
+    }
+
+    public void destroy() {
+      // Experimentation shows we can't interrupt threads blocked waiting
+      // on a live process stream, nor can we close that stream.
+      //m_stdoutRedirector.stop();
+      //m_stderrRedirector.stop();
+
+      // Calling destroy sometimes stoves W2K in such a way that some types
+      // of new process can't be launched. (Including Java, Cygwin processes).
+      // Replicated with: JRockit 1.4.2_05, and SUN JRE's 1.4.2_05 and
+      // 1.5.0_03. A brief sleep appears to be a workaround.
+
+      try {
+        Thread.sleep(100);
+      }
+      catch (InterruptedException e) {
+        throw new UncheckedInterruptedException(e);
+      }
+
+      m_process.destroy();
+    }
   }
 
   private static class Redirector {
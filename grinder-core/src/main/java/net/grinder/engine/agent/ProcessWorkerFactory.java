@@ -38,6 +38,7 @@ import net.grinder.engine.common.ScriptLocation;
 final class ProcessWorkerFactory extends AbstractWorkerFactory {
 
   private final WorkerProcessCommandLine m_commandLine;
+  private final WorkerProcessPool m_pool;
 
   public ProcessWorkerFactory(WorkerProcessCommandLine commandLine,
                               AgentIdentityImplementation agentIdentity,
@@ -45,6 +46,29 @@ final class ProcessWorkerFactory extends AbstractWorkerFactory {
                               boolean reportToConsole,
                               ScriptLocation script,
                               GrinderProperties properties) {
+    this(commandLine,
+         agentIdentity,
+         fanOutStreamSender,
+         reportToConsole,
+         script,
+         properties,
+         null);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param pool
+   *          Pool of pre-started processes, or {@code null} if processes
+   *          should be started on demand.
+   */
+  public ProcessWorkerFactory(WorkerProcessCommandLine commandLine,
+                              AgentIdentityImplementation agentIdentity,
+                              FanOutStreamSender fanOutStreamSender,
+                              boolean reportToConsole,
+                              ScriptLocation script,
+                              GrinderProperties properties,
+                              WorkerProcessPool pool) {
     super(agentIdentity,
           fanOutStreamSender,
           reportToConsole,
@@ -52,6 +76,7 @@ final class ProcessWorkerFactory extends AbstractWorkerFactory {
           properties);
 
     m_commandLine = commandLine;
+    m_pool = pool;
   }
 
   @Override
@@ -60,6 +85,10 @@ final class ProcessWorkerFactory extends AbstractWorkerFactory {
                                 OutputStream errorStream)
     throws EngineException {
 
+    if (m_pool != null) {
+      return new ProcessWorker(workerIdentity, m_pool.take(m_commandLine));
+    }
+
     return new ProcessWorker(workerIdentity,
                              m_commandLine,
                              outputStream,
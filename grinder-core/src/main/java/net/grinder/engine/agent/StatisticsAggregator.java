@@ -0,0 +1,264 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+
+package net.grinder.engine.agent;
+
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import net.grinder.common.UncheckedInterruptedException;
+import net.grinder.communication.Acceptor;
+import net.grinder.communication.ClientSender;
+import net.grinder.communication.CommunicationException;
+import net.grinder.communication.ConnectionType;
+import net.grinder.communication.Connector;
+import net.grinder.communication.Message;
+import net.grinder.communication.MessageDispatchRegistry.AbstractHandler;
+import net.grinder.communication.MessageDispatchSender;
+import net.grinder.communication.MessagePump;
+import net.grinder.communication.Sender;
+import net.grinder.communication.ServerReceiver;
+import net.grinder.communication.WireProtocol;
+import net.grinder.messages.console.ConsoleMessageCodecs;
+import net.grinder.messages.console.RegisterTestsMessage;
+import net.grinder.messages.console.ReportStatisticsMessage;
+import net.grinder.statistics.TestStatisticsMap;
+import net.grinder.util.StandardTimeAuthority;
+
+import org.slf4j.Logger;
+
+
+/**
+ * Receives statistics reports from the agent's worker processes, and
+ * forwards them to the console as a single report per interval.
+ *
+ * <p>
+ * Workers connect to a local port given by {@link #getPort()}. Test
+ * registrations are forwarded immediately, so the console always knows of
+ * a test before it receives statistics for it. Other worker messages, such
+ * as process status reports, are sent directly to the console by the
+ * workers.
+ * </p>
+ *
+ * @author Philip Aston
+ */
+final class StatisticsAggregator {
+
+  /**
+   * The worker property that holds the port of the agent's aggregator.
+   */
+  public static final String PORT_PROPERTY =
+    "grinder.reportToConsole.agentPort";
+
+  private static final long SHUTDOWN_TIMEOUT = 5000;
+
+  private final Sender m_consoleSender;
+  private final Logger m_logger;
+  private final WireProtocol m_wireProtocol = new WireProtocol();
+  private final Acceptor m_acceptor;
+  private final MessagePump m_messagePump;
+  private final TimerTask m_reportTask;
+  private final CountDownLatch m_flushed = new CountDownLatch(1);
+
+  /** Guarded by this. */
+  private TestStatisticsMap m_statistics = new TestStatisticsMap();
+
+  /**
+   * Constructor.
+   *
+   * @param consoleSender
+   *          Used to send reports to the console.
+   * @param timer
+   *          Timer used to schedule reports.
+   * @param reportInterval
+   *          Report period in milliseconds.
+   * @param logger
+   *          Logger.
+   * @throws CommunicationException
+   *           If the local port could not be bound.
+   */
+  public StatisticsAggregator(Sender consoleSender,
+                              Timer timer,
+                              long reportInterval,
+                              Logger logger)
+    throws CommunicationException {
+
+    m_consoleSender = consoleSender;
+    m_logger = logger;
+
+    ConsoleMessageCodecs.register(m_wireProtocol);
+
+    m_acceptor =
+      new Acceptor("localhost", 0, 1, new StandardTimeAuthority());
+
+    final ServerReceiver receiver = new ServerReceiver(m_wireProtocol);
+
+    try {
+      receiver.receiveFrom(m_acceptor,
+                           new ConnectionType[] { ConnectionType.WORKER },
+                           1,
+                           reportInterval,
+                           Long.MAX_VALUE);
+    }
+    catch (CommunicationException e) {
+      m_acceptor.shutdown();
+      throw e;
+    }
+
+    final MessageDispatchSender messageDispatcher =
+      new MessageDispatchSender();
+
+    messageDispatcher.set(
+      RegisterTestsMessage.class,
+      new AbstractHandler<RegisterTestsMessage>() {
+        public void handle(RegisterTestsMessage message)
+          throws CommunicationException {
+          // Synchronise to order the registration with any report that
+          // is being sent.
+          synchronized (StatisticsAggregator.this) {
+            m_consoleSender.send(message);
+          }
+        }
+      });
+
+    messageDispatcher.set(
+      ReportStatisticsMessage.class,
+      new AbstractHandler<ReportStatisticsMessage>() {
+        public void handle(ReportStatisticsMessage message) {
+          synchronized (StatisticsAggregator.this) {
+            m_statistics.add(message.getStatisticsDelta());
+          }
+        }
+      });
+
+    messageDispatcher.set(
+      FlushMessage.class,
+      new AbstractHandler<FlushMessage>() {
+        public void handle(FlushMessage message) {
+          m_flushed.countDown();
+        }
+      });
+
+    m_messagePump = new MessagePump(receiver, messageDispatcher, 1);
+    m_messagePump.start();
+
+    m_reportTask = new TimerTask() {
+      @Override public void run() {
+        try {
+          report();
+        }
+        catch (CommunicationException e) {
+          cancel();
+          m_logger.warn("Failed to report statistics to the console", e);
+        }
+      }
+    };
+
+    timer.schedule(m_reportTask, reportInterval, reportInterval);
+  }
+
+  /**
+   * The port that workers should send their statistics to.
+   *
+   * @return The port.
+   */
+  public int getPort() {
+    return m_acceptor.getPort();
+  }
+
+  /**
+   * Send a report of the statistics received since the last report.
+   *
+   * @throws CommunicationException
+   *           If the report could not be sent.
+   */
+  synchronized void report() throws CommunicationException {
+    if (m_statistics.size() > 0) {
+      final TestStatisticsMap statistics = m_statistics;
+      m_statistics = new TestStatisticsMap();
+      m_consoleSender.send(new ReportStatisticsMessage(statistics));
+    }
+  }
+
+  /**
+   * Wait for the workers to disconnect, send any outstanding statistics,
+   * and stop listening.
+   */
+  public void shutdown() {
+    m_reportTask.cancel();
+
+    try {
+      final long deadline = System.currentTimeMillis() + SHUTDOWN_TIMEOUT;
+
+      while (m_acceptor.getNumberOfConnections() > 0 &&
+             System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+
+      // Messages from connections that have closed have been queued. Our
+      // own message follows them through the pump, so once it arrives
+      // everything the workers sent has been merged.
+      final ClientSender flushSender =
+        ClientSender.connect(
+          new Connector("localhost",
+                        getPort(),
+                        ConnectionType.WORKER,
+                        m_wireProtocol),
+          null);
+
+      try {
+        flushSender.send(new FlushMessage());
+      }
+      finally {
+        flushSender.shutdown();
+      }
+
+      if (!m_flushed.await(SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS)) {
+        m_logger.warn("timed out waiting for worker statistics");
+      }
+
+      report();
+    }
+    catch (InterruptedException e) {
+      throw new UncheckedInterruptedException(e);
+    }
+    catch (CommunicationException e) {
+      m_logger.warn("Failed to report statistics to the console", e);
+    }
+    finally {
+      m_messagePump.shutdown();
+
+      try {
+        m_acceptor.shutdown();
+      }
+      catch (CommunicationException e) {
+        // Ignore.
+      }
+    }
+  }
+
+  private static final class FlushMessage implements Message {
+    private static final long serialVersionUID = 1L;
+  }
+}
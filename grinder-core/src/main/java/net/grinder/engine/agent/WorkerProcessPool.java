@@ -0,0 +1,304 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.engine.agent;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.slf4j.Logger;
+
+import net.grinder.engine.agent.ProcessWorker.ChildProcess;
+import net.grinder.engine.common.EngineException;
+import net.grinder.engine.process.WorkerProcessEntryPoint;
+import net.grinder.util.Directory;
+import net.grinder.util.thread.ExecutorFactory;
+
+
+/**
+ * Maintains a pool of worker processes that have been started in advance.
+ *
+ * <p>
+ * A pre-started worker process warms up, then waits for its
+ * {@link net.grinder.engine.messages.InitialiseGrinderMessage}. This moves
+ * the cost of starting the JVM and loading The Grinder and the script
+ * engines out of the test run.
+ * </p>
+ *
+ * <p>
+ * Each worker process is used for a single run. Idle processes are kept
+ * between runs, and are handed out to the next run if its command line and
+ * working directory are the same. Otherwise they are discarded. The pool is
+ * only refilled when the agent calls {@link #refill()} after a run has
+ * finished, so that starting processes doesn't compete with the workers for
+ * the machine.
+ * </p>
+ *
+ * @author Philip Aston
+ */
+final class WorkerProcessPool {
+
+  private final int m_size;
+  private final OutputStream m_outputStream;
+  private final OutputStream m_errorStream;
+  private final Logger m_logger;
+  private final ExecutorService m_executor;
+
+  // Guarded by this.
+  private final LinkedList<ChildProcess> m_idle =
+    new LinkedList<ChildProcess>();
+
+  // Guarded by this.
+  private CommandLineKey m_key;
+
+  // Guarded by this.
+  private CommandLine m_commandLine;
+
+  // Guarded by this.
+  private int m_starting;
+
+  /**
+   * Constructor.
+   *
+   * @param size The number of idle processes to maintain.
+   * @param outputStream Output stream to which child process stdout
+   * should be redirected. Will not be closed by this class.
+   * @param errorStream Output stream to which child process stderr
+   * should be redirected. Will not be closed by this class.
+   * @param logger Logger.
+   */
+  public WorkerProcessPool(int size,
+                           OutputStream outputStream,
+                           OutputStream errorStream,
+                           Logger logger) {
+    this(ExecutorFactory.createThreadPool("WorkerProcessPool", 1),
+         size,
+         outputStream,
+         errorStream,
+         logger);
+  }
+
+  /**
+   * Package scope for unit tests.
+   */
+  WorkerProcessPool(ExecutorService executor,
+                    int size,
+                    OutputStream outputStream,
+                    OutputStream errorStream,
+                    Logger logger) {
+    m_executor = executor;
+    m_size = size;
+    m_outputStream = outputStream;
+    m_errorStream = errorStream;
+    m_logger = logger;
+  }
+
+  /**
+   * The number of idle processes this pool maintains.
+   *
+   * @return The size.
+   */
+  public int getSize() {
+    return m_size;
+  }
+
+  /**
+   * Return a started process for the given command line. An idle process is
+   * used if possible; otherwise a new process is started.
+   *
+   * @param commandLine The command line.
+   * @return The process.
+   * @throws EngineException If a new process could not be started.
+   */
+  public ChildProcess take(CommandLine commandLine) throws EngineException {
+    final CommandLineKey key = new CommandLineKey(commandLine);
+    final List<ChildProcess> discarded = new ArrayList<ChildProcess>();
+
+    ChildProcess result = null;
+
+    synchronized (this) {
+      if (!key.equals(m_key)) {
+        discarded.addAll(m_idle);
+        m_idle.clear();
+        m_key = key;
+      }
+
+      m_commandLine = commandLine;
+
+      while (result == null && !m_idle.isEmpty()) {
+        final ChildProcess process = m_idle.removeFirst();
+
+        if (process.isAlive()) {
+          result = process;
+        }
+        else {
+          discarded.add(process);
+        }
+      }
+    }
+
+    for (final ChildProcess process : discarded) {
+      process.destroy();
+    }
+
+    if (result != null) {
+      return result;
+    }
+
+    return new ChildProcess(commandLine.getCommandList(),
+                            commandLine,
+                            m_outputStream,
+                            m_errorStream);
+  }
+
+  /**
+   * Start processes in the background until the pool is full, using the
+   * command line of the last process taken. Does nothing if no process has
+   * been taken, or if the pool has been shut down.
+   */
+  public void refill() {
+    final CommandLine commandLine;
+
+    synchronized (this) {
+      if (m_key == null) {
+        return;
+      }
+
+      commandLine = m_commandLine;
+    }
+
+    final CommandLineKey key = new CommandLineKey(commandLine);
+
+    final List<String> command =
+      new ArrayList<String>(commandLine.getCommandList());
+    command.add(WorkerProcessEntryPoint.PRESTARTED_ARGUMENT);
+
+    while (true) {
+      synchronized (this) {
+        if (!key.equals(m_key) || m_idle.size() + m_starting >= m_size) {
+          return;
+        }
+
+        ++m_starting;
+      }
+
+      try {
+        m_executor.execute(new Runnable() {
+          @Override public void run() {
+            ChildProcess process = null;
+
+            try {
+              process = new ChildProcess(command,
+                                         commandLine,
+                                         m_outputStream,
+                                         m_errorStream);
+            }
+            catch (EngineException e) {
+              m_logger.error("Failed to start worker process", e);
+            }
+
+            synchronized (WorkerProcessPool.this) {
+              --m_starting;
+
+              if (process != null && key.equals(m_key)) {
+                m_idle.add(process);
+                process = null;
+              }
+            }
+
+            if (process != null) {
+              // The pool has been reconfigured or shut down.
+              process.destroy();
+            }
+          }
+        });
+      }
+      catch (RejectedExecutionException e) {
+        // Shut down.
+        synchronized (this) {
+          --m_starting;
+        }
+
+        return;
+      }
+    }
+  }
+
+  /**
+   * Destroy the idle processes, and stop starting new ones.
+   */
+  public void shutdown() {
+    final List<ChildProcess> idle;
+
+    synchronized (this) {
+      idle = new ArrayList<ChildProcess>(m_idle);
+      m_idle.clear();
+      m_key = null;
+      m_commandLine = null;
+    }
+
+    m_executor.shutdown();
+
+    for (final ChildProcess process : idle) {
+      process.destroy();
+    }
+  }
+
+  /**
+   * The number of idle processes. Package scope for unit tests.
+   */
+  synchronized int getNumberIdle() {
+    return m_idle.size();
+  }
+
+  private static final class CommandLineKey {
+    private final List<String> m_command;
+    private final Directory m_workingDirectory;
+
+    public CommandLineKey(CommandLine commandLine) {
+      m_command = new ArrayList<String>(commandLine.getCommandList());
+      m_workingDirectory = commandLine.getWorkingDirectory();
+    }
+
+    @Override public int hashCode() {
+      return m_command.hashCode() ^ m_workingDirectory.hashCode();
+    }
+
+    @Override public boolean equals(Object o) {
+      if (o == this) {
+        return true;
+      }
+
+      if (o == null || o.getClass() != CommandLineKey.class) {
+        return false;
+      }
+
+      final CommandLineKey other = (CommandLineKey) o;
+
+      return m_command.equals(other.m_command) &&
+             m_workingDirectory.equals(other.m_workingDirectory);
+    }
+  }
+}
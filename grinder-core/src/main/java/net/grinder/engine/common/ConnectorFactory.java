@@ -25,6 +25,8 @@ import net.grinder.common.GrinderProperties;
 import net.grinder.communication.CommunicationDefaults;
 import net.grinder.communication.ConnectionType;
 import net.grinder.communication.Connector;
+import net.grinder.communication.WireProtocol;
+import net.grinder.messages.console.ConsoleMessageCodecs;
 
 
 /**
@@ -35,6 +37,7 @@ import net.grinder.communication.Connector;
 public class ConnectorFactory {
 
   private final ConnectionType m_connectionType;
+  private final WireProtocol m_wireProtocol = new WireProtocol();
 
   /**
    * Constructor.
@@ -43,13 +46,15 @@ public class ConnectorFactory {
    */
   public ConnectorFactory(ConnectionType connectionType) {
     m_connectionType = connectionType;
+    ConsoleMessageCodecs.register(m_wireProtocol);
   }
 
   /**
    * Factory method.
    *
    * @param properties Properties.
-   * @return A connector which can be used to contact the console.
+   * @return A connector which can be used to contact the console. The
+   * connector offers the binary {@link WireProtocol}.
    */
   public Connector create(GrinderProperties properties) {
     return new Connector(
@@ -57,6 +62,7 @@ public class ConnectorFactory {
                              CommunicationDefaults.CONSOLE_HOST),
       properties.getInt(GrinderProperties.CONSOLE_PORT,
                         CommunicationDefaults.CONSOLE_PORT),
-      m_connectionType);
+      m_connectionType,
+      m_wireProtocol);
   }
 }
@@ -0,0 +1,153 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.engine.process;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * The target arrival rate of an open workload, and the intervals between
+ * arrivals that it implies.
+ *
+ * <p>
+ * The rate starts at an initial value, and can be increased (or decreased) by
+ * a fixed step at regular intervals, up to an optional maximum. Arrivals are
+ * either evenly spaced, or follow a Poisson process with the same mean rate.
+ * </p>
+ *
+ * <p>
+ * Package scope.
+ * </p>
+ *
+ * @author Philip Aston
+ */
+final class ArrivalSchedule {
+
+  /**
+   * How arrivals are spaced.
+   */
+  enum Distribution {
+    /** Arrivals are evenly spaced. */
+    CONSTANT,
+
+    /** Intervals between arrivals are exponentially distributed. */
+    POISSON,
+  }
+
+  private static final double NANOSECONDS_PER_SECOND =
+    TimeUnit.SECONDS.toNanos(1);
+
+  private final double m_step;
+  private final long m_stepDuration;
+  private final double m_maximumRate;
+  private final Distribution m_distribution;
+  private final Random m_random;
+
+  // Guarded by this.
+  private double m_initialRate;
+
+  /**
+   * Constructor.
+   *
+   * @param initialRate
+   *          The initial rate, in arrivals per second.
+   * @param step
+   *          Amount by which the rate changes every {@code stepDuration}. May
+   *          be negative.
+   * @param stepDuration
+   *          Step duration in nanoseconds. {@code 0} => the rate is constant.
+   * @param maximumRate
+   *          The maximum rate. {@code 0} => no maximum.
+   * @param distribution
+   *          How arrivals are spaced.
+   * @param random
+   *          Source of randomness for {@link Distribution#POISSON}.
+   */
+  ArrivalSchedule(final double initialRate,
+                  final double step,
+                  final long stepDuration,
+                  final double maximumRate,
+                  final Distribution distribution,
+                  final Random random) {
+    m_initialRate = initialRate;
+    m_step = step;
+    m_stepDuration = stepDuration;
+    m_maximumRate = maximumRate;
+    m_distribution = distribution;
+    m_random = random;
+  }
+
+  /**
+   * Change the initial rate.
+   *
+   * @param rate The new rate, in arrivals per second.
+   */
+  public synchronized void setInitialRate(final double rate) {
+    m_initialRate = rate;
+  }
+
+  /**
+   * The target rate at a given time.
+   *
+   * @param elapsedTime
+   *          Time since the start of the schedule, in nanoseconds.
+   * @return The rate, in arrivals per second.
+   */
+  public synchronized double getRate(final long elapsedTime) {
+    double result = m_initialRate;
+
+    if (m_stepDuration > 0) {
+      result += m_step * (elapsedTime / m_stepDuration);
+    }
+
+    if (m_maximumRate > 0) {
+      result = Math.min(result, m_maximumRate);
+    }
+
+    return Math.max(result, 0);
+  }
+
+  /**
+   * Calculate the interval between an arrival and the next.
+   *
+   * @param elapsedTime
+   *          Time of the arrival since the start of the schedule, in
+   *          nanoseconds.
+   * @return The interval in nanoseconds, or {@code -1} if the rate is zero.
+   */
+  public synchronized long nextInterval(final long elapsedTime) {
+    final double rate = getRate(elapsedTime);
+
+    if (rate <= 0) {
+      return -1;
+    }
+
+    final double mean = NANOSECONDS_PER_SECOND / rate;
+
+    if (m_distribution == Distribution.POISSON) {
+      return (long) (-Math.log(1 - m_random.nextDouble()) * mean);
+    }
+
+    return (long) mean;
+  }
+}
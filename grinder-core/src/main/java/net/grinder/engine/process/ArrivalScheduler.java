@@ -0,0 +1,422 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.engine.process;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import net.grinder.util.TimeAuthority;
+
+
+/**
+ * Hands out the arrivals of an open workload to the worker threads.
+ *
+ * <p>
+ * In the closed model, each thread starts its next run as soon as the previous
+ * run finishes, so the load offered to the system under test drops whenever it
+ * slows down. In the open model, runs are started at the times given by an
+ * {@link ArrivalSchedule}, independently of how long previous runs took. The
+ * worker threads form a bounded pool; each idle thread claims the next
+ * arrival and waits until it is due.
+ * </p>
+ *
+ * <p>
+ * If every thread is busy when an arrival is due, the arrival waits for the
+ * next free thread. This <em>queueing delay</em> is recorded separately from
+ * the test times, which only measure the service time. Arrivals that have
+ * waited longer than a configured maximum are dropped and counted as missed.
+ * </p>
+ *
+ * <p>
+ * Threads wait for their arrivals on a {@link Condition}, and are signalled
+ * if the rate is changed or the scheduler is shut down.
+ * </p>
+ *
+ * <p>
+ * Package scope.
+ * </p>
+ *
+ * @author Philip Aston
+ */
+final class ArrivalScheduler {
+
+  /**
+   * How often idle threads check a schedule with a zero rate, which might be
+   * stepped up later.
+   */
+  private static final long IDLE_POLL_TIME = TimeUnit.MILLISECONDS.toNanos(100);
+
+  private final ArrivalSchedule m_schedule;
+  private final TimeAuthority m_timeAuthority;
+  private final long m_maximumQueueingDelay;
+
+  private final Lock m_lock = new ReentrantLock();
+  private final Condition m_condition = m_lock.newCondition();
+
+  // Guarded by m_lock.
+  private boolean m_shutdown = false;
+  private int m_generation = 0;
+  private boolean m_started = false;
+  private long m_origin;
+  private boolean m_arrivalScheduled;
+  private long m_nextArrival;
+  private final ArrivalStatistics m_intervalStatistics =
+    new ArrivalStatistics();
+  private final ArrivalStatistics m_totalStatistics = new ArrivalStatistics();
+
+  /**
+   * Constructor.
+   *
+   * @param schedule
+   *          The arrival schedule.
+   * @param timeAuthority
+   *          Time authority.
+   * @param maximumQueueingDelay
+   *          Arrivals that have waited longer than this for a free thread are
+   *          dropped. In nanoseconds. {@code 0} => arrivals are never dropped.
+   */
+  ArrivalScheduler(final ArrivalSchedule schedule,
+                   final TimeAuthority timeAuthority,
+                   final long maximumQueueingDelay) {
+    m_schedule = schedule;
+    m_timeAuthority = timeAuthority;
+    m_maximumQueueingDelay = maximumQueueingDelay;
+  }
+
+  /**
+   * Claim the next arrival, and wait until it is due. The schedule starts
+   * with the first call.
+   *
+   * @return The queueing delay of the arrival, in nanoseconds.
+   * @throws ShutdownException
+   *           If the scheduler has been shut down.
+   */
+  public long awaitArrival() throws ShutdownException {
+
+    m_lock.lock();
+
+    try {
+      while (true) {
+        checkShutdown();
+
+        final long now = m_timeAuthority.getTimeInNanoseconds();
+
+        if (!m_started) {
+          m_started = true;
+          m_origin = now;
+          m_nextArrival = now;
+          m_arrivalScheduled = true;
+        }
+
+        final int generation = m_generation;
+        long scheduledTime = 0;
+        boolean claimed = false;
+
+        while (scheduleArrival(now)) {
+          scheduledTime = m_nextArrival;
+
+          final long interval =
+            m_schedule.nextInterval(scheduledTime - m_origin);
+
+          m_arrivalScheduled = interval >= 0;
+          m_nextArrival = scheduledTime + interval;
+
+          if (m_maximumQueueingDelay > 0 &&
+              now - scheduledTime > m_maximumQueueingDelay) {
+            ++m_intervalStatistics.m_missedArrivals;
+          }
+          else {
+            claimed = true;
+            break;
+          }
+        }
+
+        if (!claimed) {
+          // The rate is zero. Check again later.
+          awaitTime(now + IDLE_POLL_TIME, generation);
+        }
+        else if (awaitTime(scheduledTime, generation)) {
+          final long queueingDelay = Math.max(0, now - scheduledTime);
+
+          m_intervalStatistics.record(queueingDelay);
+
+          return queueingDelay;
+        }
+
+        // Otherwise the rate changed whilst we were waiting; our arrival is
+        // void.
+      }
+    }
+    finally {
+      m_lock.unlock();
+    }
+  }
+
+  private boolean scheduleArrival(final long now) {
+    if (!m_arrivalScheduled) {
+      final long interval = m_schedule.nextInterval(now - m_origin);
+
+      if (interval < 0) {
+        return false;
+      }
+
+      m_nextArrival = now + interval;
+      m_arrivalScheduled = true;
+    }
+
+    return true;
+  }
+
+  /**
+   * Wait until the given time. The caller must hold {@code m_lock}, which is
+   * released whilst waiting.
+   *
+   * @return {@code false} if the schedule was changed before the time was
+   *         reached.
+   */
+  private boolean awaitTime(final long time, final int generation)
+    throws ShutdownException {
+
+    while (true) {
+      checkShutdown();
+
+      if (m_generation != generation) {
+        return false;
+      }
+
+      final long remaining = time - m_timeAuthority.getTimeInNanoseconds();
+
+      if (remaining <= 0) {
+        return true;
+      }
+
+      try {
+        m_condition.awaitNanos(remaining);
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ShutdownException("Interrupted");
+      }
+    }
+  }
+
+  private void checkShutdown() throws ShutdownException {
+    if (m_shutdown) {
+      throw new ShutdownException("Shut down");
+    }
+  }
+
+  /**
+   * Change the initial rate of the schedule. The schedule restarts from the
+   * current time, and arrivals that threads are waiting for are abandoned.
+   *
+   * @param rate
+   *          The new rate, in arrivals per second.
+   */
+  public void setRate(final double rate) {
+    m_lock.lock();
+
+    try {
+      m_schedule.setInitialRate(rate);
+
+      m_origin = m_timeAuthority.getTimeInNanoseconds();
+      m_arrivalScheduled = false;
+      ++m_generation;
+
+      m_condition.signalAll();
+    }
+    finally {
+      m_lock.unlock();
+    }
+  }
+
+  /**
+   * The current target rate.
+   *
+   * @return The rate, in arrivals per second.
+   */
+  public double getRate() {
+    m_lock.lock();
+
+    try {
+      if (!m_started) {
+        return m_schedule.getRate(0);
+      }
+
+      return m_schedule.getRate(
+        m_timeAuthority.getTimeInNanoseconds() - m_origin);
+    }
+    finally {
+      m_lock.unlock();
+    }
+  }
+
+  /**
+   * Return the statistics since the last call, and reset them.
+   *
+   * <p>
+   * The pool is considered saturated if arrivals have been missed, or if an
+   * arrival is due and no thread has claimed it.
+   * </p>
+   *
+   * @return The statistics.
+   */
+  public ArrivalStatistics takeIntervalStatistics() {
+    m_lock.lock();
+
+    try {
+      final ArrivalStatistics result = new ArrivalStatistics();
+      result.add(m_intervalStatistics);
+
+      result.m_saturated =
+        result.m_missedArrivals > 0 ||
+        m_started &&
+        m_arrivalScheduled &&
+        m_nextArrival < m_timeAuthority.getTimeInNanoseconds();
+
+      m_totalStatistics.add(result);
+      m_intervalStatistics.reset();
+
+      return result;
+    }
+    finally {
+      m_lock.unlock();
+    }
+  }
+
+  /**
+   * Return the statistics accumulated by {@link #takeIntervalStatistics()}.
+   *
+   * @return The statistics.
+   */
+  public ArrivalStatistics getTotalStatistics() {
+    m_lock.lock();
+
+    try {
+      final ArrivalStatistics result = new ArrivalStatistics();
+      result.add(m_totalStatistics);
+      return result;
+    }
+    finally {
+      m_lock.unlock();
+    }
+  }
+
+  /**
+   * Stop handing out arrivals. Threads waiting in {@link #awaitArrival()}
+   * will receive a {@link ShutdownException}.
+   */
+  public void shutdown() {
+    m_lock.lock();
+
+    try {
+      m_shutdown = true;
+      m_condition.signalAll();
+    }
+    finally {
+      m_lock.unlock();
+    }
+  }
+
+  /**
+   * Statistics about arrivals.
+   */
+  static final class ArrivalStatistics {
+    private long m_arrivals;
+    private long m_missedArrivals;
+    private long m_totalQueueingDelay;
+    private long m_maximumQueueingDelay;
+    private boolean m_saturated;
+
+    private void record(final long queueingDelay) {
+      ++m_arrivals;
+      m_totalQueueingDelay += queueingDelay;
+      m_maximumQueueingDelay =
+        Math.max(m_maximumQueueingDelay, queueingDelay);
+    }
+
+    private void add(final ArrivalStatistics other) {
+      m_arrivals += other.m_arrivals;
+      m_missedArrivals += other.m_missedArrivals;
+      m_totalQueueingDelay += other.m_totalQueueingDelay;
+      m_maximumQueueingDelay =
+        Math.max(m_maximumQueueingDelay, other.m_maximumQueueingDelay);
+      m_saturated |= other.m_saturated;
+    }
+
+    private void reset() {
+      m_arrivals = 0;
+      m_missedArrivals = 0;
+      m_totalQueueingDelay = 0;
+      m_maximumQueueingDelay = 0;
+      m_saturated = false;
+    }
+
+    /**
+     * The number of arrivals that started runs.
+     *
+     * @return The number of arrivals.
+     */
+    public long getArrivals() {
+      return m_arrivals;
+    }
+
+    /**
+     * The number of arrivals dropped because they waited too long for a
+     * thread.
+     *
+     * @return The number of missed arrivals.
+     */
+    public long getMissedArrivals() {
+      return m_missedArrivals;
+    }
+
+    /**
+     * The mean queueing delay of the arrivals that started runs.
+     *
+     * @return The mean delay, in nanoseconds.
+     */
+    public long getMeanQueueingDelay() {
+      return m_arrivals > 0 ? m_totalQueueingDelay / m_arrivals : 0;
+    }
+
+    /**
+     * The maximum queueing delay of the arrivals that started runs.
+     *
+     * @return The maximum delay, in nanoseconds.
+     */
+    public long getMaximumQueueingDelay() {
+      return m_maximumQueueingDelay;
+    }
+
+    /**
+     * Whether the thread pool was unable to keep up with the arrival rate.
+     *
+     * @return {@code true} => the pool was saturated.
+     */
+    public boolean isSaturated() {
+      return m_saturated;
+    }
+  }
+}
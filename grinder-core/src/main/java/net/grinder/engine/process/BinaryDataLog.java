@@ -0,0 +1,354 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+
+package net.grinder.engine.process;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.grinder.common.Test;
+import net.grinder.statistics.ExpressionView;
+import net.grinder.statistics.StatisticExpression;
+import net.grinder.statistics.StatisticsSet;
+
+import org.slf4j.Logger;
+
+
+/**
+ * A compact alternative to the CSV data log.
+ *
+ * <p>
+ * The file starts with a header that describes the columns. Each test
+ * invocation is then appended as a fixed width record: the thread, run,
+ * and test numbers as {@code int}s, the start time as a {@code long}, and
+ * each of the detail {@link ExpressionView} values as a {@code long} or
+ * {@code double}. All values are big-endian.
+ * </p>
+ *
+ * <p>
+ * Each worker thread appends records to its own buffer, so threads don't
+ * contend to report. A full buffer is written to the file as a block, so the
+ * records of different threads are interleaved in blocks rather than in the
+ * order that the tests completed. Use {@link #toCSV} to convert a file to the
+ * layout of the CSV data log.
+ * </p>
+ *
+ * @author Philip Aston
+ */
+public final class BinaryDataLog {
+
+  private static final int MAGIC = 0x47444C00; // "GDL\0"
+  private static final int VERSION = 1;
+  private static final int FIXED_RECORD_LENGTH = 4 + 4 + 4 + 8;
+  private static final int BUFFER_SIZE = 8192;
+  private static final String SEPARATOR = ", ";
+  private static final String LINE_SEPARATOR =
+    System.getProperty("line.separator");
+
+  private final Logger m_logger;
+  private final StatisticExpression[] m_expressions;
+  private final boolean[] m_isDouble;
+  private final int m_recordLength;
+
+  /** Guarded by itself. The buffers of every thread that has reported. */
+  private final List<ByteBuffer> m_buffers = new ArrayList<ByteBuffer>();
+
+  private final ThreadLocal<ByteBuffer> m_threadBuffer =
+    new ThreadLocal<ByteBuffer>() {
+      @Override protected ByteBuffer initialValue() {
+        final ByteBuffer buffer =
+          ByteBuffer.allocate(Math.max(BUFFER_SIZE, m_recordLength));
+
+        synchronized (m_buffers) {
+          m_buffers.add(buffer);
+        }
+
+        return buffer;
+      }
+    };
+
+  /**
+   * Written whilst holding this. Set to {@code null} when closed or on
+   * failure.
+   */
+  private volatile FileChannel m_channel;
+
+  /**
+   * Constructor. Any existing file is renamed, in the same way as the
+   * other worker log files.
+   *
+   * @param file
+   *          The file to write to.
+   * @param expressionViews
+   *          The detail statistics to record for each test.
+   * @param logger
+   *          Logger used to report write failures.
+   * @throws IOException
+   *           If the file could not be created.
+   */
+  BinaryDataLog(File file, ExpressionView[] expressionViews, Logger logger)
+    throws IOException {
+
+    m_logger = logger;
+    m_expressions = new StatisticExpression[expressionViews.length];
+    m_isDouble = new boolean[expressionViews.length];
+
+    final ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+    final DataOutputStream header = new DataOutputStream(headerBytes);
+    header.writeInt(MAGIC | VERSION);
+    header.writeInt(expressionViews.length);
+
+    for (int i = 0; i < expressionViews.length; ++i) {
+      m_expressions[i] = expressionViews[i].getExpression();
+      m_isDouble[i] = m_expressions[i].isDouble();
+      header.writeBoolean(m_isDouble[i]);
+      header.writeUTF(expressionViews[i].getDisplayName());
+    }
+
+    header.close();
+
+    m_recordLength = FIXED_RECORD_LENGTH + 8 * expressionViews.length;
+
+    if (file.exists()) {
+      final File previous = new File(file.getPath() + "1");
+      previous.delete();
+      file.renameTo(previous);
+    }
+
+    final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+    randomAccessFile.setLength(0);
+    m_channel = randomAccessFile.getChannel();
+
+    write(ByteBuffer.wrap(headerBytes.toByteArray()));
+  }
+
+  /**
+   * Append a record.
+   *
+   * @param threadNumber The thread number.
+   * @param runNumber The run number.
+   * @param test The test.
+   * @param startTime The start time.
+   * @param statistics The statistics for the test invocation.
+   */
+  public void report(int threadNumber,
+                     int runNumber,
+                     Test test,
+                     long startTime,
+                     StatisticsSet statistics) {
+    if (m_channel == null) {
+      return;
+    }
+
+    final ByteBuffer buffer = m_threadBuffer.get();
+
+    // Only contended if another thread is closing the log.
+    synchronized (buffer) {
+      if (buffer.remaining() < m_recordLength && !writeBuffer(buffer)) {
+        return;
+      }
+
+      buffer.putInt(threadNumber);
+      buffer.putInt(runNumber);
+      buffer.putInt(test.getNumber());
+      buffer.putLong(startTime);
+
+      for (int i = 0; i < m_expressions.length; ++i) {
+        if (m_isDouble[i]) {
+          buffer.putDouble(m_expressions[i].getDoubleValue(statistics));
+        }
+        else {
+          buffer.putLong(m_expressions[i].getLongValue(statistics));
+        }
+      }
+    }
+  }
+
+  /**
+   * Write any buffered records and close the file. Later records are
+   * discarded.
+   */
+  public void close() {
+    final List<ByteBuffer> buffers;
+
+    synchronized (m_buffers) {
+      buffers = new ArrayList<ByteBuffer>(m_buffers);
+    }
+
+    for (ByteBuffer buffer : buffers) {
+      synchronized (buffer) {
+        writeBuffer(buffer);
+      }
+    }
+
+    synchronized (this) {
+      if (m_channel != null) {
+        try {
+          m_channel.close();
+        }
+        catch (IOException e) {
+          m_logger.error("Failed to close binary data log", e);
+        }
+
+        m_channel = null;
+      }
+    }
+  }
+
+  /**
+   * Write the records in a thread's buffer. The caller must hold the buffer's
+   * lock.
+   *
+   * @return {@code false} if the records were discarded.
+   */
+  private boolean writeBuffer(ByteBuffer buffer) {
+    buffer.flip();
+
+    try {
+      return write(buffer);
+    }
+    finally {
+      buffer.clear();
+    }
+  }
+
+  /**
+   * @return {@code false} if the log is closed, or the write failed.
+   */
+  private synchronized boolean write(ByteBuffer buffer) {
+    if (m_channel == null) {
+      return false;
+    }
+
+    try {
+      while (buffer.hasRemaining()) {
+        m_channel.write(buffer);
+      }
+
+      return true;
+    }
+    catch (IOException e) {
+      m_logger.error("Failed to write binary data log, discarding records", e);
+
+      try {
+        m_channel.close();
+      }
+      catch (IOException e2) {
+        // Ignore.
+      }
+
+      m_channel = null;
+
+      return false;
+    }
+  }
+
+  /**
+   * Convert a binary data log to the CSV data log layout.
+   *
+   * @param in
+   *          The binary data log.
+   * @param out
+   *          Where to write the CSV.
+   * @throws IOException
+   *           If the input is not a binary data log, or an I/O error
+   *           occurred.
+   */
+  public static void toCSV(InputStream in, Appendable out)
+    throws IOException {
+
+    final DataInput input = new DataInputStream(in);
+
+    final int magic;
+
+    try {
+      magic = input.readInt();
+    }
+    catch (EOFException e) {
+      throw new IOException("Not a binary data log");
+    }
+
+    if ((magic & ~0xFF) != MAGIC) {
+      throw new IOException("Not a binary data log");
+    }
+
+    if ((magic & 0xFF) != VERSION) {
+      throw new IOException(
+        "Unsupported binary data log version " + (magic & 0xFF));
+    }
+
+    final boolean[] isDouble = new boolean[input.readInt()];
+
+    final StringBuilder line =
+      new StringBuilder("Thread, Run, Test, Start time (ms since Epoch)");
+
+    for (int i = 0; i < isDouble.length; ++i) {
+      isDouble[i] = input.readBoolean();
+      line.append(SEPARATOR);
+      line.append(input.readUTF());
+    }
+
+    out.append(line).append(LINE_SEPARATOR);
+
+    while (true) {
+      line.setLength(0);
+
+      try {
+        line.append(input.readInt());
+        line.append(SEPARATOR);
+        line.append(input.readInt());
+        line.append(SEPARATOR);
+        line.append(input.readInt());
+        line.append(SEPARATOR);
+        line.append(input.readLong());
+
+        for (int i = 0; i < isDouble.length; ++i) {
+          line.append(SEPARATOR);
+
+          if (isDouble[i]) {
+            line.append(input.readDouble());
+          }
+          else {
+            line.append(input.readLong());
+          }
+        }
+      }
+      catch (EOFException e) {
+        // End of file, or a partial record from a process that died.
+        break;
+      }
+
+      out.append(line).append(LINE_SEPARATOR);
+    }
+  }
+}
@@ -82,7 +82,7 @@ interface DispatchContext {
    * start of the test. If a test has been completed, but not reported, return
    * the test time. Otherwise return -1.
    *
-   * @return The elapsed time for the test.
+   * @return The elapsed time for the test, in the reporting time unit.
    */
   long getElapsedTime();
 
@@ -91,6 +91,14 @@ interface DispatchContext {
    */
   void setHasNestedContexts();
 
+  /**
+   * Record the time the run waited for a worker thread in the statistics for
+   * the test in progress.
+   *
+   * @param queueingDelay The queueing delay, in nanoseconds.
+   */
+  void setQueueingDelay(long queueingDelay);
+
   /**
    * Exception that indicates the dispatcher was in an invalid state for
    * the called method .
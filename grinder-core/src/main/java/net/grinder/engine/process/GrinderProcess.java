@@ -24,16 +24,22 @@
 
 package net.grinder.engine.process;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
 import java.net.UnknownHostException;
 import java.text.SimpleDateFormat;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Random;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import net.grinder.common.GrinderBuild;
 import net.grinder.common.GrinderException;
@@ -46,17 +52,23 @@ import net.grinder.common.processidentity.WorkerIdentity;
 import net.grinder.communication.ClientSender;
 import net.grinder.communication.CommunicationException;
 import net.grinder.communication.ConnectionType;
+import net.grinder.communication.Connector;
 import net.grinder.communication.Message;
+import net.grinder.communication.MessageDispatchRegistry.AbstractHandler;
 import net.grinder.communication.MessageDispatchSender;
 import net.grinder.communication.MessagePump;
 import net.grinder.communication.QueuedSender;
 import net.grinder.communication.QueuedSenderDecorator;
 import net.grinder.communication.Receiver;
+import net.grinder.communication.WireProtocol;
 import net.grinder.engine.common.ConnectorFactory;
 import net.grinder.engine.common.EngineException;
 import net.grinder.engine.communication.ConsoleListener;
 import net.grinder.engine.messages.InitialiseGrinderMessage;
+import net.grinder.engine.process.ArrivalScheduler.ArrivalStatistics;
 import net.grinder.engine.process.dcr.DCRContextImplementation;
+import net.grinder.messages.agent.SetArrivalRateMessage;
+import net.grinder.messages.console.ConsoleMessageCodecs;
 import net.grinder.messages.console.RegisterTestsMessage;
 import net.grinder.messages.console.ReportStatisticsMessage;
 import net.grinder.messages.console.WorkerAddress;
@@ -70,6 +82,7 @@ import net.grinder.scriptengine.ScriptEngineService.ScriptEngine;
 import net.grinder.scriptengine.ScriptEngineService.WorkerRunnable;
 import net.grinder.scriptengine.ScriptExecutionException;
 import net.grinder.statistics.ExpressionView;
+import net.grinder.statistics.StatisticsIndexMap;
 import net.grinder.statistics.StatisticsServices;
 import net.grinder.statistics.StatisticsServicesImplementation;
 import net.grinder.statistics.StatisticsTable;
@@ -85,8 +98,8 @@ import net.grinder.util.Sleeper;
 import net.grinder.util.SleeperImplementation;
 import net.grinder.util.StandardTimeAuthority;
 import net.grinder.util.TimeAuthority;
-import net.grinder.util.thread.BooleanCondition;
 import net.grinder.util.thread.Condition;
+import net.grinder.util.thread.VirtualThreads;
 
 import org.slf4j.ILoggerFactory;
 import org.slf4j.Logger;
@@ -112,9 +125,12 @@ final class GrinderProcess {
   private final Logger m_terminalLogger;
   private final Logger m_logger;
   private final Logger m_dataLogger;
+  private final File m_binaryDataLogFile;
+  private BinaryDataLog m_binaryDataLog;
   private final LoggerContext m_logbackLoggerContext;
   private final boolean m_reportTimesToConsole;
   private final QueuedSender m_consoleSender;
+  private final QueuedSender m_statisticsSender;
   private final Sleeper m_sleeper;
   private final InitialiseGrinderMessage m_initialisationMessage;
   private final ConsoleListener m_consoleListener;
@@ -124,6 +140,8 @@ final class GrinderProcess {
   private final TestRegistryImplementation m_testRegistryImplementation;
   private final Condition m_eventSynchronisation = new Condition();
   private final MessagePump m_messagePump;
+  private final ArrivalScheduler m_arrivalScheduler;
+  private final boolean m_virtualThreads;
 
   private final ThreadStarter m_invalidThreadStarter =
     new InvalidThreadStarter();
@@ -156,6 +174,8 @@ final class GrinderProcess {
     m_initialisationMessage =
       (InitialiseGrinderMessage)agentReceiver.waitForMessage();
 
+    m_times.setInitialisationTime();
+
     if (m_initialisationMessage == null) {
       throw new EngineException("No control stream from agent");
     }
@@ -180,6 +200,11 @@ final class GrinderProcess {
     m_logger = LoggerFactory.getLogger("worker." + workerName);
     m_dataLogger = LoggerFactory.getLogger("data");
 
+    m_binaryDataLogFile =
+      isBinaryDataLogFormat(
+        properties.getProperty("grinder.dataLogFormat", "csv")) ?
+      new File(logDirectory, workerName + "-data.bin") : null;
+
     m_logger.info("The Grinder version {}", GrinderBuild.getVersionString());
     m_logger.info(JVM.getInstance().toString());
     m_logger.info("time zone is {}",
@@ -196,12 +221,16 @@ final class GrinderProcess {
             new ConnectorFactory(ConnectionType.WORKER).create(properties),
             new WorkerAddress(workerIdentity)));
 
+      m_statisticsSender =
+        createStatisticsSender(properties, workerIdentity, m_consoleSender);
+
       barrierGroups =
         new ClientBarrierGroups(m_consoleSender,
                                 messageDispatcher);
     }
     else {
       m_consoleSender = new NullQueuedSender();
+      m_statisticsSender = m_consoleSender;
       barrierGroups = new LocalBarrierGroups();
     }
 
@@ -223,7 +252,12 @@ final class GrinderProcess {
       }
     };
 
-    m_statisticsServices = StatisticsServicesImplementation.getInstance();
+    final TimeUnit reportingTimeUnit =
+      parseReportingTimeUnit(
+        properties.getProperty("grinder.reportTimeUnit", "milliseconds"));
+
+    m_statisticsServices =
+      StatisticsServicesImplementation.getInstance(reportingTimeUnit);
 
     m_accumulatedStatistics =
       new TestStatisticsMap(m_statisticsServices.getStatisticsSetFactory());
@@ -236,7 +270,8 @@ final class GrinderProcess {
                        m_threadContexts,
                        m_statisticsServices.getStatisticsSetFactory(),
                        m_testStatisticsHelper,
-                       m_times.getTimeAuthority());
+                       m_times.getTimeAuthority(),
+                       reportingTimeUnit);
 
     final Logger externalLogger =
       new ExternalLogger(m_logger, m_threadContexts);
@@ -282,7 +317,8 @@ final class GrinderProcess {
                                        scriptContext,
                                        m_threadContexts,
                                        m_statisticsServices,
-                                       m_times.getTimeAuthority());
+                                       m_times.getTimeAuthority(),
+                                       reportingTimeUnit);
 
     m_processLifeCycleListeners.add(pluginRegistry);
 
@@ -300,6 +336,52 @@ final class GrinderProcess {
       new ConsoleListener(m_eventSynchronisation, m_logger);
 
     m_consoleListener.registerMessageHandlers(messageDispatcher);
+
+    m_arrivalScheduler =
+      createArrivalScheduler(properties, m_times.getTimeAuthority());
+
+    if (m_arrivalScheduler != null) {
+      scriptStatistics.registerDataLogExpression(
+        "Queueing delay",
+        StatisticsIndexMap.QUEUEING_DELAY_KEY);
+
+      scriptStatistics.registerSummaryExpression(
+        "Mean queueing delay",
+        "(/ " + StatisticsIndexMap.QUEUEING_DELAY_KEY +
+        " " + StatisticsIndexMap.QUEUED_RUNS_KEY + ")");
+    }
+
+    if (properties.getBoolean("grinder.virtualThreads", false)) {
+      if (VirtualThreads.isSupported()) {
+        m_virtualThreads = true;
+      }
+      else {
+        m_terminalLogger.warn(
+          "grinder.virtualThreads is set, but this JVM does not support " +
+          "virtual threads; using platform threads");
+        m_virtualThreads = false;
+      }
+    }
+    else {
+      m_virtualThreads = false;
+    }
+
+    messageDispatcher.set(
+      SetArrivalRateMessage.class,
+      new AbstractHandler<SetArrivalRateMessage>() {
+        @Override
+        public void handle(final SetArrivalRateMessage message) {
+          if (m_arrivalScheduler != null) {
+            m_logger.info("setting arrival rate to {} runs/s",
+                          message.getRate());
+            m_arrivalScheduler.setRate(message.getRate());
+          }
+          else {
+            m_logger.warn("ignoring arrival rate, grinder.arrivalRate " +
+                          "is not set");
+          }
+        }
+      });
     m_messagePump = new MessagePump(agentReceiver, messageDispatcher, 1);
   }
 
@@ -380,8 +462,7 @@ final class GrinderProcess {
 
       m_logger.info(numbers.toString());
 
-      final short numberOfThreads =
-        properties.getShort("grinder.threads", (short)1);
+      final int numberOfThreads = properties.getInt("grinder.threads", 1);
       final int reportToConsoleInterval =
         properties.getInt("grinder.reportToConsole.interval", 500);
       final int duration = properties.getInt("grinder.duration", 0);
@@ -425,16 +506,34 @@ final class GrinderProcess {
         dataLogHeader.append(detailExpressionView.getDisplayName());
       }
 
-      m_dataLogger.info(dataLogHeader.toString());
+      if (m_binaryDataLogFile != null) {
+        try {
+          m_binaryDataLog =
+            new BinaryDataLog(m_binaryDataLogFile,
+                              detailExpressionViews,
+                              m_logger);
+        }
+        catch (final IOException e) {
+          throw new EngineException("Failed to create binary data log", e);
+        }
+      }
+      else {
+        m_dataLogger.info(dataLogHeader.toString());
+      }
 
-      sendStatusMessage(ProcessReport.State.STARTED,
-                        (short)0,
-                        numberOfThreads);
+      sendStatusMessage(ProcessReport.State.STARTED, 0, numberOfThreads);
 
       final ThreadSynchronisation threadSynchronisation =
         new ThreadSynchronisation(m_eventSynchronisation);
 
-      m_terminalLogger.info("starting threads");
+      if (m_arrivalScheduler != null) {
+        m_terminalLogger.info("starting threads, arrival rate {} runs/s",
+                              m_arrivalScheduler.getRate());
+      }
+      else {
+        m_terminalLogger.info("starting {} threads",
+                              m_virtualThreads ? "virtual" : "platform");
+      }
 
       synchronized (m_eventSynchronisation) {
         m_threadStarter =
@@ -452,6 +551,12 @@ final class GrinderProcess {
       m_logger.info("start time is {} ms since Epoch",
                   m_times.getExecutionStartTime());
 
+      m_terminalLogger.info(
+        "started in {} ms from initialisation, {} ms from JVM start",
+        m_times.getExecutionStartTime() - m_times.getInitialisationTime(),
+        m_times.getExecutionStartTime() -
+          ManagementFactory.getRuntimeMXBean().getStartTime());
+
       final TimerTask reportTimerTask =
         new ReportToConsoleTimerTask(threadSynchronisation);
       final TimerTask shutdownTimerTask = new ShutdownTimerTask();
@@ -506,6 +611,10 @@ final class GrinderProcess {
             // Interrupt any sleepers.
             SleeperImplementation.shutdownAllCurrentSleepers();
 
+            if (m_arrivalScheduler != null) {
+              m_arrivalScheduler.shutdown();
+            }
+
             final long time = System.currentTimeMillis();
             final long maximumShutdownTime = 10000;
 
@@ -532,9 +641,15 @@ final class GrinderProcess {
       reportTimerTask.run();
 
       if (!m_communicationShutdown) {
-        sendStatusMessage(ProcessReport.State.FINISHED,
-                          (short)0,
-                          (short)0);
+        sendStatusMessage(ProcessReport.State.FINISHED, 0, 0);
+      }
+
+      if (m_statisticsSender != m_consoleSender) {
+        m_statisticsSender.shutdown();
+      }
+
+      if (m_binaryDataLog != null) {
+        m_binaryDataLog.close();
       }
 
       m_consoleSender.shutdown();
@@ -554,6 +669,21 @@ final class GrinderProcess {
       statisticsTable.print(new PrintWriter(statistics), elapsedTime);
       m_logger.info(statistics.toString());
 
+      if (m_arrivalScheduler != null) {
+        final ArrivalStatistics arrivals =
+          m_arrivalScheduler.getTotalStatistics();
+
+        m_logger.info("arrivals: {} started, {} missed; queueing delay " +
+                      "mean {} ms, maximum {} ms",
+                      new Object[] {
+                        arrivals.getArrivals(),
+                        arrivals.getMissedArrivals(),
+                        TimeUnit.NANOSECONDS.toMillis(
+                          arrivals.getMeanQueueingDelay()),
+                        TimeUnit.NANOSECONDS.toMillis(
+                          arrivals.getMaximumQueueingDelay()), });
+      }
+
       timer.cancel();
 
       m_terminalLogger.info("finished");
@@ -580,6 +710,42 @@ final class GrinderProcess {
     }
   }
 
+  /**
+   * If the agent is aggregating statistics, connect to it. Otherwise
+   * statistics are sent to the console.
+   */
+  private QueuedSender createStatisticsSender(
+    final GrinderProperties properties,
+    final WorkerIdentity workerIdentity,
+    final QueuedSender consoleSender) {
+
+    final int agentPort =
+      properties.getInt("grinder.reportToConsole.agentPort", 0);
+
+    if (agentPort <= 0) {
+      return consoleSender;
+    }
+
+    final WireProtocol wireProtocol = new WireProtocol();
+    ConsoleMessageCodecs.register(wireProtocol);
+
+    try {
+      return new QueuedSenderDecorator(
+        ClientSender.connect(
+          new Connector("localhost",
+                        agentPort,
+                        ConnectionType.WORKER,
+                        wireProtocol),
+          new WorkerAddress(workerIdentity)));
+    }
+    catch (final CommunicationException e) {
+      m_logger.warn("{}, reporting statistics directly to the console",
+                    e.getMessage());
+
+      return consoleSender;
+    }
+  }
+
   private class ReportToConsoleTimerTask extends TimerTask {
     private final ThreadSynchronisation m_threads;
 
@@ -592,7 +758,7 @@ final class GrinderProcess {
       if (!m_communicationShutdown) {
         try {
           final TestStatisticsMap sample =
-            m_testRegistryImplementation.getTestStatisticsMap().reset();
+            m_testRegistryImplementation.resetTestStatistics();
           m_accumulatedStatistics.add(sample);
 
           // We look up the new tests after we've taken the sample to
@@ -601,7 +767,7 @@ final class GrinderProcess {
             m_testRegistryImplementation.getNewTests();
 
           if (newTests != null) {
-            m_consoleSender.send(new RegisterTestsMessage(newTests));
+            m_statisticsSender.send(new RegisterTestsMessage(newTests));
           }
 
           if (sample.size() > 0) {
@@ -609,12 +775,34 @@ final class GrinderProcess {
               m_testStatisticsHelper.removeTestTimeFromSample(sample);
             }
 
-            m_consoleSender.send(new ReportStatisticsMessage(sample));
+            m_statisticsSender.send(new ReportStatisticsMessage(sample));
+          }
+
+          if (m_statisticsSender != m_consoleSender) {
+            m_statisticsSender.flush();
           }
 
-          sendStatusMessage(ProcessReport.State.RUNNING,
-                            m_threads.getNumberOfRunningThreads(),
-                            m_threads.getTotalNumberOfThreads());
+          if (m_arrivalScheduler != null) {
+            final ArrivalStatistics arrivals =
+              m_arrivalScheduler.takeIntervalStatistics();
+
+            m_consoleSender.send(new WorkerProcessReportMessage(
+              ProcessReport.State.RUNNING,
+              m_threads.getNumberOfRunningThreads(),
+              m_threads.getTotalNumberOfThreads(),
+              m_arrivalScheduler.getRate(),
+              arrivals.isSaturated(),
+              arrivals.getMissedArrivals(),
+              TimeUnit.NANOSECONDS.toMillis(
+                arrivals.getMaximumQueueingDelay())));
+
+            m_consoleSender.flush();
+          }
+          else {
+            sendStatusMessage(ProcessReport.State.RUNNING,
+                              m_threads.getNumberOfRunningThreads(),
+                              m_threads.getTotalNumberOfThreads());
+          }
         }
         catch (final CommunicationException e) {
           m_terminalLogger.info("Report to console failed", e);
@@ -626,8 +814,8 @@ final class GrinderProcess {
   }
 
   private void sendStatusMessage(final State finished,
-                                 final short numberOfThreads,
-                                 final short totalNumberOfThreads)
+                                 final int numberOfThreads,
+                                 final int totalNumberOfThreads)
     throws CommunicationException {
 
     m_consoleSender.send(new WorkerProcessReportMessage(
@@ -653,15 +841,19 @@ final class GrinderProcess {
    * <code>CountDownLatch</code> and <code>CyclicBarrier</code>, but neither
    * of them allow for the waiting thread to be interrupted by other events.
    *
+   * <p>Worker threads await the start signal on a <code>CountDownLatch</code>
+   * rather than a monitor, so virtual worker threads do not pin their carrier
+   * threads while waiting.</p>
+   *
    * <p>Package scope for unit tests.</p>
    */
   static class ThreadSynchronisation implements WorkerThreadSynchronisation {
-    private final BooleanCondition m_started = new BooleanCondition();
+    private final CountDownLatch m_started = new CountDownLatch(1);
     private final Condition m_threadEventCondition;
 
-    private short m_numberCreated = 0;
-    private short m_numberAwaitingStart = 0;
-    private short m_numberFinished = 0;
+    private int m_numberCreated = 0;
+    private int m_numberAwaitingStart = 0;
+    private int m_numberFinished = 0;
 
     ThreadSynchronisation(final Condition condition) {
       m_threadEventCondition = condition;
@@ -671,9 +863,9 @@ final class GrinderProcess {
      * The number of worker threads that have been created but not run to
      * completion.
      */
-    public short getNumberOfRunningThreads() {
+    public int getNumberOfRunningThreads() {
       synchronized (m_threadEventCondition) {
-        return (short)(m_numberCreated - m_numberFinished);
+        return m_numberCreated - m_numberFinished;
       }
     }
 
@@ -690,7 +882,7 @@ final class GrinderProcess {
     /**
      * The number of worker threads that have been created.
      */
-    public short getTotalNumberOfThreads() {
+    public int getTotalNumberOfThreads() {
       synchronized (m_threadEventCondition) {
         return m_numberCreated;
       }
@@ -712,7 +904,7 @@ final class GrinderProcess {
         m_numberAwaitingStart = 0;
       }
 
-      m_started.set(true);
+      m_started.countDown();
     }
 
     @Override
@@ -725,7 +917,21 @@ final class GrinderProcess {
         }
       }
 
-      m_started.await(true);
+      boolean interrupted = false;
+
+      while (true) {
+        try {
+          m_started.await();
+          break;
+        }
+        catch (final InterruptedException e) {
+          interrupted = true;
+        }
+      }
+
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
     }
 
     @Override
@@ -798,7 +1004,8 @@ final class GrinderProcess {
           m_initialisationMessage.getProperties(),
           m_statisticsServices,
           threadNumber,
-          m_dataLogger);
+          m_dataLogger,
+          m_binaryDataLog);
 
 
       final WorkerRunnableFactory workerRunnableFactory;
@@ -823,10 +1030,20 @@ final class GrinderProcess {
                             m_threadLifeCycleCallbacks,
                             m_initialisationMessage.getProperties(),
                             m_sleeper,
-                            workerRunnableFactory);
+                            workerRunnableFactory,
+                            m_arrivalScheduler);
+
+      final String threadName = "thread " + threadNumber;
+      final Thread t;
+
+      if (m_virtualThreads) {
+        t = VirtualThreads.create(runnable, threadName);
+      }
+      else {
+        t = new Thread(runnable, threadName);
+        t.setDaemon(true);
+      }
 
-      final Thread t = new Thread(runnable, "thread " + threadNumber);
-      t.setDaemon(true);
       t.start();
 
       return threadNumber;
@@ -848,14 +1065,152 @@ final class GrinderProcess {
     }
   }
 
+  /**
+   * Parse the value of the <code>grinder.reportTimeUnit</code> property.
+   *
+   * <p>
+   * Package scope for unit tests.
+   * </p>
+   *
+   * @param value
+   *          One of <code>milliseconds</code>, <code>microseconds</code>, or
+   *          <code>nanoseconds</code>. Case is ignored.
+   * @return The time unit used to report test times.
+   * @throws EngineException
+   *           If the value is not a supported unit.
+   */
+  static TimeUnit parseReportingTimeUnit(final String value)
+    throws EngineException {
+
+    for (final TimeUnit unit : new TimeUnit[] { TimeUnit.MILLISECONDS,
+                                                TimeUnit.MICROSECONDS,
+                                                TimeUnit.NANOSECONDS, }) {
+      if (unit.name().equalsIgnoreCase(value.trim())) {
+        return unit;
+      }
+    }
+
+    throw new EngineException(
+      "Invalid value for grinder.reportTimeUnit: '" + value +
+      "'. Use milliseconds, microseconds, or nanoseconds.");
+  }
+
+  /**
+   * Parse the data log format.
+   *
+   * <p>
+   * Package scope for unit tests.
+   * </p>
+   *
+   * @param value
+   *          The value of {@code grinder.dataLogFormat}.
+   * @return {@code true} for the binary format, {@code false} for CSV.
+   * @throws EngineException
+   *           If the value is not a known format.
+   */
+  static boolean isBinaryDataLogFormat(final String value)
+    throws EngineException {
+
+    if ("binary".equalsIgnoreCase(value.trim())) {
+      return true;
+    }
+    else if ("csv".equalsIgnoreCase(value.trim())) {
+      return false;
+    }
+
+    throw new EngineException(
+      "Invalid value for grinder.dataLogFormat: '" + value +
+      "'. Use csv or binary.");
+  }
+
+  /**
+   * Create the scheduler for an open workload.
+   *
+   * <p>
+   * Package scope for unit tests.
+   * </p>
+   *
+   * @param properties
+   *          The worker process properties.
+   * @param timeAuthority
+   *          Time authority.
+   * @return The scheduler, or {@code null} if {@code grinder.arrivalRate} is
+   *         not set.
+   * @throws EngineException
+   *           If the properties are invalid.
+   */
+  static ArrivalScheduler createArrivalScheduler(
+    final GrinderProperties properties,
+    final TimeAuthority timeAuthority)
+    throws EngineException {
+
+    final double rate = properties.getDouble("grinder.arrivalRate", 0);
+
+    if (rate <= 0) {
+      return null;
+    }
+
+    final String distributionName =
+      properties.getProperty("grinder.arrivalRate.distribution", "constant");
+
+    ArrivalSchedule.Distribution distribution = null;
+
+    for (final ArrivalSchedule.Distribution d :
+         ArrivalSchedule.Distribution.values()) {
+      if (d.name().equalsIgnoreCase(distributionName.trim())) {
+        distribution = d;
+      }
+    }
+
+    if (distribution == null) {
+      throw new EngineException(
+        "Invalid value for grinder.arrivalRate.distribution: '" +
+        distributionName + "'. Use constant or poisson.");
+    }
+
+    final ArrivalSchedule schedule =
+      new ArrivalSchedule(
+        rate,
+        properties.getDouble("grinder.arrivalRate.step", 0),
+        TimeUnit.MILLISECONDS.toNanos(
+          properties.getLong("grinder.arrivalRate.stepDuration", 0)),
+        properties.getDouble("grinder.arrivalRate.maximum", 0),
+        distribution,
+        new Random());
+
+    return new ArrivalScheduler(
+      schedule,
+      timeAuthority,
+      TimeUnit.MILLISECONDS.toNanos(
+        properties.getLong("grinder.arrivalRate.maximumQueueingDelay", 0)));
+  }
+
   /**
    * Package scope for unit tests.
    */
   static final class Times {
+    private volatile long m_initialisationTime;
     private volatile long m_executionStartTime;
 
     private final TimeAuthority  m_timeAuthority = new StandardTimeAuthority();
 
+    /**
+     * {@link GrinderProcess} calls {@link #setInitialisationTime} when it
+     * receives the initialisation message from the agent.
+     */
+    public void setInitialisationTime() {
+      m_initialisationTime = m_timeAuthority.getTimeInMilliseconds();
+    }
+
+    /**
+     * When the initialisation message was received.
+     *
+     * @return The time, in milliseconds since the Epoch.
+     */
+    public long getInitialisationTime() {
+      return m_initialisationTime;
+    }
+
     /**
      * {@link GrinderProcess} calls {@link #setExecutionStartTime} just
      * before launching threads, after which it is never called again.
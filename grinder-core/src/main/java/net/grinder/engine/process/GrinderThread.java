@@ -46,9 +46,17 @@ class GrinderThread implements Runnable {
   private final Sleeper m_sleeper;
   private final ThreadContext m_context;
   private final WorkerRunnableFactory m_workerRunnableFactory;
+  private final ArrivalScheduler m_arrivalScheduler;
 
   /**
    * The constructor.
+   *
+   * <p>
+   * If {@code arrivalScheduler} is {@code null}, the thread performs
+   * {@code grinder.runs} runs back to back. Otherwise, the thread is part of
+   * the pool that serves an open workload, and starts a run for each arrival
+   * it claims until it is shut down.
+   * </p>
    */
   public GrinderThread(final Logger logger,
                        final ThreadContext context,
@@ -56,7 +64,8 @@ class GrinderThread implements Runnable {
                        final ProcessLifeCycleListener processLifeCycle,
                        final GrinderProperties properties,
                        final Sleeper sleeper,
-                       final WorkerRunnableFactory workerRunnableFactory)
+                       final WorkerRunnableFactory workerRunnableFactory,
+                       final ArrivalScheduler arrivalScheduler)
     throws EngineException {
 
     m_logger = logger;
@@ -66,6 +75,7 @@ class GrinderThread implements Runnable {
     m_properties = properties;
     m_sleeper = sleeper;
     m_workerRunnableFactory = workerRunnableFactory;
+    m_arrivalScheduler = arrivalScheduler;
 
     // Dispatch the process context callback in the main thread.
     m_processLifeCycle.threadCreated(m_context);
@@ -89,9 +99,14 @@ class GrinderThread implements Runnable {
     try {
       final WorkerRunnable workerRunnable = m_workerRunnableFactory.create();
 
-      final int numberOfRuns = m_properties.getInt("grinder.runs", 1);
+      final int numberOfRuns =
+        m_arrivalScheduler != null ? 0 : m_properties.getInt("grinder.runs", 1);
 
-      if (numberOfRuns == 0) {
+      if (m_arrivalScheduler != null) {
+        m_logger.info(m_context.getLogMarker(),
+                      "starting, will run at the arrival rate");
+      }
+      else if (numberOfRuns == 0) {
         m_logger.info(m_context.getLogMarker(), "starting, will run forever");
       }
       else {
@@ -103,7 +118,10 @@ class GrinderThread implements Runnable {
 
       m_threadSynchronisation.awaitStart();
 
-      m_sleeper.sleepFlat(m_properties.getLong("grinder.initialSleepTime", 0));
+      if (m_arrivalScheduler == null) {
+        m_sleeper.sleepFlat(
+          m_properties.getLong("grinder.initialSleepTime", 0));
+      }
 
       int currentRun;
 
@@ -111,6 +129,16 @@ class GrinderThread implements Runnable {
            numberOfRuns == 0 || currentRun < numberOfRuns;
            currentRun++) {
 
+        if (m_arrivalScheduler != null) {
+          try {
+            m_context.setQueueingDelay(m_arrivalScheduler.awaitArrival());
+          }
+          catch (final ShutdownException e) {
+            m_logger.info(m_context.getLogMarker(), "shut down");
+            break;
+          }
+        }
+
         m_context.setCurrentRunNumber(currentRun);
 
         m_context.fireBeginRunEvent();
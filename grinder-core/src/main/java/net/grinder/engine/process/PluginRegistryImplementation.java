@@ -23,6 +23,7 @@ package net.grinder.engine.process;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 
@@ -50,6 +51,7 @@ final class PluginRegistryImplementation
   private final ThreadContextLocator m_threadContextLocator;
   private final StatisticsServices m_statisticsServices;
   private final TimeAuthority m_timeAuthority;
+  private final TimeUnit m_reportingTimeUnit;
 
   private final Map<GrinderPlugin, RegisteredPlugin> m_plugins =
     new HashMap<GrinderPlugin, RegisteredPlugin>();
@@ -60,12 +62,14 @@ final class PluginRegistryImplementation
   PluginRegistryImplementation(Logger logger, ScriptContext scriptContext,
                                ThreadContextLocator threadContextLocator,
                                StatisticsServices statisticsServices,
-                               TimeAuthority timeAuthority) {
+                               TimeAuthority timeAuthority,
+                               TimeUnit reportingTimeUnit) {
     m_logger = logger;
     m_scriptContext = scriptContext;
     m_threadContextLocator = threadContextLocator;
     m_statisticsServices = statisticsServices;
     m_timeAuthority = timeAuthority;
+    m_reportingTimeUnit = reportingTimeUnit;
 
     setInstance(this);
   }
@@ -82,7 +86,8 @@ final class PluginRegistryImplementation
 
         final RegisteredPlugin registeredPlugin =
           new RegisteredPlugin(plugin, m_scriptContext, m_threadContextLocator,
-                               m_statisticsServices, m_timeAuthority, m_logger);
+                               m_statisticsServices, m_timeAuthority,
+                               m_reportingTimeUnit, m_logger);
 
         try {
           plugin.initialize(registeredPlugin);
@@ -21,6 +21,8 @@
 
 package net.grinder.engine.process;
 
+import java.util.concurrent.TimeUnit;
+
 import org.slf4j.Logger;
 
 import net.grinder.engine.common.EngineException;
@@ -47,17 +49,21 @@ final class RegisteredPlugin implements PluginProcessContext {
   private final ThreadLocal<PluginThreadListener> m_threadListenerThreadLocal =
     new ThreadLocal<PluginThreadListener>();
   private final TimeAuthority m_timeAuthority;
+  private final TimeUnit m_reportingTimeUnit;
   private final Logger m_logger;
 
   public RegisteredPlugin(GrinderPlugin plugin, ScriptContext scriptContext,
                           ThreadContextLocator threadContextLocator,
                           StatisticsServices statisticsServices,
-                          TimeAuthority timeAuthority, Logger logger) {
+                          TimeAuthority timeAuthority,
+                          TimeUnit reportingTimeUnit,
+                          Logger logger) {
     m_plugin = plugin;
     m_scriptContext = scriptContext;
     m_threadContextLocator = threadContextLocator;
     m_statisticsServices = statisticsServices;
     m_timeAuthority = timeAuthority;
+    m_reportingTimeUnit = reportingTimeUnit;
     m_logger = logger;
   }
 
@@ -114,4 +120,8 @@ final class RegisteredPlugin implements PluginProcessContext {
   public TimeAuthority getTimeAuthority() {
     return m_timeAuthority;
   }
+
+  public TimeUnit getReportingTimeUnit() {
+    return m_reportingTimeUnit;
+  }
 }
@@ -119,7 +119,7 @@ final class ScriptStatisticsImplementation implements Statistics {
       throw new InvalidContextException("There is no test in progress.");
     }
 
-    return statisticsForCurrentTest;
+    return publish(statisticsForCurrentTest);
   }
 
   public StatisticsForTest getForLastTest() throws InvalidContextException {
@@ -131,6 +131,15 @@ final class ScriptStatisticsImplementation implements Statistics {
         "No tests have been performed by this thread.");
     }
 
-    return statisticsForLastTest;
+    return publish(statisticsForLastTest);
+  }
+
+  private static StatisticsForTest publish(StatisticsForTest statistics) {
+    // The script may keep the reference, so it must not be reused.
+    if (statistics instanceof StatisticsForTestImplementation) {
+      ((StatisticsForTestImplementation)statistics).publish();
+    }
+
+    return statistics;
   }
 }
@@ -36,7 +36,9 @@ import net.grinder.statistics.StatisticsIndexMap.LongIndex;
  *
  * <p>Starts off associated with a dispatch context and the context's mutable
  * statistics set, until freeze is called after which it is a wrapper around
- * a read-only statistics set.
+ * a read-only statistics set. The dispatch context can reuse a frozen
+ * instance for a later invocation of the test by calling thaw, unless a
+ * reference has been handed to the script.
  *
  * @author Philip Aston
  */
@@ -56,6 +58,7 @@ final class StatisticsForTestImplementation implements StatisticsForTest {
   private final ImmutableStatisticsSet m_immutableStatistics;
   private DispatchContext m_dispatchContext;
   private StatisticsSet m_statistics;
+  private boolean m_published;
 
   public StatisticsForTestImplementation(
     DispatchContext dispatchContext,
@@ -75,6 +78,42 @@ final class StatisticsForTestImplementation implements StatisticsForTest {
     m_statistics = null;
   }
 
+  /**
+   * Record that a reference to this instance has been handed to the script.
+   * The script might keep the reference, so the instance will not be thawed.
+   */
+  public void publish() {
+    m_published = true;
+  }
+
+  /**
+   * Reassociate a frozen instance with a dispatch context for the same test,
+   * and reset the statistics.
+   *
+   * @param dispatchContext The dispatch context.
+   * @return {@code false} if the instance has been published, in which case
+   *  it is left frozen and a new instance should be used.
+   */
+  public boolean thaw(DispatchContext dispatchContext) {
+    if (m_dispatchContext != null) {
+      throw new AssertionError("Not frozen");
+    }
+
+    if (m_published) {
+      return false;
+    }
+
+    // The class invariant guarantees the immutable statistics reference is
+    // our original, mutable, statistics set.
+    final StatisticsSet statistics = (StatisticsSet)m_immutableStatistics;
+    statistics.reset();
+
+    m_dispatchContext = dispatchContext;
+    m_statistics = statistics;
+
+    return true;
+  }
+
   private StatisticsSet getStatisticsChecked() throws InvalidContextException {
     if (m_statistics == null) {
       throw new InvalidContextException(
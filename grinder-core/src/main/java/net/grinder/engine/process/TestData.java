@@ -22,6 +22,11 @@
 
 package net.grinder.engine.process;
 
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
 import net.grinder.common.Test;
 import net.grinder.common.UncheckedGrinderException;
 import net.grinder.engine.common.EngineException;
@@ -45,6 +50,15 @@ import org.slf4j.MarkerFactory;
  * Represents an individual test. Holds configuration information and
  * the tests statistics.
  *
+ * <p>
+ * Each worker thread accumulates the statistics for the test separately, so
+ * that threads do not contend with each other when reporting. The per-thread
+ * statistics are only merged when {@link #getTestStatistics()} or
+ * {@link #resetTestStatistics()} is called. The statistics of a thread that
+ * has exited are folded into a single set at that point, so the number of
+ * per-thread sets does not grow with each run.
+ * </p>
+ *
  * Package scope.
  *
  * @author Philip Aston
@@ -54,16 +68,26 @@ final class TestData implements RegisteredTest, Recorder {
   private final StatisticsSetFactory m_statisticsSetFactory;
   private final TestStatisticsHelper m_testStatisticsHelper;
   private final TimeAuthority m_timeAuthority;
+  private final TimeUnit m_reportingTimeUnit;
   private final Instrumenter m_instrumenter;
   private final ThreadContextLocator m_threadContextLocator;
   private final Test m_test;
   private final Marker m_logMarker;
 
   /**
-   * Cumulative statistics for our test that haven't yet been set to
-   * the console.
+   * Cumulative statistics for our test that haven't yet been sent to
+   * the console, one per live worker thread that has used the test. Each
+   * statistics set is only updated by its worker thread, and by
+   * {@link #resetTestStatistics()}.
    */
-  private final StatisticsSet m_testStatistics;
+  private final List<ThreadStatistics> m_threadStatistics =
+    new CopyOnWriteArrayList<ThreadStatistics>();
+
+  /**
+   * Cumulative statistics from worker threads that have exited. Guarded by
+   * itself.
+   */
+  private final StatisticsSet m_retiredStatistics;
 
   private final RecorderHolderThreadLocal m_recorderHolderTL =
     new RecorderHolderThreadLocal();
@@ -72,15 +96,17 @@ final class TestData implements RegisteredTest, Recorder {
            StatisticsSetFactory statisticsSetFactory,
            TestStatisticsHelper testStatisticsHelper,
            TimeAuthority timeAuthority,
+           TimeUnit reportingTimeUnit,
            Instrumenter instrumenter,
            Test testDefinition) {
     m_statisticsSetFactory = statisticsSetFactory;
     m_testStatisticsHelper = testStatisticsHelper;
     m_timeAuthority = timeAuthority;
+    m_reportingTimeUnit = reportingTimeUnit;
     m_instrumenter = instrumenter;
     m_threadContextLocator = threadContextLocator;
     m_test = testDefinition;
-    m_testStatistics = m_statisticsSetFactory.create();
+    m_retiredStatistics = statisticsSetFactory.create();
 
     m_logMarker = MarkerFactory.getMarker("test-" + testDefinition.getNumber());
   }
@@ -93,8 +119,59 @@ final class TestData implements RegisteredTest, Recorder {
     return m_logMarker;
   }
 
+  /**
+   * Return the cumulative statistics for the test.
+   *
+   * @return A snapshot, merged from the statistics of each worker thread.
+   */
   StatisticsSet getTestStatistics() {
-    return m_testStatistics;
+    return mergeThreadStatistics(false);
+  }
+
+  /**
+   * Return the cumulative statistics for the test, and reset them.
+   *
+   * @return A snapshot, merged from the statistics of each worker thread.
+   */
+  StatisticsSet resetTestStatistics() {
+    return mergeThreadStatistics(true);
+  }
+
+  private StatisticsSet mergeThreadStatistics(boolean reset) {
+    final StatisticsSet result = m_statisticsSetFactory.create();
+
+    synchronized (m_retiredStatistics) {
+      for (ThreadStatistics threadStatistics : m_threadStatistics) {
+        final StatisticsSet statistics = threadStatistics.getStatistics();
+
+        if (threadStatistics.isRetired()) {
+          // The thread has exited, so nothing else will update the set.
+          m_threadStatistics.remove(threadStatistics);
+          m_retiredStatistics.add(statistics);
+          continue;
+        }
+
+        synchronized (statistics) {
+          if (!statistics.isZero()) {
+            result.add(statistics);
+
+            if (reset) {
+              statistics.reset();
+            }
+          }
+        }
+      }
+
+      if (!m_retiredStatistics.isZero()) {
+        result.add(m_retiredStatistics);
+
+        if (reset) {
+          m_retiredStatistics.reset();
+        }
+      }
+    }
+
+    return result;
   }
 
   /**
@@ -145,9 +222,14 @@ final class TestData implements RegisteredTest, Recorder {
           throw new UncheckedException("Only Worker Threads can invoke tests");
         }
 
+        final StatisticsSet threadStatistics = m_statisticsSetFactory.create();
+        m_threadStatistics.add(
+          new ThreadStatistics(Thread.currentThread(), threadStatistics));
+
         final TestRecorder recorder =
           new TestRecorder(threadContext.getDispatchResultReporter(),
-                           new StopWatchImplementation(m_timeAuthority));
+                           new StopWatchImplementation(m_timeAuthority),
+                           threadStatistics);
 
         return new RecorderHolder(threadContext, recorder);
       }
@@ -163,6 +245,29 @@ final class TestData implements RegisteredTest, Recorder {
     }
   }
 
+  /**
+   * The statistics accumulated by a worker thread. Holds the thread weakly so
+   * that we can tell when it has gone.
+   */
+  private static final class ThreadStatistics {
+    private final WeakReference<Thread> m_thread;
+    private final StatisticsSet m_statistics;
+
+    public ThreadStatistics(Thread thread, StatisticsSet statistics) {
+      m_thread = new WeakReference<Thread>(thread);
+      m_statistics = statistics;
+    }
+
+    public StatisticsSet getStatistics() {
+      return m_statistics;
+    }
+
+    public boolean isRetired() {
+      final Thread thread = m_thread.get();
+      return thread == null || !thread.isAlive();
+    }
+  }
+
   /**
    * Cache a single {@link TestRecorder} for a particular worker thread.
    *
@@ -221,22 +326,45 @@ final class TestData implements RegisteredTest, Recorder {
    * {@link ThreadContextImplementation#getDispatchContext()} takes care to only
    * return references to Dispatchers that are <em>dispatching</em> or
    * <em>complete</em>.
+   *
+   * <p>
+   * A recorder belongs to a single worker thread. To avoid allocation for
+   * each invocation of the test, it alternates between two
+   * {@link StatisticsForTestImplementation}s. The one that is not in use is
+   * the thread's statistics for the last test, or older. An instance that
+   * the script has obtained through the {@code Statistics} interface is
+   * never reused, and is replaced by a new one.
+   * </p>
+   *
+   * <p>
+   * The start time is recorded in milliseconds since the Epoch for the data
+   * log. Elapsed times are measured in nanoseconds using the time authority's
+   * high resolution clock, and converted to the reporting time unit when
+   * reported.
+   * </p>
    */
   private final class TestRecorder
     implements DispatchContext, Recorder {
 
     private final DispatchResultReporter m_resultReporter;
     private final StopWatch m_pauseTimer;
+    private final StatisticsSet m_threadStatistics;
+    private final StatisticsForTestImplementation[] m_statisticsForTestPool =
+      new StatisticsForTestImplementation[2];
+    private int m_nextStatisticsForTest;
 
     private long m_startTime = -1;
+    private long m_startTimeNanos;
     private long m_dispatchTime = -1;
     private StatisticsForTestImplementation m_statisticsForTest;
 
     public TestRecorder(DispatchResultReporter resultReporter,
-                           StopWatch pauseTimer) {
+                        StopWatch pauseTimer,
+                        StatisticsSet threadStatistics) {
 
       m_resultReporter = resultReporter;
       m_pauseTimer = pauseTimer;
+      m_threadStatistics = threadStatistics;
     }
 
     public void start() throws DispatchStateException {
@@ -246,20 +374,33 @@ final class TestData implements RegisteredTest, Recorder {
 
       m_pauseTimer.reset();
 
-      m_statisticsForTest = new StatisticsForTestImplementation(
-        this,
-        m_testStatisticsHelper,
-        m_statisticsSetFactory.create());
+      final StatisticsForTestImplementation pooled =
+        m_statisticsForTestPool[m_nextStatisticsForTest];
+
+      if (pooled != null && pooled.thaw(this)) {
+        m_statisticsForTest = pooled;
+      }
+      else {
+        m_statisticsForTest = new StatisticsForTestImplementation(
+          this,
+          m_testStatisticsHelper,
+          m_statisticsSetFactory.create());
+
+        m_statisticsForTestPool[m_nextStatisticsForTest] = m_statisticsForTest;
+      }
+
+      m_nextStatisticsForTest ^= 1;
 
       // Make it more likely that the timed section has a "clear run".
       Thread.yield();
 
       m_startTime = m_timeAuthority.getTimeInMilliseconds();
+      m_startTimeNanos = m_timeAuthority.getTimeInNanoseconds();
     }
 
     public void end(boolean success) {
-      m_dispatchTime =
-        Math.max(m_timeAuthority.getTimeInMilliseconds() - m_startTime, 0);
+      m_dispatchTime = Math.max(
+        m_timeAuthority.getTimeInNanoseconds() - m_startTimeNanos, 0);
 
       if (m_pauseTimer.isRunning()) {
         m_pauseTimer.stop();
@@ -289,12 +430,15 @@ final class TestData implements RegisteredTest, Recorder {
       m_resultReporter.report(getTest(), m_startTime, statistics);
 
       if (m_testStatisticsHelper.getSuccess(statistics)) {
-        getTestStatistics().add(statistics);
+        m_threadStatistics.add(statistics);
       }
       else {
         // If an error, we consider other information to be unreliable,
-        // so do not aggregate it.
-        m_testStatisticsHelper.incrementErrors(getTestStatistics());
+        // so do not aggregate it. The queueing delay was measured before
+        // the run started, so is kept.
+        m_testStatisticsHelper.incrementErrors(m_threadStatistics);
+        m_testStatisticsHelper.addQueueingDelay(m_threadStatistics,
+                                                statistics);
       }
 
       // Disassociate ourselves from m_statisticsForTest;
@@ -317,6 +461,14 @@ final class TestData implements RegisteredTest, Recorder {
       return m_pauseTimer;
     }
 
+    public void setQueueingDelay(long queueingDelay) {
+      if (m_statisticsForTest != null) {
+        m_testStatisticsHelper.setQueueingDelay(
+          m_statisticsForTest.getStatistics(),
+          m_reportingTimeUnit.convert(queueingDelay, TimeUnit.NANOSECONDS));
+      }
+    }
+
     public long getElapsedTime() {
       if (m_startTime == -1) {
         return -1;
@@ -325,13 +477,16 @@ final class TestData implements RegisteredTest, Recorder {
       final long unadjustedTime;
 
       if (m_dispatchTime == -1) {
-        unadjustedTime = m_timeAuthority.getTimeInMilliseconds() - m_startTime;
+        unadjustedTime =
+          m_timeAuthority.getTimeInNanoseconds() - m_startTimeNanos;
       }
       else {
         unadjustedTime = m_dispatchTime;
       }
 
-      return Math.max(unadjustedTime - m_pauseTimer.getTime(), 0);
+      return m_reportingTimeUnit.convert(
+        Math.max(unadjustedTime - m_pauseTimer.getTime(), 0),
+        TimeUnit.NANOSECONDS);
     }
 
     public StatisticsForTest getStatisticsForTest() {
@@ -339,7 +494,7 @@ final class TestData implements RegisteredTest, Recorder {
     }
 
     public void setHasNestedContexts() {
-      m_testStatistics.setIsComposite();
+      m_threadStatistics.setIsComposite();
     }
   }
 
@@ -25,10 +25,12 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
 
 import net.grinder.common.Test;
 import net.grinder.script.TestRegistry;
 import net.grinder.scriptengine.Instrumenter;
+import net.grinder.statistics.StatisticsSet;
 import net.grinder.statistics.StatisticsSetFactory;
 import net.grinder.statistics.TestStatisticsMap;
 import net.grinder.util.TimeAuthority;
@@ -45,11 +47,7 @@ final class TestRegistryImplementation implements TestRegistry {
   private final StatisticsSetFactory m_statisticsSetFactory;
   private final TestStatisticsHelper m_testStatisticsHelper;
   private final TimeAuthority m_timeAuthority;
-
-  /**
-   * A map of Tests to Statistics for passing elsewhere.
-   */
-  private final TestStatisticsMap m_testStatisticsMap;
+  private final TimeUnit m_reportingTimeUnit;
 
   /**
    * A map of Test to TestData's. (TestData is the class this
@@ -72,12 +70,13 @@ final class TestRegistryImplementation implements TestRegistry {
   TestRegistryImplementation(ThreadContextLocator threadContextLocator,
                              StatisticsSetFactory statisticsSetFactory,
                              TestStatisticsHelper testStatisticsHelper,
-                             TimeAuthority timeAuthority) {
+                             TimeAuthority timeAuthority,
+                             TimeUnit reportingTimeUnit) {
     m_threadContextLocator = threadContextLocator;
     m_statisticsSetFactory = statisticsSetFactory;
     m_testStatisticsHelper = testStatisticsHelper;
     m_timeAuthority = timeAuthority;
-    m_testStatisticsMap = new TestStatisticsMap(m_statisticsSetFactory);
+    m_reportingTimeUnit = reportingTimeUnit;
   }
 
   /**
@@ -107,11 +106,11 @@ final class TestRegistryImplementation implements TestRegistry {
                                  m_statisticsSetFactory,
                                  m_testStatisticsHelper,
                                  m_timeAuthority,
+                                 m_reportingTimeUnit,
                                  m_instrumenter,
                                  test);
 
       m_testMap.put(test, newTestData);
-      m_testStatisticsMap.put(test, newTestData.getTestStatistics());
 
       if (m_newTests == null) {
         m_newTests = new ArrayList<Test>();
@@ -130,8 +129,32 @@ final class TestRegistryImplementation implements TestRegistry {
     m_instrumenter = instrumenter;
   }
 
-  TestStatisticsMap getTestStatisticsMap() {
-    return m_testStatisticsMap;
+  /**
+   * Merge and reset the statistics that the worker threads have accumulated
+   * for each test.
+   *
+   * @return The statistics accumulated since the last call. Only Tests with
+   *         non-zero statistics are included.
+   */
+  TestStatisticsMap resetTestStatistics() {
+    final TestData[] tests;
+
+    synchronized (this) {
+      tests = m_testMap.values().toArray(new TestData[m_testMap.size()]);
+    }
+
+    final TestStatisticsMap result =
+      new TestStatisticsMap(m_statisticsSetFactory);
+
+    for (TestData testData : tests) {
+      final StatisticsSet statistics = testData.resetTestStatistics();
+
+      if (!statistics.isZero()) {
+        result.put(testData.getTest(), statistics);
+      }
+    }
+
+    return result;
   }
 
   /**
@@ -40,6 +40,11 @@ interface TestStatisticsHelper {
 
   void recordTest(StatisticsSet statistics, long elapsedTime);
 
+  void setQueueingDelay(StatisticsSet statistics, long queueingDelay);
+
+  void addQueueingDelay(StatisticsSet testStatistics,
+                        ImmutableStatisticsSet statistics);
+
   long getTestTime(ImmutableStatisticsSet statistics);
 
   void removeTestTimeFromSample(TestStatisticsMap sample);
@@ -40,6 +40,8 @@ final class TestStatisticsHelperImplementation
   private final StatisticsIndexMap.LongIndex m_errorsIndex;
   private final StatisticsIndexMap.LongIndex m_untimedTestsIndex;
   private final StatisticsIndexMap.LongSampleIndex m_timedTestsIndex;
+  private final StatisticsIndexMap.LongIndex m_queueingDelayIndex;
+  private final StatisticsIndexMap.LongIndex m_queuedRunsIndex;
 
   public TestStatisticsHelperImplementation(StatisticsIndexMap indexMap) {
 
@@ -47,6 +49,10 @@ final class TestStatisticsHelperImplementation
     m_errorsIndex = indexMap.getLongIndex("errors");
     m_untimedTestsIndex = indexMap.getLongIndex("untimedTests");
     m_timedTestsIndex = indexMap.getLongSampleIndex("timedTests");
+    m_queueingDelayIndex =
+      indexMap.getLongIndex(StatisticsIndexMap.QUEUEING_DELAY_KEY);
+    m_queuedRunsIndex =
+      indexMap.getLongIndex(StatisticsIndexMap.QUEUED_RUNS_KEY);
   }
 
   public boolean getSuccess(ImmutableStatisticsSet statistics) {
@@ -70,6 +76,24 @@ final class TestStatisticsHelperImplementation
     statistics.setValue(m_untimedTestsIndex, 0);
   }
 
+  public void setQueueingDelay(StatisticsSet statistics, long queueingDelay) {
+    statistics.setValue(m_queueingDelayIndex, queueingDelay);
+    statistics.setValue(m_queuedRunsIndex, 1);
+  }
+
+  /**
+   * Add the queueing delay of a test invocation to cumulative statistics.
+   * Used when the invocation failed and its other statistics are not
+   * aggregated; the delay belongs to the run, not to the test.
+   */
+  public void addQueueingDelay(StatisticsSet testStatistics,
+                               ImmutableStatisticsSet statistics) {
+    testStatistics.addValue(m_queueingDelayIndex,
+                            statistics.getValue(m_queueingDelayIndex));
+    testStatistics.addValue(m_queuedRunsIndex,
+                            statistics.getValue(m_queuedRunsIndex));
+  }
+
   public long getTestTime(ImmutableStatisticsSet statistics) {
     return statistics.getSum(m_timedTestsIndex);
   }
@@ -77,6 +77,13 @@ interface ThreadContext extends PluginThreadContext {
    */
   void setCurrentRunNumber(int run);
 
+  /**
+   * @param queueingDelay The time the current run waited for the thread, in
+   * nanoseconds. Recorded in the statistics of the first test the run
+   * completes.
+   */
+  void setQueueingDelay(long queueingDelay);
+
   Marker getLogMarker();
 }
 
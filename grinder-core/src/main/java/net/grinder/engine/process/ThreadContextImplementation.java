@@ -71,6 +71,7 @@ final class ThreadContextImplementation implements ThreadContext {
 
   private Marker m_runMarker;
   private int m_runNumber = -1;
+  private long m_queueingDelay = -1;
 
   private Marker m_testMarker;
 
@@ -82,13 +83,44 @@ final class ThreadContextImplementation implements ThreadContext {
                                      int threadNumber,
                                      Logger dataLogger)
     throws EngineException {
+    this(properties, statisticsServices, threadNumber, dataLogger, null);
+  }
+
+  public ThreadContextImplementation(GrinderProperties properties,
+                                     StatisticsServices statisticsServices,
+                                     int threadNumber,
+                                     Logger dataLogger,
+                                     final BinaryDataLog binaryDataLog)
+    throws EngineException {
 
     m_threadNumber = threadNumber;
     m_threadMarker = MarkerFactory.getMarker("thread-" + threadNumber);
 
     // Undocumented property. Added so Tom Barnes can investigate overhead
     // of data logging.
-    if (properties.getBoolean("grinder.logData", true)) {
+    if (!properties.getBoolean("grinder.logData", true)) {
+      m_dispatchResultReporter = new DispatchResultReporter() {
+        public void report(Test test,
+                           long startTime,
+                           StatisticsSet statistics) {
+          // Null reporter.
+        }
+      };
+    }
+    else if (binaryDataLog != null) {
+      m_dispatchResultReporter = new DispatchResultReporter() {
+        public void report(Test test,
+                           long startTime,
+                           StatisticsSet statistics) {
+          binaryDataLog.report(m_threadNumber,
+                               getRunNumber(),
+                               test,
+                               startTime,
+                               statistics);
+        }
+      };
+    }
+    else {
       final ThreadDataLogger threadDataLogger =
         new ThreadDataLogger(
           dataLogger,
@@ -106,15 +138,6 @@ final class ThreadContextImplementation implements ThreadContext {
         }
       };
     }
-    else {
-      m_dispatchResultReporter = new DispatchResultReporter() {
-        public void report(Test test,
-                           long startTime,
-                           StatisticsSet statistics) {
-          // Null reporter.
-        }
-      };
-    }
 
     registerThreadLifeCycleListener(
       new SkeletonThreadLifeCycleListener() {
@@ -145,6 +168,10 @@ final class ThreadContextImplementation implements ThreadContext {
     m_runNumber = run;
   }
 
+  public void setQueueingDelay(long queueingDelay) {
+    m_queueingDelay = queueingDelay;
+  }
+
   /** Package scope for unit tests. */
   void setTestLogMarker(Marker marker) {
     if (m_testMarker != null) {
@@ -255,6 +282,10 @@ final class ThreadContextImplementation implements ThreadContext {
       parentDispatchContext.getPauseTimer().add(
         dispatchContext.getPauseTimer());
     }
+    else if (m_queueingDelay >= 0) {
+      dispatchContext.setQueueingDelay(m_queueingDelay);
+      m_queueingDelay = -1;
+    }
 
     m_statisticsForLastTest = dispatchContext.getStatisticsForTest();
 
@@ -24,6 +24,8 @@ package net.grinder.engine.process;
 import java.io.InputStream;
 
 import net.grinder.communication.StreamReceiver;
+import net.grinder.scriptengine.jython.JythonScriptEngineService;
+import net.grinder.statistics.StatisticsServicesImplementation;
 
 import org.slf4j.LoggerFactory;
 import org.slf4j.Logger;
@@ -36,6 +38,13 @@ import org.slf4j.Logger;
  */
 public class WorkerProcessEntryPoint {
 
+  /**
+   * Command line argument used by the agent when it starts a worker process
+   * before it is needed. The process warms up before waiting for its
+   * initialisation message.
+   */
+  public static final String PRESTARTED_ARGUMENT = "--prestarted";
+
   /**
    * Main method.
    *
@@ -56,11 +65,48 @@ public class WorkerProcessEntryPoint {
       System.exit(-1);
     }
 
+    if (args.length == 1 && PRESTARTED_ARGUMENT.equals(args[0])) {
+      warmUp();
+    }
+
     final int exitCode = new WorkerProcessEntryPoint().run(System.in);
 
     System.exit(exitCode);
   }
 
+  /**
+   * Load and initialise the classes that every worker process needs.
+   *
+   * <p>
+   * Failures are ignored; they will be reported when the worker process
+   * starts for real.
+   * </p>
+   */
+  static void warmUp() {
+    try {
+      StatisticsServicesImplementation.getInstance();
+      Class.forName(GrinderProcess.class.getName());
+      Class.forName(ScriptEngineContainer.class.getName());
+      Class.forName("ch.qos.logback.classic.LoggerContext");
+    }
+    catch (final ClassNotFoundException e) {
+      // Ignore.
+    }
+    catch (final LinkageError e) {
+      // Ignore.
+    }
+
+    try {
+      JythonScriptEngineService.warmUp();
+    }
+    catch (final RuntimeException e) {
+      // Ignore.
+    }
+    catch (final LinkageError e) {
+      // Jython is not available.
+    }
+  }
+
   /**
    * Create and run a process.
    *
@@ -124,14 +124,15 @@ public final class DCRContextImplementation implements DCRContext {
 
     checkWrappable(constructor.getDeclaringClass());
 
-    final String location = m_weaver.weave(constructor);
+    final int location = m_weaver.weave(constructor);
 
 //    System.out.printf("add(%s, %s, %s, %s)%n",
 //                      target.hashCode(), location,
 //                      target,
 //                      constructor);
 
-    m_recorderRegistry.register(target, location, recorder);
+    // The target is always the declaring class.
+    m_recorderRegistry.register(location, recorder);
   }
 
   /**
@@ -146,9 +147,15 @@ public final class DCRContextImplementation implements DCRContext {
     checkWrappable(method.getDeclaringClass());
 
     try {
-      final String location = m_weaver.weave(method, targetSource);
+      final int location = m_weaver.weave(method, targetSource);
 
-      m_recorderRegistry.register(target, location, recorder);
+      if (targetSource == TargetSource.CLASS) {
+        // The target is always the declaring class.
+        m_recorderRegistry.register(location, recorder);
+      }
+      else {
+        m_recorderRegistry.register(target, location, recorder);
+      }
     }
     catch (WeavingException e) {
       throw new NonInstrumentableTypeException("Weaving failed", e);
@@ -25,11 +25,8 @@ import static extra166y.CustomConcurrentHashMap.IDENTITY;
 import static extra166y.CustomConcurrentHashMap.STRONG;
 import static extra166y.CustomConcurrentHashMap.WEAK;
 
-import java.util.Collections;
-import java.util.List;
-import java.util.ListIterator;
+import java.util.Arrays;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.CopyOnWriteArrayList;
 
 import net.grinder.common.UncheckedGrinderException;
 import net.grinder.engine.common.EngineException;
@@ -41,63 +38,54 @@ import extra166y.CustomConcurrentHashMap;
  * Static methods that weaved code uses to dispatch enter and exit calls to the
  * appropriate {@link Recorder}.
  *
+ * <p>
+ * The dispatch methods are called for every execution of woven code, so they
+ * are lock free and do not allocate.
+ * </p>
+ *
  * @author Philip Aston
  */
 public final class RecorderLocator implements RecorderRegistry {
 
   private static final RecorderLocator s_instance = new RecorderLocator();
 
+  private static final Recorder[] NO_RECORDERS = new Recorder[0];
+
   /**
    * Accessor for the unit tests.
    */
   static void clearRecorders() {
-    s_instance.m_recorders.clear();
+    synchronized (s_instance) {
+      s_instance.m_locations = new Location[0];
+    }
   }
 
   /**
-   * Target reference -> location -> recorder list. Location strings are
-   * interned, so we use an identity hash map for both maps. We use concurrent
-   * structures throughout to avoid synchronisation. The target reference is the
-   * first key to minimise the cost of traversing woven code for
-   * non-instrumented references, which is important if {@code Object}, {@code
-   * PyObject}, etc. are instrumented.
+   * Location -> recorders. The weaver allocates location identifiers densely
+   * from zero, so we can index an array. The array is replaced, never
+   * modified, when a new location is registered. Writes are guarded by this.
    */
-  private final ConcurrentMap<Object,
-                              ConcurrentMap<String, List<Recorder>>>
-  m_recorders =
-      new CustomConcurrentHashMap<Object,
-                                  ConcurrentMap<String, List<Recorder>>>(
-            WEAK, IDENTITY, STRONG, IDENTITY, 101);
-
-  private List<Recorder> getRecorderList(Object target,
-                                         String locationID) {
-
-    final ConcurrentMap<String, List<Recorder>> locationMap =
-      m_recorders.get(target);
+  private volatile Location[] m_locations = new Location[0];
 
-    if (locationMap != null) {
-      final List<Recorder> list = locationMap.get(locationID);
+  private static Location getLocation(int location) {
+    final Location[] locations = s_instance.m_locations;
 
-      if (list != null) {
-        return list;
-      }
+    if (location < locations.length) {
+      return locations[location];
     }
 
-    return Collections.<Recorder>emptyList();
+    return null;
   }
 
   /**
    * Called when a weaved method is entered.
    *
    * @param target
-   *          The reference used to call the method. The class is used for
-   *          static methods or constructors.
+   *          The reference used to call the method.
    * @param location
    *          Unique identity generated when the method was instrumented.
-   *          Will be interned.
-   * @throws EngineException
    */
-  public static void enter(Object target, String location) {
+  public static void enter(Object target, int location) {
 
     if (target == null) {
       // We don't allow recorders to register for a null target,
@@ -112,16 +100,24 @@ public final class RecorderLocator implements RecorderRegistry {
 //                     target.getClass(),
 //                     location);
 
-    try {
-      for (Recorder recorder : s_instance.getRecorderList(target, location)) {
-
-//        System.out.printf(" -> %s%n", System.identityHashCode(recorder));
+    final Location l = getLocation(location);
 
-        recorder.start();
-      }
+    if (l != null) {
+      start(l.getRecorders(target));
     }
-    catch (EngineException e) {
-      throw new RecordingFailureException(e);
+  }
+
+  /**
+   * Called when a weaved static method or constructor is entered.
+   *
+   * @param location
+   *          Unique identity generated when the method was instrumented.
+   */
+  public static void enter(int location) {
+    final Location l = getLocation(location);
+
+    if (l != null) {
+      start(l.getClassRecorders());
     }
   }
 
@@ -129,16 +125,14 @@ public final class RecorderLocator implements RecorderRegistry {
    * Called when a weaved method is exited.
    *
    * @param target
-   *          The reference used to call the method. The class is used for
-   *          static methods or constructors.
+   *          The reference used to call the method.
    * @param location
    *          Unique identity generated when the method was instrumented.
-   *          Will be interned.
    * @param success
    *          {@code true} if the exit was a normal return, {code false} if an
    *          exception was thrown.
    */
-  public static void exit(Object target, String location, boolean success) {
+  public static void exit(Object target, int location, boolean success) {
 
     if (target == null) {
       // We don't allow recorders to register for a null target,
@@ -154,19 +148,46 @@ public final class RecorderLocator implements RecorderRegistry {
 //                      location,
 //                      success);
 
-    final List<Recorder> recorders =
-      s_instance.getRecorderList(target, location);
+    final Location l = getLocation(location);
 
-    // Iterate over recorders in reverse.
-    final ListIterator<Recorder> i = recorders.listIterator(recorders.size());
+    if (l != null) {
+      end(l.getRecorders(target), success);
+    }
+  }
 
-    try {
-      while (i.hasPrevious()) {
-        final Recorder recorder = i.previous();
+  /**
+   * Called when a weaved static method or constructor is exited.
+   *
+   * @param location
+   *          Unique identity generated when the method was instrumented.
+   * @param success
+   *          {@code true} if the exit was a normal return, {code false} if an
+   *          exception was thrown.
+   */
+  public static void exit(int location, boolean success) {
+    final Location l = getLocation(location);
 
-//        System.out.printf(" -> %s%n", System.identityHashCode(recorder));
+    if (l != null) {
+      end(l.getClassRecorders(), success);
+    }
+  }
+
+  private static void start(Recorder[] recorders) {
+    try {
+      for (int i = 0; i < recorders.length; ++i) {
+        recorders[i].start();
+      }
+    }
+    catch (EngineException e) {
+      throw new RecordingFailureException(e);
+    }
+  }
 
-        recorder.end(success);
+  private static void end(Recorder[] recorders, boolean success) {
+    try {
+      // Iterate over recorders in reverse.
+      for (int i = recorders.length - 1; i >= 0; --i) {
+        recorders[i].end(success);
       }
     }
     catch (EngineException e) {
@@ -187,42 +208,108 @@ public final class RecorderLocator implements RecorderRegistry {
    * {@inheritDoc}.
    */
   @Override public void register(Object target,
-                                 String location,
+                                 int location,
                                  Recorder recorder) {
+    getOrCreateLocation(location).add(target, recorder);
+  }
 
-    // We will create and quickly discard many maps and lists here to avoid
-    // needing to lock the ConcurrentMaps. It is important that the
-    // enter/exit methods are lock free, the instrumentation registration
-    // process can be relatively slow.
+  /**
+   * {@inheritDoc}.
+   */
+  @Override public void register(int location, Recorder recorder) {
+    getOrCreateLocation(location).add(recorder);
+  }
 
-    final ConcurrentMap<String, List<Recorder>> newMap =
-      new CustomConcurrentHashMap<String, List<Recorder>>(
-            STRONG, IDENTITY, STRONG, IDENTITY, 0);
+  private synchronized Location getOrCreateLocation(int location) {
+    final Location[] locations = m_locations;
 
-    final ConcurrentMap<String, List<Recorder>> oldMap =
-      m_recorders.putIfAbsent(target, newMap);
+    if (location < locations.length && locations[location] != null) {
+      return locations[location];
+    }
 
-    final ConcurrentMap<String, List<Recorder>> locationMap =
-      oldMap != null ? oldMap : newMap;
+    final int length = location < locations.length ?
+      locations.length : Math.max(location + 1, locations.length * 2);
 
-    final List<Recorder> newList = new CopyOnWriteArrayList<Recorder>();
+    final Location[] newLocations = Arrays.copyOf(locations, length);
 
-    final List<Recorder> oldList =
-      locationMap.putIfAbsent(location.intern(), newList);
+    final Location result = new Location();
+    newLocations[location] = result;
+    m_locations = newLocations;
 
-    final List<Recorder> recorderList = oldList != null ? oldList : newList;
+    return result;
+  }
 
-    // Same target, location, recorder => no-op, avoiding memory leak. The
-    // Recorder implementation ignores recursive invocations, so only the
-    // first registered instance of a (target, location, recorder) tuple
-    // matters.
-    for (Recorder existingRecorder : recorderList) {
+  /**
+   * Add a recorder to an array. The recorder implementation ignores recursive
+   * invocations, so only the first registered instance of a (target,
+   * location, recorder) tuple matters. Registering it again is a no-op,
+   * avoiding a memory leak.
+   */
+  private static Recorder[] append(Recorder[] recorders, Recorder recorder) {
+    for (Recorder existingRecorder : recorders) {
       if (existingRecorder == recorder) {
-        return;
+        return recorders;
+      }
+    }
+
+    final Recorder[] result = Arrays.copyOf(recorders, recorders.length + 1);
+    result[recorders.length] = recorder;
+
+    return result;
+  }
+
+  /**
+   * The recorders for a location. Recorder arrays are replaced, never
+   * modified, so the dispatch methods can iterate over them without locking.
+   * Writes are guarded by this.
+   */
+  private static final class Location {
+
+    private volatile Recorder[] m_classRecorders = NO_RECORDERS;
+
+    /**
+     * Target reference -> recorders. Created when the first target is
+     * registered, since most static method and constructor locations never
+     * need it.
+     */
+    private volatile ConcurrentMap<Object, Recorder[]> m_targetRecorders;
+
+    public Recorder[] getClassRecorders() {
+      return m_classRecorders;
+    }
+
+    public Recorder[] getRecorders(Object target) {
+      final ConcurrentMap<Object, Recorder[]> targetRecorders =
+        m_targetRecorders;
+
+      if (targetRecorders != null) {
+        final Recorder[] recorders = targetRecorders.get(target);
+
+        if (recorders != null) {
+          return recorders;
+        }
       }
+
+      return NO_RECORDERS;
+    }
+
+    public synchronized void add(Recorder recorder) {
+      m_classRecorders = append(m_classRecorders, recorder);
     }
 
-    recorderList.add(recorder);
+    public synchronized void add(Object target, Recorder recorder) {
+      if (m_targetRecorders == null) {
+        m_targetRecorders =
+          new CustomConcurrentHashMap<Object, Recorder[]>(
+            WEAK, IDENTITY, STRONG, IDENTITY, 0);
+      }
+
+      final Recorder[] existing = m_targetRecorders.get(target);
+
+      m_targetRecorders.put(
+        target,
+        append(existing != null ? existing : NO_RECORDERS, recorder));
+    }
   }
 
   private static final class RecordingFailureException
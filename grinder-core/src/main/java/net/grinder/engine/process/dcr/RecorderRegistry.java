@@ -32,14 +32,25 @@ import net.grinder.scriptengine.Recorder;
 interface RecorderRegistry {
 
   /**
-   * Registration method.
+   * Register a recorder for calls on a particular target reference.
    *
    * @param target
-   *          The target reference, or {@code null} for static methods.
+   *          The target reference.
    * @param location
-   *          String that uniquely identifies the instrumentation location.
+   *          Integer that uniquely identifies the instrumentation location.
    * @param recorder
    *          The recorder to register.
    */
-  void register(Object target, String location, Recorder recorder);
+  void register(Object target, int location, Recorder recorder);
+
+  /**
+   * Register a recorder for all calls through a location. Used for
+   * constructors and static methods, where the target is the class.
+   *
+   * @param location
+   *          Integer that uniquely identifies the instrumentation location.
+   * @param recorder
+   *          The recorder to register.
+   */
+  void register(int location, Recorder recorder);
 }
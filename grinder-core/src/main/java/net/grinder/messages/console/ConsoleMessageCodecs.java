@@ -0,0 +1,292 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+
+package net.grinder.messages.console;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import net.grinder.common.AbstractTestSemantics;
+import net.grinder.common.Test;
+import net.grinder.common.processidentity.ProcessReport.State;
+import net.grinder.communication.WireProtocol;
+import net.grinder.communication.WireProtocol.MessageCodec;
+import net.grinder.messages.agent.CacheHighWaterMark;
+import net.grinder.statistics.TestStatisticsMap;
+import net.grinder.util.Serialiser;
+
+
+/**
+ * {@link WireProtocol} codecs for the messages that agent and worker
+ * processes send to the console periodically.
+ *
+ * @author Philip Aston
+ */
+public final class ConsoleMessageCodecs {
+
+  private static final int REPORT_STATISTICS_MESSAGE_TYPE = 16;
+  private static final int REGISTER_TESTS_MESSAGE_TYPE = 17;
+  private static final int WORKER_PROCESS_REPORT_MESSAGE_TYPE = 18;
+  private static final int AGENT_PROCESS_REPORT_MESSAGE_TYPE = 19;
+
+  private ConsoleMessageCodecs() {
+  }
+
+  /**
+   * Register the codecs. The console and the processes that connect to it
+   * must register the codecs with the {@link WireProtocol}s that they use.
+   * Registering the codecs with the same {@code WireProtocol} more than once
+   * has no effect.
+   *
+   * @param wireProtocol The wire protocol.
+   */
+  public static void register(WireProtocol wireProtocol) {
+    wireProtocol.register(REPORT_STATISTICS_MESSAGE_TYPE,
+                          ReportStatisticsMessage.class,
+                          new ReportStatisticsMessageCodec());
+
+    wireProtocol.register(REGISTER_TESTS_MESSAGE_TYPE,
+                          RegisterTestsMessage.class,
+                          new RegisterTestsMessageCodec());
+
+    wireProtocol.register(WORKER_PROCESS_REPORT_MESSAGE_TYPE,
+                          WorkerProcessReportMessage.class,
+                          new WorkerProcessReportMessageCodec());
+
+    wireProtocol.register(AGENT_PROCESS_REPORT_MESSAGE_TYPE,
+                          AgentProcessReportMessage.class,
+                          new AgentProcessReportMessageCodec());
+  }
+
+  private static final class ReportStatisticsMessageCodec
+    implements MessageCodec<ReportStatisticsMessage> {
+
+    public void write(ReportStatisticsMessage message, DataOutput out)
+      throws IOException {
+      message.getStatisticsDelta().write(out);
+    }
+
+    public ReportStatisticsMessage read(DataInput in) throws IOException {
+      final TestStatisticsMap statistics = new TestStatisticsMap();
+      statistics.read(in);
+      return new ReportStatisticsMessage(statistics);
+    }
+  }
+
+  private static final class RegisterTestsMessageCodec
+    implements MessageCodec<RegisterTestsMessage> {
+
+    public void write(RegisterTestsMessage message, DataOutput out)
+      throws IOException {
+
+      final Serialiser serialiser = new Serialiser();
+      final Collection<Test> tests = message.getTests();
+
+      serialiser.writeUnsignedLong(out, tests.size());
+
+      for (Test test : tests) {
+        out.writeInt(test.getNumber());
+        final String description = test.getDescription();
+        writeString(out, description != null ? description : "");
+      }
+    }
+
+    public RegisterTestsMessage read(DataInput in) throws IOException {
+      final Serialiser serialiser = new Serialiser();
+      final long n = serialiser.readUnsignedLong(in);
+
+      if (n > Integer.MAX_VALUE) {
+        throw new IOException("Invalid number of tests " + n);
+      }
+
+      final List<Test> tests = new ArrayList<Test>((int)Math.min(n, 1024));
+
+      for (long i = 0; i < n; ++i) {
+        tests.add(new RegisteredTest(in.readInt(), readString(in)));
+      }
+
+      return new RegisterTestsMessage(tests);
+    }
+  }
+
+  /**
+   * The {@link Test} implementation the console receives.
+   */
+  private static final class RegisteredTest
+    extends AbstractTestSemantics implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int m_number;
+    private final String m_description;
+
+    public RegisteredTest(int number, String description) {
+      m_number = number;
+      m_description = description;
+    }
+
+    public int getNumber() {
+      return m_number;
+    }
+
+    public String getDescription() {
+      return m_description;
+    }
+  }
+
+  private static final class WorkerProcessReportMessageCodec
+    implements MessageCodec<WorkerProcessReportMessage> {
+
+    public void write(WorkerProcessReportMessage message, DataOutput out)
+      throws IOException {
+
+      final Serialiser serialiser = new Serialiser();
+
+      writeState(out, message.getState());
+      serialiser.writeUnsignedLong(out, message.getNumberOfRunningThreads());
+      serialiser.writeUnsignedLong(out, message.getMaximumNumberOfThreads());
+      out.writeDouble(message.getArrivalRate());
+      out.writeBoolean(message.isSaturated());
+      serialiser.writeLong(out, message.getMissedArrivals());
+      serialiser.writeLong(out, message.getMaximumQueueingDelay());
+    }
+
+    public WorkerProcessReportMessage read(DataInput in) throws IOException {
+      final Serialiser serialiser = new Serialiser();
+
+      final State state = readState(in);
+      final long runningThreads = serialiser.readUnsignedLong(in);
+      final long totalThreads = serialiser.readUnsignedLong(in);
+
+      if (runningThreads > Integer.MAX_VALUE ||
+          totalThreads > Integer.MAX_VALUE) {
+        throw new IOException("Invalid number of threads");
+      }
+
+      return new WorkerProcessReportMessage(state,
+                                            (int)runningThreads,
+                                            (int)totalThreads,
+                                            in.readDouble(),
+                                            in.readBoolean(),
+                                            serialiser.readLong(in),
+                                            serialiser.readLong(in));
+    }
+  }
+
+  private static final class AgentProcessReportMessageCodec
+    implements MessageCodec<AgentProcessReportMessage> {
+
+    public void write(AgentProcessReportMessage message, DataOutput out)
+      throws IOException {
+
+      writeState(out, message.getState());
+
+      // The high water mark is an opaque token, so fall back to Java
+      // serialisation for it. Agents report rarely.
+      final CacheHighWaterMark highWaterMark =
+        message.getCacheHighWaterMark();
+
+      if (highWaterMark == null) {
+        out.writeInt(-1);
+      }
+      else {
+        final ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+        final ObjectOutputStream objectStream =
+          new ObjectOutputStream(byteStream);
+        objectStream.writeObject(highWaterMark);
+        objectStream.close();
+
+        out.writeInt(byteStream.size());
+        out.write(byteStream.toByteArray());
+      }
+    }
+
+    public AgentProcessReportMessage read(DataInput in) throws IOException {
+      final State state = readState(in);
+      final int length = in.readInt();
+
+      final CacheHighWaterMark highWaterMark;
+
+      if (length < 0) {
+        highWaterMark = null;
+      }
+      else {
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+
+        try {
+          highWaterMark = (CacheHighWaterMark)
+            new ObjectInputStream(new ByteArrayInputStream(bytes)).readObject();
+        }
+        catch (ClassNotFoundException e) {
+          throw new IOException(e.getMessage(), e);
+        }
+      }
+
+      return new AgentProcessReportMessage(state, highWaterMark);
+    }
+  }
+
+  private static void writeState(DataOutput out, State state)
+    throws IOException {
+    out.writeByte(state.ordinal());
+  }
+
+  private static State readState(DataInput in) throws IOException {
+    final int ordinal = in.readUnsignedByte();
+    final State[] values = State.values();
+
+    if (ordinal >= values.length) {
+      throw new IOException("Invalid process state " + ordinal);
+    }
+
+    return values[ordinal];
+  }
+
+  private static void writeString(DataOutput out, String s)
+    throws IOException {
+    final byte[] bytes = s.getBytes("UTF-8");
+    new Serialiser().writeUnsignedLong(out, bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInput in) throws IOException {
+    final long length = new Serialiser().readUnsignedLong(in);
+
+    if (length > Integer.MAX_VALUE) {
+      throw new IOException("Invalid string length " + length);
+    }
+
+    final byte[] bytes = new byte[(int)length];
+    in.readFully(bytes);
+    return new String(bytes, "UTF-8");
+  }
+}
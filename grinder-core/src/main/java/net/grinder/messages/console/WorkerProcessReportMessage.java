@@ -38,11 +38,15 @@ import net.grinder.communication.CommunicationException;
 public final class WorkerProcessReportMessage
   implements AddressAwareMessage, WorkerProcessReport {
 
-  private static final long serialVersionUID = 3L;
+  private static final long serialVersionUID = 5L;
 
   private final State m_state;
-  private final short m_totalNumberOfThreads;
-  private final short m_numberOfRunningThreads;
+  private final int m_totalNumberOfThreads;
+  private final int m_numberOfRunningThreads;
+  private final double m_arrivalRate;
+  private final boolean m_saturated;
+  private final long m_missedArrivals;
+  private final long m_maximumQueueingDelay;
 
   private transient WorkerAddress m_processAddress;
 
@@ -58,11 +62,46 @@ public final class WorkerProcessReportMessage
    *          The number of threads that are still running.
    */
   public WorkerProcessReportMessage(State finished,
-                                    short runningThreads,
-                                    short totalThreads) {
+                                    int runningThreads,
+                                    int totalThreads) {
+    this(finished, runningThreads, totalThreads, 0, false, 0, 0);
+  }
+
+  /**
+   * Creates a new <code>WorkerProcessReportMessage</code> instance for a
+   * process that is running an open workload.
+   *
+   * @param finished
+   *          The process state. See
+   *          {@link net.grinder.common.processidentity.ProcessReport}.
+   * @param totalThreads
+   *          The total number of threads.
+   * @param runningThreads
+   *          The number of threads that are still running.
+   * @param arrivalRate
+   *          The target arrival rate, in runs per second.
+   * @param saturated
+   *          Whether the threads were unable to keep up with the arrival rate.
+   * @param missedArrivals
+   *          The number of arrivals dropped since the last report.
+   * @param maximumQueueingDelay
+   *          The maximum time an arrival waited for a free thread since the
+   *          last report, in milliseconds.
+   */
+  public WorkerProcessReportMessage(State finished,
+                                    int runningThreads,
+                                    int totalThreads,
+                                    double arrivalRate,
+                                    boolean saturated,
+                                    long missedArrivals,
+                                    long maximumQueueingDelay) {
     m_state = finished;
     m_numberOfRunningThreads = runningThreads;
     m_totalNumberOfThreads = totalThreads;
+    m_arrivalRate = arrivalRate;
+    m_saturated = saturated;
+    m_missedArrivals = missedArrivals;
+    m_maximumQueueingDelay = maximumQueueingDelay;
   }
 
   /**
@@ -111,7 +150,7 @@ public final class WorkerProcessReportMessage
    *
    * @return The number of running threads.
    */
-  public short getNumberOfRunningThreads() {
+  public int getNumberOfRunningThreads() {
     return m_numberOfRunningThreads;
   }
 
@@ -120,7 +159,42 @@ public final class WorkerProcessReportMessage
    *
    * @return The maximum number of threads for the process.
    */
-  public short getMaximumNumberOfThreads() {
+  public int getMaximumNumberOfThreads() {
     return m_totalNumberOfThreads;
   }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override public boolean isSaturated() {
+    return m_saturated;
+  }
+
+  /**
+   * Accessor for the target arrival rate.
+   *
+   * @return The rate, in runs per second. {@code 0} if the process is not
+   *         running an open workload.
+   */
+  public double getArrivalRate() {
+    return m_arrivalRate;
+  }
+
+  /**
+   * Accessor for the number of arrivals dropped since the last report.
+   *
+   * @return The number of missed arrivals.
+   */
+  public long getMissedArrivals() {
+    return m_missedArrivals;
+  }
+
+  /**
+   * Accessor for the maximum queueing delay since the last report.
+   *
+   * @return The maximum delay, in milliseconds.
+   */
+  public long getMaximumQueueingDelay() {
+    return m_maximumQueueingDelay;
+  }
 }
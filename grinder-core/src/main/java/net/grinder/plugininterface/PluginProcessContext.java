@@ -22,6 +22,8 @@
 
 package net.grinder.plugininterface;
 
+import java.util.concurrent.TimeUnit;
+
 import net.grinder.common.GrinderException;
 import net.grinder.script.Grinder;
 import net.grinder.statistics.StatisticsServices;
@@ -67,4 +69,17 @@ public interface PluginProcessContext {
    * @return The time authority.
    */
   TimeAuthority getTimeAuthority();
+
+  /**
+   * The unit in which test times are reported. Plug-ins that record
+   * additional time statistics should report them in the same unit.
+   *
+   * <p>
+   * The default is {@link TimeUnit#MILLISECONDS}; this can be changed with
+   * the <code>grinder.reportTimeUnit</code> property.
+   * </p>
+   *
+   * @return The reporting time unit.
+   */
+  TimeUnit getReportingTimeUnit();
 }
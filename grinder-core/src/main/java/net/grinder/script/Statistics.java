@@ -245,14 +245,68 @@ import net.grinder.common.GrinderException;
  * </tr>
  *
  * <tr>
+ * <td><em>httpplugin.sslHandshakeTime</em></td>
+ * <td>basic&nbsp;long</td>
+ * <td>The time taken to complete the SSL handshake for a new HTTPS connection
+ * in milliseconds.</td>
+ * </tr>
+ *
+ * <tr>
+ * <td><em>httpplugin.sslFullHandshakes</em></td>
+ * <td>basic&nbsp;long</td>
+ * <td>The number of new HTTPS connections that required a full SSL
+ * handshake.</td>
+ * </tr>
+ *
+ * <tr>
+ * <td><em>httpplugin.sslSessionsResumed</em></td>
+ * <td>basic&nbsp;long</td>
+ * <td>The number of new HTTPS connections that resumed a cached SSL
+ * session.</td>
+ * </tr>
+ *
+ * <tr>
  * <td><em>httpplugin.firstByteTime</em></td>
  * <td>basic&nbsp;long</td>
  * <td>The time taken to receive the first response byte in milliseconds. (This
  * includes time to resolve the host name and establish the connection).</td>
  * </tr>
  *
+ * <tr>
+ * <td><em>httpplugin.connectionsEstablished</em></td>
+ * <td>basic&nbsp;long</td>
+ * <td>The number of new connections established.</td>
+ * </tr>
+ *
+ * <tr>
+ * <td><em>httpplugin.connectionPoolHits</em></td>
+ * <td>basic&nbsp;long</td>
+ * <td>The number of requests that reused an idle pooled connection. See
+ * {@code HTTPPluginControl.setConnectionLifetime()}.</td>
+ * </tr>
+ *
+ * <tr>
+ * <td><em>httpplugin.connectionPoolMisses</em></td>
+ * <td>basic&nbsp;long</td>
+ * <td>The number of requests for which a new pooled connection was
+ * created.</td>
+ * </tr>
+ *
+ * <tr>
+ * <td><em>httpplugin.connectionPoolWaitTime</em></td>
+ * <td>basic&nbsp;long</td>
+ * <td>The time spent waiting for a pooled connection in milliseconds.</td>
+ * </tr>
+ *
  * </table> </blockquote>
  *
+ * <p>
+ * The times above are reported in milliseconds by default. The
+ * <code>grinder.reportTimeUnit</code> property can be set to
+ * <code>microseconds</code> or <code>nanoseconds</code> to report them with a
+ * finer resolution.
+ * </p>
+ *
  *
  * <h2>Querying statistics</h2>
  *
@@ -40,7 +40,8 @@ public interface DCRContext {
    * Register a constructor for instrumentation.
    *
    * @param target
-   *          Target object.
+   *          Target object. Constructor calls are always recorded against
+   *          the declaring class, so this is ignored.
    * @param constructor
    *          The constructor.
    * @param recorder
@@ -55,7 +56,9 @@ public interface DCRContext {
    * Register a method for instrumentation.
    *
    * @param target
-   *          Target object.
+   *          Target object. Ignored if {@code targetSource} is
+   *          {@link TargetSource#CLASS}, since the target is then always the
+   *          declaring class.
    * @param method
    *          The method.
    * @param targetSource
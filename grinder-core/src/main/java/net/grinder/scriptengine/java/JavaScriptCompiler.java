@@ -0,0 +1,259 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.scriptengine.java;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.JavaFileObject.Kind;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import net.grinder.engine.common.EngineException;
+
+
+/**
+ * Compiles a {@code .java} script in memory, using the {@code javax.tools}
+ * API.
+ *
+ * <p>
+ * Other source files in the script's directory are compiled too if the script
+ * refers to them.
+ * </p>
+ *
+ * @author Philip Aston
+ */
+final class JavaScriptCompiler {
+
+  private final JavaCompiler m_compiler;
+
+  /**
+   * Constructor.
+   *
+   * @throws EngineException
+   *           If no compiler is available.
+   */
+  public JavaScriptCompiler() throws EngineException {
+    m_compiler = ToolProvider.getSystemJavaCompiler();
+
+    if (m_compiler == null) {
+      throw new EngineException(
+        "No Java compiler is available. Run the worker processes using a " +
+        "JDK, or supply the TestRunner class in a jar");
+    }
+  }
+
+  /**
+   * Compile a script.
+   *
+   * @param source
+   *          The script.
+   * @param classPath
+   *          The class path to compile against.
+   * @param parent
+   *          Parent class loader for the compiled classes. This should make
+   *          the class path available to them.
+   * @return The TestRunner class, not yet initialised. This is the top level
+   *         class with the same name as the source file.
+   * @throws EngineException
+   *           If the script could not be compiled.
+   */
+  public Class<?> compile(File source,
+                          String classPath,
+                          ClassLoader parent)
+    throws EngineException {
+
+    final DiagnosticCollector<JavaFileObject> diagnostics =
+      new DiagnosticCollector<JavaFileObject>();
+
+    final StandardJavaFileManager standardFileManager =
+      m_compiler.getStandardFileManager(diagnostics, null, null);
+
+    final Map<String, ByteArrayOutputStream> classes =
+      new HashMap<String, ByteArrayOutputStream>();
+
+    final JavaFileManager fileManager =
+      new MemoryFileManager(standardFileManager, classes);
+
+    final List<String> options = new ArrayList<String>();
+    options.add("-g");
+    options.add("-classpath");
+    options.add(classPath);
+    options.add("-sourcepath");
+    options.add(source.getParentFile().getPath());
+
+    final boolean success;
+
+    try {
+      success =
+        m_compiler.getTask(null,
+                           fileManager,
+                           diagnostics,
+                           options,
+                           null,
+                           standardFileManager.getJavaFileObjects(source))
+        .call();
+    }
+    finally {
+      try {
+        fileManager.close();
+      }
+      catch (IOException e) {
+        // Nothing was written to disk.
+      }
+    }
+
+    if (!success) {
+      final StringBuilder message = new StringBuilder();
+      message.append("Failed to compile ").append(source);
+
+      for (Diagnostic<? extends JavaFileObject> d :
+           diagnostics.getDiagnostics()) {
+        if (d.getKind() == Diagnostic.Kind.ERROR) {
+          message.append("\n  ");
+
+          if (d.getSource() != null) {
+            message.append(new File(d.getSource().toUri()).getName())
+                   .append(':').append(d.getLineNumber()).append(": ");
+          }
+
+          message.append(d.getMessage(Locale.getDefault()));
+        }
+      }
+
+      throw new JavaScriptExecutionException(message.toString());
+    }
+
+    final String name = source.getName();
+    final String simpleName = name.substring(0, name.length() - 5);
+
+    String testRunnerClassName = null;
+
+    for (String className : classes.keySet()) {
+      if (className.equals(simpleName) ||
+          className.endsWith("." + simpleName)) {
+        testRunnerClassName = className;
+        break;
+      }
+    }
+
+    if (testRunnerClassName == null) {
+      throw new JavaScriptExecutionException(
+        source + " does not declare a class called " + simpleName);
+    }
+
+    final Map<String, byte[]> definitions = new HashMap<String, byte[]>();
+
+    for (Map.Entry<String, ByteArrayOutputStream> entry : classes.entrySet()) {
+      definitions.put(entry.getKey(), entry.getValue().toByteArray());
+    }
+
+    try {
+      return Class.forName(
+        testRunnerClassName,
+        false,
+        new CompiledClassLoader(definitions, parent));
+    }
+    catch (ClassNotFoundException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  /**
+   * Captures class files in memory.
+   */
+  private static final class MemoryFileManager
+    extends ForwardingJavaFileManager<StandardJavaFileManager> {
+
+    private final Map<String, ByteArrayOutputStream> m_classes;
+
+    MemoryFileManager(StandardJavaFileManager delegate,
+                      Map<String, ByteArrayOutputStream> classes) {
+      super(delegate);
+      m_classes = classes;
+    }
+
+    @Override public JavaFileObject getJavaFileForOutput(
+      Location location,
+      final String className,
+      Kind kind,
+      FileObject sibling) {
+
+      final URI uri =
+        URI.create("memory:///" + className.replace('.', '/') + kind.extension);
+
+      return new SimpleJavaFileObject(uri, kind) {
+          @Override public OutputStream openOutputStream() {
+            final ByteArrayOutputStream result = new ByteArrayOutputStream();
+            m_classes.put(className, result);
+            return result;
+          }
+        };
+    }
+  }
+
+  /**
+   * Defines the compiled classes. Holds no resources of its own, so need not
+   * be closed.
+   */
+  private static final class CompiledClassLoader extends ClassLoader {
+
+    private final Map<String, byte[]> m_definitions;
+
+    CompiledClassLoader(Map<String, byte[]> definitions, ClassLoader parent) {
+      super(parent);
+      m_definitions = definitions;
+    }
+
+    @Override protected Class<?> findClass(String name)
+      throws ClassNotFoundException {
+
+      final byte[] bytes;
+
+      synchronized (m_definitions) {
+        bytes = m_definitions.remove(name);
+      }
+
+      if (bytes != null) {
+        return defineClass(name, bytes, 0, bytes.length);
+      }
+
+      return super.findClass(name);
+    }
+  }
+}
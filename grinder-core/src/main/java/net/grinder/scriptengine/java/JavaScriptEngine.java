@@ -0,0 +1,233 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.scriptengine.java;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.Callable;
+
+import net.grinder.engine.common.EngineException;
+import net.grinder.scriptengine.ScriptEngineService.ScriptEngine;
+import net.grinder.scriptengine.ScriptEngineService.WorkerRunnable;
+import net.grinder.scriptengine.ScriptExecutionException;
+
+
+/**
+ * Java script engine.
+ *
+ * <p>
+ * The script is a {@code TestRunner} class that implements either
+ * {@link Runnable} or {@link Callable}, and has a constructor with no
+ * parameters. The class is initialised once per worker process, so static
+ * initialisers can create {@link net.grinder.script.Test}s. Each worker thread
+ * creates its own instance, and calls it for each run. If the instance is
+ * {@link AutoCloseable}, it is closed when the worker thread shuts down.
+ * </p>
+ *
+ * <p>
+ * Reflection is only used to create the instances. Each run is a direct
+ * interface call.
+ * </p>
+ *
+ * @author Philip Aston
+ */
+final class JavaScriptEngine implements ScriptEngine {
+
+  private final Class<?> m_testRunnerClass;
+  private final Closeable m_classLoader;
+  private final Constructor<?> m_constructor;
+
+  /**
+   * Constructor.
+   *
+   * @param testRunnerClass
+   *          The TestRunner class.
+   * @param classLoader
+   *          The class loader that was created to load the script, closed on
+   *          {@link #shutdown()}. The caller remains responsible for closing
+   *          it if this constructor fails.
+   * @throws EngineException
+   *           If the class is not a valid TestRunner, or could not be
+   *           initialised.
+   */
+  public JavaScriptEngine(Class<?> testRunnerClass, Closeable classLoader)
+    throws EngineException {
+
+    m_testRunnerClass = testRunnerClass;
+    m_classLoader = classLoader;
+
+    if (!Runnable.class.isAssignableFrom(testRunnerClass) &&
+        !Callable.class.isAssignableFrom(testRunnerClass)) {
+      throw new JavaScriptExecutionException(
+        "The TestRunner class " + testRunnerClass.getName() +
+        " should implement java.lang.Runnable or " +
+        "java.util.concurrent.Callable");
+    }
+
+    try {
+      m_constructor = testRunnerClass.getDeclaredConstructor();
+      m_constructor.setAccessible(true);
+    }
+    catch (NoSuchMethodException e) {
+      throw new JavaScriptExecutionException(
+        "The TestRunner class " + testRunnerClass.getName() +
+        " should have a constructor with no parameters", e);
+    }
+
+    try {
+      Class.forName(testRunnerClass.getName(),
+                    true,
+                    testRunnerClass.getClassLoader());
+    }
+    catch (ExceptionInInitializerError e) {
+      throw new JavaScriptExecutionException(
+        "Failed to initialise " + testRunnerClass.getName(), e.getCause());
+    }
+    catch (ClassNotFoundException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  @Override
+  public WorkerRunnable createWorkerRunnable() throws EngineException {
+
+    final Object testRunner;
+
+    try {
+      testRunner = m_constructor.newInstance();
+    }
+    catch (InvocationTargetException e) {
+      throw new JavaScriptExecutionException(
+        "Failed to create TestRunner", e.getCause());
+    }
+    catch (Exception e) {
+      throw new JavaScriptExecutionException(
+        "Failed to create TestRunner", e);
+    }
+
+    return createWorkerRunnable(testRunner);
+  }
+
+  @Override
+  public WorkerRunnable createWorkerRunnable(final Object testRunner)
+    throws EngineException {
+
+    if (testRunner instanceof Callable<?>) {
+      return new CallableWorkerRunnable((Callable<?>) testRunner);
+    }
+
+    if (testRunner instanceof Runnable) {
+      return new RunnableWorkerRunnable((Runnable) testRunner);
+    }
+
+    throw new JavaScriptExecutionException(
+      "supplied testRunner is not a Runnable or a Callable");
+  }
+
+  @Override
+  public String getDescription() {
+    return "Java " + System.getProperty("java.version") +
+           " (" + m_testRunnerClass.getName() + ")";
+  }
+
+  @Override
+  public void shutdown() throws EngineException {
+    // Release any jar files. Only close the class loader we were given; the
+    // TestRunner class itself may have been loaded by a parent.
+    try {
+      m_classLoader.close();
+    }
+    catch (IOException e) {
+      throw new JavaScriptExecutionException(
+        "Failed to close class loader", e);
+    }
+  }
+
+  private abstract static class AbstractWorkerRunnable
+    implements WorkerRunnable {
+
+    private final Object m_testRunner;
+
+    protected AbstractWorkerRunnable(Object testRunner) {
+      m_testRunner = testRunner;
+    }
+
+    @Override
+    public void shutdown() throws ScriptExecutionException {
+      if (m_testRunner instanceof AutoCloseable) {
+        try {
+          ((AutoCloseable) m_testRunner).close();
+        }
+        catch (Exception e) {
+          throw new JavaScriptExecutionException(
+            "Worker thread raised exception on shutdown", e);
+        }
+      }
+    }
+  }
+
+  private static final class CallableWorkerRunnable
+    extends AbstractWorkerRunnable {
+
+    private final Callable<?> m_callable;
+
+    private CallableWorkerRunnable(Callable<?> callable) {
+      super(callable);
+      m_callable = callable;
+    }
+
+    @Override
+    public void run() throws ScriptExecutionException {
+      try {
+        m_callable.call();
+      }
+      catch (Exception e) {
+        throw new JavaScriptExecutionException(
+          "Worker thread raised exception", e);
+      }
+    }
+  }
+
+  private static final class RunnableWorkerRunnable
+    extends AbstractWorkerRunnable {
+
+    private final Runnable m_runnable;
+
+    private RunnableWorkerRunnable(Runnable runnable) {
+      super(runnable);
+      m_runnable = runnable;
+    }
+
+    @Override
+    public void run() throws ScriptExecutionException {
+      try {
+        m_runnable.run();
+      }
+      catch (RuntimeException e) {
+        throw new JavaScriptExecutionException(
+          "Worker thread raised exception", e);
+      }
+    }
+  }
+}
@@ -3,22 +3,55 @@ package net.grinder.scriptengine.java;
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
 
 import net.grinder.engine.common.EngineException;
 import net.grinder.engine.common.ScriptLocation;
+import net.grinder.script.Grinder;
 import net.grinder.scriptengine.DCRContext;
 import net.grinder.scriptengine.Instrumenter;
 import net.grinder.scriptengine.ScriptEngineService;
+import net.grinder.util.FileExtensionMatcher;
 
 
 /**
  * Java {@link ScriptEngineService} implementation.
  *
+ * <p>
+ * Handles {@code .java} scripts, which are compiled in-process, and
+ * {@code .jar} scripts, which name the TestRunner class with a
+ * {@value #TEST_RUNNER_ATTRIBUTE} manifest attribute. Any other jar files in
+ * the script's directory or the working directory are added to the class
+ * path.
+ * </p>
+ *
  * @author Philip Aston
  */
 public final class JavaScriptEngineService implements ScriptEngineService {
 
+  /**
+   * Manifest attribute that names the TestRunner class of a jar script.
+   */
+  public static final String TEST_RUNNER_ATTRIBUTE = "Grinder-TestRunner";
+
+  private final FileExtensionMatcher m_javaFileMatcher =
+    new FileExtensionMatcher(".java");
+
+  private final FileExtensionMatcher m_jarFileMatcher =
+    new FileExtensionMatcher(".jar");
+
   private final DCRContext m_dcrContext;
 
   /**
@@ -55,6 +88,169 @@ public final class JavaScriptEngineService implements ScriptEngineService {
    */
   @Override public ScriptEngine createScriptEngine(ScriptLocation script)
     throws EngineException {
+
+    final File file = script.getFile();
+
+    if (m_javaFileMatcher.accept(file)) {
+      final List<File> libraries = findLibraries(script);
+
+      final StringBuilder classPath = new StringBuilder(getGrinderClassPath());
+
+      for (File library : libraries) {
+        classPath.append(File.pathSeparatorChar).append(library.getPath());
+      }
+
+      final URLClassLoader classLoader = createClassLoader(toURLs(libraries));
+
+      try {
+        return new JavaScriptEngine(
+          new JavaScriptCompiler().compile(file,
+                                           classPath.toString(),
+                                           classLoader),
+          classLoader);
+      }
+      catch (EngineException e) {
+        close(classLoader);
+        throw e;
+      }
+    }
+
+    if (m_jarFileMatcher.accept(file)) {
+      final String className = getTestRunnerClassName(file);
+
+      final List<URL> urls = toURLs(asList(file));
+      urls.addAll(toURLs(findLibraries(script)));
+
+      final URLClassLoader classLoader = createClassLoader(urls);
+
+      try {
+        return new JavaScriptEngine(
+          Class.forName(className, false, classLoader), classLoader);
+      }
+      catch (ClassNotFoundException e) {
+        close(classLoader);
+        throw new JavaScriptExecutionException(
+          "Could not find the TestRunner class " + className, e);
+      }
+      catch (EngineException e) {
+        close(classLoader);
+        throw e;
+      }
+    }
+
     return null;
   }
+
+  private URLClassLoader createClassLoader(List<URL> urls) {
+    return new URLClassLoader(urls.toArray(new URL[urls.size()]),
+                              getClass().getClassLoader());
+  }
+
+  private static void close(URLClassLoader classLoader) {
+    try {
+      classLoader.close();
+    }
+    catch (IOException e) {
+      // Already failing.
+    }
+  }
+
+  private static String getTestRunnerClassName(File jar)
+    throws EngineException {
+
+    try {
+      final JarFile jarFile = new JarFile(jar);
+
+      try {
+        final Manifest manifest = jarFile.getManifest();
+
+        final String className =
+          manifest != null ?
+            manifest.getMainAttributes().getValue(TEST_RUNNER_ATTRIBUTE) :
+            null;
+
+        if (className == null) {
+          throw new JavaScriptExecutionException(
+            jar + " does not have a " + TEST_RUNNER_ATTRIBUTE +
+            " manifest attribute");
+        }
+
+        return className.trim();
+      }
+      finally {
+        jarFile.close();
+      }
+    }
+    catch (IOException e) {
+      throw new JavaScriptExecutionException("Failed to read " + jar, e);
+    }
+  }
+
+  /**
+   * The jar files in the script directory and the working directory, other
+   * than the script itself. Both directories are kept up to date by the
+   * console's file distribution.
+   */
+  private List<File> findLibraries(ScriptLocation script) {
+    final Set<File> result = new LinkedHashSet<File>();
+
+    for (File directory : asList(script.getFile().getParentFile(),
+                                 script.getDirectory().getFile())) {
+      final File[] jars =
+        directory.getAbsoluteFile().listFiles(m_jarFileMatcher);
+
+      if (jars != null) {
+        for (File jar : jars) {
+          result.add(jar.getAbsoluteFile());
+        }
+      }
+    }
+
+    result.remove(script.getFile());
+
+    return new ArrayList<File>(result);
+  }
+
+  private static List<URL> toURLs(List<File> files) throws EngineException {
+    final List<URL> result = new ArrayList<URL>(files.size());
+
+    for (File file : files) {
+      try {
+        result.add(file.toURI().toURL());
+      }
+      catch (MalformedURLException e) {
+        throw new EngineException("Invalid class path entry " + file, e);
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * The class path used by the worker process. The location of The Grinder
+   * classes is added explicitly, since it is not on the system class path if
+   * the worker was started in an isolated class loader.
+   */
+  private static String getGrinderClassPath() {
+    final StringBuilder result =
+      new StringBuilder(System.getProperty("java.class.path", ""));
+
+    final CodeSource codeSource =
+      Grinder.class.getProtectionDomain().getCodeSource();
+
+    if (codeSource != null && codeSource.getLocation() != null) {
+      try {
+        result.append(File.pathSeparatorChar)
+              .append(new File(codeSource.getLocation().toURI()).getPath());
+      }
+      catch (URISyntaxException e) {
+        // Rely on the system class path.
+      }
+      catch (IllegalArgumentException e) {
+        // Not a file URL; rely on the system class path.
+      }
+    }
+
+    return result.toString();
+  }
 }
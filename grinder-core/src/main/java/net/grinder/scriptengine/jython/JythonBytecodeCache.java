@@ -0,0 +1,387 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.scriptengine.jython;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import net.grinder.util.StreamCopier;
+
+import org.python.core.BytecodeLoader;
+import org.python.core.Py;
+import org.python.core.PyCode;
+import org.python.core.PyList;
+import org.python.core.PyModule;
+import org.python.core.PyObject;
+import org.python.core.PyString;
+import org.python.core.PySystemState;
+import org.python.core.imp;
+
+
+/**
+ * Persistent cache of compiled Jython code.
+ *
+ * <p>
+ * Each worker process compiles the test script and the modules it imports
+ * from scratch. The cache stores the compiled code in a directory that is
+ * shared by all the worker processes of an agent, and that lasts between
+ * runs. Entries are keyed by a digest of the source, its name and location,
+ * and the Jython version, so a change to a distributed file or an upgrade of
+ * Jython results in a new entry rather than stale code.
+ * </p>
+ *
+ * <p>
+ * The cache also acts as a PEP 302 importer for modules found in the script
+ * directory or the working directory. It is public so that Jython can call
+ * {@link #find_module} and {@link #load_module}.
+ * </p>
+ *
+ * @author Philip Aston
+ */
+public final class JythonBytecodeCache {
+
+  private static final String SUFFIX = ".class";
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  private final PySystemState m_systemState;
+  private final File m_directory;
+  private final String m_version;
+  private final File[] m_roots;
+
+  /**
+   * Constructor.
+   *
+   * @param systemState
+   *          The Jython system state.
+   * @param directory
+   *          Directory in which to store compiled code. Created on demand.
+   * @param version
+   *          The Jython version.
+   * @param roots
+   *          Directories containing modules that should be imported via the
+   *          cache.
+   */
+  JythonBytecodeCache(final PySystemState systemState,
+                      final File directory,
+                      final String version,
+                      final File... roots) {
+    m_systemState = systemState;
+    m_directory = directory;
+    m_version = version;
+    m_roots = new File[roots.length];
+
+    for (int i = 0; i < roots.length; ++i) {
+      m_roots[i] = roots[i].getAbsoluteFile();
+    }
+  }
+
+  /**
+   * Return the compiled code for a source file, compiling and caching it if
+   * necessary.
+   *
+   * <p>
+   * Failures to write to the cache are ignored.
+   * </p>
+   *
+   * @param sourceFile
+   *          The source file.
+   * @param name
+   *          The module name.
+   * @return The code.
+   * @throws IOException
+   *           If the source file could not be read.
+   */
+  PyCode getCode(final File sourceFile, final String name)
+    throws IOException {
+
+    final byte[] source = readFile(sourceFile);
+    final String filename = sourceFile.getPath();
+
+    final File cacheFile =
+      new File(m_directory, digest(name, filename, source) + SUFFIX);
+
+    byte[] compiled = null;
+
+    if (cacheFile.isFile()) {
+      try {
+        compiled = readFile(cacheFile);
+      }
+      catch (final IOException e) {
+        // Treat as a cache miss.
+      }
+    }
+
+    if (compiled == null) {
+      compiled =
+        imp.compileSource(name, new ByteArrayInputStream(source), filename);
+
+      store(cacheFile, compiled);
+    }
+
+    return BytecodeLoader.makeCode(name + "$py", compiled, filename);
+  }
+
+  /**
+   * PEP 302 finder.
+   *
+   * @param fullname
+   *          The full name of the module.
+   * @param path
+   *          The parent package's {@code __path__}, or {@code None} for a
+   *          top level module.
+   * @return This object if the module is found in one of our directories,
+   *         otherwise {@code None}.
+   */
+  public PyObject find_module(final String fullname, final PyObject path) {
+    return findSource(fullname, path) != null ? Py.java2py(this) : Py.None;
+  }
+
+  /**
+   * PEP 302 finder.
+   *
+   * @param fullname
+   *          The full name of the top level module.
+   * @return This object if the module is found in one of our directories,
+   *         otherwise {@code None}.
+   */
+  public PyObject find_module(final String fullname) {
+    return find_module(fullname, Py.None);
+  }
+
+  /**
+   * PEP 302 loader.
+   *
+   * @param fullname
+   *          The full name of the module.
+   * @return The module.
+   */
+  public PyObject load_module(final String fullname) {
+    final PyObject existing = m_systemState.modules.__finditem__(fullname);
+
+    if (existing != null) {
+      return existing;
+    }
+
+    final File source = findSource(fullname, parentPath(fullname));
+
+    if (source == null) {
+      throw Py.ImportError("No module named " + fullname);
+    }
+
+    final PyCode code;
+
+    try {
+      code = getCode(source, fullname);
+    }
+    catch (final IOException e) {
+      throw Py.ImportError(
+        "Failed to read " + source + ": " + e.getMessage());
+    }
+
+    if (isPackageInitialiser(source)) {
+      final PyModule module = imp.addModule(fullname);
+      module.__setattr__("__path__",
+        new PyList(
+          new PyObject[] { new PyString(source.getParent()) }));
+    }
+
+    imp.createFromCode(fullname, code, source.getPath());
+
+    return m_systemState.modules.__finditem__(fullname);
+  }
+
+  private PyObject parentPath(final String fullname) {
+    final int lastDot = fullname.lastIndexOf('.');
+
+    if (lastDot < 0) {
+      return Py.None;
+    }
+
+    final PyObject parent =
+      m_systemState.modules.__finditem__(fullname.substring(0, lastDot));
+
+    if (parent == null) {
+      return null;
+    }
+
+    // Null if the parent is not a package.
+    return parent.__findattr__("__path__");
+  }
+
+  private File findSource(final String fullname, final PyObject path) {
+    if (path == null) {
+      return null;
+    }
+
+    final String name = fullname.substring(fullname.lastIndexOf('.') + 1);
+
+    if (path == Py.None) {
+      if (isBuiltin(name)) {
+        return null;
+      }
+
+      for (final File root : m_roots) {
+        final File result = findSource(root, name);
+
+        if (result != null) {
+          return result;
+        }
+      }
+
+      return null;
+    }
+
+    for (final PyObject entry : path.asIterable()) {
+      final File directory = new File(entry.toString()).getAbsoluteFile();
+
+      if (isUnderRoot(directory)) {
+        final File result = findSource(directory, name);
+
+        if (result != null) {
+          return result;
+        }
+      }
+    }
+
+    return null;
+  }
+
+  private static File findSource(final File directory, final String name) {
+    final File packageInitialiser =
+      new File(new File(directory, name), "__init__.py");
+
+    if (packageInitialiser.isFile()) {
+      return packageInitialiser;
+    }
+
+    final File module = new File(directory, name + ".py");
+
+    if (module.isFile()) {
+      return module;
+    }
+
+    return null;
+  }
+
+  private static boolean isPackageInitialiser(final File file) {
+    return "__init__.py".equals(file.getName());
+  }
+
+  private boolean isBuiltin(final String name) {
+    return PySystemState.builtin_module_names.__contains__(
+      new PyString(name));
+  }
+
+  private boolean isUnderRoot(final File directory) {
+    for (File f = directory; f != null; f = f.getParentFile()) {
+      for (final File root : m_roots) {
+        if (root.equals(f)) {
+          return true;
+        }
+      }
+    }
+
+    return false;
+  }
+
+  private String digest(final String name,
+                        final String filename,
+                        final byte[] source) {
+    final MessageDigest digest;
+
+    try {
+      digest = MessageDigest.getInstance("SHA-1");
+    }
+    catch (final NoSuchAlgorithmException e) {
+      throw new AssertionError(e);
+    }
+
+    for (final String s : new String[] { m_version, name, filename }) {
+      digest.update(s.getBytes(UTF8));
+      digest.update((byte)0);
+    }
+
+    digest.update(source);
+
+    final StringBuilder result = new StringBuilder();
+
+    for (final byte b : digest.digest()) {
+      result.append(Character.forDigit((b >> 4) & 0xF, 16));
+      result.append(Character.forDigit(b & 0xF, 16));
+    }
+
+    return result.toString();
+  }
+
+  /**
+   * Write an entry. Several worker processes might compile the same code at
+   * the same time, so we write to a temporary file and rename it.
+   */
+  private void store(final File cacheFile, final byte[] compiled) {
+    File temporaryFile = null;
+
+    try {
+      m_directory.mkdirs();
+
+      temporaryFile = File.createTempFile("compiling", ".tmp", m_directory);
+
+      final OutputStream out = new FileOutputStream(temporaryFile);
+
+      try {
+        out.write(compiled);
+      }
+      finally {
+        out.close();
+      }
+
+      if (temporaryFile.renameTo(cacheFile)) {
+        temporaryFile = null;
+      }
+    }
+    catch (final IOException e) {
+      // Not fatal; we'll compile again next time.
+    }
+    finally {
+      if (temporaryFile != null) {
+        temporaryFile.delete();
+      }
+    }
+  }
+
+  private static byte[] readFile(final File file) throws IOException {
+    final InputStream in = new FileInputStream(file);
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    new StreamCopier(4096, true).copy(in, out);
+
+    return out.toByteArray();
+  }
+}
@@ -23,6 +23,7 @@
 package net.grinder.scriptengine.jython;
 
 import java.io.File;
+import java.io.IOException;
 
 import net.grinder.engine.common.EngineException;
 import net.grinder.engine.common.ScriptLocation;
@@ -31,6 +32,7 @@ import net.grinder.scriptengine.ScriptEngineService.ScriptEngine;
 import net.grinder.scriptengine.ScriptEngineService.WorkerRunnable;
 import net.grinder.scriptengine.ScriptExecutionException;
 
+import org.python.core.Py;
 import org.python.core.PyClass;
 import org.python.core.PyException;
 import org.python.core.PyObject;
@@ -69,31 +71,23 @@ final class JythonScriptEngine implements ScriptEngine {
    */
   public JythonScriptEngine(final ScriptLocation script)
       throws EngineException {
+    this(script, null);
+  }
 
-    // Work around Jython issue 1894900.
-    // If the python.cachedir has not been specified, and Jython is loaded
-    // via the manifest classpath or the jar in the lib directory is
-    // explicitly mentioned in the CLASSPATH, then set the cache directory to
-    // be alongside jython.jar.
-    if (System.getProperty(PYTHON_HOME) == null &&
-        System.getProperty(PYTHON_CACHEDIR) == null) {
-      final String classpath = System.getProperty("java.class.path");
-
-      final File grinderJar = findFileInPath(classpath, "grinder.jar");
-      final File grinderJarDirectory =
-        grinderJar != null ? grinderJar.getParentFile() : new File(".");
+  /**
+   * Constructor for JythonScriptEngine.
+   *
+   * @param script The script.
+   * @param cacheDirectory
+   *          Directory in which to cache compiled code, or {@code null} if
+   *          code should not be cached.
+   * @throws EngineException If the script engine could not be created.
+   */
+  public JythonScriptEngine(final ScriptLocation script,
+                            final File cacheDirectory)
+      throws EngineException {
 
-      final File jythonJar = findFileInPath(classpath, "jython.jar");
-      final File jythonHome =
-        jythonJar != null ? jythonJar.getParentFile() : grinderJarDirectory;
-
-      if (grinderJarDirectory == null && jythonJar == null ||
-          grinderJarDirectory != null &&
-          grinderJarDirectory.equals(jythonHome)) {
-        final File cacheDir = new File(jythonHome, CACHEDIR_DEFAULT_NAME);
-        System.setProperty("python.cachedir", cacheDir.getAbsolutePath());
-      }
-    }
+    configureCacheDirectory();
 
     m_systemState = new PySystemState();
     m_interpreter = new PythonInterpreter(null, m_systemState);
@@ -124,9 +118,12 @@ final class JythonScriptEngine implements ScriptEngine {
     m_systemState.path.insert(1,
       new PyString(script.getDirectory().getFile().getPath()));
 
+    final JythonBytecodeCache cache =
+      createCache(cacheDirectory, script, m_version);
+
     try {
       // Run the test script, script does global set up here.
-      m_interpreter.execfile(script.getFile().getPath());
+      runScript(cache, script.getFile());
     }
     catch (final PyException e) {
       throw new JythonScriptExecutionException("initialising test script", e);
@@ -142,6 +139,91 @@ final class JythonScriptEngine implements ScriptEngine {
     }
   }
 
+  /**
+   * Work around Jython issue 1894900.
+   *
+   * <p>
+   * If the python.cachedir has not been specified, and Jython is loaded via
+   * the manifest classpath or the jar in the lib directory is explicitly
+   * mentioned in the CLASSPATH, then set the cache directory to be alongside
+   * jython.jar.
+   * </p>
+   */
+  static void configureCacheDirectory() {
+    if (System.getProperty(PYTHON_HOME) == null &&
+        System.getProperty(PYTHON_CACHEDIR) == null) {
+      final String classpath = System.getProperty("java.class.path");
+
+      final File grinderJar = findFileInPath(classpath, "grinder.jar");
+      final File grinderJarDirectory =
+        grinderJar != null ? grinderJar.getParentFile() : new File(".");
+
+      final File jythonJar = findFileInPath(classpath, "jython.jar");
+      final File jythonHome =
+        jythonJar != null ? jythonJar.getParentFile() : grinderJarDirectory;
+
+      if (grinderJarDirectory == null && jythonJar == null ||
+          grinderJarDirectory != null &&
+          grinderJarDirectory.equals(jythonHome)) {
+        final File cacheDir = new File(jythonHome, CACHEDIR_DEFAULT_NAME);
+        System.setProperty("python.cachedir", cacheDir.getAbsolutePath());
+      }
+    }
+  }
+
+  /**
+   * Create a cache for compiled code, and install it as an importer for
+   * modules found in the script directory or the working directory.
+   *
+   * @return The cache, or {@code null} if there is no cache directory or the
+   *         Jython version does not support import hooks.
+   */
+  private JythonBytecodeCache createCache(final File cacheDirectory,
+                                          final ScriptLocation script,
+                                          final String version) {
+    if (cacheDirectory == null) {
+      return null;
+    }
+
+    final JythonBytecodeCache cache =
+      new JythonBytecodeCache(m_systemState,
+                              cacheDirectory,
+                              version,
+                              script.getFile().getAbsoluteFile()
+                                .getParentFile(),
+                              script.getDirectory().getFile());
+
+    try {
+      m_systemState.meta_path.insert(0, Py.java2py(cache));
+    }
+    catch (final LinkageError e) {
+      // Older versions of Jython have no sys.meta_path.
+      return null;
+    }
+
+    return cache;
+  }
+
+  /**
+   * Run the script, using cached code if possible.
+   */
+  private void runScript(final JythonBytecodeCache cache, final File file) {
+    if (cache != null) {
+      try {
+        m_interpreter.exec(cache.getCode(file, "__main__"));
+        return;
+      }
+      catch (final IOException e) {
+        // Fall back to the interpreter.
+      }
+      catch (final LinkageError e) {
+        // Older versions of Jython lack the compilation APIs we use.
+      }
+    }
+
+    m_interpreter.execfile(file.getPath());
+  }
+
   /**
    * Find a file, given a search path.
    *
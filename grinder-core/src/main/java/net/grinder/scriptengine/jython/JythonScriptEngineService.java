@@ -22,6 +22,7 @@
 
 package net.grinder.scriptengine.jython;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -36,6 +37,8 @@ import net.grinder.scriptengine.jython.instrumentation.dcr.Jython25Instrumenter;
 import net.grinder.util.FileExtensionMatcher;
 import net.grinder.util.weave.WeavingException;
 
+import org.python.core.PySystemState;
+
 
 /**
  * Jython {@link ScriptEngineService} implementation.
@@ -44,10 +47,19 @@ import net.grinder.util.weave.WeavingException;
  */
 public final class JythonScriptEngineService implements ScriptEngineService {
 
+  /**
+   * Property that specifies a directory in which compiled Jython code is
+   * cached. If not set, scripts are compiled each time a worker process
+   * starts.
+   */
+  public static final String CACHE_DIRECTORY_PROPERTY =
+    "grinder.jython.cacheDirectory";
+
   private final FileExtensionMatcher m_pyFileMatcher =
     new FileExtensionMatcher(".py");
 
   private final DCRContext m_dcrContext;
+  private final File m_cacheDirectory;
 
   /**
    * Constructor.
@@ -60,6 +72,7 @@ public final class JythonScriptEngineService implements ScriptEngineService {
                                    DCRContext dcrContext,
                                    ScriptLocation scriptLocation) {
     m_dcrContext = dcrContext;
+    m_cacheDirectory = properties.getFile(CACHE_DIRECTORY_PROPERTY, null);
   }
 
   /**
@@ -67,6 +80,19 @@ public final class JythonScriptEngineService implements ScriptEngineService {
    */
   public JythonScriptEngineService() {
     m_dcrContext = null;
+    m_cacheDirectory = null;
+  }
+
+  /**
+   * Initialise Jython in advance of the first script engine being created.
+   *
+   * <p>
+   * Called by worker processes that are started before they are needed.
+   * </p>
+   */
+  public static void warmUp() {
+    JythonScriptEngine.configureCacheDirectory();
+    PySystemState.initialize();
   }
 
   /**
@@ -99,7 +125,7 @@ public final class JythonScriptEngineService implements ScriptEngineService {
     throws EngineException {
 
     if (m_pyFileMatcher.accept(script.getFile())) {
-      return new JythonScriptEngine(script);
+      return new JythonScriptEngine(script, m_cacheDirectory);
     }
 
     return null;
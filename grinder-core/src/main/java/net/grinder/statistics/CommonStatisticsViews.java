@@ -21,6 +21,8 @@
 
 package net.grinder.statistics;
 
+import java.util.concurrent.TimeUnit;
+
 
 /**
  * Provides references to commonly used {@link StatisticsView}s.
@@ -36,6 +38,23 @@ final class CommonStatisticsViews {
   private final StatisticExpression m_tpsExpression;
 
   CommonStatisticsViews(StatisticExpressionFactory expressionFactory) {
+    this(expressionFactory, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param expressionFactory
+   *          Used to create the views.
+   * @param reportTimeUnit
+   *          The unit that test times are reported in, used to label the
+   *          summary views.
+   */
+  CommonStatisticsViews(StatisticExpressionFactory expressionFactory,
+                        TimeUnit reportTimeUnit) {
+
+    final String unit = " (" + abbreviate(reportTimeUnit) + ")";
+
     try {
       final ExpressionView[] detailExpressionViews = {
         expressionFactory.createExpressionView(
@@ -65,14 +84,26 @@ final class CommonStatisticsViews {
           "errors",
           true),
         expressionFactory.createExpressionView(
-          "Mean Test Time (ms)",
+          "Mean Test Time" + unit,
           "(/ (sum timedTests) (count timedTests))",
           false),
         expressionFactory.createExpressionView(
-          "Test Time Standard Deviation (ms)",
+          "Test Time Standard Deviation" + unit,
           "(sqrt (variance timedTests))",
           false),
         expressionFactory.createExpressionView("TPS", m_tpsExpression),
+        expressionFactory.createExpressionView(
+          "Median Test Time" + unit,
+          "(percentile timedTests 50)",
+          false),
+        expressionFactory.createExpressionView(
+          "95th Percentile Test Time" + unit,
+          "(percentile timedTests 95)",
+          false),
+        expressionFactory.createExpressionView(
+          "99th Percentile Test Time" + unit,
+          "(percentile timedTests 99)",
+          false),
       };
 
       for (int i = 0; i < summaryExpressionViews.length; ++i) {
@@ -84,6 +115,16 @@ final class CommonStatisticsViews {
     }
   }
 
+  private static String abbreviate(TimeUnit unit) {
+    switch (unit) {
+      case NANOSECONDS: return "ns";
+      case MICROSECONDS: return "us";
+      case MILLISECONDS: return "ms";
+      case SECONDS: return "s";
+      default: return unit.name().toLowerCase();
+    }
+  }
+
   /**
    * Get the detail {@link StatisticsView}.
    *
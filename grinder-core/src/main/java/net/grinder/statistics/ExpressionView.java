@@ -47,6 +47,15 @@ package net.grinder.statistics;
  * For example, the statistic expression <code>(/ (sum timedTests)
  * (count timedTests))</code>
  * represents the mean test time in milliseconds.
+ * </p>
+ *
+ * <p>
+ * Sample statistics that maintain a histogram (currently just
+ * <em>timedTests</em>) can also be introduced with <code>percentile</code>,
+ * followed by the percentile required. For example,
+ * <code>(percentile timedTests 99.9)</code> is the test time in milliseconds
+ * that 99.9% of tests completed within.
+ * </p>
  *
  * @author Philip Aston
  */
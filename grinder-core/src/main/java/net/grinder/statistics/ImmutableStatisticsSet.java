@@ -88,6 +88,45 @@ public interface ImmutableStatisticsSet {
    */
   double getVariance(StatisticsIndexMap.SampleIndex index);
 
+  /**
+   * Get the value at a given percentile for the sample statistic specified by
+   * <code>index</code>.
+   *
+   * <p>
+   * Percentiles are calculated from a histogram, so the result is approximate.
+   * The error is within 1/16th of the value.
+   * </p>
+   *
+   * @param index The index.
+   * @param percentile The percentile, between 0 and 100.
+   * @return The value, or <code>0</code> if there are no samples or the
+   * sample statistic does not maintain a histogram.
+   */
+  long getPercentile(StatisticsIndexMap.LongSampleIndex index,
+                     double percentile);
+
+  /**
+   * Count the samples of the sample statistic specified by
+   * <code>index</code> that are no greater than each of a number of values.
+   *
+   * <p>
+   * Counts are calculated from a histogram, so the result is approximate. A
+   * sample is only counted if every value held by its histogram bucket is no
+   * greater than the value, so the counts err on the side of
+   * under-estimating.
+   * </p>
+   *
+   * @param index The index.
+   * @param values The values, in ascending order.
+   * @param counts Receives the count for each value. Must be at least as
+   * long as <code>values</code>.
+   * @return <code>false</code> if the sample statistic does not maintain a
+   * histogram, in which case <code>counts</code> is unchanged.
+   */
+  boolean getCumulativeCounts(StatisticsIndexMap.LongSampleIndex index,
+                              long[] values,
+                              long[] counts);
+
   /**
    * Return whether all the statistics are zero. This allows us to optimise
    * cases where there's no information to be processed.
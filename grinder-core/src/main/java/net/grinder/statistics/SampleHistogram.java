@@ -0,0 +1,193 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+
+package net.grinder.statistics;
+
+
+/**
+ * Bucket arithmetic for the sample value histograms held by a
+ * {@link StatisticsSetImplementation}.
+ *
+ * <p>
+ * The layout is log-linear, in the style of an HDR histogram. Values less than
+ * {@link #EXACT_VALUES} each have their own bucket. Above that, each power of
+ * two range is divided into {@link #SUB_BUCKETS} equal width buckets, so a
+ * bucket never spans more than 1/16th of its lowest value. Values that are too
+ * large to fit are recorded in the last bucket.
+ * </p>
+ *
+ * <p>
+ * Histograms are plain <code>long[]</code> arrays of bucket counts. This keeps
+ * merging them as cheap as adding arrays, and allows sparse serialisation.
+ * </p>
+ *
+ * @author Philip Aston
+ */
+final class SampleHistogram {
+
+  private static final int SUB_BUCKET_BITS = 4;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int EXACT_VALUES = SUB_BUCKETS * 2;
+  private static final int FIRST_MAGNITUDE = SUB_BUCKET_BITS + 1;
+  private static final int LAST_MAGNITUDE = 39;
+
+  /**
+   * Number of buckets in a histogram.
+   */
+  static final int NUMBER_OF_BUCKETS =
+    EXACT_VALUES + (LAST_MAGNITUDE - FIRST_MAGNITUDE + 1) * SUB_BUCKETS;
+
+  private SampleHistogram() {
+  }
+
+  /**
+   * Find the bucket that records a value.
+   *
+   * @param value The value. Negative values are treated as zero.
+   * @return The bucket index.
+   */
+  static int bucketFor(long value) {
+    if (value < EXACT_VALUES) {
+      return value > 0 ? (int)value : 0;
+    }
+
+    final int magnitude = 63 - Long.numberOfLeadingZeros(value);
+
+    if (magnitude > LAST_MAGNITUDE) {
+      return NUMBER_OF_BUCKETS - 1;
+    }
+
+    final int subBucket =
+      (int)(value >>> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+
+    return EXACT_VALUES +
+           (magnitude - FIRST_MAGNITUDE) * SUB_BUCKETS +
+           subBucket;
+  }
+
+  /**
+   * The highest value that is recorded by a bucket.
+   *
+   * @param bucket The bucket index.
+   * @return The value.
+   */
+  static long highestValue(int bucket) {
+    if (bucket < EXACT_VALUES) {
+      return bucket;
+    }
+
+    final int offset = bucket - EXACT_VALUES;
+    final int magnitude = FIRST_MAGNITUDE + offset / SUB_BUCKETS;
+    final int subBucket = offset % SUB_BUCKETS;
+    final int shift = magnitude - SUB_BUCKET_BITS;
+
+    return ((long)(SUB_BUCKETS + subBucket + 1) << shift) - 1;
+  }
+
+  /**
+   * Record a value.
+   *
+   * @param histogram The histogram.
+   * @param value The value.
+   */
+  static void record(long[] histogram, long value) {
+    ++histogram[bucketFor(value)];
+  }
+
+  /**
+   * Add the counts of one histogram to another.
+   *
+   * @param histogram The histogram to update.
+   * @param operand The histogram to add.
+   */
+  static void add(long[] histogram, long[] operand) {
+    for (int i = 0; i < histogram.length; ++i) {
+      histogram[i] += operand[i];
+    }
+  }
+
+  /**
+   * Count the values recorded in a histogram that are no greater than each
+   * of a number of values. A bucket is only counted if its highest value is
+   * no greater than the value.
+   *
+   * @param histogram The histogram.
+   * @param values The values, in ascending order.
+   * @param counts Receives the count for each value.
+   */
+  static void cumulativeCounts(long[] histogram,
+                               long[] values,
+                               long[] counts) {
+    long total = 0;
+    int v = 0;
+
+    for (int i = 0; i < histogram.length && v < values.length; ++i) {
+      final long highestValue = highestValue(i);
+
+      while (v < values.length && highestValue > values[v]) {
+        counts[v++] = total;
+      }
+
+      total += histogram[i];
+    }
+
+    while (v < values.length) {
+      counts[v++] = total;
+    }
+  }
+
+  /**
+   * Calculate the value at a given percentile.
+   *
+   * <p>
+   * The result is the highest value equivalent to the bucket that holds the
+   * percentile, so it errs on the side of over-estimating.
+   * </p>
+   *
+   * @param histogram The histogram.
+   * @param count The total number of values recorded in the histogram.
+   * @param percentile The percentile, between 0 and 100.
+   * @return The value, or <code>0</code> if <code>count</code> is zero.
+   */
+  static long valueAtPercentile(long[] histogram,
+                                long count,
+                                double percentile) {
+    if (count <= 0) {
+      return 0;
+    }
+
+    final double bounded = Math.min(Math.max(percentile, 0), 100);
+    final long target = Math.max((long)Math.ceil(bounded / 100 * count), 1);
+
+    long total = 0;
+
+    for (int i = 0; i < histogram.length; ++i) {
+      total += histogram[i];
+
+      if (total >= target) {
+        return highestValue(i);
+      }
+    }
+
+    return highestValue(histogram.length - 1);
+  }
+}
@@ -147,6 +147,9 @@ final class StatisticExpressionFactoryImplementation
       else if ("variance".equals(operation)) {
         result = createSampleVariance(parseContext);
       }
+      else if ("percentile".equals(operation)) {
+        result = createSamplePercentile(parseContext);
+      }
       else if ("sqrt".equals(operation)) {
         result = createSquareRoot(readExpression(parseContext));
       }
@@ -478,6 +481,52 @@ final class StatisticExpressionFactoryImplementation
     return result;
   }
 
+  /**
+   * Create an accessor for a percentile of a sample's values. Only long
+   * sample statistics that maintain a histogram support percentiles.
+   *
+   * @param parseContext The parse context.
+   * @return The resulting expression.
+   * @throws ParseException If the parse failed.
+   */
+  private StatisticExpression createSamplePercentile(ParseContext parseContext)
+    throws ParseContext.ParseException {
+
+    final String token = parseContext.readToken();
+
+    final LongSampleIndex longSampleIndex =
+      m_indexMap.getLongSampleIndex(token);
+
+    if (longSampleIndex == null ||
+        longSampleIndex.getHistogramIndex() == null) {
+      throw parseContext.createParseException(
+        "Can't apply percentile to sample index '" + token +
+        "' which has no histogram");
+    }
+
+    final String percentileToken = parseContext.readToken();
+    final double percentile;
+
+    try {
+      percentile = Double.parseDouble(percentileToken);
+    }
+    catch (NumberFormatException e) {
+      throw parseContext.createParseException(
+        "Invalid percentile '" + percentileToken + "'");
+    }
+
+    if (!(percentile >= 0 && percentile <= 100)) {
+      throw parseContext.createParseException(
+        "Percentile '" + percentileToken + "' is not between 0 and 100");
+    }
+
+    return new LongStatistic() {
+        public long getValue(StatisticsSet statisticsSet) {
+          return statisticsSet.getPercentile(longSampleIndex, percentile);
+        }
+      };
+  }
+
   /**
    * Create a square root.
    *
@@ -27,6 +27,7 @@ import static java.util.Arrays.asList;
 
 import java.io.Serializable;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -58,6 +59,12 @@ import java.util.Map;
  * (e.g. <em>count()</em>), see {@link ExpressionView}.
  * </p>
  *
+ * <p>
+ * Some long sample statistics (currently just <em>timedTests</em>) also
+ * maintain a histogram of their sample values, allowing percentiles to be
+ * queried with the <em>percentile()</em> expression function.
+ * </p>
+ *
  * @author Philip Aston
  */
 public final class StatisticsIndexMap implements Serializable {
@@ -79,6 +86,7 @@ public final class StatisticsIndexMap implements Serializable {
   // as the sample indicies also use slots.
   private final int m_numberOfDoubles;
   private final int m_numberOfLongs;
+  private final int m_numberOfHistograms;
 
   /**
    * Special slot for the HTTP plugin so it doesn't steal "user"
@@ -115,6 +123,27 @@ public final class StatisticsIndexMap implements Serializable {
   public static final String HTTP_PLUGIN_CONNECT_TIME_KEY =
     "httpplugin.connectTime";
 
+  /**
+   * Special slot for the HTTP plugin so it doesn't steal "user"
+   * indices. Use with {@link #getLongIndex(String)}.
+   */
+  public static final String HTTP_PLUGIN_SSL_HANDSHAKE_TIME_KEY =
+    "httpplugin.sslHandshakeTime";
+
+  /**
+   * Special slot for the HTTP plugin so it doesn't steal "user"
+   * indices. Use with {@link #getLongIndex(String)}.
+   */
+  public static final String HTTP_PLUGIN_SSL_FULL_HANDSHAKES =
+    "httpplugin.sslFullHandshakes";
+
+  /**
+   * Special slot for the HTTP plugin so it doesn't steal "user"
+   * indices. Use with {@link #getLongIndex(String)}.
+   */
+  public static final String HTTP_PLUGIN_SSL_SESSIONS_RESUMED =
+    "httpplugin.sslSessionsResumed";
+
   /**
    * Special slot for the HTTP plugin so it doesn't steal "user"
    * indices. Use with {@link #getLongIndex(String)}.
@@ -129,6 +158,43 @@ public final class StatisticsIndexMap implements Serializable {
   public static final String HTTP_PLUGIN_CONNECTIONS_ESTABLISHED =
     "httpplugin.connectionsEstablished";
 
+  /**
+   * Special slot for the HTTP plugin so it doesn't steal "user"
+   * indices. Use with {@link #getLongIndex(String)}.
+   */
+  public static final String HTTP_PLUGIN_CONNECTION_POOL_HITS =
+    "httpplugin.connectionPoolHits";
+
+  /**
+   * Special slot for the HTTP plugin so it doesn't steal "user"
+   * indices. Use with {@link #getLongIndex(String)}.
+   */
+  public static final String HTTP_PLUGIN_CONNECTION_POOL_MISSES =
+    "httpplugin.connectionPoolMisses";
+
+  /**
+   * Special slot for the HTTP plugin so it doesn't steal "user"
+   * indices. Use with {@link #getLongIndex(String)}.
+   */
+  public static final String HTTP_PLUGIN_CONNECTION_POOL_WAIT_TIME_KEY =
+    "httpplugin.connectionPoolWaitTime";
+
+  /**
+   * Time a run waited for a free worker thread when the worker process is
+   * scheduling runs at an arrival rate. Recorded against the first test of
+   * each run, in the reporting time unit. Use with
+   * {@link #getLongIndex(String)}.
+   */
+  public static final String QUEUEING_DELAY_KEY = "queueingDelay";
+
+  /**
+   * The number of runs that were scheduled at an arrival rate. Recorded as
+   * {@code 1} against the same test as {@link #QUEUEING_DELAY_KEY}, so the
+   * mean queueing delay is the ratio of the two. Use with
+   * {@link #getLongIndex(String)}.
+   */
+  public static final String QUEUED_RUNS_KEY = "queuedRuns";
+
   /**
    * Constructor.
    */
@@ -143,8 +209,16 @@ public final class StatisticsIndexMap implements Serializable {
                 HTTP_PLUGIN_RESPONSE_ERRORS_KEY,
                 HTTP_PLUGIN_DNS_TIME_KEY,
                 HTTP_PLUGIN_CONNECT_TIME_KEY,
+                HTTP_PLUGIN_SSL_HANDSHAKE_TIME_KEY,
+                HTTP_PLUGIN_SSL_FULL_HANDSHAKES,
+                HTTP_PLUGIN_SSL_SESSIONS_RESUMED,
                 HTTP_PLUGIN_FIRST_BYTE_TIME_KEY,
                 HTTP_PLUGIN_CONNECTIONS_ESTABLISHED,
+                HTTP_PLUGIN_CONNECTION_POOL_HITS,
+                HTTP_PLUGIN_CONNECTION_POOL_MISSES,
+                HTTP_PLUGIN_CONNECTION_POOL_WAIT_TIME_KEY,
+                QUEUEING_DELAY_KEY,
+                QUEUED_RUNS_KEY,
                 "userLong0",
                 "userLong1",
                 "userLong2",
@@ -157,6 +231,7 @@ public final class StatisticsIndexMap implements Serializable {
                 "userDouble3",
                 "userDouble4"),
          asList("period"),
+         asList("timedTests"),
          asList("timedTests"));
   }
 
@@ -176,8 +251,36 @@ public final class StatisticsIndexMap implements Serializable {
                      List<String> doubleNames,
                      List<String> transientLongNames,
                      List<String> longSampleNames) {
+    this(longNames,
+         doubleNames,
+         transientLongNames,
+         longSampleNames,
+         Collections.<String>emptyList());
+  }
+
+  /**
+   * Open constructor for use by unit tests.
+   *
+   * @param longNames
+   *          Names of long statistics.
+   * @param doubleNames
+   *          Names of double statistics.
+   * @param transientLongNames
+   *          Names of transient long statistics.
+   * @param longSampleNames
+   *          Names of long sample statistics.
+   * @param histogramSampleNames
+   *          Names of the long sample statistics that also maintain a
+   *          histogram of their values.
+   */
+  StatisticsIndexMap(List<String> longNames,
+                     List<String> doubleNames,
+                     List<String> transientLongNames,
+                     List<String> longSampleNames,
+                     List<String> histogramSampleNames) {
     int nextLongIndex = 0;
     int nextTransientLongIndex = 0;
+    int nextHistogramIndex = 0;
 
     for (String longName : longNames) {
       m_longMap.put(longName, new LongIndex(nextLongIndex++));
@@ -190,10 +293,20 @@ public final class StatisticsIndexMap implements Serializable {
     }
 
     for (String longSampleName : longSampleNames) {
+      final HistogramIndex histogramIndex;
+
+      if (histogramSampleNames.contains(longSampleName)) {
+        histogramIndex = new HistogramIndex(nextHistogramIndex++);
+      }
+      else {
+        histogramIndex = null;
+      }
+
       createLongSampleIndex(longSampleName,
                             new LongIndex(nextLongIndex++),
                             new LongIndex(nextLongIndex++),
-                            new DoubleIndex(nextDoubleIndex++));
+                            new DoubleIndex(nextDoubleIndex++),
+                            histogramIndex);
     }
 
     for (String transientLongName : transientLongNames) {
@@ -203,6 +316,7 @@ public final class StatisticsIndexMap implements Serializable {
 
     m_numberOfDoubles = nextDoubleIndex;
     m_numberOfLongs = nextLongIndex;
+    m_numberOfHistograms = nextHistogramIndex;
   }
 
   int getNumberOfDoubles() {
@@ -217,6 +331,10 @@ public final class StatisticsIndexMap implements Serializable {
     return m_transientLongMap.size();
   }
 
+  int getNumberOfHistograms() {
+    return m_numberOfHistograms;
+  }
+
   Collection<DoubleSampleIndex> getDoubleSampleIndicies() {
     return m_doubleSampleMap.values();
   }
@@ -286,14 +404,16 @@ public final class StatisticsIndexMap implements Serializable {
    * @param sumIndex Index to hold sum.
    * @param countIndex Index to hold count.
    * @param varianceIndex Index to hold variance.
+   * @param histogramIndex Index to hold histogram, or <code>null</code>.
    * @return The new index.
    */
   private LongSampleIndex createLongSampleIndex(String statisticName,
                                                 LongIndex sumIndex,
                                                 LongIndex countIndex,
-                                                DoubleIndex varianceIndex) {
+                                                DoubleIndex varianceIndex,
+                                                HistogramIndex histogramIndex) {
     final LongSampleIndex result =
-      new LongSampleIndex(sumIndex, countIndex, varianceIndex);
+      new LongSampleIndex(sumIndex, countIndex, varianceIndex, histogramIndex);
 
     m_longSampleMap.put(statisticName, result);
 
@@ -385,6 +505,18 @@ public final class StatisticsIndexMap implements Serializable {
     }
   }
 
+  /**
+   * Class of opaque objects that represent sample value histograms.
+   *
+   * <p>Histograms are only reachable through their {@link LongSampleIndex}.
+   * </p>
+   */
+  static final class HistogramIndex extends AbstractSimpleIndex {
+    private HistogramIndex(int i) {
+      super(i, false);
+    }
+  }
+
   /**
    * Base class for sample statistic indices.
    */
@@ -458,12 +590,15 @@ public final class StatisticsIndexMap implements Serializable {
    */
   public static final class LongSampleIndex extends SampleIndex {
     private final LongIndex m_sumIndex;
+    private final HistogramIndex m_histogramIndex;
 
     private LongSampleIndex(LongIndex sumIndex,
                             LongIndex countIndex,
-                            DoubleIndex varianceIndex) {
+                            DoubleIndex varianceIndex,
+                            HistogramIndex histogramIndex) {
       super(countIndex, varianceIndex);
       m_sumIndex = sumIndex;
+      m_histogramIndex = histogramIndex;
     }
 
     /**
@@ -478,5 +613,19 @@ public final class StatisticsIndexMap implements Serializable {
     LongIndex getSumIndex() {
       return m_sumIndex;
     }
+
+    /**
+     * Get the index object for our histogram.
+     *
+     * <p>Package scope to prevent direct write access. External clients should
+     * use the {@link StatisticsSet} or {@link StatisticExpression} interfaces.
+     * </p>
+     *
+     * @return The index object, or <code>null</code> if this sample statistic
+     * does not maintain a histogram.
+     */
+    HistogramIndex getHistogramIndex() {
+      return m_histogramIndex;
+    }
   }
 }
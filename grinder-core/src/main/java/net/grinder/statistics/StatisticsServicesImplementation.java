@@ -21,6 +21,9 @@
 
 package net.grinder.statistics;
 
+import java.util.concurrent.TimeUnit;
+
+
 /**
  * Singleton that is the point of entry for {@link StatisticsServices}.
  *
@@ -53,6 +56,28 @@ public final class StatisticsServicesImplementation
     return s_instance;
   }
 
+  /**
+   * Accessor for a worker process that reports test times in a particular
+   * unit. The result shares the singleton's statistics indices and
+   * factories, but its summary view labels test times with the unit.
+   *
+   * @param reportTimeUnit The unit that test times are reported in.
+   * @return The statistics services.
+   */
+  public static StatisticsServices getInstance(TimeUnit reportTimeUnit) {
+    if (reportTimeUnit == TimeUnit.MILLISECONDS) {
+      return s_instance;
+    }
+
+    return new StatisticsServicesImplementation(
+      new CommonStatisticsViews(s_instance.m_statisticExpressionFactory,
+                                reportTimeUnit),
+      s_instance.m_statisticExpressionFactory,
+      s_instance.m_statisticsSetFactory,
+      s_instance.m_statisticsIndexMap,
+      s_instance.m_testStatisticsQueries);
+  }
+
   private final CommonStatisticsViews m_commonStatisticsViews;
   private final StatisticExpressionFactory m_statisticExpressionFactory;
   private final StatisticsSetFactory m_statisticsSetFactory;
@@ -21,9 +21,9 @@
 
 package net.grinder.statistics;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
-import java.io.ObjectInput;
-import java.io.ObjectOutput;
 
 import net.grinder.util.Serialiser;
 
@@ -51,13 +51,13 @@ public final class StatisticsSetFactory {
     return new StatisticsSetImplementation(m_statisticsIndexMap);
   }
 
-  void writeStatisticsExternal(ObjectOutput out,
+  void writeStatisticsExternal(DataOutput out,
                                StatisticsSetImplementation statistics)
     throws IOException {
     statistics.writeExternal(out, m_serialiser);
   }
 
-  StatisticsSet readStatisticsExternal(ObjectInput in) throws IOException {
+  StatisticsSet readStatisticsExternal(DataInput in) throws IOException {
     return new StatisticsSetImplementation(m_statisticsIndexMap,
                                            in,
                                            m_serialiser);
@@ -21,13 +21,14 @@
 
 package net.grinder.statistics;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
-import java.io.ObjectInput;
-import java.io.ObjectOutput;
 import java.util.Arrays;
 
 import net.grinder.statistics.StatisticsIndexMap.DoubleIndex;
 import net.grinder.statistics.StatisticsIndexMap.DoubleSampleIndex;
+import net.grinder.statistics.StatisticsIndexMap.HistogramIndex;
 import net.grinder.statistics.StatisticsIndexMap.LongIndex;
 import net.grinder.statistics.StatisticsIndexMap.LongSampleIndex;
 import net.grinder.statistics.StatisticsIndexMap.SampleIndex;
@@ -51,6 +52,12 @@ final class StatisticsSetImplementation implements StatisticsSet {
   // they added to other statistics sets. E.g. the "period" field.
   private transient long[] m_transientLongData;
 
+  // Sample value histograms. Allocated lazily; a histogram is only needed
+  // once its sample statistic has more than one sample, since a single
+  // sample value is held by the sum. Once allocated, a histogram holds every
+  // sample.
+  private final long[][] m_histogramData;
+
   // true => all statistics are zero; false => they might be.
   private boolean m_zero = true;
 
@@ -67,6 +74,7 @@ final class StatisticsSetImplementation implements StatisticsSet {
     m_doubleData = new double[m_statisticsIndexMap.getNumberOfDoubles()];
     m_transientLongData =
       new long[m_statisticsIndexMap.getNumberOfTransientLongs()];
+    m_histogramData = new long[m_statisticsIndexMap.getNumberOfHistograms()][];
   }
 
   /**
@@ -78,6 +86,13 @@ final class StatisticsSetImplementation implements StatisticsSet {
       Arrays.fill(m_longData, 0);
       Arrays.fill(m_doubleData, 0);
       Arrays.fill(m_transientLongData, 0);
+
+      for (long[] histogram : m_histogramData) {
+        if (histogram != null) {
+          Arrays.fill(histogram, 0);
+        }
+      }
+
       m_zero = true;
       m_composite = false;
     }
@@ -116,6 +131,12 @@ final class StatisticsSetImplementation implements StatisticsSet {
                          result.m_transientLongData,
                          0, result.m_transientLongData.length);
 
+        for (int i = 0; i < m_histogramData.length; ++i) {
+          if (m_histogramData[i] != null) {
+            result.m_histogramData[i] = m_histogramData[i].clone();
+          }
+        }
+
         result.m_zero = false;
         result.m_composite = m_composite;
       }
@@ -228,6 +249,14 @@ final class StatisticsSetImplementation implements StatisticsSet {
    */
   public synchronized void addSample(LongSampleIndex index, long value) {
 
+    final HistogramIndex histogramIndex = index.getHistogramIndex();
+
+    if (histogramIndex != null &&
+        (m_histogramData[histogramIndex.getValue()] != null ||
+         m_longData[index.getCountIndex().getValue()] != 0)) {
+      SampleHistogram.record(getHistogram(index), value);
+    }
+
     setValue(index.getVarianceIndex(),
         calculateVariance(getValue(index.getSumIndex()),
                           getValue(index.getCountIndex()),
@@ -268,6 +297,37 @@ final class StatisticsSetImplementation implements StatisticsSet {
     setValue(index.getSumIndex(), 0);
     setValue(index.getCountIndex(), 0);
     setValue(index.getVarianceIndex(), 0);
+
+    final HistogramIndex histogramIndex = index.getHistogramIndex();
+
+    if (histogramIndex != null &&
+        m_histogramData[histogramIndex.getValue()] != null) {
+      Arrays.fill(m_histogramData[histogramIndex.getValue()], 0);
+    }
+  }
+
+  /**
+   * Return the histogram for a sample statistic, allocating it if necessary.
+   *
+   * <p>A histogram is allocated when the sample statistic gains its second
+   * sample. Until then, the single sample value (if any) is the sum.</p>
+   *
+   * @param index The sample index. Must have a histogram.
+   * @return The histogram.
+   */
+  private long[] getHistogram(LongSampleIndex index) {
+    final int i = index.getHistogramIndex().getValue();
+
+    if (m_histogramData[i] == null) {
+      m_histogramData[i] = new long[SampleHistogram.NUMBER_OF_BUCKETS];
+
+      if (m_longData[index.getCountIndex().getValue()] == 1) {
+        SampleHistogram.record(m_histogramData[i],
+                               m_longData[index.getSumIndex().getValue()]);
+      }
+    }
+
+    return m_histogramData[i];
   }
 
   /**
@@ -381,6 +441,70 @@ final class StatisticsSetImplementation implements StatisticsSet {
     return getValue(index.getVarianceIndex());
   }
 
+  /**
+   * Get the value at a given percentile for the sample statistic specified
+   * by <code>index</code>.
+   *
+   * @param index The index.
+   * @param percentile The percentile, between 0 and 100.
+   * @return The value.
+   */
+  public synchronized long getPercentile(LongSampleIndex index,
+                                         double percentile) {
+    final HistogramIndex histogramIndex = index.getHistogramIndex();
+    final long count = m_longData[index.getCountIndex().getValue()];
+
+    if (histogramIndex == null || count == 0) {
+      return 0;
+    }
+
+    final long[] histogram = m_histogramData[histogramIndex.getValue()];
+
+    if (histogram == null) {
+      // A single sample.
+      return m_longData[index.getSumIndex().getValue()];
+    }
+
+    return SampleHistogram.valueAtPercentile(histogram, count, percentile);
+  }
+
+  /**
+   * Count the samples of the sample statistic specified by
+   * <code>index</code> that are no greater than each of a number of values.
+   *
+   * @param index The index.
+   * @param values The values, in ascending order.
+   * @param counts Receives the count for each value.
+   * @return <code>false</code> if the sample statistic does not maintain a
+   * histogram.
+   */
+  public synchronized boolean getCumulativeCounts(LongSampleIndex index,
+                                                  long[] values,
+                                                  long[] counts) {
+    final HistogramIndex histogramIndex = index.getHistogramIndex();
+
+    if (histogramIndex == null) {
+      return false;
+    }
+
+    final long[] histogram = m_histogramData[histogramIndex.getValue()];
+
+    if (histogram == null) {
+      // No samples, or a single sample.
+      final long count = m_longData[index.getCountIndex().getValue()];
+      final long sum = m_longData[index.getSumIndex().getValue()];
+
+      for (int i = 0; i < values.length; ++i) {
+        counts[i] = count > 0 && sum <= values[i] ? count : 0;
+      }
+    }
+    else {
+      SampleHistogram.cumulativeCounts(histogram, values, counts);
+    }
+
+    return true;
+  }
+
   /**
    * Add the values of another <code>StatisticsSet</code> to ours. Assumes we
    * don't need to synchronise access to operand.
@@ -402,6 +526,14 @@ final class StatisticsSetImplementation implements StatisticsSet {
     final StatisticsSetImplementation operandImplementation =
       (StatisticsSetImplementation)operand;
 
+    if (operandImplementation.isZero()) {
+      if (operand.isComposite()) {
+        setIsComposite();
+      }
+
+      return;
+    }
+
     final boolean[] isVarianceIndex = new boolean[m_doubleData.length];
 
     for (LongSampleIndex index : m_statisticsIndexMap.getLongSampleIndicies()) {
@@ -409,6 +541,10 @@ final class StatisticsSetImplementation implements StatisticsSet {
       final LongIndex countIndex = index.getCountIndex();
       final DoubleIndex varianceIndex = index.getVarianceIndex();
 
+      if (index.getHistogramIndex() != null) {
+        addHistogram(index, operandImplementation);
+      }
+
       setValue(varianceIndex,
         calculateVariance(getValue(sumIndex),
                           getValue(countIndex),
@@ -459,6 +595,41 @@ final class StatisticsSetImplementation implements StatisticsSet {
     }
   }
 
+  /**
+   * Merge the histogram of another statistics set with ours. Must be called
+   * before the sums and counts are added.
+   *
+   * @param index The sample index. Must have a histogram.
+   * @param operand The other statistics set.
+   */
+  private void addHistogram(LongSampleIndex index,
+                            StatisticsSetImplementation operand) {
+    final int countIndex = index.getCountIndex().getValue();
+    final long operandCount = operand.m_longData[countIndex];
+
+    if (operandCount == 0) {
+      return;
+    }
+
+    final int i = index.getHistogramIndex().getValue();
+    final long[] operandHistogram = operand.m_histogramData[i];
+
+    if (m_longData[countIndex] == 0 && m_histogramData[i] == null) {
+      if (operandHistogram != null) {
+        m_histogramData[i] = operandHistogram.clone();
+      }
+
+      // Otherwise, the operand's single sample is carried by the sum.
+    }
+    else if (operandHistogram != null) {
+      SampleHistogram.add(getHistogram(index), operandHistogram);
+    }
+    else if (operandCount == 1) {
+      final int sumIndex = index.getSumIndex().getValue();
+      SampleHistogram.record(getHistogram(index), operand.m_longData[sumIndex]);
+    }
+  }
+
   public synchronized boolean isZero() {
     return m_zero;
   }
@@ -516,6 +687,34 @@ final class StatisticsSetImplementation implements StatisticsSet {
           return false;
         }
       }
+
+      for (int i = 0; i < m_histogramData.length; i++) {
+        if (!histogramEquals(m_histogramData[i],
+                             otherStatistics.m_histogramData[i])) {
+          return false;
+        }
+      }
+    }
+
+    return true;
+  }
+
+  private static boolean histogramEquals(long[] h1, long[] h2) {
+    if (h1 == null || h2 == null) {
+      // Treat unallocated histograms as empty.
+      return isEmpty(h1) && isEmpty(h2);
+    }
+
+    return Arrays.equals(h1, h2);
+  }
+
+  private static boolean isEmpty(long[] histogram) {
+    if (histogram != null) {
+      for (long l : histogram) {
+        if (l != 0) {
+          return false;
+        }
+      }
     }
 
     return true;
@@ -615,17 +814,75 @@ final class StatisticsSetImplementation implements StatisticsSet {
    * @param out Handle to the output stream.
    * @param serialiser <code>Serialiser</code> helper object.
    * @exception IOException If an error occurs.
-   * @see #StatisticsSetImplementation(StatisticsIndexMap, ObjectInput,
+   * @see #StatisticsSetImplementation(StatisticsIndexMap, DataInput,
    * Serialiser)
    */
-  synchronized void writeExternal(ObjectOutput out, Serialiser serialiser)
+  synchronized void writeExternal(DataOutput out, Serialiser serialiser)
     throws IOException {
+
+    // Most slots are typically zero, so write a bitmap of the non-zero slots,
+    // followed by their values.
+    final byte[] longBitmap = new byte[bitmapLength(m_longData.length)];
+
     for (int i = 0; i < m_longData.length; i++) {
-      serialiser.writeLong(out, m_longData[i]);
+      if (m_longData[i] != 0) {
+        longBitmap[i >> 3] |= 1 << (i & 7);
+      }
+    }
+
+    out.write(longBitmap);
+
+    for (int i = 0; i < m_longData.length; i++) {
+      if (m_longData[i] != 0) {
+        serialiser.writeLong(out, m_longData[i]);
+      }
     }
 
+    final byte[] doubleBitmap = new byte[bitmapLength(m_doubleData.length)];
+
     for (int i = 0; i < m_doubleData.length; i++) {
-      serialiser.writeDouble(out, m_doubleData[i]);
+      if (m_doubleData[i] != 0) {
+        doubleBitmap[i >> 3] |= 1 << (i & 7);
+      }
+    }
+
+    out.write(doubleBitmap);
+
+    for (int i = 0; i < m_doubleData.length; i++) {
+      if (m_doubleData[i] != 0) {
+        serialiser.writeDouble(out, m_doubleData[i]);
+      }
+    }
+
+    // Histograms are sparse, so write the number of non-zero buckets,
+    // followed by (bucket delta, count) pairs.
+    for (int i = 0; i < m_histogramData.length; i++) {
+      final long[] histogram = m_histogramData[i];
+
+      if (histogram == null) {
+        serialiser.writeLong(out, 0);
+        continue;
+      }
+
+      int nonZero = 0;
+
+      for (int j = 0; j < histogram.length; ++j) {
+        if (histogram[j] != 0) {
+          ++nonZero;
+        }
+      }
+
+      serialiser.writeLong(out, nonZero);
+
+      int last = 0;
+
+      for (int j = 0; j < histogram.length; ++j) {
+        if (histogram[j] != 0) {
+          serialiser.writeLong(out, j - last);
+          serialiser.writeLong(out, histogram[j]);
+          last = j;
+        }
+      }
     }
 
     out.writeBoolean(m_composite);
@@ -641,23 +898,59 @@ final class StatisticsSetImplementation implements StatisticsSet {
    * @param in Handle to the input stream.
    * @param serialiser <code>Serialiser</code> helper object.
    * @exception IOException If an error occurs.
-   * @see #writeExternal(ObjectOutput, Serialiser)
+   * @see #writeExternal(DataOutput, Serialiser)
    */
   StatisticsSetImplementation(StatisticsIndexMap statisticsIndexMap,
-                              ObjectInput in, Serialiser serialiser)
+                              DataInput in, Serialiser serialiser)
     throws IOException {
     this(statisticsIndexMap);
 
+    final byte[] longBitmap = new byte[bitmapLength(m_longData.length)];
+    in.readFully(longBitmap);
+
     for (int i = 0; i < m_longData.length; i++) {
-      m_longData[i] = serialiser.readLong(in);
-      m_zero &= m_longData[i] == 0;
+      if ((longBitmap[i >> 3] & 1 << (i & 7)) != 0) {
+        m_longData[i] = serialiser.readLong(in);
+        m_zero &= m_longData[i] == 0;
+      }
     }
 
+    final byte[] doubleBitmap = new byte[bitmapLength(m_doubleData.length)];
+    in.readFully(doubleBitmap);
+
     for (int i = 0; i < m_doubleData.length; i++) {
-      m_doubleData[i] = serialiser.readDouble(in);
-      m_zero &= m_doubleData[i] == 0;
+      if ((doubleBitmap[i >> 3] & 1 << (i & 7)) != 0) {
+        m_doubleData[i] = serialiser.readDouble(in);
+        m_zero &= m_doubleData[i] == 0;
+      }
+    }
+
+    for (int i = 0; i < m_histogramData.length; i++) {
+      final long nonZero = serialiser.readLong(in);
+
+      if (nonZero > 0) {
+        final long[] histogram = new long[SampleHistogram.NUMBER_OF_BUCKETS];
+        int bucket = 0;
+
+        for (long j = 0; j < nonZero; ++j) {
+          bucket += (int)serialiser.readLong(in);
+
+          if (bucket >= histogram.length) {
+            throw new IOException("Invalid histogram bucket " + bucket);
+          }
+
+          histogram[bucket] = serialiser.readLong(in);
+        }
+
+        m_histogramData[i] = histogram;
+        m_zero = false;
+      }
     }
 
     m_composite = in.readBoolean();
   }
+
+  private static int bitmapLength(int numberOfSlots) {
+    return (numberOfSlots + 7) / 8;
+  }
 }
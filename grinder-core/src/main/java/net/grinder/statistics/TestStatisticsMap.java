@@ -21,6 +21,8 @@
 
 package net.grinder.statistics;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
@@ -47,7 +49,7 @@ public final class TestStatisticsMap implements java.io.Externalizable {
   // The serialVersionUID should be incremented whenever the default
   // statistic indices are changed in StatisticsIndexMap, or
   // when the StatisticsSet externalisation methods are changed.
-  private static final long serialVersionUID = 5L;
+  private static final long serialVersionUID = 11L;
 
   private final transient StatisticsSetFactory m_statisticsSetFactory;
 
@@ -289,6 +291,18 @@ public final class TestStatisticsMap implements java.io.Externalizable {
    * @exception IOException If an I/O error occurs.
    */
   public void writeExternal(ObjectOutput out) throws IOException {
+    write(out);
+  }
+
+  /**
+   * Write the map in the compact binary format used by
+   * {@link #writeExternal}.
+   *
+   * @param out Handle to the output stream.
+   * @exception IOException If an I/O error occurs.
+   * @see #read
+   */
+  public void write(DataOutput out) throws IOException {
 
     synchronized (this) {
       out.writeInt(m_data.size());
@@ -312,6 +326,17 @@ public final class TestStatisticsMap implements java.io.Externalizable {
    * @exception IOException If an I/O error occurs.
    */
   public void readExternal(ObjectInput in) throws IOException {
+    read(in);
+  }
+
+  /**
+   * Read the compact binary format written by {@link #write}. No
+   * synchronisation, assume that we're being read into a new instance.
+   *
+   * @param in Handle to the input stream.
+   * @exception IOException If an I/O error occurs.
+   */
+  public void read(DataInput in) throws IOException {
 
     final int n = in.readInt();
 
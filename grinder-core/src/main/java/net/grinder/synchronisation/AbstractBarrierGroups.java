@@ -288,6 +288,19 @@ public abstract class AbstractBarrierGroups implements BarrierGroups  {
       }
     }
 
+    /**
+     * Check whether the barrier condition is satisfied, without changing
+     * any state.
+     *
+     * @return {@code true} if and only if there are barriers, and every
+     *         barrier is waiting.
+     */
+    protected final boolean isConditionSatisfied() {
+      synchronized (this) {
+        return m_barriers > 0 && m_barriers == m_waiters.size();
+      }
+    }
+
     /**
      * Check whether the barrier condition is satisfied. If so, clear our
      * waiters.
@@ -21,6 +21,7 @@
 
 package net.grinder.synchronisation;
 
+import java.util.HashSet;
 import java.util.Set;
 
 import net.grinder.communication.CommunicationException;
@@ -29,6 +30,7 @@ import net.grinder.communication.Sender;
 import net.grinder.communication.MessageDispatchRegistry.AbstractHandler;
 import net.grinder.synchronisation.messages.AddBarrierMessage;
 import net.grinder.synchronisation.messages.AddWaiterMessage;
+import net.grinder.synchronisation.messages.AddWaitersMessage;
 import net.grinder.synchronisation.messages.BarrierIdentity;
 import net.grinder.synchronisation.messages.CancelWaiterMessage;
 import net.grinder.synchronisation.messages.OpenBarrierMessage;
@@ -79,42 +81,87 @@ public class ClientBarrierGroups extends AbstractBarrierGroups {
     /**
      * Extending {@link AbstractBarrierGroups} verifies the consistency of the
      * local partition of the barrier group.
+     *
+     * <p>
+     * Waiters are combined locally. The console can only open the barrier
+     * once every barrier is waiting, so there is no need to tell it about
+     * our waiters until all of our barriers are waiting. Then we send all of
+     * the waiters in a single message.
+     * </p>
      */
     return new BarrierGroupImplementation(name) {
 
+      // Guarded by this. Waiters the console has not been told about.
+      private final Set<BarrierIdentity> m_pendingWaiters =
+        new HashSet<BarrierIdentity>();
+
       @Override
       public void addBarrier()
         throws CommunicationException {
 
-        super.addBarrier();
+        synchronized (this) {
+          super.addBarrier();
 
-        m_sender.send(new AddBarrierMessage(getName()));
+          m_sender.send(new AddBarrierMessage(getName()));
+        }
       }
 
       @Override
       public void removeBarriers(long n) throws CommunicationException {
 
-        super.removeBarriers(n);
+        synchronized (this) {
+          super.removeBarriers(n);
 
-        m_sender.send(new RemoveBarriersMessage(getName(), n));
+          m_sender.send(new RemoveBarriersMessage(getName(), n));
+
+          sendPendingWaiters();
+        }
       }
 
       @Override
       public void addWaiter(BarrierIdentity barrierIdentity)
         throws CommunicationException {
 
-        super.addWaiter(barrierIdentity);
+        synchronized (this) {
+          super.addWaiter(barrierIdentity);
 
-        m_sender.send(new AddWaiterMessage(getName(), barrierIdentity));
+          m_pendingWaiters.add(barrierIdentity);
+
+          sendPendingWaiters();
+        }
       }
 
       @Override
       public void cancelWaiter(BarrierIdentity barrierIdentity)
         throws CommunicationException {
 
-        super.cancelWaiter(barrierIdentity);
+        synchronized (this) {
+          super.cancelWaiter(barrierIdentity);
+
+          if (!m_pendingWaiters.remove(barrierIdentity)) {
+            m_sender.send(new CancelWaiterMessage(getName(), barrierIdentity));
+          }
+        }
+      }
+
+      private void sendPendingWaiters() throws CommunicationException {
+        if (m_pendingWaiters.isEmpty() || !isConditionSatisfied()) {
+          return;
+        }
+
+        if (m_pendingWaiters.size() == 1) {
+          m_sender.send(
+            new AddWaiterMessage(getName(),
+                                 m_pendingWaiters.iterator().next()));
+        }
+        else {
+          m_sender.send(
+            new AddWaitersMessage(
+              getName(),
+              new HashSet<BarrierIdentity>(m_pendingWaiters)));
+        }
 
-        m_sender.send(new CancelWaiterMessage(getName(), barrierIdentity));
+        m_pendingWaiters.clear();
       }
     };
   }
@@ -0,0 +1,65 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.synchronisation.messages;
+
+import java.util.Set;
+
+
+/**
+ * Barrier group message requesting that several waiters be added.
+ *
+ * <p>
+ * Worker processes combine the waiters for their local barriers, and only
+ * send them to the console once all the local barriers are waiting.
+ * </p>
+ *
+ * @author Philip Aston
+ */
+public class AddWaitersMessage extends AbstractBarrierGroupMessage {
+
+  private static final long serialVersionUID = 1L;
+
+  private final Set<BarrierIdentity> m_barrierIdentities;
+
+  /**
+   * Constructor.
+   *
+   * @param name
+   *          Barrier name.
+   * @param barrierIdentities
+   *          The identities of the waiters.
+   */
+  public AddWaitersMessage(String name,
+                           Set<BarrierIdentity> barrierIdentities) {
+    super(name);
+    m_barrierIdentities = barrierIdentities;
+  }
+
+  /**
+   * Identifies the waiters.
+   *
+   * @return The identities of the waiters.
+   */
+  public Set<BarrierIdentity> getBarrierIdentities() {
+    return m_barrierIdentities;
+  }
+}
@@ -25,10 +25,14 @@ import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.slf4j.Logger;
 
-import net.grinder.util.thread.Condition;
+import net.grinder.common.UncheckedInterruptedException;
 
 
 /**
@@ -37,6 +41,10 @@ import net.grinder.util.thread.Condition;
  * <p>Several threads can safely use the same <code>Sleeper</code>.
  * </p>
  *
+ * <p>Sleeping threads wait on a {@link Lock} rather than an object monitor,
+ * so virtual threads do not pin their carrier thread while they sleep.
+ * </p>
+ *
  * @author Philip Aston
  */
 public final class SleeperImplementation implements Sleeper {
@@ -49,8 +57,10 @@ public final class SleeperImplementation implements Sleeper {
   private final double m_factor;
   private final double m_limit9975Factor;
   private final Logger m_logger;
-  private final Condition m_condition = new Condition();
+  private final Lock m_lock = new ReentrantLock();
+  private final Condition m_condition = m_lock.newCondition();
 
+  // Guarded by m_lock.
   private boolean m_shutdown = false;
 
   /**
@@ -101,9 +111,14 @@ public final class SleeperImplementation implements Sleeper {
    */
   @Override public void shutdown() {
 
-    synchronized (m_condition) {
+    m_lock.lock();
+
+    try {
       m_shutdown = true;
-      m_condition.notifyAll();
+      m_condition.signalAll();
+    }
+    finally {
+      m_lock.unlock();
     }
   }
 
@@ -114,6 +129,13 @@ public final class SleeperImplementation implements Sleeper {
     return m_timeAuthority.getTimeInMilliseconds();
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override public long getTimeInNanoseconds() {
+    return m_timeAuthority.getTimeInNanoseconds();
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -165,9 +187,17 @@ public final class SleeperImplementation implements Sleeper {
       final long wakeUpTime = currentTime + factoredTime;
 
       while (currentTime < wakeUpTime) {
-        synchronized (m_condition) {
+        m_lock.lock();
+
+        try {
           checkShutdown();
-          m_condition.waitNoInterrruptException(wakeUpTime - currentTime);
+          m_condition.await(wakeUpTime - currentTime, TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException e) {
+          throw new UncheckedInterruptedException(e);
+        }
+        finally {
+          m_lock.unlock();
         }
 
         currentTime = m_timeAuthority.getTimeInMilliseconds();
@@ -177,10 +207,15 @@ public final class SleeperImplementation implements Sleeper {
 
   private void checkShutdown() throws ShutdownException {
 
-    synchronized (m_condition) {
+    m_lock.lock();
+
+    try {
       if (m_shutdown) {
         throw new ShutdownException("Shut down");
       }
     }
+    finally {
+      m_lock.unlock();
+    }
   }
 }
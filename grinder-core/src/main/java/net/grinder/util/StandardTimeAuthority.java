@@ -45,5 +45,14 @@ public final class StandardTimeAuthority implements TimeAuthority {
   public long getTimeInMilliseconds() {
     return System.nanoTime() / 1000000 + m_epochOffset;
   }
+
+  /**
+   * Return the current value of the high resolution clock.
+   *
+   * @return The time in nanoseconds. The base time is arbitrary.
+   */
+  public long getTimeInNanoseconds() {
+    return System.nanoTime();
+  }
 }
 
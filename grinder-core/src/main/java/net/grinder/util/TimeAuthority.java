@@ -41,4 +41,18 @@ public interface TimeAuthority {
    * uses <code>System.nanoTime()</code>.
    */
   long getTimeInMilliseconds();
+
+  /**
+   * Return the current value of a monotonic, high resolution clock.
+   *
+   * <p>
+   * This is an abstraction over <code>System.nanoTime()</code>. The value
+   * is only meaningful when compared with other values returned by the same
+   * time authority, and should be used to measure elapsed times that may be
+   * shorter than a millisecond.
+   * </p>
+   *
+   * @return The time in nanoseconds. The base time is arbitrary.
+   */
+  long getTimeInNanoseconds();
 }
@@ -0,0 +1,265 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+
+package net.grinder.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * A hashed timer wheel.
+ *
+ * <p>
+ * Timeouts are kept in a ring of buckets, one for each tick of the wheel, so
+ * scheduling and cancelling a timeout are constant time operations however
+ * many timeouts are pending. The price is precision: a timeout expires on the
+ * first call to {@link #expire} after the end of the tick that contains its
+ * deadline, so it may fire up to a tick late.
+ * </p>
+ *
+ * <p>
+ * The wheel does not read a clock. Times are supplied by the caller, in
+ * whatever unit the tick duration is expressed in.
+ * </p>
+ *
+ * <p>
+ * This class is not thread safe. It is intended to be owned by a single
+ * thread, such as a selector thread, that calls {@link #expire} each time it
+ * wakes.
+ * </p>
+ *
+ * @author Philip Aston
+ */
+public final class TimerWheel {
+
+  private final long m_tickDuration;
+  private final Timeout[] m_buckets;
+  private final long m_startTime;
+
+  /** The next tick to be processed. */
+  private long m_tick;
+
+  private int m_size;
+
+  /**
+   * Constructor.
+   *
+   * @param tickDuration
+   *          The duration of each tick.
+   * @param wheelSize
+   *          The number of buckets. Timeouts further in the future than
+   *          {@code tickDuration * wheelSize} are supported, but are visited
+   *          once every revolution of the wheel.
+   * @param now
+   *          The current time.
+   */
+  public TimerWheel(final long tickDuration,
+                    final int wheelSize,
+                    final long now) {
+
+    if (tickDuration <= 0) {
+      throw new IllegalArgumentException("Tick duration must be positive");
+    }
+
+    if (wheelSize <= 0) {
+      throw new IllegalArgumentException("Wheel size must be positive");
+    }
+
+    m_tickDuration = tickDuration;
+    m_buckets = new Timeout[wheelSize];
+    m_startTime = now;
+  }
+
+  /**
+   * Schedule a task.
+   *
+   * @param task
+   *          The task to run when the timeout expires.
+   * @param deadline
+   *          The time at which the timeout expires. If this is in the past,
+   *          the timeout will expire on the next call to {@link #expire} that
+   *          completes a tick.
+   * @return A handle that can be used to cancel the timeout.
+   */
+  public Timeout schedule(final Runnable task, final long deadline) {
+
+    final long tick =
+      Math.max((deadline - m_startTime) / m_tickDuration, m_tick);
+
+    final Timeout timeout =
+      new Timeout(task, (tick - m_tick) / m_buckets.length);
+
+    link(timeout, (int) (tick % m_buckets.length));
+
+    return timeout;
+  }
+
+  /**
+   * Run the tasks of the timeouts that have expired.
+   *
+   * @param now
+   *          The current time.
+   * @return The number of tasks run.
+   */
+  public int expire(final long now) {
+    final long currentTick = (now - m_startTime) / m_tickDuration;
+
+    if (m_size == 0) {
+      m_tick = Math.max(m_tick, currentTick);
+      return 0;
+    }
+
+    // Tasks are run after all the buckets have been processed, so they are
+    // free to schedule or cancel other timeouts.
+    final List<Runnable> expired = new ArrayList<Runnable>();
+
+    while (m_tick < currentTick && m_size > 0) {
+      final int bucket = (int) (m_tick % m_buckets.length);
+      Timeout timeout = m_buckets[bucket];
+
+      while (timeout != null) {
+        final Timeout next = timeout.m_next;
+
+        if (timeout.m_rounds == 0) {
+          unlink(timeout);
+          expired.add(timeout.m_task);
+        }
+        else {
+          --timeout.m_rounds;
+        }
+
+        timeout = next;
+      }
+
+      ++m_tick;
+    }
+
+    m_tick = Math.max(m_tick, currentTick);
+
+    for (Runnable task : expired) {
+      task.run();
+    }
+
+    return expired.size();
+  }
+
+  /**
+   * How long until the current tick ends. A thread that owns the wheel can
+   * use this to decide how long to sleep before calling {@link #expire}.
+   *
+   * @param now
+   *          The current time.
+   * @return The time until the next tick, {@code 0} if a tick has already
+   *         ended, or {@code -1} if no timeouts are pending.
+   */
+  public long getTimeToNextTick(final long now) {
+    if (m_size == 0) {
+      return -1;
+    }
+
+    return Math.max(0, m_startTime + (m_tick + 1) * m_tickDuration - now);
+  }
+
+  /**
+   * The number of pending timeouts.
+   *
+   * @return The number of timeouts.
+   */
+  public int size() {
+    return m_size;
+  }
+
+  private void link(final Timeout timeout, final int bucket) {
+    final Timeout head = m_buckets[bucket];
+
+    timeout.m_bucket = bucket;
+    timeout.m_next = head;
+
+    if (head != null) {
+      head.m_previous = timeout;
+    }
+
+    m_buckets[bucket] = timeout;
+    ++m_size;
+  }
+
+  private void unlink(final Timeout timeout) {
+    if (timeout.m_previous != null) {
+      timeout.m_previous.m_next = timeout.m_next;
+    }
+    else {
+      m_buckets[timeout.m_bucket] = timeout.m_next;
+    }
+
+    if (timeout.m_next != null) {
+      timeout.m_next.m_previous = timeout.m_previous;
+    }
+
+    timeout.m_bucket = -1;
+    timeout.m_next = null;
+    timeout.m_previous = null;
+    --m_size;
+  }
+
+  /**
+   * A scheduled task.
+   */
+  public final class Timeout {
+    private final Runnable m_task;
+    private long m_rounds;
+    private int m_bucket;
+    private Timeout m_next;
+    private Timeout m_previous;
+
+    private Timeout(final Runnable task, final long rounds) {
+      m_task = task;
+      m_rounds = rounds;
+    }
+
+    /**
+     * Cancel the timeout.
+     *
+     * @return {@code true} if the timeout was pending, {@code false} if it
+     *         had already expired or been cancelled.
+     */
+    public boolean cancel() {
+      if (!isPending()) {
+        return false;
+      }
+
+      unlink(this);
+
+      return true;
+    }
+
+    /**
+     * Whether the timeout is pending.
+     *
+     * @return {@code true} if the timeout has neither expired nor been
+     *         cancelled.
+     */
+    public boolean isPending() {
+      return m_bucket >= 0;
+    }
+  }
+}
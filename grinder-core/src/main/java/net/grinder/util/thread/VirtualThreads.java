@@ -0,0 +1,121 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.util.thread;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+
+/**
+ * Create virtual threads, if the JVM supports them.
+ *
+ * <p>
+ * The Grinder is built for older Java platforms, so the
+ * <code>Thread.ofVirtual()</code> API is accessed reflectively.
+ * </p>
+ *
+ * @author Philip Aston
+ */
+public final class VirtualThreads {
+
+  private static final Method s_ofVirtual;
+  private static final Method s_name;
+  private static final Method s_unstarted;
+
+  static {
+    Method ofVirtual = null;
+    Method name = null;
+    Method unstarted = null;
+
+    try {
+      final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+
+      ofVirtual = Thread.class.getMethod("ofVirtual");
+      name = builderClass.getMethod("name", String.class);
+      unstarted = builderClass.getMethod("unstarted", Runnable.class);
+
+      // Java 19 and 20 have the API, but throw if preview features are not
+      // enabled.
+      ofVirtual.invoke(null);
+    }
+    catch (final Exception e) {
+      // Pre-Java 21, or preview features are disabled.
+      ofVirtual = null;
+    }
+
+    s_ofVirtual = ofVirtual;
+    s_name = name;
+    s_unstarted = unstarted;
+  }
+
+  private VirtualThreads() {
+  }
+
+  /**
+   * Whether the JVM supports virtual threads.
+   *
+   * @return {@code true} if and only if {@link #create} can be called.
+   */
+  public static boolean isSupported() {
+    return s_ofVirtual != null;
+  }
+
+  /**
+   * Create a new, unstarted virtual thread.
+   *
+   * <p>
+   * Virtual threads are always daemon threads.
+   * </p>
+   *
+   * @param runnable
+   *          The code to run.
+   * @param name
+   *          The thread name.
+   * @return The thread.
+   * @throws UnsupportedOperationException
+   *           If the JVM does not support virtual threads.
+   */
+  public static Thread create(final Runnable runnable, final String name) {
+    if (!isSupported()) {
+      throw new UnsupportedOperationException(
+        "Virtual threads require Java 21 or later");
+    }
+
+    try {
+      final Object builder = s_ofVirtual.invoke(null);
+      s_name.invoke(builder, name);
+      return (Thread) s_unstarted.invoke(builder, runnable);
+    }
+    catch (final IllegalAccessException e) {
+      throw new UnsupportedOperationException(e.getMessage(), e);
+    }
+    catch (final InvocationTargetException e) {
+      final Throwable cause = e.getCause();
+
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+
+      throw new UnsupportedOperationException(cause.getMessage(), cause);
+    }
+  }
+}
@@ -38,6 +38,11 @@ public interface Weaver {
    * pointcut.
    *
    * <p>
+   * Identifiers are small, non-negative integers allocated densely from
+   * zero, so the advice can use them to index an array.
+   * </p>
+   *
+   * <p>
    * Once {@link #weave} has been called for a constructor, subsequent calls are
    * no-ops that will return the identifier generated for the original call.
    * </p>
@@ -49,15 +54,20 @@ public interface Weaver {
    *
    * @param constructor
    *          The constructor.
-   * @return String that uniquely identifies the pointcut.
+   * @return Integer that uniquely identifies the pointcut.
    */
-  String weave(Constructor<?> constructor);
+  int weave(Constructor<?> constructor);
 
   /**
    * Queue the given {@code method} for weaving, and return a unique identifier
    * that can be used by the advice to refer to the method pointcut.
    *
    * <p>
+   * Identifiers are small, non-negative integers allocated densely from
+   * zero, so the advice can use them to index an array.
+   * </p>
+   *
+   * <p>
    * Once {@link #weave} has been called for a method, subsequent calls are
    * no-ops that will return the identifier generated for the original call.
    * </p>
@@ -71,12 +81,12 @@ public interface Weaver {
    *          The method.
    * @param targetSource
    *          Which object should be passed as the target to the advice.
-   * @return String that uniquely identifies the pointcut.
+   * @return Integer that uniquely identifies the pointcut.
    * @throws WeavingException
    *           If the {@code targetSource} is incompatible with the
    *           {@code method}.
    */
-  String weave(Method method, TargetSource targetSource)
+  int weave(Method method, TargetSource targetSource)
     throws WeavingException;
 
   /**
@@ -66,18 +66,29 @@ public final class ASMTransformerFactory
    * <p>
    * We can't add fields to the class due to DCR limitations, so we have to wire
    * in the advice class using static methods.{@code adviceClass} should
-   * implement two methods with the following names and signatures.
+   * implement four methods with the following names and signatures.
    * </p>
    *
    * <pre>
    * public static void enter(Object reference,
-   *                          String location);
+   *                          int location);
    *
    * public static void exit(Object reference,
-   *                         String location,
+   *                         int location,
+   *                         boolean success);
+   *
+   * public static void enter(int location);
+   *
+   * public static void exit(int location,
    *                         boolean success);
    * </pre>
    *
+   * <p>
+   * The second pair is called for point cuts with a
+   * {@link Weaver.TargetSource#CLASS} target source, and for constructors.
+   * No target reference is passed, since it would always be the class.
+   * </p>
+   *
    *
    * @param adviceClass
    *          Class that provides the advice.
@@ -88,19 +99,13 @@ public final class ASMTransformerFactory
   public ASMTransformerFactory(Class<?> adviceClass) throws WeavingException {
 
     try {
-      final Method enterMethod =
-        adviceClass.getMethod("enter", Object.class, String.class);
-
-      if (!Modifier.isStatic(enterMethod.getModifiers())) {
-        throw new WeavingException("Enter method is not static");
-      }
-
-      final Method exitMethod =
-        adviceClass.getMethod("exit", Object.class, String.class, Boolean.TYPE);
-
-      if (!Modifier.isStatic(exitMethod.getModifiers())) {
-        throw new WeavingException("Exit method is not static");
-      }
+      checkStatic(adviceClass.getMethod("enter", Object.class, Integer.TYPE));
+      checkStatic(adviceClass.getMethod("exit",
+                                        Object.class,
+                                        Integer.TYPE,
+                                        Boolean.TYPE));
+      checkStatic(adviceClass.getMethod("enter", Integer.TYPE));
+      checkStatic(adviceClass.getMethod("exit", Integer.TYPE, Boolean.TYPE));
     }
     catch (Exception e) {
       throw new WeavingException(
@@ -111,6 +116,12 @@ public final class ASMTransformerFactory
     m_adviceClass = Type.getInternalName(adviceClass);
   }
 
+  private static void checkStatic(Method method) throws WeavingException {
+    if (!Modifier.isStatic(method.getModifiers())) {
+      throw new WeavingException(method.getName() + " method is not static");
+    }
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -139,7 +150,7 @@ public final class ASMTransformerFactory
      * </p>
      *
      * @param pointCutRegistry
-     *          Remembers the methods to advice, and the location strings.
+     *          Remembers the methods to advice, and the locations.
      */
     public ASMTransformer(PointCutRegistry pointCutRegistry) {
       m_pointCutRegistry = pointCutRegistry;
@@ -177,6 +188,13 @@ public final class ASMTransformerFactory
 
       // Having found the right set of constructors methods, we transform the
       // key to a form that is easier for our ASM visitor to use.
+      //
+      // Point cuts are registered by name, so we also filter out those that
+      // belong to a different class of the same name. Locations are only
+      // unique within a class loader, and the advice class resolved by the
+      // woven code is that of the class being transformed. Weaving always
+      // happens through retransformation, so a class that is loaded for the
+      // first time (classBeingRedefined is null) is never advised.
       final Map<Pair<String, String>, List<WeavingDetails>>
         nameAndDescriptionToWeavingDetails =
           new HashMap<Pair<String, String>, List<WeavingDetails>>(size);
@@ -187,6 +205,10 @@ public final class ASMTransformerFactory
 
           final Constructor<?> c = entry.getKey();
 
+          if (c.getDeclaringClass() != classBeingRedefined) {
+            continue;
+          }
+
           // The key will be unique, so we can set the value directly.
           nameAndDescriptionToWeavingDetails.put(
                   Pair.of("<init>", Type.getConstructorDescriptor(c)),
@@ -200,6 +222,10 @@ public final class ASMTransformerFactory
 
           final Method m = entry.getKey();
 
+          if (m.getDeclaringClass() != classBeingRedefined) {
+            continue;
+          }
+
           // The key will be unique, so we can set the value directly.
           nameAndDescriptionToWeavingDetails.put(
                   Pair.of(m.getName(), Type.getMethodDescriptor(m)),
@@ -207,6 +233,10 @@ public final class ASMTransformerFactory
         }
       }
 
+      if (nameAndDescriptionToWeavingDetails.isEmpty()) {
+        return null;
+      }
+
       final ClassReader classReader = new ClassReader(originalBytes);
 
       final ClassWriter classWriter =
@@ -220,7 +250,6 @@ public final class ASMTransformerFactory
 
       visitorChain = new AddAdviceClassAdapter(
                            visitorChain,
-                           Type.getType("L" + internalClassName + ";"),
                            nameAndDescriptionToWeavingDetails);
 
       // Uncomment to see the original code:
@@ -235,17 +264,14 @@ public final class ASMTransformerFactory
 
   private final class AddAdviceClassAdapter extends ClassAdapter {
 
-    private final Type m_internalClassType;
     private final Map<Pair<String, String>,
                       List<WeavingDetails>> m_weavingDetails;
 
     private AddAdviceClassAdapter(
       ClassVisitor classVisitor,
-      Type internalClassType,
       Map<Pair<String, String>, List<WeavingDetails>> weavingDetails) {
 
       super(classVisitor);
-      m_internalClassType = internalClassType;
       m_weavingDetails = weavingDetails;
     }
 
@@ -282,7 +308,6 @@ public final class ASMTransformerFactory
         assert defaultVisitor != null;
 
         return new AdviceMethodVisitor(defaultVisitor,
-                                       m_internalClassType,
                                        access,
                                        name,
                                        weavingDetails);
@@ -294,7 +319,6 @@ public final class ASMTransformerFactory
 
   private Map<Weaver.TargetSource, TargetExtractor> m_extractors =
     new HashMap<Weaver.TargetSource, TargetExtractor>() { {
-      put(Weaver.TargetSource.CLASS, new ClassTargetExtractor());
       put(Weaver.TargetSource.FIRST_PARAMETER,
           new LocalVariableTargetExtractor(0));
       put(Weaver.TargetSource.SECOND_PARAMETER,
@@ -304,7 +328,7 @@ public final class ASMTransformerFactory
     } };
 
   private interface TargetExtractor {
-    void extract(ContextMethodVisitor methodVisitor);
+    void extract(MethodVisitor methodVisitor);
   }
 
   private static class LocalVariableTargetExtractor implements TargetExtractor {
@@ -314,21 +338,11 @@ public final class ASMTransformerFactory
       m_variableNumber = variableNumber;
     }
 
-    public void extract(ContextMethodVisitor methodVisitor) {
+    public void extract(MethodVisitor methodVisitor) {
       methodVisitor.visitVarInsn(Opcodes.ALOAD, m_variableNumber);
     }
   }
 
-  private static class ClassTargetExtractor implements TargetExtractor {
-    public void extract(ContextMethodVisitor methodVisitor) {
-      methodVisitor.visitLdcInsn(methodVisitor.getInternalClassName());
-    }
-  }
-
-  private interface ContextMethodVisitor extends MethodVisitor {
-    Type getInternalClassName();
-  }
-
   /**
    * <p>
    * Generate our advice.
@@ -363,9 +377,8 @@ public final class ASMTransformerFactory
    * @author Philip Aston
    */
   private final class AdviceMethodVisitor
-    extends MethodAdapter implements ContextMethodVisitor, Opcodes {
+    extends MethodAdapter implements Opcodes {
 
-    private final Type m_internalClassType;
     private final List<WeavingDetails> m_weavingDetails;
 
     private final Label m_entryLabel = new Label();
@@ -374,13 +387,11 @@ public final class ASMTransformerFactory
     private boolean m_entryCallNeeded = true;
 
     private AdviceMethodVisitor(MethodVisitor mv,
-                                Type internalClassType,
                                 int access,
                                 String name,
                                 List<WeavingDetails> weavingDetails) {
       super(mv);
 
-      m_internalClassType = internalClassType;
       m_weavingDetails = weavingDetails;
     }
 
@@ -395,8 +406,22 @@ public final class ASMTransformerFactory
       }
     }
 
-    public Type getInternalClassName() {
-      return m_internalClassType;
+    /**
+     * Push the location, using the most compact instruction.
+     */
+    private void generateLocation(int location) {
+      if (location <= 5) {
+        super.visitInsn(ICONST_0 + location);
+      }
+      else if (location <= Byte.MAX_VALUE) {
+        super.visitIntInsn(BIPUSH, location);
+      }
+      else if (location <= Short.MAX_VALUE) {
+        super.visitIntInsn(SIPUSH, location);
+      }
+      else {
+        super.visitLdcInsn(location);
+      }
     }
 
     private void generateEntryCall() {
@@ -406,13 +431,25 @@ public final class ASMTransformerFactory
         super.visitLabel(m_entryLabel);
 
         for (WeavingDetails weavingDetails : m_weavingDetails) {
-          m_extractors.get(weavingDetails.getTargetSource()).extract(this);
-          super.visitLdcInsn(weavingDetails.getLocation());
-
-          super.visitMethodInsn(INVOKESTATIC,
-                                m_adviceClass,
-                                "enter",
-                                "(Ljava/lang/Object;Ljava/lang/String;)V");
+          final Weaver.TargetSource targetSource = weavingDetails.getTargetSource();
+
+          if (targetSource == Weaver.TargetSource.CLASS) {
+            generateLocation(weavingDetails.getLocation());
+
+            super.visitMethodInsn(INVOKESTATIC,
+                                  m_adviceClass,
+                                  "enter",
+                                  "(I)V");
+          }
+          else {
+            m_extractors.get(targetSource).extract(this);
+            generateLocation(weavingDetails.getLocation());
+
+            super.visitMethodInsn(INVOKESTATIC,
+                                  m_adviceClass,
+                                  "enter",
+                                  "(Ljava/lang/Object;I)V");
+          }
         }
       }
     }
@@ -429,16 +466,27 @@ public final class ASMTransformerFactory
 
       while (i.hasPrevious()) {
         final WeavingDetails weavingDetails = i.previous();
+        final Weaver.TargetSource targetSource = weavingDetails.getTargetSource();
 
-        m_extractors.get(weavingDetails.getTargetSource()).extract(this);
-        super.visitLdcInsn(weavingDetails.getLocation());
+        if (targetSource == Weaver.TargetSource.CLASS) {
+          generateLocation(weavingDetails.getLocation());
+          super.visitInsn(success ? ICONST_1 : ICONST_0);
 
-        super.visitInsn(success ? ICONST_1 : ICONST_0);
+          super.visitMethodInsn(INVOKESTATIC,
+                                m_adviceClass,
+                                "exit",
+                                "(IZ)V");
+        }
+        else {
+          m_extractors.get(targetSource).extract(this);
+          generateLocation(weavingDetails.getLocation());
+          super.visitInsn(success ? ICONST_1 : ICONST_0);
 
-        super.visitMethodInsn(INVOKESTATIC,
-                              m_adviceClass,
-                              "exit",
-                              "(Ljava/lang/Object;Ljava/lang/String;Z)V");
+          super.visitMethodInsn(INVOKESTATIC,
+                                m_adviceClass,
+                                "exit",
+                                "(Ljava/lang/Object;IZ)V");
+        }
       }
     }
 
@@ -33,7 +33,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import net.grinder.util.Pair;
 import net.grinder.util.weave.Weaver;
@@ -75,14 +75,14 @@ public final class DCRWeaver implements Weaver {
   /**
    * {@inheritDoc}
    */
-  @Override public String weave(Constructor<?> constructor) {
+  @Override public int weave(Constructor<?> constructor) {
     return m_pointCutRegistry.add(constructor);
   }
 
   /**
    * {@inheritDoc}
    */
-  @Override public String weave(Method method, TargetSource targetSource)
+  @Override public int weave(Method method, TargetSource targetSource)
     throws WeavingException {
     if (!targetSource.canApply(method)) {
       throw new WeavingException("Insufficient parameters for " +
@@ -111,13 +111,11 @@ public final class DCRWeaver implements Weaver {
     }
   }
 
-  private static final String s_classLoaderIdentity =
-    Integer.toHexString(DCRWeaver.class.hashCode()) + ":";
-  private static final AtomicLong s_nextLocation = new AtomicLong();
-
-  private static String generateLocationString() {
-    return s_classLoaderIdentity + s_nextLocation.getAndIncrement();
-  }
+  /**
+   * Locations are shared by all weavers loaded by our class loader, so they
+   * can be used to index the single advice dispatch table.
+   */
+  private static final AtomicInteger s_nextLocation = new AtomicInteger();
 
 
   /**
@@ -138,8 +136,8 @@ public final class DCRWeaver implements Weaver {
   private final class PointCutRegistryImplementation
     implements PointCutRegistry {
     // Guarded by this.
-    private final Map<Pair<Member, TargetSource>, String> m_wovenMembers =
-      new HashMap<Pair<Member, TargetSource>, String>();
+    private final Map<Pair<Member, TargetSource>, Integer> m_wovenMembers =
+      new HashMap<Pair<Member, TargetSource>, Integer>();
 
     // Pre-calculated mapping of internal class name -> constructor -> weaving
     // details, for efficiency.
@@ -165,17 +163,17 @@ public final class DCRWeaver implements Weaver {
         return m_internalClassNameToMethodToLocation.get(className);
     }
 
-    public String add(Constructor<?> constructor) {
+    public int add(Constructor<?> constructor) {
       return add(constructor,
                  TargetSource.CLASS,
                  m_internalClassNameToConstructorToLocation);
     }
 
-    public String add(Method method, TargetSource targetSource) {
+    public int add(Method method, TargetSource targetSource) {
       return add(method, targetSource, m_internalClassNameToMethodToLocation);
     }
 
-    private <T extends Member> String add(
+    private <T extends Member> int add(
       T member,
       TargetSource targetSource,
       Map<String, Map<T, List<WeavingDetails>>> classNameToMemberToLocation) {
@@ -184,7 +182,7 @@ public final class DCRWeaver implements Weaver {
           Pair.of((Member) member, targetSource);
 
       synchronized (this) {
-        final String alreadyWoven = m_wovenMembers.get(locationKey);
+        final Integer alreadyWoven = m_wovenMembers.get(locationKey);
 
         if (alreadyWoven != null) {
           return alreadyWoven;
@@ -193,9 +191,18 @@ public final class DCRWeaver implements Weaver {
 
       final String className = member.getDeclaringClass().getName();
       final String internalClassName = className.replace('.', '/');
-      final String location = generateLocationString();
+      final int location;
 
       synchronized (this) {
+        // Re-check, so that locations are not wasted by racing callers.
+        final Integer raced = m_wovenMembers.get(locationKey);
+
+        if (raced != null) {
+          return raced;
+        }
+
+        location = s_nextLocation.getAndIncrement();
+
         final Map<T, List<WeavingDetails>> memberToWeavingDetails;
 
         final Map<T, List<WeavingDetails>> existingMap =
@@ -30,12 +30,12 @@ import net.grinder.util.weave.Weaver.TargetSource;
  *
  * @author Philip Aston
  */
-final class WeavingDetails extends Pair<String, TargetSource> {
-  WeavingDetails(String location, TargetSource targetSource) {
+final class WeavingDetails extends Pair<Integer, TargetSource> {
+  WeavingDetails(int location, TargetSource targetSource) {
     super(location, targetSource);
   }
 
-  public String getLocation() {
+  public int getLocation() {
     return getFirst();
   }
 
@@ -30,6 +30,7 @@ import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.ObjectOutputStream;
 import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
@@ -179,6 +180,29 @@ public class TestAcceptor {
     assertEquals(callData.getParameters()[1], callData2.getParameters()[1]);
   }
 
+  @Test public void testWireProtocolOffer() throws Exception {
+
+    final Acceptor acceptor = createAcceptor(1);
+
+    final ResourcePool socketSet =
+      acceptor.getSocketSet(ConnectionType.WORKER);
+
+    final WireProtocol wireProtocol = new WireProtocol();
+
+    final SocketWrapper socketWrapper =
+      new Connector("localhost",
+                    acceptor.getPort(),
+                    ConnectionType.WORKER,
+                    wireProtocol).connectSocketWrapper(null);
+
+    // The acceptor only replies once the connection has been added.
+    assertEquals(1, socketSet.countActive());
+    assertSame(wireProtocol, socketWrapper.getWireProtocol());
+
+    socketWrapper.close();
+    acceptor.shutdown();
+  }
+
   private Acceptor createAcceptor(int numberOfThreads) throws Exception {
     // Figure out a free local port.
     final ServerSocket serverSocket = new ServerSocket(0);
@@ -259,6 +283,38 @@ public class TestAcceptor {
     assertNull(acceptor.getPendingException());
   }
 
+  @Test public void testBadHandshakeDoesNotStopAcceptor() throws Exception {
+
+    final Acceptor acceptor = createAcceptor(1);
+
+    final ResourcePool socketSet =
+      acceptor.getSocketSet(ConnectionType.AGENT);
+
+    // A client that sends a message instead of a handshake.
+    final Socket socket = new Socket("localhost", acceptor.getPort());
+    final ObjectOutputStream out =
+      new ObjectOutputStream(socket.getOutputStream());
+    out.writeObject(new CloseCommunicationMessage());
+    out.flush();
+
+    assertTrue(acceptor.getPendingException()
+               instanceof CommunicationException);
+
+    socket.close();
+
+    new Connector("localhost", acceptor.getPort(), ConnectionType.AGENT)
+      .connect();
+
+    for (int i = 0; socketSet.countActive() != 1 && i < 10; ++i) {
+      Thread.sleep(i * i * 10);
+    }
+
+    assertEquals(1, socketSet.countActive());
+    assertNull(acceptor.peekPendingException());
+
+    acceptor.shutdown();
+  }
+
   @Test public void testGetPendingExceptionInterrupted() throws Exception {
     final Acceptor acceptor = createAcceptor(3);
 
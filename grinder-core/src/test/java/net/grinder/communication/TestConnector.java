@@ -22,15 +22,26 @@
 package net.grinder.communication;
 
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
 import static junit.framework.Assert.fail;
 import static net.grinder.testutility.AssertUtilities.assertContains;
 import static net.grinder.testutility.AssertUtilities.assertNotEquals;
 
 import java.io.InputStream;
+import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
 import java.net.Socket;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import net.grinder.communication.Connector.ConnectDetails;
 
 import net.grinder.testutility.IsolatedObjectFactory;
 
@@ -90,6 +101,99 @@ public class TestConnector {
     }
   }
 
+  @Test public void testConnectWithWireProtocolOffer() throws Exception {
+    final SocketAcceptorThread socketAcceptor = SocketAcceptorThread.create();
+
+    final WireProtocol wireProtocol = new WireProtocol();
+
+    final Connector connector =
+      new Connector(socketAcceptor.getHostName(), socketAcceptor.getPort(),
+                    ConnectionType.AGENT, wireProtocol);
+
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    try {
+      final Future<SocketWrapper> future =
+        executor.submit(new Callable<SocketWrapper>() {
+          public SocketWrapper call() throws Exception {
+            return connector.connectSocketWrapper(null);
+          }
+        });
+
+      socketAcceptor.join();
+
+      final Socket serverSocket = socketAcceptor.getAcceptedSocket();
+
+      final ConnectDetails connectDetails =
+        Connector.read(serverSocket.getInputStream());
+
+      assertEquals(ConnectionType.AGENT, connectDetails.getConnectionType());
+      assertTrue(connectDetails.isWireProtocolOffered());
+
+      // The connector waits for the reply.
+      Thread.sleep(50);
+      assertFalse(future.isDone());
+
+      serverSocket.getOutputStream().write(WireProtocol.BINARY_VERSION);
+
+      final SocketWrapper socketWrapper = future.get();
+      assertSame(wireProtocol, socketWrapper.getWireProtocol());
+      socketWrapper.close();
+    }
+    finally {
+      executor.shutdown();
+      socketAcceptor.close();
+    }
+  }
+
+  @Test public void testConnectWithoutWireProtocolOffer() throws Exception {
+    final SocketAcceptorThread socketAcceptor = SocketAcceptorThread.create();
+
+    final Connector connector =
+      new Connector(socketAcceptor.getHostName(), socketAcceptor.getPort(),
+                    ConnectionType.AGENT);
+
+    final SocketWrapper socketWrapper = connector.connectSocketWrapper(null);
+
+    socketAcceptor.join();
+
+    final ConnectDetails connectDetails =
+      Connector.read(socketAcceptor.getAcceptedSocket().getInputStream());
+
+    assertFalse(connectDetails.isWireProtocolOffered());
+    assertNull(socketWrapper.getWireProtocol());
+
+    socketWrapper.close();
+    socketAcceptor.close();
+  }
+
+  @Test public void testWireProtocolOfferToOldAcceptor() throws Exception {
+    final SocketAcceptorThread socketAcceptor = SocketAcceptorThread.create();
+
+    final Connector connector =
+      new Connector(socketAcceptor.getHostName(), socketAcceptor.getPort(),
+                    ConnectionType.WORKER, new WireProtocol(), 100);
+
+    final SocketWrapper socketWrapper =
+      connector.connectSocketWrapper(new StubAddress());
+
+    socketAcceptor.join();
+
+    // Acceptors that don't understand the offer read the details as
+    // before, and never reply.
+    final ObjectInputStream in =
+      new ObjectInputStream(
+        socketAcceptor.getAcceptedSocket().getInputStream());
+
+    assertEquals(ConnectionType.WORKER, in.readObject());
+    assertTrue(in.readObject() instanceof StubAddress);
+
+    assertNull(socketWrapper.getWireProtocol());
+
+    socketWrapper.close();
+    socketAcceptor.close();
+  }
+
   @Test public void testBadRead() throws Exception {
     final PipedOutputStream out = new PipedOutputStream();
     final PipedInputStream in = new PipedInputStream(out);
@@ -130,6 +234,36 @@ public class TestConnector {
     }
     catch (CommunicationException e) {
     }
+
+    while (in.available() > 0) {
+      in.read();
+    }
+
+    // A message rather than a handshake.
+    final ObjectOutputStream objectStream2 = new ObjectOutputStream(out);
+    objectStream2.writeObject(new CloseCommunicationMessage());
+
+    try {
+      Connector.read(in);
+      fail("Expected CommunicationException");
+    }
+    catch (CommunicationException e) {
+    }
+
+    while (in.available() > 0) {
+      in.read();
+    }
+
+    final ObjectOutputStream objectStream3 = new ObjectOutputStream(out);
+    objectStream3.writeObject(ConnectionType.WORKER);
+    objectStream3.writeObject("not an address");
+
+    try {
+      Connector.read(in);
+      fail("Expected CommunicationException");
+    }
+    catch (CommunicationException e) {
+    }
   }
 
   @Test public void testEquality() throws Exception {
@@ -149,6 +283,7 @@ public class TestConnector {
       new Connector("a", 6423, ConnectionType.WORKER),
       new Connector("b", 1234, ConnectionType.WORKER),
       new Connector("a", 1234, ConnectionType.AGENT),
+      new Connector("a", 1234, ConnectionType.WORKER, new WireProtocol()),
     };
 
     for (int i = 0; i < equal.length; ++i) {
@@ -32,9 +32,8 @@ import java.net.Socket;
 import net.grinder.util.StandardTimeAuthority;
 import net.grinder.util.TimeAuthority;
 
-import org.junit.AfterClass;
+import org.junit.After;
 import org.junit.Before;
-import org.junit.BeforeClass;
 import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -47,22 +46,23 @@ import org.mockito.MockitoAnnotations;
  */
 public class TestIdleAwareSocketWrapper {
 
-  private static Acceptor s_acceptor;
+  private Acceptor m_acceptor;
   private Socket m_socket;
   @Mock private TimeAuthority m_timeAuthority;
 
-  @BeforeClass public static void setUpAcceptor() throws Exception {
-    s_acceptor = new Acceptor("localhost", 0, 1, new StandardTimeAuthority());
-  }
-
-  @AfterClass public static void shutDownAcceptor() throws Exception {
-    s_acceptor.shutdown();
-  }
-
   @Before public void createSocket() throws Exception {
     MockitoAnnotations.initMocks(this);
 
-    m_socket = new Socket(InetAddress.getByName(null), s_acceptor.getPort());
+    // Closing a wrapper sends a message the acceptor rejects, so each test
+    // has its own acceptor.
+    m_acceptor = new Acceptor("localhost", 0, 1, new StandardTimeAuthority());
+
+    m_socket = new Socket(InetAddress.getByName(null), m_acceptor.getPort());
+  }
+
+  @After public void shutDownAcceptor() throws Exception {
+    m_socket.close();
+    m_acceptor.shutdown();
   }
 
   @Test(expected=CommunicationException.class)
@@ -71,23 +71,23 @@ public class TestIdleAwareSocketWrapper {
     new IdleAwareSocketWrapper(m_socket, m_timeAuthority);
   }
 
-  @Test public void testHasDataNoData() throws Exception {
+  @Test public void testCloseIfIdleNotIdle() throws Exception {
     final IdleAwareSocketWrapper socketWrapper =
         new IdleAwareSocketWrapper(m_socket, m_timeAuthority);
 
-    assertFalse(socketWrapper.hasData(99));
+    assertFalse(socketWrapper.closeIfIdle(99));
   }
 
   @Test(expected = IOException.class)
-  public void testHasDataSocketClosed() throws Exception {
+  public void testCloseIfIdleSocketClosed() throws Exception {
     final IdleAwareSocketWrapper socketWrapper =
         new IdleAwareSocketWrapper(m_socket, m_timeAuthority);
     socketWrapper.close();
 
-    socketWrapper.hasData(99);
+    socketWrapper.closeIfIdle(99);
   }
 
-  @Test public void testHasDataTimeOut() throws Exception {
+  @Test public void testCloseIfIdleTimeOut() throws Exception {
 
     final IdleAwareSocketWrapper socketWrapper =
         new IdleAwareSocketWrapper(m_socket,
@@ -97,10 +97,40 @@ public class TestIdleAwareSocketWrapper {
       .thenReturn(1000L)
       .thenReturn(2000L);
 
-    assertFalse(socketWrapper.hasData(123));
+    assertFalse(socketWrapper.closeIfIdle(123));
+    assertFalse(m_socket.isClosed());
+
+    assertTrue(socketWrapper.closeIfIdle(123));
+    assertTrue(m_socket.isClosed());
+  }
+
+  @Test public void testDataReceived() throws Exception {
+
+    final IdleAwareSocketWrapper socketWrapper =
+        new IdleAwareSocketWrapper(m_socket,
+                                   m_timeAuthority);
+
+    when(m_timeAuthority.getTimeInMilliseconds())
+      .thenReturn(1000L)
+      .thenReturn(2000L)
+      .thenReturn(3000L);
+
+    assertFalse(socketWrapper.closeIfIdle(123));
+
+    socketWrapper.dataReceived();
+
+    assertFalse(socketWrapper.closeIfIdle(123));
     assertFalse(m_socket.isClosed());
 
-    assertFalse(socketWrapper.hasData(123));
+    assertTrue(socketWrapper.closeIfIdle(123));
     assertTrue(m_socket.isClosed());
   }
+
+  @Test public void testClaimForReceiver() throws Exception {
+    final IdleAwareSocketWrapper socketWrapper =
+        new IdleAwareSocketWrapper(m_socket, m_timeAuthority);
+
+    assertTrue(socketWrapper.claimForReceiver());
+    assertFalse(socketWrapper.claimForReceiver());
+  }
 }
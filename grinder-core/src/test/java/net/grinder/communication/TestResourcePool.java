@@ -245,6 +245,85 @@ public class TestResourcePool {
     }
   }
 
+  @Test public void testReserve() throws Exception {
+    final ResourcePool resourcePool = new ResourcePoolImplementation();
+
+    final MyResource resource1 = new MyResource();
+    final MyResource resource2 = new MyResource();
+
+    assertNull(resourcePool.reserve(resource1));
+
+    resourcePool.add(resource1);
+    resourcePool.add(resource2);
+
+    final ResourcePool.Reservation reservation =
+      resourcePool.reserve(resource2);
+    assertSame(resource2, reservation.getResource());
+
+    // Only resource1 is free.
+    final ResourcePool.Reservation next = resourcePool.reserveNext();
+    assertSame(resource1, next.getResource());
+    assertTrue(resourcePool.reserveNext().isSentinel());
+    next.free();
+
+    final Thread thread = new Thread() {
+        public void run() {
+          try {
+            Thread.sleep(50);
+          }
+          catch (InterruptedException e) {
+          }
+
+          reservation.free();
+        }
+      };
+
+    thread.start();
+
+    // Blocks until the other thread frees resource2.
+    final ResourcePool.Reservation reservation2 =
+      resourcePool.reserve(resource2);
+    assertSame(resource2, reservation2.getResource());
+
+    thread.join();
+
+    reservation2.close();
+    assertNull(resourcePool.reserve(resource2));
+  }
+
+  @Test public void testAddReserved() throws Exception {
+    final ResourcePool resourcePool = new ResourcePoolImplementation();
+
+    final Listener listener = mock(ResourcePool.Listener.class);
+    resourcePool.addListener(listener);
+
+    final MyResource resource = new MyResource();
+
+    final ResourcePool.Reservation reservation =
+      resourcePool.addReserved(resource);
+    assertSame(resource, reservation.getResource());
+
+    assertTrue(resourcePool.reserveNext().isSentinel());
+    assertEquals(1, resourcePool.countActive());
+    verifyNoMoreInteractions(listener);
+
+    reservation.free();
+    verify(listener).resourceAdded(resource);
+
+    final ResourcePool.Reservation reservation2 = resourcePool.reserveNext();
+    assertSame(resource, reservation2.getResource());
+
+    reservation2.free();
+    reservation2.close();
+    verify(listener).resourceClosed(resource);
+    verifyNoMoreInteractions(listener);
+
+    // A resource closed before it is freed is never announced.
+    final MyResource resource2 = new MyResource();
+    resourcePool.addReserved(resource2).close();
+    verifyNoMoreInteractions(listener);
+  }
+
   @Test public void testClose() throws Exception {
 
     final ResourcePool resourcePool = new ResourcePoolImplementation();
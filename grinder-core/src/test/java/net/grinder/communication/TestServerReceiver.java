@@ -27,7 +27,9 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayOutputStream;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.net.InetAddress;
 import java.net.Socket;
 
@@ -144,6 +146,152 @@ public class TestServerReceiver {
     acceptor.shutdown();
   }
 
+  @Test public void testFragmentedMessages() throws Exception {
+
+    final Acceptor acceptor = new Acceptor("localhost", 0, 1, m_timeAuthority);
+
+    final ServerReceiver serverReceiver = new ServerReceiver();
+    serverReceiver.receiveFrom(
+      acceptor, new ConnectionType[] { ConnectionType.AGENT }, 2, 10, 10000);
+
+    final Socket socket =
+      new Connector(InetAddress.getByName(null).getHostName(),
+                    acceptor.getPort(),
+                    ConnectionType.AGENT)
+      .connect();
+
+    // A message much larger than the receive buffer, followed by a small one.
+    final SimpleMessage message1 = new SimpleMessage(100000);
+    final SimpleMessage message2 = new SimpleMessage();
+
+    final ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+
+    final ObjectOutputStream objectStream1 =
+      new ObjectOutputStream(byteStream);
+    objectStream1.writeObject(message1);
+    objectStream1.flush();
+
+    final ObjectOutputStream objectStream2 =
+      new ObjectOutputStream(byteStream);
+    objectStream2.writeObject(message2);
+    objectStream2.flush();
+
+    final byte[] bytes = byteStream.toByteArray();
+
+    // Write in chunks that split both messages.
+    final OutputStream out = socket.getOutputStream();
+    final int chunk = bytes.length / 7;
+
+    for (int i = 0; i < bytes.length; i += chunk) {
+      out.write(bytes, i, Math.min(chunk, bytes.length - i));
+      out.flush();
+      Thread.sleep(5);
+    }
+
+    assertEquals(message1, serverReceiver.waitForMessage());
+    assertEquals(message2, serverReceiver.waitForMessage());
+
+    serverReceiver.shutdown();
+    acceptor.shutdown();
+  }
+
+  @Test public void testBinaryFrames() throws Exception {
+
+    final Acceptor acceptor = new Acceptor("localhost", 0, 1, m_timeAuthority);
+
+    final ServerReceiver serverReceiver = new ServerReceiver();
+    serverReceiver.receiveFrom(
+      acceptor, new ConnectionType[] { ConnectionType.AGENT }, 2, 10, 10000);
+
+    final ClientSender clientSender =
+      ClientSender.connect(
+        new Connector(InetAddress.getByName(null).getHostName(),
+                      acceptor.getPort(),
+                      ConnectionType.AGENT,
+                      new WireProtocol()),
+        null);
+
+    // Binary frames and Java serialised messages can be interleaved.
+    final SimpleMessage message = new SimpleMessage();
+
+    clientSender.sendKeepAlive();
+    clientSender.send(message);
+    clientSender.sendKeepAlive();
+
+    assertTrue(serverReceiver.waitForMessage() instanceof KeepAliveMessage);
+    assertEquals(message, serverReceiver.waitForMessage());
+    assertTrue(serverReceiver.waitForMessage() instanceof KeepAliveMessage);
+
+    clientSender.shutdown();
+    serverReceiver.shutdown();
+    acceptor.shutdown();
+  }
+
+  @Test public void testLargeBinaryFrame() throws Exception {
+
+    final Acceptor acceptor = new Acceptor("localhost", 0, 1, m_timeAuthority);
+
+    final ServerReceiver serverReceiver = new ServerReceiver();
+    serverReceiver.receiveFrom(
+      acceptor, new ConnectionType[] { ConnectionType.AGENT }, 2, 10, 10000);
+
+    final ClientSender clientSender =
+      ClientSender.connect(
+        new Connector(InetAddress.getByName(null).getHostName(),
+                      acceptor.getPort(),
+                      ConnectionType.AGENT,
+                      new WireProtocol()),
+        null);
+
+    // Messages without a codec are framed too.
+    final SimpleMessage message1 = new SimpleMessage(100000);
+    final SimpleMessage message2 = new SimpleMessage();
+
+    for (int i = 0; i < 3; ++i) {
+      clientSender.send(message1);
+      clientSender.send(message2);
+
+      assertEquals(message1, serverReceiver.waitForMessage());
+      assertEquals(message2, serverReceiver.waitForMessage());
+    }
+
+    clientSender.shutdown();
+    serverReceiver.shutdown();
+    acceptor.shutdown();
+  }
+
+  @Test public void testCorruptStream() throws Exception {
+
+    final Acceptor acceptor = new Acceptor("localhost", 0, 1, m_timeAuthority);
+
+    final ServerReceiver serverReceiver = new ServerReceiver();
+    serverReceiver.receiveFrom(
+      acceptor, new ConnectionType[] { ConnectionType.AGENT }, 1, 10, 10000);
+
+    final Socket socket =
+      new Connector(InetAddress.getByName(null).getHostName(),
+                    acceptor.getPort(),
+                    ConnectionType.AGENT)
+      .connect();
+
+    // A serialisation stream header, followed by an invalid type code and
+    // more data. This is corrupt, not incomplete.
+    final OutputStream out = socket.getOutputStream();
+    out.write(new byte[] { (byte) 0xAC, (byte) 0xED, 0x00, 0x05,
+                           0x01, 0x02, 0x03, 0x04, });
+    out.flush();
+
+    try {
+      serverReceiver.waitForMessage();
+      fail("Expected CommunicationException");
+    }
+    catch (CommunicationException e) {
+    }
+
+    serverReceiver.shutdown();
+    acceptor.shutdown();
+  }
+
   @Test public void testWaitForBadMessage() throws Exception {
 
     final Acceptor acceptor = new Acceptor("localhost", 0, 1, m_timeAuthority);
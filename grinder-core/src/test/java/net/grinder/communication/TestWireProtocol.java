@@ -0,0 +1,296 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+
+package net.grinder.communication;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+
+/**
+ * Unit tests for {@link WireProtocol}.
+ *
+ * @author Philip Aston
+ */
+public class TestWireProtocol {
+
+  private static final int MY_MESSAGE_TYPE = 1000;
+
+  private final WireProtocol m_wireProtocol = new WireProtocol();
+
+  @Before public void setUp() {
+    m_wireProtocol.register(MY_MESSAGE_TYPE, MyMessage.class, new MyCodec());
+  }
+
+  static final class MyMessage implements Message {
+    private static final long serialVersionUID = 1L;
+
+    private final String m_text;
+
+    public MyMessage(String text) {
+      m_text = text;
+    }
+
+    public String getText() {
+      return m_text;
+    }
+  }
+
+  static final class MyCodec implements WireProtocol.MessageCodec<MyMessage> {
+    public void write(MyMessage message, DataOutput out) throws IOException {
+      out.writeUTF(message.getText());
+    }
+
+    public MyMessage read(DataInput in) throws IOException {
+      return new MyMessage(in.readUTF());
+    }
+  }
+
+  private static DataInput dataInput(byte[] bytes) {
+    return new DataInputStream(new ByteArrayInputStream(bytes));
+  }
+
+  @Test public void testRoundTrip() throws Exception {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    m_wireProtocol.write(new MyMessage("Hello"), out);
+    m_wireProtocol.write(new KeepAliveMessage(), out);
+    m_wireProtocol.write(new CloseCommunicationMessage(), out);
+    m_wireProtocol.write(new SimpleMessage(), out);
+
+    final byte[] bytes = out.toByteArray();
+    assertEquals(WireProtocol.MARKER, bytes[0]);
+
+    final int frameLength =
+      WireProtocol.frameLength(bytes, 0, bytes.length);
+    assertEquals(WireProtocol.HEADER_LENGTH + 7, frameLength);
+    assertEquals(-1, WireProtocol.frameLength(bytes, 0, 7));
+
+    final DataInput in = dataInput(bytes);
+
+    assertEquals("Hello", ((MyMessage) m_wireProtocol.read(in)).getText());
+    assertTrue(m_wireProtocol.read(in) instanceof KeepAliveMessage);
+    assertTrue(m_wireProtocol.read(in) instanceof CloseCommunicationMessage);
+    assertTrue(m_wireProtocol.read(in) instanceof SimpleMessage);
+  }
+
+  @Test public void testSerialisedFrameMustHoldAMessage() throws Exception {
+    final ByteArrayOutputStream payload = new ByteArrayOutputStream();
+    final ObjectOutputStream objectStream = new ObjectOutputStream(payload);
+    objectStream.writeObject("Not a message");
+    objectStream.close();
+
+    final ByteArrayOutputStream frame = new ByteArrayOutputStream();
+    final DataOutputStream out = new DataOutputStream(frame);
+    out.writeByte(WireProtocol.MARKER);
+    out.writeByte(WireProtocol.BINARY_VERSION);
+    out.writeShort(0);
+    out.writeInt(payload.size());
+    payload.writeTo(out);
+    out.flush();
+
+    try {
+      m_wireProtocol.read(dataInput(frame.toByteArray()));
+      fail("Expected IOException");
+    }
+    catch (IOException e) {
+    }
+  }
+
+  @Test public void testFrameIsSmallerThanJavaSerialisation()
+    throws Exception {
+
+    final MyMessage message = new MyMessage("Hello");
+
+    final ByteArrayOutputStream binary = new ByteArrayOutputStream();
+    m_wireProtocol.write(message, binary);
+
+    final ByteArrayOutputStream java = new ByteArrayOutputStream();
+    final ObjectOutputStream objectStream = new ObjectOutputStream(java);
+    objectStream.writeObject(message);
+    objectStream.close();
+
+    assertTrue(binary.size() * 4 < java.size());
+  }
+
+  @Test public void testBadFrames() throws Exception {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    m_wireProtocol.write(new MyMessage("Hello"), out);
+    final byte[] good = out.toByteArray();
+
+    final byte[] badMarker = good.clone();
+    badMarker[0] = (byte) 0xAC;
+
+    final byte[] badVersion = good.clone();
+    badVersion[1] = WireProtocol.BINARY_VERSION + 1;
+
+    final byte[] unknownType = good.clone();
+    unknownType[2] = 0x7F;
+
+    final byte[] badLength = good.clone();
+    badLength[4] = (byte) 0x80;
+
+    final byte[] truncated = new byte[good.length - 1];
+    System.arraycopy(good, 0, truncated, 0, truncated.length);
+
+    for (byte[] bad :
+         new byte[][] { badMarker, badVersion, unknownType, badLength,
+                        truncated, }) {
+      try {
+        m_wireProtocol.read(dataInput(bad));
+        fail("Expected IOException");
+      }
+      catch (IOException e) {
+      }
+    }
+
+    try {
+      WireProtocol.frameLength(badLength, 0, badLength.length);
+      fail("Expected IOException");
+    }
+    catch (IOException e) {
+    }
+  }
+
+  @Test public void testRegister() throws Exception {
+    // Re-registration is harmless.
+    m_wireProtocol.register(MY_MESSAGE_TYPE, MyMessage.class, new MyCodec());
+
+    try {
+      m_wireProtocol.register(MY_MESSAGE_TYPE,
+                              SimpleMessage.class,
+                              new WireProtocol.MessageCodec<SimpleMessage>() {
+        public void write(SimpleMessage message, DataOutput out) { }
+
+        public SimpleMessage read(DataInput in) {
+          return new SimpleMessage();
+        }
+      });
+
+      fail("Expected IllegalStateException");
+    }
+    catch (IllegalStateException e) {
+    }
+
+    try {
+      m_wireProtocol.register(MY_MESSAGE_TYPE + 1,
+                              MyMessage.class,
+                              new MyCodec());
+      fail("Expected IllegalStateException");
+    }
+    catch (IllegalStateException e) {
+    }
+
+    try {
+      m_wireProtocol.register(-1, MyMessage.class, new MyCodec());
+      fail("Expected IllegalArgumentException");
+    }
+    catch (IllegalArgumentException e) {
+    }
+  }
+
+  @Test public void testRegistrationsAreNotShared() throws Exception {
+    final WireProtocol other = new WireProtocol();
+
+    // MyMessage has no codec in the other instance, so is sent serialised.
+    final ByteArrayOutputStream serialised = new ByteArrayOutputStream();
+    other.write(new MyMessage("Hello"), serialised);
+    assertTrue(serialised.size() > 50);
+    assertEquals("Hello",
+                 ((MyMessage) m_wireProtocol.read(
+                   dataInput(serialised.toByteArray()))).getText());
+
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    other.write(new KeepAliveMessage(), out);
+    assertEquals(WireProtocol.HEADER_LENGTH, out.size());
+
+    // Each instance can use the same type for a different message.
+    other.register(MY_MESSAGE_TYPE,
+                   SimpleMessage.class,
+                   new WireProtocol.MessageCodec<SimpleMessage>() {
+      public void write(SimpleMessage message, DataOutput out) { }
+
+      public SimpleMessage read(DataInput in) {
+        return new SimpleMessage();
+      }
+    });
+
+    final ByteArrayOutputStream simple = new ByteArrayOutputStream();
+    other.write(new SimpleMessage(), simple);
+
+    try {
+      m_wireProtocol.read(dataInput(simple.toByteArray()));
+      fail("Expected IOException");
+    }
+    catch (IOException e) {
+      // MyCodec tries to read a string from an empty payload.
+    }
+  }
+
+  @Test public void testStreamSenderAndReceiver() throws Exception {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    final StreamSender sender =
+      new StreamSender(out, m_wireProtocol);
+    sender.send(new MyMessage("Binary"));
+    sender.send(new SimpleMessage());
+    sender.send(new MyMessage("Again"));
+
+    new StreamSender(out).send(new MyMessage("Java"));
+
+    // A late reply to a Connector's offer is ignored.
+    out.write(WireProtocol.BINARY_VERSION);
+    sender.send(new MyMessage("After reply"));
+
+    sender.shutdown();
+
+    final byte[] bytes = out.toByteArray();
+    assertEquals(WireProtocol.MARKER, bytes[0]);
+
+    final StreamReceiver receiver =
+      new StreamReceiver(new ByteArrayInputStream(bytes), m_wireProtocol);
+
+    assertEquals("Binary",
+                 ((MyMessage) receiver.waitForMessage()).getText());
+    assertTrue(receiver.waitForMessage() instanceof SimpleMessage);
+    assertEquals("Again",
+                 ((MyMessage) receiver.waitForMessage()).getText());
+    assertEquals("Java",
+                 ((MyMessage) receiver.waitForMessage()).getText());
+    assertEquals("After reply",
+                 ((MyMessage) receiver.waitForMessage()).getText());
+    assertEquals(null, receiver.waitForMessage());
+  }
+}
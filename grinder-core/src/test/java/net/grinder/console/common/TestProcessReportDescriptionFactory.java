@@ -53,6 +53,7 @@ public class TestProcessReportDescriptionFactory extends TestCase {
         put("processState.finished.label", "fini");
         put("processState.disconnected.label", "that's all folks");
         put("processState.unknown.label", "huh");
+        put("processState.saturated.label", "swamped");
       } }
     );
 
@@ -149,15 +150,22 @@ public class TestProcessReportDescriptionFactory extends TestCase {
     workerProcessReportStubFactory.setResult(
       "getState", ProcessReport.State.RUNNING);
     workerProcessReportStubFactory.setResult(
-      "getNumberOfRunningThreads", new Short((short) 10));
+      "getNumberOfRunningThreads", new Integer(10));
     workerProcessReportStubFactory.setResult(
-      "getMaximumNumberOfThreads", new Short((short) 21));
+      "getMaximumNumberOfThreads", new Integer(21));
+    workerProcessReportStubFactory.setResult("isSaturated", Boolean.FALSE);
 
     final ProcessDescription description2 =
       processReportDescriptionFactory.create(workerProcessReport);
 
     assertEquals("rolling (10/21 strings)", description2.getState());
 
+    workerProcessReportStubFactory.setResult("isSaturated", Boolean.TRUE);
+
+    assertEquals("rolling (10/21 strings, swamped)",
+                 processReportDescriptionFactory.create(workerProcessReport)
+                 .getState());
+
     workerProcessReportStubFactory.setResult(
       "getState", ProcessReport.State.STARTED);
 
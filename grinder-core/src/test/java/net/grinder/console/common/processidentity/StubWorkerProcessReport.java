@@ -30,8 +30,8 @@ public final class StubWorkerProcessReport
   implements WorkerProcessReport {
 
   private final State m_state;
-  private final short m_totalNumberOfThreads;
-  private final short m_numberOfRunningThreads;
+  private final int m_totalNumberOfThreads;
+  private final int m_numberOfRunningThreads;
   private final WorkerAddress m_workerAddress;
 
   public StubWorkerProcessReport(WorkerIdentity workerIdentity,
@@ -40,8 +40,8 @@ public final class StubWorkerProcessReport
                                  int totalThreads) {
     m_workerAddress = new WorkerAddress(workerIdentity);
     m_state = finished;
-    m_numberOfRunningThreads = (short)runningThreads;
-    m_totalNumberOfThreads = (short)totalThreads;
+    m_numberOfRunningThreads = runningThreads;
+    m_totalNumberOfThreads = totalThreads;
   }
 
   public WorkerAddress getProcessAddress() {
@@ -56,14 +56,18 @@ public final class StubWorkerProcessReport
     return m_state;
   }
 
-  public short getNumberOfRunningThreads() {
+  public int getNumberOfRunningThreads() {
     return m_numberOfRunningThreads;
   }
 
-  public short getMaximumNumberOfThreads() {
+  public int getMaximumNumberOfThreads() {
     return m_totalNumberOfThreads;
   }
 
+  public boolean isSaturated() {
+    return false;
+  }
+
   public int hashCode() {
     return m_workerAddress.hashCode();
   }
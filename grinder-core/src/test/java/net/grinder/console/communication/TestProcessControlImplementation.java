@@ -38,6 +38,7 @@ import net.grinder.console.common.DisplayMessageConsoleException;
 import net.grinder.console.common.Resources;
 import net.grinder.console.communication.ProcessControl.ProcessReports;
 import net.grinder.engine.agent.StubAgentIdentity;
+import net.grinder.messages.agent.SetArrivalRateMessage;
 import net.grinder.messages.agent.StartGrinderMessage;
 import net.grinder.messages.agent.StubCacheHighWaterMark;
 import net.grinder.messages.console.AgentAddress;
@@ -74,6 +75,7 @@ public class TestProcessControlImplementation {
   @Captor ArgumentCaptor<Handler<AgentProcessReportMessage>>
     m_agentReportMessageHandlerCaptor;
   @Captor ArgumentCaptor<StartGrinderMessage> m_startGrinderMessageCaptor;
+  @Captor ArgumentCaptor<SetArrivalRateMessage> m_setArrivalRateMessageCaptor;
 
   private ProcessControl m_processControl;
 
@@ -189,4 +191,13 @@ public class TestProcessControlImplementation {
     assertEquals(properties, sentProperties);
     assertEquals(new File("four/my.props"), sentProperties.getAssociatedFile());
   }
+
+  @Test public void testSetArrivalRate() throws Exception {
+    m_processControl.setArrivalRate(2.5);
+
+    verify(m_consoleCommunication).sendToAgents(
+      m_setArrivalRateMessageCaptor.capture());
+
+    assertEquals(2.5, m_setArrivalRateMessageCaptor.getValue().getRate(), 0);
+  }
 }
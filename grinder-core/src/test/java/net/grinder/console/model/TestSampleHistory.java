@@ -0,0 +1,221 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+
+package net.grinder.console.model;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.isA;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TimerTask;
+
+import net.grinder.common.StubTest;
+import net.grinder.common.Test;
+import net.grinder.console.common.ConsoleException;
+import net.grinder.console.common.ErrorHandler;
+import net.grinder.console.common.Resources;
+import net.grinder.console.common.StubResources;
+import net.grinder.console.model.TimeSeriesStore.Sample;
+import net.grinder.statistics.StatisticsIndexMap;
+import net.grinder.statistics.StatisticsServices;
+import net.grinder.statistics.StatisticsServicesImplementation;
+import net.grinder.statistics.StatisticsSet;
+import net.grinder.statistics.TestStatisticsMap;
+import net.grinder.testutility.AbstractJUnit4FileTestCase;
+import net.grinder.testutility.StubTimer;
+import net.grinder.util.TimeAuthority;
+
+import org.junit.After;
+import org.junit.Before;
+
+
+/**
+ * Unit tests for {@link SampleHistory}.
+ *
+ * @author Philip Aston
+ */
+public class TestSampleHistory extends AbstractJUnit4FileTestCase {
+
+  private final Resources m_resources = new StubResources<String>(
+    new HashMap<String, String>() {{
+      put("state.ignoring.label", "whatever");
+      put("state.waiting.label", "waiting, waiting, waiting");
+      put("state.stopped.label", "done");
+      put("state.capturing.label", "running");
+    }}
+  );
+
+  private final StatisticsServices m_statisticsServices =
+    StatisticsServicesImplementation.getInstance();
+
+  private final StatisticsIndexMap.LongSampleIndex m_timedTestsIndex =
+    m_statisticsServices.getStatisticsIndexMap()
+    .getLongSampleIndex("timedTests");
+
+  private final StatisticsIndexMap.LongIndex m_errorsIndex =
+    m_statisticsServices.getStatisticsIndexMap().getLongIndex("errors");
+
+  private final ErrorHandler m_errorHandler = mock(ErrorHandler.class);
+
+  private long m_time = 1000;
+
+  private final TimeAuthority m_timeAuthority = new TimeAuthority() {
+    public long getTimeInMilliseconds() {
+      return m_time;
+    }
+
+    public long getTimeInNanoseconds() {
+      return m_time * 1000000;
+    }
+  };
+
+  private StubTimer m_timer;
+  private SampleModelImplementation m_model;
+  private TimeSeriesStore m_store;
+
+  @Before public void setUp() throws Exception {
+    m_timer = new StubTimer();
+
+    final ConsoleProperties consoleProperties =
+      new ConsoleProperties(null, new File(getDirectory(), "props"));
+
+    m_model = new SampleModelImplementation(consoleProperties,
+                                            m_statisticsServices,
+                                            m_timer,
+                                            m_resources,
+                                            m_errorHandler);
+
+    m_store =
+      new TimeSeriesStore(new File(getDirectory(), "store"), 100, 10, 2);
+  }
+
+  @After public void stopTimer() throws Exception {
+    m_timer.cancel();
+    m_store.close();
+  }
+
+  private StatisticsSet statistics(final long errors, final long... times) {
+    final StatisticsSet result =
+      m_statisticsServices.getStatisticsSetFactory().create();
+
+    for (final long time : times) {
+      result.addSample(m_timedTestsIndex, time);
+    }
+
+    result.setValue(m_errorsIndex, errors);
+
+    return result;
+  }
+
+  @org.junit.Test public void testRecordsSamples() throws Exception {
+    final SampleHistory history =
+      new SampleHistory(m_model,
+                        m_statisticsServices,
+                        m_timeAuthority,
+                        m_errorHandler,
+                        m_store);
+
+    final Test test1 = new StubTest(1, "first");
+    final Test test2 = new StubTest(2, "second");
+
+    m_model.registerTests(new HashSet<Test>(asList(test1, test2)));
+
+    final Map<Integer, String> tests = history.getTests();
+    assertEquals(asList(1, 2), asList(tests.keySet().toArray()));
+    assertEquals("first", tests.get(1));
+
+    final TestStatisticsMap report = new TestStatisticsMap();
+    report.put(test1, statistics(1, 10, 20, 30));
+    report.put(test2, statistics(0, 40));
+    m_model.addTestReport(report);
+
+    final TimerTask sampleTask = m_timer.getLastScheduledTimerTask();
+    sampleTask.run();
+
+    m_time = 2000;
+    sampleTask.run();
+
+    final List<Sample> samples1 = history.getSamples(1, 0, Long.MAX_VALUE);
+    assertEquals(2, samples1.size());
+
+    final Sample first = samples1.get(0);
+    assertEquals(1000, first.getTime());
+    assertEquals(3, first.getTests());
+    assertEquals(1, first.getErrors());
+    assertEquals(3, first.getTimedTests());
+    assertEquals(60, first.getTestTime());
+    assertEquals(20, first.getMeanTestTime(), 0.0001);
+    assertEquals(Math.sqrt(200d / 3), first.getTestTimeStandardDeviation(),
+                 0.0001);
+
+    final Sample second = samples1.get(1);
+    assertEquals(2000, second.getTime());
+    assertEquals(0, second.getTests());
+
+    final List<Sample> totals =
+      history.getSamples(SampleHistory.TOTALS, 0, 1500);
+    assertEquals(1, totals.size());
+    assertEquals(4, totals.get(0).getTests());
+    assertEquals(100, totals.get(0).getTestTime());
+
+    assertEquals(1, history.getSamples(2, 1500, 2500).size());
+  }
+
+  @org.junit.Test public void testFailureIsReportedOnce() throws Exception {
+    // A directory can't be mapped.
+    final TimeSeriesStore store =
+      new TimeSeriesStore(getDirectory(), 100, 10, 2);
+
+    final SampleHistory history =
+      new SampleHistory(m_model,
+                        m_statisticsServices,
+                        m_timeAuthority,
+                        m_errorHandler,
+                        store);
+
+    final Test test = new StubTest(1, "first");
+    m_model.registerTests(new HashSet<Test>(asList(test)));
+
+    final TestStatisticsMap report = new TestStatisticsMap();
+    report.put(test, statistics(0, 10));
+    m_model.addTestReport(report);
+
+    final TimerTask sampleTask = m_timer.getLastScheduledTimerTask();
+    sampleTask.run();
+    sampleTask.run();
+
+    verify(m_errorHandler).handleException(isA(ConsoleException.class));
+    verifyNoMoreInteractions(m_errorHandler);
+
+    assertEquals(0,
+                 history.getSamples(SampleHistory.TOTALS, 0, Long.MAX_VALUE)
+                 .size());
+  }
+}
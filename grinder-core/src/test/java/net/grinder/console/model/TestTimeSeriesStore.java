@@ -0,0 +1,261 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+
+package net.grinder.console.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.List;
+
+import net.grinder.console.model.TimeSeriesStore.Sample;
+import net.grinder.testutility.AbstractJUnit4FileTestCase;
+
+import org.junit.Test;
+
+
+/**
+ * Unit tests for {@link TimeSeriesStore}.
+ *
+ * @author Philip Aston
+ */
+public class TestTimeSeriesStore extends AbstractJUnit4FileTestCase {
+
+  private static Sample sample(final long time) {
+    return new Sample(time, 1000, 1, 0, 1, 10, 100);
+  }
+
+  private static long[] times(final List<Sample> samples) {
+    final long[] result = new long[samples.size()];
+
+    for (int i = 0; i < result.length; ++i) {
+      result[i] = samples.get(i).getTime();
+    }
+
+    return result;
+  }
+
+  private static void assertTimes(final long[] expected,
+                                  final List<Sample> samples) {
+    final long[] actual = times(samples);
+
+    assertEquals(expected.length, actual.length);
+
+    for (int i = 0; i < expected.length; ++i) {
+      assertEquals(expected[i], actual[i]);
+    }
+  }
+
+  @Test public void testConstruction() throws Exception {
+    final File file = new File(getDirectory(), "store");
+
+    try {
+      new TimeSeriesStore(file, 0, 10, 1);
+      fail("Expected IllegalArgumentException");
+    }
+    catch (IllegalArgumentException e) {
+    }
+
+    try {
+      new TimeSeriesStore(file, 10, 1, 1);
+      fail("Expected IllegalArgumentException");
+    }
+    catch (IllegalArgumentException e) {
+    }
+
+    try {
+      new TimeSeriesStore(file, 10, 10, 0);
+      fail("Expected IllegalArgumentException");
+    }
+    catch (IllegalArgumentException e) {
+    }
+
+    // Nothing is created until a sample is appended.
+    final TimeSeriesStore store = new TimeSeriesStore(file, 10, 10, 2);
+    assertEquals(0, store.getSamples(1, 0, Long.MAX_VALUE).size());
+    assertFalse(file.exists());
+
+    store.append(1, sample(1));
+    store.append(1, sample(2));
+    assertEquals(10 * 2 * 56, file.length());
+
+    store.append(2, sample(1));
+    assertEquals(2 * 10 * 2 * 56, file.length());
+    store.close();
+
+    // Closing a store that was never used is harmless.
+    new TimeSeriesStore(file, 10, 10, 2).close();
+  }
+
+  @Test public void testTemporaryFile() throws Exception {
+    final TimeSeriesStore store = new TimeSeriesStore(10, 10, 2);
+    store.append(1, sample(1));
+    assertTimes(new long[] { 1 }, store.getSamples(1, 0, Long.MAX_VALUE));
+    store.close();
+  }
+
+  @Test public void testSeriesHaveTheirOwnCapacity() throws Exception {
+    final TimeSeriesStore store =
+      new TimeSeriesStore(new File(getDirectory(), "store"), 5, 10, 1);
+
+    for (int i = 1; i <= 5; ++i) {
+      store.append(1, sample(i));
+    }
+
+    // A busy series doesn't overwrite the samples of a quiet one.
+    for (int i = 1; i <= 100; ++i) {
+      store.append(2, sample(i));
+    }
+
+    assertTimes(new long[] { 1, 2, 3, 4, 5 },
+                store.getSamples(1, 0, Long.MAX_VALUE));
+    assertTimes(new long[] { 96, 97, 98, 99, 100 },
+                store.getSamples(2, 0, Long.MAX_VALUE));
+    assertTimes(new long[] { 98, 99 }, store.getSamples(2, 98, 99));
+    assertTimes(new long[] { }, store.getSamples(2, 101, 200));
+    assertTimes(new long[] { }, store.getSamples(2, 0, 95));
+
+    store.close();
+  }
+
+  @Test public void testAppendAndQuery() throws Exception {
+    final TimeSeriesStore store =
+      new TimeSeriesStore(new File(getDirectory(), "store"), 100, 10, 2);
+
+    for (int i = 1; i <= 5; ++i) {
+      store.append(1, sample(i));
+      store.append(2, new Sample(i, 1000, 3, 1, 2, 40, 1000));
+    }
+
+    assertTimes(new long[] { 1, 2, 3, 4, 5 },
+                store.getSamples(1, 0, Long.MAX_VALUE));
+    assertTimes(new long[] { 2, 3, 4 }, store.getSamples(2, 2, 4));
+    assertEquals(0, store.getSamples(3, 0, Long.MAX_VALUE).size());
+
+    final Sample sample = store.getSamples(2, 5, 5).get(0);
+    assertEquals(5, sample.getTime());
+    assertEquals(1000, sample.getPeriod());
+    assertEquals(3, sample.getTests());
+    assertEquals(1, sample.getErrors());
+    assertEquals(2, sample.getTimedTests());
+    assertEquals(40, sample.getTestTime());
+    assertEquals(1000, sample.getTestTimeSumOfSquares(), 0);
+    assertEquals(3, sample.getTPS(), 0);
+    assertEquals(20, sample.getMeanTestTime(), 0);
+    assertEquals(10, sample.getTestTimeStandardDeviation(), 0.0001);
+
+    final Sample empty = new Sample(1, 0, 0, 0, 0, 0, 0);
+    assertEquals(0, empty.getTPS(), 0);
+    assertTrue(Double.isNaN(empty.getMeanTestTime()));
+    assertTrue(Double.isNaN(empty.getTestTimeStandardDeviation()));
+
+    store.close();
+  }
+
+  @Test public void testDownsampling() throws Exception {
+    final TimeSeriesStore store =
+      new TimeSeriesStore(new File(getDirectory(), "store"), 4, 2, 3);
+
+    for (int i = 1; i <= 20; ++i) {
+      store.append(1, sample(i));
+    }
+
+    // The first tier holds 17 - 20, the second 14, 16, 18, 20, and the
+    // third 8, 12, 16, 20.
+    final List<Sample> samples = store.getSamples(1, 0, Long.MAX_VALUE);
+    assertTimes(new long[] { 8, 12, 14, 16, 17, 18, 19, 20 }, samples);
+
+    final long[] periods = { 4000, 4000, 2000, 2000, 1000, 1000, 1000, 1000 };
+    long tests = 0;
+
+    for (int i = 0; i < periods.length; ++i) {
+      final Sample sample = samples.get(i);
+      assertEquals(periods[i], sample.getPeriod());
+      assertEquals(1, sample.getTPS(), 0);
+      assertEquals(10, sample.getMeanTestTime(), 0);
+      assertEquals(0, sample.getTestTimeStandardDeviation(), 0);
+      tests += sample.getTests();
+    }
+
+    // Samples 5 - 20.
+    assertEquals(16, tests);
+
+    assertTimes(new long[] { 12, 14, 16 }, store.getSamples(1, 10, 16));
+
+    store.close();
+  }
+
+  @Test public void testTierBoundary() throws Exception {
+    final TimeSeriesStore store =
+      new TimeSeriesStore(new File(getDirectory(), "store"), 4, 2, 2);
+
+    for (int i = 1; i <= 7; ++i) {
+      store.append(1, sample(i));
+    }
+
+    // The first tier holds 4 - 7, the second 2, 4, 6. The oldest sample of
+    // the first tier only holds half of the second tier's sample 4, so 4 is
+    // taken from the second tier.
+    final List<Sample> samples = store.getSamples(1, 0, Long.MAX_VALUE);
+    assertTimes(new long[] { 2, 4, 5, 6, 7 }, samples);
+
+    long tests = 0;
+
+    for (final Sample sample : samples) {
+      tests += sample.getTests();
+    }
+
+    // Samples 1 - 7.
+    assertEquals(7, tests);
+    assertEquals(2000, samples.get(1).getPeriod());
+
+    assertTimes(new long[] { 4, 5 }, store.getSamples(1, 3, 5));
+    assertTimes(new long[] { 5, 6 }, store.getSamples(1, 5, 6));
+
+    store.close();
+  }
+
+  @Test public void testDownsamplingSeries() throws Exception {
+    final TimeSeriesStore store =
+      new TimeSeriesStore(new File(getDirectory(), "store"), 3, 3, 2);
+
+    for (int i = 1; i <= 6; ++i) {
+      store.append(1, sample(i));
+      store.append(2, new Sample(i, 1000, 2, 0, 0, 0, 0));
+    }
+
+    // Each series is downsampled separately. The first tier holds 4 - 6
+    // for each series.
+    assertTimes(new long[] { 3, 4, 5, 6 },
+                store.getSamples(1, 0, Long.MAX_VALUE));
+
+    final List<Sample> samples = store.getSamples(2, 0, Long.MAX_VALUE);
+    assertTimes(new long[] { 3, 4, 5, 6 }, samples);
+    assertEquals(6, samples.get(0).getTests());
+    assertEquals(3000, samples.get(0).getPeriod());
+
+    store.close();
+  }
+}
@@ -42,6 +42,7 @@ import net.grinder.communication.Connector;
 import net.grinder.communication.MessageDispatchSender;
 import net.grinder.communication.MessagePump;
 import net.grinder.communication.Sender;
+import net.grinder.communication.WireProtocol;
 import net.grinder.console.common.ErrorHandler;
 import net.grinder.console.common.Resources;
 import net.grinder.console.communication.ConsoleCommunication;
@@ -189,10 +190,16 @@ public class TestDistributedBarriers {
 
       m_agentIdentity = new StubAgentIdentity("agent" + n);
 
+      // Offer the wire protocol, as agents and workers do. The console
+      // replies once it has added each connection, so every process is
+      // known to the console before any thread waits at a barrier.
+      final WireProtocol wireProtocol = new WireProtocol();
+
       final ClientReceiver agentReceiver =
         ClientReceiver.connect(new Connector("localhost",
                                              m_port,
-                                             ConnectionType.AGENT),
+                                             ConnectionType.AGENT,
+                                             wireProtocol),
                                new AgentAddress(m_agentIdentity));
 
       m_messageDispatcher = new MessageDispatchSender();
@@ -205,7 +212,8 @@ public class TestDistributedBarriers {
       final Sender workerSender =
         ClientSender.connect(new Connector("localhost",
                                            m_port,
-                                           ConnectionType.WORKER),
+                                           ConnectionType.WORKER,
+                                           wireProtocol),
                             workerAddress);
 
       m_barrierGroups =
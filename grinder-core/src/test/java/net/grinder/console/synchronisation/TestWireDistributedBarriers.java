@@ -21,6 +21,7 @@
 
 package net.grinder.console.synchronisation;
 
+import static java.util.Arrays.asList;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.eq;
@@ -29,6 +30,9 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+
+import java.util.HashSet;
+
 import net.grinder.common.processidentity.ProcessReport;
 import net.grinder.common.processidentity.WorkerIdentity;
 import net.grinder.common.processidentity.WorkerProcessReport;
@@ -48,6 +52,7 @@ import net.grinder.synchronisation.BarrierGroup;
 import net.grinder.synchronisation.BarrierGroups;
 import net.grinder.synchronisation.messages.AddBarrierMessage;
 import net.grinder.synchronisation.messages.AddWaiterMessage;
+import net.grinder.synchronisation.messages.AddWaitersMessage;
 import net.grinder.synchronisation.messages.BarrierIdentity;
 import net.grinder.synchronisation.messages.CancelWaiterMessage;
 import net.grinder.synchronisation.messages.RemoveBarriersMessage;
@@ -125,6 +130,26 @@ public class TestWireDistributedBarriers {
     m_handlerCaptor.getValue().handle(new RemoveBarriersMessage("hello", 1));
 
     verify(barrierGroup).removeBarriers(1);
+
+    // Add waiters.
+    verify(m_messageDispatchRegistry).set(eq(AddBarrierMessage.class),
+                                          m_handlerCaptor.capture());
+
+    m_handlerCaptor.getValue().handle(new AddBarrierMessage("hello"));
+    m_handlerCaptor.getValue().handle(new AddBarrierMessage("hello"));
+
+    verify(m_messageDispatchRegistry).set(eq(AddWaitersMessage.class),
+                                          m_handlerCaptor.capture());
+
+    final BarrierIdentity barrierIdentity2 = mock(BarrierIdentity.class);
+
+    m_handlerCaptor.getValue().handle(
+      new AddWaitersMessage("hello",
+                            new HashSet<BarrierIdentity>(
+                              asList(m_barrierIdentity, barrierIdentity2))));
+
+    verify(barrierGroup, times(2)).addWaiter(m_barrierIdentity);
+    verify(barrierGroup).addWaiter(barrierIdentity2);
   }
 
   @Test public void testBarriersCleanUp() throws Exception {
@@ -44,10 +44,12 @@ import net.grinder.communication.Message;
 import net.grinder.communication.Sender;
 import net.grinder.communication.ServerReceiver;
 import net.grinder.communication.StreamReceiver;
+import net.grinder.communication.WireProtocol;
 import net.grinder.engine.agent.DebugThreadWorker.IsolateGrinderProcessRunner;
 import net.grinder.messages.agent.ResetGrinderMessage;
 import net.grinder.messages.agent.StartGrinderMessage;
 import net.grinder.messages.agent.StopGrinderMessage;
+import net.grinder.messages.console.ConsoleMessageCodecs;
 import net.grinder.testutility.AbstractJUnit4FileTestCase;
 
 import org.junit.After;
@@ -452,7 +454,13 @@ public class TestAgentImplementation extends AbstractJUnit4FileTestCase {
       final int port = findFreePort();
 
       m_acceptor = new Acceptor("", port, 1, null);
-      m_receiver = new ServerReceiver();
+
+      // The agent offers the binary wire protocol, so we must be able to
+      // decode its messages.
+      final WireProtocol wireProtocol = new WireProtocol();
+      ConsoleMessageCodecs.register(wireProtocol);
+
+      m_receiver = new ServerReceiver(wireProtocol);
       m_receiver.receiveFrom(
         m_acceptor, new ConnectionType[] { ConnectionType.AGENT }, 1, 10, 1000);
       m_sender = new FanOutServerSender(m_acceptor, ConnectionType.AGENT, 3);
@@ -266,6 +266,31 @@ public class TestFileStore extends AbstractJUnit4FileTestCase {
     assertEquals(currentDirectoryFile, fileStore.getDirectory().getFile());
   }
 
+  @Test public void testDerivedDataDirectory() throws Exception {
+    final Logger logger = mock(Logger.class);
+
+    final FileStore fileStore = new FileStore(getDirectory(), logger);
+
+    final MessageDispatchSender messageDispatcher = new MessageDispatchSender();
+    fileStore.registerMessageHandlers(messageDispatcher);
+
+    final File derivedDirectory =
+      fileStore.getDerivedDataDirectory().getFile();
+
+    assertEquals(new File(getDirectory(), "derived"), derivedDirectory);
+
+    // Not created until used.
+    assertFalse(derivedDirectory.exists());
+
+    final File derivedFile = new File(derivedDirectory, "jython/x.class");
+    FileUtilities.createFile(derivedFile);
+
+    messageDispatcher.send(new ClearCacheMessage());
+
+    assertFalse(derivedFile.exists());
+    assertTrue(derivedDirectory.exists());
+  }
+
   @Test public void testFileStoreException() throws Exception {
     final Exception nested = new Exception("");
     final FileStore.FileStoreException e =
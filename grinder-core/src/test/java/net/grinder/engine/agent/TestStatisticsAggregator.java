@@ -0,0 +1,172 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+
+package net.grinder.engine.agent;
+
+import static java.util.Collections.singleton;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Timer;
+
+import net.grinder.common.StubTest;
+import net.grinder.common.Test;
+import net.grinder.communication.ClientSender;
+import net.grinder.communication.CommunicationException;
+import net.grinder.communication.ConnectionType;
+import net.grinder.communication.Connector;
+import net.grinder.communication.Message;
+import net.grinder.communication.Sender;
+import net.grinder.communication.WireProtocol;
+import net.grinder.messages.console.ConsoleMessageCodecs;
+import net.grinder.messages.console.RegisterTestsMessage;
+import net.grinder.messages.console.ReportStatisticsMessage;
+import net.grinder.statistics.StatisticsIndexMap;
+import net.grinder.statistics.StatisticsServices;
+import net.grinder.statistics.StatisticsServicesImplementation;
+import net.grinder.statistics.StatisticsSet;
+import net.grinder.statistics.TestStatisticsMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.slf4j.Logger;
+
+
+/**
+ * Unit tests for {@link StatisticsAggregator}.
+ *
+ * @author Philip Aston
+ */
+public class TestStatisticsAggregator {
+
+  private final StatisticsServices m_statisticsServices =
+    StatisticsServicesImplementation.getInstance();
+
+  private final StatisticsIndexMap.LongIndex m_errorsIndex =
+    m_statisticsServices.getStatisticsIndexMap().getLongIndex("errors");
+
+  private final RecordingSender m_consoleSender = new RecordingSender();
+
+  private final Logger m_logger = mock(Logger.class);
+
+  private final WireProtocol m_wireProtocol = new WireProtocol();
+
+  private Timer m_timer;
+
+  @Before public void setUp() {
+    ConsoleMessageCodecs.register(m_wireProtocol);
+    m_timer = new Timer(true);
+  }
+
+  @After public void tearDown() {
+    m_timer.cancel();
+  }
+
+  private ClientSender connectWorker(StatisticsAggregator aggregator)
+    throws CommunicationException {
+    return ClientSender.connect(
+      new Connector("localhost",
+                    aggregator.getPort(),
+                    ConnectionType.WORKER,
+                    m_wireProtocol),
+      null);
+  }
+
+  private ReportStatisticsMessage report(Test test, long errors) {
+    final StatisticsSet statistics =
+      m_statisticsServices.getStatisticsSetFactory().create();
+    statistics.addValue(m_errorsIndex, errors);
+
+    final TestStatisticsMap map = new TestStatisticsMap();
+    map.put(test, statistics);
+
+    return new ReportStatisticsMessage(map);
+  }
+
+  @org.junit.Test public void testAggregation() throws Exception {
+    final StatisticsAggregator aggregator =
+      new StatisticsAggregator(m_consoleSender, m_timer, 60000, m_logger);
+
+    final Test test = new StubTest(1, "One");
+
+    final ClientSender worker1 = connectWorker(aggregator);
+    final ClientSender worker2 = connectWorker(aggregator);
+
+    worker1.send(new RegisterTestsMessage(singleton(test)));
+    worker1.send(report(test, 2));
+    worker2.send(report(test, 3));
+    worker1.send(report(test, 4));
+
+    worker1.shutdown();
+    worker2.shutdown();
+
+    aggregator.shutdown();
+
+    final List<Message> messages = m_consoleSender.getMessages();
+    assertEquals(2, messages.size());
+    assertTrue(messages.get(0) instanceof RegisterTestsMessage);
+
+    final TestStatisticsMap statistics =
+      ((ReportStatisticsMessage) messages.get(1)).getStatisticsDelta();
+    assertEquals(1, statistics.size());
+    assertEquals(9,
+      statistics.nonCompositeStatisticsTotals().getValue(m_errorsIndex));
+  }
+
+  @org.junit.Test public void testReportPerInterval() throws Exception {
+    final StatisticsAggregator aggregator =
+      new StatisticsAggregator(m_consoleSender, m_timer, 60000, m_logger);
+
+    // Nothing to report.
+    aggregator.report();
+    assertEquals(0, m_consoleSender.getMessages().size());
+
+    final Test test = new StubTest(1, "One");
+    final ClientSender worker = connectWorker(aggregator);
+    worker.send(report(test, 1));
+    worker.shutdown();
+
+    aggregator.shutdown();
+    assertEquals(1, m_consoleSender.getMessages().size());
+
+    aggregator.report();
+    assertEquals(1, m_consoleSender.getMessages().size());
+  }
+
+  private static final class RecordingSender implements Sender {
+    private final List<Message> m_messages = new ArrayList<Message>();
+
+    public synchronized void send(Message message) {
+      m_messages.add(message);
+    }
+
+    public void shutdown() {
+    }
+
+    public synchronized List<Message> getMessages() {
+      return new ArrayList<Message>(m_messages);
+    }
+  }
+}
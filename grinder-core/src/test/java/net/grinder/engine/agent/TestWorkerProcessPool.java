@@ -0,0 +1,191 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.engine.agent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintWriter;
+
+import net.grinder.engine.agent.ProcessWorker.ChildProcess;
+import net.grinder.engine.common.EngineException;
+import net.grinder.engine.process.WorkerProcessEntryPoint;
+
+import org.junit.After;
+import org.junit.Test;
+import org.slf4j.Logger;
+
+
+/**
+ * Unit tests for {@link WorkerProcessPool}.
+ *
+ * @author Philip Aston
+ */
+public class TestWorkerProcessPool {
+
+  private static final String s_testClasspath =
+    System.getProperty("java.class.path");
+
+  private final ByteArrayOutputStream m_outputStream =
+    new ByteArrayOutputStream();
+
+  private final WorkerProcessPool m_pool =
+    new WorkerProcessPool(2,
+                          m_outputStream,
+                          new ByteArrayOutputStream(),
+                          mock(Logger.class));
+
+  private final CommandLine m_commandLine =
+    new MyCommandLine("java",
+                      "-classpath",
+                      s_testClasspath,
+                      EchoClass.class.getName());
+
+  @After public void tearDown() {
+    m_pool.shutdown();
+  }
+
+  private void waitForIdle(int expected) throws InterruptedException {
+    for (int i = 0; i < 200 && m_pool.getNumberIdle() != expected; ++i) {
+      Thread.sleep(50);
+    }
+
+    assertEquals(expected, m_pool.getNumberIdle());
+  }
+
+  private String echoArguments(ChildProcess process) {
+    final PrintWriter out = new PrintWriter(process.getOutputStream());
+    out.print(EchoClass.ECHO_ARGUMENTS);
+    out.print('\n');
+    out.close();
+
+    process.waitFor();
+
+    return new String(m_outputStream.toByteArray());
+  }
+
+  @Test public void testTakeFromEmptyPool() throws Exception {
+    assertEquals(2, m_pool.getSize());
+    assertEquals(0, m_pool.getNumberIdle());
+
+    final ChildProcess process = m_pool.take(m_commandLine);
+
+    assertEquals("", echoArguments(process));
+
+    // The pool isn't refilled until we ask.
+    assertEquals(0, m_pool.getNumberIdle());
+
+    m_pool.refill();
+    waitForIdle(2);
+  }
+
+  @Test public void testTakePrestarted() throws Exception {
+    m_pool.take(m_commandLine).destroy();
+    m_pool.refill();
+    waitForIdle(2);
+
+    final ChildProcess process = m_pool.take(m_commandLine);
+
+    assertEquals(WorkerProcessEntryPoint.PRESTARTED_ARGUMENT,
+                 echoArguments(process));
+
+    assertEquals(1, m_pool.getNumberIdle());
+
+    m_pool.refill();
+    waitForIdle(2);
+  }
+
+  @Test public void testRefillBeforeTake() throws Exception {
+    m_pool.refill();
+    assertEquals(0, m_pool.getNumberIdle());
+  }
+
+  @Test public void testChangedCommandLine() throws Exception {
+    m_pool.take(m_commandLine).destroy();
+    m_pool.refill();
+    waitForIdle(2);
+
+    final CommandLine commandLine2 =
+      new MyCommandLine("java",
+                        "-classpath",
+                        s_testClasspath,
+                        "-Dfoo=bar",
+                        EchoClass.class.getName());
+
+    // Idle processes for the old command line are discarded.
+    final ChildProcess process = m_pool.take(commandLine2);
+    assertEquals("", echoArguments(process));
+    assertEquals(0, m_pool.getNumberIdle());
+
+    m_pool.refill();
+    waitForIdle(2);
+  }
+
+  @Test public void testShutdown() throws Exception {
+    m_pool.take(m_commandLine).destroy();
+    m_pool.refill();
+    waitForIdle(2);
+
+    m_pool.shutdown();
+    assertEquals(0, m_pool.getNumberIdle());
+
+    // We can still start processes, but the pool is not refilled.
+    final ChildProcess process = m_pool.take(m_commandLine);
+    assertEquals("", echoArguments(process));
+    m_pool.refill();
+    assertEquals(0, m_pool.getNumberIdle());
+  }
+
+  @Test public void testBadCommandLine() throws Exception {
+    final CommandLine commandLine =
+      new MyCommandLine("No such process blah blah blah");
+
+    try {
+      m_pool.take(commandLine);
+      fail("Expected EngineException");
+    }
+    catch (EngineException e) {
+    }
+
+    // Background failures are logged.
+    m_pool.refill();
+    m_pool.shutdown();
+    assertEquals(0, m_pool.getNumberIdle());
+  }
+
+  @Test public void testProcessWorker() throws Exception {
+    final ChildProcess process = m_pool.take(m_commandLine);
+
+    final ProcessWorker worker =
+      new ProcessWorker(new StubAgentIdentity("test").createWorkerIdentity(),
+                        process);
+
+    assertEquals("test-0", worker.getIdentity().getName());
+    assertSame(process.getOutputStream(), worker.getCommunicationStream());
+
+    worker.destroy();
+    worker.waitFor();
+  }
+}
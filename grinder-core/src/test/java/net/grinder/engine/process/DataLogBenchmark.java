@@ -0,0 +1,118 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+
+package net.grinder.engine.process;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import net.grinder.common.StubTest;
+import net.grinder.common.Test;
+import net.grinder.statistics.ExpressionView;
+import net.grinder.statistics.StatisticsIndexMap;
+import net.grinder.statistics.StatisticsServices;
+import net.grinder.statistics.StatisticsServicesImplementation;
+import net.grinder.statistics.StatisticsSet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.helpers.NOPLogger;
+
+
+/**
+ * JMH benchmark comparing the cost of writing a test result to the CSV
+ * data log with the cost of writing it to a {@link BinaryDataLog}.
+ *
+ * <p>
+ * The CSV case uses a no-op logger, so it measures only the formatting
+ * done by {@link ThreadDataLogger}; the logback appender adds to this.
+ * Run with {@code -prof gc} to compare allocation rates.
+ * </p>
+ *
+ * @author Philip Aston
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DataLogBenchmark {
+
+  @Param({ "csv", "binary" })
+  public String m_format;
+
+  private final Test m_test = new StubTest(1, "test");
+
+  private StatisticsSet m_statistics;
+  private ThreadDataLogger m_threadDataLogger;
+  private BinaryDataLog m_binaryDataLog;
+  private File m_file;
+  private long m_startTime;
+
+  @Setup(Level.Trial) public void setUp() throws Exception {
+    final StatisticsServices statisticsServices =
+      StatisticsServicesImplementation.getInstance();
+    final StatisticsIndexMap indexMap =
+      statisticsServices.getStatisticsIndexMap();
+
+    m_statistics = statisticsServices.getStatisticsSetFactory().create();
+    m_statistics.addSample(indexMap.getLongSampleIndex("timedTests"), 123);
+
+    final ExpressionView[] views =
+      statisticsServices.getDetailStatisticsView().getExpressionViews();
+
+    m_threadDataLogger =
+      new ThreadDataLogger(NOPLogger.NOP_LOGGER, views, 1);
+
+    m_file = File.createTempFile("data", ".bin");
+    m_binaryDataLog =
+      new BinaryDataLog(m_file, views, NOPLogger.NOP_LOGGER);
+  }
+
+  @TearDown(Level.Trial) public void tearDown() {
+    m_binaryDataLog.close();
+    m_file.delete();
+  }
+
+  @Benchmark public void report() {
+    ++m_startTime;
+
+    if ("binary".equals(m_format)) {
+      m_binaryDataLog.report(1, 2, m_test, m_startTime, m_statistics);
+    }
+    else {
+      m_threadDataLogger.report(2, m_test, m_startTime, m_statistics);
+    }
+  }
+}
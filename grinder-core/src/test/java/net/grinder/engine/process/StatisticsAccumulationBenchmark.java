@@ -0,0 +1,121 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+
+package net.grinder.engine.process;
+
+import java.util.concurrent.TimeUnit;
+
+import net.grinder.statistics.StatisticsIndexMap;
+import net.grinder.statistics.StatisticsServicesImplementation;
+import net.grinder.statistics.StatisticsSet;
+import net.grinder.statistics.StatisticsSetFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * JMH micro-benchmark comparing the ways {@link TestData} can accumulate the
+ * statistics for each test invocation.
+ *
+ * <ul>
+ * <li><em>shared</em> creates a new statistics set for each invocation, and
+ * adds it to a single statistics set shared by all worker threads.</li>
+ * <li><em>perThread</em> reuses a statistics set for each invocation, and adds
+ * it to a statistics set owned by the worker thread. The per-thread sets are
+ * merged when the statistics are reported to the console.</li>
+ * </ul>
+ *
+ * <p>
+ * Run with <code>java -cp &lt;test class path&gt; org.openjdk.jmh.Main
+ * StatisticsAccumulationBenchmark</code>.
+ * </p>
+ *
+ * @author Philip Aston
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class StatisticsAccumulationBenchmark {
+
+  private static final StatisticsSetFactory s_statisticsSetFactory =
+    StatisticsServicesImplementation.getInstance().getStatisticsSetFactory();
+
+  private static final StatisticsIndexMap.LongSampleIndex s_timedTestsIndex =
+    StatisticsServicesImplementation.getInstance().getStatisticsIndexMap()
+    .getLongSampleIndex("timedTests");
+
+  /**
+   * State shared by all worker threads.
+   */
+  @State(Scope.Benchmark)
+  public static class SharedState {
+    private final StatisticsSet m_testStatistics =
+      s_statisticsSetFactory.create();
+  }
+
+  /**
+   * State owned by a single worker thread.
+   */
+  @State(Scope.Thread)
+  public static class ThreadState {
+    private final StatisticsSet m_threadStatistics =
+      s_statisticsSetFactory.create();
+
+    private final StatisticsSet m_invocationStatistics =
+      s_statisticsSetFactory.create();
+
+    private long m_time;
+  }
+
+  @Benchmark
+  public StatisticsSet shared(SharedState shared, ThreadState thread) {
+    final StatisticsSet statistics = s_statisticsSetFactory.create();
+    statistics.addSample(s_timedTestsIndex, ++thread.m_time & 0xFF);
+
+    shared.m_testStatistics.add(statistics);
+
+    return statistics;
+  }
+
+  @Benchmark
+  public StatisticsSet perThread(ThreadState thread) {
+    final StatisticsSet statistics = thread.m_invocationStatistics;
+    statistics.reset();
+    statistics.addSample(s_timedTestsIndex, ++thread.m_time & 0xFF);
+
+    thread.m_threadStatistics.add(statistics);
+
+    return statistics;
+  }
+}
@@ -22,6 +22,9 @@
 package net.grinder.engine.process;
 
 import static org.mockito.Mockito.mock;
+
+import java.util.concurrent.TimeUnit;
+
 import net.grinder.script.TestRegistry;
 import net.grinder.scriptengine.Instrumenter;
 import net.grinder.statistics.StatisticsServicesImplementation;
@@ -47,7 +50,8 @@ public class StubTestRegistry {
       new TestRegistryImplementation(null,
                                      statisticsSetFactory,
                                      testStatisticsHelper,
-                                     null);
+                                     null,
+                                     TimeUnit.MILLISECONDS);
 
     testRegistry.setInstrumenter(instrumenter);
 
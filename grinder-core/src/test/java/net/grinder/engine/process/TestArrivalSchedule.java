@@ -0,0 +1,95 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.engine.process;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import net.grinder.engine.process.ArrivalSchedule.Distribution;
+
+import org.junit.Test;
+
+
+/**
+ * Unit tests for {@link ArrivalSchedule}.
+ *
+ * @author Philip Aston
+ */
+public class TestArrivalSchedule {
+
+  private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  @Test public void testConstant() throws Exception {
+    final ArrivalSchedule schedule =
+      new ArrivalSchedule(4, 0, 0, 0, Distribution.CONSTANT, new Random());
+
+    assertEquals(4, schedule.getRate(0), 0);
+    assertEquals(4, schedule.getRate(100 * SECOND), 0);
+    assertEquals(SECOND / 4, schedule.nextInterval(0));
+    assertEquals(SECOND / 4, schedule.nextInterval(123 * SECOND));
+
+    schedule.setInitialRate(10);
+    assertEquals(SECOND / 10, schedule.nextInterval(0));
+
+    schedule.setInitialRate(0);
+    assertEquals(-1, schedule.nextInterval(0));
+  }
+
+  @Test public void testStepped() throws Exception {
+    final ArrivalSchedule schedule =
+      new ArrivalSchedule(10, 5, SECOND, 22, Distribution.CONSTANT,
+                          new Random());
+
+    assertEquals(10, schedule.getRate(0), 0);
+    assertEquals(10, schedule.getRate(SECOND - 1), 0);
+    assertEquals(15, schedule.getRate(SECOND), 0);
+    assertEquals(20, schedule.getRate(SECOND * 5 / 2), 0);
+    assertEquals(22, schedule.getRate(10 * SECOND), 0);
+    assertEquals(SECOND / 20, schedule.nextInterval(SECOND * 5 / 2));
+
+    final ArrivalSchedule rampDown =
+      new ArrivalSchedule(10, -5, SECOND, 0, Distribution.CONSTANT,
+                          new Random());
+
+    assertEquals(5, rampDown.getRate(SECOND), 0);
+    assertEquals(0, rampDown.getRate(3 * SECOND), 0);
+    assertEquals(-1, rampDown.nextInterval(3 * SECOND));
+  }
+
+  @Test public void testPoisson() throws Exception {
+    final ArrivalSchedule schedule =
+      new ArrivalSchedule(100, 0, 0, 0, Distribution.POISSON, new Random(99));
+
+    final int n = 100000;
+    long total = 0;
+
+    for (int i = 0; i < n; ++i) {
+      final long interval = schedule.nextInterval(0);
+      assertEquals(true, interval >= 0);
+      total += interval;
+    }
+
+    assertEquals(SECOND / 100, total / n, SECOND / 100 / 50);
+  }
+}
@@ -0,0 +1,192 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.engine.process;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import net.grinder.engine.process.ArrivalSchedule.Distribution;
+import net.grinder.engine.process.ArrivalScheduler.ArrivalStatistics;
+import net.grinder.util.TimeAuthority;
+
+import org.junit.After;
+import org.junit.Test;
+
+
+/**
+ * Unit tests for {@link ArrivalScheduler}.
+ *
+ * @author Philip Aston
+ */
+public class TestArrivalScheduler {
+
+  private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final ExecutorService m_executor = Executors.newCachedThreadPool();
+
+  private final SettableTimeAuthority m_timeAuthority =
+    new SettableTimeAuthority();
+
+  @After public void tearDown() {
+    m_executor.shutdownNow();
+  }
+
+  private ArrivalScheduler createScheduler(final double rate,
+                                           final long maximumQueueingDelay) {
+    return new ArrivalScheduler(
+      new ArrivalSchedule(rate, 0, 0, 0, Distribution.CONSTANT, new Random()),
+      m_timeAuthority,
+      maximumQueueingDelay);
+  }
+
+  @Test public void testQueueingDelay() throws Exception {
+    final ArrivalScheduler scheduler = createScheduler(10, 0);
+
+    m_timeAuthority.set(1000 * MS);
+    assertEquals(0, scheduler.awaitArrival());
+
+    // Three arrivals are now due.
+    m_timeAuthority.set(1350 * MS);
+    assertEquals(250 * MS, scheduler.awaitArrival());
+    assertEquals(150 * MS, scheduler.awaitArrival());
+    assertEquals(50 * MS, scheduler.awaitArrival());
+
+    final ArrivalStatistics statistics = scheduler.takeIntervalStatistics();
+    assertEquals(4, statistics.getArrivals());
+    assertEquals(0, statistics.getMissedArrivals());
+    assertEquals(112500000, statistics.getMeanQueueingDelay());
+    assertEquals(250 * MS, statistics.getMaximumQueueingDelay());
+    assertFalse(statistics.isSaturated());
+
+    assertEquals(0, scheduler.takeIntervalStatistics().getArrivals());
+    assertEquals(4, scheduler.getTotalStatistics().getArrivals());
+  }
+
+  @Test public void testSaturation() throws Exception {
+    final ArrivalScheduler scheduler = createScheduler(10, 0);
+
+    scheduler.awaitArrival();
+
+    // The next arrival is due, but no thread has claimed it.
+    m_timeAuthority.set(150 * MS);
+    assertTrue(scheduler.takeIntervalStatistics().isSaturated());
+
+    scheduler.awaitArrival();
+    assertFalse(scheduler.takeIntervalStatistics().isSaturated());
+  }
+
+  @Test public void testMaximumQueueingDelay() throws Exception {
+    final ArrivalScheduler scheduler = createScheduler(10, 200 * MS);
+
+    scheduler.awaitArrival();
+
+    m_timeAuthority.set(350 * MS);
+
+    // The arrival at 100 ms is dropped.
+    assertEquals(150 * MS, scheduler.awaitArrival());
+
+    final ArrivalStatistics statistics = scheduler.takeIntervalStatistics();
+    assertEquals(2, statistics.getArrivals());
+    assertEquals(1, statistics.getMissedArrivals());
+    assertTrue(statistics.isSaturated());
+  }
+
+  @Test public void testSetRate() throws Exception {
+    final ArrivalScheduler scheduler = createScheduler(10, 0);
+
+    assertEquals(10, scheduler.getRate(), 0);
+    scheduler.awaitArrival();
+
+    m_timeAuthority.set(1000 * MS);
+    scheduler.setRate(20);
+    assertEquals(20, scheduler.getRate(), 0);
+
+    final Future<Long> arrival = m_executor.submit(new Callable<Long>() {
+      @Override public Long call() throws Exception {
+        return scheduler.awaitArrival();
+      }
+    });
+
+    // The schedule restarts from the time of the change.
+    Thread.sleep(20);
+    assertFalse(arrival.isDone());
+
+    m_timeAuthority.set(1050 * MS);
+    assertEquals(0, arrival.get(5, TimeUnit.SECONDS).longValue());
+  }
+
+  @Test public void testShutdown() throws Exception {
+    final ArrivalScheduler scheduler = createScheduler(0.001, 0);
+
+    scheduler.awaitArrival();
+
+    final Future<Long> arrival = m_executor.submit(new Callable<Long>() {
+      @Override public Long call() throws Exception {
+        return scheduler.awaitArrival();
+      }
+    });
+
+    Thread.sleep(20);
+    scheduler.shutdown();
+
+    try {
+      arrival.get(5, TimeUnit.SECONDS);
+      fail("Expected ShutdownException");
+    }
+    catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof ShutdownException);
+    }
+
+    try {
+      scheduler.awaitArrival();
+      fail("Expected ShutdownException");
+    }
+    catch (ShutdownException e) {
+    }
+  }
+
+  private static final class SettableTimeAuthority implements TimeAuthority {
+    private volatile long m_time;
+
+    public void set(final long time) {
+      m_time = time;
+    }
+
+    @Override public long getTimeInMilliseconds() {
+      return TimeUnit.NANOSECONDS.toMillis(m_time);
+    }
+
+    @Override public long getTimeInNanoseconds() {
+      return m_time;
+    }
+  }
+}
@@ -0,0 +1,246 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+
+package net.grinder.engine.process;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import net.grinder.common.StubTest;
+import net.grinder.statistics.ExpressionView;
+import net.grinder.statistics.StatisticExpression;
+import net.grinder.statistics.StatisticsIndexMap;
+import net.grinder.statistics.StatisticsServices;
+import net.grinder.statistics.StatisticsServicesImplementation;
+import net.grinder.statistics.StatisticsSet;
+import net.grinder.testutility.AbstractJUnit4FileTestCase;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+
+
+/**
+ * Unit tests for {@link BinaryDataLog}.
+ *
+ * @author Philip Aston
+ */
+public class TestBinaryDataLog extends AbstractJUnit4FileTestCase {
+
+  private static final String NL = System.getProperty("line.separator");
+
+  private final StatisticsServices m_statisticsServices =
+    StatisticsServicesImplementation.getInstance();
+
+  private final ExpressionView[] m_views =
+    m_statisticsServices.getDetailStatisticsView().getExpressionViews();
+
+  private final Logger m_logger = mock(Logger.class);
+
+  private String toCSV(File file) throws IOException {
+    final StringBuilder result = new StringBuilder();
+    final InputStream in = new FileInputStream(file);
+
+    try {
+      BinaryDataLog.toCSV(in, result);
+    }
+    finally {
+      in.close();
+    }
+
+    return result.toString();
+  }
+
+  private String expectedLine(int thread,
+                              int run,
+                              int test,
+                              long start,
+                              StatisticsSet statistics) {
+    final StringBuilder result = new StringBuilder();
+    result.append(thread).append(", ").append(run).append(", ");
+    result.append(test).append(", ").append(start);
+
+    for (ExpressionView view : m_views) {
+      final StatisticExpression expression = view.getExpression();
+      result.append(", ");
+
+      if (expression.isDouble()) {
+        result.append(expression.getDoubleValue(statistics));
+      }
+      else {
+        result.append(expression.getLongValue(statistics));
+      }
+    }
+
+    return result.append(NL).toString();
+  }
+
+  @Test public void testRoundTrip() throws Exception {
+    final File file = new File(getDirectory(), "data.bin");
+
+    final BinaryDataLog log = new BinaryDataLog(file, m_views, m_logger);
+
+    final StatisticsIndexMap indexMap =
+      m_statisticsServices.getStatisticsIndexMap();
+
+    final StatisticsSet statistics =
+      m_statisticsServices.getStatisticsSetFactory().create();
+    statistics.addSample(indexMap.getLongSampleIndex("timedTests"), 99);
+    statistics.addValue(indexMap.getLongIndex("errors"), 1);
+
+    final StringBuilder expected =
+      new StringBuilder("Thread, Run, Test, Start time (ms since Epoch)");
+
+    for (ExpressionView view : m_views) {
+      expected.append(", ").append(view.getDisplayName());
+    }
+
+    expected.append(NL);
+
+    // Enough records to fill the buffer several times.
+    for (int i = 0; i < 10000; ++i) {
+      log.report(i % 7, i / 7, new StubTest(i % 3, null), 1000L + i,
+                 statistics);
+      expected.append(expectedLine(i % 7, i / 7, i % 3, 1000L + i,
+                                   statistics));
+    }
+
+    log.close();
+
+    // Discarded.
+    log.report(1, 1, new StubTest(1, null), 1, statistics);
+    log.close();
+
+    assertEquals(expected.toString(), toCSV(file));
+  }
+
+  @Test public void testManyThreads() throws Exception {
+    final File file = new File(getDirectory(), "data.bin");
+
+    final BinaryDataLog log = new BinaryDataLog(file, new ExpressionView[0],
+                                                m_logger);
+
+    final StatisticsSet statistics =
+      m_statisticsServices.getStatisticsSetFactory().create();
+
+    final int threads = 5;
+    final int records = 2000;
+    final Thread[] workers = new Thread[threads];
+
+    for (int i = 0; i < threads; ++i) {
+      final int threadNumber = i;
+
+      workers[i] = new Thread() {
+          @Override public void run() {
+            for (int j = 0; j < records; ++j) {
+              log.report(threadNumber, j, new StubTest(1, null), j,
+                         statistics);
+            }
+          }
+        };
+
+      workers[i].start();
+    }
+
+    for (Thread worker : workers) {
+      worker.join();
+    }
+
+    log.close();
+
+    final String[] lines = toCSV(file).split(NL);
+    assertEquals(1 + threads * records, lines.length);
+
+    // Each thread's records are in order.
+    final int[] next = new int[threads];
+
+    for (int i = 1; i < lines.length; ++i) {
+      final String[] fields = lines[i].split(", ");
+      final int thread = Integer.parseInt(fields[0]);
+      assertEquals(next[thread]++, Integer.parseInt(fields[1]));
+    }
+  }
+
+  @Test public void testRollsExistingFile() throws Exception {
+    final File file = new File(getDirectory(), "data.bin");
+
+    new BinaryDataLog(file, m_views, m_logger).close();
+
+    final BinaryDataLog log = new BinaryDataLog(file, new ExpressionView[0],
+                                                m_logger);
+    log.report(1, 2, new StubTest(3, null), 4,
+               m_statisticsServices.getStatisticsSetFactory().create());
+    log.close();
+
+    assertEquals("Thread, Run, Test, Start time (ms since Epoch)" + NL +
+                 "1, 2, 3, 4" + NL,
+                 toCSV(file));
+
+    final File previous = new File(getDirectory(), "data.bin1");
+    assertTrue(previous.exists());
+    assertTrue(toCSV(previous).startsWith("Thread, Run, Test"));
+  }
+
+  @Test public void testPartialRecordIgnored() throws Exception {
+    final File file = new File(getDirectory(), "data.bin");
+
+    final BinaryDataLog log = new BinaryDataLog(file, new ExpressionView[0],
+                                                m_logger);
+    log.report(1, 2, new StubTest(3, null), 4,
+               m_statisticsServices.getStatisticsSetFactory().create());
+    log.close();
+
+    final byte[] bytes = new byte[(int) file.length() - 1];
+    final InputStream in = new FileInputStream(file);
+    assertEquals(bytes.length, in.read(bytes));
+    in.close();
+
+    final StringBuilder result = new StringBuilder();
+    BinaryDataLog.toCSV(new ByteArrayInputStream(bytes), result);
+
+    assertEquals("Thread, Run, Test, Start time (ms since Epoch)" + NL,
+                 result.toString());
+  }
+
+  @Test public void testBadInput() throws Exception {
+    for (byte[] bytes : new byte[][] {
+          {},
+          { 'G', 'D', 'X', 1 },
+          { 'G', 'D', 'L', 0, 0, 0, 0, 0 },
+        }) {
+      try {
+        BinaryDataLog.toCSV(new ByteArrayInputStream(bytes),
+                            new StringBuilder());
+        fail("Expected IOException");
+      }
+      catch (IOException e) {
+      }
+    }
+  }
+}
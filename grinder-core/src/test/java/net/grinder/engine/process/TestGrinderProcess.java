@@ -38,13 +38,18 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
+import net.grinder.common.GrinderProperties;
 import net.grinder.common.ThreadLifeCycleListener;
 import net.grinder.communication.QueuedSender;
+import net.grinder.engine.common.EngineException;
 import net.grinder.engine.process.GrinderProcess.ThreadContexts;
 import net.grinder.engine.process.GrinderProcess.ThreadSynchronisation;
 import net.grinder.engine.process.GrinderProcess.Times;
 import net.grinder.script.InvalidContextException;
+import net.grinder.util.StandardTimeAuthority;
+import net.grinder.util.TimeAuthority;
 import net.grinder.util.thread.Condition;
 
 import org.junit.AfterClass;
@@ -113,6 +118,28 @@ public class TestGrinderProcess {
     assertEquals(100, ts.getTotalNumberOfThreads());
   }
 
+  @Test public void testThreadSynchronisationManyThreads() throws Exception {
+    final ThreadSynchronisation ts =
+      new GrinderProcess.ThreadSynchronisation(new Condition());
+
+    final int n = Short.MAX_VALUE + 10;
+
+    for (int i = 0; i < n; ++i) {
+      ts.threadCreated();
+    }
+
+    assertEquals(n, ts.getTotalNumberOfThreads());
+    assertEquals(n, ts.getNumberOfRunningThreads());
+    assertFalse(ts.isFinished());
+
+    for (int i = 0; i < n; ++i) {
+      ts.threadFinished();
+    }
+
+    assertTrue(ts.isFinished());
+    assertEquals(n, ts.getTotalNumberOfThreads());
+  }
+
   private static class MyRunnable implements Runnable {
     private final ThreadSynchronisation m_ts;
     private final boolean m_failBeforeStart;
@@ -166,6 +193,72 @@ public class TestGrinderProcess {
     assertTrue(elapsedTime >= 0);
   }
 
+  @Test public void testParseReportingTimeUnit() throws Exception {
+    assertSame(TimeUnit.MILLISECONDS,
+               GrinderProcess.parseReportingTimeUnit("milliseconds"));
+    assertSame(TimeUnit.MICROSECONDS,
+               GrinderProcess.parseReportingTimeUnit(" MicroSeconds"));
+    assertSame(TimeUnit.NANOSECONDS,
+               GrinderProcess.parseReportingTimeUnit("NANOSECONDS"));
+
+    for (String bad : new String[] { "", "seconds", "ms", "days" }) {
+      try {
+        GrinderProcess.parseReportingTimeUnit(bad);
+        fail("Expected EngineException");
+      }
+      catch (EngineException e) {
+      }
+    }
+  }
+
+  @Test public void testIsBinaryDataLogFormat() throws Exception {
+    assertFalse(GrinderProcess.isBinaryDataLogFormat("csv"));
+    assertFalse(GrinderProcess.isBinaryDataLogFormat(" CSV"));
+    assertTrue(GrinderProcess.isBinaryDataLogFormat("binary"));
+    assertTrue(GrinderProcess.isBinaryDataLogFormat("Binary "));
+
+    for (String bad : new String[] { "", "bin", "xml" }) {
+      try {
+        GrinderProcess.isBinaryDataLogFormat(bad);
+        fail("Expected EngineException");
+      }
+      catch (EngineException e) {
+      }
+    }
+  }
+
+  @Test public void testCreateArrivalScheduler() throws Exception {
+    final GrinderProperties properties = new GrinderProperties();
+    final TimeAuthority timeAuthority = new StandardTimeAuthority();
+
+    assertNull(GrinderProcess.createArrivalScheduler(properties,
+                                                     timeAuthority));
+
+    properties.setDouble("grinder.arrivalRate", 12.5);
+
+    final ArrivalScheduler arrivalScheduler =
+      GrinderProcess.createArrivalScheduler(properties, timeAuthority);
+    assertEquals(12.5, arrivalScheduler.getRate(), 0);
+
+    properties.setProperty("grinder.arrivalRate.distribution", " Poisson");
+    properties.setDouble("grinder.arrivalRate.step", 2);
+    properties.setLong("grinder.arrivalRate.stepDuration", 1000);
+    properties.setDouble("grinder.arrivalRate.maximum", 20);
+    properties.setLong("grinder.arrivalRate.maximumQueueingDelay", 100);
+
+    assertNotNull(GrinderProcess.createArrivalScheduler(properties,
+                                                        timeAuthority));
+
+    properties.setProperty("grinder.arrivalRate.distribution", "stepped");
+
+    try {
+      GrinderProcess.createArrivalScheduler(properties, timeAuthority);
+      fail("Expected EngineException");
+    }
+    catch (EngineException e) {
+    }
+  }
+
   @Test public void testThreadContextsThreadContextLocator() throws Exception {
     final ThreadContexts threadContexts = new ThreadContexts();
     assertNull(threadContexts.get());
@@ -21,23 +21,30 @@
 
 package net.grinder.engine.process;
 
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
+import java.util.Random;
+
 import net.grinder.common.GrinderProperties;
 import net.grinder.engine.common.EngineException;
 import net.grinder.scriptengine.ScriptEngineService.WorkerRunnable;
 import net.grinder.scriptengine.ScriptExecutionException;
 import net.grinder.testutility.AbstractJUnit4FileTestCase;
 import net.grinder.util.Sleeper;
+import net.grinder.util.StandardTimeAuthority;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.slf4j.Logger;
 
 
@@ -73,7 +80,8 @@ public class TestGrinderThread extends AbstractJUnit4FileTestCase {
                       m_processLifeCycleListener,
                       m_properties,
                       m_sleeper,
-                      m_workerRunnableFactory);
+                      m_workerRunnableFactory,
+                      null);
 
     verify(m_workerThreadSynchronisation).threadCreated();
 
@@ -91,7 +99,8 @@ public class TestGrinderThread extends AbstractJUnit4FileTestCase {
                         m_processLifeCycleListener,
                         m_properties,
                         m_sleeper,
-                        m_workerRunnableFactory);
+                        m_workerRunnableFactory,
+                      null);
 
     verify(m_processLifeCycleListener).threadCreated(m_threadContext);
 
@@ -125,7 +134,8 @@ public class TestGrinderThread extends AbstractJUnit4FileTestCase {
                         m_processLifeCycleListener,
                         m_properties,
                         m_sleeper,
-                        m_workerRunnableFactory);
+                        m_workerRunnableFactory,
+                      null);
 
     m_properties.setInt("grinder.runs", 2);
     m_properties.setLong("grinder.initialSleepTime", 100);
@@ -149,6 +159,62 @@ public class TestGrinderThread extends AbstractJUnit4FileTestCase {
     verifyNoMoreInteractions(m_sleeper);
   }
 
+  @Test public void testOpenModel() throws Exception {
+
+    final ArrivalScheduler arrivalScheduler =
+      new ArrivalScheduler(
+        new ArrivalSchedule(1000, 0, 0, 0,
+                            ArrivalSchedule.Distribution.CONSTANT,
+                            new Random()),
+        new StandardTimeAuthority(),
+        0);
+
+    final GrinderThread grinderThread =
+      new GrinderThread(m_logger,
+                        m_threadContext,
+                        m_workerThreadSynchronisation,
+                        m_processLifeCycleListener,
+                        m_properties,
+                        m_sleeper,
+                        m_workerRunnableFactory,
+                        arrivalScheduler);
+
+    // Ignored for open workloads.
+    m_properties.setInt("grinder.runs", 1);
+    m_properties.setLong("grinder.initialSleepTime", 100);
+
+    doAnswer(new Answer<Void>() {
+      private int m_runs = 0;
+
+      @Override public Void answer(final InvocationOnMock invocation) {
+        if (++m_runs == 3) {
+          arrivalScheduler.shutdown();
+        }
+
+        return null;
+      }
+    }).when(m_workerRunnable).run();
+
+    grinderThread.run();
+
+    verify(m_threadContext).fireBeginThreadEvent();
+    verify(m_threadContext, times(3)).fireBeginRunEvent();
+    verify(m_threadContext, times(3)).fireEndRunEvent();
+    verify(m_threadContext).fireBeginShutdownEvent();
+    verify(m_threadContext).fireEndThreadEvent();
+
+    verify(m_workerRunnable, times(3)).run();
+    verify(m_workerRunnable).shutdown();
+
+    verify(m_workerThreadSynchronisation).awaitStart();
+    verify(m_workerThreadSynchronisation).threadFinished();
+
+    verifyNoMoreInteractions(m_sleeper);
+
+    assertEquals(3,
+                 arrivalScheduler.takeIntervalStatistics().getArrivals());
+  }
+
   @Test public void testRunForeverShutdownException() throws Exception {
 
     final GrinderThread grinderThread =
@@ -158,7 +224,8 @@ public class TestGrinderThread extends AbstractJUnit4FileTestCase {
                         m_processLifeCycleListener,
                         m_properties,
                         m_sleeper,
-                        m_workerRunnableFactory);
+                        m_workerRunnableFactory,
+                      null);
 
     m_properties.setInt("grinder.runs", 0);
 
@@ -195,7 +262,8 @@ public class TestGrinderThread extends AbstractJUnit4FileTestCase {
                         m_processLifeCycleListener,
                         m_properties,
                         m_sleeper,
-                        m_workerRunnableFactory);
+                        m_workerRunnableFactory,
+                      null);
 
     doThrow(new MyScriptEngineException("whatever"))
       .when(m_workerRunnable).run();
@@ -227,7 +295,8 @@ public class TestGrinderThread extends AbstractJUnit4FileTestCase {
                         m_processLifeCycleListener,
                         m_properties,
                         m_sleeper,
-                        m_workerRunnableFactory);
+                        m_workerRunnableFactory,
+                      null);
 
     when(m_workerRunnableFactory.create())
       .thenThrow(new MyScriptEngineException("blah"));
@@ -252,7 +321,8 @@ public class TestGrinderThread extends AbstractJUnit4FileTestCase {
                         m_processLifeCycleListener,
                         m_properties,
                         m_sleeper,
-                        m_workerRunnableFactory);
+                        m_workerRunnableFactory,
+                      null);
 
     when(m_workerRunnableFactory.create())
       .thenThrow(new EngineException("blah"));
@@ -31,6 +31,9 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+import java.util.concurrent.TimeUnit;
+
 import net.grinder.common.ThreadLifeCycleListener;
 import net.grinder.engine.common.EngineException;
 import net.grinder.plugininterface.GrinderPlugin;
@@ -73,7 +76,8 @@ public class TestPluginRegistryImplementation {
     final PluginRegistry pluginRegistry =
       new PluginRegistryImplementation(
         m_logger, m_scriptContext, m_threadContextLocator,
-        StatisticsServicesImplementation.getInstance(), m_timeAuthority);
+        StatisticsServicesImplementation.getInstance(), m_timeAuthority,
+        TimeUnit.MILLISECONDS);
 
     assertSame(pluginRegistry, PluginRegistry.getInstance());
   }
@@ -82,7 +86,8 @@ public class TestPluginRegistryImplementation {
     final PluginRegistry pluginRegistry =
       new PluginRegistryImplementation(
         m_logger, m_scriptContext, m_threadContextLocator,
-        StatisticsServicesImplementation.getInstance(), m_timeAuthority);
+        StatisticsServicesImplementation.getInstance(), m_timeAuthority,
+        TimeUnit.MILLISECONDS);
 
     pluginRegistry.register(m_grinderPlugin);
 
@@ -104,7 +109,8 @@ public class TestPluginRegistryImplementation {
     final PluginRegistry pluginRegistry =
       new PluginRegistryImplementation(
         m_logger, m_scriptContext, m_threadContextLocator,
-        StatisticsServicesImplementation.getInstance(), m_timeAuthority);
+        StatisticsServicesImplementation.getInstance(), m_timeAuthority,
+        TimeUnit.MILLISECONDS);
 
     final PluginException initialiseException = new PluginException("barf");
 
@@ -124,7 +130,8 @@ public class TestPluginRegistryImplementation {
     final PluginRegistryImplementation pluginRegistry =
       new PluginRegistryImplementation(
         m_logger, m_scriptContext, m_threadContextLocator,
-        StatisticsServicesImplementation.getInstance(), m_timeAuthority);
+        StatisticsServicesImplementation.getInstance(), m_timeAuthority,
+        TimeUnit.MILLISECONDS);
 
     final ThreadContext threadContext = mock(ThreadContext.class);
 
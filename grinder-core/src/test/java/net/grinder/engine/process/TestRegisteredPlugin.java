@@ -24,6 +24,9 @@ package net.grinder.engine.process;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.*;
+
+import java.util.concurrent.TimeUnit;
+
 import net.grinder.common.ThreadLifeCycleListener;
 import net.grinder.engine.common.EngineException;
 import net.grinder.plugininterface.GrinderPlugin;
@@ -81,12 +84,15 @@ public class TestRegisteredPlugin {
                            threadContextLocator,
                            StatisticsServicesImplementation.getInstance(),
                            timeAuthority,
+                           TimeUnit.MICROSECONDS,
                            m_logger);
 
     assertSame(scriptContext, registeredPlugin.getScriptContext());
     assertSame(StatisticsServicesImplementation.getInstance(),
                registeredPlugin.getStatisticsServices());
     assertSame(timeAuthority, registeredPlugin.getTimeAuthority());
+    assertSame(TimeUnit.MICROSECONDS,
+               registeredPlugin.getReportingTimeUnit());
   }
 
   @Test public void testGetPluginThreadListener() throws Exception {
@@ -111,6 +117,7 @@ public class TestRegisteredPlugin {
                            threadContextLocator,
                            StatisticsServicesImplementation.getInstance(),
                            timeAuthorityStubFactory.getStub(),
+                           TimeUnit.MILLISECONDS,
                            m_logger);
 
     try {
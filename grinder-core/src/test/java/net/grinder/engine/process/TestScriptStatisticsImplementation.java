@@ -168,6 +168,22 @@ public class TestScriptStatisticsImplementation {
     assertSame(statisticsForTest1, scriptStatistics.getForCurrentTest());
     assertSame(statisticsForTest2, scriptStatistics.getForLastTest());
 
+    // 5. Statistics handed to the script are not reused.
+    final DispatchContext dispatchContext = mock(DispatchContext.class);
+    final StatisticsForTestImplementation statisticsForTest3 =
+      new StatisticsForTestImplementation(
+        dispatchContext,
+        new TestStatisticsHelperImplementation(
+          m_statisticsServices.getStatisticsIndexMap()),
+        m_statisticsServices.getStatisticsSetFactory().create());
+
+    when(m_threadContext.getStatisticsForLastTest())
+      .thenReturn(statisticsForTest3);
+
+    assertSame(statisticsForTest3, scriptStatistics.getForLastTest());
+    statisticsForTest3.freeze();
+    assertFalse(statisticsForTest3.thaw(dispatchContext));
+
     verifyNoMoreInteractions(m_sender);
   }
 
@@ -127,5 +127,24 @@ public class TestStatisticsForTestImplementation extends TestCase {
     }
 
     assertEquals(10, statisticsForTest.getLong("userLong0"));
+
+    assertTrue(statisticsForTest.thaw(m_dispatchContext));
+    assertSame(statisticsSet, statisticsForTest.getStatistics());
+    assertEquals(0, statisticsForTest.getLong("userLong0"));
+    statisticsForTest.setLong("userLong0", 7);
+
+    try {
+      statisticsForTest.thaw(m_dispatchContext);
+      fail("Expected AssertionError");
+    }
+    catch (AssertionError e) {
+    }
+
+    statisticsForTest.freeze();
+    statisticsForTest.publish();
+
+    assertFalse(statisticsForTest.thaw(m_dispatchContext));
+    assertNull(statisticsForTest.getStatistics());
+    assertEquals(7, statisticsForTest.getLong("userLong0"));
   }
 }
@@ -21,6 +21,8 @@
 
 package net.grinder.engine.process;
 
+import java.util.concurrent.TimeUnit;
+
 import junit.framework.TestCase;
 
 import net.grinder.common.Test;
@@ -38,6 +40,7 @@ import net.grinder.testutility.AssertUtilities;
 import net.grinder.testutility.RandomStubFactory;
 import net.grinder.testutility.Time;
 import net.grinder.util.StandardTimeAuthority;
+import net.grinder.util.TimeAuthorityStubFactory;
 
 
 /**
@@ -88,7 +91,8 @@ public class TestTestData extends TestCase {
 
     final TestData testData =
       new TestData(null, m_statisticsSetFactory, null,
-                   m_timeAuthority, m_instrumenter, test1);
+                   m_timeAuthority, TimeUnit.MILLISECONDS, m_instrumenter,
+                   test1);
 
     final Object original = new Object();
 
@@ -107,6 +111,7 @@ public class TestTestData extends TestCase {
                    m_statisticsSetFactory,
                    m_testStatisticsHelper,
                    m_timeAuthority,
+                   TimeUnit.MILLISECONDS,
                    m_instrumenter,
                    test1);
 
@@ -234,8 +239,15 @@ public class TestTestData extends TestCase {
     m_testStatisticsHelperStubFactory.assertSuccess(
       "getSuccess", dispatcherStatistics);
 
+    // Errors are recorded against the thread's test statistics.
+    final StatisticsSet threadStatistics =
+      (StatisticsSet)
+      m_testStatisticsHelperStubFactory.assertSuccess(
+        "incrementErrors", StatisticsSet.class).getParameters()[0];
+    assertNotSame(dispatcherStatistics2, threadStatistics);
+
     m_testStatisticsHelperStubFactory.assertSuccess(
-      "incrementErrors", statistics);
+      "addQueueingDelay", threadStatistics, dispatcherStatistics2);
 
     m_testStatisticsHelperStubFactory.assertNoMoreCalls();
   }
@@ -253,6 +265,7 @@ public class TestTestData extends TestCase {
                    m_statisticsSetFactory,
                    testStatisticsHelper,
                    m_timeAuthority,
+                   TimeUnit.MILLISECONDS,
                    m_instrumenter,
                    test1);
 
@@ -279,7 +292,7 @@ public class TestTestData extends TestCase {
     m_threadContextStubFactory.assertNoMoreCalls();
 
     // Test statistics not updated until we report.
-    assertEquals(0, statistics.getCount(s_timedTestsIndex));
+    assertEquals(0, testData.getTestStatistics().getCount(s_timedTestsIndex));
 
     assertSame(test1, dispatchContext.getTest());
 
@@ -304,7 +317,7 @@ public class TestTestData extends TestCase {
       public void add(StopWatch watch) { }
 
       public long getTime() throws StopWatchRunningException {
-        return 1000;
+        return TimeUnit.SECONDS.toNanos(1);
       }
       public boolean isRunning() {
         return false;
@@ -330,8 +343,8 @@ public class TestTestData extends TestCase {
 
     // report() will have updated the statistics with a single,
     // successful, timed test.
-    assertEquals(1, statistics.getCount(s_timedTestsIndex));
-    assertEquals(0, statistics.getValue(s_untimedTestsIndex));
+    assertEquals(1, testData.getTestStatistics().getCount(s_timedTestsIndex));
+    assertEquals(0, testData.getTestStatistics().getValue(s_untimedTestsIndex));
 
     assertEquals(-1, dispatchContext.getElapsedTime());
     assertNull(dispatchContext.getStatisticsForTest());
@@ -362,9 +375,285 @@ public class TestTestData extends TestCase {
     assertTrue(elapsedTime2 >= 50 - Time.J2SE_TIME_ACCURACY_MILLIS);
     assertTrue(elapsedTime2 <= 200); // Pause timer was reset after last call.
 
-    assertFalse(statistics.isComposite());
+    assertFalse(testData.getTestStatistics().isComposite());
     dispatchContext.setHasNestedContexts();
-    assertTrue(statistics.isComposite());
+    assertTrue(testData.getTestStatistics().isComposite());
+  }
+
+  public void testElapsedTimeInReportingTimeUnit() throws Exception {
+    final TimeAuthorityStubFactory timeAuthorityStubFactory =
+      new TimeAuthorityStubFactory();
+
+    final TestStatisticsHelper testStatisticsHelper =
+      new TestStatisticsHelperImplementation(
+        StatisticsServicesImplementation.getInstance().getStatisticsIndexMap());
+
+    final TestData testData =
+      new TestData(m_threadContextLocator,
+                   m_statisticsSetFactory,
+                   testStatisticsHelper,
+                   timeAuthorityStubFactory.getStub(),
+                   TimeUnit.MICROSECONDS,
+                   m_instrumenter,
+                   new StubTest(1, "test1"));
+
+    m_threadContextLocator.set(m_threadContext);
+
+    timeAuthorityStubFactory.nextTime(1000); // Start time (ms).
+    timeAuthorityStubFactory.nextTime(5000000); // Start time (ns).
+    timeAuthorityStubFactory.nextTime(7500250); // End time (ns).
+
+    testData.start();
+
+    m_threadContextStubFactory.assertSuccess("getDispatchResultReporter");
+    final DispatchContext dispatchContext =
+      (DispatchContext)
+      m_threadContextStubFactory.assertSuccess(
+        "pushDispatchContext", DispatchContext.class).getParameters()[0];
+
+    testData.end(true);
+
+    assertEquals(2500, dispatchContext.getElapsedTime());
+
+    dispatchContext.report();
+
+    final StatisticsSet statistics = testData.getTestStatistics();
+    assertEquals(1, statistics.getCount(s_timedTestsIndex));
+    assertEquals(2500, statistics.getSum(s_timedTestsIndex));
+  }
+
+  public void testStatisticsForLastTestIsStable() throws Exception {
+    final TestStatisticsHelper testStatisticsHelper =
+      new TestStatisticsHelperImplementation(
+        StatisticsServicesImplementation.getInstance().getStatisticsIndexMap());
+
+    final TestData testData =
+      new TestData(m_threadContextLocator,
+                   m_statisticsSetFactory,
+                   testStatisticsHelper,
+                   m_timeAuthority,
+                   TimeUnit.MILLISECONDS,
+                   m_instrumenter,
+                   new StubTest(1, "test1"));
+
+    m_threadContextLocator.set(m_threadContext);
+
+    final StatisticsForTest[] statisticsForTest = new StatisticsForTest[3];
+
+    for (int i = 0; i < statisticsForTest.length; ++i) {
+      testData.start();
+
+      if (i == 0) {
+        m_threadContextStubFactory.assertSuccess("getDispatchResultReporter");
+      }
+
+      final DispatchContext dispatchContext =
+        (DispatchContext)
+        m_threadContextStubFactory.assertSuccess(
+          "pushDispatchContext", DispatchContext.class).getParameters()[0];
+
+      statisticsForTest[i] = dispatchContext.getStatisticsForTest();
+      statisticsForTest[i].setLong("userLong0", i);
+
+      // As if the script had called grinder.statistics.forCurrentTest.
+      ((StatisticsForTestImplementation)statisticsForTest[i]).publish();
+
+      testData.end(true);
+      m_threadContextStubFactory.assertSuccess("popDispatchContext");
+      dispatchContext.report();
+    }
+
+    // A script can hold on to the statistics for an earlier test; later
+    // invocations don't change them.
+    for (int i = 0; i < statisticsForTest.length; ++i) {
+      for (int j = 0; j < i; ++j) {
+        assertNotSame(statisticsForTest[i], statisticsForTest[j]);
+      }
+
+      assertEquals(i, statisticsForTest[i].getLong("userLong0"));
+
+      try {
+        statisticsForTest[i].setLong("userLong0", 2);
+        fail("Expected InvalidContextException");
+      }
+      catch (InvalidContextException e) {
+      }
+    }
+  }
+
+  public void testQueueingDelayOfFailedTest() throws Exception {
+    final StatisticsIndexMap indexMap =
+      StatisticsServicesImplementation.getInstance().getStatisticsIndexMap();
+
+    final TestStatisticsHelper testStatisticsHelper =
+      new TestStatisticsHelperImplementation(indexMap);
+
+    final TestData testData =
+      new TestData(m_threadContextLocator,
+                   m_statisticsSetFactory,
+                   testStatisticsHelper,
+                   m_timeAuthority,
+                   TimeUnit.MILLISECONDS,
+                   m_instrumenter,
+                   new StubTest(1, "test1"));
+
+    m_threadContextLocator.set(m_threadContext);
+
+    testData.start();
+
+    m_threadContextStubFactory.assertSuccess("getDispatchResultReporter");
+    final DispatchContext dispatchContext =
+      (DispatchContext)
+      m_threadContextStubFactory.assertSuccess(
+        "pushDispatchContext", DispatchContext.class).getParameters()[0];
+
+    testData.end(false);
+    dispatchContext.setQueueingDelay(TimeUnit.MILLISECONDS.toNanos(25));
+    dispatchContext.report();
+
+    // The other statistics of a failed test are discarded, but the run
+    // still waited.
+    final StatisticsSet statistics = testData.getTestStatistics();
+    assertEquals(1, statistics.getValue(indexMap.getLongIndex("errors")));
+    assertEquals(0, statistics.getCount(s_timedTestsIndex));
+    assertEquals(25,
+      statistics.getValue(
+        indexMap.getLongIndex(StatisticsIndexMap.QUEUEING_DELAY_KEY)));
+    assertEquals(1,
+      statistics.getValue(
+        indexMap.getLongIndex(StatisticsIndexMap.QUEUED_RUNS_KEY)));
+  }
+
+  public void testStatisticsForTestIsReused() throws Exception {
+    final TestStatisticsHelper testStatisticsHelper =
+      new TestStatisticsHelperImplementation(
+        StatisticsServicesImplementation.getInstance().getStatisticsIndexMap());
+
+    final TestData testData =
+      new TestData(m_threadContextLocator,
+                   m_statisticsSetFactory,
+                   testStatisticsHelper,
+                   m_timeAuthority,
+                   TimeUnit.MILLISECONDS,
+                   m_instrumenter,
+                   new StubTest(1, "test1"));
+
+    m_threadContextLocator.set(m_threadContext);
+
+    final StatisticsForTest[] statisticsForTest = new StatisticsForTest[4];
+
+    for (int i = 0; i < statisticsForTest.length; ++i) {
+      testData.start();
+
+      if (i == 0) {
+        m_threadContextStubFactory.assertSuccess("getDispatchResultReporter");
+      }
+
+      final DispatchContext dispatchContext =
+        (DispatchContext)
+        m_threadContextStubFactory.assertSuccess(
+          "pushDispatchContext", DispatchContext.class).getParameters()[0];
+
+      statisticsForTest[i] = dispatchContext.getStatisticsForTest();
+      assertEquals(0, statisticsForTest[i].getLong("userLong0"));
+      statisticsForTest[i].setLong("userLong0", i + 1);
+
+      testData.end(true);
+      m_threadContextStubFactory.assertSuccess("popDispatchContext");
+      dispatchContext.report();
+
+      if (i > 0) {
+        // The statistics for the last test are left alone.
+        assertEquals(i, statisticsForTest[i - 1].getLong("userLong0"));
+      }
+    }
+
+    // Two instances are used alternately.
+    assertNotSame(statisticsForTest[0], statisticsForTest[1]);
+    assertSame(statisticsForTest[0], statisticsForTest[2]);
+    assertSame(statisticsForTest[1], statisticsForTest[3]);
+
+    assertEquals(4, testData.getTestStatistics().getCount(s_timedTestsIndex));
+  }
+
+  public void testResetTestStatistics() throws Exception {
+    final TestStatisticsHelper testStatisticsHelper =
+      new TestStatisticsHelperImplementation(
+        StatisticsServicesImplementation.getInstance().getStatisticsIndexMap());
+
+    final TestData testData =
+      new TestData(m_threadContextLocator,
+                   m_statisticsSetFactory,
+                   testStatisticsHelper,
+                   m_timeAuthority,
+                   TimeUnit.MILLISECONDS,
+                   m_instrumenter,
+                   new StubTest(1, "test1"));
+
+    final int numberOfThreads = 4;
+    final int numberOfRuns = 10;
+    final Thread[] threads = new Thread[numberOfThreads];
+    final Throwable[] exceptions = new Throwable[numberOfThreads];
+
+    for (int i = 0; i < numberOfThreads; ++i) {
+      final int threadNumber = i;
+
+      threads[i] = new Thread() {
+        public void run() {
+          final RandomStubFactory<ThreadContext> threadContextStubFactory =
+            RandomStubFactory.create(ThreadContext.class);
+          m_threadContextLocator.set(threadContextStubFactory.getStub());
+
+          try {
+            for (int j = 0; j < numberOfRuns; ++j) {
+              testData.start();
+              testData.end(true);
+
+              if (j == 0) {
+                threadContextStubFactory.assertSuccess(
+                  "getDispatchResultReporter");
+              }
+
+              final DispatchContext dispatchContext =
+                (DispatchContext)
+                threadContextStubFactory.assertSuccess(
+                  "pushDispatchContext",
+                  DispatchContext.class).getParameters()[0];
+              threadContextStubFactory.assertSuccess("popDispatchContext");
+              dispatchContext.report();
+            }
+          }
+          catch (Throwable t) {
+            // Include assertion failures.
+            exceptions[threadNumber] = t;
+          }
+        }
+      };
+    }
+
+    for (Thread thread : threads) {
+      thread.start();
+    }
+
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    for (Throwable t : exceptions) {
+      assertNull(t);
+    }
+
+    // Each thread accumulates separately; the statistics are merged. The
+    // threads have exited, so their statistics are folded together.
+    assertEquals(numberOfThreads * numberOfRuns,
+                 testData.getTestStatistics().getCount(s_timedTestsIndex));
+
+    final StatisticsSet statistics = testData.resetTestStatistics();
+    assertEquals(numberOfThreads * numberOfRuns,
+                 statistics.getCount(s_timedTestsIndex));
+
+    assertTrue(testData.getTestStatistics().isZero());
+    assertTrue(testData.resetTestStatistics().isZero());
   }
 
   public void testDispatchForBug1593169() throws Exception {
@@ -373,6 +662,7 @@ public class TestTestData extends TestCase {
                    m_statisticsSetFactory,
                    m_testStatisticsHelper,
                    m_timeAuthority,
+                   TimeUnit.MILLISECONDS,
                    m_instrumenter,
                    new StubTest(1, "test1"));
 
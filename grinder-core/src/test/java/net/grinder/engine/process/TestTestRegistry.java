@@ -21,6 +21,8 @@
 
 package net.grinder.engine.process;
 
+import java.util.concurrent.TimeUnit;
+
 import junit.framework.TestCase;
 
 import net.grinder.common.StubTest;
@@ -63,9 +65,9 @@ public class TestTestRegistry extends TestCase {
     final TestRegistryImplementation testRegistryImplementation =
       new TestRegistryImplementation(
         threadContextLocator, statisticsSetFactory, m_testStatisticsHelper,
-        m_timeAuthority);
+        m_timeAuthority, TimeUnit.MILLISECONDS);
 
-    assertNotNull(testRegistryImplementation.getTestStatisticsMap());
+    assertEquals(0, testRegistryImplementation.resetTestStatistics().size());
 
     m_testStatisticsHelperStubFactory.assertNoMoreCalls();
     m_timeAuthorityStubFactory.assertNoMoreCalls();
@@ -80,7 +82,7 @@ public class TestTestRegistry extends TestCase {
     final TestRegistryImplementation testRegistryImplementation =
       new TestRegistryImplementation(
         threadContextLocator, statisticsSetFactory, m_testStatisticsHelper,
-        m_timeAuthority);
+        m_timeAuthority, TimeUnit.MILLISECONDS);
 
     assertNull(testRegistryImplementation.getNewTests());
 
@@ -159,4 +159,30 @@ public class TestTestStatisticsHelperImplementation extends TestCase {
     helper.incrementErrors(statistics);
     assertEquals(3, statistics.getValue(m_errorsIndex));
   }
+
+  public void testQueueingDelay() throws Exception {
+    final StatisticsIndexMap.LongIndex queueingDelayIndex =
+      m_indexMap.getLongIndex(StatisticsIndexMap.QUEUEING_DELAY_KEY);
+    final StatisticsIndexMap.LongIndex queuedRunsIndex =
+      m_indexMap.getLongIndex(StatisticsIndexMap.QUEUED_RUNS_KEY);
+
+    final StatisticsSet statistics =
+      m_statisticsServices.getStatisticsSetFactory().create();
+
+    final TestStatisticsHelper helper =
+      new TestStatisticsHelperImplementation(m_indexMap);
+
+    helper.setQueueingDelay(statistics, 20);
+    assertEquals(20, statistics.getValue(queueingDelayIndex));
+    assertEquals(1, statistics.getValue(queuedRunsIndex));
+
+    final StatisticsSet testStatistics =
+      m_statisticsServices.getStatisticsSetFactory().create();
+
+    helper.addQueueingDelay(testStatistics, statistics);
+    helper.addQueueingDelay(testStatistics, statistics);
+    assertEquals(40, testStatistics.getValue(queueingDelayIndex));
+    assertEquals(2, testStatistics.getValue(queuedRunsIndex));
+    assertEquals(0, testStatistics.getValue(m_errorsIndex));
+  }
 }
@@ -29,10 +29,12 @@ import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.AdditionalMatchers.and;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.contains;
 import static org.mockito.Matchers.isA;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -359,6 +361,35 @@ public class TestThreadContextImplementation {
     verifyNoMoreInteractions(m_dispatchContext);
   }
 
+  @Test public void testQueueingDelay() throws Exception {
+    final ThreadContext threadContext =
+      new ThreadContextImplementation(m_properties,
+                                      m_statisticsServices,
+                                      1,
+                                      null);
+
+    final DispatchContext innerDispatchContext = mock(DispatchContext.class);
+    when(innerDispatchContext.getPauseTimer())
+      .thenReturn(mock(StopWatch.class));
+    when(m_dispatchContext.getPauseTimer())
+      .thenReturn(mock(StopWatch.class));
+
+    threadContext.setQueueingDelay(123);
+
+    threadContext.pushDispatchContext(m_dispatchContext);
+    threadContext.pushDispatchContext(innerDispatchContext);
+    threadContext.popDispatchContext();
+    verify(innerDispatchContext, never()).setQueueingDelay(anyLong());
+
+    threadContext.popDispatchContext();
+    verify(m_dispatchContext).setQueueingDelay(123);
+
+    // Only the first test of a run is charged with the delay.
+    threadContext.pushDispatchContext(m_dispatchContext);
+    threadContext.popDispatchContext();
+    verify(m_dispatchContext).setQueueingDelay(anyLong());
+  }
+
   @Test public void testDispatchContextWhenShuttingDown() throws Exception {
     final ThreadContext threadContext =
       new ThreadContextImplementation(m_properties,
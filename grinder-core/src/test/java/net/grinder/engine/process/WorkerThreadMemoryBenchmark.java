@@ -0,0 +1,181 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+
+package net.grinder.engine.process;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import net.grinder.common.GrinderException;
+import net.grinder.util.Sleeper;
+import net.grinder.util.SleeperImplementation;
+import net.grinder.util.StandardTimeAuthority;
+import net.grinder.util.thread.VirtualThreads;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * JMH benchmark comparing the memory cost of each simulated user when worker
+ * threads are platform threads or virtual threads (see
+ * <code>grinder.virtualThreads</code>).
+ *
+ * <p>
+ * Each invocation starts {@link #m_users} threads which, like an idle
+ * {@link GrinderThread}, block in a {@link SleeperImplementation}. Once they
+ * are all sleeping, the growth in the process resident set size (Linux only)
+ * and in used heap is divided by the number of threads and reported as the
+ * <em>rssPerUser</em> and <em>heapPerUser</em> secondary results, in bytes.
+ * Platform thread stacks are not allocated from the heap, so only the resident
+ * set size gives a fair comparison.
+ * </p>
+ *
+ * <p>
+ * The <em>virtual</em> variant requires Java 21 or later. Run with
+ * <code>java -cp &lt;test class path&gt; org.openjdk.jmh.Main
+ * WorkerThreadMemoryBenchmark</code>.
+ * </p>
+ *
+ * @author Philip Aston
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = { "-Xss256k" })
+@State(Scope.Benchmark)
+public class WorkerThreadMemoryBenchmark {
+
+  @Param({ "platform", "virtual" })
+  public String m_threadType;
+
+  @Param({ "1000", "10000" })
+  public int m_users;
+
+  /**
+   * Per-user memory cost, reported as secondary results.
+   */
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class MemoryCounters {
+    public long rssPerUser;
+    public long heapPerUser;
+  }
+
+  @Benchmark
+  public void startUsers(MemoryCounters counters) throws Exception {
+    final Sleeper sleeper =
+      new SleeperImplementation(new StandardTimeAuthority(), null, 1, 0);
+
+    final CountDownLatch started = new CountDownLatch(m_users);
+
+    final Runnable user = new Runnable() {
+      public void run() {
+        started.countDown();
+
+        try {
+          sleeper.sleepNormal(Long.MAX_VALUE / 2, 0);
+        }
+        catch (GrinderException e) {
+          // Shut down.
+        }
+      }
+    };
+
+    final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+    System.gc();
+    final long heapBefore = memory.getHeapMemoryUsage().getUsed();
+    final long rssBefore = residentSetSize();
+
+    final Thread[] threads = new Thread[m_users];
+
+    for (int i = 0; i < m_users; ++i) {
+      final String name = "thread " + i;
+
+      if ("virtual".equals(m_threadType)) {
+        threads[i] = VirtualThreads.create(user, name);
+      }
+      else {
+        threads[i] = new Thread(user, name);
+        threads[i].setDaemon(true);
+      }
+
+      threads[i].start();
+    }
+
+    started.await();
+
+    System.gc();
+    counters.heapPerUser =
+      (memory.getHeapMemoryUsage().getUsed() - heapBefore) / m_users;
+    counters.rssPerUser = (residentSetSize() - rssBefore) / m_users;
+
+    sleeper.shutdown();
+
+    for (final Thread thread : threads) {
+      thread.join();
+    }
+  }
+
+  private static long residentSetSize() throws IOException {
+    final BufferedReader reader;
+
+    try {
+      reader = new BufferedReader(new FileReader("/proc/self/status"));
+    }
+    catch (IOException e) {
+      return 0;
+    }
+
+    try {
+      String line;
+
+      while ((line = reader.readLine()) != null) {
+        if (line.startsWith("VmRSS:")) {
+          final String kb = line.substring(6).replace("kB", "").trim();
+          return Long.parseLong(kb) * 1024;
+        }
+      }
+
+      return 0;
+    }
+    finally {
+      reader.close();
+    }
+  }
+}
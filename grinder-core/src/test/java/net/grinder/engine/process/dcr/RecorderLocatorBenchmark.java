@@ -0,0 +1,228 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.engine.process.dcr;
+
+import static extra166y.CustomConcurrentHashMap.IDENTITY;
+import static extra166y.CustomConcurrentHashMap.STRONG;
+import static extra166y.CustomConcurrentHashMap.WEAK;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import net.grinder.engine.common.EngineException;
+import net.grinder.scriptengine.Recorder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import extra166y.CustomConcurrentHashMap;
+
+
+/**
+ * JMH micro-benchmark of the per-call overhead that woven code pays to
+ * dispatch to {@link RecorderLocator}.
+ *
+ * <ul>
+ * <li><em>instance</em> and <em>uninstrumentedInstance</em> call the advice
+ * for a target that does and does not have a recorder.</li>
+ * <li><em>staticMethod</em> calls the advice used for static methods and
+ * constructors.</li>
+ * <li><em>stringKeyed*</em> reproduce the previous dispatch, which looked up
+ * recorders by target then by location string, for comparison.</li>
+ * </ul>
+ *
+ * <p>
+ * Run with <code>java -cp &lt;test class path&gt; org.openjdk.jmh.Main
+ * RecorderLocatorBenchmark -prof gc</code> to see the allocation rate.
+ * </p>
+ *
+ * @author Philip Aston
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class RecorderLocatorBenchmark {
+
+  private static final int LOCATION = 7;
+  private static final String LOCATION_STRING = "1a2b3c:7".intern();
+
+  private static final Recorder NULL_RECORDER = new Recorder() {
+      public void start() { }
+
+      public void end(boolean success) { }
+    };
+
+  /**
+   * Recorders registered with both implementations.
+   */
+  @State(Scope.Benchmark)
+  public static class Registrations {
+    private final Object m_target = new Object();
+    private final Object m_otherTarget = new Object();
+
+    private final StringKeyedLocator m_stringKeyedLocator =
+      new StringKeyedLocator();
+
+    @Setup public void setUp() {
+      final RecorderRegistry registry = RecorderLocator.getRecorderRegistry();
+      registry.register(m_target, LOCATION, NULL_RECORDER);
+      registry.register(LOCATION, NULL_RECORDER);
+
+      m_stringKeyedLocator.register(m_target, LOCATION_STRING, NULL_RECORDER);
+      m_stringKeyedLocator.register(RecorderLocatorBenchmark.class,
+                                    LOCATION_STRING,
+                                    NULL_RECORDER);
+    }
+
+    @TearDown public void tearDown() {
+      RecorderLocator.clearRecorders();
+    }
+  }
+
+  @Benchmark
+  public void instance(Registrations registrations) {
+    RecorderLocator.enter(registrations.m_target, LOCATION);
+    RecorderLocator.exit(registrations.m_target, LOCATION, true);
+  }
+
+  @Benchmark
+  public void uninstrumentedInstance(Registrations registrations) {
+    RecorderLocator.enter(registrations.m_otherTarget, LOCATION);
+    RecorderLocator.exit(registrations.m_otherTarget, LOCATION, true);
+  }
+
+  @Benchmark
+  public void staticMethod() {
+    RecorderLocator.enter(LOCATION);
+    RecorderLocator.exit(LOCATION, true);
+  }
+
+  @Benchmark
+  public void stringKeyedInstance(Registrations registrations)
+    throws EngineException {
+    registrations.m_stringKeyedLocator.enter(registrations.m_target,
+                                             LOCATION_STRING);
+    registrations.m_stringKeyedLocator.exit(registrations.m_target,
+                                            LOCATION_STRING,
+                                            true);
+  }
+
+  @Benchmark
+  public void stringKeyedUninstrumentedInstance(Registrations registrations)
+    throws EngineException {
+    registrations.m_stringKeyedLocator.enter(registrations.m_otherTarget,
+                                             LOCATION_STRING);
+    registrations.m_stringKeyedLocator.exit(registrations.m_otherTarget,
+                                            LOCATION_STRING,
+                                            true);
+  }
+
+  @Benchmark
+  public void stringKeyedStaticMethod(Registrations registrations)
+    throws EngineException {
+    registrations.m_stringKeyedLocator.enter(RecorderLocatorBenchmark.class,
+                                             LOCATION_STRING);
+    registrations.m_stringKeyedLocator.exit(RecorderLocatorBenchmark.class,
+                                            LOCATION_STRING,
+                                            true);
+  }
+
+  /**
+   * The dispatch that {@link RecorderLocator} used before location
+   * identifiers were integers.
+   */
+  private static final class StringKeyedLocator {
+    private final ConcurrentMap<Object, ConcurrentMap<String, List<Recorder>>>
+      m_recorders =
+        new CustomConcurrentHashMap<Object,
+                                    ConcurrentMap<String, List<Recorder>>>(
+              WEAK, IDENTITY, STRONG, IDENTITY, 101);
+
+    private List<Recorder> getRecorderList(Object target, String location) {
+      final ConcurrentMap<String, List<Recorder>> locationMap =
+        m_recorders.get(target);
+
+      if (locationMap != null) {
+        final List<Recorder> list = locationMap.get(location);
+
+        if (list != null) {
+          return list;
+        }
+      }
+
+      return Collections.<Recorder>emptyList();
+    }
+
+    public void enter(Object target, String location) throws EngineException {
+      for (Recorder recorder : getRecorderList(target, location)) {
+        recorder.start();
+      }
+    }
+
+    public void exit(Object target, String location, boolean success)
+      throws EngineException {
+      final List<Recorder> recorders = getRecorderList(target, location);
+
+      final ListIterator<Recorder> i = recorders.listIterator(recorders.size());
+
+      while (i.hasPrevious()) {
+        i.previous().end(success);
+      }
+    }
+
+    public void register(Object target, String location, Recorder recorder) {
+      final ConcurrentMap<String, List<Recorder>> newMap =
+        new CustomConcurrentHashMap<String, List<Recorder>>(
+              STRONG, IDENTITY, STRONG, IDENTITY, 0);
+
+      final ConcurrentMap<String, List<Recorder>> oldMap =
+        m_recorders.putIfAbsent(target, newMap);
+
+      final ConcurrentMap<String, List<Recorder>> locationMap =
+        oldMap != null ? oldMap : newMap;
+
+      final List<Recorder> newList = new CopyOnWriteArrayList<Recorder>();
+
+      final List<Recorder> oldList =
+        locationMap.putIfAbsent(location, newList);
+
+      (oldList != null ? oldList : newList).add(recorder);
+    }
+  }
+}
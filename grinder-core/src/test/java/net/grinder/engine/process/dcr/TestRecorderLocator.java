@@ -64,43 +64,43 @@ public class TestRecorderLocator extends TestCase {
   }
 
   public void testNullBehaviour() throws Exception {
-    RecorderLocator.enter(this, "foo");
-    RecorderLocator.exit(this, "foo", false);
+    RecorderLocator.enter(this, 3);
+    RecorderLocator.exit(this, 3, false);
   }
 
   public void testSingleRegistration() throws Exception {
     final Object target = new Object();
 
-    m_recorderRegistry.register(target, "location", m_recorder);
+    m_recorderRegistry.register(target, 1, m_recorder);
     m_recorderStubFactory.assertNoMoreCalls();
 
-    RecorderLocator.enter(target, "location");
+    RecorderLocator.enter(target, 1);
     m_recorderStubFactory.assertSuccess("start");
     m_recorderStubFactory.assertNoMoreCalls();
 
-    RecorderLocator.exit(target, "location", true);
+    RecorderLocator.exit(target, 1, true);
     m_recorderStubFactory.assertSuccess("end", true);
     m_recorderStubFactory.assertNoMoreCalls();
 
-    RecorderLocator.enter(this, "location");
-    RecorderLocator.exit(this, "location", true);
+    RecorderLocator.enter(this, 1);
+    RecorderLocator.exit(this, 1, true);
     m_recorderStubFactory.assertNoMoreCalls();
 
-    RecorderLocator.enter(target, "location2");
-    RecorderLocator.exit(target, "location2", true);
+    RecorderLocator.enter(target, 2);
+    RecorderLocator.exit(target, 2, true);
     m_recorderStubFactory.assertNoMoreCalls();
 
-    RecorderLocator.enter(target, "location");
+    RecorderLocator.enter(target, 1);
     m_recorderStubFactory.assertSuccess("start");
     m_recorderStubFactory.assertNoMoreCalls();
 
-    RecorderLocator.exit(target, "location", false);
+    RecorderLocator.exit(target, 1, false);
     m_recorderStubFactory.assertSuccess("end", false);
     m_recorderStubFactory.assertNoMoreCalls();
 
-    // Interned strings shouldn't match.
-    RecorderLocator.enter(target, new String("location"));
-    RecorderLocator.exit(target, new String("location"), true);
+    // Locations beyond those registered shouldn't match.
+    RecorderLocator.enter(target, 100);
+    RecorderLocator.exit(target, 100, true);
     m_recorderStubFactory.assertNoMoreCalls();
   }
 
@@ -112,11 +112,11 @@ public class TestRecorderLocator extends TestCase {
     m_recorderStubFactory.setThrows("start", exception);
     m_recorderStubFactory.setThrows("end", exception);
 
-    m_recorderRegistry.register(target, "location", m_recorder);
+    m_recorderRegistry.register(target, 1, m_recorder);
     m_recorderStubFactory.assertNoMoreCalls();
 
     try {
-      RecorderLocator.enter(target, "location");
+      RecorderLocator.enter(target, 1);
       fail("Expected UncheckedGrinderException");
     }
     catch (UncheckedGrinderException e) {
@@ -126,7 +126,7 @@ public class TestRecorderLocator extends TestCase {
     m_recorderStubFactory.assertNoMoreCalls();
 
     try {
-      RecorderLocator.exit(target, "location", false);
+      RecorderLocator.exit(target, 1, false);
       fail("Expected UncheckedGrinderException");
     }
     catch (UncheckedGrinderException e) {
@@ -140,45 +140,45 @@ public class TestRecorderLocator extends TestCase {
     final Object target = new Object();
     final Object target2 = new Object();
 
-    m_recorderRegistry.register(target, "location", m_recorder);
+    m_recorderRegistry.register(target, 1, m_recorder);
 
-    RecorderLocator.enter(target2, "location");
-    RecorderLocator.exit(target2, "location", false);
+    RecorderLocator.enter(target2, 1);
+    RecorderLocator.exit(target2, 1, false);
     m_recorderStubFactory.assertNoMoreCalls();
 
-    RecorderLocator.enter(target, "location");
+    RecorderLocator.enter(target, 1);
     m_recorderStubFactory.assertSuccess("start");
     m_recorderStubFactory.assertNoMoreCalls();
 
-    RecorderLocator.exit(target, "location", true);
+    RecorderLocator.exit(target, 1, true);
     m_recorderStubFactory.assertSuccess("end", true);
     m_recorderStubFactory.assertNoMoreCalls();
 
-    m_recorderRegistry.register(target2, "location", m_recorder2);
-    m_recorderRegistry.register(target2, "location2", m_recorder);
+    m_recorderRegistry.register(target2, 1, m_recorder2);
+    m_recorderRegistry.register(target2, 2, m_recorder);
 
-    RecorderLocator.enter(target, "location");
+    RecorderLocator.enter(target, 1);
     m_recorderStubFactory.assertSuccess("start");
     m_recorderStubFactory.assertNoMoreCalls();
 
-    RecorderLocator.enter(target2, "location");
+    RecorderLocator.enter(target2, 1);
     m_recorderStubFactory2.assertSuccess("start");
     m_recorderStubFactory2.assertNoMoreCalls();
 
-    RecorderLocator.exit(target, "location", true);
+    RecorderLocator.exit(target, 1, true);
     m_recorderStubFactory.assertSuccess("end", true);
     m_recorderStubFactory.assertNoMoreCalls();
 
-    RecorderLocator.exit(target2, "location", false);
+    RecorderLocator.exit(target2, 1, false);
     m_recorderStubFactory2.assertSuccess("end", false);
     m_recorderStubFactory2.assertNoMoreCalls();
     m_recorderStubFactory.assertNoMoreCalls();
 
-    RecorderLocator.enter(target2, "location2");
+    RecorderLocator.enter(target2, 2);
     m_recorderStubFactory.assertSuccess("start");
     m_recorderStubFactory.assertNoMoreCalls();
 
-    RecorderLocator.exit(target2, "location2", true);
+    RecorderLocator.exit(target2, 2, true);
     m_recorderStubFactory.assertSuccess("end", true);
     m_recorderStubFactory.assertNoMoreCalls();
   }
@@ -186,36 +186,75 @@ public class TestRecorderLocator extends TestCase {
   public void testNestedRegistrations() throws Exception {
     final Object target = new Object();
 
-    m_recorderRegistry.register(target, "location", m_recorder);
+    m_recorderRegistry.register(target, 1, m_recorder);
 
     // Same target, location, recorder => noop.
-    m_recorderRegistry.register(target, "location", m_recorder);
+    m_recorderRegistry.register(target, 1, m_recorder);
 
-    m_recorderRegistry.register(target, "location", m_recorder2);
+    m_recorderRegistry.register(target, 1, m_recorder2);
 
-    RecorderLocator.enter(target, "location");
+    RecorderLocator.enter(target, 1);
     m_recorderStubFactory.assertSuccess("start");
     m_recorderStubFactory2.assertSuccess("start");
     m_recorderStubFactory.assertNoMoreCalls();
     m_recorderStubFactory2.assertNoMoreCalls();
 
-    RecorderLocator.exit(target, "location", false);
+    RecorderLocator.exit(target, 1, false);
     m_recorderStubFactory2.assertSuccess("end", false);
     m_recorderStubFactory.assertSuccess("end", false);
     m_recorderStubFactory.assertNoMoreCalls();
     m_recorderStubFactory2.assertNoMoreCalls();
   }
 
+  public void testClassRegistrations() throws Exception {
+    final Object target = new Object();
+
+    m_recorderRegistry.register(1, m_recorder);
+    m_recorderRegistry.register(1, m_recorder);
+    m_recorderRegistry.register(1, m_recorder2);
+    m_recorderRegistry.register(target, 1, m_recorder2);
+    m_recorderStubFactory.assertNoMoreCalls();
+
+    RecorderLocator.enter(1);
+    m_recorderStubFactory.assertSuccess("start");
+    m_recorderStubFactory2.assertSuccess("start");
+    m_recorderStubFactory.assertNoMoreCalls();
+    m_recorderStubFactory2.assertNoMoreCalls();
+
+    RecorderLocator.exit(1, true);
+    m_recorderStubFactory2.assertSuccess("end", true);
+    m_recorderStubFactory.assertSuccess("end", true);
+    m_recorderStubFactory.assertNoMoreCalls();
+    m_recorderStubFactory2.assertNoMoreCalls();
+
+    RecorderLocator.enter(target, 1);
+    m_recorderStubFactory2.assertSuccess("start");
+    m_recorderStubFactory.assertNoMoreCalls();
+    m_recorderStubFactory2.assertNoMoreCalls();
+
+    RecorderLocator.exit(target, 1, false);
+    m_recorderStubFactory2.assertSuccess("end", false);
+    m_recorderStubFactory.assertNoMoreCalls();
+    m_recorderStubFactory2.assertNoMoreCalls();
+
+    RecorderLocator.enter(0);
+    RecorderLocator.exit(0, true);
+    RecorderLocator.enter(2);
+    RecorderLocator.exit(2, true);
+    m_recorderStubFactory.assertNoMoreCalls();
+    m_recorderStubFactory2.assertNoMoreCalls();
+  }
+
   public void testWithNull() throws Exception {
     final Object target = new Object();
 
-    m_recorderRegistry.register(target, "location", m_recorder);
+    m_recorderRegistry.register(target, 1, m_recorder);
     m_recorderStubFactory.assertNoMoreCalls();
 
-    RecorderLocator.enter(null, "location");
+    RecorderLocator.enter(null, 1);
     m_recorderStubFactory.assertNoMoreCalls();
 
-    RecorderLocator.exit(null, "location", true);
+    RecorderLocator.exit(null, 1, true);
     m_recorderStubFactory.assertNoMoreCalls();
   }
 
@@ -237,13 +276,13 @@ public class TestRecorderLocator extends TestCase {
 
     final Random random = new Random();
 
-    final String[] locations = { "L1", "L2", "L3" };
+    final int[] locations = { 0, 1, 2 };
 
     class RegisterInstrumentation implements Runnable {
       public void run() {
         runs.incrementAndGet();
 
-        final String location = locations[random.nextInt(locations.length)];
+        final int location = locations[random.nextInt(locations.length)];
 
         if (random.nextInt(10) == 0) {
           m_recorderRegistry.register(this, location, instrumentation);
@@ -57,6 +57,13 @@ public class TestAgentMessages extends AbstractFileTestCase {
     Serializer.serialize(new StopGrinderMessage());
   }
 
+  @Test public void testSetArrivalRateMessage() throws Exception {
+    final SetArrivalRateMessage received =
+      Serializer.serialize(new SetArrivalRateMessage(12.5));
+
+    assertEquals(12.5, received.getRate(), 0);
+  }
+
   @Test public void testDistributeFileMessage() throws Exception {
     final File file = new File("test");
     assertTrue(new File(getDirectory(), file.getPath()).createNewFile());
@@ -0,0 +1,165 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+
+package net.grinder.messages.console;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Iterator;
+
+import net.grinder.common.StubTest;
+import net.grinder.common.processidentity.ProcessReport.State;
+import net.grinder.communication.Message;
+import net.grinder.communication.WireProtocol;
+import net.grinder.messages.agent.CacheHighWaterMark;
+import net.grinder.messages.agent.StubCacheHighWaterMark;
+import net.grinder.statistics.StatisticsIndexMap;
+import net.grinder.statistics.StatisticsServices;
+import net.grinder.statistics.StatisticsServicesImplementation;
+import net.grinder.statistics.StatisticsSet;
+import net.grinder.statistics.TestStatisticsMap;
+
+import org.junit.Before;
+import org.junit.Test;
+
+
+/**
+ * Unit tests for {@link ConsoleMessageCodecs}.
+ *
+ * @author Philip Aston
+ */
+public class TestConsoleMessageCodecs {
+
+  private final WireProtocol m_wireProtocol = new WireProtocol();
+
+  @Before public void setUp() {
+    ConsoleMessageCodecs.register(m_wireProtocol);
+  }
+
+  private byte[] encode(Message message) throws Exception {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    m_wireProtocol.write(message, out);
+    return out.toByteArray();
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T extends Message> T roundTrip(T message) throws Exception {
+    final byte[] bytes = encode(message);
+
+    return (T) m_wireProtocol.read(
+      new DataInputStream(new ByteArrayInputStream(bytes)));
+  }
+
+  @Test public void testRegisterIsIdempotent() throws Exception {
+    ConsoleMessageCodecs.register(m_wireProtocol);
+    ConsoleMessageCodecs.register(m_wireProtocol);
+  }
+
+  @Test public void testReportStatisticsMessage() throws Exception {
+    final StatisticsServices statisticsServices =
+      StatisticsServicesImplementation.getInstance();
+    final StatisticsIndexMap indexMap =
+      statisticsServices.getStatisticsIndexMap();
+
+    final StatisticsSet statistics =
+      statisticsServices.getStatisticsSetFactory().create();
+    statistics.addValue(indexMap.getLongIndex("errors"), 2);
+    statistics.addSample(indexMap.getLongSampleIndex("timedTests"), 1234);
+
+    final TestStatisticsMap map = new TestStatisticsMap();
+    map.put(new StubTest(1, "One"), statistics);
+    map.put(new StubTest(2, "Two"),
+            statisticsServices.getStatisticsSetFactory().create());
+
+    final ReportStatisticsMessage original = new ReportStatisticsMessage(map);
+    final ReportStatisticsMessage received = roundTrip(original);
+
+    assertEquals(map, received.getStatisticsDelta());
+
+    final ByteArrayOutputStream javaBytes = new ByteArrayOutputStream();
+    final ObjectOutputStream objectStream =
+      new ObjectOutputStream(javaBytes);
+    objectStream.writeObject(original);
+    objectStream.close();
+
+    assertTrue(encode(original).length < javaBytes.size());
+  }
+
+  @Test public void testRegisterTestsMessage() throws Exception {
+    final RegisterTestsMessage original =
+      new RegisterTestsMessage(
+        asList((net.grinder.common.Test) new StubTest(1, "One \u00e9"),
+               new StubTest(99, ""),
+               new StubTest(3, null)));
+
+    final RegisterTestsMessage received = roundTrip(original);
+
+    assertEquals(original.getTests(), received.getTests());
+
+    final Iterator<net.grinder.common.Test> iterator =
+      received.getTests().iterator();
+
+    assertEquals("One \u00e9", iterator.next().getDescription());
+    assertEquals("", iterator.next().getDescription());
+    assertEquals("", iterator.next().getDescription());
+  }
+
+  @Test public void testWorkerProcessReportMessage() throws Exception {
+    final WorkerProcessReportMessage received =
+      roundTrip(new WorkerProcessReportMessage(State.RUNNING, 2, 100000,
+                                               10.5, true, 7, 123456789L));
+
+    assertEquals(State.RUNNING, received.getState());
+    assertEquals(2, received.getNumberOfRunningThreads());
+    assertEquals(100000, received.getMaximumNumberOfThreads());
+    assertEquals(10.5, received.getArrivalRate(), 0);
+    assertTrue(received.isSaturated());
+    assertEquals(7, received.getMissedArrivals());
+    assertEquals(123456789L, received.getMaximumQueueingDelay());
+    assertNull(received.getProcessAddress());
+  }
+
+  @Test public void testAgentProcessReportMessage() throws Exception {
+    final CacheHighWaterMark cacheHighWaterMark =
+      new StubCacheHighWaterMark("", 100);
+
+    final AgentProcessReportMessage received =
+      roundTrip(new AgentProcessReportMessage(State.FINISHED,
+                                              cacheHighWaterMark));
+
+    assertEquals(State.FINISHED, received.getState());
+    assertEquals(cacheHighWaterMark, received.getCacheHighWaterMark());
+
+    final AgentProcessReportMessage received2 =
+      roundTrip(new AgentProcessReportMessage(State.STARTED, null));
+
+    assertEquals(State.STARTED, received2.getState());
+    assertNull(received2.getCacheHighWaterMark());
+  }
+}
@@ -22,6 +22,8 @@
 package net.grinder.messages.console;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.ByteArrayInputStream;
@@ -144,7 +146,7 @@ public class TestConsoleMessages {
     final WorkerIdentity workerIdentity = agentIdentity.createWorkerIdentity();
 
     final WorkerProcessReportMessage original =
-      new WorkerProcessReportMessage(State.RUNNING, (short)2, (short)3);
+      new WorkerProcessReportMessage(State.RUNNING, 2, 3);
 
     final WorkerAddress address = new WorkerAddress(workerIdentity);
     original.setAddress(address);
@@ -162,12 +164,31 @@ public class TestConsoleMessages {
     assertEquals(State.RUNNING, received.getState());
     assertEquals(2, received.getNumberOfRunningThreads());
     assertEquals(3, received.getMaximumNumberOfThreads());
+    assertFalse(received.isSaturated());
+    assertEquals(0, received.getArrivalRate(), 0);
+  }
+
+  @Test public void testWorkerReportMessageWithArrivals() throws Exception {
+
+    final WorkerProcessReportMessage original =
+      new WorkerProcessReportMessage(State.RUNNING, 2, 3,
+                                     10.5, true, 7, 123);
+
+    final WorkerProcessReportMessage received = Serializer.serialize(original);
+
+    assertEquals(State.RUNNING, received.getState());
+    assertEquals(2, received.getNumberOfRunningThreads());
+    assertEquals(3, received.getMaximumNumberOfThreads());
+    assertEquals(10.5, received.getArrivalRate(), 0);
+    assertTrue(received.isSaturated());
+    assertEquals(7, received.getMissedArrivals());
+    assertEquals(123, received.getMaximumQueueingDelay());
   }
 
   @Test public void testWorkerReportMessageBadAddress() throws Exception {
 
     final WorkerProcessReportMessage message =
-      new WorkerProcessReportMessage(State.RUNNING, (short)2, (short)3);
+      new WorkerProcessReportMessage(State.RUNNING, 2, 3);
 
     final Address badAddress =
       new AgentAddress(new StubAgentIdentity("Agent"));
@@ -0,0 +1,152 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+
+package net.grinder.messages.console;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import net.grinder.common.StubTest;
+import net.grinder.communication.Message;
+import net.grinder.communication.WireProtocol;
+import net.grinder.statistics.StatisticsIndexMap;
+import net.grinder.statistics.StatisticsServices;
+import net.grinder.statistics.StatisticsServicesImplementation;
+import net.grinder.statistics.StatisticsSet;
+import net.grinder.statistics.TestStatisticsMap;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * JMH benchmark comparing Java serialisation with the {@link WireProtocol}
+ * binary encoding of the {@link ReportStatisticsMessage} that each worker
+ * process sends every reporting interval.
+ *
+ * <p>
+ * The primary result is the number of messages encoded and decoded per
+ * second. The encoded size is reported as the <em>bytesPerMessage</em>
+ * secondary result.
+ * </p>
+ *
+ * <p>
+ * Run with <code>java -cp &lt;test class path&gt; org.openjdk.jmh.Main
+ * WireProtocolBenchmark</code>.
+ * </p>
+ *
+ * @author Philip Aston
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WireProtocolBenchmark {
+
+  @Param({ "java", "binary" })
+  public String m_encoding;
+
+  @Param({ "1", "10", "100" })
+  public int m_tests;
+
+  private final WireProtocol m_wireProtocol = new WireProtocol();
+
+  private ReportStatisticsMessage m_message;
+
+  /**
+   * Size of the encoded message, reported as a secondary result.
+   */
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class SizeCounters {
+    public long bytesPerMessage;
+  }
+
+  @Setup public void setUp() throws Exception {
+    ConsoleMessageCodecs.register(m_wireProtocol);
+
+    final StatisticsServices statisticsServices =
+      StatisticsServicesImplementation.getInstance();
+    final StatisticsIndexMap indexMap =
+      statisticsServices.getStatisticsIndexMap();
+
+    final TestStatisticsMap map = new TestStatisticsMap();
+
+    for (int i = 0; i < m_tests; ++i) {
+      final StatisticsSet statistics =
+        statisticsServices.getStatisticsSetFactory().create();
+
+      statistics.addValue(indexMap.getLongIndex("errors"), i % 3);
+
+      for (int j = 0; j < 50; ++j) {
+        statistics.addSample(indexMap.getLongSampleIndex("timedTests"),
+                             100 + i * j);
+      }
+
+      map.put(new StubTest(i, "Test " + i), statistics);
+    }
+
+    m_message = new ReportStatisticsMessage(map);
+  }
+
+  @Benchmark
+  public Message encodeAndDecode(SizeCounters counters) throws Exception {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    final Message result;
+
+    if ("binary".equals(m_encoding)) {
+      m_wireProtocol.write(m_message, out);
+
+      result = m_wireProtocol.read(
+        new DataInputStream(new ByteArrayInputStream(out.toByteArray())));
+    }
+    else {
+      final ObjectOutputStream objectStream = new ObjectOutputStream(out);
+      objectStream.writeObject(m_message);
+      objectStream.flush();
+
+      result = (Message) new ObjectInputStream(
+        new ByteArrayInputStream(out.toByteArray())).readObject();
+    }
+
+    counters.bytesPerMessage = out.size();
+
+    return result;
+  }
+}
@@ -0,0 +1,158 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.scriptengine;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import net.grinder.engine.common.ScriptLocation;
+import net.grinder.scriptengine.ScriptEngineService.ScriptEngine;
+import net.grinder.scriptengine.ScriptEngineService.WorkerRunnable;
+import net.grinder.scriptengine.java.JavaScriptEngineService;
+import net.grinder.scriptengine.jython.JythonScriptEngineService;
+import net.grinder.util.Directory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * JMH micro-benchmark comparing the maximum runs per second that a single
+ * worker thread can achieve with a trivial TestRunner, written for the Java
+ * and Jython script engines.
+ *
+ * <p>
+ * A single thread is used, so the results are per core.
+ * </p>
+ *
+ * <p>
+ * Run with <code>java -cp &lt;test class path&gt; org.openjdk.jmh.Main
+ * ScriptEngineBenchmark</code>.
+ * </p>
+ *
+ * @author Philip Aston
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(1)
+public class ScriptEngineBenchmark {
+
+  /**
+   * One engine for each language, and a worker runnable for each.
+   */
+  @State(Scope.Thread)
+  public static class Engines {
+    private File m_directory;
+
+    private ScriptEngine m_javaEngine;
+    private WorkerRunnable m_java;
+
+    private ScriptEngine m_jythonEngine;
+    private WorkerRunnable m_jython;
+
+    @Setup(Level.Trial) public void setUp() throws Exception {
+      m_directory = File.createTempFile("ScriptEngineBenchmark", "");
+      m_directory.delete();
+      m_directory.mkdir();
+
+      final File javaScript = write("Trivial.java",
+        "public class Trivial implements Runnable {\n" +
+        "  private int m_runs;\n" +
+        "  public void run() { ++m_runs; }\n" +
+        "}\n");
+
+      m_javaEngine =
+        new JavaScriptEngineService().createScriptEngine(location(javaScript));
+      m_java = m_javaEngine.createWorkerRunnable();
+
+      final File jythonScript = write("trivial.py",
+        "class TestRunner:\n" +
+        "    def __init__(self):\n" +
+        "        self.runs = 0\n" +
+        "    def __call__(self):\n" +
+        "        self.runs += 1\n");
+
+      m_jythonEngine =
+        new JythonScriptEngineService().createScriptEngine(
+          location(jythonScript));
+      m_jython = m_jythonEngine.createWorkerRunnable();
+    }
+
+    private File write(String name, String text) throws IOException {
+      final File file = new File(m_directory, name);
+      final Writer writer = new FileWriter(file);
+
+      try {
+        writer.write(text);
+      }
+      finally {
+        writer.close();
+      }
+
+      return file;
+    }
+
+    private ScriptLocation location(File file) throws IOException {
+      return new ScriptLocation(new Directory(m_directory), file);
+    }
+
+    @TearDown(Level.Trial) public void tearDown() throws Exception {
+      m_java.shutdown();
+      m_javaEngine.shutdown();
+      m_jython.shutdown();
+      m_jythonEngine.shutdown();
+
+      for (File file : m_directory.listFiles()) {
+        file.delete();
+      }
+
+      m_directory.delete();
+    }
+  }
+
+  @Benchmark
+  public void java(Engines engines) throws Exception {
+    engines.m_java.run();
+  }
+
+  @Benchmark
+  public void jython(Engines engines) throws Exception {
+    engines.m_jython.run();
+  }
+}
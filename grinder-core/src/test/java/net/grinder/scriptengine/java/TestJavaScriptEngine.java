@@ -0,0 +1,349 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.scriptengine.java;
+
+import static net.grinder.testutility.AssertUtilities.assertContains;
+import static net.grinder.testutility.FileUtilities.createFile;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import net.grinder.engine.common.ScriptLocation;
+import net.grinder.scriptengine.ScriptEngineService.ScriptEngine;
+import net.grinder.scriptengine.ScriptEngineService.WorkerRunnable;
+import net.grinder.scriptengine.ScriptExecutionException;
+import net.grinder.testutility.AbstractJUnit4FileTestCase;
+import net.grinder.util.Directory;
+
+import org.junit.Before;
+import org.junit.Test;
+
+
+/**
+ * Unit tests for {@link JavaScriptEngine}.
+ *
+ * @author Philip Aston
+ */
+public class TestJavaScriptEngine extends AbstractJUnit4FileTestCase {
+
+  private static int s_called;
+  private static int s_closed;
+
+  private static final String CALLED =
+    TestJavaScriptEngine.class.getName() + ".called();";
+
+  public static void called() {
+    ++s_called;
+  }
+
+  public static void closed() {
+    ++s_closed;
+  }
+
+  @Before public void setUp() {
+    s_called = 0;
+    s_closed = 0;
+  }
+
+  private ScriptLocation script(String name, String... lines)
+    throws Exception {
+
+    final ScriptLocation script =
+      new ScriptLocation(new Directory(getDirectory()), new File(name));
+
+    createFile(script.getFile(), lines);
+
+    return script;
+  }
+
+  @Test public void testRunnable() throws Exception {
+    final ScriptLocation script =
+      script("MyTest.java",
+             "public class MyTest implements Runnable {",
+             "  static { " + CALLED + " }",
+             "  public void run() { " + CALLED + " }",
+             "}");
+
+    final ScriptEngine scriptEngine =
+      new JavaScriptEngineService().createScriptEngine(script);
+
+    assertEquals(1, s_called);
+    assertContains(scriptEngine.getDescription(), "MyTest");
+
+    final WorkerRunnable workerRunnable = scriptEngine.createWorkerRunnable();
+    workerRunnable.run();
+    workerRunnable.run();
+    assertEquals(3, s_called);
+
+    workerRunnable.shutdown();
+    scriptEngine.shutdown();
+  }
+
+  @Test public void testCallableWithHelperClass() throws Exception {
+    script("Helper.java",
+           "class Helper {",
+           "  static void help() { " + CALLED + " }",
+           "}");
+
+    final ScriptLocation script =
+      script("MyTest.java",
+             "class MyTest implements java.util.concurrent.Callable<Void>,",
+             "                        AutoCloseable {",
+             "  private MyTest() { }",
+             "  public Void call() { Helper.help(); return null; }",
+             "  public void close() { " +
+               TestJavaScriptEngine.class.getName() + ".closed(); }",
+             "}");
+
+    final ScriptEngine scriptEngine =
+      new JavaScriptEngineService().createScriptEngine(script);
+
+    final WorkerRunnable workerRunnable = scriptEngine.createWorkerRunnable();
+    workerRunnable.run();
+    assertEquals(1, s_called);
+
+    workerRunnable.shutdown();
+    assertEquals(1, s_closed);
+  }
+
+  @Test public void testCompilationFailure() throws Exception {
+    final ScriptLocation script =
+      script("MyTest.java",
+             "public class MyTest implements Runnable {",
+             "  public void run() { foo(); }",
+             "}");
+
+    try {
+      new JavaScriptEngineService().createScriptEngine(script);
+      fail("Expected ScriptExecutionException");
+    }
+    catch (ScriptExecutionException e) {
+      assertContains(e.getMessage(), "MyTest.java:2");
+    }
+  }
+
+  @Test public void testWrongClassName() throws Exception {
+    final ScriptLocation script =
+      script("MyTest.java",
+             "class NotMyTest implements Runnable {",
+             "  public void run() { }",
+             "}");
+
+    try {
+      new JavaScriptEngineService().createScriptEngine(script);
+      fail("Expected ScriptExecutionException");
+    }
+    catch (ScriptExecutionException e) {
+      assertContains(e.getMessage(), "does not declare");
+    }
+  }
+
+  @Test public void testNotRunnable() throws Exception {
+    final ScriptLocation script =
+      script("MyTest.java",
+             "public class MyTest {",
+             "}");
+
+    try {
+      new JavaScriptEngineService().createScriptEngine(script);
+      fail("Expected ScriptExecutionException");
+    }
+    catch (ScriptExecutionException e) {
+      assertContains(e.getMessage(), "should implement");
+    }
+  }
+
+  @Test public void testNoDefaultConstructor() throws Exception {
+    final ScriptLocation script =
+      script("MyTest.java",
+             "public class MyTest implements Runnable {",
+             "  public MyTest(int x) { }",
+             "  public void run() { }",
+             "}");
+
+    try {
+      new JavaScriptEngineService().createScriptEngine(script);
+      fail("Expected ScriptExecutionException");
+    }
+    catch (ScriptExecutionException e) {
+      assertContains(e.getMessage(), "no parameters");
+    }
+  }
+
+  @Test public void testBadInitialisation() throws Exception {
+    final ScriptLocation script =
+      script("MyTest.java",
+             "public class MyTest implements Runnable {",
+             "  static { if (true) throw new IllegalStateException(); }",
+             "  public void run() { }",
+             "}");
+
+    try {
+      new JavaScriptEngineService().createScriptEngine(script);
+      fail("Expected ScriptExecutionException");
+    }
+    catch (ScriptExecutionException e) {
+      assertSame(IllegalStateException.class, e.getCause().getClass());
+    }
+  }
+
+  @Test public void testBadTestRunner() throws Exception {
+    final ScriptLocation script =
+      script("MyTest.java",
+             "public class MyTest implements Runnable {",
+             "  public MyTest() { throw new IllegalStateException(); }",
+             "  public void run() { }",
+             "}");
+
+    final ScriptEngine scriptEngine =
+      new JavaScriptEngineService().createScriptEngine(script);
+
+    try {
+      scriptEngine.createWorkerRunnable();
+      fail("Expected ScriptExecutionException");
+    }
+    catch (ScriptExecutionException e) {
+      assertSame(IllegalStateException.class, e.getCause().getClass());
+    }
+  }
+
+  @Test public void testBadRun() throws Exception {
+    final ScriptLocation script =
+      script("MyTest.java",
+             "public class MyTest implements Runnable {",
+             "  public void run() { throw new IllegalStateException(); }",
+             "}");
+
+    final WorkerRunnable workerRunnable =
+      new JavaScriptEngineService().createScriptEngine(script)
+      .createWorkerRunnable();
+
+    try {
+      workerRunnable.run();
+      fail("Expected ScriptExecutionException");
+    }
+    catch (ScriptExecutionException e) {
+      assertSame(IllegalStateException.class, e.getCause().getClass());
+    }
+  }
+
+  @Test public void testSuppliedTestRunner() throws Exception {
+    final ScriptLocation script =
+      script("MyTest.java",
+             "public class MyTest implements Runnable {",
+             "  public void run() { }",
+             "}");
+
+    final ScriptEngine scriptEngine =
+      new JavaScriptEngineService().createScriptEngine(script);
+
+    scriptEngine.createWorkerRunnable(new MyRunner()).run();
+    assertEquals(1, s_called);
+
+    try {
+      scriptEngine.createWorkerRunnable(new Object());
+      fail("Expected ScriptExecutionException");
+    }
+    catch (ScriptExecutionException e) {
+    }
+  }
+
+  private File createJar(String testRunner) throws Exception {
+    final File jar = new File(getDirectory(), "my.jar");
+
+    final Manifest manifest = new Manifest();
+    manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+
+    if (testRunner != null) {
+      manifest.getMainAttributes().putValue(
+        JavaScriptEngineService.TEST_RUNNER_ATTRIBUTE, testRunner);
+    }
+
+    new JarOutputStream(new FileOutputStream(jar), manifest).close();
+
+    return jar;
+  }
+
+  @Test public void testJar() throws Exception {
+    final File jar = createJar(MyRunner.class.getName());
+
+    final ScriptEngine scriptEngine =
+      new JavaScriptEngineService().createScriptEngine(
+        new ScriptLocation(new Directory(getDirectory()), jar));
+
+    scriptEngine.createWorkerRunnable().run();
+    assertEquals(1, s_called);
+
+    scriptEngine.shutdown();
+
+    // MyRunner was loaded from the test class path, whose class loader must
+    // not have been closed.
+    final ClassLoader systemClassLoader = ClassLoader.getSystemClassLoader();
+
+    assertNotNull(systemClassLoader.getResource(
+      MyRunner.class.getName().replace('.', '/') + ".class"));
+    assertNotNull(
+      systemClassLoader.loadClass(getClass().getName() + "$NotYetLoaded"));
+  }
+
+  @Test public void testJarWithoutTestRunner() throws Exception {
+    final File jar = createJar(null);
+
+    try {
+      new JavaScriptEngineService().createScriptEngine(
+        new ScriptLocation(new Directory(getDirectory()), jar));
+      fail("Expected ScriptExecutionException");
+    }
+    catch (ScriptExecutionException e) {
+      assertContains(e.getMessage(),
+                     JavaScriptEngineService.TEST_RUNNER_ATTRIBUTE);
+    }
+  }
+
+  @Test public void testJarWithMissingTestRunner() throws Exception {
+    final File jar = createJar("foo.Bah");
+
+    try {
+      new JavaScriptEngineService().createScriptEngine(
+        new ScriptLocation(new Directory(getDirectory()), jar));
+      fail("Expected ScriptExecutionException");
+    }
+    catch (ScriptExecutionException e) {
+      assertContains(e.getMessage(), "foo.Bah");
+    }
+  }
+
+  private static final class NotYetLoaded { }
+
+  public static final class MyRunner implements Runnable {
+    public void run() {
+      called();
+    }
+  }
+}
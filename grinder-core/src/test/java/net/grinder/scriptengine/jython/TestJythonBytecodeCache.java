@@ -0,0 +1,136 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.scriptengine.jython;
+
+import static net.grinder.testutility.AssertUtilities.assertContains;
+import static net.grinder.testutility.FileUtilities.createFile;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+
+import net.grinder.engine.common.ScriptLocation;
+import net.grinder.scriptengine.ScriptEngineService.ScriptEngine;
+import net.grinder.testutility.AbstractJUnit4FileTestCase;
+import net.grinder.util.Directory;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.python.core.PySystemState;
+
+
+/**
+ * Unit tests for {@link JythonBytecodeCache}.
+ *
+ * @author Philip Aston
+ */
+public class TestJythonBytecodeCache extends AbstractJUnit4FileTestCase {
+
+  {
+    PySystemState.initialize();
+  }
+
+  private File m_cacheDirectory;
+  private ScriptLocation m_script;
+
+  @Before public void initialise() throws Exception {
+    m_cacheDirectory = new File(getDirectory(), "cache");
+
+    final File scriptDirectory = new File(getDirectory(), "scripts");
+
+    m_script = new ScriptLocation(new Directory(scriptDirectory),
+                                  new File(scriptDirectory, "script.py"));
+  }
+
+  private void runScript() throws Exception {
+    final ScriptEngine scriptEngine =
+      new JythonScriptEngine(m_script, m_cacheDirectory);
+    scriptEngine.shutdown();
+  }
+
+  private int cacheEntries() {
+    final String[] entries = m_cacheDirectory.list();
+    return entries != null ? entries.length : 0;
+  }
+
+  @Test public void testScriptIsCached() throws Exception {
+    createFile(m_script.getFile(), "class TestRunner:pass");
+
+    runScript();
+    assertEquals(1, cacheEntries());
+
+    runScript();
+    assertEquals(1, cacheEntries());
+
+    // A changed script results in a new entry.
+    createFile(m_script.getFile(), "class TestRunner:", "  pass");
+
+    runScript();
+    assertEquals(2, cacheEntries());
+  }
+
+  @Test public void testModulesAreCached() throws Exception {
+    final File scriptDirectory = m_script.getFile().getParentFile();
+    final String prefix = "m" + System.currentTimeMillis();
+
+    createFile(new File(scriptDirectory, prefix + "module.py"), "x = 1");
+    createFile(new File(scriptDirectory, prefix + "package/__init__.py"));
+    createFile(new File(scriptDirectory, prefix + "package/sub.py"),
+               "y = 2");
+
+    createFile(m_script.getFile(),
+               "import " + prefix + "module",
+               "from " + prefix + "package import sub",
+               "assert " + prefix + "module.x == 1",
+               "assert sub.y == 2",
+               "class TestRunner:pass");
+
+    runScript();
+    assertEquals(4, cacheEntries());
+
+    runScript();
+    assertEquals(4, cacheEntries());
+  }
+
+  @Test public void testBadScript() throws Exception {
+    createFile(m_script.getFile(), "class TestRunner:");
+
+    try {
+      runScript();
+      fail("Expected JythonScriptExecutionException");
+    }
+    catch (final JythonScriptExecutionException e) {
+      assertContains(e.getShortMessage(), "SyntaxError");
+    }
+
+    assertEquals(0, cacheEntries());
+  }
+
+  @Test public void testUnwritableCacheDirectory() throws Exception {
+    assertTrue(m_cacheDirectory.createNewFile());
+
+    createFile(m_script.getFile(), "class TestRunner:pass");
+
+    runScript();
+  }
+}
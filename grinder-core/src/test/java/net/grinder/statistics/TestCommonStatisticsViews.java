@@ -22,6 +22,10 @@
 
 package net.grinder.statistics;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 import net.grinder.statistics.StatisticExpressionFactoryImplementation.ParseContext.ParseException;
 import net.grinder.testutility.RandomStubFactory;
 import junit.framework.TestCase;
@@ -65,6 +69,53 @@ public class TestCommonStatisticsViews extends TestCase {
     assertTrue(summaryExpressionViews.length > 0);
   }
 
+  public void testTimeUnitLabels() throws Exception {
+    final StatisticsIndexMap statisticsIndexMap = new StatisticsIndexMap();
+    final StatisticExpressionFactory statisticExpressionFactory =
+      new StatisticExpressionFactoryImplementation(statisticsIndexMap);
+
+    assertTrue(
+      displayNames(new CommonStatisticsViews(statisticExpressionFactory)
+                   .getSummaryStatisticsView())
+      .contains("95th Percentile Test Time (ms)"));
+
+    final List<String> microseconds =
+      displayNames(new CommonStatisticsViews(statisticExpressionFactory,
+                                             TimeUnit.MICROSECONDS)
+                   .getSummaryStatisticsView());
+
+    assertTrue(microseconds.contains("Mean Test Time (us)"));
+    assertTrue(microseconds.contains("Test Time Standard Deviation (us)"));
+    assertTrue(microseconds.contains("Median Test Time (us)"));
+    assertTrue(microseconds.contains("95th Percentile Test Time (us)"));
+    assertTrue(microseconds.contains("99th Percentile Test Time (us)"));
+    assertFalse(microseconds.contains("Mean Test Time (ms)"));
+    assertFalse(microseconds.contains("95th Percentile Test Time (ms)"));
+
+    final StatisticsServices services =
+      StatisticsServicesImplementation.getInstance(TimeUnit.NANOSECONDS);
+
+    assertSame(StatisticsServicesImplementation.getInstance()
+               .getStatisticsIndexMap(),
+               services.getStatisticsIndexMap());
+    assertTrue(displayNames(services.getSummaryStatisticsView())
+               .contains("Median Test Time (ns)"));
+
+    assertSame(
+      StatisticsServicesImplementation.getInstance(),
+      StatisticsServicesImplementation.getInstance(TimeUnit.MILLISECONDS));
+  }
+
+  private static List<String> displayNames(StatisticsView view) {
+    final List<String> result = new ArrayList<String>();
+
+    for (ExpressionView expressionView : view.getExpressionViews()) {
+      result.add(expressionView.getDisplayName());
+    }
+
+    return result;
+  }
+
   public void testGetViewsWithBrokenStatisticsExpressionFactory()
     throws Exception {
     final RandomStubFactory<StatisticExpressionFactory>
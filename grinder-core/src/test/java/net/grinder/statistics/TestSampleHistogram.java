@@ -0,0 +1,101 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+
+package net.grinder.statistics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+
+/**
+ * Unit tests for {@link SampleHistogram}.
+ *
+ * @author Philip Aston
+ */
+public class TestSampleHistogram {
+
+  @Test public void testExactValues() throws Exception {
+    for (int i = 0; i < 32; ++i) {
+      assertEquals(i, SampleHistogram.bucketFor(i));
+      assertEquals(i, SampleHistogram.highestValue(i));
+    }
+
+    assertEquals(0, SampleHistogram.bucketFor(-10));
+  }
+
+  @Test public void testBucketBoundaries() throws Exception {
+    int lastBucket = SampleHistogram.bucketFor(31);
+
+    for (long v = 32; v < 100000; ++v) {
+      final int bucket = SampleHistogram.bucketFor(v);
+
+      assertTrue(bucket == lastBucket || bucket == lastBucket + 1);
+
+      if (bucket != lastBucket) {
+        assertEquals(v - 1, SampleHistogram.highestValue(lastBucket));
+      }
+
+      assertTrue(SampleHistogram.highestValue(bucket) >= v);
+      assertTrue(SampleHistogram.highestValue(bucket) - v <= v / 16);
+
+      lastBucket = bucket;
+    }
+  }
+
+  @Test public void testLargeValues() throws Exception {
+    final int last = SampleHistogram.NUMBER_OF_BUCKETS - 1;
+
+    assertEquals(last, SampleHistogram.bucketFor(Long.MAX_VALUE));
+    assertEquals(last, SampleHistogram.bucketFor(1L << 40));
+    assertEquals(last, SampleHistogram.bucketFor((1L << 40) - 1));
+    assertEquals((1L << 40) - 1, SampleHistogram.highestValue(last));
+  }
+
+  @Test public void testValueAtPercentile() throws Exception {
+    final long[] histogram = new long[SampleHistogram.NUMBER_OF_BUCKETS];
+
+    assertEquals(0, SampleHistogram.valueAtPercentile(histogram, 0, 50));
+
+    final Random random = new Random(1);
+
+    for (int i = 0; i < 10000; ++i) {
+      SampleHistogram.record(histogram, random.nextInt(1000));
+    }
+
+    SampleHistogram.record(histogram, 50000);
+
+    final long median = SampleHistogram.valueAtPercentile(histogram, 10001, 50);
+    assertTrue(median > 450 && median < 560);
+
+    assertEquals(SampleHistogram.highestValue(SampleHistogram.bucketFor(50000)),
+                 SampleHistogram.valueAtPercentile(histogram, 10001, 100));
+
+    final long[] sum = histogram.clone();
+    SampleHistogram.add(sum, histogram);
+
+    assertEquals(median, SampleHistogram.valueAtPercentile(sum, 20002, 50));
+  }
+}
@@ -435,6 +435,41 @@ public class TestStatisticExpressionFactory {
     }
   }
 
+  @Test public void testPercentile() throws Exception {
+    myAssertEquals(0, m_factory.createExpression("(percentile timedTests 50)"));
+
+    final StatisticsIndexMap.LongSampleIndex timedTestsIndex =
+      m_indexMap.getLongSampleIndex("timedTests");
+
+    for (int i = 1; i <= 20; ++i) {
+      m_statistics.addSample(timedTestsIndex, i);
+    }
+
+    myAssertEquals(10,
+                   m_factory.createExpression("(percentile timedTests 50)"));
+    myAssertEquals(19,
+                   m_factory.createExpression("(percentile timedTests 95)"));
+    myAssertEquals(20,
+                   m_factory.createExpression("(percentile timedTests 99.9)"));
+
+    final String[] invalidExpressions = {
+      "(percentile userLong0 50)",
+      "(percentile timedTests)",
+      "(percentile timedTests foo)",
+      "(percentile timedTests 101)",
+      "(percentile timedTests -1)",
+    };
+
+    for (String expression : invalidExpressions) {
+      try {
+        m_factory.createExpression(expression);
+        fail("Expected ParseException for " + expression);
+      }
+      catch (ParseException e) {
+      }
+    }
+  }
+
   @Test public void testDoubleSample() throws Exception {
     try {
       final StatisticsIndexMap.DoubleIndex sumIndex =
@@ -24,12 +24,15 @@ package net.grinder.statistics;
 
 import static java.util.Arrays.asList;
 import static net.grinder.testutility.AssertUtilities.assertNotEquals;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.util.Random;
@@ -227,7 +230,7 @@ public class TestStatisticsSetImplementation {
     statistics0.add(statistics1);
     assertEquals(statistics0, statistics1);
 
-    assertFalse(statistics0.isZero());
+    assertTrue(statistics0.isZero());
     assertTrue(statistics1.isZero());
     assertFalse(statistics1.isComposite());
 
@@ -335,6 +338,136 @@ public class TestStatisticsSetImplementation {
     assertDoublesEqual(0, rawStatistics1.getVariance(longSampleIndex));
   }
 
+  @Test public void testLongSampleCumulativeCounts() throws Exception {
+    final StatisticsIndexMap.LongSampleIndex longSampleIndex =
+      m_indexMap.getLongSampleIndex("timedTests");
+
+    final StatisticsSetImplementation statistics =
+      new StatisticsSetImplementation(m_indexMap);
+
+    final long[] values = { 5, 10, 100, 1000 };
+    final long[] counts = new long[values.length];
+
+    assertTrue(statistics.getCumulativeCounts(longSampleIndex, values, counts));
+    assertArrayEquals(new long[] { 0, 0, 0, 0 }, counts);
+
+    statistics.addSample(longSampleIndex, 7);
+    assertTrue(statistics.getCumulativeCounts(longSampleIndex, values, counts));
+    assertArrayEquals(new long[] { 0, 1, 1, 1 }, counts);
+
+    for (int i = 1; i <= 10; ++i) {
+      statistics.addSample(longSampleIndex, i);
+    }
+
+    // 101 shares a bucket with 100, so is not counted against 100.
+    statistics.addSample(longSampleIndex, 96);
+    statistics.addSample(longSampleIndex, 101);
+    statistics.addSample(longSampleIndex, 500);
+    statistics.addSample(longSampleIndex, 5000);
+
+    assertTrue(statistics.getCumulativeCounts(longSampleIndex, values, counts));
+    assertArrayEquals(new long[] { 5, 11, 12, 14 }, counts);
+
+    final StatisticsIndexMap noHistogramIndexMap =
+      new StatisticsIndexMap(asList("a"),
+                             asList("b"),
+                             asList("c"),
+                             asList("timedTests"));
+
+    final StatisticsSetImplementation noHistogramStatistics =
+      new StatisticsSetImplementation(noHistogramIndexMap);
+
+    final StatisticsIndexMap.LongSampleIndex noHistogramIndex =
+      noHistogramIndexMap.getLongSampleIndex("timedTests");
+
+    noHistogramStatistics.addSample(noHistogramIndex, 7);
+
+    counts[0] = -1;
+    assertFalse(noHistogramStatistics.getCumulativeCounts(noHistogramIndex,
+                                                          values,
+                                                          counts));
+    assertEquals(-1, counts[0]);
+  }
+
+  @Test public void testLongSamplePercentiles() throws Exception {
+    final StatisticsIndexMap.LongSampleIndex longSampleIndex =
+      m_indexMap.getLongSampleIndex("timedTests");
+
+    final StatisticsSetImplementation statistics0 =
+      new StatisticsSetImplementation(m_indexMap);
+
+    assertEquals(0, statistics0.getPercentile(longSampleIndex, 50));
+
+    statistics0.addSample(longSampleIndex, 7);
+    assertEquals(7, statistics0.getPercentile(longSampleIndex, 50));
+    assertEquals(7, statistics0.getPercentile(longSampleIndex, 100));
+
+    for (int i = 1; i <= 10; ++i) {
+      statistics0.addSample(longSampleIndex, i);
+    }
+
+    assertEquals(11, statistics0.getCount(longSampleIndex));
+    assertEquals(1, statistics0.getPercentile(longSampleIndex, 0));
+    assertEquals(6, statistics0.getPercentile(longSampleIndex, 50));
+    assertEquals(10, statistics0.getPercentile(longSampleIndex, 99));
+
+    // Adding single samples.
+    final StatisticsSetImplementation statistics1 =
+      new StatisticsSetImplementation(m_indexMap);
+    final StatisticsSetImplementation statistics2 =
+      new StatisticsSetImplementation(m_indexMap);
+
+    statistics1.addSample(longSampleIndex, 1000);
+    statistics2.add(statistics1);
+    assertEquals(1000, statistics2.getPercentile(longSampleIndex, 50));
+    statistics2.add(statistics1);
+    statistics2.add(statistics0);
+    assertEquals(13, statistics2.getCount(longSampleIndex));
+    assertEquals(7, statistics2.getPercentile(longSampleIndex, 50));
+
+    final long p99 = statistics2.getPercentile(longSampleIndex, 99);
+    assertTrue(p99 >= 1000 && p99 < 1000 + 1000 / 16);
+
+    final StatisticsSet snapshot = statistics2.snapshot();
+    assertEquals(statistics2, snapshot);
+    assertEquals(p99, snapshot.getPercentile(longSampleIndex, 99));
+
+    statistics2.reset(longSampleIndex);
+    assertEquals(0, statistics2.getPercentile(longSampleIndex, 99));
+    statistics2.addSample(longSampleIndex, 3);
+    assertEquals(3, statistics2.getPercentile(longSampleIndex, 99));
+
+    final ByteArrayOutputStream byteOutputStream = new ByteArrayOutputStream();
+
+    final ObjectOutputStream objectOutputStream =
+      new ObjectOutputStream(byteOutputStream);
+
+    final Serialiser serialiser = new Serialiser();
+
+    statistics0.writeExternal(objectOutputStream, serialiser);
+    statistics1.writeExternal(objectOutputStream, serialiser);
+
+    objectOutputStream.close();
+
+    final ObjectInputStream objectInputStream = new ObjectInputStream(
+      new ByteArrayInputStream(byteOutputStream.toByteArray()));
+
+    final StatisticsSetImplementation received0 =
+      new StatisticsSetImplementation(m_indexMap,
+                                      objectInputStream,
+                                      serialiser);
+
+    final StatisticsSetImplementation received1 =
+      new StatisticsSetImplementation(m_indexMap,
+                                      objectInputStream,
+                                      serialiser);
+
+    assertEquals(statistics0, received0);
+    assertEquals(statistics1, received1);
+    assertEquals(6, received0.getPercentile(longSampleIndex, 50));
+    assertEquals(1000, received1.getPercentile(longSampleIndex, 50));
+  }
+
   @Test public void testDoubleSampleReadAndWrite() throws Exception {
     try {
       final StatisticsIndexMap.DoubleIndex sumIndex = m_indexMap
@@ -451,6 +584,49 @@ public class TestStatisticsSetImplementation {
     assertEquals(original1, received1);
   }
 
+  @Test public void testSerialisationIsSparse() throws Exception {
+    final Serialiser serialiser = new Serialiser();
+
+    final StatisticsSetImplementation zero =
+      new StatisticsSetImplementation(m_indexMap);
+
+    final ByteArrayOutputStream zeroBytes = new ByteArrayOutputStream();
+    final DataOutputStream zeroOut = new DataOutputStream(zeroBytes);
+    zero.writeExternal(zeroOut, serialiser);
+    zeroOut.close();
+
+    // One bit per slot, one byte per histogram, and the composite flag.
+    assertEquals((m_indexMap.getNumberOfLongs() + 7) / 8 +
+                 (m_indexMap.getNumberOfDoubles() + 7) / 8 +
+                 m_indexMap.getNumberOfHistograms() +
+                 1,
+                 zeroBytes.size());
+
+    final StatisticsSetImplementation original =
+      new StatisticsSetImplementation(m_indexMap);
+    original.addValue(m_longIndex2, 123456789L);
+    original.addValue(m_longIndex0, -1);
+    original.addValue(m_doubleIndex1, 0.5);
+
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    final DataOutputStream out = new DataOutputStream(bytes);
+    original.writeExternal(out, serialiser);
+    out.close();
+
+    final StatisticsSetImplementation received =
+      new StatisticsSetImplementation(
+        m_indexMap,
+        new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())),
+        serialiser);
+
+    assertEquals(original, received);
+    assertFalse(received.isZero());
+    assertEquals(-1, received.getValue(m_longIndex0));
+    assertEquals(0, received.getValue(m_longIndex1));
+    assertEquals(123456789L, received.getValue(m_longIndex2));
+    assertDoublesEqual(0.5, received.getValue(m_doubleIndex1));
+  }
+
   @Test public void testEqualsMiscellanea() throws Exception {
     final StatisticsSet rawStatistics0 =
       new StatisticsSetImplementation(m_indexMap);
@@ -21,6 +21,7 @@
 
 package net.grinder.synchronisation;
 
+import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
@@ -35,6 +36,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
+import java.util.HashSet;
 import java.util.Set;
 
 import net.grinder.communication.MessageDispatchRegistry;
@@ -43,6 +45,7 @@ import net.grinder.communication.MessageDispatchRegistry.AbstractHandler;
 import net.grinder.synchronisation.BarrierGroup.Listener;
 import net.grinder.synchronisation.messages.AddBarrierMessage;
 import net.grinder.synchronisation.messages.AddWaiterMessage;
+import net.grinder.synchronisation.messages.AddWaitersMessage;
 import net.grinder.synchronisation.messages.BarrierIdentity;
 import net.grinder.synchronisation.messages.CancelWaiterMessage;
 import net.grinder.synchronisation.messages.OpenBarrierMessage;
@@ -157,16 +160,37 @@ public class TestClientBarrierGroups {
 
     bg.addWaiter(ID1);
 
+    // Nothing is sent until all of the local barriers are waiting.
+    verifyNoMoreInteractions(m_sender);
+
     bg.addWaiter(ID2);
 
-    verify(m_sender).send(argThat(new AddWaiterMessageMatcher(ID1)));
-    verify(m_sender).send(argThat(new AddWaiterMessageMatcher(ID2)));
+    verify(m_sender).send(argThat(new AddWaitersMessageMatcher(ID1, ID2)));
 
     assertEquals(0, m_awakenCount);
 
     verifyNoMoreInteractions(m_sender);
   }
 
+  @Test public void testBarrierGroupAddSingleWaiter() throws Exception {
+    final BarrierGroup bg = createBarrierGroup("Foo");
+
+    bg.addBarrier();
+    verify(m_sender).send(isA(AddBarrierMessage.class));
+
+    bg.addWaiter(ID1);
+    verify(m_sender).send(argThat(new AddWaiterMessageMatcher(ID1)));
+
+    // A new barrier; the existing waiter has already been sent.
+    bg.addBarrier();
+    verify(m_sender, times(2)).send(isA(AddBarrierMessage.class));
+
+    bg.addWaiter(ID2);
+    verify(m_sender).send(argThat(new AddWaiterMessageMatcher(ID2)));
+
+    verifyNoMoreInteractions(m_sender);
+  }
+
   @Test public void testBarrierGroupAddTooManyWaiters() throws Exception {
     final BarrierGroup bg = createBarrierGroup("Foo");
 
@@ -193,11 +217,13 @@ public class TestClientBarrierGroups {
     bg.addWaiter(ID1);
     bg.addWaiter(ID2);
 
-    verify(m_sender).send(argThat(new AddWaiterMessageMatcher(ID1)));
-    verify(m_sender).send(argThat(new AddWaiterMessageMatcher(ID2)));
+    verifyNoMoreInteractions(m_sender);
 
     bg.removeBarriers(1);
 
+    // Now all the barriers are waiting.
+    verify(m_sender).send(argThat(new AddWaitersMessageMatcher(ID1, ID2)));
+
     verify(m_sender).send(argThat(new RemoveBarriersMessageMatcher(1)));
 
     assertEquals(0, m_awakenCount);
@@ -275,19 +301,21 @@ public class TestClientBarrierGroups {
     verify(m_sender, times(2)).send(isA(AddBarrierMessage.class));
 
     bg.addWaiter(ID1);
-    verify(m_sender).send(argThat(new AddWaiterMessageMatcher(ID1)));
 
     bg.cancelWaiter(ID2); // noop
     verify(m_sender).send(argThat(new CancelWaiterMessageMatcher(ID2)));
 
+    // The console doesn't know about ID1, so there's nothing to send.
     bg.cancelWaiter(ID1);
-    verify(m_sender).send(argThat(new CancelWaiterMessageMatcher(ID1)));
 
     bg.addWaiter(ID2);
-    verify(m_sender).send(argThat(new AddWaiterMessageMatcher(ID2)));
 
     bg.addWaiter(ID1);
-    verify(m_sender, times(2)).send(argThat(new AddWaiterMessageMatcher(ID1)));
+    verify(m_sender).send(argThat(new AddWaitersMessageMatcher(ID1, ID2)));
+
+    // Now the console knows about ID1.
+    bg.cancelWaiter(ID1);
+    verify(m_sender).send(argThat(new CancelWaiterMessageMatcher(ID1)));
 
     assertEquals(0, m_awakenCount);
 
@@ -322,6 +350,21 @@ public class TestClientBarrierGroups {
     }
   }
 
+  private static class AddWaitersMessageMatcher
+    extends TypedArgumentMatcher<AddWaitersMessage> {
+
+    private final Set<BarrierIdentity> m_barrierIdentities;
+
+    AddWaitersMessageMatcher(BarrierIdentity... barrierIdentities) {
+      m_barrierIdentities =
+        new HashSet<BarrierIdentity>(asList(barrierIdentities));
+    }
+
+    @Override protected boolean argumentMatches(AddWaitersMessage t) {
+      return t.getBarrierIdentities().equals(m_barrierIdentities);
+    }
+  }
+
   private static class CancelWaiterMessageMatcher
     extends TypedArgumentMatcher<CancelWaiterMessage> {
 
@@ -77,6 +77,19 @@ public class TestBarrierGroupMessages {
     assertEquals(identity, serialized.getBarrierIdentity());
   }
 
+  @Test public void testAddWaitersMessage() throws Exception {
+    final Set<BarrierIdentity> waiters =
+      new HashSet<BarrierIdentity>(asList(m_identityFactory.next(),
+                                          m_identityFactory.next()));
+
+    final AddWaitersMessage message = new AddWaitersMessage("abc", waiters);
+
+    final AddWaitersMessage serialized = serialize(message);
+
+    assertEquals("abc", serialized.getName());
+    assertEquals(waiters, serialized.getBarrierIdentities());
+  }
+
   @Test public void testAddressAwareMessage() throws Exception {
 
     final WorkerIdentity identity = mock(WorkerIdentity.class);
@@ -0,0 +1,172 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+
+package net.grinder.util;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.grinder.util.TimerWheel.Timeout;
+
+import org.junit.Test;
+
+
+/**
+ * Unit tests for {@link TimerWheel}.
+ *
+ * @author Philip Aston
+ */
+public class TestTimerWheel {
+
+  private final List<Integer> m_expired = new ArrayList<Integer>();
+
+  private Runnable task(final int n) {
+    return new Runnable() {
+      public void run() {
+        m_expired.add(n);
+      }
+    };
+  }
+
+  @Test public void testConstruction() throws Exception {
+    try {
+      new TimerWheel(0, 10, 0);
+      fail("Expected IllegalArgumentException");
+    }
+    catch (IllegalArgumentException e) {
+    }
+
+    try {
+      new TimerWheel(10, 0, 0);
+      fail("Expected IllegalArgumentException");
+    }
+    catch (IllegalArgumentException e) {
+    }
+
+    final TimerWheel wheel = new TimerWheel(10, 8, 1000);
+    assertEquals(0, wheel.size());
+    assertEquals(-1, wheel.getTimeToNextTick(1000));
+    assertEquals(0, wheel.expire(2000));
+  }
+
+  @Test public void testExpire() throws Exception {
+    final TimerWheel wheel = new TimerWheel(10, 8, 1000);
+
+    wheel.schedule(task(1), 1025);
+    wheel.schedule(task(2), 1005);
+    wheel.schedule(task(3), 1045);
+    assertEquals(3, wheel.size());
+    assertEquals(10, wheel.getTimeToNextTick(1000));
+    assertEquals(3, wheel.getTimeToNextTick(1007));
+
+    assertEquals(0, wheel.expire(1009));
+    assertEquals(1, wheel.expire(1010));
+    assertEquals(asList(2), m_expired);
+
+    assertEquals(0, wheel.expire(1029));
+    assertEquals(1, wheel.expire(1030));
+    assertEquals(asList(2, 1), m_expired);
+
+    // Late calls expire everything that is due.
+    assertEquals(1, wheel.expire(2000));
+    assertEquals(asList(2, 1, 3), m_expired);
+    assertEquals(0, wheel.size());
+  }
+
+  @Test public void testDeadlinesBeyondOneRevolution() throws Exception {
+    final TimerWheel wheel = new TimerWheel(10, 4, 0);
+
+    wheel.schedule(task(1), 5);
+    wheel.schedule(task(2), 45);
+    wheel.schedule(task(3), 85);
+
+    for (int t = 10; t <= 100; t += 10) {
+      wheel.expire(t);
+
+      switch (t) {
+        case 10: assertEquals(asList(1), m_expired); break;
+        case 40: assertEquals(asList(1), m_expired); break;
+        case 50: assertEquals(asList(1, 2), m_expired); break;
+        case 80: assertEquals(asList(1, 2), m_expired); break;
+        case 90: assertEquals(asList(1, 2, 3), m_expired); break;
+        default:
+      }
+    }
+
+    assertEquals(0, wheel.size());
+  }
+
+  @Test public void testPastDeadlines() throws Exception {
+    final TimerWheel wheel = new TimerWheel(10, 4, 0);
+    wheel.expire(55);
+
+    wheel.schedule(task(1), 3);
+    assertEquals(5, wheel.getTimeToNextTick(55));
+    assertEquals(0, wheel.getTimeToNextTick(65));
+
+    assertEquals(0, wheel.expire(59));
+    assertEquals(1, wheel.expire(60));
+  }
+
+  @Test public void testCancel() throws Exception {
+    final TimerWheel wheel = new TimerWheel(10, 4, 0);
+
+    final Timeout t1 = wheel.schedule(task(1), 5);
+    final Timeout t2 = wheel.schedule(task(2), 6);
+    final Timeout t3 = wheel.schedule(task(3), 7);
+    assertTrue(t2.isPending());
+
+    assertTrue(t2.cancel());
+    assertFalse(t2.isPending());
+    assertFalse(t2.cancel());
+    assertTrue(t3.cancel());
+    assertEquals(1, wheel.size());
+
+    assertEquals(1, wheel.expire(10));
+    assertEquals(asList(1), m_expired);
+    assertFalse(t1.isPending());
+    assertFalse(t1.cancel());
+  }
+
+  @Test public void testTasksCanReschedule() throws Exception {
+    final TimerWheel wheel = new TimerWheel(10, 4, 0);
+
+    wheel.schedule(new Runnable() {
+        public void run() {
+          m_expired.add(1);
+          wheel.schedule(task(2), 15);
+        }
+      },
+      5);
+
+    assertEquals(1, wheel.expire(10));
+    assertEquals(1, wheel.size());
+    assertEquals(1, wheel.expire(20));
+    assertEquals(asList(1, 2), m_expired);
+  }
+}
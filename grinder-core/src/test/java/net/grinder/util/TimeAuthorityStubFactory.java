@@ -48,4 +48,8 @@ public class TimeAuthorityStubFactory extends RandomStubFactory<TimeAuthority> {
 
     return m_lastTime;
   }
+
+  public long override_getTimeInNanoseconds(Object proxy) {
+    return override_getTimeInMilliseconds(proxy);
+  }
 }
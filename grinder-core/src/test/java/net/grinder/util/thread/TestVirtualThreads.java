@@ -0,0 +1,67 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.util.thread;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+
+/**
+ * Unit tests for {@link VirtualThreads}.
+ *
+ * @author Philip Aston
+ */
+public class TestVirtualThreads extends TestCase {
+
+  public void testCreate() throws Exception {
+    final CountDownLatch ran = new CountDownLatch(1);
+
+    final Runnable runnable = new Runnable() {
+      public void run() { ran.countDown(); }
+    };
+
+    if (VirtualThreads.isSupported()) {
+      final Thread thread = VirtualThreads.create(runnable, "virtual");
+
+      assertEquals("virtual", thread.getName());
+      assertTrue(thread.isDaemon());
+      assertFalse(thread.isAlive());
+
+      thread.start();
+
+      assertTrue(ran.await(10, TimeUnit.SECONDS));
+      thread.join();
+    }
+    else {
+      try {
+        VirtualThreads.create(runnable, "virtual");
+        fail("Expected UnsupportedOperationException");
+      }
+      catch (UnsupportedOperationException e) {
+      }
+
+      assertEquals(1, ran.getCount());
+    }
+  }
+}
@@ -131,9 +131,9 @@ public class TestASMTransformerFactory /*extends TestCase */ {
     final ClassFileTransformerFactory transformerFactory =
       new ASMTransformerFactory(MyAdvice.class);
 
-    m_pointCutRegistryStubFactory.addMethod(A.class, "m1", "loc1");
-    m_pointCutRegistryStubFactory.addMethod(A.class, "m2", "loc2");
-    m_pointCutRegistryStubFactory.addMethod(A.class, "m4", "loc4");
+    m_pointCutRegistryStubFactory.addMethod(A.class, "m1", 1);
+    m_pointCutRegistryStubFactory.addMethod(A.class, "m2", 2);
+    m_pointCutRegistryStubFactory.addMethod(A.class, "m4", 4);
 
     final ClassFileTransformer transformer =
       transformerFactory.create(m_pointCutRegistry);
@@ -148,13 +148,13 @@ public class TestASMTransformerFactory /*extends TestCase */ {
     final A a = new A();
     assertEquals(1, a.m1());
 
-    s_callRecorder.assertSuccess("enter", a, "loc1");
-    s_callRecorder.assertSuccess("exit", a, "loc1", true);
+    s_callRecorder.assertSuccess("enter", a, 1);
+    s_callRecorder.assertSuccess("exit", a, 1, true);
     s_callRecorder.assertNoMoreCalls();
 
     anotherA.m1();
-    s_callRecorder.assertSuccess("enter", anotherA, "loc1");
-    s_callRecorder.assertSuccess("exit", anotherA, "loc1", true);
+    s_callRecorder.assertSuccess("enter", anotherA, 1);
+    s_callRecorder.assertSuccess("exit", anotherA, 1, true);
     s_callRecorder.assertNoMoreCalls();
 
     try {
@@ -164,8 +164,8 @@ public class TestASMTransformerFactory /*extends TestCase */ {
     catch (RuntimeException e) {
     }
 
-    s_callRecorder.assertSuccess("enter", a, "loc2");
-    s_callRecorder.assertSuccess("exit", a, "loc2", false);
+    s_callRecorder.assertSuccess("enter", a, 2);
+    s_callRecorder.assertSuccess("exit", a, 2, false);
     s_callRecorder.assertNoMoreCalls();
 
     try {
@@ -175,22 +175,22 @@ public class TestASMTransformerFactory /*extends TestCase */ {
     catch (RuntimeException e) {
     }
 
-    s_callRecorder.assertSuccess("enter", a, "loc4");
-    s_callRecorder.assertSuccess("enter", a, "loc2");
-    s_callRecorder.assertSuccess("exit", a, "loc2", false);
-    s_callRecorder.assertSuccess("exit", a, "loc4", false);
+    s_callRecorder.assertSuccess("enter", a, 4);
+    s_callRecorder.assertSuccess("enter", a, 2);
+    s_callRecorder.assertSuccess("exit", a, 2, false);
+    s_callRecorder.assertSuccess("exit", a, 4, false);
     s_callRecorder.assertNoMoreCalls();
 
-    m_pointCutRegistryStubFactory.addMethod(A.class, "m1", "locX");
+    m_pointCutRegistryStubFactory.addMethod(A.class, "m1", 9);
 
     instrumentation.retransformClasses(new Class[] { A.class, A2.class });
 
     a.m1();
     // We only support more than one advice per method.
-    s_callRecorder.assertSuccess("enter", a, "loc1");
-    s_callRecorder.assertSuccess("enter", a, "locX");
-    s_callRecorder.assertSuccess("exit", a, "locX", true);
-    s_callRecorder.assertSuccess("exit", a, "loc1", true);
+    s_callRecorder.assertSuccess("enter", a, 1);
+    s_callRecorder.assertSuccess("enter", a, 9);
+    s_callRecorder.assertSuccess("exit", a, 9, true);
+    s_callRecorder.assertSuccess("exit", a, 1, true);
     s_callRecorder.assertNoMoreCalls();
 
     instrumentation.removeTransformer(transformer);
@@ -202,8 +202,8 @@ public class TestASMTransformerFactory /*extends TestCase */ {
     final ClassFileTransformerFactory transformerFactory =
       new ASMTransformerFactory(MyAdvice.class);
 
-    m_pointCutRegistryStubFactory.addMethod(A.class, "m1", "loc1");
-    m_pointCutRegistryStubFactory.addMethod(A.class, "m2", "loc2");
+    m_pointCutRegistryStubFactory.addMethod(A.class, "m1", 1);
+    m_pointCutRegistryStubFactory.addMethod(A.class, "m2", 2);
 
     final ClassFileTransformer transformer1 =
       transformerFactory.create(m_pointCutRegistry);
@@ -219,10 +219,10 @@ public class TestASMTransformerFactory /*extends TestCase */ {
     final A a = new A();
     assertEquals(1, a.m1());
 
-    s_callRecorder.assertSuccess("enter", a, "loc1");
-    s_callRecorder.assertSuccess("enter", a, "loc1");
-    s_callRecorder.assertSuccess("exit", a, "loc1", true);
-    s_callRecorder.assertSuccess("exit", a, "loc1", true);
+    s_callRecorder.assertSuccess("enter", a, 1);
+    s_callRecorder.assertSuccess("enter", a, 1);
+    s_callRecorder.assertSuccess("exit", a, 1, true);
+    s_callRecorder.assertSuccess("exit", a, 1, true);
     s_callRecorder.assertNoMoreCalls();
 
     try {
@@ -232,10 +232,10 @@ public class TestASMTransformerFactory /*extends TestCase */ {
     catch (RuntimeException e) {
     }
 
-    s_callRecorder.assertSuccess("enter", a, "loc2");
-    s_callRecorder.assertSuccess("enter", a, "loc2");
-    s_callRecorder.assertSuccess("exit", a, "loc2", false);
-    s_callRecorder.assertSuccess("exit", a, "loc2", false);
+    s_callRecorder.assertSuccess("enter", a, 2);
+    s_callRecorder.assertSuccess("enter", a, 2);
+    s_callRecorder.assertSuccess("exit", a, 2, false);
+    s_callRecorder.assertSuccess("exit", a, 2, false);
     s_callRecorder.assertNoMoreCalls();
 
     assertTrue(instrumentation.removeTransformer(transformer2));
@@ -253,7 +253,7 @@ public class TestASMTransformerFactory /*extends TestCase */ {
     final ClassFileTransformerFactory transformerFactory =
       new ASMTransformerFactory(MyAdvice.class);
 
-    m_pointCutRegistryStubFactory.addMethod(SerializableA.class, "m1", "loc1");
+    m_pointCutRegistryStubFactory.addMethod(SerializableA.class, "m1", 1);
 
     final ClassFileTransformer transformer =
       transformerFactory.create(m_pointCutRegistry);
@@ -270,8 +270,8 @@ public class TestASMTransformerFactory /*extends TestCase */ {
 
     assertEquals(1, a.m1());
 
-    s_callRecorder.assertSuccess("enter", a, "loc1");
-    s_callRecorder.assertSuccess("exit", a, "loc1", true);
+    s_callRecorder.assertSuccess("enter", a, 1);
+    s_callRecorder.assertSuccess("exit", a, 1, true);
     s_callRecorder.assertNoMoreCalls();
 
     final byte[] bytes = serialize(a);
@@ -289,7 +289,7 @@ public class TestASMTransformerFactory /*extends TestCase */ {
       new ASMTransformerFactory(MyAdvice.class);
 
     m_pointCutRegistryStubFactory.addConstructor(
-      A2.class, A2.class.getDeclaredConstructor(Integer.TYPE), "loc1");
+      A2.class, A2.class.getDeclaredConstructor(Integer.TYPE), 1);
 
     final ClassFileTransformer transformer =
       transformerFactory.create(m_pointCutRegistry);
@@ -302,21 +302,21 @@ public class TestASMTransformerFactory /*extends TestCase */ {
 
     new A2(1);
 
-    s_callRecorder.assertSuccess("enter", A2.class, "loc1");
-    s_callRecorder.assertSuccess("exit", A2.class, "loc1", true);
+    s_callRecorder.assertSuccess("enter", 1);
+    s_callRecorder.assertSuccess("exit", 1, true);
     s_callRecorder.assertNoMoreCalls();
 
     new A3();
     s_callRecorder.assertNoMoreCalls();
 
     m_pointCutRegistryStubFactory.addConstructor(
-      A3.class, A3.class.getDeclaredConstructor(), "loc2");
+      A3.class, A3.class.getDeclaredConstructor(), 2);
     instrumentation.retransformClasses(new Class[] { A3.class, A2.class });
 
     new A3();
 
-    s_callRecorder.assertSuccess("enter", A3.class, "loc2");
-    s_callRecorder.assertSuccess("exit", A3.class, "loc2", true);
+    s_callRecorder.assertSuccess("enter", 2);
+    s_callRecorder.assertSuccess("exit", 2, true);
     s_callRecorder.assertNoMoreCalls();
 
     instrumentation.removeTransformer(transformer);
@@ -330,14 +330,14 @@ public class TestASMTransformerFactory /*extends TestCase */ {
       new ASMTransformerFactory(MyAdvice.class);
 
     m_pointCutRegistryStubFactory.addConstructor(
-      A4.class, A4.class.getDeclaredConstructor(), "loc1");
+      A4.class, A4.class.getDeclaredConstructor(), 1);
     m_pointCutRegistryStubFactory.addConstructor(
-      A4.class, A4.class.getDeclaredConstructor(String.class), "loc2");
+      A4.class, A4.class.getDeclaredConstructor(String.class), 2);
 
     m_pointCutRegistryStubFactory.addMethod(
-      A4.class, A4.class.getDeclaredMethod("m1", Integer.TYPE), "loc3");
+      A4.class, A4.class.getDeclaredMethod("m1", Integer.TYPE), 3);
     m_pointCutRegistryStubFactory.addMethod(
-      A4.class, A4.class.getDeclaredMethod("m1", String.class), "loc4");
+      A4.class, A4.class.getDeclaredMethod("m1", String.class), 4);
 
     final ClassFileTransformer transformer =
       transformerFactory.create(m_pointCutRegistry);
@@ -347,18 +347,18 @@ public class TestASMTransformerFactory /*extends TestCase */ {
 
     final A4 a = new A4("abc");
 
-    s_callRecorder.assertSuccess("enter", A4.class, "loc2");
-    s_callRecorder.assertSuccess("enter", A4.class, "loc1");
-    s_callRecorder.assertSuccess("exit", A4.class, "loc1", true);
-    s_callRecorder.assertSuccess("exit", A4.class, "loc2", true);
+    s_callRecorder.assertSuccess("enter", 2);
+    s_callRecorder.assertSuccess("enter", 1);
+    s_callRecorder.assertSuccess("exit", 1, true);
+    s_callRecorder.assertSuccess("exit", 2, true);
     s_callRecorder.assertNoMoreCalls();
 
     a.m1(1);
 
-    s_callRecorder.assertSuccess("enter", a, "loc3");
-    s_callRecorder.assertSuccess("enter", a, "loc4");
-    s_callRecorder.assertSuccess("exit", a, "loc4", true);
-    s_callRecorder.assertSuccess("exit", a, "loc3", true);
+    s_callRecorder.assertSuccess("enter", a, 3);
+    s_callRecorder.assertSuccess("enter", a, 4);
+    s_callRecorder.assertSuccess("exit", a, 4, true);
+    s_callRecorder.assertSuccess("exit", a, 3, true);
     s_callRecorder.assertNoMoreCalls();
 
     instrumentation.removeTransformer(transformer);
@@ -371,7 +371,7 @@ public class TestASMTransformerFactory /*extends TestCase */ {
       new ASMTransformerFactory(MyAdvice.class);
 
     m_pointCutRegistryStubFactory.addMethod(
-      A2.class, A2.class.getDeclaredMethod("m3"), "loc1");
+      A2.class, A2.class.getDeclaredMethod("m3"), 1);
 
     final ClassFileTransformer transformer =
       transformerFactory.create(m_pointCutRegistry);
@@ -381,8 +381,8 @@ public class TestASMTransformerFactory /*extends TestCase */ {
 
     assertEquals(3, A2.m3());
 
-    s_callRecorder.assertSuccess("enter", A2.class, "loc1");
-    s_callRecorder.assertSuccess("exit", A2.class, "loc1", true);
+    s_callRecorder.assertSuccess("enter", 1);
+    s_callRecorder.assertSuccess("exit", 1, true);
     s_callRecorder.assertNoMoreCalls();
 
     instrumentation.removeTransformer(transformer);
@@ -397,16 +397,16 @@ public class TestASMTransformerFactory /*extends TestCase */ {
       new ASMTransformerFactory(MyAdvice.class);
 
     m_pointCutRegistryStubFactory.addConstructor(
-      A5.class, A5.class.getDeclaredConstructor(Integer.TYPE), "loc1");
+      A5.class, A5.class.getDeclaredConstructor(Integer.TYPE), 1);
 
     m_pointCutRegistryStubFactory.addMethod(
-      A5.class, A5.class.getDeclaredMethod("m1", Integer.TYPE), "loc3");
+      A5.class, A5.class.getDeclaredMethod("m1", Integer.TYPE), 3);
     m_pointCutRegistryStubFactory.addMethod(
-      A5.class, A5.class.getDeclaredMethod("m1", String.class), "loc4");
+      A5.class, A5.class.getDeclaredMethod("m1", String.class), 4);
     m_pointCutRegistryStubFactory.addMethod(
-      A5.class, A5.class.getDeclaredMethod("m2"), "loc5");
+      A5.class, A5.class.getDeclaredMethod("m2"), 5);
     m_pointCutRegistryStubFactory.addMethod(
-      A5.class, A5.class.getDeclaredMethod("m3"), "loc6");
+      A5.class, A5.class.getDeclaredMethod("m3"), 6);
 
     final ClassFileTransformer transformer =
       transformerFactory.create(m_pointCutRegistry);
@@ -416,16 +416,16 @@ public class TestASMTransformerFactory /*extends TestCase */ {
 
     final A5 a = new A5(10);
 
-    s_callRecorder.assertSuccess("enter", A5.class, "loc1");
-    s_callRecorder.assertSuccess("exit", A5.class, "loc1", true);
+    s_callRecorder.assertSuccess("enter", 1);
+    s_callRecorder.assertSuccess("exit", 1, true);
     s_callRecorder.assertNoMoreCalls();
 
     assertEquals(-11d, a.m1(1), 0.01d);
 
-    s_callRecorder.assertSuccess("enter", a, "loc3");
-    s_callRecorder.assertSuccess("enter", a, "loc4");
-    s_callRecorder.assertSuccess("exit", a, "loc4", true);
-    s_callRecorder.assertSuccess("exit", a, "loc3", true);
+    s_callRecorder.assertSuccess("enter", a, 3);
+    s_callRecorder.assertSuccess("enter", a, 4);
+    s_callRecorder.assertSuccess("exit", a, 4, true);
+    s_callRecorder.assertSuccess("exit", a, 3, true);
     s_callRecorder.assertNoMoreCalls();
 
     instrumentation.removeTransformer(transformer);
@@ -440,7 +440,7 @@ public class TestASMTransformerFactory /*extends TestCase */ {
     m_pointCutRegistryStubFactory.addMethod(
       A4.class,
       A4.class.getDeclaredMethod("m1", String.class),
-      "X",
+      200,
       TargetSource.SECOND_PARAMETER);
 
     final ClassFileTransformer transformer =
@@ -453,25 +453,25 @@ public class TestASMTransformerFactory /*extends TestCase */ {
 
     a.m1("Hello");
 
-    s_callRecorder.assertSuccess("enter", "Hello", "X");
-    s_callRecorder.assertSuccess("exit", "Hello", "X", true);
+    s_callRecorder.assertSuccess("enter", "Hello", 200);
+    s_callRecorder.assertSuccess("exit", "Hello", 200, true);
     s_callRecorder.assertNoMoreCalls();
 
 
     m_pointCutRegistryStubFactory.addMethod(
       A4.class,
       A4.class.getDeclaredMethod("m1", String.class),
-      "Y",
+      40000,
       TargetSource.FIRST_PARAMETER);
 
     instrumentation.retransformClasses(new Class[] { A4.class, });
 
     a.m1("Goodbye");
 
-    s_callRecorder.assertSuccess("enter", "Goodbye", "X");
-    s_callRecorder.assertSuccess("enter", a, "Y");
-    s_callRecorder.assertSuccess("exit", a, "Y", true);
-    s_callRecorder.assertSuccess("exit", "Goodbye", "X", true);
+    s_callRecorder.assertSuccess("enter", "Goodbye", 200);
+    s_callRecorder.assertSuccess("enter", a, 40000);
+    s_callRecorder.assertSuccess("exit", a, 40000, true);
+    s_callRecorder.assertSuccess("exit", "Goodbye", 200, true);
     s_callRecorder.assertNoMoreCalls();
 
     instrumentation.removeTransformer(transformer);
@@ -595,20 +595,26 @@ public class TestASMTransformerFactory /*extends TestCase */ {
   public static final class MyAdvice {
     private static final Method ENTER_METHOD;
     private static final Method EXIT_METHOD;
+    private static final Method ENTER_CLASS_METHOD;
+    private static final Method EXIT_CLASS_METHOD;
 
     static {
       try {
         ENTER_METHOD = MyAdvice.class.getMethod(
-          "enter", Object.class, String.class);
+          "enter", Object.class, Integer.TYPE);
         EXIT_METHOD = MyAdvice.class.getMethod(
-          "exit", Object.class, String.class, Boolean.TYPE);
+          "exit", Object.class, Integer.TYPE, Boolean.TYPE);
+        ENTER_CLASS_METHOD = MyAdvice.class.getMethod(
+          "enter", Integer.TYPE);
+        EXIT_CLASS_METHOD = MyAdvice.class.getMethod(
+          "exit", Integer.TYPE, Boolean.TYPE);
       }
       catch (Exception e) {
         throw new ExceptionInInitializerError(e);
       }
     }
 
-    public static void enter(Object reference, String location) {
+    public static void enter(Object reference, int location) {
       s_callRecorder.record(new CallData(ENTER_METHOD,
                                          null,
                                          reference,
@@ -616,7 +622,7 @@ public class TestASMTransformerFactory /*extends TestCase */ {
     }
 
     public static void exit(Object reference,
-                            String location,
+                            int location,
                             boolean success) {
 
       s_callRecorder.record(new CallData(EXIT_METHOD,
@@ -625,29 +631,56 @@ public class TestASMTransformerFactory /*extends TestCase */ {
                                          location,
                                          success));
     }
+
+    public static void enter(int location) {
+      s_callRecorder.record(new CallData(ENTER_CLASS_METHOD,
+                                         null,
+                                         location));
+    }
+
+    public static void exit(int location, boolean success) {
+      s_callRecorder.record(new CallData(EXIT_CLASS_METHOD,
+                                         null,
+                                         location,
+                                         success));
+    }
   }
 
   public static final class BadAdvice1 {
   }
 
   public static final class BadAdvice2 {
-    public static void enter(Object reference, String location) { }
+    public static void enter(Object reference, int location) { }
 
-    public static void exit(Object reference, String location) { }
+    public static void exit(Object reference, int location) { }
+
+    public static void enter(int location) { }
+
+    public static void exit(int location, boolean success) { }
   }
 
   public static final class BadAdvice3 {
-    public void enter(Object reference, String location) { }
+    public void enter(Object reference, int location) { }
 
     public static void exit(Object reference,
-                            String location,
+                            int location,
                             boolean success) { }
+
+    public static void enter(int location) { }
+
+    public static void exit(int location, boolean success) { }
   }
 
   public static final class BadAdvice4 {
-    public static void enter(Object reference, String location) { }
+    public static void enter(Object reference, int location) { }
+
+    public static void exit(Object reference,
+                            int location,
+                            boolean success) { }
+
+    public static void enter(int location) { }
 
-    public void exit(Object reference, String location, boolean success) { }
+    public void exit(int location, boolean success) { }
   }
 
   public static final class PointCutRegistryStubFactory
@@ -681,7 +714,7 @@ public class TestASMTransformerFactory /*extends TestCase */ {
 
     public void addConstructor(Class<?> theClass,
                                Constructor<?> constructor,
-                               String location) {
+                               int location) {
       addMember(theClass, constructor, location, m_constructors, null);
     }
 
@@ -690,7 +723,7 @@ public class TestASMTransformerFactory /*extends TestCase */ {
      */
     public void addMethod(Class<?> theClass,
                           String methodName,
-                          String location)
+                          int location)
       throws SecurityException, NoSuchMethodException {
 
       addMethod(theClass,
@@ -700,13 +733,13 @@ public class TestASMTransformerFactory /*extends TestCase */ {
 
     public void addMethod(Class<?> theClass,
                           Method method,
-                          String location) {
+                          int location) {
       addMethod(theClass, method, location, null);
     }
 
     public void addMethod(Class<?> theClass,
                           Method method,
-                          String location,
+                          int location,
                           TargetSource source) {
       addMember(theClass, method, location, m_methods, source);
     }
@@ -714,7 +747,7 @@ public class TestASMTransformerFactory /*extends TestCase */ {
     public <T extends Member> void addMember(
       Class<?> theClass,
       T member,
-      String location,
+      int location,
       Map<String, Map<T, List<WeavingDetails>>> members,
       TargetSource source) {
 
@@ -92,8 +92,8 @@ public class TestDCRWeaver {
 
     final Method method = getClass().getDeclaredMethod("myMethod");
 
-    final String l1 = weaver.weave(method, TargetSource.FIRST_PARAMETER);
-    final String l2 = weaver.weave(method, TargetSource.FIRST_PARAMETER);
+    final int l1 = weaver.weave(method, TargetSource.FIRST_PARAMETER);
+    final int l2 = weaver.weave(method, TargetSource.FIRST_PARAMETER);
     assertEquals(l1, l2);
 
     weaver.weave(method, TargetSource.FIRST_PARAMETER);
@@ -115,8 +115,8 @@ public class TestDCRWeaver {
 
     final List<WeavingDetails> locations1 = methodPointCuts.get(method);
     assertEquals(1, locations1.size());
-    final String location1 = locations1.get(0).getLocation();
-    assertNotNull(location1);
+    final int location1 = locations1.get(0).getLocation();
+    assertEquals(l1, location1);
 
     final Method method2 = getClass().getDeclaredMethod("myOtherMethod");
 
@@ -148,8 +148,8 @@ public class TestDCRWeaver {
 
     final Constructor<?> constructor = getClass().getDeclaredConstructor();
 
-    final String l1 = weaver.weave(constructor);
-    final String l2 = weaver.weave(constructor);
+    final int l1 = weaver.weave(constructor);
+    final int l2 = weaver.weave(constructor);
     assertEquals(l1, l2);
 
     weaver.weave(constructor);
@@ -174,8 +174,8 @@ public class TestDCRWeaver {
 
     assertEquals(1, locations1.size());
 
-    final String location1 = locations1.get(0).getLocation();
-    assertNotNull(location1);
+    final int location1 = locations1.get(0).getLocation();
+    assertEquals(l1, location1);
   }
 
   @Test public void testWeavingWithInstrumentation() throws Exception {
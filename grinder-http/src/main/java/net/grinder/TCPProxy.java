@@ -48,6 +48,8 @@ import net.grinder.tools.tcpproxy.CompositeFilter;
 import net.grinder.tools.tcpproxy.ConnectionDetails;
 import net.grinder.tools.tcpproxy.EchoFilter;
 import net.grinder.tools.tcpproxy.EndPoint;
+import net.grinder.tools.tcpproxy.EventLoopHTTPProxyTCPProxyEngine;
+import net.grinder.tools.tcpproxy.EventLoopPortForwarderTCPProxyEngine;
 import net.grinder.tools.tcpproxy.HTTPProxyTCPProxyEngine;
 import net.grinder.tools.tcpproxy.NullFilter;
 import net.grinder.tools.tcpproxy.PortForwarderTCPProxyEngine;
@@ -105,6 +107,8 @@ public final class TCPProxy extends AbstractMainClass {
     "\n                               HTTPS." +
     "\n  [-ssl]                       Use SSL when port forwarding." +
     "\n  [-colour]                    Be pretty on ANSI terminals." +
+    "\n  [-eventloop]                 Handle all connections with a" +
+    "\n                               single thread." +
     "\n  [-component <class>]         Register a component class with" +
     "\n                               the filter PicoContainer." +
     "\n  [-debug]                     Make PicoContainer chatty." +
@@ -139,6 +143,12 @@ public final class TCPProxy extends AbstractMainClass {
     "another HTTP/HTTPS proxy; this may help you reach the Internet. " +
     "These options are not supported in port forwarding mode." +
     "\n\n" +
+    "-eventloop uses non-blocking I/O to handle every connection with " +
+    "a single thread, rather than a pair of threads for each " +
+    "connection. Filters are called by that thread, so a slow filter " +
+    "delays all connections. -eventloop cannot be combined with " +
+    "-httpproxy or -httpsproxy." +
+    "\n\n" +
     "Typical usage: " +
     "\n  java " + TCPProxy.class + " -http -console > grinder.py" +
     "\n\n";
@@ -201,6 +211,7 @@ public final class TCPProxy extends AbstractMainClass {
     EndPoint chainedHTTPSProxy = null;
     int timeout = 0;
     boolean useColour = false;
+    boolean useEventLoop = false;
 
     final FilterChain requestFilterChain = new FilterChain("request");
     final FilterChain responseFilterChain = new FilterChain("response");
@@ -312,6 +323,9 @@ public final class TCPProxy extends AbstractMainClass {
                  "-color".equalsIgnoreCase(args[i])) {
           useColour = true;
         }
+        else if ("-eventloop".equalsIgnoreCase(args[i])) {
+          useEventLoop = true;
+        }
         else if ("-properties".equalsIgnoreCase(args[i])) {
           /* Already handled */
           ++i;
@@ -359,6 +373,11 @@ public final class TCPProxy extends AbstractMainClass {
                       "in port forwarding mode.");
     }
 
+    if (chainedHTTPSProxy != null && useEventLoop) {
+      throw barfError("Routing through a HTTP/HTTPS proxy is not supported " +
+                      "by the event loop engines.");
+    }
+
     final TCPProxyFilter requestFilter = requestFilterChain.resolveFilter();
     final TCPProxyFilter responseFilter = responseFilterChain.resolveFilter();
 
@@ -428,7 +447,18 @@ public final class TCPProxy extends AbstractMainClass {
 
     m_filterContainer.start();
 
-    if (isHTTPProxy) {
+    if (isHTTPProxy && useEventLoop) {
+      m_proxyEngine =
+        new EventLoopHTTPProxyTCPProxyEngine(
+          sslSocketFactory,
+          requestFilter, responseFilter,
+          output,
+          logger,
+          localEndPoint,
+          useColour,
+          timeout);
+    }
+    else if (isHTTPProxy) {
       m_proxyEngine =
         new HTTPProxyTCPProxyEngine(
           sslSocketFactory,
@@ -440,6 +470,19 @@ public final class TCPProxy extends AbstractMainClass {
           timeout,
           chainedHTTPProxy, chainedHTTPSProxy);
     }
+    else if (useEventLoop) {
+      m_proxyEngine =
+        new EventLoopPortForwarderTCPProxyEngine(
+          useSSLPortForwarding ? sslSocketFactory : null,
+          requestFilter, responseFilter,
+          output,
+          logger,
+          new ConnectionDetails(localEndPoint,
+                                remoteEndPoint,
+                                useSSLPortForwarding),
+          useColour,
+          timeout);
+    }
     else {
       if (useSSLPortForwarding) {
         m_proxyEngine =
@@ -0,0 +1,270 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+
+package net.grinder.plugin.http;
+
+import java.io.UnsupportedEncodingException;
+
+
+/**
+ * Matches text in a response body as it is streamed, without requiring the
+ * body to be held in memory.
+ *
+ * <p>Matchers are immutable and may be shared between worker threads. They
+ * are passed to {@link HTTPRequest#setResponseBodyMatchers}, and the results
+ * for the last response are available from
+ * {@link HTTPUtilities#getLastStreamedResponseBody()}.</p>
+ *
+ * <p>Matching is performed on the UTF-8 encoding of the text. Only the first
+ * match in each body is recorded.</p>
+ *
+ * @author Philip Aston
+ * @see HTTPRequest#setStreamResponseBody
+ */
+public final class BodyMatcher {
+
+  /**
+   * The maximum number of bytes that will be extracted by a matcher
+   * created with {@link #extract}. Longer values are not matched.
+   */
+  public static final int MAXIMUM_VALUE_LENGTH = 8192;
+
+  private final String m_description;
+  private final Pattern m_start;
+  private final Pattern m_end;
+  private final boolean m_required;
+
+  private BodyMatcher(final String description,
+                      final Pattern start,
+                      final Pattern end,
+                      final boolean required) {
+    m_description = description;
+    m_start = start;
+    m_end = end;
+    m_required = required;
+  }
+
+  /**
+   * Create a matcher that checks whether the body contains some text.
+   *
+   * @param text The text.
+   * @return The matcher.
+   */
+  public static BodyMatcher contains(final String text) {
+    return new BodyMatcher("contains \"" + text + "\"",
+                           new Pattern(text),
+                           null,
+                           false);
+  }
+
+  /**
+   * Create a matcher that extracts the text between two delimiters.
+   *
+   * <p>For example, {@code extract("\"token\":\"", "\"")} extracts the
+   * value of a JSON {@code token} string field.</p>
+   *
+   * @param before The text that precedes the value.
+   * @param after The text that follows the value.
+   * @return The matcher.
+   */
+  public static BodyMatcher extract(final String before, final String after) {
+    return new BodyMatcher("extract \"" + before + "\"...\"" + after + "\"",
+                           new Pattern(before),
+                           new Pattern(after),
+                           false);
+  }
+
+  /**
+   * Return a matcher that is equivalent to this one, but that treats a
+   * response that does not match as an error. Such responses are recorded
+   * in the {@code httpplugin.responseErrors} statistic.
+   *
+   * @return The matcher.
+   */
+  public BodyMatcher required() {
+    return new BodyMatcher(m_description, m_start, m_end, true);
+  }
+
+  /**
+   * Whether a body that does not match should be treated as an error.
+   *
+   * @return {@code true} => this matcher is required.
+   */
+  public boolean isRequired() {
+    return m_required;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override public String toString() {
+    return m_description;
+  }
+
+  Scanner createScanner() {
+    return new Scanner();
+  }
+
+  /**
+   * The state of a matcher for a single body.
+   */
+  final class Scanner {
+    private int m_startState;
+    private int m_endState;
+    private boolean m_inValue;
+    private boolean m_matched;
+    private byte[] m_value;
+    private int m_valueLength;
+
+    Scanner() {
+      if (m_start.length() == 0) {
+        startMatched();
+      }
+    }
+
+    /**
+     * Scan the next part of the body.
+     */
+    void update(final byte[] bytes, final int offset, final int length) {
+      final int end = offset + length;
+
+      for (int i = offset; i < end && !m_matched; ++i) {
+        final byte b = bytes[i];
+
+        if (m_inValue) {
+          if (m_valueLength == m_value.length) {
+            // Too long, try the next occurrence of the start text.
+            m_inValue = false;
+            m_startState = 0;
+            m_endState = 0;
+            m_valueLength = 0;
+          }
+          else {
+            m_value[m_valueLength++] = b;
+            m_endState = m_end.next(m_endState, b);
+
+            if (m_endState == m_end.length()) {
+              m_valueLength -= m_end.length();
+              m_matched = true;
+            }
+
+            continue;
+          }
+        }
+
+        m_startState = m_start.next(m_startState, b);
+
+        if (m_startState == m_start.length()) {
+          startMatched();
+        }
+      }
+    }
+
+    private void startMatched() {
+      if (m_end == null) {
+        m_matched = true;
+      }
+      else {
+        if (m_value == null) {
+          m_value = new byte[MAXIMUM_VALUE_LENGTH + m_end.length()];
+        }
+
+        m_inValue = true;
+        m_matched = m_end.length() == 0;
+      }
+    }
+
+    BodyMatcher getMatcher() {
+      return BodyMatcher.this;
+    }
+
+    boolean isMatched() {
+      return m_matched;
+    }
+
+    String getValue() {
+      if (!m_matched || m_value == null) {
+        return null;
+      }
+
+      try {
+        return new String(m_value, 0, m_valueLength, "UTF-8");
+      }
+      catch (UnsupportedEncodingException e) {
+        throw new AssertionError(e);
+      }
+    }
+  }
+
+  /**
+   * A byte sequence, with a precomputed Knuth-Morris-Pratt failure table.
+   */
+  private static final class Pattern {
+    private final byte[] m_bytes;
+    private final int[] m_failure;
+
+    public Pattern(final String text) {
+      try {
+        m_bytes = text.getBytes("UTF-8");
+      }
+      catch (UnsupportedEncodingException e) {
+        throw new AssertionError(e);
+      }
+
+      m_failure = new int[m_bytes.length];
+
+      for (int i = 1, k = 0; i < m_bytes.length; ++i) {
+        while (k > 0 && m_bytes[i] != m_bytes[k]) {
+          k = m_failure[k - 1];
+        }
+
+        if (m_bytes[i] == m_bytes[k]) {
+          ++k;
+        }
+
+        m_failure[i] = k;
+      }
+    }
+
+    public int length() {
+      return m_bytes.length;
+    }
+
+    /**
+     * Advance the match state, which is the length of the longest prefix of
+     * the pattern that has been matched.
+     */
+    public int next(final int state, final byte b) {
+      if (m_bytes.length == 0) {
+        return 0;
+      }
+
+      int k = state == m_bytes.length ? m_failure[state - 1] : state;
+
+      while (k > 0 && m_bytes[k] != b) {
+        k = m_failure[k - 1];
+      }
+
+      return m_bytes[k] == b ? k + 1 : k;
+    }
+  }
+}
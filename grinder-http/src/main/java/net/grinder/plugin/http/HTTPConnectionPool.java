@@ -0,0 +1,337 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.plugin.http;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import net.grinder.common.SSLContextFactory.SSLContextFactoryException;
+import net.grinder.common.UncheckedInterruptedException;
+import HTTPClient.HTTPConnection.TimeAuthority;
+import HTTPClient.ParseException;
+import HTTPClient.ProtocolNotSuppException;
+import HTTPClient.URI;
+
+
+/**
+ * A process wide pool of HTTP connections, used when the connection lifetime
+ * is {@link HTTPPluginControl.ConnectionLifetime#PROCESS}.
+ *
+ * <p>
+ * Connections are keyed by scheme, host, and port. A worker thread leases a
+ * connection for a single request, and returns it to the pool once the
+ * response has been read. The most recently used connection is leased first,
+ * so a small number of connections are kept warm. Connections that have been
+ * idle for longer than the idle timeout are closed, and no longer count
+ * towards the maximum number of connections for their host.
+ * </p>
+ *
+ * @author Philip Aston
+ */
+final class HTTPConnectionPool {
+
+  /**
+   * Creates the connections held by the pool.
+   */
+  interface ConnectionFactory {
+
+    /**
+     * Create a new connection.
+     *
+     * @param uri
+     *          The connection key.
+     * @param context
+     *          The HTTPClient context object for the connection.
+     * @return The connection.
+     */
+    HTTPConnectionWrapper createConnectionWrapper(URI uri, Object context)
+      throws ParseException,
+             ProtocolNotSuppException,
+             SSLContextFactoryException;
+  }
+
+  private final Map<URI, HostConnections> m_hostConnections =
+    new HashMap<URI, HostConnections>();
+
+  /**
+   * Lease a connection from the pool, waiting for one to become free if the
+   * maximum number of connections for the host have already been created.
+   *
+   * @param key
+   *          The connection key.
+   * @param maximumPerHost
+   *          The maximum number of connections to the host. {@code 0} means
+   *          no limit.
+   * @param idleTimeout
+   *          Idle connections to any host that were released more than this
+   *          many milliseconds ago are closed. {@code 0} means never.
+   * @param factory
+   *          Used to create a new connection if there is no idle connection.
+   * @param timeAuthority
+   *          Used to measure how long we waited for a connection.
+   * @return The lease.
+   */
+  public Lease lease(final URI key,
+                     final int maximumPerHost,
+                     final long idleTimeout,
+                     final ConnectionFactory factory,
+                     final TimeAuthority timeAuthority)
+    throws ParseException,
+           ProtocolNotSuppException,
+           SSLContextFactoryException {
+
+    final long startTime = timeAuthority.getTimeInNanoseconds();
+
+    final HostConnections hostConnections;
+
+    final List<HTTPConnectionWrapper> expired =
+      new ArrayList<HTTPConnectionWrapper>();
+
+    try {
+      synchronized (this) {
+        final HostConnections existing = m_hostConnections.get(key);
+
+        if (existing != null) {
+          hostConnections = existing;
+        }
+        else {
+          hostConnections = new HostConnections();
+          m_hostConnections.put(key, hostConnections);
+        }
+
+        while (true) {
+          removeExpired(idleTimeout, timeAuthority, expired);
+
+          final IdleConnection idle = hostConnections.m_idle.poll();
+
+          if (idle != null) {
+            return new Lease(this,
+                             key,
+                             idle.m_connectionWrapper,
+                             true,
+                             timeAuthority.getTimeInNanoseconds() - startTime,
+                             timeAuthority);
+          }
+
+          if (maximumPerHost <= 0 ||
+              hostConnections.m_size < maximumPerHost) {
+            ++hostConnections.m_size;
+            break;
+          }
+
+          try {
+            wait();
+          }
+          catch (final InterruptedException e) {
+            throw new UncheckedInterruptedException(e);
+          }
+        }
+      }
+    }
+    finally {
+      for (HTTPConnectionWrapper connectionWrapper : expired) {
+        connectionWrapper.close();
+      }
+    }
+
+    final long waitTime = timeAuthority.getTimeInNanoseconds() - startTime;
+
+    boolean created = false;
+
+    try {
+      final HTTPConnectionWrapper connectionWrapper =
+        factory.createConnectionWrapper(key, this);
+      created = true;
+
+      return new Lease(this,
+                       key,
+                       connectionWrapper,
+                       false,
+                       waitTime,
+                       timeAuthority);
+    }
+    finally {
+      if (!created) {
+        synchronized (this) {
+          --hostConnections.m_size;
+          notifyAll();
+        }
+      }
+    }
+  }
+
+  private synchronized void release(final URI key,
+                                    final HTTPConnectionWrapper wrapper,
+                                    final long time) {
+    m_hostConnections.get(key).m_idle.push(new IdleConnection(wrapper, time));
+    notifyAll();
+  }
+
+  /**
+   * Remove the connections that have been idle for too long. The least
+   * recently used connections are at the end of each idle queue.
+   *
+   * <p>Guarded by this.</p>
+   */
+  private void removeExpired(final long idleTimeout,
+                             final TimeAuthority timeAuthority,
+                             final List<HTTPConnectionWrapper> expired) {
+    if (idleTimeout <= 0) {
+      return;
+    }
+
+    final long cutoff = timeAuthority.getTimeInNanoseconds() -
+                        TimeUnit.MILLISECONDS.toNanos(idleTimeout);
+
+    boolean removed = false;
+
+    for (HostConnections hostConnections : m_hostConnections.values()) {
+      while (!hostConnections.m_idle.isEmpty() &&
+             hostConnections.m_idle.peekLast().m_releaseTime - cutoff < 0) {
+        expired.add(hostConnections.m_idle.removeLast().m_connectionWrapper);
+        --hostConnections.m_size;
+        removed = true;
+      }
+    }
+
+    if (removed) {
+      notifyAll();
+    }
+  }
+
+  /**
+   * The number of connections that the pool has created for a host.
+   *
+   * @param key The connection key.
+   * @return The number of connections.
+   */
+  synchronized int getSize(final URI key) {
+    final HostConnections hostConnections = m_hostConnections.get(key);
+
+    return hostConnections != null ? hostConnections.m_size : 0;
+  }
+
+  private static final class IdleConnection {
+    private final HTTPConnectionWrapper m_connectionWrapper;
+    private final long m_releaseTime;
+
+    IdleConnection(final HTTPConnectionWrapper connectionWrapper,
+                   final long releaseTime) {
+      m_connectionWrapper = connectionWrapper;
+      m_releaseTime = releaseTime;
+    }
+  }
+
+  private static final class HostConnections {
+    /** Most recently released first. */
+    private final Deque<IdleConnection> m_idle =
+      new ArrayDeque<IdleConnection>();
+
+    /** The number of connections, including those that are leased. */
+    private int m_size;
+  }
+
+  /**
+   * A connection that is being used by a worker thread for a request.
+   */
+  static final class Lease {
+    private final HTTPConnectionPool m_pool;
+    private final URI m_key;
+    private final HTTPConnectionWrapper m_connectionWrapper;
+    private final boolean m_hit;
+    private final long m_waitTime;
+    private final TimeAuthority m_timeAuthority;
+
+    /**
+     * Constructor for a lease of a connection that belongs to a worker
+     * thread, rather than to a pool.
+     *
+     * @param connectionWrapper The connection.
+     */
+    Lease(final HTTPConnectionWrapper connectionWrapper) {
+      this(null, null, connectionWrapper, false, 0, null);
+    }
+
+    private Lease(final HTTPConnectionPool pool,
+                  final URI key,
+                  final HTTPConnectionWrapper connectionWrapper,
+                  final boolean hit,
+                  final long waitTime,
+                  final TimeAuthority timeAuthority) {
+      m_pool = pool;
+      m_key = key;
+      m_connectionWrapper = connectionWrapper;
+      m_hit = hit;
+      m_waitTime = waitTime;
+      m_timeAuthority = timeAuthority;
+    }
+
+    public HTTPConnectionWrapper getConnectionWrapper() {
+      return m_connectionWrapper;
+    }
+
+    /**
+     * Whether the connection was leased from a pool.
+     *
+     * @return {@code true} if and only if the connection belongs to a pool.
+     */
+    public boolean isPooled() {
+      return m_pool != null;
+    }
+
+    /**
+     * Whether an idle pooled connection was reused.
+     *
+     * @return {@code true} if the connection was idle in the pool,
+     *         {@code false} if the pool created a new connection.
+     */
+    public boolean isHit() {
+      return m_hit;
+    }
+
+    /**
+     * How long the worker thread waited for a pooled connection.
+     *
+     * @return The wait time, in nanoseconds.
+     */
+    public long getWaitTime() {
+      return m_waitTime;
+    }
+
+    /**
+     * Return a pooled connection to its pool. Does nothing if the connection
+     * belongs to a worker thread.
+     */
+    public void release() {
+      if (m_pool != null) {
+        m_pool.release(m_key,
+                       m_connectionWrapper,
+                       m_timeAuthority.getTimeInNanoseconds());
+      }
+    }
+  }
+}
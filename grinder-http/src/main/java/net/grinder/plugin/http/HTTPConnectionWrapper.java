@@ -87,6 +87,7 @@ final class HTTPConnectionWrapper implements HTTPPluginConnection {
     setProxyServer(defaults.getProxyHost(), defaults.getProxyPort());
     setLocalAddress(defaults.getLocalAddress());
     setBandwidthLimit(defaults.getBandwidthLimit());
+    setUseSSLSessionResumption(defaults.getUseSSLSessionResumption());
   }
 
   HTTPConnection getConnection() {
@@ -180,6 +181,11 @@ final class HTTPConnectionWrapper implements HTTPPluginConnection {
     m_httpConnection.setLocalAddress(localAddress, 0);
   }
 
+  @Override
+  public void setUseSSLSessionResumption(final boolean b) {
+    m_httpConnection.setSSLSessionResumption(b);
+  }
+
   @Override
   public void setBandwidthLimit(final int targetBPS) {
     if (targetBPS < 1) {
@@ -77,11 +77,17 @@ public class HTTPPlugin implements GrinderPlugin {
   private PluginProcessContext m_pluginProcessContext;
   private SSLContextFactory m_sslContextFactory;
   private Sleeper m_slowClientSleeper;
+  private HTTPConnectionPool m_connectionPool;
+  private NonBlockingHTTPEngine m_nonBlockingHTTPEngine;
 
   final PluginProcessContext getPluginProcessContext() {
     return m_pluginProcessContext;
   }
 
+  final NonBlockingHTTPEngine getNonBlockingHTTPEngine() {
+    return m_nonBlockingHTTPEngine;
+  }
+
   /**
    * Called by the PluginRegistry when the plug-in is first registered.
    *
@@ -119,6 +125,12 @@ public class HTTPPlugin implements GrinderPlugin {
     // Turn off authorisation UI.
     DefaultAuthHandler.setAuthorizationPrompter(null);
 
+    m_connectionPool = new HTTPConnectionPool();
+
+    // The engine's selector thread is not started until it is used.
+    m_nonBlockingHTTPEngine =
+      new NonBlockingHTTPEngine(m_pluginProcessContext.getTimeAuthority());
+
     // Register custom statistics.
     try {
 
@@ -144,6 +156,10 @@ public class HTTPPlugin implements GrinderPlugin {
         "Time to establish connection",
         StatisticsIndexMap.HTTP_PLUGIN_CONNECT_TIME_KEY);
 
+      statistics.registerDataLogExpression(
+        "Time to complete SSL handshake",
+        StatisticsIndexMap.HTTP_PLUGIN_SSL_HANDSHAKE_TIME_KEY);
+
       statistics.registerDataLogExpression(
         "Time to first byte",
         StatisticsIndexMap.HTTP_PLUGIN_FIRST_BYTE_TIME_KEY);
@@ -152,6 +168,10 @@ public class HTTPPlugin implements GrinderPlugin {
         "New connections",
         StatisticsIndexMap.HTTP_PLUGIN_CONNECTIONS_ESTABLISHED);
 
+      statistics.registerDataLogExpression(
+        "Connection pool wait time",
+        StatisticsIndexMap.HTTP_PLUGIN_CONNECTION_POOL_WAIT_TIME_KEY);
+
       statistics.registerSummaryExpression(
         "Mean response length",
         "(/ " + StatisticsIndexMap.HTTP_PLUGIN_RESPONSE_LENGTH_KEY +
@@ -176,6 +196,34 @@ public class HTTPPlugin implements GrinderPlugin {
         "(/ " + StatisticsIndexMap.HTTP_PLUGIN_CONNECT_TIME_KEY +
         " (+ " + StatisticsIndexMap.HTTP_PLUGIN_CONNECTIONS_ESTABLISHED + "))");
 
+      statistics.registerSummaryExpression(
+        "Mean time to complete SSL handshake",
+        "(/ " + StatisticsIndexMap.HTTP_PLUGIN_SSL_HANDSHAKE_TIME_KEY +
+        " (+ " + StatisticsIndexMap.HTTP_PLUGIN_SSL_FULL_HANDSHAKES +
+        " " + StatisticsIndexMap.HTTP_PLUGIN_SSL_SESSIONS_RESUMED + "))");
+
+      statistics.registerSummaryExpression(
+        "Full SSL handshakes",
+        StatisticsIndexMap.HTTP_PLUGIN_SSL_FULL_HANDSHAKES);
+
+      statistics.registerSummaryExpression(
+        "Resumed SSL sessions",
+        StatisticsIndexMap.HTTP_PLUGIN_SSL_SESSIONS_RESUMED);
+
+      statistics.registerSummaryExpression(
+        "Connection pool hits",
+        StatisticsIndexMap.HTTP_PLUGIN_CONNECTION_POOL_HITS);
+
+      statistics.registerSummaryExpression(
+        "Connection pool misses",
+        StatisticsIndexMap.HTTP_PLUGIN_CONNECTION_POOL_MISSES);
+
+      statistics.registerSummaryExpression(
+        "Mean connection pool wait time",
+        "(/ " + StatisticsIndexMap.HTTP_PLUGIN_CONNECTION_POOL_WAIT_TIME_KEY +
+        " (+ " + StatisticsIndexMap.HTTP_PLUGIN_CONNECTION_POOL_HITS +
+        " " + StatisticsIndexMap.HTTP_PLUGIN_CONNECTION_POOL_MISSES + "))");
+
       statistics.registerSummaryExpression(
         "Mean time to first byte",
         "(/ " + StatisticsIndexMap.HTTP_PLUGIN_FIRST_BYTE_TIME_KEY +
@@ -199,6 +247,7 @@ public class HTTPPlugin implements GrinderPlugin {
     return new HTTPPluginThreadState(threadContext,
                                      m_sslContextFactory,
                                      m_slowClientSleeper,
-                                     m_pluginProcessContext.getTimeAuthority());
+                                     m_pluginProcessContext.getTimeAuthority(),
+                                     m_connectionPool);
   }
 }
@@ -208,6 +208,26 @@ public interface HTTPPluginConnection {
    */
   void setLocalAddress(String localAddress) throws URLException;
 
+  /**
+   * Set whether SSL sessions may be resumed.
+   *
+   * <p>Each worker thread has an SSL context, which caches the sessions
+   * established by full SSL handshakes. New connections to the same server
+   * can resume a cached session using an abbreviated handshake, which is
+   * much cheaper for both the client and the server. The SSL context is
+   * discarded at the end of each run unless
+   * {@link net.grinder.script.SSLControl#setShareContextBetweenRuns} is
+   * used.</p>
+   *
+   * <p>If resumption is disabled, every new connection performs a full SSL
+   * handshake.</p>
+   *
+   * <p>Default: {@code true}</p>
+   *
+   * @param b {@code true} => allow SSL sessions to be resumed.
+   */
+  void setUseSSLSessionResumption(boolean b);
+
   /**
    * Artificially limit the bandwidth used by this connection.
    *
@@ -26,6 +26,8 @@ package net.grinder.plugin.http;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 
+import net.grinder.plugin.http.HTTPPluginControl.ConnectionLifetime;
+import net.grinder.plugin.http.HTTPPluginControl.Engine;
 import HTTPClient.NVPair;
 
 
@@ -51,6 +53,11 @@ final class HTTPPluginConnectionDefaults implements HTTPPluginConnection {
   private boolean m_verifyServerDistinguishedName = false;
   private InetAddress m_localAddress;
   private int m_slowClientTargetBPS;
+  private boolean m_useSSLSessionResumption = true;
+  private ConnectionLifetime m_connectionLifetime = ConnectionLifetime.RUN;
+  private int m_maximumConnectionsPerHost = 0;
+  private int m_pooledConnectionIdleTimeout = 60000;
+  private Engine m_engine = Engine.HTTPCLIENT;
 
   @Override
   public synchronized void setFollowRedirects(final boolean followRedirects) {
@@ -156,6 +163,15 @@ final class HTTPPluginConnectionDefaults implements HTTPPluginConnection {
     return m_localAddress;
   }
 
+  @Override
+  public synchronized void setUseSSLSessionResumption(final boolean b) {
+    m_useSSLSessionResumption = b;
+  }
+
+  synchronized boolean getUseSSLSessionResumption() {
+    return m_useSSLSessionResumption;
+  }
+
   @Override
   public synchronized void setBandwidthLimit(final int targetBPS) {
     m_slowClientTargetBPS = targetBPS;
@@ -165,6 +181,48 @@ final class HTTPPluginConnectionDefaults implements HTTPPluginConnection {
     return m_slowClientTargetBPS;
   }
 
+  synchronized void setConnectionLifetime(
+    final ConnectionLifetime connectionLifetime) {
+
+    if (connectionLifetime == null) {
+      throw new IllegalArgumentException("Connection lifetime must be set");
+    }
+
+    m_connectionLifetime = connectionLifetime;
+  }
+
+  synchronized ConnectionLifetime getConnectionLifetime() {
+    return m_connectionLifetime;
+  }
+
+  synchronized void setMaximumConnectionsPerHost(final int maximum) {
+    m_maximumConnectionsPerHost = maximum;
+  }
+
+  synchronized int getMaximumConnectionsPerHost() {
+    return m_maximumConnectionsPerHost;
+  }
+
+  synchronized void setPooledConnectionIdleTimeout(final int timeout) {
+    m_pooledConnectionIdleTimeout = timeout;
+  }
+
+  synchronized int getPooledConnectionIdleTimeout() {
+    return m_pooledConnectionIdleTimeout;
+  }
+
+  synchronized void setEngine(final Engine engine) {
+    if (engine == null) {
+      throw new IllegalArgumentException("Engine must be set");
+    }
+
+    m_engine = engine;
+  }
+
+  synchronized Engine getEngine() {
+    return m_engine;
+  }
+
   private static final HTTPPluginConnectionDefaults
     s_defaultConnectionDefaults = new HTTPPluginConnectionDefaults();
 
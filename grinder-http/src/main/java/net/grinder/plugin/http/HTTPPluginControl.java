@@ -37,6 +37,56 @@ import net.grinder.plugininterface.PluginProcessContext;
  **/
 public final class HTTPPluginControl {
 
+  /**
+   * How long the HTTP plug-in keeps connections open.
+   *
+   * @see HTTPPluginControl#setConnectionLifetime(ConnectionLifetime)
+   */
+  public enum ConnectionLifetime {
+
+    /**
+     * Each worker thread has its own connections, which are closed at the
+     * start of each run. This is the default.
+     */
+    RUN,
+
+    /**
+     * Each worker thread has its own connections, which are kept open
+     * across runs.
+     */
+    THREAD,
+
+    /**
+     * Connections are shared by all of the worker threads in the process,
+     * and are kept open across runs. A worker thread takes a connection from
+     * a pool for each request, and returns it once the response has been
+     * read.
+     */
+    PROCESS,
+  }
+
+  /**
+   * How the HTTP plug-in sends requests and reads responses.
+   *
+   * @see HTTPPluginControl#setEngine(Engine)
+   */
+  public enum Engine {
+
+    /**
+     * The HTTPClient library. Each request is made by the worker thread,
+     * which blocks whilst it reads from or writes to the socket. This is the
+     * default.
+     */
+    HTTPCLIENT,
+
+    /**
+     * A non-blocking engine. Requests are sent and responses read by a
+     * single selector thread shared by all of the worker threads, which
+     * wait for their responses without holding a socket.
+     */
+    NON_BLOCKING,
+  }
+
   ///CLOVER:OFF
   private HTTPPluginControl() {
   }
@@ -51,14 +101,127 @@ public final class HTTPPluginControl {
     return HTTPPluginConnectionDefaults.getConnectionDefaults();
   }
 
+  /**
+   * Set how long the HTTP plug-in keeps connections open.
+   *
+   * <p>The lifetime applies to connections subsequently created by the
+   * worker threads. {@link ConnectionLifetime#RUN} is the default; a new
+   * connection, and so a new TCP and SSL handshake, is required for each
+   * server at the start of every run. Choose {@link ConnectionLifetime#THREAD}
+   * or {@link ConnectionLifetime#PROCESS} to model long-lived clients.</p>
+   *
+   * <p>Connections pooled with {@link ConnectionLifetime#PROCESS} share an
+   * HTTPClient context, and so cookies and authorisation details, between
+   * all of the worker threads. They are configured with the connection
+   * defaults, and the SSL context of the worker thread that caused them to be
+   * created. If a script calls {@link #getThreadConnection(String)} to
+   * configure a connection, the calling worker thread will use its own
+   * connection for that server until the end of the run.</p>
+   *
+   * <p>Pooled connections are recorded using the
+   * <code>httpplugin.connectionPoolHits</code>,
+   * <code>httpplugin.connectionPoolMisses</code>, and
+   * <code>httpplugin.connectionPoolWaitTime</code> statistics.</p>
+   *
+   * @param lifetime The connection lifetime.
+   * @see #setMaximumConnectionsPerHost(int)
+   * @see #setPooledConnectionIdleTimeout(int)
+   */
+  public static void setConnectionLifetime(ConnectionLifetime lifetime) {
+    HTTPPluginConnectionDefaults.getConnectionDefaults()
+      .setConnectionLifetime(lifetime);
+  }
+
+  /**
+   * Returns the current connection lifetime.
+   *
+   * @return The connection lifetime.
+   * @see #setConnectionLifetime(ConnectionLifetime)
+   */
+  public static ConnectionLifetime getConnectionLifetime() {
+    return HTTPPluginConnectionDefaults.getConnectionDefaults()
+      .getConnectionLifetime();
+  }
+
+  /**
+   * Limit the number of pooled connections that the worker process will
+   * open to each server. If the limit has been reached, worker threads wait
+   * for a connection to be returned to the pool. The wait time is included
+   * in the test time.
+   *
+   * <p>Only applies when the connection lifetime is
+   * {@link ConnectionLifetime#PROCESS}. The default is <code>0</code>, which
+   * means no limit.</p>
+   *
+   * @param maximum The maximum number of connections per server.
+   */
+  public static void setMaximumConnectionsPerHost(int maximum) {
+    HTTPPluginConnectionDefaults.getConnectionDefaults()
+      .setMaximumConnectionsPerHost(maximum);
+  }
+
+  /**
+   * Set how long a pooled connection can be idle before it is closed. Closing
+   * idle connections stops the pool holding on to connections that the
+   * script no longer uses, or that the server has timed out.
+   *
+   * <p>Only applies when the connection lifetime is
+   * {@link ConnectionLifetime#PROCESS}. The default is <code>60000</code>
+   * milliseconds. <code>0</code> means that idle connections are never
+   * closed.</p>
+   *
+   * @param timeout The idle timeout, in milliseconds.
+   */
+  public static void setPooledConnectionIdleTimeout(int timeout) {
+    HTTPPluginConnectionDefaults.getConnectionDefaults()
+      .setPooledConnectionIdleTimeout(timeout);
+  }
+
+  /**
+   * Set how the HTTP plug-in makes requests.
+   *
+   * <p>{@link Engine#HTTPCLIENT} is the default. With
+   * {@link Engine#NON_BLOCKING}, a worker thread that is waiting for a
+   * response does not hold a socket, and connections are established, read,
+   * and written without blocking. Using the non-blocking engine with virtual
+   * worker threads allows each worker process to have tens of thousands of
+   * requests in flight. The DNS, connection, time to first byte, response
+   * length, and response status statistics are recorded as before.</p>
+   *
+   * <p>The non-blocking engine makes plain HTTP requests using the timeout,
+   * local address, and default headers of the connection defaults.
+   * Connections are kept alive and shared by all of the worker threads,
+   * whatever the {@link #setConnectionLifetime connection lifetime}. It does
+   * not support cookies, authorisation, redirects, or content and transfer
+   * encodings. Requests that use HTTPS, a proxy server, a bandwidth limit,
+   * or a streamed request body are made with HTTPClient, as are those that
+   * belong to a {@link HTTPRequest#GETAll(HTTPRequest[]) GETAll} batch.</p>
+   *
+   * @param engine The engine.
+   */
+  public static void setEngine(Engine engine) {
+    HTTPPluginConnectionDefaults.getConnectionDefaults().setEngine(engine);
+  }
+
+  /**
+   * Returns the current engine.
+   *
+   * @return The engine.
+   * @see #setEngine(Engine)
+   */
+  public static Engine getEngine() {
+    return HTTPPluginConnectionDefaults.getConnectionDefaults().getEngine();
+  }
+
   /**
    * Returns a {@link HTTPPluginConnection} for a particular URL.
    *
    * <p>The resulting <code>HTTPPluginConnection</code> is valid for
-   * the current thread and the current run. It can be used to set
-   * specific authentication details, default headers, cookies, proxy
-   * servers, and so on for the current thread/run on a per-URL
-   * basis.</p>
+   * the current thread and the current run, or for the lifetime of the
+   * thread if the connection lifetime is {@link ConnectionLifetime#THREAD}.
+   * It can be used to set specific authentication details, default
+   * headers, cookies, proxy servers, and so on for the current thread/run
+   * on a per-URL basis.</p>
    *
    * <p>This method will throw a {@link GrinderException} if not
    * called from a worker thread.</p>
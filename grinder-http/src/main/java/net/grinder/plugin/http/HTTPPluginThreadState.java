@@ -21,12 +21,15 @@
 
 package net.grinder.plugin.http;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import net.grinder.common.SSLContextFactory;
 import net.grinder.common.SSLContextFactory.SSLContextFactoryException;
 import net.grinder.common.SkeletonThreadLifeCycleListener;
+import net.grinder.plugin.http.HTTPPluginControl.ConnectionLifetime;
 import net.grinder.plugininterface.PluginException;
 import net.grinder.plugininterface.PluginThreadContext;
 import net.grinder.plugininterface.PluginThreadListener;
@@ -48,37 +51,63 @@ import HTTPClient.URI;
 class HTTPPluginThreadState
   extends SkeletonThreadLifeCycleListener implements PluginThreadListener {
 
+  private static final int RESPONSE_BODY_BUFFER_SIZE = 8192;
+
   private final PluginThreadContext m_threadContext;
   private final SSLContextFactory m_sslContextFactory;
+  private final HTTPConnectionPool m_connectionPool;
 
   private final Map<URI, HTTPConnectionWrapper> m_httpConnectionWrappers =
     new HashMap<URI, HTTPConnectionWrapper>();
+  private final Map<URI, List<HTTPConnectionWrapper>>
+    m_additionalConnectionWrappers =
+      new HashMap<URI, List<HTTPConnectionWrapper>>();
+  private HTTPRequest.SentRequest m_pendingRequest;
   private HTTPResponse m_lastResponse;
+  private StreamedResponseBody m_lastStreamedResponseBody;
+  private byte[] m_responseBodyBuffer;
   private final Sleeper m_slowClientSleeper;
   private final TimeAuthorityAdapter m_timeAuthority;
 
+  private final HTTPConnectionPool.ConnectionFactory m_connectionFactory =
+    new HTTPConnectionPool.ConnectionFactory() {
+      @Override
+      public HTTPConnectionWrapper createConnectionWrapper(final URI uri,
+                                                           final Object context)
+        throws ParseException,
+               ProtocolNotSuppException,
+               SSLContextFactoryException {
+        return HTTPPluginThreadState.this.createConnectionWrapper(uri, context);
+      }
+    };
+
   HTTPPluginThreadState(final PluginThreadContext threadContext,
                         final SSLContextFactory sslContextFactory,
                         final Sleeper slowClientSleeper,
-                        final TimeAuthority timeAuthority)
+                        final TimeAuthority timeAuthority,
+                        final HTTPConnectionPool connectionPool)
     throws PluginException {
     m_threadContext = threadContext;
     m_sslContextFactory = sslContextFactory;
     m_slowClientSleeper = slowClientSleeper;
     m_timeAuthority = new TimeAuthorityAdapter(timeAuthority);
+    m_connectionPool = connectionPool;
   }
 
   public PluginThreadContext getThreadContext() {
     return m_threadContext;
   }
 
+  /**
+   * Return the connection owned by this thread for a URI, creating it if
+   * necessary.
+   */
   public HTTPConnectionWrapper getConnectionWrapper(final URI uri)
     throws ParseException,
            ProtocolNotSuppException,
            SSLContextFactoryException {
 
-    final URI keyURI =
-      new URI(uri.getScheme(), uri.getHost(), uri.getPort(), "");
+    final URI keyURI = keyURI(uri);
 
     final HTTPConnectionWrapper existingConnectionWrapper =
       m_httpConnectionWrappers.get(keyURI);
@@ -87,25 +116,118 @@ class HTTPPluginThreadState
       return existingConnectionWrapper;
     }
 
+    final HTTPConnectionWrapper newConnectionWrapper =
+      createConnectionWrapper(uri, this);
+
+    m_httpConnectionWrappers.put(keyURI, newConnectionWrapper);
+
+    return newConnectionWrapper;
+  }
+
+  /**
+   * Obtain a connection for a request. The caller should release the lease
+   * once the response has been read.
+   *
+   * <p>If the connection lifetime is
+   * {@link HTTPPluginControl.ConnectionLifetime#PROCESS}, the connection is
+   * leased from the process wide pool unless this thread has its own
+   * connection for the URI.</p>
+   */
+  public HTTPConnectionPool.Lease leaseConnection(final URI uri)
+    throws ParseException,
+           ProtocolNotSuppException,
+           SSLContextFactoryException {
+
+    final HTTPPluginConnectionDefaults connectionDefaults =
+      HTTPPluginConnectionDefaults.getConnectionDefaults();
+
+    final URI keyURI = keyURI(uri);
+
+    if (connectionDefaults.getConnectionLifetime() ==
+          ConnectionLifetime.PROCESS &&
+        !m_httpConnectionWrappers.containsKey(keyURI)) {
+      return m_connectionPool.lease(
+        keyURI,
+        connectionDefaults.getMaximumConnectionsPerHost(),
+        connectionDefaults.getPooledConnectionIdleTimeout(),
+        m_connectionFactory,
+        m_timeAuthority);
+    }
+
+    return new HTTPConnectionPool.Lease(getConnectionWrapper(uri));
+  }
+
+  /**
+   * Obtain one of several connections to a server that will be used
+   * concurrently. Connection {@code 0} is equivalent to
+   * {@link #leaseConnection(URI)}.
+   *
+   * <p>Unless the connections are taken from the process wide pool, further
+   * connections are owned by this thread, and have the default connection
+   * settings.</p>
+   */
+  public HTTPConnectionPool.Lease leaseConnection(final URI uri,
+                                                  final int index)
+    throws ParseException,
+           ProtocolNotSuppException,
+           SSLContextFactoryException {
+
+    if (index == 0) {
+      return leaseConnection(uri);
+    }
+
+    final HTTPPluginConnectionDefaults connectionDefaults =
+      HTTPPluginConnectionDefaults.getConnectionDefaults();
+
+    final URI keyURI = keyURI(uri);
+
+    if (connectionDefaults.getConnectionLifetime() ==
+          ConnectionLifetime.PROCESS) {
+      return m_connectionPool.lease(
+        keyURI,
+        connectionDefaults.getMaximumConnectionsPerHost(),
+        connectionDefaults.getPooledConnectionIdleTimeout(),
+        m_connectionFactory,
+        m_timeAuthority);
+    }
+
+    List<HTTPConnectionWrapper> additional =
+      m_additionalConnectionWrappers.get(keyURI);
+
+    if (additional == null) {
+      additional = new ArrayList<HTTPConnectionWrapper>();
+      m_additionalConnectionWrappers.put(keyURI, additional);
+    }
+
+    while (additional.size() < index) {
+      additional.add(createConnectionWrapper(uri, this));
+    }
+
+    return new HTTPConnectionPool.Lease(additional.get(index - 1));
+  }
+
+  private HTTPConnectionWrapper createConnectionWrapper(final URI uri,
+                                                        final Object context)
+    throws ProtocolNotSuppException, SSLContextFactoryException {
+
     final HTTPPluginConnectionDefaults connectionDefaults =
       HTTPPluginConnectionDefaults.getConnectionDefaults();
 
     final HTTPConnection httpConnection = new HTTPConnection(uri);
-    httpConnection.setContext(this);
+    httpConnection.setContext(context);
 
     httpConnection.setSSLSocketFactory(
       m_sslContextFactory.getSSLContext().getSocketFactory());
 
     httpConnection.setTimeAuthority(m_timeAuthority);
 
-    final HTTPConnectionWrapper newConnectionWrapper =
-      new HTTPConnectionWrapper(httpConnection,
-                                connectionDefaults,
-                                m_slowClientSleeper);
-
-    m_httpConnectionWrappers.put(keyURI, newConnectionWrapper);
+    return new HTTPConnectionWrapper(httpConnection,
+                                     connectionDefaults,
+                                     m_slowClientSleeper);
+  }
 
-    return newConnectionWrapper;
+  static URI keyURI(final URI uri) throws ParseException {
+    return new URI(uri.getScheme(), uri.getHost(), uri.getPort(), "");
   }
 
   @Override
@@ -113,13 +235,34 @@ class HTTPPluginThreadState
     // Discard our cookies.
     CookieModule.discardAllCookies(this);
 
-    // Close connections from previous run.
+    if (HTTPPluginConnectionDefaults.getConnectionDefaults()
+        .getConnectionLifetime() != ConnectionLifetime.THREAD) {
+      // Close connections from previous run.
+      closeConnections();
+    }
+  }
+
+  @Override
+  public void endThread() {
+    closeConnections();
+  }
+
+  private void closeConnections() {
     for (final HTTPConnectionWrapper connection :
       m_httpConnectionWrappers.values()) {
       connection.close();
     }
 
     m_httpConnectionWrappers.clear();
+
+    for (final List<HTTPConnectionWrapper> connections :
+      m_additionalConnectionWrappers.values()) {
+      for (final HTTPConnectionWrapper connection : connections) {
+        connection.close();
+      }
+    }
+
+    m_additionalConnectionWrappers.clear();
   }
 
   public void setLastResponse(final HTTPResponse lastResponse) {
@@ -130,6 +273,49 @@ class HTTPPluginThreadState
     return m_lastResponse;
   }
 
+  /**
+   * Set a request that has been sent by {@link HTTPRequest#GETAll}, and whose
+   * response should be read by the next call to one of its HTTP methods.
+   */
+  public void setPendingRequest(final HTTPRequest.SentRequest request) {
+    m_pendingRequest = request;
+  }
+
+  public HTTPRequest.SentRequest takePendingRequest(
+    final HTTPRequest request) {
+
+    final HTTPRequest.SentRequest result = m_pendingRequest;
+
+    if (result == null || result.getRequest() != request) {
+      return null;
+    }
+
+    m_pendingRequest = null;
+
+    return result;
+  }
+
+  public void setLastStreamedResponseBody(
+    final StreamedResponseBody lastStreamedResponseBody) {
+    m_lastStreamedResponseBody = lastStreamedResponseBody;
+  }
+
+  public StreamedResponseBody getLastStreamedResponseBody() {
+    return m_lastStreamedResponseBody;
+  }
+
+  /**
+   * Return a buffer that can be used to read streamed response bodies. The
+   * buffer is reused for every response read by this thread.
+   */
+  public byte[] getResponseBodyBuffer() {
+    if (m_responseBodyBuffer == null) {
+      m_responseBodyBuffer = new byte[RESPONSE_BODY_BUFFER_SIZE];
+    }
+
+    return m_responseBodyBuffer;
+  }
+
   private static final class TimeAuthorityAdapter implements
       HTTPClient.HTTPConnection.TimeAuthority {
 
@@ -143,6 +329,11 @@ class HTTPPluginThreadState
     public long getTimeInMilliseconds() {
       return m_timeAuthority.getTimeInMilliseconds();
     }
+
+    @Override
+    public long getTimeInNanoseconds() {
+      return m_timeAuthority.getTimeInNanoseconds();
+    }
   }
 }
 
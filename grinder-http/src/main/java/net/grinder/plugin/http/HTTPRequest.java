@@ -40,14 +40,19 @@ import java.net.HttpURLConnection;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.slf4j.Logger;
 
 import net.grinder.common.GrinderException;
+import net.grinder.plugin.http.HTTPPluginControl.Engine;
 import net.grinder.plugininterface.PluginException;
 import net.grinder.plugininterface.PluginProcessContext;
 import net.grinder.plugininterface.PluginThreadContext;
@@ -114,6 +119,8 @@ public class HTTPRequest {
   private volatile byte[] m_defaultData;
   private volatile NVPair[] m_defaultFormData;
   private volatile boolean m_readResponseBody = true;
+  private volatile boolean m_streamResponseBody = false;
+  private volatile BodyMatcher[] m_responseBodyMatchers = new BodyMatcher[0];
 
   /**
    * Creates a new <code>HTTPRequest</code> instance.
@@ -368,6 +375,62 @@ public class HTTPRequest {
     m_readResponseBody = b;
   }
 
+  /**
+   * Return whether or not the response body will be streamed.
+   *
+   * @return <code>true</code> => The response body will be streamed.
+   * @see #setStreamResponseBody
+   */
+  public boolean getStreamResponseBody() {
+    return m_streamResponseBody;
+  }
+
+  /**
+   * Set whether or not the response body will be streamed.
+   *
+   * <p>If <code>true</code>, and the response body is to be
+   * {@link #setReadResponseBody read}, the body is read through a buffer
+   * that is reused by the worker thread rather than being stored in the
+   * {@link HTTPResponse}. This allows large responses to be read without
+   * the cost of allocating memory for them.</p>
+   *
+   * <p>The length of the body is recorded as normal. The length, a checksum,
+   * and the results of any {@link #setResponseBodyMatchers matchers} are
+   * available from {@link HTTPUtilities#getLastStreamedResponseBody()}.
+   * {@link HTTPResponse#getData()} and {@link HTTPResponse#getText()} will
+   * return an empty body, so the {@link HTTPUtilities} methods that parse
+   * the body cannot be used.</p>
+   *
+   * @param b <code>true</code> => The response body will be streamed.
+   */
+  public void setStreamResponseBody(boolean b) {
+    m_streamResponseBody = b;
+  }
+
+  /**
+   * Return the matchers that will be applied to streamed response bodies.
+   *
+   * @return The matchers.
+   * @see #setResponseBodyMatchers
+   */
+  public BodyMatcher[] getResponseBodyMatchers() {
+    return m_responseBodyMatchers.clone();
+  }
+
+  /**
+   * Set the matchers that will be applied to response bodies if
+   * {@link #setStreamResponseBody streaming} is enabled.
+   *
+   * <p>If a {@link BodyMatcher#required() required} matcher does not match,
+   * the response will be counted in the
+   * <code>httpplugin.responseErrors</code> statistic.</p>
+   *
+   * @param matchers The matchers.
+   */
+  public void setResponseBodyMatchers(BodyMatcher[] matchers) {
+    m_responseBodyMatchers = matchers.clone();
+  }
+
   /**
    * Makes an HTTP <code>DELETE</code> request.
    *
@@ -417,6 +480,12 @@ public class HTTPRequest {
           throws IOException, ModuleException {
           return connection.Delete(path, mergedHeaders);
         }
+
+        NonBlockingHTTPEngine.Exchange createExchange(String path,
+                                                      NVPair[] mergedHeaders)
+          throws ParseException {
+          return createExchange("DELETE", path, mergedHeaders, null);
+        }
       }
       .getHTTPResponse();
   }
@@ -496,6 +565,14 @@ public class HTTPRequest {
                                 final NVPair[] queryData,
                                 NVPair[] headers) throws Exception {
 
+    return createGETRequest(uri, queryData, headers).getHTTPResponse();
+  }
+
+  private AbstractRequest createGETRequest(final String uri,
+                                           final NVPair[] queryData,
+                                           NVPair[] headers)
+    throws ParseException, URLException {
+
     return new AbstractRequest(uri, headers) {
         HTTPResponse doRequest(HTTPConnection connection,
                                String path,
@@ -503,8 +580,88 @@ public class HTTPRequest {
           throws IOException, ModuleException {
           return connection.Get(path, queryData, mergedHeaders);
         }
-      }
-      .getHTTPResponse();
+
+        NonBlockingHTTPEngine.Exchange createExchange(String path,
+                                                      NVPair[] mergedHeaders)
+          throws ParseException {
+          return createExchange("GET",
+                                appendQuery(path, queryData),
+                                mergedHeaders,
+                                null);
+        }
+      };
+  }
+
+  /**
+   * Makes HTTP <code>GET</code> requests for a set of resources, such as the
+   * images, style sheets, and scripts used by a page. The requests for each
+   * server are pipelined on a single connection.
+   *
+   * <p>Each resource is an <code>HTTPRequest</code> with a default URL set
+   * by {@link #setUrl}. All of the requests are sent before the responses
+   * are read. The response for each resource is then read by calling its
+   * {@link #GET()} method, so if the resource has been recorded with a
+   * {@link Test}, the statistics for the resource are recorded against that
+   * test. The time recorded for each resource is the time spent waiting for
+   * its response after the responses for the earlier resources have been
+   * read. If this <code>HTTPRequest</code> is recorded with a test, the
+   * test records the overall time for the set of resources.</p>
+   *
+   * <p>The default URL, headers, and form data of this
+   * <code>HTTPRequest</code> are not used.</p>
+   *
+   * <p>Unlike other requests, the requests are sent without first checking
+   * that an existing connection has not been closed by the server. If
+   * the server has closed the connection, the requests will fail.</p>
+   *
+   * @param resources The resources.
+   * @return The responses, in the same order as the resources.
+   * @throws Exception If an error occurs.
+   * @see #GETAll(HTTPRequest[], int)
+   */
+  public final HTTPResponse[] GETAll(HTTPRequest[] resources)
+    throws Exception {
+
+    return new ResourceBatch(resources, 1, true).getResponses();
+  }
+
+  /**
+   * Makes HTTP <code>GET</code> requests for a set of resources, such as the
+   * images, style sheets, and scripts used by a page. The requests for each
+   * server are made in parallel over several connections, in the same way
+   * as a browser.
+   *
+   * <p>Each connection has at most one outstanding request. When the response
+   * for a resource has been read, the next request for the server is sent on
+   * the same connection. Otherwise, the behaviour is as for
+   * {@link #GETAll(HTTPRequest[])}.</p>
+   *
+   * <p>If the {@link HTTPPluginControl#setConnectionLifetime connection
+   * lifetime} is {@link HTTPPluginControl.ConnectionLifetime#PROCESS}, the
+   * connections are taken from the worker process connection pool, and the
+   * number of connections is limited to the
+   * {@link HTTPPluginControl#setMaximumConnectionsPerHost maximum number of
+   * connections per host}. Otherwise, the worker thread opens additional
+   * connections as needed. These have the
+   * {@link HTTPPluginControl#getConnectionDefaults() default connection
+   * settings}.</p>
+   *
+   * @param resources The resources.
+   * @param connections The maximum number of connections to use for each
+   * server.
+   * @return The responses, in the same order as the resources.
+   * @throws Exception If an error occurs.
+   */
+  public final HTTPResponse[] GETAll(HTTPRequest[] resources,
+                                     int connections)
+    throws Exception {
+
+    if (connections < 1) {
+      throw new IllegalArgumentException(
+        "The number of connections must be at least 1");
+    }
+
+    return new ResourceBatch(resources, connections, false).getResponses();
   }
 
   /**
@@ -589,6 +746,15 @@ public class HTTPRequest {
           throws IOException, ModuleException {
           return connection.Head(path, queryData, mergedHeaders);
         }
+
+        NonBlockingHTTPEngine.Exchange createExchange(String path,
+                                                      NVPair[] mergedHeaders)
+          throws ParseException {
+          return createExchange("HEAD",
+                                appendQuery(path, queryData),
+                                mergedHeaders,
+                                null);
+        }
       }
       .getHTTPResponse();
   }
@@ -663,6 +829,12 @@ public class HTTPRequest {
           throws IOException, ModuleException {
           return connection.Options(path, mergedHeaders, data);
         }
+
+        NonBlockingHTTPEngine.Exchange createExchange(String path,
+                                                      NVPair[] mergedHeaders)
+          throws ParseException {
+          return createExchange("OPTIONS", path, mergedHeaders, data);
+        }
       }
       .getHTTPResponse();
   }
@@ -815,6 +987,15 @@ public class HTTPRequest {
           throws IOException, ModuleException {
           return connection.Post(path, formData, mergedHeaders);
         }
+
+        NonBlockingHTTPEngine.Exchange createExchange(String path,
+                                                      NVPair[] mergedHeaders)
+          throws ParseException {
+          return createExchange("POST",
+                                path,
+                                withFormContentType(mergedHeaders),
+                                formBody(formData));
+        }
       }
       .getHTTPResponse();
   }
@@ -858,6 +1039,12 @@ public class HTTPRequest {
           throws IOException, ModuleException {
           return connection.Post(path, data, mergedHeaders);
         }
+
+        NonBlockingHTTPEngine.Exchange createExchange(String path,
+                                                      NVPair[] mergedHeaders)
+          throws ParseException {
+          return createExchange("POST", path, mergedHeaders, nonNull(data));
+        }
       }
       .getHTTPResponse();
   }
@@ -922,6 +1109,12 @@ public class HTTPRequest {
           throws IOException, ModuleException {
           return connection.Post(path, data, mergedHeaders);
         }
+
+        NonBlockingHTTPEngine.Exchange createExchange(String path,
+                                                      NVPair[] mergedHeaders)
+          throws ParseException {
+          return createExchange("POST", path, mergedHeaders, nonNull(data));
+        }
       }
       .getHTTPResponse();
   }
@@ -1054,6 +1247,12 @@ public class HTTPRequest {
           throws IOException, ModuleException {
           return connection.Put(path, data, mergedHeaders);
         }
+
+        NonBlockingHTTPEngine.Exchange createExchange(String path,
+                                                      NVPair[] mergedHeaders)
+          throws ParseException {
+          return createExchange("PUT", path, mergedHeaders, nonNull(data));
+        }
       }
       .getHTTPResponse();
   }
@@ -1186,6 +1385,12 @@ public class HTTPRequest {
           throws IOException, ModuleException {
           return connection.Patch(path, data, mergedHeaders);
         }
+
+        NonBlockingHTTPEngine.Exchange createExchange(String path,
+                                                      NVPair[] mergedHeaders)
+          throws ParseException {
+          return createExchange("PATCH", path, mergedHeaders, nonNull(data));
+        }
       }
       .getHTTPResponse();
   }
@@ -1301,6 +1506,12 @@ public class HTTPRequest {
           throws IOException, ModuleException {
           return connection.Trace(path, mergedHeaders);
         }
+
+        NonBlockingHTTPEngine.Exchange createExchange(String path,
+                                                      NVPair[] mergedHeaders)
+          throws ParseException {
+          return createExchange("TRACE", path, mergedHeaders, null);
+        }
       }
       .getHTTPResponse();
   }
@@ -1323,6 +1534,213 @@ public class HTTPRequest {
     return HTTPPlugin.getPlugin().getPluginProcessContext();
   }
 
+  /**
+   * A request that has been sent, but for which the response has not yet
+   * been read.
+   */
+  static final class SentRequest {
+    private final HTTPRequest m_request;
+    private final HTTPConnection m_connection;
+    private final HTTPResponse m_response;
+    private final long m_startTime;
+    private final long m_connectionsEstablished;
+    private final long m_sslHandshakes;
+    private final long m_sslSessionsResumed;
+
+    SentRequest(HTTPRequest request,
+                HTTPConnection connection,
+                HTTPResponse response,
+                long startTime,
+                long connectionsEstablished,
+                long sslHandshakes,
+                long sslSessionsResumed) {
+      m_request = request;
+      m_connection = connection;
+      m_response = response;
+      m_startTime = startTime;
+      m_connectionsEstablished = connectionsEstablished;
+      m_sslHandshakes = sslHandshakes;
+      m_sslSessionsResumed = sslSessionsResumed;
+    }
+
+    HTTPRequest getRequest() {
+      return m_request;
+    }
+
+    HTTPConnection getConnection() {
+      return m_connection;
+    }
+
+    HTTPResponse getResponse() {
+      return m_response;
+    }
+
+    long getStartTime() {
+      return m_startTime;
+    }
+
+    long getConnectionsEstablished() {
+      return m_connectionsEstablished;
+    }
+
+    long getSSLHandshakes() {
+      return m_sslHandshakes;
+    }
+
+    long getSSLSessionsResumed() {
+      return m_sslSessionsResumed;
+    }
+  }
+
+  /**
+   * The state of a {@link #GETAll} call.
+   */
+  private final class ResourceBatch {
+    private final HTTPRequest[] m_resources;
+    private final boolean m_pipeline;
+    private final int m_connections;
+    private final HTTPPluginThreadState m_threadState;
+
+    private final AbstractRequest[] m_requests;
+    private final SentRequest[] m_sentRequests;
+    private final HTTPConnectionPool.Lease[] m_requestLeases;
+
+    /** Indices of the requests that have not been sent, for each server. */
+    private final Map<URI, LinkedList<Integer>> m_unsent =
+      new LinkedHashMap<URI, LinkedList<Integer>>();
+
+    private final List<HTTPConnectionPool.Lease> m_leases =
+      new ArrayList<HTTPConnectionPool.Lease>();
+
+    public ResourceBatch(HTTPRequest[] resources,
+                         int connections,
+                         boolean pipeline)
+      throws GrinderException, ParseException {
+
+      for (int i = 0; i < resources.length; ++i) {
+        if (resources[i] == null) {
+          throw new NullPointerException("resources[" + i + "] is null");
+        }
+      }
+
+      m_resources = resources;
+      m_pipeline = pipeline;
+      m_threadState = (HTTPPluginThreadState)
+        getPluginProcessContext().getPluginThreadListener();
+
+      final HTTPPluginConnectionDefaults connectionDefaults =
+        HTTPPluginConnectionDefaults.getConnectionDefaults();
+
+      final int maximumConnectionsPerHost =
+        connectionDefaults.getMaximumConnectionsPerHost();
+
+      // Don't wait for a pooled connection that only this thread can release.
+      if (connectionDefaults.getConnectionLifetime() ==
+            HTTPPluginControl.ConnectionLifetime.PROCESS &&
+          maximumConnectionsPerHost > 0) {
+        m_connections = Math.min(connections, maximumConnectionsPerHost);
+      }
+      else {
+        m_connections = connections;
+      }
+
+      m_requests = new AbstractRequest[resources.length];
+      m_sentRequests = new SentRequest[resources.length];
+      m_requestLeases = new HTTPConnectionPool.Lease[resources.length];
+
+      for (int i = 0; i < resources.length; ++i) {
+        final HTTPRequest resource = resources[i];
+
+        m_requests[i] = resource.createGETRequest(null,
+                                                  resource.getFormData(),
+                                                  resource.getHeaders());
+
+        final URI server =
+          HTTPPluginThreadState.keyURI(m_requests[i].getURL());
+
+        LinkedList<Integer> unsent = m_unsent.get(server);
+
+        if (unsent == null) {
+          unsent = new LinkedList<Integer>();
+          m_unsent.put(server, unsent);
+        }
+
+        unsent.add(i);
+      }
+    }
+
+    public HTTPResponse[] getResponses() throws Exception {
+      final HTTPResponse[] result = new HTTPResponse[m_resources.length];
+
+      try {
+        for (LinkedList<Integer> unsent : m_unsent.values()) {
+          for (int c = 0; c < m_connections && !unsent.isEmpty(); ++c) {
+            final HTTPConnectionPool.Lease lease =
+              m_threadState.leaseConnection(
+                m_requests[unsent.getFirst()].getURL(), c);
+
+            m_leases.add(lease);
+
+            do {
+              sendNext(unsent, lease);
+            }
+            while (m_pipeline && !unsent.isEmpty());
+          }
+        }
+
+        for (int i = 0; i < m_resources.length; ++i) {
+          m_threadState.setPendingRequest(m_sentRequests[i]);
+
+          // Record the response against the resource's test.
+          result[i] = m_resources[i].GET();
+
+          final LinkedList<Integer> unsent = m_unsent.get(
+            HTTPPluginThreadState.keyURI(m_requests[i].getURL()));
+
+          if (!unsent.isEmpty()) {
+            sendNext(unsent, m_requestLeases[i]);
+          }
+        }
+      }
+      finally {
+        m_threadState.setPendingRequest(null);
+
+        for (HTTPConnectionPool.Lease lease : m_leases) {
+          lease.release();
+        }
+      }
+
+      return result;
+    }
+
+    private void sendNext(LinkedList<Integer> unsent,
+                          HTTPConnectionPool.Lease lease)
+      throws IOException, ModuleException, TimeoutException {
+
+      final int i = unsent.removeFirst();
+
+      final HTTPConnection connection =
+        lease.getConnectionWrapper().getConnection();
+
+      // The connection health check waits for the response, which would
+      // prevent the requests from overlapping.
+      final boolean testConnectionHealth =
+        connection.getTestConnectionHealthWithBlockingRead();
+
+      connection.setTestConnectionHealthWithBlockingRead(false);
+
+      try {
+        m_sentRequests[i] = m_requests[i].send(connection);
+      }
+      finally {
+        connection.setTestConnectionHealthWithBlockingRead(
+          testConnectionHealth);
+      }
+
+      m_requestLeases[i] = lease;
+    }
+  }
+
   private abstract class AbstractRequest {
     private final URI m_url;
     private final NVPair[] m_mergedHeaders;
@@ -1392,55 +1810,116 @@ public class HTTPRequest {
 
       final PluginThreadContext threadContext = threadState.getThreadContext();
 
-      final String pathAndQuery = m_url.getPathAndQuery();
-      final String fragment = m_url.getFragment();
-
-      final String path =
-        fragment != null ? pathAndQuery + '#' + fragment : pathAndQuery;
-
-      final HTTPConnection connection =
-        threadState.getConnectionWrapper(m_url).getConnection();
+      // If this request is part of a batch started by getAll(), it has
+      // already been sent.
+      final SentRequest pendingRequest =
+        threadState.takePendingRequest(HTTPRequest.this);
 
-      // This will be different to the time the Test was started if
-      // the Test wraps several HTTPRequests.
-      final long startTime =
-        connection.getTimeAuthority().getTimeInMilliseconds();
+      final NonBlockingHTTPEngine.Exchange exchange =
+        pendingRequest == null ? submitNonBlocking() : null;
 
-      final long oldConnections = connection.getConnectionsEstablished();
+      final HTTPConnectionPool.Lease lease =
+        pendingRequest == null && exchange == null ?
+          threadState.leaseConnection(m_url) : null;
 
+      final HTTPConnection connection;
       final HTTPResponse httpResponse;
+      final long responseLength;
+      final StreamedResponseBody streamedResponseBody;
+      final long startTime;
+      final long connectionDnsTime;
+      final long connectionConnectTime;
+      final boolean newConnection;
+      final long connectionHandshakeTime;
+      final long sslHandshakes;
+      final long sslSessionsResumed;
 
       try {
-        httpResponse = doRequest(connection, path, m_mergedHeaders);
-      }
-      catch (InterruptedIOException e) {
-        // We never interrupt worker threads, so we can be sure this is due to
-        // a HTTPClient.
-        throw new TimeoutException(e);
-      }
+        final SentRequest sentRequest;
+
+        if (exchange != null) {
+          sentRequest = null;
+          connection = null;
+
+          try {
+            httpResponse = exchange.getResponse();
+          }
+          catch (InterruptedIOException e) {
+            throw new TimeoutException(e);
+          }
 
-      final int responseLength;
+          startTime = exchange.getStartTime();
+        }
+        else {
+          sentRequest = pendingRequest != null ?
+            pendingRequest : send(lease.getConnectionWrapper().getConnection());
+
+          connection = sentRequest.getConnection();
+          httpResponse = sentRequest.getResponse();
+          startTime = sentRequest.getStartTime();
+        }
+
+        if (m_readResponseBody && m_streamResponseBody) {
+          streamedResponseBody =
+            readStreamedResponseBody(httpResponse,
+                                     threadState.getResponseBodyBuffer());
+          responseLength = streamedResponseBody.getLength();
+        }
+        else if (m_readResponseBody) {
+          // Read the entire response.
+          // With standard HTTPClient, data is null <=> if Content-Length is 0.
+          // We've modified HTTPClient to avoid this.
+          responseLength = httpResponse.getData().length;
+          streamedResponseBody = null;
+        }
+        else {
+          httpResponse.getStatusCode();
+          responseLength = 0;
+          streamedResponseBody = null;
+        }
 
-      if (m_readResponseBody) {
-        // Read the entire response.
-        // With standard HTTPClient, data is null <=> if Content-Length is 0.
-        // We've modified HTTPClient to avoid this.
-        responseLength = httpResponse.getData().length;
+        if (connection != null) {
+          // Read the connection details before a pooled connection can be
+          // used by another thread.
+          connectionDnsTime = connection.getDnsTime();
+          connectionConnectTime = connection.getConnectTime();
+          newConnection = sentRequest.getConnectionsEstablished() !=
+            connection.getConnectionsEstablished();
+          connectionHandshakeTime = connection.getSSLHandshakeTime();
+          sslHandshakes =
+            connection.getSSLHandshakes() - sentRequest.getSSLHandshakes();
+          sslSessionsResumed = connection.getSSLSessionsResumed() -
+            sentRequest.getSSLSessionsResumed();
+        }
+        else {
+          connectionDnsTime = exchange.getDnsTime();
+          connectionConnectTime = exchange.getConnectTime();
+          newConnection = exchange.isNewConnection();
+          connectionHandshakeTime = 0;
+          sslHandshakes = 0;
+          sslSessionsResumed = 0;
+        }
       }
-      else {
-        httpResponse.getStatusCode();
-        responseLength = 0;
+      finally {
+        if (lease != null) {
+          lease.release();
+        }
       }
 
       // Stop the clock whilst we do potentially expensive result processing.
       threadContext.pauseClock();
 
-      final long dnsTime = connection.getDnsTime();
-      final long connectTime = connection.getConnectTime();
+      // HTTPClient measures times in nanoseconds. Report them in the same
+      // unit as the test time.
+      final TimeUnit timeUnit = pluginProcessContext.getReportingTimeUnit();
+
+      final long dnsTime =
+        timeUnit.convert(connectionDnsTime, TimeUnit.NANOSECONDS);
+      final long connectTime =
+        timeUnit.convert(connectionConnectTime, TimeUnit.NANOSECONDS);
       final long timeToFirstByte =
-        httpResponse.getTimeToFirstByte() - startTime;
-      final boolean newConnection =
-          oldConnections != connection.getConnectionsEstablished();
+        timeUnit.convert(httpResponse.getTimeToFirstByte() - startTime,
+                         TimeUnit.NANOSECONDS);
 
       final int statusCode = httpResponse.getStatusCode();
 
@@ -1469,6 +1948,23 @@ public class HTTPRequest {
         break;
       }
 
+      final boolean failedMatchers;
+
+      if (streamedResponseBody != null) {
+        final List<BodyMatcher> failed =
+          streamedResponseBody.getFailedMatchers();
+
+        for (BodyMatcher matcher : failed) {
+          logger.warn(httpResponse.getOriginalURI() +
+                      " -> response body failed to match: " + matcher);
+        }
+
+        failedMatchers = failed.size() > 0;
+      }
+      else {
+        failedMatchers = false;
+      }
+
       try {
         final Statistics statistics = scriptContext.getStatistics();
 
@@ -1492,7 +1988,8 @@ public class HTTPRequest {
             StatisticsIndexMap.HTTP_PLUGIN_FIRST_BYTE_TIME_KEY,
             timeToFirstByte);
 
-          if (statusCode >= HttpURLConnection.HTTP_BAD_REQUEST) {
+          if (statusCode >= HttpURLConnection.HTTP_BAD_REQUEST ||
+              failedMatchers) {
             statisticsForCurrentTest.addLong(
               StatisticsIndexMap.HTTP_PLUGIN_RESPONSE_ERRORS_KEY, 1);
           }
@@ -1507,6 +2004,32 @@ public class HTTPRequest {
             statisticsForCurrentTest.addLong(
               StatisticsIndexMap.HTTP_PLUGIN_CONNECTIONS_ESTABLISHED, 1);
           }
+
+          if (sslHandshakes > 0) {
+            statisticsForCurrentTest.addLong(
+              StatisticsIndexMap.HTTP_PLUGIN_SSL_HANDSHAKE_TIME_KEY,
+              timeUnit.convert(connectionHandshakeTime, TimeUnit.NANOSECONDS));
+
+            statisticsForCurrentTest.addLong(
+              StatisticsIndexMap.HTTP_PLUGIN_SSL_FULL_HANDSHAKES,
+              sslHandshakes - sslSessionsResumed);
+
+            statisticsForCurrentTest.addLong(
+              StatisticsIndexMap.HTTP_PLUGIN_SSL_SESSIONS_RESUMED,
+              sslSessionsResumed);
+          }
+
+          if (lease != null && lease.isPooled()) {
+            statisticsForCurrentTest.addLong(
+              lease.isHit() ?
+                StatisticsIndexMap.HTTP_PLUGIN_CONNECTION_POOL_HITS :
+                StatisticsIndexMap.HTTP_PLUGIN_CONNECTION_POOL_MISSES,
+              1);
+
+            statisticsForCurrentTest.addLong(
+              StatisticsIndexMap.HTTP_PLUGIN_CONNECTION_POOL_WAIT_TIME_KEY,
+              timeUnit.convert(lease.getWaitTime(), TimeUnit.NANOSECONDS));
+          }
         }
       }
       catch (InvalidContextException e) {
@@ -1515,12 +2038,143 @@ public class HTTPRequest {
 
       processResponse(httpResponse);
       threadState.setLastResponse(httpResponse);
+      threadState.setLastStreamedResponseBody(streamedResponseBody);
 
       threadContext.resumeClock();
 
       return httpResponse;
     }
 
+    /**
+     * Send the request, without waiting for the response.
+     */
+    final SentRequest send(HTTPConnection connection)
+      throws IOException, ModuleException, TimeoutException {
+
+      final String pathAndQuery = m_url.getPathAndQuery();
+      final String fragment = m_url.getFragment();
+
+      final String path =
+        fragment != null ? pathAndQuery + '#' + fragment : pathAndQuery;
+
+      // This will be different to the time the Test was started if
+      // the Test wraps several HTTPRequests.
+      final long startTime =
+        connection.getTimeAuthority().getTimeInNanoseconds();
+
+      final long connectionsEstablished = connection.getConnectionsEstablished();
+      final long sslHandshakes = connection.getSSLHandshakes();
+      final long sslSessionsResumed = connection.getSSLSessionsResumed();
+
+      final HTTPResponse httpResponse;
+
+      try {
+        httpResponse = doRequest(connection, path, m_mergedHeaders);
+      }
+      catch (InterruptedIOException e) {
+        // We never interrupt worker threads, so we can be sure this is due
+        // to a HTTPClient.
+        throw new TimeoutException(e);
+      }
+
+      return new SentRequest(HTTPRequest.this,
+                             connection,
+                             httpResponse,
+                             startTime,
+                             connectionsEstablished,
+                             sslHandshakes,
+                             sslSessionsResumed);
+    }
+
+    final URI getURL() {
+      return m_url;
+    }
+
+    /**
+     * Submit the request to the non-blocking engine, if it has been selected
+     * and supports the request.
+     *
+     * @return The submitted exchange, or {@code null} if the request should
+     *  be made with HTTPClient.
+     */
+    private NonBlockingHTTPEngine.Exchange submitNonBlocking()
+      throws IOException, ParseException {
+
+      final HTTPPluginConnectionDefaults connectionDefaults =
+        HTTPPluginConnectionDefaults.getConnectionDefaults();
+
+      if (connectionDefaults.getEngine() != Engine.NON_BLOCKING ||
+          !"http".equalsIgnoreCase(m_url.getScheme()) ||
+          connectionDefaults.getProxyHost() != null ||
+          connectionDefaults.getBandwidthLimit() > 0) {
+        return null;
+      }
+
+      final NonBlockingHTTPEngine.Exchange exchange =
+        createExchange(m_url.getPathAndQuery(), m_mergedHeaders);
+
+      if (exchange != null) {
+        HTTPPlugin.getPlugin().getNonBlockingHTTPEngine().submit(exchange);
+      }
+
+      return exchange;
+    }
+
+    /**
+     * Describe the request to the non-blocking engine. Subclasses that
+     * support the engine override this.
+     *
+     * @return The exchange, or {@code null} if the engine cannot make the
+     *  request.
+     */
+    NonBlockingHTTPEngine.Exchange createExchange(String path,
+                                                  NVPair[] headers)
+      throws ParseException {
+      return null;
+    }
+
+    final NonBlockingHTTPEngine.Exchange createExchange(String method,
+                                                        String path,
+                                                        NVPair[] headers,
+                                                        byte[] body)
+      throws ParseException {
+
+      final HTTPPluginConnectionDefaults connectionDefaults =
+        HTTPPluginConnectionDefaults.getConnectionDefaults();
+
+      return new NonBlockingHTTPEngine.Exchange(
+        method,
+        m_url,
+        path,
+        mergeArrays(connectionDefaults.getDefaultHeaders(), headers),
+        body,
+        connectionDefaults.getTimeout(),
+        connectionDefaults.getLocalAddress());
+    }
+
+    private StreamedResponseBody readStreamedResponseBody(
+      HTTPResponse httpResponse, byte[] buffer)
+      throws IOException, ModuleException {
+
+      final StreamedResponseBody result =
+        new StreamedResponseBody(m_responseBodyMatchers);
+
+      final InputStream in = httpResponse.getInputStream();
+
+      try {
+        int n;
+
+        while ((n = in.read(buffer)) != -1) {
+          result.update(buffer, 0, n);
+        }
+      }
+      finally {
+        in.close();
+      }
+
+      return result;
+    }
+
     abstract HTTPResponse doRequest(HTTPConnection connection,
                                     String path,
                                     NVPair[] headers)
@@ -1572,12 +2226,54 @@ public class HTTPRequest {
       throws IOException, ModuleException;
   }
 
+  /**
+   * Append query data to a path, as HTTPClient does.
+   */
+  private static String appendQuery(String path, NVPair[] queryData) {
+    final String query = Codecs.nv2query(queryData);
+
+    return query != null && query.length() > 0 ? path + "?" + query : path;
+  }
+
+  /**
+   * Encode form data as HTTPClient does.
+   */
+  private static byte[] formBody(NVPair[] formData) {
+    final String query = Codecs.nv2query(formData);
+
+    return query != null ? query.getBytes() : new byte[0];
+  }
+
+  private static NVPair[] withFormContentType(NVPair[] headers) {
+    for (NVPair header : headers) {
+      if (header != null &&
+          "Content-Type".equalsIgnoreCase(header.getName())) {
+        return headers;
+      }
+    }
+
+    final NVPair[] result = new NVPair[headers.length + 1];
+    System.arraycopy(headers, 0, result, 0, headers.length);
+    result[headers.length] =
+      new NVPair("Content-Type", "application/x-www-form-urlencoded");
+
+    return result;
+  }
+
+  /**
+   * POST, PUT, and PATCH requests always have a body.
+   */
+  private static byte[] nonNull(byte[] data) {
+    return data != null ? data : new byte[0];
+  }
+
   private static boolean isAbsolute(String uri) {
     return s_absoluteURIPattern.matcher(uri).matches();
   }
 
   private static Collection<String> s_httpMethodNames =
-    asList("DELETE", "GET", "HEAD", "OPTIONS", "POST", "PUT", "TRACE", "PATCH");
+    asList("DELETE", "GET", "GETAll", "HEAD", "OPTIONS", "POST", "PUT", "TRACE",
+           "PATCH");
 
   private static InstrumentationFilter s_httpMethodFilter =
     new InstrumentationFilter() {
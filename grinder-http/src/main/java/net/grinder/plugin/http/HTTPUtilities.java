@@ -57,6 +57,18 @@ public interface HTTPUtilities {
    */
   HTTPResponse getLastResponse() throws GrinderException;
 
+  /**
+   * Return the body of the last response read by the calling worker thread,
+   * if the request was made with {@link HTTPRequest#setStreamResponseBody
+   * streaming} enabled.
+   *
+   * @return The streamed body, or {@code null} if the last response was not
+   *         streamed, or the calling thread has not made any requests.
+   * @throws GrinderException
+   *           If not called from a worker thread.
+   */
+  StreamedResponseBody getLastStreamedResponseBody() throws GrinderException;
+
   /**
    * Return the value for a path parameter or query string name-value token with
    * the given {@code tokenName} in a Location header from the last
@@ -79,6 +79,14 @@ class HTTPUtilitiesImplementation implements HTTPUtilities {
     return threadState.getLastResponse();
   }
 
+  public StreamedResponseBody getLastStreamedResponseBody()
+    throws GrinderException {
+    final HTTPPluginThreadState threadState =
+      (HTTPPluginThreadState)m_processContext.getPluginThreadListener();
+
+    return threadState.getLastStreamedResponseBody();
+  }
+
   public String valueFromLocationURI(final String tokenName)
     throws GrinderException {
 
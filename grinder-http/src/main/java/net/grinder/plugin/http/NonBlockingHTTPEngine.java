@@ -0,0 +1,1097 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+
+package net.grinder.plugin.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+
+import net.grinder.common.UncheckedInterruptedException;
+import net.grinder.util.TimeAuthority;
+import net.grinder.util.TimerWheel;
+import HTTPClient.HTTPConnection;
+import HTTPClient.HTTPResponse;
+import HTTPClient.NVPair;
+import HTTPClient.ParseException;
+import HTTPClient.Response;
+import HTTPClient.URI;
+
+
+/**
+ * A non-blocking HTTP/1.1 client.
+ *
+ * <p>All of the network I/O for the worker process is performed by a single
+ * selector thread. A worker thread {@link #submit submits} an
+ * {@link Exchange} and waits for its response, so an in-flight request costs
+ * a small amount of state rather than a thread blocked on a socket. Worker
+ * threads that are virtual threads release their carrier thread whilst they
+ * wait, allowing a worker process to have tens of thousands of requests in
+ * flight.</p>
+ *
+ * <p>Connections are established, written, and read without blocking. They
+ * are shared by all of the worker threads, and kept alive for reuse. The
+ * timeouts of in-flight requests and idle connections are managed by a
+ * {@link TimerWheel} owned by the selector thread.</p>
+ *
+ * <p>Only plain HTTP requests with a complete body are supported. Responses
+ * are read completely into memory.</p>
+ *
+ * @author Philip Aston
+ */
+final class NonBlockingHTTPEngine {
+
+  private static final long TICK_DURATION = 10;
+  private static final int WHEEL_SIZE = 512;
+  private static final long IDLE_CONNECTION_TIMEOUT = 60000;
+  private static final int MAXIMUM_HEADER_LENGTH = 65536;
+  private static final int READ_BUFFER_SIZE = 16384;
+
+  private final TimeAuthority m_timeAuthority;
+
+  private final ConcurrentMap<String, Deque<Connection>> m_idleConnections =
+    new ConcurrentHashMap<String, Deque<Connection>>();
+
+  private final Queue<Runnable> m_tasks = new ConcurrentLinkedQueue<Runnable>();
+
+  // Guarded by this.
+  private Selector m_selector;
+  private boolean m_shutdown;
+
+  // Only accessed by the selector thread.
+  private TimerWheel m_timerWheel;
+  private final ByteBuffer m_readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+
+  /**
+   * Constructor.
+   *
+   * @param timeAuthority Used to time the requests.
+   */
+  NonBlockingHTTPEngine(final TimeAuthority timeAuthority) {
+    m_timeAuthority = timeAuthority;
+  }
+
+  /**
+   * Send a request. The selector thread is started on first use.
+   *
+   * <p>If there is no idle connection to the server, the server's address is
+   * resolved by the calling thread.</p>
+   *
+   * @param exchange The request.
+   * @throws IOException If the server's address could not be resolved, or the
+   *  engine has been shut down.
+   */
+  void submit(final Exchange exchange) throws IOException {
+    exchange.m_startTime = m_timeAuthority.getTimeInNanoseconds();
+
+    Connection connection = null;
+
+    final Deque<Connection> idle = m_idleConnections.get(exchange.m_key);
+
+    if (idle != null) {
+      connection = idle.pollFirst();
+    }
+
+    if (connection == null) {
+      final InetAddress address = InetAddress.getByName(exchange.m_host);
+
+      exchange.m_dnsTime =
+        m_timeAuthority.getTimeInNanoseconds() - exchange.m_startTime;
+
+      connection =
+        new Connection(exchange.m_key,
+                       new InetSocketAddress(address, exchange.m_port),
+                       exchange.m_localAddress);
+    }
+
+    final Connection c = connection;
+
+    execute(new Runnable() {
+      public void run() {
+        start(exchange, c);
+      }
+    });
+  }
+
+  /**
+   * Close all connections, fail the in-flight requests, and stop the
+   * selector thread.
+   */
+  void shutdown() {
+    final Selector selector;
+
+    synchronized (this) {
+      m_shutdown = true;
+      selector = m_selector;
+    }
+
+    if (selector != null) {
+      selector.wakeup();
+    }
+  }
+
+  private void execute(final Runnable task) throws IOException {
+    final Selector selector;
+
+    synchronized (this) {
+      if (m_shutdown) {
+        throw new IOException("Non-blocking HTTP engine has been shut down");
+      }
+
+      if (m_selector == null) {
+        final Selector newSelector = Selector.open();
+
+        final Thread thread = new Thread("Non-blocking HTTP engine") {
+            public void run() {
+              select(newSelector);
+            }
+          };
+
+        thread.setDaemon(true);
+        m_selector = newSelector;
+        thread.start();
+      }
+
+      selector = m_selector;
+
+      // Added whilst holding the lock, so the task is either run by the
+      // selector thread or failed when the engine shuts down.
+      m_tasks.add(task);
+    }
+
+    selector.wakeup();
+  }
+
+  private synchronized boolean isShutdown() {
+    return m_shutdown;
+  }
+
+  private synchronized Selector getSelector() {
+    return m_selector;
+  }
+
+  private long now() {
+    return m_timeAuthority.getTimeInMilliseconds();
+  }
+
+  private void select(final Selector selector) {
+    m_timerWheel = new TimerWheel(TICK_DURATION, WHEEL_SIZE, now());
+
+    IOException failure = null;
+
+    try {
+      while (!isShutdown()) {
+        Runnable task;
+
+        while ((task = m_tasks.poll()) != null) {
+          task.run();
+        }
+
+        final long wait = m_timerWheel.getTimeToNextTick(now());
+
+        if (wait < 0) {
+          selector.select();
+        }
+        else if (wait == 0) {
+          selector.selectNow();
+        }
+        else {
+          selector.select(wait);
+        }
+
+        final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+
+        while (keys.hasNext()) {
+          final SelectionKey key = keys.next();
+          keys.remove();
+
+          ((Connection) key.attachment()).ready(key);
+        }
+
+        m_timerWheel.expire(now());
+      }
+    }
+    catch (IOException e) {
+      failure = e;
+    }
+    catch (ClosedSelectorException e) {
+      failure = new IOException(e.getMessage());
+    }
+    finally {
+      synchronized (this) {
+        m_shutdown = true;
+      }
+
+      if (failure == null) {
+        failure =
+          new IOException("Non-blocking HTTP engine has been shut down");
+      }
+
+      for (SelectionKey key : selector.keys()) {
+        ((Connection) key.attachment()).fail(failure);
+      }
+
+      Runnable task;
+
+      while ((task = m_tasks.poll()) != null) {
+        task.run();
+      }
+
+      try {
+        selector.close();
+      }
+      catch (IOException e) {
+        // Ignore.
+      }
+    }
+  }
+
+  /**
+   * Called on the selector thread to start an exchange.
+   */
+  private void start(final Exchange exchange, final Connection connection) {
+    if (isShutdown()) {
+      connection.close();
+      exchange.fail(
+        new IOException("Non-blocking HTTP engine has been shut down"));
+      return;
+    }
+
+    if (connection.m_channel != null && !connection.m_channel.isOpen()) {
+      // The server closed the idle connection after we took it from the
+      // pool.
+      start(exchange, connection.replace());
+      return;
+    }
+
+    try {
+      connection.begin(exchange);
+    }
+    catch (IOException e) {
+      connection.fail(e);
+    }
+  }
+
+  /**
+   * A connection to a server. Apart from the hand-off through the idle
+   * connection pool, only accessed by the selector thread.
+   */
+  private final class Connection {
+    private final String m_key;
+    private final InetSocketAddress m_address;
+    private final InetAddress m_localAddress;
+
+    private SocketChannel m_channel;
+    private SelectionKey m_selectionKey;
+    private boolean m_connected;
+    private boolean m_reused;
+    private long m_connectStartTime;
+
+    private Exchange m_exchange;
+    private ByteBuffer m_output;
+    private ResponseParser m_parser;
+    private long m_bytesRead;
+    private long m_lastActivity;
+    private TimerWheel.Timeout m_timeout;
+
+    Connection(final String key,
+               final InetSocketAddress address,
+               final InetAddress localAddress) {
+      m_key = key;
+      m_address = address;
+      m_localAddress = localAddress;
+    }
+
+    /**
+     * A new connection to the same server. The address is not resolved again.
+     */
+    Connection replace() {
+      return new Connection(m_key, m_address, m_localAddress);
+    }
+
+    void begin(final Exchange exchange) throws IOException {
+      cancelTimeout();
+
+      m_exchange = exchange;
+      m_output = ByteBuffer.wrap(exchange.m_request);
+      m_parser = new ResponseParser(exchange.isHead());
+      m_bytesRead = 0;
+      m_lastActivity = now();
+
+      if (exchange.m_timeout > 0) {
+        scheduleTimeout(m_lastActivity + exchange.m_timeout);
+      }
+
+      if (m_channel == null) {
+        exchange.m_newConnection = true;
+
+        m_channel = SocketChannel.open();
+        m_channel.configureBlocking(false);
+
+        if (m_localAddress != null) {
+          m_channel.socket().bind(new InetSocketAddress(m_localAddress, 0));
+        }
+
+        m_connectStartTime = m_timeAuthority.getTimeInNanoseconds();
+
+        m_selectionKey =
+          m_channel.register(getSelector(), SelectionKey.OP_CONNECT, this);
+
+        if (m_channel.connect(m_address)) {
+          connected();
+        }
+      }
+      else {
+        m_selectionKey.interestOps(SelectionKey.OP_WRITE);
+      }
+    }
+
+    private void connected() {
+      m_connected = true;
+      m_exchange.m_connectTime =
+        m_timeAuthority.getTimeInNanoseconds() - m_connectStartTime;
+      m_selectionKey.interestOps(SelectionKey.OP_WRITE);
+    }
+
+    void ready(final SelectionKey key) {
+      try {
+        if (key.isValid() && key.isConnectable() &&
+            m_channel.finishConnect()) {
+          m_lastActivity = now();
+          connected();
+        }
+
+        if (key.isValid() && key.isWritable()) {
+          write();
+        }
+
+        if (key.isValid() && key.isReadable()) {
+          read();
+        }
+      }
+      catch (IOException e) {
+        fail(e);
+      }
+    }
+
+    private void write() throws IOException {
+      m_channel.write(m_output);
+      m_lastActivity = now();
+
+      if (!m_output.hasRemaining()) {
+        m_output = null;
+        m_selectionKey.interestOps(SelectionKey.OP_READ);
+      }
+    }
+
+    private void read() throws IOException {
+      final ByteBuffer buffer = m_readBuffer;
+      buffer.clear();
+
+      final int n = m_channel.read(buffer);
+
+      if (n == 0) {
+        return;
+      }
+
+      if (m_exchange == null) {
+        // An idle connection has been closed by the server, or the server
+        // has sent something unexpected.
+        final Deque<Connection> idle = m_idleConnections.get(m_key);
+
+        if (idle != null) {
+          idle.remove(this);
+        }
+
+        close();
+        return;
+      }
+
+      if (n < 0) {
+        endOfStream();
+        return;
+      }
+
+      if (m_bytesRead == 0) {
+        m_exchange.m_timeToFirstByte = m_timeAuthority.getTimeInNanoseconds();
+      }
+
+      m_bytesRead += n;
+      m_lastActivity = now();
+
+      buffer.flip();
+
+      if (m_parser.update(buffer)) {
+        complete(!buffer.hasRemaining() && m_parser.isKeepAlive());
+      }
+    }
+
+    private void endOfStream() throws IOException {
+      if (m_parser.isCompleteAtEndOfStream()) {
+        complete(false);
+      }
+      else if (m_bytesRead == 0 && m_reused && !m_exchange.m_retried) {
+        // The server closed a kept-alive connection before we could use it.
+        // Retry once, with a new connection.
+        final Exchange exchange = m_exchange;
+        exchange.m_retried = true;
+        m_exchange = null;
+        close();
+
+        start(exchange, replace());
+      }
+      else {
+        throw new EOFException("Premature end of response");
+      }
+    }
+
+    private void complete(final boolean keepAlive) throws IOException {
+      final Exchange exchange = m_exchange;
+      final ResponseParser parser = m_parser;
+
+      cancelTimeout();
+      m_exchange = null;
+      m_parser = null;
+
+      if (keepAlive && !isShutdown()) {
+        m_reused = true;
+
+        // Keep reading, so we notice if the server closes the connection.
+        m_selectionKey.interestOps(SelectionKey.OP_READ);
+
+        scheduleTimeout(now() + IDLE_CONNECTION_TIMEOUT);
+
+        Deque<Connection> idle = m_idleConnections.get(m_key);
+
+        if (idle == null) {
+          final Deque<Connection> newIdle =
+            new ConcurrentLinkedDeque<Connection>();
+          idle = m_idleConnections.putIfAbsent(m_key, newIdle);
+
+          if (idle == null) {
+            idle = newIdle;
+          }
+        }
+
+        idle.addFirst(this);
+      }
+      else {
+        close();
+      }
+
+      exchange.complete(parser.createResponse());
+    }
+
+    private void scheduleTimeout(final long deadline) {
+      m_timeout = m_timerWheel.schedule(new Runnable() {
+          public void run() {
+            timeout();
+          }
+        },
+        deadline);
+    }
+
+    private void cancelTimeout() {
+      if (m_timeout != null) {
+        m_timeout.cancel();
+        m_timeout = null;
+      }
+    }
+
+    private void timeout() {
+      m_timeout = null;
+
+      if (m_exchange == null) {
+        // Idle connection.
+        final Deque<Connection> idle = m_idleConnections.get(m_key);
+
+        if (idle != null && idle.remove(this)) {
+          close();
+        }
+
+        return;
+      }
+
+      final long deadline = m_lastActivity + m_exchange.m_timeout;
+
+      if (deadline > now()) {
+        scheduleTimeout(deadline);
+      }
+      else {
+        fail(new SocketTimeoutException(
+          m_connected ? "Read timed out" : "Connect timed out"));
+      }
+    }
+
+    void fail(final IOException e) {
+      final Exchange exchange = m_exchange;
+
+      cancelTimeout();
+      m_exchange = null;
+      close();
+
+      if (exchange != null) {
+        exchange.fail(e);
+      }
+    }
+
+    void close() {
+      if (m_selectionKey != null) {
+        m_selectionKey.cancel();
+      }
+
+      if (m_channel != null) {
+        try {
+          m_channel.close();
+        }
+        catch (IOException e) {
+          // Ignore.
+        }
+      }
+    }
+  }
+
+  /**
+   * A request, and the state of its response.
+   */
+  static final class Exchange {
+    private final String m_method;
+    private final String m_host;
+    private final int m_port;
+    private final String m_key;
+    private final URI m_originalURI;
+    private final byte[] m_request;
+    private final int m_timeout;
+    private final InetAddress m_localAddress;
+
+    private final CountDownLatch m_done = new CountDownLatch(1);
+
+    // Written before m_done is released. The start and DNS times are written
+    // by the submitting thread, the rest by the selector thread.
+    private long m_startTime;
+    private long m_dnsTime;
+    private long m_connectTime;
+    private long m_timeToFirstByte;
+    private boolean m_newConnection;
+    private boolean m_retried;
+    private HTTPResponse m_response;
+    private IOException m_exception;
+
+    /**
+     * Constructor.
+     *
+     * @param method The request method.
+     * @param url The server. Only the scheme, host, and port are used.
+     * @param path The request path, including the query string.
+     * @param headers The request headers. {@code null} elements are ignored.
+     *  Any {@code Content-Length} header is replaced.
+     * @param body The request body, or {@code null}.
+     * @param timeout The request timeout in milliseconds, or {@code 0} for no
+     *  timeout.
+     * @param localAddress The local address to bind to, or {@code null}.
+     * @throws ParseException If the path is not valid.
+     */
+    Exchange(final String method,
+             final URI url,
+             final String path,
+             final NVPair[] headers,
+             final byte[] body,
+             final int timeout,
+             final InetAddress localAddress) throws ParseException {
+
+      m_method = method;
+      m_host = url.getHost();
+      m_port =
+        url.getPort() != -1 ? url.getPort() : URI.defaultPort(url.getScheme());
+      m_key = m_host + ":" + m_port;
+      m_timeout = timeout;
+      m_localAddress = localAddress;
+
+      final String requestPath = path.length() > 0 ? path : "/";
+      final int q = requestPath.indexOf('?');
+
+      m_originalURI =
+        new URI(url.getScheme(),
+                null,
+                m_host,
+                url.getPort(),
+                q < 0 ? requestPath : requestPath.substring(0, q),
+                q < 0 ? null : requestPath.substring(q + 1),
+                null);
+
+      final StringBuilder head = new StringBuilder();
+      head.append(method).append(' ').append(requestPath)
+          .append(" HTTP/1.1\r\n");
+
+      boolean hasHost = false;
+      boolean hasUserAgent = false;
+
+      for (NVPair header : headers) {
+        if (header == null) {
+          continue;
+        }
+
+        final String name = header.getName();
+
+        if ("Content-Length".equalsIgnoreCase(name)) {
+          continue;
+        }
+
+        hasHost |= "Host".equalsIgnoreCase(name);
+        hasUserAgent |= "User-Agent".equalsIgnoreCase(name);
+
+        head.append(name).append(": ").append(header.getValue())
+            .append("\r\n");
+      }
+
+      if (!hasHost) {
+        head.append("Host: ").append(m_host);
+
+        if (m_port != URI.defaultPort(url.getScheme())) {
+          head.append(':').append(m_port);
+        }
+
+        head.append("\r\n");
+      }
+
+      if (!hasUserAgent) {
+        head.append("User-Agent: ").append(HTTPConnection.version)
+            .append("\r\n");
+      }
+
+      if (body != null) {
+        head.append("Content-Length: ").append(body.length).append("\r\n");
+      }
+
+      head.append("\r\n");
+
+      final byte[] headBytes = toBytes(head.toString());
+
+      if (body == null) {
+        m_request = headBytes;
+      }
+      else {
+        m_request = new byte[headBytes.length + body.length];
+        System.arraycopy(headBytes, 0, m_request, 0, headBytes.length);
+        System.arraycopy(body, 0, m_request, headBytes.length, body.length);
+      }
+    }
+
+    boolean isHead() {
+      return "HEAD".equals(m_method);
+    }
+
+    /**
+     * Wait for the response.
+     *
+     * @return The response.
+     * @throws IOException If the request failed. A
+     *  {@link java.io.InterruptedIOException} is thrown if the request timed
+     *  out.
+     */
+    HTTPResponse getResponse() throws IOException {
+      try {
+        m_done.await();
+      }
+      catch (InterruptedException e) {
+        throw new UncheckedInterruptedException(e);
+      }
+
+      if (m_exception != null) {
+        throw m_exception;
+      }
+
+      return m_response;
+    }
+
+    /**
+     * The time the request was submitted, in nanoseconds.
+     */
+    long getStartTime() {
+      return m_startTime;
+    }
+
+    /**
+     * The time taken to resolve the server's address, in nanoseconds.
+     * Only meaningful if {@link #isNewConnection()}.
+     */
+    long getDnsTime() {
+      return m_dnsTime;
+    }
+
+    /**
+     * The time taken to establish the connection, in nanoseconds.
+     * Only meaningful if {@link #isNewConnection()}.
+     */
+    long getConnectTime() {
+      return m_connectTime;
+    }
+
+    /**
+     * Whether a new connection was established for the request.
+     */
+    boolean isNewConnection() {
+      return m_newConnection;
+    }
+
+    private void complete(final Response response) {
+      m_response =
+        new HTTPResponse(m_method, m_originalURI, response, m_timeToFirstByte);
+      m_done.countDown();
+    }
+
+    private void fail(final IOException e) {
+      m_exception = e;
+      m_done.countDown();
+    }
+  }
+
+  private static byte[] toBytes(final String s) {
+    try {
+      return s.getBytes("ISO-8859-1");
+    }
+    catch (UnsupportedEncodingException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  /**
+   * Incremental HTTP/1.1 response parser.
+   */
+  private static final class ResponseParser {
+    private enum State {
+      STATUS_LINE,
+      HEADER_LINE,
+      BODY,
+      CHUNK_SIZE,
+      CHUNK_DATA,
+      CHUNK_END,
+      TRAILER_LINE,
+      DONE,
+    }
+
+    private final boolean m_head;
+
+    private State m_state = State.STATUS_LINE;
+    private final StringBuilder m_line = new StringBuilder();
+    private int m_headerLength;
+
+    private String m_version;
+    private int m_statusCode;
+    private String m_reason;
+    private final List<NVPair> m_headers = new ArrayList<NVPair>();
+    private boolean m_keepAlive;
+
+    /** Remaining body or chunk bytes, or -1 to read to the end of stream. */
+    private long m_remaining;
+    private final ByteArrayOutputStream m_body = new ByteArrayOutputStream();
+
+    ResponseParser(final boolean head) {
+      m_head = head;
+    }
+
+    /**
+     * Parse more of the response.
+     *
+     * @param in The data. Bytes following the end of the response are not
+     *  consumed.
+     * @return {@code true} if the response is complete.
+     * @throws ProtocolException If the response is malformed.
+     */
+    boolean update(final ByteBuffer in) throws ProtocolException {
+      while (in.hasRemaining() && m_state != State.DONE) {
+        switch (m_state) {
+          case BODY:
+          case CHUNK_DATA:
+            final int n = m_remaining < 0 ?
+              in.remaining() : (int) Math.min(in.remaining(), m_remaining);
+
+            m_body.write(in.array(), in.arrayOffset() + in.position(), n);
+            in.position(in.position() + n);
+
+            if (m_remaining > 0) {
+              m_remaining -= n;
+
+              if (m_remaining == 0) {
+                m_state =
+                  m_state == State.BODY ? State.DONE : State.CHUNK_END;
+              }
+            }
+            break;
+
+          default:
+            if (readLine(in)) {
+              processLine(m_line.toString());
+              m_line.setLength(0);
+            }
+            break;
+        }
+      }
+
+      return m_state == State.DONE;
+    }
+
+    private boolean readLine(final ByteBuffer in) throws ProtocolException {
+      while (in.hasRemaining()) {
+        final char c = (char) (in.get() & 0xFF);
+
+        if (++m_headerLength > MAXIMUM_HEADER_LENGTH) {
+          throw new ProtocolException("Response header too long");
+        }
+
+        if (c == '\n') {
+          final int length = m_line.length();
+
+          if (length > 0 && m_line.charAt(length - 1) == '\r') {
+            m_line.setLength(length - 1);
+          }
+
+          return true;
+        }
+
+        m_line.append(c);
+      }
+
+      return false;
+    }
+
+    private void processLine(final String line) throws ProtocolException {
+      switch (m_state) {
+        case STATUS_LINE:
+          if (line.length() == 0) {
+            // Tolerate blank lines before the status line.
+            return;
+          }
+
+          parseStatusLine(line);
+          m_state = State.HEADER_LINE;
+          break;
+
+        case HEADER_LINE:
+          if (line.length() > 0) {
+            parseHeader(line);
+          }
+          else {
+            endOfHeaders();
+          }
+          break;
+
+        case CHUNK_SIZE:
+          final int semicolon = line.indexOf(';');
+
+          try {
+            m_remaining =
+              Long.parseLong(
+                (semicolon >= 0 ? line.substring(0, semicolon) : line).trim(),
+                16);
+          }
+          catch (NumberFormatException e) {
+            throw new ProtocolException("Invalid chunk size: " + line);
+          }
+
+          m_headerLength = 0;
+          m_state = m_remaining > 0 ? State.CHUNK_DATA : State.TRAILER_LINE;
+          break;
+
+        case CHUNK_END:
+          m_state = State.CHUNK_SIZE;
+          break;
+
+        case TRAILER_LINE:
+          if (line.length() == 0) {
+            m_state = State.DONE;
+          }
+          break;
+
+        default:
+          throw new AssertionError(m_state);
+      }
+    }
+
+    private void parseStatusLine(final String line) throws ProtocolException {
+      final String[] parts = line.split(" ", 3);
+
+      if (parts.length < 2 || !parts[0].startsWith("HTTP/")) {
+        throw new ProtocolException("Invalid status line: " + line);
+      }
+
+      m_version = parts[0];
+
+      try {
+        m_statusCode = Integer.parseInt(parts[1]);
+      }
+      catch (NumberFormatException e) {
+        throw new ProtocolException("Invalid status line: " + line);
+      }
+
+      m_reason = parts.length > 2 ? parts[2] : "";
+    }
+
+    private void parseHeader(final String line) throws ProtocolException {
+      final char first = line.charAt(0);
+
+      if ((first == ' ' || first == '\t') && m_headers.size() > 0) {
+        // Continuation line.
+        final int last = m_headers.size() - 1;
+        final NVPair previous = m_headers.get(last);
+        m_headers.set(last,
+                      new NVPair(previous.getName(),
+                                 previous.getValue() + " " + line.trim()));
+        return;
+      }
+
+      final int colon = line.indexOf(':');
+
+      if (colon <= 0) {
+        throw new ProtocolException("Invalid header: " + line);
+      }
+
+      final String name = line.substring(0, colon).trim();
+      final String value = line.substring(colon + 1).trim();
+
+      // Combine repeated headers, as HTTPClient does.
+      for (int i = 0; i < m_headers.size(); ++i) {
+        final NVPair existing = m_headers.get(i);
+
+        if (existing.getName().equalsIgnoreCase(name)) {
+          m_headers.set(i,
+                        new NVPair(existing.getName(),
+                                   existing.getValue() + ", " + value));
+          return;
+        }
+      }
+
+      m_headers.add(new NVPair(name, value));
+    }
+
+    private String getHeader(final String name) {
+      for (NVPair header : m_headers) {
+        if (header.getName().equalsIgnoreCase(name)) {
+          return header.getValue();
+        }
+      }
+
+      return null;
+    }
+
+    private static boolean hasToken(final String value, final String token) {
+      if (value != null) {
+        for (String t : value.split(",")) {
+          if (t.trim().equalsIgnoreCase(token)) {
+            return true;
+          }
+        }
+      }
+
+      return false;
+    }
+
+    private void endOfHeaders() throws ProtocolException {
+      if (m_statusCode / 100 == 1) {
+        // Discard interim responses, such as 100 Continue.
+        m_headers.clear();
+        m_headerLength = 0;
+        m_state = State.STATUS_LINE;
+        return;
+      }
+
+      final String connection = getHeader("Connection");
+
+      m_keepAlive =
+        "HTTP/1.0".equals(m_version) ?
+          hasToken(connection, "keep-alive") : !hasToken(connection, "close");
+
+      final String transferEncoding = getHeader("Transfer-Encoding");
+      final String contentLength = getHeader("Content-Length");
+
+      if (m_head || m_statusCode == 204 || m_statusCode == 304) {
+        m_state = State.DONE;
+      }
+      else if (transferEncoding != null &&
+               hasToken(transferEncoding, "chunked")) {
+        m_headerLength = 0;
+        m_state = State.CHUNK_SIZE;
+      }
+      else if (contentLength != null) {
+        try {
+          m_remaining = Long.parseLong(contentLength.trim());
+        }
+        catch (NumberFormatException e) {
+          throw new ProtocolException("Invalid Content-Length: " +
+                                      contentLength);
+        }
+
+        m_state = m_remaining > 0 ? State.BODY : State.DONE;
+      }
+      else {
+        m_remaining = -1;
+        m_keepAlive = false;
+        m_state = State.BODY;
+      }
+    }
+
+    boolean isKeepAlive() {
+      return m_keepAlive;
+    }
+
+    /**
+     * Whether the response is complete if the server closes the connection
+     * now.
+     */
+    boolean isCompleteAtEndOfStream() {
+      return m_state == State.BODY && m_remaining < 0;
+    }
+
+    Response createResponse() {
+      final Response response =
+        new Response(m_version,
+                     m_statusCode,
+                     m_reason,
+                     m_headers.toArray(new NVPair[m_headers.size()]),
+                     m_body.toByteArray(),
+                     null,
+                     0);
+
+      return response;
+    }
+  }
+}
@@ -0,0 +1,140 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+
+package net.grinder.plugin.http;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+
+/**
+ * The result of reading a response body with
+ * {@link HTTPRequest#setStreamResponseBody streaming} enabled.
+ *
+ * <p>The body itself is not retained. Instead, its length, checksum, and the
+ * results of any {@link BodyMatcher}s are calculated as it is read.</p>
+ *
+ * @author Philip Aston
+ * @see HTTPUtilities#getLastStreamedResponseBody()
+ */
+public final class StreamedResponseBody {
+
+  private static final BodyMatcher.Scanner[] NO_SCANNERS =
+    new BodyMatcher.Scanner[0];
+
+  private final BodyMatcher.Scanner[] m_scanners;
+  private final CRC32 m_checksum = new CRC32();
+  private long m_length;
+
+  StreamedResponseBody(final BodyMatcher[] matchers) {
+    if (matchers == null || matchers.length == 0) {
+      m_scanners = NO_SCANNERS;
+    }
+    else {
+      m_scanners = new BodyMatcher.Scanner[matchers.length];
+
+      for (int i = 0; i < matchers.length; ++i) {
+        m_scanners[i] = matchers[i].createScanner();
+      }
+    }
+  }
+
+  void update(final byte[] bytes, final int offset, final int length) {
+    m_length += length;
+    m_checksum.update(bytes, offset, length);
+
+    for (final BodyMatcher.Scanner scanner : m_scanners) {
+      scanner.update(bytes, offset, length);
+    }
+  }
+
+  /**
+   * The number of bytes in the body.
+   *
+   * @return The length.
+   */
+  public long getLength() {
+    return m_length;
+  }
+
+  /**
+   * The CRC-32 checksum of the body.
+   *
+   * @return The checksum.
+   */
+  public long getChecksum() {
+    return m_checksum.getValue();
+  }
+
+  /**
+   * Whether a matcher matched the body.
+   *
+   * @param matcher The matcher.
+   * @return {@code true} => the body matched.
+   * @throws IllegalArgumentException If the matcher was not used to read the
+   *  body.
+   */
+  public boolean isMatched(final BodyMatcher matcher) {
+    return getScanner(matcher).isMatched();
+  }
+
+  /**
+   * Return the value extracted by a matcher.
+   *
+   * @param matcher The matcher, created with {@link BodyMatcher#extract}.
+   * @return The value, or {@code null} if the body did not match.
+   * @throws IllegalArgumentException If the matcher was not used to read the
+   *  body.
+   */
+  public String getValue(final BodyMatcher matcher) {
+    return getScanner(matcher).getValue();
+  }
+
+  /**
+   * Return the required matchers that did not match the body.
+   *
+   * @return The failed matchers. Empty if the body is OK.
+   */
+  List<BodyMatcher> getFailedMatchers() {
+    final List<BodyMatcher> result = new ArrayList<BodyMatcher>();
+
+    for (final BodyMatcher.Scanner scanner : m_scanners) {
+      if (scanner.getMatcher().isRequired() && !scanner.isMatched()) {
+        result.add(scanner.getMatcher());
+      }
+    }
+
+    return result;
+  }
+
+  private BodyMatcher.Scanner getScanner(final BodyMatcher matcher) {
+    for (final BodyMatcher.Scanner scanner : m_scanners) {
+      if (scanner.getMatcher() == matcher) {
+        return scanner;
+      }
+    }
+
+    throw new IllegalArgumentException(
+      "Matcher '" + matcher + "' was not used to read the body");
+  }
+}
@@ -23,7 +23,6 @@
 
 package net.grinder.plugin.http.tcpproxyfilter;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -73,6 +72,12 @@ import HTTPClient.ParseException;
  */
 final class ConnectionHandlerImplementation implements ConnectionHandler {
 
+  /**
+   * Bodies larger than this are held in temporary files while they are
+   * recorded.
+   */
+  private static final int BODY_MEMORY_THRESHOLD = 0x10000;
+
   private static final Set<Enum> HTTP_METHODS_WITH_BODY =
     new HashSet<Enum>(Arrays.asList(
         new RequestType.Method.Enum[] {
@@ -457,6 +462,7 @@ final class ConnectionHandlerImplementation implements ConnectionHandler {
     public void end() {
       if (getBody() != null) {
         getBody().end();
+        getBody().discard();
       }
 
       if (getResponse() != null) {
@@ -464,6 +470,8 @@ final class ConnectionHandlerImplementation implements ConnectionHandler {
       }
 
       m_logger.debug("Request finished {}", m_requestXML);
+
+      m_httpRecording.requestFinished(m_requestXML);
     }
 
     private class RequestBody extends AbstractBody {
@@ -521,10 +529,9 @@ final class ConnectionHandlerImplementation implements ConnectionHandler {
           isMultipart = false;
         }
 
-        final byte[] bytes = toByteArray();
+        final int size = getSize();
 
-        if (bytes.length > 0x4000 && !isFormData ||
-            bytes.length > 0x40000) {
+        if (size > 0x4000 && !isFormData || size > 0x40000) {
           // Large amount of data, use a file.
           final File file = m_httpRecording.createBodyDataFileName();
 
@@ -532,7 +539,7 @@ final class ConnectionHandlerImplementation implements ConnectionHandler {
 
           try {
             dataStream = new FileOutputStream(file);
-            dataStream.write(bytes, 0, bytes.length);
+            writeTo(dataStream);
 
             body.setFile(file.getPath());
           }
@@ -544,6 +551,8 @@ final class ConnectionHandlerImplementation implements ConnectionHandler {
           }
         }
         else {
+          final byte[] bytes = toByteArray();
+
           // Basic handling of strings; should use content character encoding.
           final String iso88591String;
 
@@ -648,6 +657,7 @@ final class ConnectionHandlerImplementation implements ConnectionHandler {
     public void end() {
       if (getBody() != null) {
         getBody().end();
+        getBody().discard();
       }
     }
 
@@ -693,17 +703,16 @@ final class ConnectionHandlerImplementation implements ConnectionHandler {
         // text/html) but its better to catch too many tokens than too few.
 
         // This ought to respect content character encoding.
-        final String iso85591String;
+        final CharSequence iso85591Body = toCharSequence();
 
-        try {
-          iso85591String = new String(toByteArray(), "ISO8859_1");
-        }
-        catch (UnsupportedEncodingException e) {
-          throw new AssertionError(e);
+        if (iso85591Body != null) {
+          findTokens(iso85591Body);
         }
+      }
 
+      private void findTokens(CharSequence iso85591Body) {
         final Matcher uriMatcher =
-          m_regularExpressions.getHyperlinkURIPattern().matcher(iso85591String);
+          m_regularExpressions.getHyperlinkURIPattern().matcher(iso85591Body);
 
         while (uriMatcher.find()) {
           m_uriParser.parse(
@@ -729,7 +738,7 @@ final class ConnectionHandlerImplementation implements ConnectionHandler {
         }
 
         final Matcher hiddenParameterMatcher = m_regularExpressions
-            .getHiddenInputPattern().matcher(iso85591String);
+            .getHiddenInputPattern().matcher(iso85591Body);
 
         while (hiddenParameterMatcher.find()) {
           final AttributeStringParser.AttributeMap map =
@@ -749,22 +758,58 @@ final class ConnectionHandlerImplementation implements ConnectionHandler {
     }
   }
 
-  private abstract static class AbstractBody {
-    private final ByteArrayOutputStream m_entityBodyByteStream =
-      new ByteArrayOutputStream();
+  private abstract class AbstractBody {
+    private final SpillingOutputStream m_entityBodyByteStream =
+      new SpillingOutputStream(BODY_MEMORY_THRESHOLD);
 
     public void write(byte[] bytes, int start, int length) {
-      m_entityBodyByteStream.write(bytes, start, length);
+      try {
+        m_entityBodyByteStream.write(bytes, start, length);
+      }
+      catch (IOException e) {
+        m_logger.error("Failed to store body data", e);
+      }
     }
 
     public abstract void end();
 
+    public final void discard() {
+      m_entityBodyByteStream.close();
+    }
+
     protected final int getSize() {
       return m_entityBodyByteStream.size();
     }
 
     protected final byte[] toByteArray() {
-      return m_entityBodyByteStream.toByteArray();
+      try {
+        return m_entityBodyByteStream.toByteArray();
+      }
+      catch (IOException e) {
+        m_logger.error("Failed to read body data", e);
+        return new byte[0];
+      }
+    }
+
+    protected final void writeTo(FileOutputStream out) throws IOException {
+      m_entityBodyByteStream.writeTo(out);
+    }
+
+    /**
+     * View the body as ISO 8859-1 text. Large bodies are mapped from their
+     * temporary file rather than read into the heap.
+     *
+     * @return The text, or {@code null} if the body could not be read.
+     */
+    protected final CharSequence toCharSequence() {
+      try {
+        return new ISO88591CharSequence(
+          m_entityBodyByteStream.toByteBuffer());
+      }
+      catch (IOException e) {
+        m_logger.error("Failed to read body data", e);
+        return null;
+      }
     }
   }
 }
@@ -61,6 +61,16 @@ public interface HTTPRecording {
   RequestType addRequest(
     ConnectionDetails connectionDetails, String method, String relativeURI);
 
+  /**
+   * Called when a request and its response are complete. The recording may
+   * write the request to disk, so the caller should not change it further.
+   *
+   * @param request
+   *          A request previously returned by
+   *          {@link #addRequest(ConnectionDetails, String, String)}.
+   */
+  void requestFinished(RequestType request);
+
   /**
    * Called when a response message starts. Because the test script represents a
    * single thread of control we need to calculate the sleep deltas using the
@@ -0,0 +1,53 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.plugin.http.tcpproxyfilter;
+
+import java.io.File;
+import java.io.IOException;
+
+
+/**
+ * An {@link HTTPRecordingResultProcessor} that can read the result of an
+ * {@link HTTPRecordingImplementation} from the file to which it was written.
+ *
+ * <p>
+ * {@link HTTPRecordingImplementation} prefers this method, so the recording
+ * need not be parsed into memory. Other processors are passed a parsed
+ * document.
+ * </p>
+ *
+ * @author Philip Aston
+ */
+public interface HTTPRecordingFileProcessor
+  extends HTTPRecordingResultProcessor {
+
+  /**
+   * Produce output.
+   *
+   * @param result
+   *          A file containing the recording as an XML
+   *          {@code http-recording} document. The file may be removed after
+   *          this method returns.
+   * @throws IOException If an output error occurred.
+   */
+  void process(File result) throws IOException;
+}
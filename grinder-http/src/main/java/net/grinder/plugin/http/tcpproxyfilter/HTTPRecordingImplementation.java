@@ -22,22 +22,32 @@
 package net.grinder.plugin.http.tcpproxyfilter;
 
 import static java.util.Collections.emptySet;
+import static java.util.Collections.singletonMap;
 
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.HttpURLConnection;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import javax.xml.namespace.QName;
+
+import net.grinder.common.Closer;
 import net.grinder.common.GrinderBuild;
 import net.grinder.plugin.http.xml.BaseURIType;
 import net.grinder.plugin.http.xml.CommonHeadersType;
@@ -57,7 +67,9 @@ import net.grinder.tools.tcpproxy.EndPoint;
 import net.grinder.util.Pair;
 import net.grinder.util.http.URIParser;
 
+import org.apache.xmlbeans.XmlException;
 import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
 import org.picocontainer.Disposable;
 import org.slf4j.Logger;
 
@@ -72,6 +84,11 @@ import HTTPClient.URI;
  */
 public class HTTPRecordingImplementation implements HTTPRecording, Disposable {
 
+  private static final QName RECORDING_ELEMENT =
+    HttpRecordingDocument.type.getDocumentElementName();
+
+  private static final String DEFAULT_HEADERS_ID = "defaultHeaders";
+
   private final HTTPRecordingParameters m_parameters;
   private final HttpRecordingDocument m_recordingDocument =
     HttpRecordingDocument.Factory.newInstance();
@@ -292,253 +309,100 @@ public class HTTPRecordingImplementation implements HTTPRecording, Disposable {
     return new File("http-data-" + m_bodyFileIDGenerator.next() + ".dat");
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void requestFinished(RequestType request) {
+    m_requestList.finished(request);
+  }
+
   /**
    * Called after the component has been stopped.
    */
   public void dispose() {
-    final HttpRecordingDocument result;
+    final HTTPRecordingType recording;
 
     synchronized (m_recordingDocument) {
-      result = (HttpRecordingDocument)m_recordingDocument.copy();
-    }
-
-    final HTTPRecordingType httpRecording = result.getHttpRecording();
-    m_requestList.record(httpRecording);
-
-    final XmlObject[] requestXmlObjects = httpRecording.selectPath(
-        "declare namespace ns=" +
-        "'http://grinder.sourceforge.net/tcpproxy/http/1.0';" +
-        "$this//ns:request");
-
-    final List<RequestType> requests =
-        new ArrayList<RequestType>(requestXmlObjects.length);
-
-    for (XmlObject o : requestXmlObjects) {
-      requests.add((RequestType) o);
+      recording =
+        (HTTPRecordingType)m_recordingDocument.getHttpRecording().copy();
     }
 
-    extractCommonHeaders(requests, httpRecording);
-
-    // Find default headers that are present in all common headers, or
-    // request headers that don't extend common headers.
-
-    final CommonHeadersType[] commonHeaders =
-        httpRecording.getCommonHeadersArray();
+    File file = null;
 
-    final List<HeadersType> defaultHeaderSources =
-        new ArrayList<HeadersType>(commonHeaders.length);
-
-    for (HeadersType header : commonHeaders) {
-      defaultHeaderSources.add(header);
-    }
-
-    for (RequestType request : requests) {
-      final HeadersType headers = request.getHeaders();
-
-      if (!headers.isSetExtends()) {
-        defaultHeaderSources.add(headers);
-      }
-    }
-
-    final Set<Pair<String, String>> defaultHeaders =
-        findSharedHeaders(defaultHeaderSources);
-
-    if (defaultHeaders.size() > 0) {
-      final List<CommonHeadersType> newCommonHeaders =
-        new ArrayList<CommonHeadersType>(commonHeaders.length + 1);
+    try {
+      file = File.createTempFile("grinder-recording", ".xml");
+      file.deleteOnExit();
 
-      final CommonHeadersType defaultHeadersXML =
-          CommonHeadersType.Factory.newInstance();
-      defaultHeadersXML.setHeadersId("defaultHeaders");
-      newCommonHeaders.add(defaultHeadersXML);
+      m_requestList.record(recording, file);
 
-      for (Pair<String, String> defaultHeader : defaultHeaders) {
-        final HeaderType header = defaultHeadersXML.addNewHeader();
-        header.setName(defaultHeader.getFirst());
-        header.setValue(defaultHeader.getSecond());
+      if (m_resultProcessor instanceof HTTPRecordingFileProcessor) {
+        ((HTTPRecordingFileProcessor)m_resultProcessor).process(file);
       }
-
-      // There can be at most one CommonHeaders that is the same as the
-      // default headers. If we find it, we remove it.
-      String emptyCommonHeadersID = null;
-
-      for (CommonHeadersType headers : commonHeaders) {
-        removeDefaultHeaders(defaultHeaders,
-                             defaultHeadersXML.getHeadersId(),
-                             headers);
-
-        if (headers.sizeOfHeaderArray() == 0) {
-          assert emptyCommonHeadersID == null;
-          emptyCommonHeadersID = headers.getHeadersId();
-        }
-        else {
-          newCommonHeaders.add(headers);
-        }
-      }
-
-      httpRecording.setCommonHeadersArray(
-        newCommonHeaders.toArray(
-          new CommonHeadersType[newCommonHeaders.size()]));
-
-      for (RequestType request : requests) {
-        final HeadersType headers = request.getHeaders();
-
-        if (!headers.isSetExtends()) {
-          removeDefaultHeaders(defaultHeaders,
-                               defaultHeadersXML.getHeadersId(),
-                               headers);
-        }
-        else {
-          // Fix up any references to the CommonHeaders that duplicated the
-          // defaultHeaders.
-          if (headers.getExtends().equals(emptyCommonHeadersID)) {
-            headers.setExtends(defaultHeadersXML.getHeadersId());
-          }
-        }
+      else {
+        m_resultProcessor.process(HttpRecordingDocument.Factory.parse(file));
       }
     }
-
-    try {
-      m_resultProcessor.process(result);
-    }
     catch (IOException e) {
       m_logger.error(e.getMessage(), e);
     }
+    catch (XmlException e) {
+      m_logger.error(e.getMessage(), e);
+    }
+    finally {
+      if (file != null) {
+        file.delete();
+      }
+    }
   }
 
-  private void extractCommonHeaders(List<RequestType> requests,
-                                    HTTPRecordingType httpRecording) {
-
-    // Build identity map of Request to (Common, Uncommon) and map containing
-    // the number of times each set of common headers is referenced.
-    final Map<RequestType, Pair<CommonHeadersType, HeadersType>>
-      parsedRequests =
-      new IdentityHashMap<RequestType, Pair<CommonHeadersType, HeadersType>>();
-
-    final Map<String, Integer> commonHeadersCountByValue =
-        new HashMap<String, Integer>();
-
-    final Map<String, CommonHeadersType> uniqueCommonHeaders =
-        new HashMap<String, CommonHeadersType>();
+  private Pair<CommonHeadersType, HeadersType>
+    splitHeaders(RequestType request) {
 
-    for (RequestType request : requests) {
-      final CommonHeadersType commonHeaders =
-          CommonHeadersType.Factory.newInstance();
+    final CommonHeadersType commonHeaders =
+        CommonHeadersType.Factory.newInstance();
 
-      final HeadersType uncommonHeaders = HeadersType.Factory.newInstance();
+    final HeadersType uncommonHeaders = HeadersType.Factory.newInstance();
 
-      final XmlObject[] children = request.getHeaders().selectPath("./*");
+    final XmlObject[] children = request.getHeaders().selectPath("./*");
 
-      for (int i = 0; i < children.length; ++i) {
-        if (children[i] instanceof HeaderType) {
-          final HeaderType header = (HeaderType)children[i];
+    for (int i = 0; i < children.length; ++i) {
+      if (children[i] instanceof HeaderType) {
+        final HeaderType header = (HeaderType)children[i];
 
-          if (m_parameters.isCommonHeader(header.getName())) {
-            commonHeaders.addNewHeader().set(header);
-          }
-          else {
-            uncommonHeaders.addNewHeader().set(header);
-          }
+        if (m_parameters.isCommonHeader(header.getName())) {
+          commonHeaders.addNewHeader().set(header);
         }
         else {
-          uncommonHeaders.addNewAuthorization().set(children[i]);
+          uncommonHeaders.addNewHeader().set(header);
         }
       }
-
-      // Key that ignores ID.
-      final String key =
-        Arrays.asList(commonHeaders.getHeaderArray()).toString();
-
-      final CommonHeadersType existing = uniqueCommonHeaders.get(key);
-
-      final CommonHeadersType theCommonHeaders;
-
-      if (existing != null) {
-        theCommonHeaders = existing;
-      }
       else {
-        uniqueCommonHeaders.put(key, commonHeaders);
-        theCommonHeaders = commonHeaders;
+        uncommonHeaders.addNewAuthorization().set(children[i]);
       }
-
-      parsedRequests.put(request, Pair.of(theCommonHeaders, uncommonHeaders));
-
-      final Integer count = commonHeadersCountByValue.get(key);
-      final int oldCount = count != null ? count.intValue() : 0;
-      commonHeadersCountByValue.put(key, oldCount + 1);
     }
 
-    // Now extract common headers if more than one request refers to them.
-    final IntGenerator idGenerator = new IntGenerator();
-
-    for (RequestType request : requests) {
-      final Pair<CommonHeadersType, HeadersType> pair =
-          parsedRequests.get(request);
-
-      final CommonHeadersType commonHeaders = pair.getFirst();
-      final HeadersType uncommonHeaders = pair.getSecond();
-
-      final String key =
-          Arrays.asList(commonHeaders.getHeaderArray()).toString();
-
-      if (commonHeaders.sizeOfHeaderArray() > 0 &&
-          commonHeadersCountByValue.get(key).intValue() > 1) {
-        if (commonHeaders.getHeadersId() == null) {
-          commonHeaders.setHeadersId("headers" + idGenerator.next());
-
-          httpRecording.addNewCommonHeaders().set(commonHeaders);
-        }
-
-        uncommonHeaders.setExtends(commonHeaders.getHeadersId());
-
-        request.setHeaders(uncommonHeaders);
-      }
-    }
+    return Pair.of(commonHeaders, uncommonHeaders);
   }
 
   /**
-   * Find the intersection of (matching name and value) from a set of headers.
-   * If there are less than two sets of headers in headersList, the result
-   * is empty.
-   *
-   * @param headersList
-   *          Headers to search.
-   * @return Shared headers.
+   * Key that ignores ID.
    */
-  private static Set<Pair<String, String>>
-    findSharedHeaders(List<HeadersType> headersList) {
-
-    if (headersList.size() < 2) {
-      return emptySet();
-    }
-
-    final HeaderType[] oneHeaders =
-        headersList.remove(headersList.size() - 1).getHeaderArray();
-
-    final Set<Pair<String, String>> sharedHeaders =
-        new HashSet<Pair<String, String>>(oneHeaders.length);
-
-    for (HeaderType header : oneHeaders) {
-      sharedHeaders.add(Pair.of(header.getName(), header.getValue()));
-    }
-
-    for (HeadersType headers : headersList) {
-      final HeaderType[] h = headers.getHeaderArray();
-
-      final Set<Pair<String, String>> sharedHeadersCopy =
-          new HashSet<Pair<String, String>>(sharedHeaders);
+  private static String commonHeadersKey(CommonHeadersType commonHeaders) {
+    return Arrays.asList(commonHeaders.getHeaderArray()).toString();
+  }
 
-      for (int j = 0; j < h.length; ++j) {
-        final String name = h[j].getName();
-        final String value = h[j].getValue();
+  private static Set<Pair<String, String>> headerPairs(HeadersType headers) {
+    final HeaderType[] headerArray = headers.getHeaderArray();
 
-        sharedHeadersCopy.remove(Pair.of(name, value));
-      }
+    final Set<Pair<String, String>> result =
+        new HashSet<Pair<String, String>>(headerArray.length);
 
-      sharedHeaders.removeAll(sharedHeadersCopy);
+    for (HeaderType header : headerArray) {
+      result.add(Pair.of(header.getName(), header.getValue()));
     }
 
-    return sharedHeaders;
+    return result;
   }
 
   /**
@@ -610,70 +474,466 @@ public class HTTPRecordingImplementation implements HTTPRecording, Disposable {
     }
   }
 
+  /**
+   * The requests, in the order they were started. Each request is moved to
+   * a {@link RequestJournal} on disk as soon as it has finished, so the heap
+   * only holds requests that are in progress. The journal puts the requests
+   * back into order when they are replayed.
+   */
   private final class RequestList {
-    private final List<RequestType> m_requests = new ArrayList<RequestType>();
-    private final Pattern m_resourcePathPattern = Pattern.compile(
-      ".*(?:\\.css|\\.gif|\\.ico|\\.jpe?g|\\.js|\\.png)(?:\\?.*)?$",
-      Pattern.CASE_INSENSITIVE);
+    private final List<PendingRequest> m_pending =
+      new LinkedList<PendingRequest>();
+    private final RequestJournal m_journal = new RequestJournal();
+    private long m_nextSequence = 0;
+    private boolean m_journalFailed = false;
 
     public RequestType add() {
       final RequestType request = RequestType.Factory.newInstance();
 
-      synchronized (m_requests) {
-        m_requests.add(request);
+      synchronized (this) {
+        m_pending.add(new PendingRequest(m_nextSequence++, request));
       }
 
       return request;
     }
 
-    public void record(HTTPRecordingType httpRecording) {
-      synchronized (m_requests) {
-        m_logger.debug("Recording {} requests", m_requests.size());
+    public synchronized void finished(RequestType request) {
+      if (m_journalFailed) {
+        return;
+      }
 
-        String lastBaseURI = null;
-        boolean lastResponseWasRedirect = false;
+      final Iterator<PendingRequest> iterator = m_pending.iterator();
 
-        PageType currentPage = null;
+      while (iterator.hasNext()) {
+        final PendingRequest pending = iterator.next();
 
-        for (RequestType request : m_requests) {
-          final ResponseType response = request.getResponse();
+        if (pending.getRequest() == request) {
+          try {
+            m_journal.append(pending.getSequence(), request);
+            iterator.remove();
+          }
+          catch (IOException e) {
+            m_logger.error(
+              "Failed to write recording journal, keeping requests in memory",
+              e);
+            m_journalFailed = true;
+          }
 
-          if (response == null) {
-            m_logger.debug("Skipping due to no response: {}", request);
-            continue;
+          break;
+        }
+      }
+    }
+
+    /**
+     * Pass every request to the listener in the order they were started,
+     * merging the journal with the requests that are still in memory.
+     */
+    private void replay(final RequestJournal.Listener listener)
+      throws IOException {
+
+      final List<PendingRequest> pending =
+        new ArrayList<PendingRequest>(m_pending);
+
+      final int[] next = { 0 };
+
+      m_journal.replay(new RequestJournal.Listener() {
+          @Override public void request(long sequence, RequestType request)
+            throws IOException {
+
+            next[0] = replayPending(pending, next[0], sequence, listener);
+            listener.request(sequence, request);
           }
+        });
 
-          synchronized (m_recordingDocument) {
-            // Crude but effective pagination heuristics.
-            if (!request.getUri().getExtends().equals(lastBaseURI) ||
-                request.isSetBody() ||
-                !(m_resourcePathPattern.matcher(request.getUri().getUnparsed())
-                     .matches() ||
-                  lastResponseWasRedirect) ||
-                currentPage == null) {
-              currentPage = httpRecording.addNewPage();
-            }
+      replayPending(pending, next[0], Long.MAX_VALUE, listener);
+    }
 
-            lastBaseURI = request.getUri().getExtends();
+    private int replayPending(List<PendingRequest> pending,
+                              int start,
+                              long before,
+                              RequestJournal.Listener listener)
+      throws IOException {
 
-            switch (response.getStatusCode()) {
-              case HttpURLConnection.HTTP_MOVED_PERM:
-              case HttpURLConnection.HTTP_MOVED_TEMP:
-              case 307:
-                lastResponseWasRedirect = true;
+      int i = start;
 
-                request.setAnnotation(
-                  "Expecting " + response.getStatusCode() +
-                  " '" + response.getReasonPhrase() + "'");
-                break;
-              default:
-                lastResponseWasRedirect = false;
-            }
+      for (; i < pending.size() && pending.get(i).getSequence() < before; ++i) {
+        final PendingRequest p = pending.get(i);
+        listener.request(p.getSequence(), (RequestType)p.getRequest().copy());
+      }
+
+      return i;
+    }
+
+    /**
+     * Write the recording to a file. The requests are read twice, once to
+     * find the common headers and once to write the pages, so that only a
+     * page of requests is held in memory at a time.
+     */
+    public synchronized void record(HTTPRecordingType recording, File file)
+      throws IOException {
+
+      m_logger.debug("Recording {} requests",
+                     m_journal.size() + m_pending.size());
+
+      final CommonHeadersAnalysis commonHeaders = new CommonHeadersAnalysis();
+
+      replay(commonHeaders);
+
+      final Writer writer =
+        new BufferedWriter(
+          new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+
+      try {
+        final RecordingWriter recordingWriter =
+          new RecordingWriter(writer, commonHeaders);
+
+        recordingWriter.start(recording);
+        replay(recordingWriter);
+        recordingWriter.end();
+
+        writer.close();
+      }
+      finally {
+        Closer.close(writer);
+        m_journal.close();
+      }
+    }
+  }
+
+  private static final class PendingRequest {
+    private final long m_sequence;
+    private final RequestType m_request;
+
+    public PendingRequest(long sequence, RequestType request) {
+      m_sequence = sequence;
+      m_request = request;
+    }
 
-            currentPage.addNewRequest().set(request);
+    public long getSequence() {
+      return m_sequence;
+    }
+
+    public RequestType getRequest() {
+      return m_request;
+    }
+  }
+
+  /**
+   * First pass over the requests. Finds the sets of common headers that are
+   * used by more than one request, and the default headers shared by every
+   * request.
+   */
+  private final class CommonHeadersAnalysis
+    implements RequestJournal.Listener {
+
+    private final Map<String, CommonHeadersCandidate> m_candidates =
+      new LinkedHashMap<String, CommonHeadersCandidate>();
+
+    private final SharedHeaders m_defaultHeaders = new SharedHeaders();
+
+    private final List<CommonHeadersType> m_commonHeaders =
+      new ArrayList<CommonHeadersType>();
+
+    private boolean m_haveDefaultHeaders;
+
+    @Override public void request(long sequence, RequestType request) {
+      if (request.getResponse() == null) {
+        return;
+      }
+
+      final CommonHeadersType commonHeaders =
+        splitHeaders(request).getFirst();
+
+      if (commonHeaders.sizeOfHeaderArray() == 0) {
+        // Can't extend common headers.
+        m_defaultHeaders.add(headerPairs(request.getHeaders()));
+        return;
+      }
+
+      final String key = commonHeadersKey(commonHeaders);
+
+      final CommonHeadersCandidate existing = m_candidates.get(key);
+
+      if (existing != null) {
+        existing.addReference();
+      }
+      else {
+        m_candidates.put(
+          key,
+          new CommonHeadersCandidate(commonHeaders,
+                                     headerPairs(request.getHeaders())));
+      }
+    }
+
+    /**
+     * Called after all the requests have been seen. Extract common headers if
+     * more than one request refers to them, then find default headers that
+     * are present in all common headers, or request headers that don't
+     * extend common headers.
+     */
+    public void extract() {
+      final IntGenerator idGenerator = new IntGenerator();
+
+      final List<CommonHeadersCandidate> extracted =
+        new ArrayList<CommonHeadersCandidate>();
+
+      for (CommonHeadersCandidate candidate : m_candidates.values()) {
+        if (candidate.isShared()) {
+          final CommonHeadersType headers = candidate.getHeaders();
+          headers.setHeadersId("headers" + idGenerator.next());
+          candidate.setReferenceID(headers.getHeadersId());
+          extracted.add(candidate);
+
+          m_defaultHeaders.add(headerPairs(headers));
+        }
+        else {
+          m_defaultHeaders.add(candidate.getFirstReferenceHeaders());
+        }
+      }
+
+      final Set<Pair<String, String>> defaultHeaders = m_defaultHeaders.get();
+      m_haveDefaultHeaders = defaultHeaders.size() > 0;
+
+      if (m_haveDefaultHeaders) {
+        final CommonHeadersType defaultHeadersXML =
+            CommonHeadersType.Factory.newInstance();
+        defaultHeadersXML.setHeadersId(DEFAULT_HEADERS_ID);
+        m_commonHeaders.add(defaultHeadersXML);
+
+        for (Pair<String, String> defaultHeader : defaultHeaders) {
+          final HeaderType header = defaultHeadersXML.addNewHeader();
+          header.setName(defaultHeader.getFirst());
+          header.setValue(defaultHeader.getSecond());
+        }
+
+        // There can be at most one CommonHeaders that is the same as the
+        // default headers. If we find it, we drop it and refer to the
+        // default headers instead.
+        for (CommonHeadersCandidate candidate : extracted) {
+          final CommonHeadersType headers = candidate.getHeaders();
+
+          removeDefaultHeaders(defaultHeaders, DEFAULT_HEADERS_ID, headers);
+
+          if (headers.sizeOfHeaderArray() == 0) {
+            candidate.setReferenceID(DEFAULT_HEADERS_ID);
+          }
+          else {
+            m_commonHeaders.add(headers);
           }
         }
       }
+      else {
+        for (CommonHeadersCandidate candidate : extracted) {
+          m_commonHeaders.add(candidate.getHeaders());
+        }
+      }
+    }
+
+    public List<CommonHeadersType> getCommonHeaders() {
+      return m_commonHeaders;
+    }
+
+    /**
+     * Rewrite a request's headers to refer to the extracted common headers.
+     *
+     * @param request The request. Mutated in place.
+     */
+    public void apply(RequestType request) {
+      final Pair<CommonHeadersType, HeadersType> split = splitHeaders(request);
+
+      final CommonHeadersCandidate candidate =
+        m_candidates.get(commonHeadersKey(split.getFirst()));
+
+      if (candidate != null && candidate.isShared()) {
+        final HeadersType uncommonHeaders = split.getSecond();
+        uncommonHeaders.setExtends(candidate.getReferenceID());
+        request.setHeaders(uncommonHeaders);
+      }
+      else if (m_haveDefaultHeaders) {
+        removeDefaultHeaders(m_defaultHeaders.get(),
+                             DEFAULT_HEADERS_ID,
+                             request.getHeaders());
+      }
+    }
+  }
+
+  private static final class CommonHeadersCandidate {
+    private final CommonHeadersType m_headers;
+    private Set<Pair<String, String>> m_firstReferenceHeaders;
+    private int m_references = 1;
+    private String m_referenceID;
+
+    public CommonHeadersCandidate(
+      CommonHeadersType headers,
+      Set<Pair<String, String>> firstReferenceHeaders) {
+      m_headers = headers;
+      m_firstReferenceHeaders = firstReferenceHeaders;
+    }
+
+    public void addReference() {
+      ++m_references;
+
+      // Only needed if there is a single reference.
+      m_firstReferenceHeaders = null;
+    }
+
+    public boolean isShared() {
+      return m_references > 1;
+    }
+
+    public CommonHeadersType getHeaders() {
+      return m_headers;
+    }
+
+    public Set<Pair<String, String>> getFirstReferenceHeaders() {
+      return m_firstReferenceHeaders;
+    }
+
+    public void setReferenceID(String referenceID) {
+      m_referenceID = referenceID;
+    }
+
+    public String getReferenceID() {
+      return m_referenceID;
+    }
+  }
+
+  /**
+   * The intersection (matching name and value) of a number of sets of
+   * headers. If there are less than two sets of headers, the result is empty.
+   */
+  private static final class SharedHeaders {
+    private Set<Pair<String, String>> m_shared;
+    private int m_numberOfSources;
+
+    public void add(Set<Pair<String, String>> headers) {
+      if (m_shared == null) {
+        m_shared = new HashSet<Pair<String, String>>(headers);
+      }
+      else {
+        m_shared.retainAll(headers);
+      }
+
+      ++m_numberOfSources;
+    }
+
+    public Set<Pair<String, String>> get() {
+      if (m_numberOfSources < 2) {
+        return emptySet();
+      }
+
+      return m_shared;
+    }
+  }
+
+  /**
+   * Second pass over the requests. Writes the recording document, grouping
+   * the requests into pages.
+   */
+  private final class RecordingWriter implements RequestJournal.Listener {
+    private final Pattern m_resourcePathPattern = Pattern.compile(
+      ".*(?:\\.css|\\.gif|\\.ico|\\.jpe?g|\\.js|\\.png)(?:\\?.*)?$",
+      Pattern.CASE_INSENSITIVE);
+
+    private final Writer m_writer;
+    private final CommonHeadersAnalysis m_commonHeaders;
+
+    private String m_lastBaseURI = null;
+    private boolean m_lastResponseWasRedirect = false;
+    private PageType m_currentPage = null;
+
+    public RecordingWriter(Writer writer,
+                           CommonHeadersAnalysis commonHeaders) {
+      m_writer = writer;
+      m_commonHeaders = commonHeaders;
+    }
+
+    public void start(HTTPRecordingType recording) throws IOException {
+      m_commonHeaders.extract();
+
+      m_writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+      m_writer.write("<" + RECORDING_ELEMENT.getLocalPart() +
+                     " xmlns=\"" + RECORDING_ELEMENT.getNamespaceURI() +
+                     "\">\n");
+
+      write(recording.getMetadata(), "metadata");
+
+      for (CommonHeadersType headers : m_commonHeaders.getCommonHeaders()) {
+        write(headers, "common-headers");
+      }
+
+      for (BaseURIType baseURI : recording.getBaseUriArray()) {
+        write(baseURI, "base-uri");
+      }
+
+      for (TokenType token : recording.getTokenArray()) {
+        write(token, "token");
+      }
+    }
+
+    @Override public void request(long sequence, RequestType request)
+      throws IOException {
+      final ResponseType response = request.getResponse();
+
+      if (response == null) {
+        m_logger.debug("Skipping due to no response: {}", request);
+        return;
+      }
+
+      m_commonHeaders.apply(request);
+
+      // Crude but effective pagination heuristics.
+      if (!request.getUri().getExtends().equals(m_lastBaseURI) ||
+          request.isSetBody() ||
+          !(m_resourcePathPattern.matcher(request.getUri().getUnparsed())
+               .matches() ||
+            m_lastResponseWasRedirect) ||
+          m_currentPage == null) {
+        writeCurrentPage();
+        m_currentPage = PageType.Factory.newInstance();
+      }
+
+      m_lastBaseURI = request.getUri().getExtends();
+
+      switch (response.getStatusCode()) {
+        case HttpURLConnection.HTTP_MOVED_PERM:
+        case HttpURLConnection.HTTP_MOVED_TEMP:
+        case 307:
+          m_lastResponseWasRedirect = true;
+
+          request.setAnnotation(
+            "Expecting " + response.getStatusCode() +
+            " '" + response.getReasonPhrase() + "'");
+          break;
+        default:
+          m_lastResponseWasRedirect = false;
+      }
+
+      m_currentPage.addNewRequest().set(request);
+    }
+
+    public void end() throws IOException {
+      writeCurrentPage();
+
+      m_writer.write("</" + RECORDING_ELEMENT.getLocalPart() + ">\n");
+    }
+
+    private void writeCurrentPage() throws IOException {
+      if (m_currentPage != null) {
+        write(m_currentPage, "page");
+        m_currentPage = null;
+      }
+    }
+
+    private void write(XmlObject xml, String elementName) throws IOException {
+      final XmlOptions options = new XmlOptions();
+      options.setSaveSyntheticDocumentElement(
+        new QName(RECORDING_ELEMENT.getNamespaceURI(), elementName));
+      options.setSaveImplicitNamespaces(
+        singletonMap("", RECORDING_ELEMENT.getNamespaceURI()));
+
+      m_writer.write(xml.xmlText(options));
+      m_writer.write("\n");
     }
   }
 
@@ -30,6 +30,12 @@ import net.grinder.plugin.http.xml.HttpRecordingDocument;
  * Something that can process the result of an
  * {@link HTTPRecordingImplementation}.
  *
+ * <p>
+ * The recording is passed as a document held in memory. Implement
+ * {@link HTTPRecordingFileProcessor} to receive large recordings without
+ * parsing them.
+ * </p>
+ *
  * @author Philip Aston
  */
 public interface HTTPRecordingResultProcessor {
@@ -0,0 +1,91 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.plugin.http.tcpproxyfilter;
+
+import java.nio.ByteBuffer;
+
+
+/**
+ * Presents a buffer of ISO 8859-1 bytes as a {@link CharSequence}, so that
+ * regular expressions can be applied to it without copying it into a
+ * {@code String}.
+ *
+ * @author Philip Aston
+ */
+final class ISO88591CharSequence implements CharSequence {
+
+  private final ByteBuffer m_bytes;
+
+  /**
+   * Constructor.
+   *
+   * @param bytes
+   *          The bytes. Characters are read from the buffer's position up to
+   *          its limit. The buffer's position and limit are not changed.
+   */
+  public ISO88591CharSequence(ByteBuffer bytes) {
+    m_bytes = bytes.slice();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public int length() {
+    return m_bytes.limit();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public char charAt(int index) {
+    return (char) (m_bytes.get(index) & 0xFF);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public CharSequence subSequence(int start, int end) {
+    if (start < 0 || end > length() || start > end) {
+      throw new IndexOutOfBoundsException(
+        "Invalid range [" + start + ", " + end + ")");
+    }
+
+    final ByteBuffer bytes = m_bytes.duplicate();
+    bytes.limit(end);
+    bytes.position(start);
+
+    return new ISO88591CharSequence(bytes);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override public String toString() {
+    final char[] chars = new char[length()];
+
+    for (int i = 0; i < chars.length; ++i) {
+      chars[i] = charAt(i);
+    }
+
+    return new String(chars);
+  }
+}
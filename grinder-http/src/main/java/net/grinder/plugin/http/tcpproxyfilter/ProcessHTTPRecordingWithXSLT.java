@@ -29,6 +29,7 @@ import java.io.InputStream;
 import java.io.PrintWriter;
 
 import javax.xml.transform.ErrorListener;
+import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
@@ -47,7 +48,7 @@ import org.slf4j.Logger;
  * @author Philip Aston
  */
 public class ProcessHTTPRecordingWithXSLT implements
-                                         HTTPRecordingResultProcessor {
+                                         HTTPRecordingFileProcessor {
 
   /**
    * Name of System property that specifies the style sheet resource to be
@@ -123,6 +124,22 @@ public class ProcessHTTPRecordingWithXSLT implements
     this(styleSheet.open(), output, logger);
   }
 
+  /**
+   * Produce output.
+   *
+   * @param result
+   *          A file containing the recording.
+   * @throws IOException
+   *           If an output error occurred.
+   */
+  public void process(final File result) throws IOException {
+    transform(new SourceFactory() {
+        public Source create() {
+          return new StreamSource(result);
+        }
+      });
+  }
+
   /**
    * Produce output.
    *
@@ -131,7 +148,24 @@ public class ProcessHTTPRecordingWithXSLT implements
    * @throws IOException
    *           If an output error occurred.
    */
-  public void process(HttpRecordingDocument result) throws IOException {
+  public void process(final HttpRecordingDocument result) throws IOException {
+    transform(new SourceFactory() {
+        public Source create() {
+          return new StAXSource(result.newXMLStreamReader());
+        }
+      });
+  }
+
+  /**
+   * Creates the input to the transformation. The source is only created once
+   * the style sheet has been loaded, so that style sheet problems are
+   * reported first.
+   */
+  private interface SourceFactory {
+    Source create();
+  }
+
+  private void transform(SourceFactory sourceFactory) throws IOException {
 
     try {
       final Transformer transformer = m_transformerFactory
@@ -140,7 +174,7 @@ public class ProcessHTTPRecordingWithXSLT implements
       // One might expect this to be the default, but it's not.
       transformer.setErrorListener(m_transformerFactory.getErrorListener());
 
-      transformer.transform(new StAXSource(result.newXMLStreamReader()),
+      transformer.transform(sourceFactory.create(),
                             new StreamResult(m_output));
 
       m_output.println();
@@ -22,14 +22,11 @@
 package net.grinder.plugin.http.tcpproxyfilter;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.InputStream;
 import java.io.PrintWriter;
 
 import net.grinder.common.GrinderException;
 import net.grinder.plugin.http.tcpproxyfilter.ProcessHTTPRecordingWithXSLT.StyleSheetFile;
-import net.grinder.plugin.http.xml.HttpRecordingDocument;
 import net.grinder.util.AbstractMainClass;
 
 import org.slf4j.Logger;
@@ -72,7 +69,7 @@ public final class ProcessRecording extends AbstractMainClass {
   }
 
   private final ProcessHTTPRecordingWithXSLT m_processor;
-  private final InputStream m_recordingStream;
+  private final File m_recording;
 
   private ProcessRecording(String[] arguments, PrintWriter out, Logger logger)
     throws GrinderException {
@@ -80,7 +77,12 @@ public final class ProcessRecording extends AbstractMainClass {
     super(logger, USAGE);
 
     try {
-      m_recordingStream = new FileInputStream(arguments[0]);
+      m_recording = new File(arguments[0]);
+
+      if (!m_recording.canRead()) {
+        throw new FileNotFoundException(m_recording + " cannot be read");
+      }
+
       if (arguments.length == 1) {
         m_processor = new ProcessHTTPRecordingWithXSLT(out, logger);
       }
@@ -104,11 +106,7 @@ public final class ProcessRecording extends AbstractMainClass {
   }
 
   private void run() throws Exception {
-
-    final HttpRecordingDocument recording =
-      HttpRecordingDocument.Factory.parse(m_recordingStream);
-
-    m_processor.process(recording);
+    m_processor.process(m_recording);
   }
 
 }
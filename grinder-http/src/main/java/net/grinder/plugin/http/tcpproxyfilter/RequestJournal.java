@@ -0,0 +1,166 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.plugin.http.tcpproxyfilter;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Map.Entry;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import net.grinder.common.Closer;
+import net.grinder.plugin.http.xml.RequestType;
+
+import org.apache.xmlbeans.XmlException;
+
+
+/**
+ * Append-only store of recorded requests, held in a temporary file.
+ *
+ * <p>
+ * Each request is stored as a length-prefixed XML fragment. Requests can be
+ * appended in any order, and are replayed in order of their sequence numbers;
+ * only the sequence number and file offset of each request is held in memory.
+ * The file is created when the first request is appended and removed when
+ * the JVM exits. Not thread safe.
+ * </p>
+ *
+ * @author Philip Aston
+ */
+final class RequestJournal {
+
+  private File m_file;
+  private DataOutputStream m_output;
+  private long m_length;
+
+  private final SortedMap<Long, Long> m_offsets = new TreeMap<Long, Long>();
+
+  /**
+   * Add a request to the journal.
+   *
+   * @param sequence
+   *          The sequence number of the request. Determines the replay order.
+   * @param request
+   *          The request.
+   * @throws IOException
+   *           If the request could not be written.
+   */
+  public void append(long sequence, RequestType request) throws IOException {
+    if (m_output == null) {
+      if (m_file == null) {
+        final File file = File.createTempFile("grinder-recording", ".journal");
+        file.deleteOnExit();
+        m_file = file;
+      }
+
+      m_output = new DataOutputStream(
+        new BufferedOutputStream(new FileOutputStream(m_file, true)));
+    }
+
+    final byte[] bytes = request.xmlText().getBytes("UTF-8");
+
+    m_output.writeInt(bytes.length);
+    m_output.write(bytes);
+
+    m_offsets.put(sequence, m_length);
+    m_length += 4 + bytes.length;
+  }
+
+  /**
+   * The number of requests in the journal.
+   *
+   * @return The number of requests.
+   */
+  public int size() {
+    return m_offsets.size();
+  }
+
+  /**
+   * Read the requests back, in sequence number order. Each request is a new
+   * instance that the listener is free to change.
+   *
+   * @param listener Where to send the requests.
+   * @throws IOException If the journal could not be read.
+   */
+  public void replay(Listener listener) throws IOException {
+    if (m_offsets.isEmpty()) {
+      return;
+    }
+
+    if (m_output != null) {
+      m_output.flush();
+    }
+
+    final RandomAccessFile in = new RandomAccessFile(m_file, "r");
+
+    try {
+      for (Entry<Long, Long> entry : m_offsets.entrySet()) {
+        in.seek(entry.getValue());
+        final byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+
+        final RequestType request;
+
+        try {
+          request = RequestType.Factory.parse(new ByteArrayInputStream(bytes));
+        }
+        catch (XmlException e) {
+          throw new IOException("Corrupt request in recording journal", e);
+        }
+
+        listener.request(entry.getKey(), request);
+      }
+    }
+    finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Release the file handle used for writing. The journal can still be
+   * appended to and replayed.
+   */
+  public void close() {
+    Closer.close(m_output);
+    m_output = null;
+  }
+
+  /**
+   * Receives requests from {@link RequestJournal#replay}.
+   */
+  interface Listener {
+
+    /**
+     * Handle a request.
+     *
+     * @param sequence The sequence number of the request.
+     * @param request The request.
+     * @throws IOException If an I/O error occurs.
+     */
+    void request(long sequence, RequestType request) throws IOException;
+  }
+}
@@ -0,0 +1,236 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.plugin.http.tcpproxyfilter;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import net.grinder.common.Closer;
+import net.grinder.util.StreamCopier;
+
+
+/**
+ * Output stream that holds data in memory until a threshold is reached, then
+ * moves it to a temporary file.
+ *
+ * <p>
+ * Allows message bodies of any size to be recorded without holding them in
+ * the heap. Not thread safe.
+ * </p>
+ *
+ * @author Philip Aston
+ */
+final class SpillingOutputStream extends OutputStream {
+
+  private final int m_threshold;
+
+  private byte[] m_buffer = new byte[256];
+  private int m_size;
+
+  private File m_file;
+  private OutputStream m_fileStream;
+
+  /**
+   * Constructor.
+   *
+   * @param threshold
+   *          Number of bytes that will be held in memory.
+   */
+  public SpillingOutputStream(int threshold) {
+    m_threshold = threshold;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override public void write(int b) throws IOException {
+    write(new byte[] { (byte) b }, 0, 1);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override public void write(byte[] bytes, int offset, int length)
+    throws IOException {
+
+    if (m_fileStream == null && m_size + length > m_threshold) {
+      spill();
+    }
+
+    if (m_fileStream != null) {
+      m_fileStream.write(bytes, offset, length);
+    }
+    else {
+      if (m_size + length > m_buffer.length) {
+        final byte[] newBuffer =
+          new byte[Math.min(Math.max(m_buffer.length * 2, m_size + length),
+                            m_threshold)];
+        System.arraycopy(m_buffer, 0, newBuffer, 0, m_size);
+        m_buffer = newBuffer;
+      }
+
+      System.arraycopy(bytes, offset, m_buffer, m_size, length);
+    }
+
+    m_size += length;
+  }
+
+  private void spill() throws IOException {
+    final File file = File.createTempFile("grinder-body", ".tmp");
+    file.deleteOnExit();
+
+    final OutputStream fileStream =
+      new BufferedOutputStream(new FileOutputStream(file));
+
+    try {
+      fileStream.write(m_buffer, 0, m_size);
+    }
+    catch (IOException e) {
+      Closer.close(fileStream);
+      file.delete();
+      throw e;
+    }
+
+    m_file = file;
+    m_fileStream = fileStream;
+    m_buffer = null;
+  }
+
+  /**
+   * The number of bytes written.
+   *
+   * @return The size.
+   */
+  public int size() {
+    return m_size;
+  }
+
+  /**
+   * Whether the data has been moved to a temporary file.
+   *
+   * @return {@code true} if the data is held in a file.
+   */
+  public boolean isSpilled() {
+    return m_file != null;
+  }
+
+  /**
+   * Open a stream to read back the data written so far.
+   *
+   * @return The stream. The caller should close it.
+   * @throws IOException If the data could not be read.
+   */
+  public InputStream openInputStream() throws IOException {
+    if (m_fileStream != null) {
+      m_fileStream.flush();
+      return new FileInputStream(m_file);
+    }
+
+    return new ByteArrayInputStream(m_buffer, 0, m_size);
+  }
+
+  /**
+   * Obtain a read only view of the data written so far. If the data has been
+   * moved to a temporary file, the file is mapped into memory rather than
+   * read into the heap.
+   *
+   * @return The data.
+   * @throws IOException If the data could not be read.
+   */
+  public ByteBuffer toByteBuffer() throws IOException {
+    if (m_fileStream != null) {
+      m_fileStream.flush();
+
+      final FileInputStream in = new FileInputStream(m_file);
+
+      try {
+        return in.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, m_size);
+      }
+      finally {
+        Closer.close(in);
+      }
+    }
+
+    return ByteBuffer.wrap(m_buffer, 0, m_size).slice().asReadOnlyBuffer();
+  }
+
+  /**
+   * Read back the data written so far. The caller should only use this if it
+   * knows the size is reasonable.
+   *
+   * @return The data.
+   * @throws IOException If the data could not be read.
+   */
+  public byte[] toByteArray() throws IOException {
+    final byte[] result = new byte[m_size];
+
+    final InputStream in = openInputStream();
+
+    try {
+      new DataInputStream(in).readFully(result);
+    }
+    finally {
+      Closer.close(in);
+    }
+
+    return result;
+  }
+
+  /**
+   * Copy the data written so far to another stream.
+   *
+   * @param out The stream.
+   * @throws IOException If the data could not be copied.
+   */
+  public void writeTo(OutputStream out) throws IOException {
+    final InputStream in = openInputStream();
+
+    try {
+      new StreamCopier(8192, false).copy(in, out);
+    }
+    finally {
+      Closer.close(in);
+    }
+  }
+
+  /**
+   * Discard the data, removing any temporary file.
+   */
+  @Override public void close() {
+    if (m_fileStream != null) {
+      Closer.close(m_fileStream);
+      m_fileStream = null;
+      m_file.delete();
+    }
+
+    m_buffer = new byte[0];
+  }
+}
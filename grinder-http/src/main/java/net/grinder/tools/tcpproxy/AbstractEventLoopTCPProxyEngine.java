@@ -0,0 +1,1334 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+
+
+package net.grinder.tools.tcpproxy;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.SSLException;
+
+import org.slf4j.Logger;
+
+import net.grinder.common.UncheckedInterruptedException;
+import net.grinder.util.TerminalColour;
+import net.grinder.util.TimerWheel;
+
+
+/**
+ * Base class for TCPProxyEngine implementations that handle all of their
+ * connections with a single selector thread, rather than a pair of threads
+ * for each connection.
+ *
+ * <p>Data read from a connection is passed to the filters by the selector
+ * thread using the same {@link AbstractTCPProxyEngine.OutputStreamFilterTee}
+ * as the thread based engines, so the filters see the same sequence of
+ * events. A filter that blocks will stall every connection.</p>
+ *
+ * <p>SSL connections are handled with {@link SSLEngine}s, handshake tasks
+ * are run by the selector thread. Outgoing data is queued in pooled direct
+ * buffers. A connection with more than {@link #BUFFER_SIZE} bytes queued
+ * stops the connections that are writing to it from reading until the queue
+ * has drained.</p>
+ *
+ * @author Philip Aston
+ */
+public abstract class AbstractEventLoopTCPProxyEngine
+  extends AbstractTCPProxyEngine {
+
+  /**
+   * Size of our buffers. The same as the thread based engines, so filters
+   * are passed similar fragments.
+   */
+  static final int BUFFER_SIZE = 65536;
+
+  private static final int MAXIMUM_IDLE_BUFFERS = 64;
+  private static final long TICK_DURATION = 10;
+  private static final int WHEEL_SIZE = 512;
+
+  private static final ByteBuffer EMPTY_BUFFER = ByteBuffer.allocate(0);
+
+  private static final ConnectionHandler IGNORE_EVENTS =
+    new ConnectionHandler() {
+      public void connected(Connection connection) { }
+
+      public void received(Connection connection, byte[] buffer, int length) {
+      }
+
+      public void closed(Connection connection, IOException e) { }
+    };
+
+  private final ServerSocketChannel m_serverChannel;
+  private final Selector m_selector;
+  private final int m_timeout;
+  private final CountDownLatch m_finished = new CountDownLatch(1);
+
+  // Guarded by m_finished.
+  private Thread m_thread;
+
+  // Only accessed by the selector thread.
+  private final BufferPool m_bufferPool =
+    new BufferPool(BUFFER_SIZE, MAXIMUM_IDLE_BUFFERS);
+  private final ByteBuffer m_readBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+  private final byte[] m_filterBuffer = new byte[BUFFER_SIZE];
+  private final ByteBuffer m_applicationBuffer = ByteBuffer.wrap(m_filterBuffer);
+  private final Set<Connection> m_connections = new LinkedHashSet<Connection>();
+  private final TimerWheel m_timerWheel =
+    new TimerWheel(TICK_DURATION, WHEEL_SIZE, now());
+  private Connection m_currentConnection;
+
+  /**
+   * Constructor.
+   *
+   * @param socketFactory
+   *          Socket factory. Event loop engines do not create sockets with
+   *          the factory, it is only made available to subclasses.
+   * @param requestFilter
+   *          Request filter.
+   * @param responseFilter
+   *          Response filter.
+   * @param output
+   *          Where to direct the output.
+   * @param logger
+   *          Logger.
+   * @param localEndPoint
+   *          Local host and port to listen on. If the <code>EndPoint</code>'s
+   *          port is 0, an arbitrary port will be assigned.
+   * @param useColour
+   *          Whether to use colour.
+   * @param timeout
+   *          How long to wait for a connection, in milliseconds, before the
+   *          engine stops. The engine will not stop if there are active
+   *          connections. <code>0</code> => wait forever.
+   *
+   * @exception IOException
+   *              If an I/O error occurs.
+   */
+  protected AbstractEventLoopTCPProxyEngine(TCPProxySocketFactory socketFactory,
+                                            TCPProxyFilter requestFilter,
+                                            TCPProxyFilter responseFilter,
+                                            PrintWriter output,
+                                            Logger logger,
+                                            EndPoint localEndPoint,
+                                            boolean useColour,
+                                            int timeout) throws IOException {
+    this(socketFactory,
+         requestFilter,
+         responseFilter,
+         output,
+         logger,
+         openServerChannel(localEndPoint),
+         useColour,
+         timeout);
+  }
+
+  private AbstractEventLoopTCPProxyEngine(TCPProxySocketFactory socketFactory,
+                                          TCPProxyFilter requestFilter,
+                                          TCPProxyFilter responseFilter,
+                                          PrintWriter output,
+                                          Logger logger,
+                                          ServerSocketChannel serverChannel,
+                                          boolean useColour,
+                                          int timeout) throws IOException {
+
+    super(socketFactory, requestFilter, responseFilter, output, logger,
+          serverChannel.socket(), useColour);
+
+    m_serverChannel = serverChannel;
+    m_timeout = timeout;
+
+    try {
+      m_selector = Selector.open();
+    }
+    catch (IOException e) {
+      m_serverChannel.close();
+      throw e;
+    }
+  }
+
+  private static ServerSocketChannel openServerChannel(EndPoint localEndPoint)
+    throws IOException {
+
+    final InetAddress address = InetAddress.getByName(localEndPoint.getHost());
+
+    final ServerSocketChannel channel = ServerSocketChannel.open();
+
+    try {
+      channel.socket().bind(
+        new InetSocketAddress(address, localEndPoint.getPort()), 50);
+      channel.configureBlocking(false);
+    }
+    catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+
+    return channel;
+  }
+
+  private static long now() {
+    return System.currentTimeMillis();
+  }
+
+  /**
+   * Main event loop.
+   */
+  @Override
+  public final void run() {
+    synchronized (m_finished) {
+      if (isStopped()) {
+        // We were stopped before we started, and stop() has released our
+        // selector.
+        return;
+      }
+
+      m_thread = Thread.currentThread();
+    }
+
+    try {
+      m_serverChannel.register(m_selector, SelectionKey.OP_ACCEPT);
+
+      long lastActivity = now();
+
+      while (!isStopped()) {
+        long wait = m_timerWheel.getTimeToNextTick(now());
+
+        if (m_timeout > 0) {
+          final long idle = Math.max(1, lastActivity + m_timeout - now());
+          wait = wait < 0 ? idle : Math.min(wait, idle);
+        }
+
+        if (wait < 0) {
+          m_selector.select();
+        }
+        else if (wait == 0) {
+          m_selector.selectNow();
+        }
+        else {
+          m_selector.select(wait);
+        }
+
+        boolean accepted = false;
+
+        final Iterator<SelectionKey> keys =
+          m_selector.selectedKeys().iterator();
+
+        while (keys.hasNext()) {
+          final SelectionKey key = keys.next();
+          keys.remove();
+
+          if (!key.isValid()) {
+            continue;
+          }
+
+          final Connection connection = (Connection) key.attachment();
+
+          if (connection == null) {
+            accepted |= acceptConnections();
+          }
+          else {
+            connection.ready(key.readyOps());
+          }
+        }
+
+        final long now = now();
+
+        m_timerWheel.expire(now);
+
+        if (m_timeout > 0) {
+          if (accepted || !m_connections.isEmpty()) {
+            lastActivity = now;
+          }
+          else if (now - lastActivity >= m_timeout) {
+            stop();
+            logIOException(new NoActivityTimeOutException());
+          }
+        }
+      }
+    }
+    catch (IOException e) {
+      UncheckedInterruptedException.ioException(e);
+      logIOException(e);
+    }
+    catch (ClosedSelectorException e) {
+      // Ignore, we've been stopped.
+    }
+    finally {
+      stop();
+
+      // Abandon the remaining connections. This sends connection closed
+      // events to the filters.
+      for (Connection connection :
+           new ArrayList<Connection>(m_connections)) {
+        connection.closed(null);
+      }
+
+      for (Connection connection :
+           new ArrayList<Connection>(m_connections)) {
+        connection.close();
+      }
+
+      try {
+        m_selector.close();
+      }
+      catch (IOException e) {
+        // Ignore.
+        UncheckedInterruptedException.ioException(e);
+      }
+
+      m_finished.countDown();
+    }
+  }
+
+  /**
+   * Stop the engine. Waits for the selector thread to close the connections,
+   * unless called by the selector thread.
+   */
+  @Override
+  public final void stop() {
+    super.stop();
+
+    final Thread thread;
+
+    synchronized (m_finished) {
+      thread = m_thread;
+
+      if (thread == null) {
+        try {
+          m_selector.close();
+        }
+        catch (IOException e) {
+          // Ignore.
+          UncheckedInterruptedException.ioException(e);
+        }
+
+        return;
+      }
+    }
+
+    m_selector.wakeup();
+
+    if (thread != Thread.currentThread()) {
+      try {
+        m_finished.await();
+      }
+      catch (InterruptedException e) {
+        throw new UncheckedInterruptedException(e);
+      }
+    }
+  }
+
+  private boolean acceptConnections() {
+    boolean accepted = false;
+
+    while (true) {
+      final SocketChannel channel;
+
+      try {
+        channel = m_serverChannel.accept();
+
+        if (channel == null) {
+          return accepted;
+        }
+
+        channel.configureBlocking(false);
+      }
+      catch (IOException e) {
+        UncheckedInterruptedException.ioException(e);
+
+        if (!isStopped()) {
+          logIOException(e);
+        }
+
+        return accepted;
+      }
+
+      accepted = true;
+
+      try {
+        accepted(channel);
+      }
+      catch (IOException e) {
+        UncheckedInterruptedException.ioException(e);
+        logIOException(e);
+
+        try {
+          channel.close();
+        }
+        catch (IOException closeException) {
+          // Ignore.
+          UncheckedInterruptedException.ioException(closeException);
+        }
+      }
+    }
+  }
+
+  /**
+   * Handle a newly accepted connection. Called by the selector thread.
+   *
+   * @param channel
+   *          The connection's channel, in non-blocking mode.
+   * @throws IOException
+   *           If an I/O error occurs. The channel will be closed.
+   */
+  protected abstract void accepted(SocketChannel channel) throws IOException;
+
+  /**
+   * Create a {@link Connection} for an accepted channel. The connection will
+   * not read until {@link Connection#startReading} is called.
+   *
+   * @param channel
+   *          The channel.
+   * @return The connection.
+   * @throws IOException
+   *           If an I/O error occurs.
+   */
+  protected final Connection newConnection(SocketChannel channel)
+    throws IOException {
+    return new Connection(channel, null, IGNORE_EVENTS);
+  }
+
+  /**
+   * Open a connection to a remote end point.
+   * {@link ConnectionHandler#connected} will be called when the connection
+   * has been established, or {@link ConnectionHandler#closed} if it fails.
+   *
+   * <p>The host name is resolved by the calling thread.</p>
+   *
+   * @param remoteEndPoint
+   *          Where to connect to.
+   * @param handler
+   *          Handles events for the connection.
+   * @return The connection.
+   * @throws IOException
+   *           If the connection could not be initiated.
+   */
+  protected final Connection connect(EndPoint remoteEndPoint,
+                                     ConnectionHandler handler)
+    throws IOException {
+
+    final InetSocketAddress address =
+      new InetSocketAddress(remoteEndPoint.getHost(), remoteEndPoint.getPort());
+
+    if (address.isUnresolved()) {
+      throw new UnknownHostException(remoteEndPoint.getHost());
+    }
+
+    final SocketChannel channel = SocketChannel.open();
+
+    try {
+      channel.configureBlocking(false);
+      channel.connect(address);
+
+      return new Connection(channel, remoteEndPoint, handler);
+    }
+    catch (ConnectException e) {
+      channel.close();
+      throw new VerboseConnectException(e, remoteEndPoint.toString());
+    }
+    catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Schedule a task to be run by the selector thread.
+   *
+   * @param task
+   *          The task.
+   * @param delay
+   *          Delay in milliseconds.
+   * @return A handle that can be used to cancel the task.
+   */
+  protected final TimerWheel.Timeout schedule(Runnable task, long delay) {
+    return m_timerWheel.schedule(task, now() + delay);
+  }
+
+  /**
+   * Join two connected connections so that data read from each is passed
+   * through the appropriate filter to the other. Both connections start
+   * reading.
+   *
+   * @param local
+   *          The connection from the client.
+   * @param remote
+   *          The connection to the server.
+   * @param connectionDetails
+   *          Connection details for the request stream.
+   */
+  protected final void joinConnections(Connection local,
+                                       Connection remote,
+                                       ConnectionDetails connectionDetails) {
+    final ConnectionPair pair =
+      new ConnectionPair(local, remote, connectionDetails);
+
+    local.setHandler(pair);
+    remote.setHandler(pair);
+
+    pair.open();
+
+    local.startReading();
+    remote.startReading();
+  }
+
+  /**
+   * Receives the events for a {@link Connection}. Called by the selector
+   * thread.
+   */
+  protected interface ConnectionHandler {
+
+    /**
+     * An outgoing connection has been established.
+     *
+     * @param connection
+     *          The connection.
+     * @throws IOException
+     *           If an I/O error occurs. The connection will be closed.
+     */
+    void connected(Connection connection) throws IOException;
+
+    /**
+     * Data has been read from a connection.
+     *
+     * @param connection
+     *          The connection.
+     * @param buffer
+     *          Contains the data. Only valid until the method returns.
+     * @param length
+     *          How many bytes of data in <code>buffer</code>.
+     * @throws IOException
+     *           If an I/O error occurs. The connection will be closed.
+     */
+    void received(Connection connection, byte[] buffer, int length)
+      throws IOException;
+
+    /**
+     * A connection has been closed, because the peer closed it, an error
+     * occurred, or the engine has stopped. Not called if the connection was
+     * closed with {@link Connection#close}.
+     *
+     * @param connection
+     *          The connection.
+     * @param e
+     *          The error, or <code>null</code> if there was no error.
+     */
+    void closed(Connection connection, IOException e);
+  }
+
+  /**
+   * Passes the data read from one connection through a filter to another
+   * connection.
+   */
+  protected final class FilteredPipe {
+
+    private final OutputStreamFilterTee m_outputStreamFilterTee;
+    private boolean m_open;
+    private boolean m_closed;
+
+    /**
+     * Constructor.
+     *
+     * @param connectionDetails
+     *          Connection details.
+     * @param destination
+     *          Where to write the filtered data.
+     * @param filter
+     *          The user filter.
+     * @param colour
+     *          Terminal control code for this stream.
+     */
+    public FilteredPipe(ConnectionDetails connectionDetails,
+                        Connection destination,
+                        TCPProxyFilter filter,
+                        TerminalColour colour) {
+      m_outputStreamFilterTee =
+        new OutputStreamFilterTee(connectionDetails,
+                                  destination.getOutputStream(),
+                                  filter,
+                                  colour);
+    }
+
+    /**
+     * Notify the filter that the connection has been opened.
+     */
+    public void open() {
+      if (!m_open) {
+        m_open = true;
+        m_outputStreamFilterTee.connectionOpened();
+      }
+    }
+
+    /**
+     * Filter data and write it to the destination.
+     *
+     * @param buffer
+     *          Contains the data.
+     * @param length
+     *          How many bytes of data in <code>buffer</code>.
+     * @throws IOException
+     *           If the data could not be written.
+     */
+    public void handle(byte[] buffer, int length) throws IOException {
+      m_outputStreamFilterTee.handle(buffer, length);
+    }
+
+    /**
+     * Notify the filter that the connection has been closed, and close the
+     * destination once the data written to it has been sent. Does nothing if
+     * the pipe was never opened, or has already been closed.
+     */
+    public void close() {
+      if (m_open && !m_closed) {
+        m_closed = true;
+        m_outputStreamFilterTee.connectionClosed();
+      }
+    }
+  }
+
+  /**
+   * Handles the two connections joined by {@link #joinConnections}.
+   */
+  private final class ConnectionPair implements ConnectionHandler {
+
+    private final Connection m_local;
+    private final FilteredPipe m_requestPipe;
+    private final FilteredPipe m_responsePipe;
+
+    ConnectionPair(Connection local,
+                   Connection remote,
+                   ConnectionDetails connectionDetails) {
+      m_local = local;
+
+      m_requestPipe = new FilteredPipe(connectionDetails,
+                                       remote,
+                                       getRequestFilter(),
+                                       getRequestColour());
+
+      m_responsePipe = new FilteredPipe(connectionDetails.getOtherEnd(),
+                                        local,
+                                        getResponseFilter(),
+                                        getResponseColour());
+    }
+
+    void open() {
+      m_requestPipe.open();
+      m_responsePipe.open();
+    }
+
+    public void connected(Connection connection) {
+    }
+
+    public void received(Connection connection, byte[] buffer, int length)
+      throws IOException {
+
+      if (connection == m_local) {
+        m_requestPipe.handle(buffer, length);
+      }
+      else {
+        m_responsePipe.handle(buffer, length);
+      }
+    }
+
+    public void closed(Connection connection, IOException e) {
+      if (e != null) {
+        logIOException(e);
+      }
+
+      // Closing the pipes closes their destinations, so both connections
+      // are shut down.
+      if (connection == m_local) {
+        m_requestPipe.close();
+        m_responsePipe.close();
+      }
+      else {
+        m_responsePipe.close();
+        m_requestPipe.close();
+      }
+    }
+  }
+
+  /**
+   * A non-blocking connection, optionally secured with an {@link SSLEngine}.
+   * Only used by the selector thread.
+   */
+  protected final class Connection {
+
+    private final SocketChannel m_channel;
+    private final SelectionKey m_key;
+    private final EndPoint m_remoteEndPoint;
+    private final OutputStream m_outputStream = new ConnectionOutputStream();
+
+    // Network data waiting to be written, each buffer is ready for reading.
+    private final Deque<ByteBuffer> m_output = new ArrayDeque<ByteBuffer>();
+
+    // Connections we've stopped from reading because our output is backed
+    // up.
+    private final List<Connection> m_pausedSources = new ArrayList<Connection>();
+
+    private ConnectionHandler m_handler;
+    private boolean m_connected;
+    private boolean m_reading;
+    private int m_pauseCount;
+    private int m_queuedBytes;
+    private boolean m_closing;
+    private boolean m_closeWhenFlushed;
+    private boolean m_closed;
+
+    private SSLEngine m_sslEngine;
+    private boolean m_handshakeComplete;
+
+    // Application data written during the SSL handshake.
+    private Deque<ByteBuffer> m_handshakeOutput;
+
+    // An incomplete SSL record.
+    private ByteBuffer m_sslInput;
+
+    private Connection(SocketChannel channel,
+                       EndPoint remoteEndPoint,
+                       ConnectionHandler handler) throws IOException {
+      m_channel = channel;
+      m_remoteEndPoint = remoteEndPoint;
+      m_handler = handler;
+      m_connected = remoteEndPoint == null;
+      m_key = channel.register(m_selector, interestOps(), this);
+
+      m_connections.add(this);
+    }
+
+    /**
+     * The address of the other end of the connection.
+     *
+     * @return The end point.
+     */
+    public EndPoint getPeerEndPoint() {
+      return EndPoint.clientEndPoint(m_channel.socket());
+    }
+
+    /**
+     * An output stream that writes to the connection. Closing the stream
+     * closes the connection once the data written to it has been sent.
+     *
+     * @return The output stream.
+     */
+    public OutputStream getOutputStream() {
+      return m_outputStream;
+    }
+
+    /**
+     * Change the handler.
+     *
+     * @param handler
+     *          The new handler.
+     */
+    public void setHandler(ConnectionHandler handler) {
+      m_handler = handler;
+    }
+
+    /**
+     * Start reading from the connection.
+     */
+    public void startReading() {
+      m_reading = true;
+      updateInterestOps();
+    }
+
+    /**
+     * Stop reading from the connection until {@link #resumeReading} is
+     * called.
+     */
+    public void pauseReading() {
+      ++m_pauseCount;
+      updateInterestOps();
+    }
+
+    /**
+     * Undo a previous call to {@link #pauseReading}.
+     */
+    public void resumeReading() {
+      --m_pauseCount;
+      updateInterestOps();
+    }
+
+    /**
+     * Use SSL for subsequent data. Data previously written will be sent
+     * in the clear.
+     *
+     * @param sslEngine
+     *          The SSL engine.
+     * @throws IOException
+     *           If the SSL handshake could not be started.
+     */
+    public void startSSL(SSLEngine sslEngine) throws IOException {
+      m_sslEngine = sslEngine;
+      m_handshakeOutput = new ArrayDeque<ByteBuffer>();
+      m_sslEngine.beginHandshake();
+      handshake();
+    }
+
+    /**
+     * Write data to the connection. The data is sent immediately if
+     * possible, otherwise queued.
+     *
+     * @param buffer
+     *          The data.
+     * @param offset
+     *          Offset of the data in <code>buffer</code>.
+     * @param length
+     *          Length of the data.
+     * @throws IOException
+     *           If an I/O error occurs.
+     */
+    public void send(byte[] buffer, int offset, int length)
+      throws IOException {
+
+      if (m_closing || m_closed) {
+        throw new SocketException("Connection closed");
+      }
+
+      if (length == 0) {
+        return;
+      }
+
+      if (m_sslEngine == null) {
+        final ByteBuffer data = ByteBuffer.wrap(buffer, offset, length);
+
+        if (m_output.isEmpty() && m_connected) {
+          write(data);
+        }
+
+        m_queuedBytes += data.remaining();
+        queue(m_output, data);
+      }
+      else if (!m_handshakeComplete) {
+        queue(m_handshakeOutput, ByteBuffer.wrap(buffer, offset, length));
+        return;
+      }
+      else {
+        wrap(ByteBuffer.wrap(buffer, offset, length));
+      }
+
+      flush();
+
+      if (m_queuedBytes > BUFFER_SIZE) {
+        // Apply back pressure.
+        final Connection source = m_currentConnection;
+
+        if (source != null &&
+            source != this &&
+            !m_pausedSources.contains(source)) {
+          m_pausedSources.add(source);
+          source.pauseReading();
+        }
+      }
+    }
+
+    /**
+     * Close the connection once all the data written to it has been sent.
+     */
+    public void closeWhenFlushed() {
+      if (m_closing || m_closed) {
+        return;
+      }
+
+      m_closing = true;
+
+      if (m_sslEngine != null && !m_handshakeComplete) {
+        // Wait until the handshake completes and the data written during
+        // the handshake has been sent.
+        return;
+      }
+
+      try {
+        shutdownOutput();
+      }
+      catch (IOException e) {
+        close();
+      }
+    }
+
+    /**
+     * Close the connection immediately, discarding any queued data. The
+     * handler is not notified.
+     */
+    public void close() {
+      if (m_closed) {
+        return;
+      }
+
+      m_closed = true;
+      m_connections.remove(this);
+      m_key.cancel();
+
+      try {
+        m_channel.close();
+      }
+      catch (IOException e) {
+        // Ignore.
+        UncheckedInterruptedException.ioException(e);
+      }
+
+      release(m_output);
+
+      if (m_handshakeOutput != null) {
+        release(m_handshakeOutput);
+      }
+
+      if (m_sslInput != null) {
+        m_bufferPool.release(m_sslInput);
+        m_sslInput = null;
+      }
+
+      m_queuedBytes = 0;
+      resumePausedSources();
+    }
+
+    /**
+     * Close the connection and notify the handler.
+     */
+    void closed(IOException e) {
+      if (!m_closed) {
+        close();
+        m_handler.closed(this, e);
+      }
+    }
+
+    private void ready(int readyOps) {
+      m_currentConnection = this;
+
+      try {
+        if (!m_connected) {
+          if (!m_channel.finishConnect()) {
+            return;
+          }
+
+          m_connected = true;
+          updateInterestOps();
+          m_handler.connected(this);
+          flush();
+        }
+
+        if ((readyOps & SelectionKey.OP_WRITE) != 0 && !m_closed) {
+          flush();
+        }
+
+        if ((readyOps & SelectionKey.OP_READ) != 0 && !m_closed) {
+          read();
+        }
+      }
+      catch (ConnectException e) {
+        closed(new VerboseConnectException(e, m_remoteEndPoint.toString()));
+      }
+      catch (IOException e) {
+        UncheckedInterruptedException.ioException(e);
+        closed(e);
+      }
+      finally {
+        m_currentConnection = null;
+      }
+    }
+
+    private void read() throws IOException {
+      final ByteBuffer buffer = m_readBuffer;
+      buffer.clear();
+
+      if (m_sslInput != null) {
+        buffer.put(m_sslInput);
+        m_bufferPool.release(m_sslInput);
+        m_sslInput = null;
+      }
+
+      if (read(buffer) == -1) {
+        closed(null);
+        return;
+      }
+
+      buffer.flip();
+
+      if (m_sslEngine == null) {
+        final int length = buffer.remaining();
+        buffer.get(m_filterBuffer, 0, length);
+        m_handler.received(this, m_filterBuffer, length);
+      }
+      else {
+        unwrap(buffer);
+      }
+    }
+
+    private void unwrap(ByteBuffer input) throws IOException {
+      while (!m_closed) {
+        m_applicationBuffer.clear();
+
+        final SSLEngineResult result =
+          m_sslEngine.unwrap(input, m_applicationBuffer);
+
+        if (m_applicationBuffer.position() > 0) {
+          m_handler.received(this,
+                             m_filterBuffer,
+                             m_applicationBuffer.position());
+
+          if (m_closed) {
+            return;
+          }
+        }
+
+        switch (result.getStatus()) {
+          case BUFFER_UNDERFLOW:
+            if (input.hasRemaining()) {
+              m_sslInput = m_bufferPool.acquire();
+              m_sslInput.put(input);
+              m_sslInput.flip();
+            }
+            return;
+
+          case CLOSED:
+            closed(null);
+            return;
+
+          case BUFFER_OVERFLOW:
+            throw new SSLException("SSL record too large");
+
+          default:
+            break;
+        }
+
+        final boolean handshakeProgress = handshake();
+
+        if (!input.hasRemaining() ||
+            result.bytesConsumed() == 0 &&
+            result.bytesProduced() == 0 &&
+            !handshakeProgress) {
+          return;
+        }
+      }
+    }
+
+    /**
+     * Drive the SSL handshake as far as we can without reading.
+     *
+     * @return <code>true</code> if any progress was made.
+     */
+    private boolean handshake() throws IOException {
+      boolean progress = false;
+
+      while (!m_closed) {
+        final HandshakeStatus status = m_sslEngine.getHandshakeStatus();
+
+        if (status == HandshakeStatus.NEED_TASK) {
+          runDelegatedTasks();
+        }
+        else if (status == HandshakeStatus.NEED_WRAP) {
+          if (wrap(EMPTY_BUFFER) == 0 && m_sslEngine.isOutboundDone()) {
+            break;
+          }
+        }
+        else {
+          if (status == HandshakeStatus.NOT_HANDSHAKING &&
+              !m_handshakeComplete) {
+            m_handshakeComplete = true;
+
+            while (!m_handshakeOutput.isEmpty()) {
+              final ByteBuffer data = m_handshakeOutput.removeFirst();
+              wrap(data);
+              m_bufferPool.release(data);
+            }
+
+            if (m_closing) {
+              shutdownOutput();
+            }
+          }
+
+          break;
+        }
+
+        progress = true;
+      }
+
+      flush();
+
+      return progress;
+    }
+
+    private void runDelegatedTasks() {
+      Runnable task;
+
+      while ((task = m_sslEngine.getDelegatedTask()) != null) {
+        task.run();
+      }
+    }
+
+    /**
+     * Encrypt data and queue the result.
+     *
+     * @return The number of bytes produced.
+     */
+    private int wrap(ByteBuffer data) throws IOException {
+      final int packetSize = m_sslEngine.getSession().getPacketBufferSize();
+      int produced = 0;
+
+      do {
+        ByteBuffer target = m_output.peekLast();
+        final boolean newBuffer =
+          target == null || target.capacity() - target.limit() < packetSize;
+
+        if (newBuffer) {
+          target = m_bufferPool.acquire();
+          target.limit(0);
+        }
+
+        final int position = target.position();
+        target.position(target.limit());
+        target.limit(target.capacity());
+
+        final SSLEngineResult result;
+
+        try {
+          result = m_sslEngine.wrap(data, target);
+        }
+        finally {
+          target.limit(target.position());
+          target.position(position);
+        }
+
+        if (newBuffer) {
+          if (target.hasRemaining()) {
+            m_output.addLast(target);
+          }
+          else {
+            m_bufferPool.release(target);
+          }
+        }
+
+        produced += result.bytesProduced();
+        m_queuedBytes += result.bytesProduced();
+
+        if (result.getStatus() == SSLEngineResult.Status.CLOSED) {
+          if (data.hasRemaining()) {
+            throw new SocketException("Connection closed");
+          }
+
+          break;
+        }
+        else if (result.getStatus() ==
+                 SSLEngineResult.Status.BUFFER_OVERFLOW) {
+          throw new SSLException("SSL record too large");
+        }
+
+        if (result.getHandshakeStatus() == HandshakeStatus.NEED_TASK) {
+          runDelegatedTasks();
+        }
+      }
+      while (data.hasRemaining());
+
+      return produced;
+    }
+
+    private void shutdownOutput() throws IOException {
+      if (m_sslEngine != null) {
+        m_sslEngine.closeOutbound();
+        wrap(EMPTY_BUFFER);
+      }
+
+      m_closeWhenFlushed = true;
+      flush();
+    }
+
+    private void flush() throws IOException {
+      if (!m_connected || m_closed) {
+        return;
+      }
+
+      while (!m_output.isEmpty()) {
+        final ByteBuffer buffer = m_output.peekFirst();
+
+        m_queuedBytes -= write(buffer);
+
+        if (buffer.hasRemaining()) {
+          break;
+        }
+
+        m_output.removeFirst();
+        m_bufferPool.release(buffer);
+      }
+
+      if (m_output.isEmpty()) {
+        if (m_closeWhenFlushed) {
+          close();
+          return;
+        }
+
+        resumePausedSources();
+      }
+
+      updateInterestOps();
+    }
+
+    private void resumePausedSources() {
+      for (Connection source : m_pausedSources) {
+        source.resumeReading();
+      }
+
+      m_pausedSources.clear();
+    }
+
+    private int interestOps() {
+      if (!m_connected) {
+        return m_channel.isConnected() ?
+            SelectionKey.OP_WRITE : SelectionKey.OP_CONNECT;
+      }
+
+      int ops = 0;
+
+      if (m_reading && m_pauseCount == 0) {
+        ops |= SelectionKey.OP_READ;
+      }
+
+      if (!m_output.isEmpty()) {
+        ops |= SelectionKey.OP_WRITE;
+      }
+
+      return ops;
+    }
+
+    private void updateInterestOps() {
+      if (!m_closed) {
+        m_key.interestOps(interestOps());
+      }
+    }
+
+    /**
+     * Write to the channel. Failures are reported as
+     * {@link SocketException}s, as they are by the thread based engines.
+     */
+    private int write(ByteBuffer buffer) throws SocketException {
+      try {
+        return m_channel.write(buffer);
+      }
+      catch (SocketException e) {
+        throw e;
+      }
+      catch (IOException e) {
+        UncheckedInterruptedException.ioException(e);
+        throw socketException(e);
+      }
+    }
+
+    private int read(ByteBuffer buffer) throws SocketException {
+      try {
+        return m_channel.read(buffer);
+      }
+      catch (SocketException e) {
+        throw e;
+      }
+      catch (IOException e) {
+        UncheckedInterruptedException.ioException(e);
+        throw socketException(e);
+      }
+    }
+
+    private final class ConnectionOutputStream extends OutputStream {
+
+      @Override
+      public void write(int b) throws IOException {
+        send(new byte[] { (byte) b }, 0, 1);
+      }
+
+      @Override
+      public void write(byte[] buffer, int offset, int length)
+        throws IOException {
+        send(buffer, offset, length);
+      }
+
+      @Override
+      public void close() {
+        closeWhenFlushed();
+      }
+    }
+  }
+
+  /**
+   * Copy data into a queue of pooled buffers, filling the last buffer
+   * before acquiring another.
+   */
+  private void queue(Deque<ByteBuffer> queue, ByteBuffer data) {
+    while (data.hasRemaining()) {
+      ByteBuffer target = queue.peekLast();
+
+      if (target == null || target.limit() == target.capacity()) {
+        target = m_bufferPool.acquire();
+        target.limit(0);
+        queue.addLast(target);
+      }
+
+      final int position = target.position();
+      target.position(target.limit());
+      target.limit(target.capacity());
+
+      final int n = Math.min(data.remaining(), target.remaining());
+      final ByteBuffer slice = data.duplicate();
+      slice.limit(slice.position() + n);
+      target.put(slice);
+      data.position(data.position() + n);
+
+      target.limit(target.position());
+      target.position(position);
+    }
+  }
+
+  private static SocketException socketException(IOException e) {
+    final SocketException result = new SocketException(e.getMessage());
+    result.initCause(e);
+    return result;
+  }
+
+  private void release(Deque<ByteBuffer> queue) {
+    for (ByteBuffer buffer : queue) {
+      m_bufferPool.release(buffer);
+    }
+
+    queue.clear();
+  }
+}
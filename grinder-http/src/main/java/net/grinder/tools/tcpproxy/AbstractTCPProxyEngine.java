@@ -110,6 +110,42 @@ public abstract class AbstractTCPProxyEngine implements TCPProxyEngine {
                                 boolean useColour,
                                 int timeout) throws IOException {
 
+    this(socketFactory,
+         requestFilter,
+         responseFilter,
+         output,
+         logger,
+         socketFactory.createServerSocket(localEndPoint, timeout),
+         useColour);
+  }
+
+  /**
+   * Constructor for engines that create their own server socket.
+   *
+   * @param socketFactory
+   *          Socket factory for creating our client sockets.
+   * @param requestFilter
+   *          Request filter.
+   * @param responseFilter
+   *          Response filter.
+   * @param output
+   *          Where to direct the output.
+   * @param logger
+   *          Logger.
+   * @param serverSocket
+   *          Bound server socket. The engine takes ownership, and will close
+   *          the socket when stopped.
+   * @param useColour
+   *          Whether to use colour.
+   */
+  protected AbstractTCPProxyEngine(TCPProxySocketFactory socketFactory,
+                                   TCPProxyFilter requestFilter,
+                                   TCPProxyFilter responseFilter,
+                                   PrintWriter output,
+                                   Logger logger,
+                                   ServerSocket serverSocket,
+                                   boolean useColour) {
+
     m_logger = logger;
     m_outputWriter = output;
 
@@ -126,7 +162,7 @@ public abstract class AbstractTCPProxyEngine implements TCPProxyEngine {
       m_responseColour = TerminalColour.NONE;
     }
 
-    m_serverSocket = m_socketFactory.createServerSocket(localEndPoint, timeout);
+    m_serverSocket = serverSocket;
   }
 
   /**
@@ -197,7 +233,7 @@ public abstract class AbstractTCPProxyEngine implements TCPProxyEngine {
    * <code>IOException</code> that indicates that an accept has timed out on our
    * server socket, and we have no active threads handling connections.
    */
-  private static final class NoActivityTimeOutException extends IOException {
+  static final class NoActivityTimeOutException extends IOException {
   }
 
   /**
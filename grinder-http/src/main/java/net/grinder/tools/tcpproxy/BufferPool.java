@@ -0,0 +1,101 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.tools.tcpproxy;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+
+/**
+ * A pool of fixed size direct byte buffers.
+ *
+ * <p>Direct buffers are expensive to allocate and are only reclaimed
+ * when garbage collected, so the event loop engines recycle them. The
+ * pool is not thread safe; it is owned by a single event loop thread.</p>
+ *
+ * @author Philip Aston
+ */
+final class BufferPool {
+
+  private final int m_bufferSize;
+  private final int m_maximumIdle;
+  private final Deque<ByteBuffer> m_idle = new ArrayDeque<ByteBuffer>();
+
+  /**
+   * Constructor.
+   *
+   * @param bufferSize Size of each buffer.
+   * @param maximumIdle Maximum number of unused buffers to retain.
+   */
+  BufferPool(int bufferSize, int maximumIdle) {
+    m_bufferSize = bufferSize;
+    m_maximumIdle = maximumIdle;
+  }
+
+  /**
+   * Obtain a buffer, ready for writing.
+   *
+   * @return The buffer.
+   */
+  ByteBuffer acquire() {
+    final ByteBuffer buffer = m_idle.pollFirst();
+
+    if (buffer == null) {
+      return ByteBuffer.allocateDirect(m_bufferSize);
+    }
+
+    buffer.clear();
+
+    return buffer;
+  }
+
+  /**
+   * Return a buffer to the pool. The caller must not use the buffer
+   * afterwards.
+   *
+   * @param buffer The buffer.
+   */
+  void release(ByteBuffer buffer) {
+    if (m_idle.size() < m_maximumIdle) {
+      m_idle.addFirst(buffer);
+    }
+  }
+
+  /**
+   * The size of the buffers in the pool.
+   *
+   * @return The buffer size.
+   */
+  int getBufferSize() {
+    return m_bufferSize;
+  }
+
+  /**
+   * The number of unused buffers.
+   *
+   * @return The number of buffers.
+   */
+  int getNumberOfIdleBuffers() {
+    return m_idle.size();
+  }
+}
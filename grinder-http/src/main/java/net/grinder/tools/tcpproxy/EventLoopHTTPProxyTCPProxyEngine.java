@@ -0,0 +1,526 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+
+
+package net.grinder.tools.tcpproxy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+
+import net.grinder.common.GrinderBuild;
+import net.grinder.util.TimerWheel;
+import net.grinder.util.html.HTMLElement;
+
+
+/**
+ * Event loop implementation of an HTTP/HTTPS proxy. All connections are
+ * handled by the thread that calls {@link #run}.
+ *
+ * <p>This behaves in the same way as {@link HTTPProxyTCPProxyEngine}. The
+ * first request read from each browser connection is used to determine
+ * whether it is a plain HTTP connection, or an HTTPS CONNECT. HTTP requests
+ * are passed to a connection for each target server; HTTPS connections are
+ * decrypted with an {@link javax.net.ssl.SSLEngine} in server mode, filtered,
+ * and encrypted again for the target server.</p>
+ *
+ * <p>Chained HTTP and HTTPS proxies are not supported.</p>
+ *
+ * @author Philip Aston
+ * @see HTTPProxyTCPProxyEngine
+ */
+public final class EventLoopHTTPProxyTCPProxyEngine
+  extends AbstractEventLoopTCPProxyEngine {
+
+  private static final long s_connectTimeout =
+    Long.getLong("tcpproxy.connecttimeout", 5000).longValue();
+
+  // I've seen pathological messages with huge tracking cookies that are
+  // bigger than 4K. Let's super-size this.
+  private static final int MAXIMUM_HEADER_LENGTH = 40960;
+
+  private static final Pattern HTTP_CONNECT_PATTERN =
+    Pattern.compile("^([A-Z]+)[ \\t]+http://([^/:]+):?(\\d*)/.*\r\n\r\n",
+                    Pattern.DOTALL);
+
+  private static final Pattern HTTPS_CONNECT_PATTERN =
+    Pattern.compile("^CONNECT[ \\t]+([^:]+):(\\d+).*\r\n\r\n",
+                    Pattern.DOTALL);
+
+  private final TCPProxySSLSocketFactory m_sslSocketFactory;
+  private final EndPoint m_proxyAddress;
+
+  /**
+   * Constructor.
+   *
+   * @param sslSocketFactory Factory for SSL engines.
+   * @param requestFilter Request filter.
+   * @param responseFilter Response filter.
+   * @param output Output stream.
+   * @param logger Logger.
+   * @param localEndPoint Local host and port.
+   * @param useColour Whether to use colour.
+   * @param timeout Timeout for server socket in milliseconds.
+   *
+   * @exception IOException If an I/O error occurs
+   */
+  public EventLoopHTTPProxyTCPProxyEngine(
+    TCPProxySSLSocketFactory sslSocketFactory,
+    TCPProxyFilter requestFilter,
+    TCPProxyFilter responseFilter,
+    PrintWriter output,
+    Logger logger,
+    EndPoint localEndPoint,
+    boolean useColour,
+    int timeout) throws IOException {
+
+    super(sslSocketFactory, requestFilter, responseFilter, output, logger,
+          localEndPoint, useColour, timeout);
+
+    m_sslSocketFactory = sslSocketFactory;
+    m_proxyAddress = localEndPoint;
+  }
+
+  /**
+   * Start a {@link ProxySession} for a browser connection.
+   *
+   * @param channel
+   *          The accepted channel.
+   * @throws IOException
+   *           If an I/O error occurs.
+   */
+  @Override
+  protected void accepted(SocketChannel channel) throws IOException {
+    new ProxySession(newConnection(channel)).start();
+  }
+
+  private static byte[] connectResponse() throws IOException {
+    final StringBuilder response = new StringBuilder();
+    response.append("HTTP/1.0 200 OK\r\n");
+    response.append("Proxy-agent: The Grinder/");
+    response.append(GrinderBuild.getVersionString());
+    response.append("\r\n");
+    response.append("\r\n");
+
+    return response.toString().getBytes("US-ASCII");
+  }
+
+  private enum State {
+    /** Reading the first request to determine the destination. */
+    DETERMINING_DESTINATION,
+
+    /** Passing HTTP requests to connections to the target servers. */
+    HTTP,
+
+    /** Establishing an HTTPS connection. */
+    HTTPS,
+
+    /** The session has been closed. */
+    CLOSED,
+  }
+
+  /**
+   * Handles a browser connection.
+   */
+  private final class ProxySession implements ConnectionHandler {
+
+    private final Connection m_client;
+    private final EndPoint m_clientEndPoint;
+    private final Map<String, RemoteServer> m_remoteServers =
+      new LinkedHashMap<String, RemoteServer>();
+
+    private State m_state = State.DETERMINING_DESTINATION;
+    private ByteArrayOutputStream m_firstRequest = new ByteArrayOutputStream();
+    private TimerWheel.Timeout m_timeout;
+    private RemoteServer m_lastRemoteServer;
+    private Connection m_httpsConnection;
+
+    ProxySession(Connection client) {
+      m_client = client;
+      m_clientEndPoint = client.getPeerEndPoint();
+      m_client.setHandler(this);
+    }
+
+    void start() {
+      m_timeout = schedule(new Runnable() {
+          public void run() {
+            failedToDetermineDestination();
+          }
+        },
+        s_connectTimeout);
+
+      m_client.startReading();
+    }
+
+    public void connected(Connection connection) {
+    }
+
+    public void received(Connection connection, byte[] buffer, int length)
+      throws IOException {
+
+      if (m_state == State.DETERMINING_DESTINATION) {
+        determineDestination(buffer, length);
+      }
+      else if (m_state == State.HTTP) {
+        demultiplex(buffer, length);
+      }
+    }
+
+    public void closed(Connection connection, IOException e) {
+      if (e != null) {
+        logIOException(e);
+      }
+      else if (m_state == State.DETERMINING_DESTINATION && !isStopped()) {
+        failedToDetermineDestination();
+      }
+
+      close(null);
+    }
+
+    private void determineDestination(byte[] buffer, int length)
+      throws IOException {
+
+      m_firstRequest.write(buffer, 0, length);
+
+      final String request = m_firstRequest.toString("US-ASCII");
+
+      final Matcher httpConnectMatcher = HTTP_CONNECT_PATTERN.matcher(request);
+      final Matcher httpsConnectMatcher =
+        HTTPS_CONNECT_PATTERN.matcher(request);
+
+      if (httpConnectMatcher.find()) {
+        m_timeout.cancel();
+        m_state = State.HTTP;
+
+        final byte[] firstRequest = m_firstRequest.toByteArray();
+        m_firstRequest = null;
+
+        demultiplex(firstRequest, firstRequest.length);
+      }
+      else if (httpsConnectMatcher.find()) {
+        m_timeout.cancel();
+        m_state = State.HTTPS;
+        m_firstRequest = null;
+
+        // group(2) must be a port number by specification.
+        connectHTTPS(
+          new EndPoint(httpsConnectMatcher.group(1),
+                       Integer.parseInt(httpsConnectMatcher.group(2))));
+      }
+      else if (m_firstRequest.size() >= MAXIMUM_HEADER_LENGTH) {
+        final HTMLElement message = new HTMLElement();
+        message.addElement("p").addText(
+          "Buffer overflow - failed to match HTTP message after " +
+          MAXIMUM_HEADER_LENGTH + " bytes");
+
+        sendHTTPErrorResponse(message, "400 Bad Request");
+        close(null);
+      }
+    }
+
+    private void failedToDetermineDestination() {
+      if (m_state != State.DETERMINING_DESTINATION) {
+        return;
+      }
+
+      final String request;
+
+      try {
+        request = m_firstRequest.toString("US-ASCII");
+      }
+      catch (IOException e) {
+        throw new AssertionError(e);
+      }
+
+      final HTMLElement message = new HTMLElement();
+
+      message.addElement("p").addText("Failed to determine proxy destination.");
+
+      if (request.length() > 0) {
+        final HTMLElement paragraph1 = message.addElement("p");
+        paragraph1.addText("Do not type TCPProxy address into your browser. ");
+        paragraph1.addText("The browser proxy settings should be set " +
+                           "to the TCPProxy address (");
+        paragraph1.addElement("code").addText(m_proxyAddress.toString());
+        paragraph1.addText("), and you should type the address of the " +
+                           "target server into the browser.");
+        message.addElement("p").addText("Text of received message follows:");
+        message.addElement("p").addElement("pre")
+          .addElement("blockquote").addText(request);
+      }
+      else {
+        message.addElement("p").addText(
+          "Client opened connection but sent no bytes.");
+      }
+
+      sendHTTPErrorResponse(message, "400 Bad Request");
+      close(null);
+    }
+
+    /**
+     * Direct each request to the appropriate target server. We're as
+     * fragile as {@link HTTPProxyTCPProxyEngine} here; we rely on each
+     * request starting at the beginning of a buffer, and its headers not
+     * being fragmented.
+     */
+    private void demultiplex(byte[] buffer, int length) throws IOException {
+      final Matcher matcher =
+        HTTP_CONNECT_PATTERN.matcher(new String(buffer, 0, length, "US-ASCII"));
+
+      if (matcher.find()) {
+        int remotePort = 80;
+
+        try {
+          remotePort = Integer.parseInt(matcher.group(3));
+        }
+        catch (NumberFormatException e) {
+          // remotePort = 80;
+        }
+
+        final EndPoint remoteEndPoint =
+          new EndPoint(matcher.group(2), remotePort);
+
+        final String key = remoteEndPoint.toString();
+
+        m_lastRemoteServer = m_remoteServers.get(key);
+
+        if (m_lastRemoteServer == null) {
+          try {
+            m_lastRemoteServer = new RemoteServer(remoteEndPoint);
+          }
+          catch (IOException e) {
+            badGateway(e);
+            return;
+          }
+
+          m_remoteServers.put(key, m_lastRemoteServer);
+        }
+      }
+      else if (m_lastRemoteServer == null) {
+        throw new AssertionError("No last stream");
+      }
+
+      m_lastRemoteServer.handle(buffer, length);
+    }
+
+    private void connectHTTPS(final EndPoint remoteEndPoint)
+      throws IOException {
+
+      // Hold any further data from the browser until we've replied.
+      m_client.pauseReading();
+
+      m_httpsConnection = connect(remoteEndPoint, new ConnectionHandler() {
+          public void connected(Connection remote) throws IOException {
+            // Send a 200 response to the client. The client will now start
+            // sending SSL data.
+            final byte[] response = connectResponse();
+            m_client.send(response, 0, response.length);
+
+            m_client.startSSL(m_sslSocketFactory.createServerSSLEngine());
+            remote.startSSL(
+              m_sslSocketFactory.createClientSSLEngine(remoteEndPoint));
+
+            m_client.resumeReading();
+
+            joinConnections(
+              m_client,
+              remote,
+              new ConnectionDetails(m_clientEndPoint, remoteEndPoint, true));
+          }
+
+          public void received(Connection connection,
+                               byte[] buffer,
+                               int length) {
+          }
+
+          public void closed(Connection connection, IOException e) {
+            if (e != null) {
+              logIOException(e);
+            }
+
+            m_client.close();
+          }
+        });
+    }
+
+    private void badGateway(IOException e) {
+      final String description = logIOException(e);
+
+      final HTMLElement message = new HTMLElement();
+      message.addElement("p").addText(description);
+
+      // Should probably return other types of status code.
+      sendHTTPErrorResponse(message, "502 Bad Gateway");
+      close(null);
+    }
+
+    private void sendHTTPErrorResponse(HTMLElement message, String status) {
+      getLogger().error(message.toText());
+
+      final HTTPResponse response = new HTTPResponse();
+      response.setStatus(status);
+      response.setMessage(status, message);
+
+      try {
+        m_client.getOutputStream().write(
+          response.toString().getBytes("US-ASCII"));
+      }
+      catch (IOException e) {
+        // Ignore, the client has gone.
+      }
+    }
+
+    /**
+     * Close the session. The browser connection is closed once the data
+     * written to it has been sent.
+     *
+     * @param first
+     *          Target server whose response stream should be closed first,
+     *          or <code>null</code>.
+     */
+    private void close(RemoteServer first) {
+      if (m_state == State.CLOSED) {
+        return;
+      }
+
+      m_state = State.CLOSED;
+      m_timeout.cancel();
+
+      if (first != null) {
+        first.m_responsePipe.close();
+      }
+
+      // Closing our outgoing streams shuts down the target server
+      // connections.
+      for (RemoteServer remoteServer : m_remoteServers.values()) {
+        remoteServer.m_requestPipe.close();
+      }
+
+      for (RemoteServer remoteServer : m_remoteServers.values()) {
+        remoteServer.m_responsePipe.close();
+        remoteServer.closeConnection();
+      }
+
+      if (m_httpsConnection != null) {
+        m_httpsConnection.close();
+      }
+
+      m_client.closeWhenFlushed();
+    }
+
+    /**
+     * A connection to a target server.
+     */
+    private final class RemoteServer implements ConnectionHandler {
+
+      private final Connection m_connection;
+      private final FilteredPipe m_requestPipe;
+      private final FilteredPipe m_responsePipe;
+
+      // Requests received whilst connecting.
+      private List<byte[]> m_pending = new ArrayList<byte[]>();
+
+      RemoteServer(EndPoint remoteEndPoint) throws IOException {
+        m_connection = connect(remoteEndPoint, this);
+
+        final ConnectionDetails connectionDetails =
+          new ConnectionDetails(m_clientEndPoint, remoteEndPoint, false);
+
+        m_requestPipe =
+          new FilteredPipe(connectionDetails,
+                           m_connection,
+                           new HTTPMethodRelativeURIFilterDecorator(
+                             getRequestFilter()),
+                           getRequestColour());
+
+        m_responsePipe =
+          new FilteredPipe(connectionDetails.getOtherEnd(),
+                           m_client,
+                           getResponseFilter(),
+                           getResponseColour());
+
+        // Preserve the order of the requests.
+        m_client.pauseReading();
+      }
+
+      void handle(byte[] buffer, int length) throws IOException {
+        if (m_pending != null) {
+          m_pending.add(Arrays.copyOf(buffer, length));
+        }
+        else {
+          m_requestPipe.handle(buffer, length);
+        }
+      }
+
+      void closeConnection() {
+        if (m_pending != null) {
+          // Still connecting.
+          m_connection.close();
+        }
+        else {
+          m_connection.closeWhenFlushed();
+        }
+      }
+
+      public void connected(Connection connection) throws IOException {
+        m_requestPipe.open();
+        m_responsePipe.open();
+
+        final List<byte[]> pending = m_pending;
+        m_pending = null;
+
+        for (byte[] request : pending) {
+          m_requestPipe.handle(request, request.length);
+        }
+
+        m_connection.startReading();
+        m_client.resumeReading();
+      }
+
+      public void received(Connection connection, byte[] buffer, int length)
+        throws IOException {
+        m_responsePipe.handle(buffer, length);
+      }
+
+      public void closed(Connection connection, IOException e) {
+        if (e != null && m_pending != null) {
+          badGateway(e);
+        }
+        else if (e != null) {
+          logIOException(e);
+        }
+
+        close(this);
+      }
+    }
+  }
+}
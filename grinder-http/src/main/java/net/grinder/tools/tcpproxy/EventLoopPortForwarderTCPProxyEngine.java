@@ -0,0 +1,176 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+
+
+package net.grinder.tools.tcpproxy;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.channels.SocketChannel;
+
+import org.slf4j.Logger;
+
+
+/**
+ * Event loop implementation of TCPProxyEngine that connects to a single
+ * remote server. All connections are handled by the thread that calls
+ * {@link #run}.
+ *
+ * @author Philip Aston
+ * @see PortForwarderTCPProxyEngine
+ */
+public final class EventLoopPortForwarderTCPProxyEngine
+  extends AbstractEventLoopTCPProxyEngine {
+
+  private final TCPProxySSLSocketFactory m_sslSocketFactory;
+  private final ConnectionDetails m_connectionDetails;
+
+  /**
+   * Constructor.
+   *
+   * @param requestFilter
+   *          Request filter.
+   * @param responseFilter
+   *          Response filter.
+   * @param output
+   *          Output stream.
+   * @param logger
+   *          Logger.
+   * @param connectionDetails
+   *          Connection details.
+   * @param useColour
+   *          Whether to use colour.
+   * @param timeout
+   *          Timeout for server socket in milliseconds.
+   *
+   * @exception IOException
+   *              If an I/O error occurs.
+   */
+  public EventLoopPortForwarderTCPProxyEngine(
+    TCPProxyFilter requestFilter,
+    TCPProxyFilter responseFilter,
+    PrintWriter output,
+    Logger logger,
+    ConnectionDetails connectionDetails,
+    boolean useColour,
+    int timeout) throws IOException {
+
+    this(null, requestFilter, responseFilter, output, logger,
+         connectionDetails, useColour, timeout);
+  }
+
+  /**
+   * Constructor for an engine that uses SSL for both the local and remote
+   * connections.
+   *
+   * @param sslSocketFactory
+   *          Factory for SSL engines, or <code>null</code> if plain
+   *          connections should be used.
+   * @param requestFilter
+   *          Request filter.
+   * @param responseFilter
+   *          Response filter.
+   * @param output
+   *          Where to send the output.
+   * @param logger
+   *          Logger.
+   * @param connectionDetails
+   *          Connection details.
+   * @param useColour
+   *          Whether to use colour.
+   * @param timeout
+   *          Timeout for server socket in milliseconds.
+   *
+   * @exception IOException
+   *              If an I/O error occurs.
+   */
+  public EventLoopPortForwarderTCPProxyEngine(
+    TCPProxySSLSocketFactory sslSocketFactory,
+    TCPProxyFilter requestFilter,
+    TCPProxyFilter responseFilter,
+    PrintWriter output,
+    Logger logger,
+    ConnectionDetails connectionDetails,
+    boolean useColour,
+    int timeout) throws IOException {
+
+    super(sslSocketFactory != null ?
+            sslSocketFactory : new TCPProxySocketFactoryImplementation(),
+          requestFilter, responseFilter, output, logger,
+          connectionDetails.getLocalEndPoint(), useColour, timeout);
+
+    m_sslSocketFactory = sslSocketFactory;
+    m_connectionDetails = connectionDetails;
+  }
+
+  /**
+   * Connect to the remote server, and join the connections once the
+   * connection has been established.
+   *
+   * @param channel
+   *          The accepted channel.
+   * @throws IOException
+   *           If an I/O error occurs.
+   */
+  @Override
+  protected void accepted(SocketChannel channel) throws IOException {
+
+    final Connection local = newConnection(channel);
+    final EndPoint targetEndPoint = m_connectionDetails.getRemoteEndPoint();
+
+    final ConnectionDetails connectionDetails =
+      new ConnectionDetails(local.getPeerEndPoint(),
+                            targetEndPoint,
+                            m_connectionDetails.isSecure());
+
+    final ConnectionHandler handler = new ConnectionHandler() {
+      public void connected(Connection remote) throws IOException {
+        if (m_sslSocketFactory != null) {
+          local.startSSL(m_sslSocketFactory.createServerSSLEngine());
+          remote.startSSL(
+            m_sslSocketFactory.createClientSSLEngine(targetEndPoint));
+        }
+
+        joinConnections(local, remote, connectionDetails);
+      }
+
+      public void received(Connection connection, byte[] buffer, int length) {
+      }
+
+      public void closed(Connection connection, IOException e) {
+        if (e != null) {
+          logIOException(e);
+        }
+
+        local.close();
+      }
+    };
+
+    try {
+      connect(targetEndPoint, handler);
+    }
+    catch (IOException e) {
+      local.close();
+      throw e;
+    }
+  }
+}
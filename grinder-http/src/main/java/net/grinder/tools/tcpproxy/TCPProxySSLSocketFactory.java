@@ -25,6 +25,8 @@ package net.grinder.tools.tcpproxy;
 import java.io.IOException;
 import java.net.Socket;
 
+import javax.net.ssl.SSLEngine;
+
 
 /**
  * Socket factory interface for SSL sockets.
@@ -49,5 +51,24 @@ public interface TCPProxySSLSocketFactory extends TCPProxySocketFactory {
    */
   Socket createClientSocket(Socket existingSocket, EndPoint remoteEndPoint)
     throws IOException;
+
+  /**
+   * Factory method for the server side SSL engines used by non-blocking
+   * proxy engines. The engine is configured in the same way as our server
+   * sockets.
+   *
+   * @return A new <code>SSLEngine</code> in server mode.
+   */
+  SSLEngine createServerSSLEngine();
+
+  /**
+   * Factory method for the client side SSL engines used by non-blocking
+   * proxy engines. The engine is configured in the same way as our client
+   * sockets.
+   *
+   * @param remoteEndPoint Remote host and port.
+   * @return A new <code>SSLEngine</code> in client mode.
+   */
+  SSLEngine createClientSSLEngine(EndPoint remoteEndPoint);
 }
 
@@ -34,6 +34,7 @@ import java.security.GeneralSecurityException;
 import java.security.KeyStore;
 import javax.net.ServerSocketFactory;
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
 import javax.net.ssl.SSLSocket;
 import javax.net.ssl.SSLServerSocket;
 import javax.net.ssl.SSLSocketFactory;
@@ -69,6 +70,7 @@ public final class TCPProxySSLSocketFactoryImplementation
 
   private final ServerSocketFactory m_serverSocketFactory;
   private final SSLSocketFactory m_clientSocketFactory;
+  private final SSLContext m_sslContext;
 
   /**
    * Construct a TCPProxySSLSocketFactoryImplementation that uses the
@@ -122,10 +124,10 @@ public final class TCPProxySSLSocketFactoryImplementation
                                       keyStorePassword,
                                       keyStoreType);
 
-      final SSLContext sslContext = sslContextFactory.getSSLContext();
+      m_sslContext = sslContextFactory.getSSLContext();
 
-      m_clientSocketFactory = sslContext.getSocketFactory();
-      m_serverSocketFactory = sslContext.getServerSocketFactory();
+      m_clientSocketFactory = m_sslContext.getSocketFactory();
+      m_serverSocketFactory = m_sslContext.getServerSocketFactory();
     }
     finally {
       Closer.close(keyStoreInputStream);
@@ -210,5 +212,38 @@ public final class TCPProxySSLSocketFactoryImplementation
 
     return socket;
   }
+
+  /**
+   * Factory method for server side SSL engines.
+   *
+   * @return A new <code>SSLEngine</code> in server mode.
+   */
+  public SSLEngine createServerSSLEngine() {
+    final SSLEngine engine = m_sslContext.createSSLEngine();
+
+    engine.setUseClientMode(false);
+    engine.setEnabledCipherSuites(engine.getSupportedCipherSuites());
+    engine.setEnabledProtocols(engine.getSupportedProtocols());
+
+    return engine;
+  }
+
+  /**
+   * Factory method for client side SSL engines.
+   *
+   * @param remoteEndPoint Remote host and port.
+   * @return A new <code>SSLEngine</code> in client mode.
+   */
+  public SSLEngine createClientSSLEngine(EndPoint remoteEndPoint) {
+    final SSLEngine engine =
+      m_sslContext.createSSLEngine(remoteEndPoint.getHost(),
+                                   remoteEndPoint.getPort());
+
+    engine.setUseClientMode(true);
+    engine.setEnabledCipherSuites(HTTPConnection.getSSLCipherSuites());
+    engine.setEnabledProtocols(HTTPConnection.getSSLProtocols());
+
+    return engine;
+  }
 }
 
@@ -33,6 +33,8 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import javax.net.ssl.SSLServerSocket;
+
 import junit.framework.Assert;
 import net.grinder.common.UncheckedInterruptedException;
 import HTTPClient.NVPair;
@@ -68,7 +70,11 @@ class HTTPRequestHandler extends Assert implements Runnable {
   private long m_responseDelay = 0;
 
   public HTTPRequestHandler() throws Exception {
-    m_serverSocket = new ServerSocket(0);
+    this(new ServerSocket(0));
+  }
+
+  public HTTPRequestHandler(ServerSocket serverSocket) {
+    m_serverSocket = serverSocket;
   }
 
   public void start() throws InterruptedException {
@@ -88,7 +94,10 @@ class HTTPRequestHandler extends Assert implements Runnable {
   }
 
   public final String getURL() {
-    return "http://localhost:" + m_serverSocket.getLocalPort();
+    final String scheme =
+      m_serverSocket instanceof SSLServerSocket ? "https" : "http";
+
+    return scheme + "://localhost:" + m_serverSocket.getLocalPort();
   }
 
   public final String getLastRequestHeaders() {
@@ -0,0 +1,148 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+
+package net.grinder.plugin.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.zip.CRC32;
+
+import org.junit.Test;
+
+
+/**
+ * Unit tests for {@link BodyMatcher} and {@link StreamedResponseBody}.
+ *
+ * @author Philip Aston
+ */
+public class TestBodyMatcher {
+
+  private static StreamedResponseBody stream(final String body,
+                                             final int chunkSize,
+                                             final BodyMatcher... matchers)
+    throws Exception {
+
+    final StreamedResponseBody result = new StreamedResponseBody(matchers);
+    final byte[] bytes = body.getBytes("UTF-8");
+
+    for (int i = 0; i < bytes.length; i += chunkSize) {
+      result.update(bytes, i, Math.min(chunkSize, bytes.length - i));
+    }
+
+    return result;
+  }
+
+  @Test public void testLengthAndChecksum() throws Exception {
+    final String text = "Hello world";
+    final CRC32 crc = new CRC32();
+    crc.update(text.getBytes("UTF-8"));
+
+    for (int chunkSize = 1; chunkSize < 13; ++chunkSize) {
+      final StreamedResponseBody body = stream(text, chunkSize);
+      assertEquals(11, body.getLength());
+      assertEquals(crc.getValue(), body.getChecksum());
+    }
+
+    assertEquals(0, stream("", 1).getLength());
+  }
+
+  @Test public void testContains() throws Exception {
+    final BodyMatcher matcher = BodyMatcher.contains("aab");
+    assertFalse(matcher.isRequired());
+    assertTrue(matcher.toString().contains("aab"));
+
+    for (int chunkSize = 1; chunkSize < 10; ++chunkSize) {
+      assertTrue(stream("aaaab", chunkSize, matcher).isMatched(matcher));
+      assertTrue(stream("abaabx", chunkSize, matcher).isMatched(matcher));
+      assertFalse(stream("abababa", chunkSize, matcher).isMatched(matcher));
+      assertNull(stream("aab", chunkSize, matcher).getValue(matcher));
+    }
+
+    final BodyMatcher empty = BodyMatcher.contains("");
+    assertTrue(stream("", 1, empty).isMatched(empty));
+  }
+
+  @Test public void testExtract() throws Exception {
+    final BodyMatcher matcher = BodyMatcher.extract("id=\"", "\"");
+
+    for (int chunkSize = 1; chunkSize < 10; ++chunkSize) {
+      assertEquals("foo",
+                   stream("<a id=\"foo\" id=\"bar\">", chunkSize, matcher)
+                   .getValue(matcher));
+      assertEquals("",
+                   stream("id=\"\"", chunkSize, matcher).getValue(matcher));
+      assertNull(stream("id=\"foo", chunkSize, matcher).getValue(matcher));
+    }
+
+    final BodyMatcher multiByte = BodyMatcher.extract("<<", ">>");
+    assertEquals("été",
+                 stream("x<<été>>", 1, multiByte)
+                 .getValue(multiByte));
+
+    final BodyMatcher overlapping = BodyMatcher.extract("[", "]]");
+    assertEquals("a]b",
+                 stream("[a]b]]", 1, overlapping).getValue(overlapping));
+  }
+
+  @Test public void testExtractLongValue() throws Exception {
+    final BodyMatcher matcher = BodyMatcher.extract("<", ">");
+
+    final StringBuilder tooLong = new StringBuilder("<");
+
+    for (int i = 0; i < BodyMatcher.MAXIMUM_VALUE_LENGTH + 10; ++i) {
+      tooLong.append('x');
+    }
+
+    tooLong.append("> <ok>");
+
+    assertEquals("ok",
+                 stream(tooLong.toString(), 100, matcher).getValue(matcher));
+  }
+
+  @Test public void testRequired() throws Exception {
+    final BodyMatcher optional = BodyMatcher.contains("x");
+    final BodyMatcher required = BodyMatcher.contains("y").required();
+    assertTrue(required.isRequired());
+
+    assertEquals(0, stream("y", 1, optional, required)
+                 .getFailedMatchers().size());
+
+    assertEquals(required, stream("x", 1, optional, required)
+                 .getFailedMatchers().get(0));
+  }
+
+  @Test public void testUnknownMatcher() throws Exception {
+    final StreamedResponseBody body =
+      stream("x", 1, BodyMatcher.contains("x"));
+
+    try {
+      body.isMatched(BodyMatcher.contains("x"));
+      fail("Expected IllegalArgumentException");
+    }
+    catch (IllegalArgumentException e) {
+    }
+  }
+}
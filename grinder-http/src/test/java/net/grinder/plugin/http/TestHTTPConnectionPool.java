@@ -0,0 +1,283 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.plugin.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import net.grinder.common.SSLContextFactory.SSLContextFactoryException;
+import net.grinder.util.StandardTimeAuthority;
+
+import org.junit.After;
+import org.junit.Test;
+
+import HTTPClient.HTTPConnection;
+import HTTPClient.HTTPConnection.TimeAuthority;
+import HTTPClient.ProtocolNotSuppException;
+import HTTPClient.URI;
+
+
+/**
+ * Unit tests for {@link HTTPConnectionPool}.
+ *
+ * @author Philip Aston
+ */
+public class TestHTTPConnectionPool {
+
+  private final HTTPConnectionPool m_pool = new HTTPConnectionPool();
+
+  /** Added to the time, in milliseconds. */
+  private volatile long m_offset;
+
+  private final TimeAuthority m_timeAuthority = new TimeAuthority() {
+      private final StandardTimeAuthority m_delegate =
+        new StandardTimeAuthority();
+
+      @Override
+      public long getTimeInMilliseconds() {
+        return m_delegate.getTimeInMilliseconds() + m_offset;
+      }
+
+      @Override
+      public long getTimeInNanoseconds() {
+        return m_delegate.getTimeInNanoseconds() +
+               TimeUnit.MILLISECONDS.toNanos(m_offset);
+      }
+    };
+
+  private final ExecutorService m_executor =
+    Executors.newSingleThreadExecutor();
+
+  private int m_created;
+
+  private final HTTPConnectionPool.ConnectionFactory m_factory =
+    new HTTPConnectionPool.ConnectionFactory() {
+      @Override
+      public HTTPConnectionWrapper createConnectionWrapper(final URI uri,
+                                                           final Object context)
+        throws ProtocolNotSuppException {
+
+        ++m_created;
+
+        final HTTPConnection connection = new HTTPConnection(uri);
+        connection.setContext(context);
+
+        return new HTTPConnectionWrapper(connection,
+                                         new HTTPPluginConnectionDefaults(),
+                                         null);
+      }
+    };
+
+  @After public void tearDown() {
+    m_executor.shutdownNow();
+  }
+
+  @Test public void testLeaseAndRelease() throws Exception {
+    final URI key = new URI("http://blah.com");
+
+    final HTTPConnectionPool.Lease lease1 =
+      m_pool.lease(key, 0, 0, m_factory, m_timeAuthority);
+
+    assertTrue(lease1.isPooled());
+    assertFalse(lease1.isHit());
+    assertSame(m_pool,
+               lease1.getConnectionWrapper().getConnection().getContext());
+    assertEquals(1, m_created);
+
+    final HTTPConnectionPool.Lease lease2 =
+      m_pool.lease(key, 0, 0, m_factory, m_timeAuthority);
+
+    assertFalse(lease2.isHit());
+    assertNotSame(lease1.getConnectionWrapper(),
+                  lease2.getConnectionWrapper());
+    assertEquals(2, m_pool.getSize(key));
+
+    lease1.release();
+    lease2.release();
+
+    // The most recently used connection is leased first.
+    final HTTPConnectionPool.Lease lease3 =
+      m_pool.lease(key, 0, 0, m_factory, m_timeAuthority);
+
+    assertTrue(lease3.isHit());
+    assertSame(lease2.getConnectionWrapper(), lease3.getConnectionWrapper());
+
+    final HTTPConnectionPool.Lease lease4 =
+      m_pool.lease(new URI("https://blah.com"), 0, 0, m_factory,
+                   m_timeAuthority);
+
+    assertFalse(lease4.isHit());
+    assertEquals(3, m_created);
+    assertEquals(2, m_pool.getSize(key));
+    assertEquals(0, m_pool.getSize(new URI("http://lah.com")));
+  }
+
+  @Test public void testMaximumPerHost() throws Exception {
+    final URI key = new URI("http://blah.com");
+
+    final HTTPConnectionPool.Lease lease1 =
+      m_pool.lease(key, 1, 0, m_factory, m_timeAuthority);
+
+    final Future<HTTPConnectionPool.Lease> future =
+      m_executor.submit(new Callable<HTTPConnectionPool.Lease>() {
+          @Override
+          public HTTPConnectionPool.Lease call() throws Exception {
+            return m_pool.lease(key, 1, 0, m_factory, m_timeAuthority);
+          }
+        });
+
+    try {
+      future.get(50, TimeUnit.MILLISECONDS);
+      fail("Expected TimeoutException");
+    }
+    catch (java.util.concurrent.TimeoutException e) {
+    }
+
+    lease1.release();
+
+    final HTTPConnectionPool.Lease lease2 = future.get(5, TimeUnit.SECONDS);
+
+    assertTrue(lease2.isHit());
+    assertSame(lease1.getConnectionWrapper(), lease2.getConnectionWrapper());
+    assertTrue(lease2.getWaitTime() >= TimeUnit.MILLISECONDS.toNanos(50));
+    assertEquals(1, m_created);
+  }
+
+  @Test public void testIdleTimeout() throws Exception {
+    final URI key = new URI("http://blah.com");
+    final URI otherKey = new URI("http://lah.com");
+
+    final HTTPConnectionPool.Lease lease1 =
+      m_pool.lease(key, 0, 1000, m_factory, m_timeAuthority);
+    final HTTPConnectionPool.Lease lease2 =
+      m_pool.lease(key, 0, 1000, m_factory, m_timeAuthority);
+    final HTTPConnectionPool.Lease lease3 =
+      m_pool.lease(otherKey, 0, 1000, m_factory, m_timeAuthority);
+
+    lease1.release();
+    lease3.release();
+    m_offset = 600;
+    lease2.release();
+
+    m_offset = 1200;
+
+    // Leasing from any host closes the expired connections. The connection
+    // released most recently is still fresh.
+    final HTTPConnectionPool.Lease lease4 =
+      m_pool.lease(key, 0, 1000, m_factory, m_timeAuthority);
+
+    assertTrue(lease4.isHit());
+    assertSame(lease2.getConnectionWrapper(), lease4.getConnectionWrapper());
+    assertEquals(1, m_pool.getSize(key));
+    assertEquals(0, m_pool.getSize(otherKey));
+
+    lease4.release();
+
+    m_offset = 5000;
+
+    // A timeout of zero means never.
+    final HTTPConnectionPool.Lease lease5 =
+      m_pool.lease(key, 0, 0, m_factory, m_timeAuthority);
+    assertTrue(lease5.isHit());
+    lease5.release();
+
+    m_offset = 7000;
+
+    final HTTPConnectionPool.Lease lease6 =
+      m_pool.lease(key, 0, 1000, m_factory, m_timeAuthority);
+    assertFalse(lease6.isHit());
+    assertEquals(1, m_pool.getSize(key));
+    assertEquals(4, m_created);
+  }
+
+  @Test public void testIdleTimeoutFreesWaiters() throws Exception {
+    final URI key = new URI("http://blah.com");
+
+    final HTTPConnectionPool.Lease lease1 =
+      m_pool.lease(key, 1, 1000, m_factory, m_timeAuthority);
+    lease1.release();
+
+    m_offset = 2000;
+
+    // The expired connection no longer counts towards the maximum.
+    final HTTPConnectionPool.Lease lease2 =
+      m_pool.lease(key, 1, 1000, m_factory, m_timeAuthority);
+
+    assertFalse(lease2.isHit());
+    assertEquals(1, m_pool.getSize(key));
+    assertEquals(2, m_created);
+  }
+
+  @Test public void testFactoryFailure() throws Exception {
+    final URI key = new URI("http://blah.com");
+
+    final HTTPConnectionPool.ConnectionFactory badFactory =
+      new HTTPConnectionPool.ConnectionFactory() {
+        @Override
+        public HTTPConnectionWrapper createConnectionWrapper(
+          final URI uri, final Object context)
+          throws SSLContextFactoryException {
+          throw new SSLContextFactoryException("bad");
+        }
+      };
+
+    try {
+      m_pool.lease(key, 1, 0, badFactory, m_timeAuthority);
+      fail("Expected SSLContextFactoryException");
+    }
+    catch (SSLContextFactoryException e) {
+    }
+
+    assertEquals(0, m_pool.getSize(key));
+
+    final HTTPConnectionPool.Lease lease =
+      m_pool.lease(key, 1, 0, m_factory, m_timeAuthority);
+
+    assertFalse(lease.isHit());
+    assertEquals(1, m_pool.getSize(key));
+  }
+
+  @Test public void testUnpooledLease() throws Exception {
+    final HTTPConnectionWrapper wrapper =
+      m_factory.createConnectionWrapper(new URI("http://blah.com"), this);
+
+    final HTTPConnectionPool.Lease lease =
+      new HTTPConnectionPool.Lease(wrapper);
+
+    assertSame(wrapper, lease.getConnectionWrapper());
+    assertFalse(lease.isPooled());
+    assertFalse(lease.isHit());
+    assertEquals(0, lease.getWaitTime());
+
+    lease.release();
+  }
+}
@@ -108,6 +108,13 @@ public class TestHTTPConnectionWrapper extends TestCase {
     wrapper.setUseAuthorizationModule(false);
     assertModule(connection, "HTTPClient.AuthorizationModule", false);
 
+    assertTrue(connection.getSSLSessionResumption());
+    defaults.setUseSSLSessionResumption(false);
+    new HTTPConnectionWrapper(connection, defaults, sleeper);
+    assertFalse(connection.getSSLSessionResumption());
+    wrapper.setUseSSLSessionResumption(true);
+    assertTrue(connection.getSSLSessionResumption());
+
     try {
       wrapper.setLocalAddress("unknown host");
       fail("Expected URLException");
@@ -23,6 +23,8 @@ package net.grinder.plugin.http;
 
 import java.net.InetAddress;
 
+import net.grinder.plugin.http.HTTPPluginControl.ConnectionLifetime;
+import net.grinder.plugin.http.HTTPPluginControl.Engine;
 import HTTPClient.NVPair;
 import junit.framework.TestCase;
 
@@ -94,6 +96,40 @@ public class TestHTTPPluginConnectionDefaults extends TestCase {
     defaults.setBandwidthLimit(99);
     assertEquals(99, defaults.getBandwidthLimit());
 
+    assertTrue(defaults.getUseSSLSessionResumption());
+    defaults.setUseSSLSessionResumption(false);
+    assertFalse(defaults.getUseSSLSessionResumption());
+
+    assertEquals(ConnectionLifetime.RUN, defaults.getConnectionLifetime());
+    defaults.setConnectionLifetime(ConnectionLifetime.PROCESS);
+    assertEquals(ConnectionLifetime.PROCESS, defaults.getConnectionLifetime());
+
+    try {
+      defaults.setConnectionLifetime(null);
+      fail("Expected IllegalArgumentException");
+    }
+    catch (IllegalArgumentException e) {
+    }
+
+    assertEquals(0, defaults.getMaximumConnectionsPerHost());
+    defaults.setMaximumConnectionsPerHost(4);
+    assertEquals(4, defaults.getMaximumConnectionsPerHost());
+
+    assertEquals(60000, defaults.getPooledConnectionIdleTimeout());
+    defaults.setPooledConnectionIdleTimeout(1000);
+    assertEquals(1000, defaults.getPooledConnectionIdleTimeout());
+
+    assertEquals(Engine.HTTPCLIENT, defaults.getEngine());
+    defaults.setEngine(Engine.NON_BLOCKING);
+    assertEquals(Engine.NON_BLOCKING, defaults.getEngine());
+
+    try {
+      defaults.setEngine(null);
+      fail("Expected IllegalArgumentException");
+    }
+    catch (IllegalArgumentException e) {
+    }
+
     // Cover no-op.
     defaults.close();
   }
@@ -50,7 +50,8 @@ public class TestHTTPPluginControl {
       new HTTPPluginThreadState(null,
                                 new InsecureSSLContextFactory(),
                                 null,
-                                new StandardTimeAuthority());
+                                new StandardTimeAuthority(),
+                                new HTTPConnectionPool());
 
     final ScriptContext scriptContext =
         mock(ScriptContext.class, RETURNS_MOCKS);
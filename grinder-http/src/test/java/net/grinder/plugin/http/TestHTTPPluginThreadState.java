@@ -21,13 +21,18 @@
 
 package net.grinder.plugin.http;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import net.grinder.common.SSLContextFactory;
+import net.grinder.plugin.http.HTTPPluginControl.ConnectionLifetime;
 import net.grinder.plugininterface.PluginThreadContext;
 import net.grinder.util.InsecureSSLContextFactory;
 import net.grinder.util.Sleeper;
+import net.grinder.util.StandardTimeAuthority;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -64,7 +69,8 @@ public class TestHTTPPluginThreadState {
       new HTTPPluginThreadState(m_threadContext,
                                 m_sslContextFactory,
                                 m_sleeper,
-                                null);
+                                null,
+                                new HTTPConnectionPool());
 
     assertSame(m_threadContext, pluginThreadState.getThreadContext());
 
@@ -109,6 +115,146 @@ public class TestHTTPPluginThreadState {
     pluginThreadState.beginShutdown();
   }
 
+  @Test public void testThreadConnectionLifetime() throws Exception {
+    final HTTPPluginConnectionDefaults connectionDefaults =
+      HTTPPluginConnectionDefaults.getConnectionDefaults();
+
+    final HTTPPluginThreadState pluginThreadState =
+      new HTTPPluginThreadState(m_threadContext,
+                                m_sslContextFactory,
+                                m_sleeper,
+                                null,
+                                new HTTPConnectionPool());
+
+    try {
+      connectionDefaults.setConnectionLifetime(ConnectionLifetime.THREAD);
+
+      pluginThreadState.beginRun();
+
+      final HTTPConnectionWrapper wrapper1 =
+        pluginThreadState.getConnectionWrapper(new URI("http://blah.com"));
+
+      pluginThreadState.endRun();
+      pluginThreadState.beginRun();
+
+      assertSame(wrapper1,
+                 pluginThreadState.getConnectionWrapper(
+                   new URI("http://blah.com/lah")));
+
+      final HTTPConnectionPool.Lease lease =
+        pluginThreadState.leaseConnection(new URI("http://blah.com"));
+
+      assertSame(wrapper1, lease.getConnectionWrapper());
+      assertFalse(lease.isPooled());
+      lease.release();
+
+      pluginThreadState.endRun();
+      pluginThreadState.endThread();
+
+      assertNotSame(wrapper1,
+                    pluginThreadState.getConnectionWrapper(
+                      new URI("http://blah.com")));
+    }
+    finally {
+      connectionDefaults.setConnectionLifetime(ConnectionLifetime.RUN);
+    }
+  }
+
+  @Test public void testProcessConnectionLifetime() throws Exception {
+    final HTTPPluginConnectionDefaults connectionDefaults =
+      HTTPPluginConnectionDefaults.getConnectionDefaults();
+
+    final HTTPConnectionPool pool = new HTTPConnectionPool();
+
+    final HTTPPluginThreadState pluginThreadState1 =
+      new HTTPPluginThreadState(m_threadContext,
+                                m_sslContextFactory,
+                                m_sleeper,
+                                new StandardTimeAuthority(),
+                                pool);
+
+    final HTTPPluginThreadState pluginThreadState2 =
+      new HTTPPluginThreadState(m_threadContext,
+                                m_sslContextFactory,
+                                m_sleeper,
+                                new StandardTimeAuthority(),
+                                pool);
+
+    try {
+      connectionDefaults.setConnectionLifetime(ConnectionLifetime.PROCESS);
+
+      final HTTPConnectionPool.Lease lease1 =
+        pluginThreadState1.leaseConnection(new URI("http://blah.com"));
+
+      assertTrue(lease1.isPooled());
+      assertFalse(lease1.isHit());
+      assertSame(pool,
+                 lease1.getConnectionWrapper().getConnection().getContext());
+      lease1.release();
+
+      pluginThreadState1.beginRun();
+
+      final HTTPConnectionPool.Lease lease2 =
+        pluginThreadState2.leaseConnection(new URI("http://blah.com/lah"));
+
+      assertTrue(lease2.isHit());
+      assertSame(lease1.getConnectionWrapper(),
+                 lease2.getConnectionWrapper());
+      lease2.release();
+
+      // Connections configured by the script belong to the thread.
+      final HTTPConnectionWrapper threadWrapper =
+        pluginThreadState2.getConnectionWrapper(new URI("http://blah.com"));
+
+      final HTTPConnectionPool.Lease lease3 =
+        pluginThreadState2.leaseConnection(new URI("http://blah.com"));
+
+      assertFalse(lease3.isPooled());
+      assertSame(threadWrapper, lease3.getConnectionWrapper());
+      lease3.release();
+
+      assertEquals(1, pool.getSize(new URI("http://blah.com")));
+    }
+    finally {
+      connectionDefaults.setConnectionLifetime(ConnectionLifetime.RUN);
+    }
+  }
+
+  @Test public void testAdditionalConnections() throws Exception {
+    final HTTPPluginThreadState pluginThreadState =
+      new HTTPPluginThreadState(m_threadContext,
+                                m_sslContextFactory,
+                                m_sleeper,
+                                null,
+                                new HTTPConnectionPool());
+
+    final URI uri = new URI("http://blah.com");
+
+    final HTTPConnectionWrapper wrapper0 =
+      pluginThreadState.leaseConnection(uri, 0).getConnectionWrapper();
+
+    assertSame(pluginThreadState.getConnectionWrapper(uri), wrapper0);
+
+    final HTTPConnectionPool.Lease lease2 =
+      pluginThreadState.leaseConnection(uri, 2);
+    assertFalse(lease2.isPooled());
+
+    final HTTPConnectionWrapper wrapper1 =
+      pluginThreadState.leaseConnection(uri, 1).getConnectionWrapper();
+
+    assertNotSame(wrapper0, wrapper1);
+    assertNotSame(wrapper1, lease2.getConnectionWrapper());
+    assertSame(wrapper1,
+               pluginThreadState.leaseConnection(
+                 new URI("http://blah.com/lah"), 1).getConnectionWrapper());
+
+    pluginThreadState.beginRun();
+
+    assertNotSame(wrapper1,
+                  pluginThreadState.leaseConnection(uri, 1)
+                  .getConnectionWrapper());
+  }
+
   @Test public void testSetResponse() throws Exception {
     final HTTPRequestHandler handler = new HTTPRequestHandler();
     handler.start();
@@ -121,7 +267,8 @@ public class TestHTTPPluginThreadState {
         new HTTPPluginThreadState(m_threadContext,
                                   m_sslContextFactory,
                                   m_sleeper,
-                                  null);
+                                  null,
+                                  new HTTPConnectionPool());
 
       final HTTPResponse response = connection.Get("foo");
 
@@ -21,6 +21,7 @@
 
 package net.grinder.plugin.http;
 
+import static java.util.Arrays.asList;
 import static net.grinder.testutility.AssertUtilities.assertArraysEqual;
 import static net.grinder.testutility.AssertUtilities.assertContains;
 import static org.junit.Assert.assertEquals;
@@ -30,10 +31,13 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.isA;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -43,12 +47,21 @@ import static org.mockito.Mockito.when;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLContext;
 
 import net.grinder.common.GrinderException;
 import net.grinder.common.SSLContextFactory;
 import net.grinder.engine.process.dcr.DCRContextImplementation;
+import net.grinder.plugin.http.HTTPPluginControl.ConnectionLifetime;
+import net.grinder.plugin.http.HTTPPluginControl.Engine;
 import net.grinder.plugininterface.GrinderPlugin;
 import net.grinder.plugininterface.PluginException;
 import net.grinder.plugininterface.PluginProcessContext;
@@ -112,7 +125,8 @@ public class TestHTTPRequest {
       new HTTPPluginThreadState(m_threadContext,
                                 m_sslContextFactory,
                                 null,
-                                new StandardTimeAuthority());
+                                new StandardTimeAuthority(),
+                                new HTTPConnectionPool());
 
     when(m_statistics.isTestInProgress()).thenReturn(false);
 
@@ -124,6 +138,10 @@ public class TestHTTPRequest {
     when(m_pluginProcessContext.getScriptContext()).thenReturn(m_scriptContext);
     when(m_pluginProcessContext.getStatisticsServices())
       .thenReturn(StatisticsServicesImplementation.getInstance());
+    when(m_pluginProcessContext.getReportingTimeUnit())
+      .thenReturn(TimeUnit.MILLISECONDS);
+    when(m_pluginProcessContext.getTimeAuthority())
+      .thenReturn(new StandardTimeAuthority());
 
     new PluginRegistry() {
       {
@@ -960,6 +978,68 @@ public class TestHTTPRequest {
     assertSame(response, resultHolder[0]);
   }
 
+  @Test public void testGETAll() throws Exception {
+    m_handler.setBody("resource");
+
+    final List<HTTPResponse> processed = new ArrayList<HTTPResponse>();
+
+    final HTTPRequest[] resources = new HTTPRequest[3];
+
+    for (int i = 0; i < resources.length; ++i) {
+      resources[i] = new HTTPRequest() {
+          @Override
+          public void processResponse(final HTTPResponse response) {
+            processed.add(response);
+          }
+        };
+
+      resources[i].setUrl(m_handler.getURL() + "/r" + i);
+    }
+
+    when(m_statistics.isTestInProgress()).thenReturn(true);
+    when(m_statistics.getForCurrentTest()).thenReturn(m_statisticsForTest);
+
+    final HTTPRequest page = new HTTPRequest();
+
+    final HTTPResponse[] responses = page.GETAll(resources);
+    assertEquals(3, responses.length);
+    assertEquals(asList(responses), processed);
+
+    for (int i = 0; i < resources.length; ++i) {
+      assertEquals(200, responses[i].getStatusCode());
+      assertEquals("resource", responses[i].getText());
+      assertEquals("/r" + i, responses[i].getOriginalURI().getPath());
+    }
+
+    verify(m_statisticsForTest, times(3))
+      .addLong(StatisticsIndexMap.HTTP_PLUGIN_RESPONSE_LENGTH_KEY, 8);
+
+    processed.clear();
+
+    final HTTPResponse[] responses2 = page.GETAll(resources, 2);
+    assertEquals(asList(responses2), processed);
+
+    for (int i = 0; i < resources.length; ++i) {
+      assertEquals("/r" + i, responses2[i].getOriginalURI().getPath());
+    }
+
+    assertEquals(0, page.GETAll(new HTTPRequest[0]).length);
+
+    try {
+      page.GETAll(resources, 0);
+      fail("Expected IllegalArgumentException");
+    }
+    catch (IllegalArgumentException e) {
+    }
+
+    try {
+      page.GETAll(new HTTPRequest[] { null });
+      fail("Expected NullPointerException");
+    }
+    catch (NullPointerException e) {
+    }
+  }
+
   @Test public void testConnectionTimingsAndStatistics() throws Exception {
 
     final ListTimeAuthority timeAuthority =
@@ -975,7 +1055,8 @@ public class TestHTTPRequest {
       new HTTPPluginThreadState(m_threadContext,
                                 m_sslContextFactory,
                                 null,
-                                timeAuthority);
+                                timeAuthority,
+                                new HTTPConnectionPool());
 
     when(m_pluginProcessContext.getPluginThreadListener())
       .thenReturn(threadState);
@@ -1016,6 +1097,289 @@ public class TestHTTPRequest {
     assertEquals(bodyText, response.getText());
   }
 
+  @Test public void testConnectionTimingsInReportingTimeUnit()
+      throws Exception {
+
+    final ListTimeAuthority timeAuthority =
+      new ListTimeAuthority(new long[] {
+          100, // start time
+          101, // start time (internal to HTTPResponse - i.e. post redirect)
+          123, // DNS time
+          200, // connection time
+          219, // time to first byte
+      });
+
+    final HTTPPluginThreadState threadState =
+      new HTTPPluginThreadState(m_threadContext,
+                                m_sslContextFactory,
+                                null,
+                                timeAuthority,
+                                new HTTPConnectionPool());
+
+    when(m_pluginProcessContext.getPluginThreadListener())
+      .thenReturn(threadState);
+    when(m_pluginProcessContext.getReportingTimeUnit())
+      .thenReturn(TimeUnit.MICROSECONDS);
+
+    when(m_statistics.isTestInProgress()).thenReturn(true);
+    when(m_statistics.getForCurrentTest()).thenReturn(m_statisticsForTest);
+
+    final HTTPRequest request = new HTTPRequest();
+    request.GET(m_handler.getURL());
+
+    verify(m_statisticsForTest)
+      .addLong(StatisticsIndexMap.HTTP_PLUGIN_DNS_TIME_KEY, 22000);
+    verify(m_statisticsForTest)
+      .addLong(StatisticsIndexMap.HTTP_PLUGIN_CONNECT_TIME_KEY, 99000);
+    verify(m_statisticsForTest)
+      .addLong(StatisticsIndexMap.HTTP_PLUGIN_FIRST_BYTE_TIME_KEY, 119000);
+  }
+
+  @Test public void testPooledConnectionStatistics() throws Exception {
+    final HTTPPluginConnectionDefaults connectionDefaults =
+      HTTPPluginConnectionDefaults.getConnectionDefaults();
+
+    final ConnectionLifetime originalLifetime =
+      connectionDefaults.getConnectionLifetime();
+
+    try {
+      connectionDefaults.setConnectionLifetime(ConnectionLifetime.PROCESS);
+
+      when(m_statistics.isTestInProgress()).thenReturn(true);
+      when(m_statistics.getForCurrentTest()).thenReturn(m_statisticsForTest);
+
+      final HTTPRequest request = new HTTPRequest();
+      request.GET(m_handler.getURL());
+
+      verify(m_statisticsForTest)
+        .addLong(StatisticsIndexMap.HTTP_PLUGIN_CONNECTION_POOL_MISSES, 1);
+      verify(m_statisticsForTest)
+        .addLong(StatisticsIndexMap.HTTP_PLUGIN_CONNECTIONS_ESTABLISHED, 1);
+
+      reset(m_statisticsForTest);
+
+      // A new run doesn't close pooled connections.
+      ((HTTPPluginThreadState)
+        m_pluginProcessContext.getPluginThreadListener()).beginRun();
+
+      request.GET(m_handler.getURL());
+
+      verify(m_statisticsForTest)
+        .addLong(StatisticsIndexMap.HTTP_PLUGIN_CONNECTION_POOL_HITS, 1);
+      verify(m_statisticsForTest)
+        .addLong(
+          eq(StatisticsIndexMap.HTTP_PLUGIN_CONNECTION_POOL_WAIT_TIME_KEY),
+          anyLong());
+      verify(m_statisticsForTest, never())
+        .addLong(StatisticsIndexMap.HTTP_PLUGIN_CONNECTION_POOL_MISSES, 1);
+
+      // The handler closes the socket after every response, so the pooled
+      // connection has to reconnect.
+      verify(m_statisticsForTest)
+        .addLong(StatisticsIndexMap.HTTP_PLUGIN_CONNECTIONS_ESTABLISHED, 1);
+    }
+    finally {
+      connectionDefaults.setConnectionLifetime(originalLifetime);
+    }
+  }
+
+  @Test public void testNonBlockingEngine() throws Exception {
+    final HTTPPluginConnectionDefaults connectionDefaults =
+      HTTPPluginConnectionDefaults.getConnectionDefaults();
+
+    final int originalTimeout = connectionDefaults.getTimeout();
+
+    try {
+      connectionDefaults.setEngine(Engine.NON_BLOCKING);
+
+      when(m_statistics.isTestInProgress()).thenReturn(true);
+      when(m_statistics.getForCurrentTest()).thenReturn(m_statisticsForTest);
+
+      final HTTPRequest request = new HTTPRequest();
+      m_handler.setBody("Hello");
+
+      final HTTPResponse response =
+        request.POST(m_handler.getURL() + "/foo",
+                     new NVPair[] { new NVPair("a", "b") });
+
+      assertEquals(200, response.getStatusCode());
+      assertEquals("Hello", response.getText());
+      assertEquals("POST /foo HTTP/1.1", m_handler.getRequestFirstHeader());
+      m_handler.assertRequestContainsHeader(
+        "Content-Type: application/x-www-form-urlencoded");
+      assertEquals("a=b", new String(m_handler.getLastRequestBody()));
+
+      verify(m_statisticsForTest)
+        .addLong(StatisticsIndexMap.HTTP_PLUGIN_RESPONSE_LENGTH_KEY, 5);
+      verify(m_statisticsForTest)
+        .setLong(StatisticsIndexMap.HTTP_PLUGIN_RESPONSE_STATUS_KEY, 200);
+      verify(m_statisticsForTest)
+        .addLong(eq(StatisticsIndexMap.HTTP_PLUGIN_FIRST_BYTE_TIME_KEY),
+                 anyLong());
+      verify(m_statisticsForTest)
+        .addLong(eq(StatisticsIndexMap.HTTP_PLUGIN_DNS_TIME_KEY), anyLong());
+      verify(m_statisticsForTest)
+        .addLong(eq(StatisticsIndexMap.HTTP_PLUGIN_CONNECT_TIME_KEY),
+                 anyLong());
+      verify(m_statisticsForTest)
+        .addLong(StatisticsIndexMap.HTTP_PLUGIN_CONNECTIONS_ESTABLISHED, 1);
+      verifyNoMoreInteractions(m_statisticsForTest);
+
+      request.GET(m_handler.getURL() + "/bah",
+                  new NVPair[] { new NVPair("x", "1") });
+      assertEquals("GET /bah?x=1 HTTP/1.1", m_handler.getRequestFirstHeader());
+
+      connectionDefaults.setTimeout(1);
+      m_handler.setResponseDelay(1000);
+
+      try {
+        request.GET(m_handler.getURL());
+        fail("Expected TimeoutException");
+      }
+      catch (final TimeoutException e) {
+      }
+    }
+    finally {
+      connectionDefaults.setEngine(Engine.HTTPCLIENT);
+      connectionDefaults.setTimeout(originalTimeout);
+    }
+  }
+
+  private ServerSocket createSSLServerSocket() throws Exception {
+    final InputStream keyStoreStream =
+      getClass().getResourceAsStream("resources/localhost.keystore");
+
+    try {
+      final SSLContext sslContext =
+        new InsecureSSLContextFactory(keyStoreStream,
+                                      "passphrase".toCharArray(),
+                                      "jks").getSSLContext();
+
+      return sslContext.getServerSocketFactory().createServerSocket(0);
+    }
+    finally {
+      keyStoreStream.close();
+    }
+  }
+
+  @Test public void testSSLHandshakeStatistics() throws Exception {
+    final HTTPRequestHandler handler =
+      new HTTPRequestHandler(createSSLServerSocket());
+    handler.start();
+
+    try {
+      when(m_statistics.isTestInProgress()).thenReturn(true);
+      when(m_statistics.getForCurrentTest()).thenReturn(m_statisticsForTest);
+
+      final HTTPRequest request = new HTTPRequest();
+
+      // The handler closes the connection after each response.
+      assertEquals(200, request.GET(handler.getURL()).getStatusCode());
+
+      verify(m_statisticsForTest)
+        .addLong(StatisticsIndexMap.HTTP_PLUGIN_SSL_FULL_HANDSHAKES, 1);
+      verify(m_statisticsForTest)
+        .addLong(StatisticsIndexMap.HTTP_PLUGIN_SSL_SESSIONS_RESUMED, 0);
+      verify(m_statisticsForTest)
+        .addLong(eq(StatisticsIndexMap.HTTP_PLUGIN_SSL_HANDSHAKE_TIME_KEY),
+                 anyLong());
+
+      reset(m_statisticsForTest);
+
+      assertEquals(200, request.GET(handler.getURL()).getStatusCode());
+
+      verify(m_statisticsForTest)
+        .addLong(StatisticsIndexMap.HTTP_PLUGIN_SSL_FULL_HANDSHAKES, 0);
+      verify(m_statisticsForTest)
+        .addLong(StatisticsIndexMap.HTTP_PLUGIN_SSL_SESSIONS_RESUMED, 1);
+    }
+    finally {
+      handler.shutdown();
+    }
+  }
+
+  @Test public void testSSLSessionResumptionDisabled() throws Exception {
+    final HTTPPluginConnectionDefaults connectionDefaults =
+      HTTPPluginConnectionDefaults.getConnectionDefaults();
+
+    final HTTPRequestHandler handler =
+      new HTTPRequestHandler(createSSLServerSocket());
+    handler.start();
+
+    try {
+      connectionDefaults.setUseSSLSessionResumption(false);
+
+      when(m_statistics.isTestInProgress()).thenReturn(true);
+      when(m_statistics.getForCurrentTest()).thenReturn(m_statisticsForTest);
+
+      final HTTPRequest request = new HTTPRequest();
+      request.GET(handler.getURL());
+      request.GET(handler.getURL());
+
+      verify(m_statisticsForTest, times(2))
+        .addLong(StatisticsIndexMap.HTTP_PLUGIN_SSL_FULL_HANDSHAKES, 1);
+      verify(m_statisticsForTest, never())
+        .addLong(StatisticsIndexMap.HTTP_PLUGIN_SSL_SESSIONS_RESUMED, 1);
+    }
+    finally {
+      connectionDefaults.setUseSSLSessionResumption(true);
+      handler.shutdown();
+    }
+  }
+
+  @Test public void testStreamResponseBody() throws Exception {
+    m_handler.setBody("{\"token\":\"abc123\",\"status\":\"ok\"}");
+
+    final BodyMatcher token = BodyMatcher.extract("\"token\":\"", "\"");
+    final BodyMatcher ok = BodyMatcher.contains("\"ok\"").required();
+
+    final HTTPRequest request = new HTTPRequest();
+    assertFalse(request.getStreamResponseBody());
+    assertEquals(0, request.getResponseBodyMatchers().length);
+
+    request.setStreamResponseBody(true);
+    request.setResponseBodyMatchers(new BodyMatcher[] { token, ok });
+    assertTrue(request.getStreamResponseBody());
+    assertEquals(2, request.getResponseBodyMatchers().length);
+
+    when(m_statistics.isTestInProgress()).thenReturn(true);
+    when(m_statistics.getForCurrentTest()).thenReturn(m_statisticsForTest);
+
+    final HTTPResponse response = request.GET(m_handler.getURL());
+    assertEquals(0, response.getData().length);
+
+    final HTTPUtilities httpUtilities =
+      new HTTPUtilitiesImplementation(m_pluginProcessContext);
+
+    final StreamedResponseBody body =
+      httpUtilities.getLastStreamedResponseBody();
+
+    assertEquals(32, body.getLength());
+    assertEquals("abc123", body.getValue(token));
+    assertTrue(body.isMatched(ok));
+
+    verify(m_statisticsForTest)
+      .addLong(StatisticsIndexMap.HTTP_PLUGIN_RESPONSE_LENGTH_KEY, 32);
+    verify(m_statisticsForTest, never())
+      .addLong(StatisticsIndexMap.HTTP_PLUGIN_RESPONSE_ERRORS_KEY, 1);
+
+    // A required matcher that fails is counted as an error.
+    request.setResponseBodyMatchers(
+      new BodyMatcher[] { BodyMatcher.contains("\"failed\"").required() });
+
+    request.GET(m_handler.getURL());
+
+    verify(m_statisticsForTest)
+      .addLong(StatisticsIndexMap.HTTP_PLUGIN_RESPONSE_ERRORS_KEY, 1);
+    verify(m_logger).warn(m_stringCaptor.capture());
+    assertContains(m_stringCaptor.getValue(), "failed");
+
+    // Responses that are not streamed have no streamed body.
+    request.setStreamResponseBody(false);
+    request.GET(m_handler.getURL());
+    assertNull(httpUtilities.getLastStreamedResponseBody());
+  }
+
   @Test public void testConnectionTimingsAndStatisticsInvalidTimes()
       throws Exception {
 
@@ -1032,7 +1396,8 @@ public class TestHTTPRequest {
       new HTTPPluginThreadState(m_threadContext,
                                 m_sslContextFactory,
                                 null,
-                                timeAuthority);
+                                timeAuthority,
+                                new HTTPConnectionPool());
 
     when(m_pluginProcessContext.getPluginThreadListener())
       .thenReturn(threadState);
@@ -1087,7 +1452,8 @@ public class TestHTTPRequest {
       new HTTPPluginThreadState(m_threadContext,
                                 m_sslContextFactory,
                                 null,
-                                timeAuthority);
+                                timeAuthority,
+                                new HTTPConnectionPool());
 
     when(m_pluginProcessContext.getPluginThreadListener())
       .thenReturn(threadState);
@@ -1309,6 +1675,10 @@ public class TestHTTPRequest {
     return result;
   }
 
+  /**
+   * Returns successive times from a list. The times are in milliseconds,
+   * and are scaled when read from the high resolution clock.
+   */
   private static class ListTimeAuthority implements TimeAuthority {
 
     private long[] m_times;
@@ -1327,5 +1697,10 @@ public class TestHTTPRequest {
     public long getTimeInMilliseconds() {
       return m_times[++m_last];
     }
+
+    @Override
+    public long getTimeInNanoseconds() {
+      return TimeUnit.MILLISECONDS.toNanos(getTimeInMilliseconds());
+    }
   }
 }
@@ -28,6 +28,9 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertSame;
 import static org.mockito.Answers.RETURNS_MOCKS;
 import static org.mockito.Mockito.when;
+
+import java.util.concurrent.TimeUnit;
+
 import net.grinder.common.GrinderException;
 import net.grinder.common.SSLContextFactory;
 import net.grinder.plugininterface.GrinderPlugin;
@@ -74,7 +77,8 @@ public class TestHTTPUtilitiesImplementation {
       new HTTPPluginThreadState(m_threadContext,
                                 m_sslContextFactory,
                                 null,
-                                timeAuthority);
+                                timeAuthority,
+                                new HTTPConnectionPool());
 
     when(m_scriptContext.getStatistics()).thenReturn(m_statistics);
 
@@ -86,6 +90,8 @@ public class TestHTTPUtilitiesImplementation {
       .thenReturn(StatisticsServicesImplementation.getInstance());
 
     when(m_pluginProcessContext.getTimeAuthority()).thenReturn(timeAuthority);
+    when(m_pluginProcessContext.getReportingTimeUnit())
+      .thenReturn(TimeUnit.MILLISECONDS);
 
     new PluginRegistry() {
       {
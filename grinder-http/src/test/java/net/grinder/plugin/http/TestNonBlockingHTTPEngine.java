@@ -0,0 +1,323 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+
+package net.grinder.plugin.http;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.grinder.plugin.http.NonBlockingHTTPEngine.Exchange;
+import net.grinder.util.StandardTimeAuthority;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import HTTPClient.HTTPResponse;
+import HTTPClient.NVPair;
+import HTTPClient.URI;
+
+
+/**
+ * Unit tests for {@link NonBlockingHTTPEngine}.
+ *
+ * @author Philip Aston
+ */
+public class TestNonBlockingHTTPEngine {
+
+  private static final NVPair[] NO_HEADERS = new NVPair[0];
+
+  private final NonBlockingHTTPEngine m_engine =
+    new NonBlockingHTTPEngine(new StandardTimeAuthority());
+
+  private HTTPRequestHandler m_handler;
+
+  @Before public void setUp() throws Exception {
+    m_handler = new HTTPRequestHandler();
+    m_handler.start();
+  }
+
+  @After public void tearDown() throws Exception {
+    m_handler.shutdown();
+    m_engine.shutdown();
+  }
+
+  private Exchange exchange(String method,
+                            String url,
+                            String path,
+                            NVPair[] headers,
+                            byte[] body,
+                            int timeout) throws Exception {
+    return new Exchange(method, new URI(url), path, headers, body, timeout,
+                        null);
+  }
+
+  @Test public void testGET() throws Exception {
+    m_handler.setBody("Hello world");
+
+    final Exchange exchange =
+      exchange("GET", m_handler.getURL(), "/foo?x=1",
+               new NVPair[] { new NVPair("Accept", "text/plain"), null },
+               null, 0);
+
+    m_engine.submit(exchange);
+
+    final HTTPResponse response = exchange.getResponse();
+
+    assertEquals(200, response.getStatusCode());
+    assertEquals("OK", response.getReasonLine());
+    assertEquals("Hello world", response.getText());
+    assertEquals("/foo", response.getOriginalURI().getPath());
+    assertEquals("x=1", response.getOriginalURI().getQueryString());
+
+    assertEquals("GET /foo?x=1 HTTP/1.1", m_handler.getRequestFirstHeader());
+    m_handler.assertRequestContainsHeader("Accept: text/plain");
+    m_handler.assertRequestContainsHeader(
+      "Host: localhost:" + new URI(m_handler.getURL()).getPort());
+
+    assertTrue(exchange.isNewConnection());
+    assertTrue(exchange.getStartTime() <= response.getTimeToFirstByte());
+    assertTrue(exchange.getDnsTime() >= 0);
+    assertTrue(exchange.getConnectTime() >= 0);
+  }
+
+  @Test public void testPOST() throws Exception {
+    final byte[] body = "Some data".getBytes();
+
+    final Exchange exchange =
+      exchange("POST", m_handler.getURL(), "",
+               new NVPair[] { new NVPair("Content-Length", "99"),
+                              new NVPair("User-Agent", "Grinder"), },
+               body, 0);
+
+    m_engine.submit(exchange);
+    assertEquals(200, exchange.getResponse().getStatusCode());
+
+    assertEquals("POST / HTTP/1.1", m_handler.getRequestFirstHeader());
+    m_handler.assertRequestContainsHeader("Content-Length: 9");
+    m_handler.assertRequestContainsHeader("User-Agent: Grinder");
+    m_handler.assertRequestDoesNotContainHeader("Content-Length: 99");
+    assertArrayEquals(body, m_handler.getLastRequestBody());
+  }
+
+  @Test public void testChunkedResponse() throws Exception {
+    m_handler.shutdown();
+
+    m_handler = new HTTPRequestHandler() {
+      @Override protected void writeHeaders(StringBuffer response) {
+        response.append("HTTP/1.1 100 Continue\r\n\r\n");
+        response.append("HTTP/1.1 201 Created\r\n");
+        response.append("Transfer-Encoding: chunked\r\n");
+        response.append("X-Foo: 1\r\n");
+        response.append("x-foo: 2\r\n");
+      }
+    };
+
+    m_handler.setBody("5;ext=1\r\nHello\r\n6\r\n world\r\n0\r\nA: b\r\n\r\n");
+    m_handler.start();
+
+    final Exchange exchange =
+      exchange("GET", m_handler.getURL(), "/", NO_HEADERS, null, 0);
+    m_engine.submit(exchange);
+
+    final HTTPResponse response = exchange.getResponse();
+    assertEquals(201, response.getStatusCode());
+    assertEquals("Hello world", response.getText());
+    assertEquals("1, 2", response.getHeader("X-Foo"));
+  }
+
+  @Test public void testHEAD() throws Exception {
+    m_handler.addHeader("Content-Length", "100");
+
+    final Exchange exchange =
+      exchange("HEAD", m_handler.getURL(), "/", NO_HEADERS, null, 0);
+    m_engine.submit(exchange);
+
+    final HTTPResponse response = exchange.getResponse();
+    assertEquals(200, response.getStatusCode());
+    assertEquals(0, response.getData().length);
+    assertEquals("100", response.getHeader("Content-Length"));
+  }
+
+  @Test public void testTimeout() throws Exception {
+    m_handler.setResponseDelay(1000);
+
+    final Exchange exchange =
+      exchange("GET", m_handler.getURL(), "/", NO_HEADERS, null, 50);
+    m_engine.submit(exchange);
+
+    try {
+      exchange.getResponse();
+      fail("Expected SocketTimeoutException");
+    }
+    catch (SocketTimeoutException e) {
+    }
+  }
+
+  @Test public void testConnectionRefused() throws Exception {
+    final String url = m_handler.getURL();
+    m_handler.shutdown();
+
+    final Exchange exchange = exchange("GET", url, "/", NO_HEADERS, null, 0);
+    m_engine.submit(exchange);
+
+    try {
+      exchange.getResponse();
+      fail("Expected IOException");
+    }
+    catch (IOException e) {
+    }
+  }
+
+  @Test public void testKeepAlive() throws Exception {
+    final KeepAliveServer server = new KeepAliveServer(2);
+
+    try {
+      final List<Exchange> exchanges = new ArrayList<Exchange>();
+
+      for (int i = 0; i < 4; ++i) {
+        final Exchange exchange =
+          exchange("GET", server.getURL(), "/", NO_HEADERS, null, 5000);
+        m_engine.submit(exchange);
+        assertEquals("response", exchange.getResponse().getText());
+        exchanges.add(exchange);
+      }
+
+      // The server closes each connection after two responses. The third
+      // request is retried on a new connection.
+      assertTrue(exchanges.get(0).isNewConnection());
+      assertFalse(exchanges.get(1).isNewConnection());
+      assertTrue(exchanges.get(2).isNewConnection());
+      assertFalse(exchanges.get(3).isNewConnection());
+      assertEquals(2, server.getConnections());
+    }
+    finally {
+      server.shutdown();
+    }
+  }
+
+  @Test public void testManyConcurrentExchanges() throws Exception {
+    m_handler.setBody("x");
+
+    final List<Exchange> exchanges = new ArrayList<Exchange>();
+
+    for (int i = 0; i < 20; ++i) {
+      final Exchange exchange =
+        exchange("GET", m_handler.getURL(), "/" + i, NO_HEADERS, null, 5000);
+      m_engine.submit(exchange);
+      exchanges.add(exchange);
+    }
+
+    for (Exchange exchange : exchanges) {
+      assertEquals("x", exchange.getResponse().getText());
+    }
+  }
+
+  @Test public void testShutdown() throws Exception {
+    m_engine.shutdown();
+
+    try {
+      m_engine.submit(
+        exchange("GET", m_handler.getURL(), "/", NO_HEADERS, null, 0));
+      fail("Expected IOException");
+    }
+    catch (IOException e) {
+    }
+  }
+
+  /**
+   * Serves a fixed number of responses on each connection, then closes it.
+   */
+  private static final class KeepAliveServer implements Runnable {
+    private final ServerSocket m_serverSocket = new ServerSocket(0);
+    private final int m_responsesPerConnection;
+    private final AtomicInteger m_connections = new AtomicInteger();
+
+    public KeepAliveServer(int responsesPerConnection) throws IOException {
+      m_responsesPerConnection = responsesPerConnection;
+      new Thread(this, getClass().getName()).start();
+    }
+
+    public String getURL() {
+      return "http://localhost:" + m_serverSocket.getLocalPort();
+    }
+
+    public int getConnections() {
+      return m_connections.get();
+    }
+
+    public void shutdown() throws IOException {
+      m_serverSocket.close();
+    }
+
+    public void run() {
+      try {
+        while (true) {
+          final Socket socket = m_serverSocket.accept();
+          m_connections.incrementAndGet();
+
+          final InputStream in = socket.getInputStream();
+          final OutputStream out = socket.getOutputStream();
+
+          for (int i = 0; i < m_responsesPerConnection; ++i) {
+            // Read up to the end of the request headers.
+            int matched = 0;
+
+            while (matched < 4) {
+              final int b = in.read();
+
+              if (b < 0) {
+                break;
+              }
+
+              matched = b == "\r\n\r\n".charAt(matched) ? matched + 1 :
+                        b == '\r' ? 1 : 0;
+            }
+
+            out.write(("HTTP/1.1 200 OK\r\n" +
+                       "Content-Length: 8\r\n\r\n" +
+                       "response").getBytes());
+            out.flush();
+          }
+
+          socket.close();
+        }
+      }
+      catch (IOException e) {
+        // Server shut down.
+      }
+    }
+  }
+}
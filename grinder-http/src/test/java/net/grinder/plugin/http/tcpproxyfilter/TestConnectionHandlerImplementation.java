@@ -446,6 +446,68 @@ public class TestConnectionHandlerImplementation
       m_responseTokenRTCaptor.getValue().getSource());
   }
 
+  @Test public void testResponseMessageWithLargeTokens() throws Exception {
+    final ConnectionHandler handler =
+      new ConnectionHandlerImplementation(
+        m_httpRecording, m_logger, m_regularExpressions,
+        m_uriParser, m_attributeStringParser, null, m_commentSource, m_connectionDetails);
+
+    final RequestType request = RequestType.Factory.newInstance();
+    request.addNewHeaders();
+    request.setMethod(RequestType.Method.Enum.forString("GET"));
+
+    when(m_httpRecording.addRequest(m_connectionDetails, "GET", "/"))
+    .thenReturn(request);
+
+    final String message = "GET / HTTP/1.0\r\n";
+    final byte[] buffer = message.getBytes();
+    handler.handleRequest(buffer, buffer.length);
+
+    final StringBuilder padding = new StringBuilder();
+    final StringBuilder value = new StringBuilder();
+
+    for (int i = 0; i < 0x18000; ++i) {
+      padding.append(' ');
+      value.append((char) ('a' + i % 26));
+    }
+
+    // Body is larger than the in-memory threshold, and the matches are
+    // larger than it too.
+    final String response =
+      "HTTP/1.0 200 OK\r\n" +
+      "\r\n" +
+      "<html><body>" + padding +
+      "<a href='./foo?token=" + value + "'>Hello world</a>" + padding +
+      "<form><input type='hidden' name='foo' value='" + value + "'/>" +
+      "</form></body></html>";
+
+    final byte[] responseBuffer = response.getBytes("ISO8859_1");
+
+    for (int i = 0; i < responseBuffer.length; i += 0x1000) {
+      final byte[] chunk = new byte[Math.min(0x1000, responseBuffer.length - i)];
+      System.arraycopy(responseBuffer, i, chunk, 0, chunk.length);
+      handler.handleResponse(chunk, chunk.length);
+    }
+
+    handler.requestFinished();
+
+    verify(m_httpRecording)
+    .setTokenReference(eq("token"),
+                       eq(value.toString()),
+                       m_responseTokenRTCaptor.capture());
+
+    assertEquals(TokenResponseLocationType.RESPONSE_BODY_URI_QUERY_STRING.toString(),
+      m_responseTokenRTCaptor.getValue().getSource());
+
+    verify(m_httpRecording)
+    .setTokenReference(eq("foo"),
+                       eq(value.toString()),
+                       m_responseTokenRTCaptor.capture());
+
+    assertEquals(TokenResponseLocationType.RESPONSE_BODY_HIDDEN_INPUT.toString(),
+      m_responseTokenRTCaptor.getValue().getSource());
+  }
+
   @Test public void testRequestStringBody() throws Exception {
     final ConnectionHandler handler =
       new ConnectionHandlerImplementation(
@@ -30,13 +30,17 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.isA;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import net.grinder.plugin.http.xml.BasicAuthorizationHeaderType;
 import net.grinder.plugin.http.xml.CommonHeadersType;
@@ -58,9 +62,10 @@ import net.grinder.util.http.URIParserImplementation;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
-import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.slf4j.Logger;
 
 import HTTPClient.NVPair;
@@ -76,9 +81,11 @@ public class TestHTTPRecordingImplementation {
   private static final EndPoint endPoint1 = new EndPoint("hostA", 80);
   private static final EndPoint endPoint2 = new EndPoint("hostB", 80);
 
-  @Mock private HTTPRecordingResultProcessor m_resultProcessor;
+  @Mock private HTTPRecordingFileProcessor m_resultProcessor;
   @Mock private Logger m_logger;
-  @Captor private ArgumentCaptor<HttpRecordingDocument> m_recordingCaptor;
+
+  private final List<HttpRecordingDocument> m_recordings =
+    new ArrayList<HttpRecordingDocument>();
 
   private final RegularExpressions m_regularExpressions =
     new RegularExpressionsImplementation();
@@ -90,9 +97,19 @@ public class TestHTTPRecordingImplementation {
 
   private HTTPRecordingImplementation m_httpRecording;
 
-  @Before public void setUp() {
+  @Before public void setUp() throws Exception {
     MockitoAnnotations.initMocks(this);
 
+    // The recording file is deleted after process() returns.
+    doAnswer(new Answer<Void>() {
+      @Override public Void answer(InvocationOnMock invocation)
+        throws Throwable {
+        final File file = (File)invocation.getArguments()[0];
+        m_recordings.add(HttpRecordingDocument.Factory.parse(file));
+        return null;
+      }
+    }).when(m_resultProcessor).process(isA(File.class));
+
     m_httpRecording =
         new HTTPRecordingImplementation(new ParametersFromProperties(),
                                         m_resultProcessor,
@@ -111,12 +128,12 @@ public class TestHTTPRecordingImplementation {
     m_httpRecording.dispose();
     m_httpRecording.dispose();
 
-    verify(m_resultProcessor, times(2)).process(m_recordingCaptor.capture());
+    verify(m_resultProcessor, times(2)).process(isA(File.class));
 
     final HttpRecordingDocument recording =
-        m_recordingCaptor.getAllValues().get(0);
+        m_recordings.get(0);
     final HttpRecordingDocument recording2 =
-        m_recordingCaptor.getAllValues().get(1);
+        m_recordings.get(1);
 
     XMLBeansUtilities.validate(recording);
     XMLBeansUtilities.validate(recording2);
@@ -133,13 +150,38 @@ public class TestHTTPRecordingImplementation {
 
     final IOException exception = new IOException("Eat me");
     doThrow(exception)
-    .when(m_resultProcessor).process(isA(HttpRecordingDocument.class));
+    .when(m_resultProcessor).process(isA(File.class));
 
     m_httpRecording.dispose();
 
     verify(m_logger).error(exception.getMessage(), exception);
   }
 
+  @Test public void testDocumentResultProcessor() throws Exception {
+    final HTTPRecordingResultProcessor resultProcessor =
+      mock(HTTPRecordingResultProcessor.class);
+
+    final HTTPRecordingImplementation httpRecording =
+      new HTTPRecordingImplementation(new ParametersFromProperties(),
+                                      resultProcessor,
+                                      m_logger,
+                                      m_regularExpressions,
+                                      m_uriParser);
+
+    httpRecording.addRequest(m_connectionDetails1, "GET", "/")
+      .addNewResponse();
+
+    httpRecording.dispose();
+
+    final ArgumentCaptor<HttpRecordingDocument> captor =
+      ArgumentCaptor.forClass(HttpRecordingDocument.class);
+
+    verify(resultProcessor).process(captor.capture());
+
+    XMLBeansUtilities.validate(captor.getValue());
+    assertEquals(1, captor.getValue().getHttpRecording().sizeOfPageArray());
+  }
+
   @Test public void testAddRequest() throws Exception {
     final EndPoint endPoint3 = new EndPoint("hostC", 80);
     final String[] userComments = new String[]{
@@ -201,9 +243,9 @@ public class TestHTTPRecordingImplementation {
 
     m_httpRecording.dispose();
 
-    verify(m_resultProcessor).process(m_recordingCaptor.capture());
+    verify(m_resultProcessor).process(isA(File.class));
 
-    final HttpRecordingDocument recording = m_recordingCaptor.getValue();
+    final HttpRecordingDocument recording = m_recordings.get(0);
 
     XMLBeansUtilities.validate(recording);
 
@@ -233,6 +275,45 @@ public class TestHTTPRecordingImplementation {
     assertTrue(page1.getRequestArray(2).isSetAnnotation());
   }
 
+  @Test public void testRequestFinished() throws Exception {
+    final RequestType request1 =
+      m_httpRecording.addRequest(m_connectionDetails1, "GET", "/one");
+    request1.addNewResponse();
+
+    final RequestType request2 =
+      m_httpRecording.addRequest(m_connectionDetails1, "POST", "/two");
+    request2.addNewResponse();
+    request2.addNewBody().setEscapedString("data");
+
+    final RequestType request3 =
+      m_httpRecording.addRequest(m_connectionDetails1, "GET", "/three");
+    request3.addNewResponse();
+
+    // Finished out of order. Request 2 is still in memory when the
+    // recording is first written, and must be merged with the journal.
+    m_httpRecording.requestFinished(request3);
+    m_httpRecording.requestFinished(request1);
+
+    m_httpRecording.dispose();
+
+    m_httpRecording.requestFinished(request2);
+
+    m_httpRecording.dispose();
+
+    verify(m_resultProcessor, times(2)).process(isA(File.class));
+
+    for (HttpRecordingDocument recording : m_recordings) {
+      XMLBeansUtilities.validate(recording);
+
+      final PageType[] pages = recording.getHttpRecording().getPageArray();
+      assertEquals(3, pages.length);
+      assertEquals("GET one", pages[0].getRequestArray(0).getDescription());
+      assertEquals("POST two", pages[1].getRequestArray(0).getDescription());
+      assertEquals("GET three",
+                   pages[2].getRequestArray(0).getDescription());
+    }
+  }
+
   @Test public void testAddRequestWithComplexPaths() throws Exception {
     // Request 1
     final RequestType request1 =
@@ -347,10 +428,10 @@ public class TestHTTPRecordingImplementation {
 
     m_httpRecording.dispose();
 
-    verify(m_resultProcessor).process(m_recordingCaptor.capture());
+    verify(m_resultProcessor).process(isA(File.class));
 
     final HTTPRecordingType recording =
-      m_recordingCaptor.getValue().getHttpRecording();
+      m_recordings.get(0).getHttpRecording();
 
     // Default, plus 2 sets.
     assertEquals(3, recording.getCommonHeadersArray().length);
@@ -405,21 +486,24 @@ public class TestHTTPRecordingImplementation {
                                       new NVPair("Accept", "x")));
     request1.addNewResponse();
 
-    final String originalRequestXML = request1.xmlText();
-
     m_httpRecording.dispose();
 
-    verify(m_resultProcessor).process(m_recordingCaptor.capture());
+    verify(m_resultProcessor).process(isA(File.class));
 
     final HTTPRecordingType recording =
-      m_recordingCaptor.getValue().getHttpRecording();
+      m_recordings.get(0).getHttpRecording();
 
     assertEquals(0, recording.getCommonHeadersArray().length);
 
     final RequestType request = recording.getPageArray(0).getRequestArray(0);
     final HeadersType headers = request.getHeaders();
     assertNull(headers.getExtends());
-    assertEquals(originalRequestXML, request.xmlText());
+    assertEquals(3, headers.sizeOfHeaderArray());
+    assertEquals("foo", headers.getHeaderArray(0).getName());
+    assertEquals("bah", headers.getHeaderArray(0).getValue());
+    assertEquals("User-Agent", headers.getHeaderArray(1).getName());
+    assertEquals("Accept", headers.getHeaderArray(2).getName());
+    assertEquals("x", headers.getHeaderArray(2).getValue());
   }
 
   @Test public void testExtractHeadersNoCommonHeaders() throws Exception {
@@ -442,10 +526,10 @@ public class TestHTTPRecordingImplementation {
 
     m_httpRecording.dispose();
 
-    verify(m_resultProcessor).process(m_recordingCaptor.capture());
+    verify(m_resultProcessor).process(isA(File.class));
 
     final HTTPRecordingType recording =
-      m_recordingCaptor.getValue().getHttpRecording();
+      m_recordings.get(0).getHttpRecording();
 
     assertEquals(0, recording.getCommonHeadersArray().length);
   }
@@ -470,10 +554,10 @@ public class TestHTTPRecordingImplementation {
 
     m_httpRecording.dispose();
 
-    verify(m_resultProcessor).process(m_recordingCaptor.capture());
+    verify(m_resultProcessor).process(isA(File.class));
 
     final HTTPRecordingType recording =
-      m_recordingCaptor.getValue().getHttpRecording();
+      m_recordings.get(0).getHttpRecording();
 
     assertEquals(1, recording.getCommonHeadersArray().length);
 
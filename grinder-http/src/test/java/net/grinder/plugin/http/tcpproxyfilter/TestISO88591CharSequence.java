@@ -0,0 +1,70 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.plugin.http.tcpproxyfilter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+
+/**
+ * Unit tests for {@link ISO88591CharSequence}.
+ *
+ * @author Philip Aston
+ */
+public class TestISO88591CharSequence {
+
+  @Test public void testCharSequence() throws Exception {
+    final byte[] bytes = "xhello w\u00f6rld".getBytes("ISO8859_1");
+    final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    buffer.position(1);
+
+    final CharSequence s = new ISO88591CharSequence(buffer);
+
+    assertEquals(1, buffer.position());
+    assertEquals(11, s.length());
+    assertEquals('h', s.charAt(0));
+    assertEquals('\u00f6', s.charAt(7));
+    assertEquals("hello w\u00f6rld", s.toString());
+
+    final CharSequence sub = s.subSequence(6, 9);
+    assertEquals("w\u00f6r", sub.toString());
+    assertEquals("\u00f6", sub.subSequence(1, 2).toString());
+    assertEquals("", s.subSequence(11, 11).toString());
+
+    try {
+      s.subSequence(5, 12);
+      fail("Expected IndexOutOfBoundsException");
+    }
+    catch (IndexOutOfBoundsException e) {
+    }
+
+    final Matcher matcher = Pattern.compile("w(.)r").matcher(s);
+    assertEquals(true, matcher.find());
+    assertEquals("\u00f6", matcher.group(1));
+  }
+}
@@ -102,6 +102,27 @@ public class TestProcessHTTPRecordingWithXSLT
     verifyNoMoreInteractions(m_logger);
   }
 
+  @Test public void testWithFile() throws Exception {
+    final ProcessHTTPRecordingWithXSLT processor =
+      new ProcessHTTPRecordingWithXSLT(BuiltInStyleSheet.Clojure,
+                                       m_out,
+                                       m_logger);
+
+    final HttpRecordingDocument document =
+      HttpRecordingDocument.Factory.newInstance();
+    final HTTPRecordingType recording = document.addNewHttpRecording();
+    recording.addNewMetadata().setVersion("blah");
+    recording.getMetadata().setTime(Calendar.getInstance());
+
+    final File file = new File(getDirectory(), "recording.xml");
+    document.save(file);
+
+    processor.process(file);
+    verifyNoMoreInteractions(m_logger);
+
+    AssertUtilities.assertContains(m_stringOut.toString(), ";; blah");
+  }
+
   @Test public void testWithStandardTransform() throws Exception {
     final ProcessHTTPRecordingWithXSLT processor =
       new ProcessHTTPRecordingWithXSLT(m_out, m_logger);
@@ -0,0 +1,121 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.plugin.http.tcpproxyfilter;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.grinder.plugin.http.xml.RequestType;
+
+import org.junit.Test;
+
+
+/**
+ * Unit tests for {@link RequestJournal}.
+ *
+ * @author Philip Aston
+ */
+public class TestRequestJournal {
+
+  private final List<RequestType> m_requests = new ArrayList<RequestType>();
+
+  private final RequestJournal.Listener m_listener =
+    new RequestJournal.Listener() {
+      @Override public void request(long sequence, RequestType request) {
+        m_requests.add(request);
+      }
+    };
+
+  private static RequestType request(String description) {
+    final RequestType result = RequestType.Factory.newInstance();
+    result.setDescription(description);
+    result.addNewResponse().setStatusCode(200);
+    return result;
+  }
+
+  @Test public void testEmpty() throws Exception {
+    final RequestJournal journal = new RequestJournal();
+
+    assertEquals(0, journal.size());
+    journal.replay(m_listener);
+    assertEquals(0, m_requests.size());
+
+    journal.close();
+  }
+
+  @Test public void testAppendAndReplay() throws Exception {
+    final RequestJournal journal = new RequestJournal();
+
+    journal.append(0, request("one"));
+    journal.append(1, request("two \u00e9"));
+    assertEquals(2, journal.size());
+
+    journal.replay(m_listener);
+    assertEquals(2, m_requests.size());
+    assertEquals("one", m_requests.get(0).getDescription());
+    assertEquals("two \u00e9", m_requests.get(1).getDescription());
+    assertEquals(200, m_requests.get(1).getResponse().getStatusCode());
+
+    // Can append after close.
+    journal.close();
+    journal.append(2, request("three"));
+
+    m_requests.clear();
+    journal.replay(m_listener);
+    assertEquals(3, m_requests.size());
+    assertEquals("three", m_requests.get(2).getDescription());
+
+    journal.close();
+  }
+
+  @Test public void testReplayInSequenceOrder() throws Exception {
+    final RequestJournal journal = new RequestJournal();
+
+    journal.append(5, request("five"));
+    journal.append(1, request("one"));
+    journal.append(3, request("three"));
+    assertEquals(3, journal.size());
+
+    journal.replay(m_listener);
+    assertEquals(3, m_requests.size());
+    assertEquals("one", m_requests.get(0).getDescription());
+    assertEquals("three", m_requests.get(1).getDescription());
+    assertEquals("five", m_requests.get(2).getDescription());
+
+    journal.close();
+  }
+
+  @Test(expected=IOException.class)
+  public void testListenerException() throws Exception {
+    final RequestJournal journal = new RequestJournal();
+    journal.append(0, request("one"));
+
+    journal.replay(new RequestJournal.Listener() {
+      @Override public void request(long sequence, RequestType request) throws IOException {
+        throw new IOException("Nope");
+      }
+    });
+  }
+}
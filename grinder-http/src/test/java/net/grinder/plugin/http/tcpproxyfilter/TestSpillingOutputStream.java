@@ -0,0 +1,105 @@
+// Copyright (C) 2026 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.plugin.http.tcpproxyfilter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+
+/**
+ * Unit tests for {@link SpillingOutputStream}.
+ *
+ * @author Philip Aston
+ */
+public class TestSpillingOutputStream {
+
+  private static byte[] bytes(int size) {
+    final byte[] result = new byte[size];
+
+    for (int i = 0; i < size; ++i) {
+      result[i] = (byte) i;
+    }
+
+    return result;
+  }
+
+  private static byte[] toArray(ByteBuffer buffer) {
+    final byte[] result = new byte[buffer.remaining()];
+    buffer.get(result);
+    return result;
+  }
+
+  @Test public void testInMemory() throws Exception {
+    final SpillingOutputStream out = new SpillingOutputStream(1000);
+
+    assertEquals(0, out.size());
+    assertEquals(0, out.toByteArray().length);
+
+    final byte[] data = bytes(1000);
+    out.write(data, 0, 500);
+    out.write(data[500]);
+    out.write(data, 501, 499);
+
+    assertEquals(1000, out.size());
+    assertFalse(out.isSpilled());
+    assertArrayEquals(data, out.toByteArray());
+    assertArrayEquals(data, toArray(out.toByteBuffer()));
+
+    out.close();
+  }
+
+  @Test public void testSpilled() throws Exception {
+    final SpillingOutputStream out = new SpillingOutputStream(100);
+
+    final byte[] data = bytes(10000);
+    out.write(data, 0, 50);
+    assertFalse(out.isSpilled());
+
+    out.write(data, 50, 9950);
+    assertTrue(out.isSpilled());
+    assertEquals(10000, out.size());
+    assertArrayEquals(data, out.toByteArray());
+
+    final ByteArrayOutputStream copy = new ByteArrayOutputStream();
+    out.writeTo(copy);
+    assertArrayEquals(data, copy.toByteArray());
+
+    final ByteBuffer buffer = out.toByteBuffer();
+    assertTrue(buffer.isReadOnly());
+    assertArrayEquals(data, toArray(buffer));
+
+    final InputStream in = out.openInputStream();
+    assertEquals(0, in.read());
+    assertEquals(1, in.read());
+    in.close();
+
+    out.close();
+  }
+}
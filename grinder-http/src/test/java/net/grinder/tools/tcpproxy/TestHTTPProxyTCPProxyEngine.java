@@ -1,4 +1,4 @@
-// Copyright (C) 2005 - 2012 Philip Aston
+// Copyright (C) 2005 - 2026 Philip Aston
 // All rights reserved.
 //
 // This file is part of The Grinder software distribution. Refer to
@@ -25,6 +25,7 @@ import static net.grinder.testutility.SocketUtilities.findFreePort;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
 import static org.mockito.Matchers.contains;
 import static org.mockito.Matchers.isA;
 import static org.mockito.Matchers.same;
@@ -44,6 +45,8 @@ import java.net.Socket;
 import java.net.SocketException;
 import java.net.UnknownHostException;
 import java.security.Security;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.regex.Matcher;
@@ -60,6 +63,9 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
@@ -68,12 +74,84 @@ import org.slf4j.Logger;
 
 
 /**
- * Unit tests for {@link HTTPProxyTCPProxyEngine}.
+ * Unit tests for {@link HTTPProxyTCPProxyEngine} and
+ * {@link EventLoopHTTPProxyTCPProxyEngine}.
  *
  * @author Philip Aston
  */
+@RunWith(Parameterized.class)
 public class TestHTTPProxyTCPProxyEngine {
 
+  /**
+   * Creates the engine under test.
+   */
+  private interface EngineFactory {
+    AbstractTCPProxyEngine create(TCPProxySSLSocketFactory sslSocketFactory,
+                                  TCPProxyFilter requestFilter,
+                                  TCPProxyFilter responseFilter,
+                                  PrintWriter output,
+                                  Logger logger,
+                                  EndPoint localEndPoint,
+                                  boolean useColour,
+                                  int timeout) throws IOException;
+  }
+
+  private static final EngineFactory THREADED = new EngineFactory() {
+      public AbstractTCPProxyEngine create(
+        TCPProxySSLSocketFactory sslSocketFactory,
+        TCPProxyFilter requestFilter,
+        TCPProxyFilter responseFilter,
+        PrintWriter output,
+        Logger logger,
+        EndPoint localEndPoint,
+        boolean useColour,
+        int timeout) throws IOException {
+
+        return new HTTPProxyTCPProxyEngine(sslSocketFactory,
+                                           requestFilter,
+                                           responseFilter,
+                                           output,
+                                           logger,
+                                           localEndPoint,
+                                           useColour,
+                                           timeout,
+                                           null,
+                                           null);
+      }
+    };
+
+  private static final EngineFactory EVENT_LOOP = new EngineFactory() {
+      public AbstractTCPProxyEngine create(
+        TCPProxySSLSocketFactory sslSocketFactory,
+        TCPProxyFilter requestFilter,
+        TCPProxyFilter responseFilter,
+        PrintWriter output,
+        Logger logger,
+        EndPoint localEndPoint,
+        boolean useColour,
+        int timeout) throws IOException {
+
+        return new EventLoopHTTPProxyTCPProxyEngine(sslSocketFactory,
+                                                    requestFilter,
+                                                    responseFilter,
+                                                    output,
+                                                    logger,
+                                                    localEndPoint,
+                                                    useColour,
+                                                    timeout);
+      }
+    };
+
+  @Parameters(name = "{0}")
+  public static Collection<Object[]> engines() {
+    return Arrays.asList(new Object[][] {
+        { "threaded", THREADED },
+        { "event loop", EVENT_LOOP },
+      });
+  }
+
+  private final EngineFactory m_engineFactory;
+
   private final List<AcceptAndEcho> m_echoers = new java.util.LinkedList<AcceptAndEcho>();
 
   @Mock private TCPProxyFilter m_requestFilter;
@@ -94,6 +172,11 @@ public class TestHTTPProxyTCPProxyEngine {
     Security.setProperty("jdk.certpath.disabledAlgorithms", "");
   }
   
+  public TestHTTPProxyTCPProxyEngine(String name,
+                                     EngineFactory engineFactory) {
+    m_engineFactory = engineFactory;
+  }
+
   private EndPoint createFreeLocalEndPoint() throws IOException {
     return new EndPoint("localhost", findFreePort());
   }
@@ -119,16 +202,14 @@ public class TestHTTPProxyTCPProxyEngine {
 
   @Test public void testBadLocalPort() throws Exception {
     try {
-      new HTTPProxyTCPProxyEngine(null,
-                                  m_requestFilter,
-                                  m_responseFilter,
-                                  m_out,
-                                  m_logger,
-                                  new EndPoint("fictitious-host", 222),
-                                  false,
-                                  1000,
-                                  null,
-                                  null);
+      m_engineFactory.create(null,
+                             m_requestFilter,
+                             m_responseFilter,
+                             m_out,
+                             m_logger,
+                             new EndPoint("fictitious-host", 222),
+                             false,
+                             1000);
       fail("Expected UnknownHostException");
     }
     catch (UnknownHostException e) {
@@ -138,16 +219,14 @@ public class TestHTTPProxyTCPProxyEngine {
   @Test public void testTimeOut() throws Exception {
 
     final TCPProxyEngine engine =
-      new HTTPProxyTCPProxyEngine(m_sslSocketFactory,
-                                  m_requestFilter,
-                                  m_responseFilter,
-                                  m_out,
-                                  m_logger,
-                                  m_localEndPoint,
-                                  false,
-                                  10,
-                                  null,
-                                  null);
+      m_engineFactory.create(m_sslSocketFactory,
+                             m_requestFilter,
+                             m_responseFilter,
+                             m_out,
+                             m_logger,
+                             m_localEndPoint,
+                             false,
+                             10);
 
     // If this ends up spinning its probably because
     // some other test has not terminated all of its filter
@@ -260,7 +339,8 @@ public class TestHTTPProxyTCPProxyEngine {
 
     clientSocket.close();
 
-    verify(m_logger).error(contains("Failed to determine proxy destination"));
+    verify(m_logger, timeout(5000))
+      .error(contains("Failed to determine proxy destination"));
 
     final Socket clientSocket2 =
       new Socket(engine.getListenEndPoint().getHost(),
@@ -402,8 +482,10 @@ public class TestHTTPProxyTCPProxyEngine {
                                                 isA(new byte[0].getClass()),
                                                 isA(Integer.class));
 
-    verify(m_requestFilter).connectionClosed(requestConnectionDetails);
-    verify(m_responseFilter).connectionClosed(responseConnectionDetails);
+    verify(m_requestFilter, timeout(5000))
+      .connectionClosed(requestConnectionDetails);
+    verify(m_responseFilter, timeout(5000))
+      .connectionClosed(responseConnectionDetails);
 
     verifyNoMoreInteractions(m_requestFilter, m_responseFilter);
   }
@@ -498,16 +580,14 @@ public class TestHTTPProxyTCPProxyEngine {
 
   @Test public void testHTTPProxyEngine() throws Exception {
     final AbstractTCPProxyEngine engine =
-      new HTTPProxyTCPProxyEngine(m_sslSocketFactory,
-                                  m_requestFilter,
-                                  m_responseFilter,
-                                  m_out,
-                                  m_logger,
-                                  m_localEndPoint,
-                                  false,
-                                  100000,
-                                  null,
-                                  null);
+      m_engineFactory.create(m_sslSocketFactory,
+                             m_requestFilter,
+                             m_responseFilter,
+                             m_out,
+                             m_logger,
+                             m_localEndPoint,
+                             false,
+                             100000);
 
     final Thread engineThread = new Thread(engine, "Run engine");
     engineThread.start();
@@ -538,16 +618,14 @@ public class TestHTTPProxyTCPProxyEngine {
   @Test public void testColourHTTPProxyEngine() throws Exception {
 
     final AbstractTCPProxyEngine engine =
-      new HTTPProxyTCPProxyEngine(m_sslSocketFactory,
-                                  m_requestFilter,
-                                  m_responseFilter,
-                                  m_out,
-                                  m_logger,
-                                  m_localEndPoint,
-                                  true,
-                                  100000,
-                                  null,
-                                  null);
+      m_engineFactory.create(m_sslSocketFactory,
+                             m_requestFilter,
+                             m_responseFilter,
+                             m_out,
+                             m_logger,
+                             m_localEndPoint,
+                             true,
+                             100000);
 
     final Thread engineThread = new Thread(engine, "Run engine");
     engineThread.start();
@@ -572,7 +650,50 @@ public class TestHTTPProxyTCPProxyEngine {
     verifyNoMoreInteractions(m_requestFilter, m_responseFilter);
   }
 
+  @Test public void testBadGateway() throws Exception {
+    final AbstractTCPProxyEngine engine =
+      m_engineFactory.create(m_sslSocketFactory,
+                             m_requestFilter,
+                             m_responseFilter,
+                             m_out,
+                             m_logger,
+                             m_localEndPoint,
+                             false,
+                             100000);
+
+    final Thread engineThread = new Thread(engine, "Run engine");
+    engineThread.start();
+
+    final Socket clientSocket =
+      new Socket(engine.getListenEndPoint().getHost(),
+                 engine.getListenEndPoint().getPort());
+
+    final PrintWriter clientWriter =
+      new PrintWriter(clientSocket.getOutputStream(), true);
+
+    final EndPoint deadEndPoint = createFreeLocalEndPoint();
+
+    clientWriter.print("GET http://" + deadEndPoint + "/ HTTP/1.0\r\n\r\n");
+    clientWriter.flush();
+
+    final String response = readResponse(clientSocket, "Bad Gateway");
+
+    AssertUtilities.assertStartsWith(response, "HTTP/1.0 502 Bad Gateway");
+
+    clientSocket.close();
+
+    // Logged once when the connection fails, and again with the response.
+    verify(m_logger, timeout(5000).times(2))
+      .error(contains("Failed to connect to " + deadEndPoint));
+
+    engine.stop();
+    engineThread.join();
+  }
+
   @Test public void testWithChainedHTTPProxy() throws Exception {
+    // The event loop engine does not support chained proxies.
+    assumeTrue(m_engineFactory == THREADED);
+
     final AcceptAndEcho echoer = new AcceptAndEcho();
 
     final EndPoint chainedProxyEndPoint = createFreeLocalEndPoint();
@@ -669,6 +790,8 @@ public class TestHTTPProxyTCPProxyEngine {
 
   @Ignore("[Test] After updating the HTTPPlugin to manage the TLSv1.2 some tests are failing #18")
   @Test public void testWithChainedHTTPSProxy() throws Exception {
+    assumeTrue(m_engineFactory == THREADED);
+
     final AcceptAndEcho echoer = new SSLAcceptAndEcho();
 
     final EndPoint chainedProxyEndPoint = createFreeLocalEndPoint();
@@ -789,6 +912,9 @@ public class TestHTTPProxyTCPProxyEngine {
 
 
   @Test public void testStopWithBlockedFilterThreads() throws Exception {
+    // Filters are called on the event loop thread; there are no filter
+    // threads to block.
+    assumeTrue(m_engineFactory == THREADED);
 
     final AcceptAndEcho echoer = new AcceptAndEcho();
 
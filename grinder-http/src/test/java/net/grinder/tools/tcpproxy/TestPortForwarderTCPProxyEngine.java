@@ -1,4 +1,4 @@
-// Copyright (C) 2005 - 2011 Philip Aston
+// Copyright (C) 2005 - 2026 Philip Aston
 // All rights reserved.
 //
 // This file is part of The Grinder software distribution. Refer to
@@ -25,9 +25,12 @@ import static net.grinder.testutility.SocketUtilities.findFreePort;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
 import static org.mockito.Matchers.contains;
 import static org.mockito.Matchers.isA;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -35,12 +38,17 @@ import static org.mockito.Mockito.verifyNoMoreInteractions;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.UnknownHostException;
+import java.security.Security;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Random;
 
 import net.grinder.testutility.CallData;
 import net.grinder.tools.tcpproxy.TCPProxyFilter.FilterException;
@@ -49,18 +57,102 @@ import net.grinder.util.TerminalColour;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.slf4j.Logger;
 
 
 /**
- * Unit test case for {@link PortForwarderTCPProxyEngine}.
+ * Unit test case for {@link PortForwarderTCPProxyEngine} and
+ * {@link EventLoopPortForwarderTCPProxyEngine}.
  *
  * @author Philip Aston
  */
+@RunWith(Parameterized.class)
 public class TestPortForwarderTCPProxyEngine {
 
+  /**
+   * Creates the engine under test.
+   */
+  private interface EngineFactory {
+    AbstractTCPProxyEngine create(TCPProxySSLSocketFactory sslSocketFactory,
+                                  TCPProxyFilter requestFilter,
+                                  TCPProxyFilter responseFilter,
+                                  PrintWriter output,
+                                  Logger logger,
+                                  ConnectionDetails connectionDetails,
+                                  boolean useColour,
+                                  int timeout) throws IOException;
+  }
+
+  private static final EngineFactory THREADED = new EngineFactory() {
+      public AbstractTCPProxyEngine create(
+        TCPProxySSLSocketFactory sslSocketFactory,
+        TCPProxyFilter requestFilter,
+        TCPProxyFilter responseFilter,
+        PrintWriter output,
+        Logger logger,
+        ConnectionDetails connectionDetails,
+        boolean useColour,
+        int timeout) throws IOException {
+
+        if (sslSocketFactory != null) {
+          return new PortForwarderTCPProxyEngine(sslSocketFactory,
+                                                 requestFilter,
+                                                 responseFilter,
+                                                 output,
+                                                 logger,
+                                                 connectionDetails,
+                                                 useColour,
+                                                 timeout);
+        }
+
+        return new PortForwarderTCPProxyEngine(requestFilter,
+                                               responseFilter,
+                                               output,
+                                               logger,
+                                               connectionDetails,
+                                               useColour,
+                                               timeout);
+      }
+    };
+
+  private static final EngineFactory EVENT_LOOP = new EngineFactory() {
+      public AbstractTCPProxyEngine create(
+        TCPProxySSLSocketFactory sslSocketFactory,
+        TCPProxyFilter requestFilter,
+        TCPProxyFilter responseFilter,
+        PrintWriter output,
+        Logger logger,
+        ConnectionDetails connectionDetails,
+        boolean useColour,
+        int timeout) throws IOException {
+
+        return new EventLoopPortForwarderTCPProxyEngine(sslSocketFactory,
+                                                        requestFilter,
+                                                        responseFilter,
+                                                        output,
+                                                        logger,
+                                                        connectionDetails,
+                                                        useColour,
+                                                        timeout);
+      }
+    };
+
+  @Parameters(name = "{0}")
+  public static Collection<Object[]> engines() {
+    return Arrays.asList(new Object[][] {
+        { "threaded", THREADED },
+        { "event loop", EVENT_LOOP },
+      });
+  }
+
+  private final EngineFactory m_engineFactory;
+
   private final MyFilterStubFactory m_requestFilterStubFactory =
     new MyFilterStubFactory();
   private final TCPProxyFilter m_requestFilter =
@@ -76,6 +168,17 @@ public class TestPortForwarderTCPProxyEngine {
 
   private int m_localPort;
 
+  static {
+    // Keep the test keystore usable with recent JDKs.
+    Security.setProperty("jdk.tls.disabledAlgorithms", "");
+    Security.setProperty("jdk.certpath.disabledAlgorithms", "");
+  }
+
+  public TestPortForwarderTCPProxyEngine(String name,
+                                         EngineFactory engineFactory) {
+    m_engineFactory = engineFactory;
+  }
+
   @Before public void setUp() throws Exception {
     m_localPort = findFreePort();
 
@@ -88,6 +191,23 @@ public class TestPortForwarderTCPProxyEngine {
     reset(m_logger);
   }
 
+  private AbstractTCPProxyEngine createEngine(
+    TCPProxyFilter requestFilter,
+    TCPProxyFilter responseFilter,
+    ConnectionDetails connectionDetails,
+    boolean useColour,
+    int timeout) throws IOException {
+
+    return m_engineFactory.create(null,
+                                  requestFilter,
+                                  responseFilter,
+                                  m_out,
+                                  m_logger,
+                                  connectionDetails,
+                                  useColour,
+                                  timeout);
+  }
+
   @Test public void testBadLocalPort() throws Exception {
     final ConnectionDetails badConnectionDetails =
       new ConnectionDetails(new EndPoint("fictitious-host", 111),
@@ -95,13 +215,11 @@ public class TestPortForwarderTCPProxyEngine {
                             false);
 
     try {
-      new PortForwarderTCPProxyEngine(m_requestFilter,
-                                      m_responseFilter,
-                                      m_out,
-                                      m_logger,
-                                      badConnectionDetails,
-                                      false,
-                                      1000);
+      createEngine(m_requestFilter,
+                   m_responseFilter,
+                   badConnectionDetails,
+                   false,
+                   1000);
       fail("Expected UnknownHostException");
     }
     catch (UnknownHostException e) {
@@ -116,13 +234,11 @@ public class TestPortForwarderTCPProxyEngine {
                             false);
 
     final TCPProxyEngine engine =
-      new PortForwarderTCPProxyEngine(m_requestFilter,
-                                      m_responseFilter,
-                                      m_out,
-                                      m_logger,
-                                      connectionDetails,
-                                      false,
-                                      10);
+      createEngine(m_requestFilter,
+                   m_responseFilter,
+                   connectionDetails,
+                   false,
+                   10);
 
     resetLogger();
 
@@ -135,6 +251,30 @@ public class TestPortForwarderTCPProxyEngine {
     verifyNoMoreInteractions(m_logger);
   }
 
+  @Test public void testStopBeforeRun() throws Exception {
+    // The threaded engine logs the failure to accept.
+    assumeTrue(m_engineFactory == EVENT_LOOP);
+
+    final ConnectionDetails connectionDetails =
+      new ConnectionDetails(new EndPoint("localhost", m_localPort),
+                            new EndPoint("wherever", 9999),
+                            false);
+
+    final TCPProxyEngine engine =
+      createEngine(m_requestFilter,
+                   m_responseFilter,
+                   connectionDetails,
+                   false,
+                   100000);
+
+    engine.stop();
+    engine.run();
+
+    m_requestFilterStubFactory.assertNoMoreCalls();
+    m_responseFilterStubFactory.assertNoMoreCalls();
+    verifyNoMoreInteractions(m_logger);
+  }
+
   private void engineTests(AbstractTCPProxyEngine engine,
                            ConnectionDetails connectionDetails)
     throws Exception {
@@ -231,7 +371,7 @@ public class TestPortForwarderTCPProxyEngine {
   @Test public void testEngine() throws Exception {
 
     final AcceptSingleConnectionAndEcho echoer =
-      new AcceptSingleConnectionAndEcho();
+      new AcceptSingleConnectionAndEcho(new ServerSocket(0));
 
     final EndPoint localEndPoint = new EndPoint("localhost", m_localPort);
 
@@ -245,13 +385,11 @@ public class TestPortForwarderTCPProxyEngine {
     m_responseFilterStubFactory.setResult(null);
 
     final AbstractTCPProxyEngine engine =
-      new PortForwarderTCPProxyEngine(m_requestFilter,
-                                      m_responseFilter,
-                                      m_out,
-                                      m_logger,
-                                      connectionDetails,
-                                      false,
-                                      100000);
+      createEngine(m_requestFilter,
+                   m_responseFilter,
+                   connectionDetails,
+                   false,
+                   100000);
 
     m_responseFilterStubFactory.assertNoMoreCalls();
     m_requestFilterStubFactory.assertNoMoreCalls();
@@ -273,7 +411,7 @@ public class TestPortForwarderTCPProxyEngine {
   @Test public void testColourEngine() throws Exception {
 
     final AcceptSingleConnectionAndEcho echoer =
-      new AcceptSingleConnectionAndEcho();
+      new AcceptSingleConnectionAndEcho(new ServerSocket(0));
 
     final EndPoint localEndPoint = new EndPoint("localhost", m_localPort);
 
@@ -287,13 +425,11 @@ public class TestPortForwarderTCPProxyEngine {
     m_responseFilterStubFactory.setResult(null);
 
     final AbstractTCPProxyEngine engine =
-      new PortForwarderTCPProxyEngine(m_requestFilter,
-                                      m_responseFilter,
-                                      m_out,
-                                      m_logger,
-                                      connectionDetails,
-                                      true,
-                                      100000);
+      createEngine(m_requestFilter,
+                   m_responseFilter,
+                   connectionDetails,
+                   true,
+                   100000);
 
     m_responseFilterStubFactory.assertNoMoreCalls();
     m_requestFilterStubFactory.assertNoMoreCalls();
@@ -312,6 +448,231 @@ public class TestPortForwarderTCPProxyEngine {
     engineTests(engine, connectionDetails);
   }
 
+  @Test public void testLargeTransfer() throws Exception {
+
+    final AcceptSingleConnectionAndEcho echoer =
+      new AcceptSingleConnectionAndEcho(new ServerSocket(0));
+
+    final ConnectionDetails connectionDetails =
+      new ConnectionDetails(new EndPoint("localhost", m_localPort),
+                            echoer.getEndPoint(),
+                            false);
+
+    final AbstractTCPProxyEngine engine =
+      createEngine(new NullFilter(),
+                   new NullFilter(),
+                   connectionDetails,
+                   false,
+                   100000);
+
+    final Thread engineThread = new Thread(engine, "Run engine");
+    engineThread.start();
+
+    final Socket clientSocket =
+      new Socket(engine.getListenEndPoint().getHost(),
+                 engine.getListenEndPoint().getPort());
+
+    // Enough data to exercise the flow control between the two connections.
+    final byte[] message = new byte[1000000];
+    new Random().nextBytes(message);
+
+    final OutputStream clientOutputStream = clientSocket.getOutputStream();
+
+    final Thread writerThread = new Thread() {
+        public void run() {
+          try {
+            clientOutputStream.write(message);
+            clientOutputStream.flush();
+          }
+          catch (IOException e) {
+            // Reported by the comparison below.
+          }
+        }
+      };
+
+    writerThread.start();
+
+    final InputStream clientInputStream = clientSocket.getInputStream();
+    final ByteArrayOutputStream response = new ByteArrayOutputStream();
+    final byte[] buffer = new byte[8192];
+
+    while (response.size() < message.length) {
+      final int bytesRead = clientInputStream.read(buffer);
+
+      if (bytesRead == -1) {
+        break;
+      }
+
+      response.write(buffer, 0, bytesRead);
+    }
+
+    writerThread.join();
+
+    assertEquals(message.length, response.size());
+    assertEquals(new String(message, "ISO-8859-1"),
+                 response.toString("ISO-8859-1"));
+
+    clientSocket.close();
+
+    engine.stop();
+    engineThread.join();
+
+    verifyNoMoreInteractions(m_logger);
+  }
+
+  @Test public void testSSLEngine() throws Exception {
+    final TCPProxySSLSocketFactory sslSocketFactory =
+      new TCPProxySSLSocketFactoryImplementation();
+
+    final AcceptSingleConnectionAndEcho echoer =
+      new AcceptSingleConnectionAndEcho(
+        sslSocketFactory.createServerSocket(
+          new EndPoint("localhost", findFreePort()), 0));
+
+    final EndPoint localEndPoint = new EndPoint("localhost", m_localPort);
+
+    final ConnectionDetails connectionDetails =
+      new ConnectionDetails(localEndPoint, echoer.getEndPoint(), true);
+
+    final TCPProxyFilter requestFilter = mock(TCPProxyFilter.class);
+
+    final AbstractTCPProxyEngine engine =
+      m_engineFactory.create(sslSocketFactory,
+                             requestFilter,
+                             new NullFilter(),
+                             m_out,
+                             m_logger,
+                             connectionDetails,
+                             false,
+                             100000);
+
+    final Thread engineThread = new Thread(engine, "Run engine");
+    engineThread.start();
+
+    final Socket clientSocket =
+      sslSocketFactory.createClientSocket(
+        new Socket(localEndPoint.getHost(), localEndPoint.getPort()),
+        localEndPoint);
+
+    final byte[] message = "Some secret stuff".getBytes("US-ASCII");
+    clientSocket.getOutputStream().write(message);
+    clientSocket.getOutputStream().flush();
+
+    final byte[] response = new byte[message.length];
+    int n = 0;
+
+    while (n < response.length) {
+      final int bytesRead =
+        clientSocket.getInputStream().read(response, n, response.length - n);
+
+      if (bytesRead == -1) {
+        break;
+      }
+
+      n += bytesRead;
+    }
+
+    assertEquals(new String(message), new String(response, 0, n));
+
+    final ArgumentCaptor<ConnectionDetails> connectionDetailsCaptor =
+      ArgumentCaptor.forClass(ConnectionDetails.class);
+
+    verify(requestFilter)
+      .connectionOpened(connectionDetailsCaptor.capture());
+    assertEquals(true, connectionDetailsCaptor.getValue().isSecure());
+
+    clientSocket.close();
+
+    verify(requestFilter, timeout(5000))
+      .connectionClosed(connectionDetailsCaptor.getValue());
+
+    engine.stop();
+    engineThread.join();
+  }
+
+  @Test public void testConnectFailure() throws Exception {
+    final EndPoint localEndPoint = new EndPoint("localhost", m_localPort);
+    final EndPoint deadEndPoint = new EndPoint("localhost", findFreePort());
+
+    final ConnectionDetails connectionDetails =
+      new ConnectionDetails(localEndPoint, deadEndPoint, false);
+
+    final AbstractTCPProxyEngine engine =
+      createEngine(m_requestFilter,
+                   m_responseFilter,
+                   connectionDetails,
+                   false,
+                   100000);
+
+    final Thread engineThread = new Thread(engine, "Run engine");
+    engineThread.start();
+
+    final Socket clientSocket =
+      new Socket(localEndPoint.getHost(), localEndPoint.getPort());
+
+    // The engine closes the local connection.
+    assertEquals(-1, clientSocket.getInputStream().read());
+
+    clientSocket.close();
+
+    verify(m_logger, timeout(5000))
+      .error(contains("Failed to connect to " + deadEndPoint));
+
+    engine.stop();
+    engineThread.join();
+
+    m_requestFilterStubFactory.assertNoMoreCalls();
+    m_responseFilterStubFactory.assertNoMoreCalls();
+  }
+
+  @Test public void testStopClosesConnections() throws Exception {
+    final AcceptSingleConnectionAndEcho echoer =
+      new AcceptSingleConnectionAndEcho(new ServerSocket(0));
+
+    final EndPoint localEndPoint = new EndPoint("localhost", m_localPort);
+
+    final ConnectionDetails connectionDetails =
+      new ConnectionDetails(localEndPoint, echoer.getEndPoint(), false);
+
+    final TCPProxyFilter requestFilter = mock(TCPProxyFilter.class);
+    final TCPProxyFilter responseFilter = mock(TCPProxyFilter.class);
+
+    final AbstractTCPProxyEngine engine =
+      createEngine(requestFilter,
+                   responseFilter,
+                   connectionDetails,
+                   false,
+                   100000);
+
+    final Thread engineThread = new Thread(engine, "Run engine");
+    engineThread.start();
+
+    final Socket clientSocket =
+      new Socket(localEndPoint.getHost(), localEndPoint.getPort());
+
+    final ArgumentCaptor<ConnectionDetails> connectionDetailsCaptor =
+      ArgumentCaptor.forClass(ConnectionDetails.class);
+
+    verify(requestFilter, timeout(5000))
+      .connectionOpened(connectionDetailsCaptor.capture());
+
+    engine.stop();
+    engineThread.join();
+
+    assertEquals(-1, clientSocket.getInputStream().read());
+    clientSocket.close();
+
+    final ConnectionDetails requestConnectionDetails =
+      connectionDetailsCaptor.getValue();
+
+    verify(requestFilter, timeout(5000))
+      .connectionClosed(requestConnectionDetails);
+    verify(responseFilter)
+      .connectionOpened(requestConnectionDetails.getOtherEnd());
+    verify(responseFilter, timeout(5000))
+      .connectionClosed(requestConnectionDetails.getOtherEnd());
+  }
+
   @Test public void testOutputStreamFilterTeeWithBadFilters() throws Exception {
 
     final EndPoint localEndPoint = new EndPoint("localhost", m_localPort);
@@ -322,13 +683,11 @@ public class TestPortForwarderTCPProxyEngine {
                             false);
 
     final AbstractTCPProxyEngine engine =
-      new PortForwarderTCPProxyEngine(m_requestFilter,
-                                      m_responseFilter,
-                                      m_out,
-                                      m_logger,
-                                      connectionDetails,
-                                      true,
-                                      100000);
+      createEngine(m_requestFilter,
+                   m_responseFilter,
+                   connectionDetails,
+                   true,
+                   100000);
 
     final AbstractTCPProxyEngine.OutputStreamFilterTee filterTee =
       engine.new OutputStreamFilterTee(connectionDetails,
@@ -375,8 +734,8 @@ public class TestPortForwarderTCPProxyEngine {
   private static final class AcceptSingleConnectionAndEcho implements Runnable {
     private final ServerSocket m_serverSocket;
 
-    public AcceptSingleConnectionAndEcho() throws IOException {
-      m_serverSocket = new ServerSocket(0);
+    public AcceptSingleConnectionAndEcho(ServerSocket serverSocket) {
+      m_serverSocket = serverSocket;
       new Thread(this, getClass().getName()).start();
     }
 
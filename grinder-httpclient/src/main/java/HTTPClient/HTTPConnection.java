@@ -310,15 +310,23 @@ public class HTTPConnection implements GlobalConstants, HTTPClientModuleConstant
     /** OME - disabling by default **/
     private static boolean       noTrailers = true;
 
-    /** hack to capture DNS lookup time */
+    /** hack to capture DNS lookup time, in nanoseconds */
     private        AtomicLong          DNS_time = new AtomicLong();
 
-    /** hack to capture Initial Connection time */
+    /** hack to capture Initial Connection time, in nanoseconds */
     private        AtomicLong          con_time = new AtomicLong();
     private        AtomicLong          connectionsEstablished = new AtomicLong();
 
+    /** hack to capture SSL handshake time, in nanoseconds */
+    private        AtomicLong          ssl_handshake_time = new AtomicLong();
+    private        AtomicLong          sslHandshakes = new AtomicLong();
+    private        AtomicLong          sslSessionsResumed = new AtomicLong();
+
     public interface TimeAuthority {
       long getTimeInMilliseconds();
+
+      /** Monotonic high resolution clock with an arbitrary origin. */
+      long getTimeInNanoseconds();
     }
 
     private static TimeAuthority standardTimeAuthority =
@@ -326,6 +334,10 @@ public class HTTPConnection implements GlobalConstants, HTTPClientModuleConstant
         public long getTimeInMilliseconds() {
           return System.currentTimeMillis();
         }
+
+        public long getTimeInNanoseconds() {
+          return System.nanoTime();
+        }
       };
 
     private TimeAuthority timeAuthority = standardTimeAuthority;
@@ -3015,6 +3027,7 @@ public class HTTPConnection implements GlobalConstants, HTTPClientModuleConstant
 
     /** GRINDER MODIFICATION++ **/
     private boolean check_certificates = true;
+    private boolean ssl_session_resumption = true;
     private boolean test_connnection_health_with_blocking_read = false;
 
     public final void setCheckCertificates(boolean b)
@@ -3027,6 +3040,21 @@ public class HTTPConnection implements GlobalConstants, HTTPClientModuleConstant
         return check_certificates;
     }
 
+    /**
+     * Set whether SSL sessions established by this connection may be resumed
+     * by later connections that use the same SSL socket factory. If
+     * <code>false</code>, each new socket requires a full handshake.
+     */
+    public final void setSSLSessionResumption(boolean b)
+    {
+        ssl_session_resumption = b;
+    }
+
+    public final boolean getSSLSessionResumption()
+    {
+        return ssl_session_resumption;
+    }
+
     public final void setTestConnectionHealthWithBlockingRead(boolean b)
     {
         test_connnection_health_with_blocking_read = b;
@@ -3089,7 +3117,11 @@ public class HTTPConnection implements GlobalConstants, HTTPClientModuleConstant
 				    req.getMethod() + " " +
 				    req.getRequestURI());
 
-		synchronized (early_stall)
+		/** ++GRINDER MODIFICATION **/
+		Response stall = early_stall;
+		stall.lock.lock();
+		try
+		/** --GRINDER MODIFICATION **/
 		{
 		    // wait till the response is received
 		    try
@@ -3098,6 +3130,10 @@ public class HTTPConnection implements GlobalConstants, HTTPClientModuleConstant
 			{ }
 		    early_stall = null;
 		}
+		/** ++GRINDER MODIFICATION **/
+		finally
+		    { stall.lock.unlock(); }
+		/** --GRINDER MODIFICATION **/
 	    }
 	    catch (NullPointerException npe)
 		{ }
@@ -3236,6 +3272,36 @@ public class HTTPConnection implements GlobalConstants, HTTPClientModuleConstant
                 sslSocket.setEnabledCipherSuites(getSSLCipherSuites());
                 sslSocket.setEnabledProtocols(getSSLProtocols());
 
+                // Perform the handshake now, rather than on first use, so
+                // that we can time it. SSLSession creation times come from
+                // the system clock, not the time authority.
+                final long handshakeStartMillis = System.currentTimeMillis();
+                final long handshakeStart =
+                  getTimeAuthority().getTimeInNanoseconds();
+
+                sslSocket.startHandshake();
+
+                ssl_handshake_time.set(
+                  Math.max(getTimeAuthority().getTimeInNanoseconds() -
+                           handshakeStart,
+                           0));
+
+                final SSLSession sslSession = sslSocket.getSession();
+
+                // A resumed session keeps the creation time of the session
+                // established by the original full handshake.
+                if (sslSession.getCreationTime() < handshakeStartMillis) {
+                    sslSessionsResumed.incrementAndGet();
+                }
+
+                sslHandshakes.incrementAndGet();
+
+                if (!ssl_session_resumption) {
+                    // Prevent the session from being resumed by later
+                    // connections.
+                    sslSession.invalidate();
+                }
+
                 if (getCheckCertificates()) {
                     /** --GRINDER MODIFICATION **/
                     checkCert(((SSLSocket) sock).getSession().
@@ -3513,14 +3579,14 @@ public class HTTPConnection implements GlobalConstants, HTTPClientModuleConstant
 	    {
                 /** ++GRINDER MODIFICATION **/
 	            final long startTime =
-	              getTimeAuthority().getTimeInMilliseconds();
+	              getTimeAuthority().getTimeInNanoseconds();
                 /** --GRINDER MODIFICATION **/
 		// try all A records
 		InetAddress[] addr_list = InetAddress.getAllByName(actual_host);
                 /** ++GRINDER MODIFICATION **/
                 // capture time for DNS Lookup
                 DNS_time.set(
-                  Math.max(getTimeAuthority().getTimeInMilliseconds() -
+                  Math.max(getTimeAuthority().getTimeInNanoseconds() -
                            startTime,
                            0));
                 /** --GRINDER MODIFICATION **/
@@ -3539,7 +3605,7 @@ public class HTTPConnection implements GlobalConstants, HTTPClientModuleConstant
 
                         // capture time for initial connection
                         con_time.set(
-                          Math.max(getTimeAuthority().getTimeInMilliseconds() -
+                          Math.max(getTimeAuthority().getTimeInNanoseconds() -
                                    startTime,
                                    0));
                         connectionsEstablished.incrementAndGet();
@@ -3578,10 +3644,12 @@ public class HTTPConnection implements GlobalConstants, HTTPClientModuleConstant
     }
 
     /** ++GRINDER-MODIFICATION++ */
+    /** DNS lookup time of the last connection, in nanoseconds. */
     public long getDnsTime(){
            return DNS_time.get();
     }
 
+    /** Initial connection time of the last connection, in nanoseconds. */
     public long getConnectTime(){
            return con_time.get();
     }
@@ -3589,6 +3657,21 @@ public class HTTPConnection implements GlobalConstants, HTTPClientModuleConstant
     public long getConnectionsEstablished(){
       return connectionsEstablished.get();
     }
+
+    /** SSL handshake time of the last connection, in nanoseconds. */
+    public long getSSLHandshakeTime(){
+      return ssl_handshake_time.get();
+    }
+
+    /** Number of SSL handshakes, including those that resumed a session. */
+    public long getSSLHandshakes(){
+      return sslHandshakes.get();
+    }
+
+    /** Number of SSL handshakes that resumed a previous session. */
+    public long getSSLSessionsResumed(){
+      return sslSessionsResumed.get();
+    }
     /** --GRINDER-MODIFICATION++ */
 
     /**
@@ -4197,7 +4280,7 @@ public class HTTPConnection implements GlobalConstants, HTTPClientModuleConstant
 		{
             /** ++GRINDER MODIFICATION **/
             final long startTime =
-              getTimeAuthority().getTimeInMilliseconds();
+              getTimeAuthority().getTimeInNanoseconds();
             /** --GRINDER MODIFICATION **/
 
 		    // try all A records
@@ -4205,7 +4288,7 @@ public class HTTPConnection implements GlobalConstants, HTTPClientModuleConstant
                     /** ++GRINDER MODIFICATION **/
                     // capture time for DNS Lookup
                     DNS_time.set(
-                       Math.max(getTimeAuthority().getTimeInMilliseconds()
+                       Math.max(getTimeAuthority().getTimeInNanoseconds()
                                 - startTime,
                                 0));
                     /** --GRINDER MODIFICATION **/
@@ -4225,7 +4308,7 @@ public class HTTPConnection implements GlobalConstants, HTTPClientModuleConstant
                             // capture time for initial connection
                             con_time.set(
                               Math.max(
-                                getTimeAuthority().getTimeInMilliseconds()
+                                getTimeAuthority().getTimeInNanoseconds()
                                 - startTime,
                                 0));
                            /** --GRINDER MODIFICATION */
@@ -43,6 +43,9 @@ import java.io.ByteArrayInputStream;
 import java.net.URL;
 import java.util.Date;
 import java.util.Enumeration;
+/** ++GRINDER MODIFICATION **/
+import java.util.concurrent.locks.ReentrantLock;
+/** --GRINDER MODIFICATION **/
 
 
 
@@ -64,6 +67,15 @@ public class HTTPResponse implements HTTPClientModuleConstants
     /** the timeout for reads */
     private int          timeout;
 
+    /** ++GRINDER MODIFICATION **/
+    /**
+     * Guards the response state. We use a lock rather than this object's
+     * monitor so that virtual threads that block reading from the socket
+     * do not pin their carrier thread.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+    /** --GRINDER MODIFICATION **/
+
     /** the request */
     private Request      request = null;
 
@@ -119,7 +131,7 @@ public class HTTPResponse implements HTTPClientModuleConstants
     private String       method = null;
 
     /** ++GRINDER MODIFICATION **/
-    /** The time to first byte */
+    /** The time the first byte was read, in nanoseconds */
     private long         ttfb;
     /** --GRINDER MODIFICATION **/
 
@@ -153,6 +165,31 @@ public class HTTPResponse implements HTTPClientModuleConstants
 	this.method = orig.getMethod();
     }
 
+    /** ++GRINDER MODIFICATION **/
+    /**
+     * Creates a new HTTPResponse for a request that was made without an
+     * HTTPConnection. No modules are applied.
+     *
+     * @param method      the request method
+     * @param originalURI the request URI
+     * @param resp        the complete response, including its data
+     * @param ttfb        the time the first byte of the response was read,
+     *                    in nanoseconds
+     */
+    public HTTPResponse(String method, URI originalURI, Response resp,
+			long ttfb)
+    {
+	this.modules     = new HTTPClientModule[0];
+	this.method      = method;
+	this.OriginalURI = originalURI;
+	this.response    = resp;
+	this.Trailers    = new CIHashtable();
+	this.got_trailers = true;
+	init(resp);
+	this.ttfb        = ttfb;
+    }
+    /** --GRINDER MODIFICATION **/
+
 
     /**
      * @param req the request
@@ -381,6 +418,14 @@ public class HTTPResponse implements HTTPClientModuleConstants
     }
 
     /** ++GRINDER MODIFICATION **/
+    /**
+     * The time the first byte of the response was read, taken from the
+     * connection's high resolution clock. Only meaningful when compared
+     * with other readings of
+     * {@link HTTPConnection.TimeAuthority#getTimeInNanoseconds()}.
+     *
+     * @return the time in nanoseconds.
+     */
     public long getTimeToFirstByte(){
             return ttfb;
     }
@@ -505,8 +550,15 @@ public class HTTPResponse implements HTTPClientModuleConstants
      *			      the data
      * @exception ModuleException if any module encounters an exception.
      */
-    public synchronized byte[] getData()  throws IOException, ModuleException
+    /** ++GRINDER MODIFICATION **/
+    public byte[] getData()  throws IOException, ModuleException
+    /** --GRINDER MODIFICATION **/
     {
+	/** ++GRINDER MODIFICATION **/
+	lock.lock();
+	try
+	{
+	/** --GRINDER MODIFICATION **/
 	if (!initialized)  handleResponse();
 
 	if (Data == null)
@@ -529,6 +581,11 @@ public class HTTPResponse implements HTTPClientModuleConstants
 	}
 
 	return Data;
+	/** ++GRINDER MODIFICATION **/
+	}
+	finally
+	    { lock.unlock(); }
+	/** --GRINDER MODIFICATION **/
     }
 
     /**
@@ -545,9 +602,16 @@ public class HTTPResponse implements HTTPClientModuleConstants
      * @exception ParseException if an error occured trying to parse the
      *                           content-type header field
      */
-    public synchronized String getText()
+    /** ++GRINDER MODIFICATION **/
+    public String getText()
 	throws IOException, ModuleException, ParseException
+    /** --GRINDER MODIFICATION **/
     {
+	/** ++GRINDER MODIFICATION **/
+	lock.lock();
+	try
+	{
+	/** --GRINDER MODIFICATION **/
 	String ct = getHeader("Content-Type");
 
 	/** ++GRINDER MODIFICATION **/
@@ -564,6 +628,11 @@ public class HTTPResponse implements HTTPClientModuleConstants
 	    charset = "ISO-8859-1";
 
 	return new String(getData(), charset);
+	/** ++GRINDER MODIFICATION **/
+	}
+	finally
+	    { lock.unlock(); }
+	/** --GRINDER MODIFICATION **/
     }
 
     /**
@@ -576,9 +645,16 @@ public class HTTPResponse implements HTTPClientModuleConstants
      * @exception IOException If any exception occurs on the socket.
      * @exception ModuleException if any module encounters an exception.
      */
-    public synchronized InputStream getInputStream()
+    /** ++GRINDER MODIFICATION **/
+    public InputStream getInputStream()
 	    throws IOException, ModuleException
+    /** --GRINDER MODIFICATION **/
     {
+	/** ++GRINDER MODIFICATION **/
+	lock.lock();
+	try
+	{
+	/** --GRINDER MODIFICATION **/
 	if (!initialized)  handleResponse();
 
 	if (Data == null)
@@ -588,6 +664,11 @@ public class HTTPResponse implements HTTPClientModuleConstants
 	    getData();		// ensure complete data is read
 	    return new ByteArrayInputStream(Data);
 	}
+	/** ++GRINDER MODIFICATION **/
+	}
+	finally
+	    { lock.unlock(); }
+	/** --GRINDER MODIFICATION **/
     }
 
 
@@ -719,8 +800,15 @@ public class HTTPResponse implements HTTPClientModuleConstants
      * @return true if a new request was generated. This is used for internal
      *         subrequests only
      */
-    synchronized boolean handleResponse()  throws IOException, ModuleException
+    /** ++GRINDER MODIFICATION **/
+    boolean handleResponse()  throws IOException, ModuleException
+    /** --GRINDER MODIFICATION **/
     {
+	/** ++GRINDER MODIFICATION **/
+	lock.lock();
+	try
+	{
+	/** --GRINDER MODIFICATION **/
 	if (initialized)  return false;
 
 
@@ -815,6 +903,11 @@ public class HTTPResponse implements HTTPClientModuleConstants
 	    invokeTrailerHandlers(false);
 
 	return false;
+	/** ++GRINDER MODIFICATION **/
+	}
+	finally
+	    { lock.unlock(); }
+	/** --GRINDER MODIFICATION **/
     }
 
 
@@ -885,8 +978,15 @@ public class HTTPResponse implements HTTPClientModuleConstants
     /**
      * Gets any trailers from the response if we haven't already done so.
      */
-    private synchronized void getTrailers()  throws IOException, ModuleException
+    /** ++GRINDER MODIFICATION **/
+    private void getTrailers()  throws IOException, ModuleException
+    /** --GRINDER MODIFICATION **/
     {
+	/** ++GRINDER MODIFICATION **/
+	lock.lock();
+	try
+	{
+	/** --GRINDER MODIFICATION **/
 	if (got_trailers)  return;
 	if (!initialized)  handleResponse();
 
@@ -895,6 +995,11 @@ public class HTTPResponse implements HTTPClientModuleConstants
 	got_trailers = true;
 
 	invokeTrailerHandlers(false);
+	/** ++GRINDER MODIFICATION **/
+	}
+	finally
+	    { lock.unlock(); }
+	/** --GRINDER MODIFICATION **/
     }
 
 
@@ -28,6 +28,10 @@
  *
  *  http://www.innovation.ch/java/HTTPClient/ 
  *
+ * This file contains modifications for use with "The Grinder"
+ * (http://grinder.sourceforge.net) under the terms of the LGPL. They
+ * are marked below with the comment "GRINDER MODIFICATION".
+ *
  */
 
 package HTTPClient;
@@ -35,6 +39,9 @@ package HTTPClient;
 import java.io.InputStream;
 import java.io.IOException;
 import java.io.InterruptedIOException;
+/** ++GRINDER MODIFICATION **/
+import java.util.concurrent.locks.ReentrantLock;
+/** --GRINDER MODIFICATION **/
 
 /**
  * This is the InputStream that gets returned to the user. The extensions
@@ -75,6 +82,15 @@ final class RespInputStream extends InputStream implements GlobalConstants
     /** the end of the data in the buffer */
     private int                 end = 0;
 
+    /** ++GRINDER MODIFICATION **/
+    /**
+     * Guards the buffer. We use a lock rather than this object's
+     * monitor so that virtual threads that block reading from the socket
+     * do not pin their carrier thread.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+    /** --GRINDER MODIFICATION **/
+
     /** the total number of bytes of entity data read from the demux so far */
             int                 count = 0;
 
@@ -110,13 +126,25 @@ final class RespInputStream extends InputStream implements GlobalConstants
      * @return the byte read, or -1 if EOF.
      * @exception IOException if any exception occured on the connection.
      */
-    public synchronized int read() throws IOException
+    /** ++GRINDER MODIFICATION **/
+    public int read() throws IOException
+    /** --GRINDER MODIFICATION **/
     {
+	/** ++GRINDER MODIFICATION **/
+	lock.lock();
+	try
+	{
+	/** --GRINDER MODIFICATION **/
 	int rcvd = read(ch, 0, 1);
 	if (rcvd == 1)
 	    return ch[0] & 0xff;
 	else
 	    return -1;
+	/** ++GRINDER MODIFICATION **/
+	}
+	finally
+	    { lock.unlock(); }
+	/** --GRINDER MODIFICATION **/
     }
 
 
@@ -127,8 +155,15 @@ final class RespInputStream extends InputStream implements GlobalConstants
      * @return the number of bytes actually read, or -1 if EOF.
      * @exception IOException if any exception occured on the connection.
      */
-    public synchronized int read(byte[] b, int off, int len) throws IOException
+    /** ++GRINDER MODIFICATION **/
+    public int read(byte[] b, int off, int len) throws IOException
+    /** --GRINDER MODIFICATION **/
     {
+	/** ++GRINDER MODIFICATION **/
+	lock.lock();
+	try
+	{
+	/** --GRINDER MODIFICATION **/
 	if (closed)
 	    return -1;
 
@@ -158,6 +193,11 @@ final class RespInputStream extends InputStream implements GlobalConstants
 
 	    return rcvd;
 	}
+	/** ++GRINDER MODIFICATION **/
+	}
+	finally
+	    { lock.unlock(); }
+	/** --GRINDER MODIFICATION **/
     }
 
 
@@ -167,8 +207,15 @@ final class RespInputStream extends InputStream implements GlobalConstants
      * @return the number of bytes actually skipped.
      * @exception IOException if any exception occured on the connection.
      */
-    public synchronized long skip(long num) throws IOException
+    /** ++GRINDER MODIFICATION **/
+    public long skip(long num) throws IOException
+    /** --GRINDER MODIFICATION **/
     {
+	/** ++GRINDER MODIFICATION **/
+	lock.lock();
+	try
+	{
+	/** --GRINDER MODIFICATION **/
 	if (closed)
 	    return 0;
 
@@ -186,6 +233,11 @@ final class RespInputStream extends InputStream implements GlobalConstants
 		count += skpd;
 	    return skpd;
 	}
+	/** ++GRINDER MODIFICATION **/
+	}
+	finally
+	    { lock.unlock(); }
+	/** --GRINDER MODIFICATION **/
     }
 
 
@@ -195,8 +247,15 @@ final class RespInputStream extends InputStream implements GlobalConstants
      * @return the number of bytes available.
      * @exception IOException if any exception occured on the connection.
      */
-    public synchronized int available() throws IOException
+    /** ++GRINDER MODIFICATION **/
+    public int available() throws IOException
+    /** --GRINDER MODIFICATION **/
     {
+	/** ++GRINDER MODIFICATION **/
+	lock.lock();
+	try
+	{
+	/** --GRINDER MODIFICATION **/
 	if (closed)
 	    return 0;
 
@@ -204,6 +263,11 @@ final class RespInputStream extends InputStream implements GlobalConstants
 	    return end-offset;
 	else
 	    return demux.available(resph);
+	/** ++GRINDER MODIFICATION **/
+	}
+	finally
+	    { lock.unlock(); }
+	/** --GRINDER MODIFICATION **/
     }
 
 
@@ -213,8 +277,15 @@ final class RespInputStream extends InputStream implements GlobalConstants
      * @exception if any exception occured on the connection before or
      *            during close.
      */
-    public synchronized void close()  throws IOException
+    /** ++GRINDER MODIFICATION **/
+    public void close()  throws IOException
+    /** --GRINDER MODIFICATION **/
     {
+	/** ++GRINDER MODIFICATION **/
+	lock.lock();
+	try
+	{
+	/** --GRINDER MODIFICATION **/
 	if (!closed)
 	{
 	    closed = true;
@@ -234,6 +305,11 @@ final class RespInputStream extends InputStream implements GlobalConstants
 		    { throw new IOException(me.toString()); }
 	    }
 	}
+	/** ++GRINDER MODIFICATION **/
+	}
+	finally
+	    { lock.unlock(); }
+	/** --GRINDER MODIFICATION **/
     }
 
 
@@ -268,7 +344,10 @@ final class RespInputStream extends InputStream implements GlobalConstants
     {
 	Log.write(Log.DEMUX, "RspIS: Read-all on stream " + this.hashCode());
 
-	synchronized (resph.resp)
+	/** ++GRINDER MODIFICATION **/
+	resph.resp.lock.lock();
+	try
+	/** --GRINDER MODIFICATION **/
 	{
 	    if (!resph.resp.got_headers)	// force headers to be read
 	    {
@@ -278,8 +357,15 @@ final class RespInputStream extends InputStream implements GlobalConstants
 		resph.resp.timeout = sav_to;
 	    }
 	}
+	/** ++GRINDER MODIFICATION **/
+	finally
+	    { resph.resp.lock.unlock(); }
+	/** --GRINDER MODIFICATION **/
 
-	synchronized (this)
+	/** ++GRINDER MODIFICATION **/
+	lock.lock();
+	try
+	/** --GRINDER MODIFICATION **/
 	{
 	    if (buffer != null  &&  !interrupted)  return;
 
@@ -330,6 +416,10 @@ final class RespInputStream extends InputStream implements GlobalConstants
 
 	    interrupted = false;
 	}
+	/** ++GRINDER MODIFICATION **/
+	finally
+	    { lock.unlock(); }
+	/** --GRINDER MODIFICATION **/
     }
 
 
@@ -338,8 +428,20 @@ final class RespInputStream extends InputStream implements GlobalConstants
      * not be closed prematurely (by us). Currently this is needed when the
      * chunked encoding with trailers is used in a response.
      */
-    synchronized void dontTruncate()
+    /** ++GRINDER MODIFICATION **/
+    void dontTruncate()
+    /** --GRINDER MODIFICATION **/
     {
+	/** ++GRINDER MODIFICATION **/
+	lock.lock();
+	try
+	{
+	/** --GRINDER MODIFICATION **/
 	dont_truncate = true;
+	/** ++GRINDER MODIFICATION **/
+	}
+	finally
+	    { lock.unlock(); }
+	/** --GRINDER MODIFICATION **/
     }
 }
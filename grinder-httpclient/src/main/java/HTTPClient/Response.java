@@ -50,6 +50,9 @@ import java.util.Vector;
 import java.util.Hashtable;
 import java.util.StringTokenizer;
 import java.util.NoSuchElementException;
+/** ++GRINDER MODIFICATION **/
+import java.util.concurrent.locks.ReentrantLock;
+/** --GRINDER MODIFICATION **/
 
 
 /**
@@ -137,6 +140,15 @@ public final class Response implements RoResponse, GlobalConstants, Cloneable
     /** remembers any exception received while reading/parsing headers */
     private IOException  exception = null;
 
+    /** ++GRINDER MODIFICATION **/
+    /**
+     * Guards the response state. We use a lock rather than this object's
+     * monitor so that virtual threads that block reading from the socket
+     * do not pin their carrier thread.
+     */
+    ReentrantLock lock = new ReentrantLock();
+    /** --GRINDER MODIFICATION **/
+
     /** should this response be handled further? */
             boolean      final_resp = false;
 
@@ -583,8 +595,15 @@ public final class Response implements RoResponse, GlobalConstants, Cloneable
      * @exception IOException If any io exception occured while reading
      *			      the data
      */
-    public synchronized byte[] getData()  throws IOException
+    /** ++GRINDER MODIFICATION **/
+    public byte[] getData()  throws IOException
+    /** --GRINDER MODIFICATION **/
     {
+	/** ++GRINDER MODIFICATION **/
+	lock.lock();
+	try
+	{
+	/** --GRINDER MODIFICATION **/
 	if (!got_headers)  getHeaders(true);
 
 	if (Data == null)
@@ -606,6 +625,11 @@ public final class Response implements RoResponse, GlobalConstants, Cloneable
 	}
 
 	return Data;
+	/** ++GRINDER MODIFICATION **/
+	}
+	finally
+	    { lock.unlock(); }
+	/** --GRINDER MODIFICATION **/
     }
 
     /**
@@ -617,14 +641,26 @@ public final class Response implements RoResponse, GlobalConstants, Cloneable
      * @return the InputStream.
      * @exception IOException If any exception occurs on the socket.
      */
-    public synchronized InputStream getInputStream()  throws IOException
+    /** ++GRINDER MODIFICATION **/
+    public InputStream getInputStream()  throws IOException
+    /** --GRINDER MODIFICATION **/
     {
+	/** ++GRINDER MODIFICATION **/
+	lock.lock();
+	try
+	{
+	/** --GRINDER MODIFICATION **/
 	if (!got_headers)  getHeaders(true);
 
 	if (Data == null)
 	    return inp_stream;
 	else
 	    return new ByteArrayInputStream(Data);
+	/** ++GRINDER MODIFICATION **/
+	}
+	finally
+	    { lock.unlock(); }
+	/** --GRINDER MODIFICATION **/
     }
 
     /**
@@ -637,11 +673,23 @@ public final class Response implements RoResponse, GlobalConstants, Cloneable
      * @return true if the response has an entity, false otherwise
      * @since V0.3-1
      */
-    public synchronized boolean hasEntity()  throws IOException
+    /** ++GRINDER MODIFICATION **/
+    public boolean hasEntity()  throws IOException
+    /** --GRINDER MODIFICATION **/
     {
+	/** ++GRINDER MODIFICATION **/
+	lock.lock();
+	try
+	{
+	/** --GRINDER MODIFICATION **/
 	if (!got_headers)  getHeaders(true);
 
 	return (cd_type != CD_0);
+	/** ++GRINDER MODIFICATION **/
+	}
+	finally
+	    { lock.unlock(); }
+	/** --GRINDER MODIFICATION **/
     }
 
     /**
@@ -680,8 +728,15 @@ public final class Response implements RoResponse, GlobalConstants, Cloneable
      * @param skip_cont  if true skips over '100 Continue' status codes.
      * @exception IOException If any exception occurs while reading the headers.
      */
-    private synchronized void getHeaders(boolean skip_cont)  throws IOException
+    /** ++GRINDER MODIFICATION **/
+    private void getHeaders(boolean skip_cont)  throws IOException
+    /** --GRINDER MODIFICATION **/
     {
+	/** ++GRINDER MODIFICATION **/
+	lock.lock();
+	try
+	{
+	/** --GRINDER MODIFICATION **/
 	if (got_headers)  return;
 	if (exception != null)
 	{
@@ -931,6 +986,11 @@ public final class Response implements RoResponse, GlobalConstants, Cloneable
 		req = null;
 	    }
 	}
+	/** ++GRINDER MODIFICATION **/
+	}
+	finally
+	    { lock.unlock(); }
+	/** --GRINDER MODIFICATION **/
     }
 
 
@@ -986,7 +1046,7 @@ public final class Response implements RoResponse, GlobalConstants, Cloneable
 			    if (!gotFirstByte) {
 				    gotFirstByte = true;
 				    ttfb =
-				      connection.getTimeAuthority().getTimeInMilliseconds();
+				      connection.getTimeAuthority().getTimeInNanoseconds();
 			    }
 			/** --GRINDER MODIFICATION **/
 		    } while (Character.isWhitespace((char) c)) ;
@@ -1241,8 +1301,15 @@ public final class Response implements RoResponse, GlobalConstants, Cloneable
      * @exception IOException if any exception occured during reading of the
      *                        response
      */
-    private synchronized void getTrailers()  throws IOException
+    /** ++GRINDER MODIFICATION **/
+    private void getTrailers()  throws IOException
+    /** --GRINDER MODIFICATION **/
     {
+	/** ++GRINDER MODIFICATION **/
+	lock.lock();
+	try
+	{
+	/** --GRINDER MODIFICATION **/
 	if (got_trailers)  return;
 	if (exception != null)
 	{
@@ -1276,6 +1343,11 @@ public final class Response implements RoResponse, GlobalConstants, Cloneable
 	{
 	    got_trailers = true;
 	}
+	/** ++GRINDER MODIFICATION **/
+	}
+	finally
+	    { lock.unlock(); }
+	/** --GRINDER MODIFICATION **/
     }
 
 
@@ -1435,6 +1507,9 @@ public final class Response implements RoResponse, GlobalConstants, Cloneable
 
 	cl.Headers  = (CIHashtable) Headers.clone();
 	cl.Trailers = (CIHashtable) Trailers.clone();
+	/** ++GRINDER MODIFICATION **/
+	cl.lock     = new ReentrantLock();
+	/** --GRINDER MODIFICATION **/
 
 	return cl;
     }
@@ -41,6 +41,9 @@ import java.io.EOFException;
 import java.io.InterruptedIOException;
 import java.net.Socket;
 import java.net.SocketException;
+/** ++GRINDER MODIFICATION **/
+import java.util.concurrent.locks.ReentrantLock;
+/** --GRINDER MODIFICATION **/
 
 /**
  * This class handles the demultiplexing of input stream. This is needed
@@ -84,6 +87,15 @@ class StreamDemultiplexor implements GlobalConstants
     /** the currently set timeout for the socket */
     private int                    cur_timeout = 0;
 
+    /** ++GRINDER MODIFICATION **/
+    /**
+     * Guards the stream state. We use a lock rather than this object's
+     * monitor so that virtual threads that block reading from the socket
+     * do not pin their carrier thread.
+     */
+    final ReentrantLock lock = new ReentrantLock();
+    /** --GRINDER MODIFICATION **/
+
 
     static
     {
@@ -244,7 +256,10 @@ class StreamDemultiplexor implements GlobalConstants
 
 	// Now we can read from the stream.
 
-	synchronized (this)
+	/** ++GRINDER MODIFICATION **/
+	lock.lock();
+	try
+	/** --GRINDER MODIFICATION **/
 	{
 	    if (resph.exception != null)
 	    {
@@ -377,14 +392,25 @@ class StreamDemultiplexor implements GlobalConstants
 		throw resph.exception;		// set by retry_requests
 	    }
 	}
+	/** ++GRINDER MODIFICATION **/
+	finally
+	    { lock.unlock(); }
+	/** --GRINDER MODIFICATION **/
     }
 
     /**
      * skips a number of bytes in the master stream. This is done via a
      * dummy read, as the socket input stream doesn't like skip()'s.
      */
-    synchronized long skip(long num, ResponseHandler resph) throws IOException
+    /** ++GRINDER MODIFICATION **/
+    long skip(long num, ResponseHandler resph) throws IOException
+    /** --GRINDER MODIFICATION **/
     {
+	/** ++GRINDER MODIFICATION **/
+	lock.lock();
+	try
+	{
+	/** --GRINDER MODIFICATION **/
 	if (resph.exception != null)
 	{
 	    resph.exception.fillInStackTrace();
@@ -400,14 +426,26 @@ class StreamDemultiplexor implements GlobalConstants
 	    return 0;
 	else
 	    return rcvd;
+	/** ++GRINDER MODIFICATION **/
+	}
+	finally
+	    { lock.unlock(); }
+	/** --GRINDER MODIFICATION **/
     }
 
     /**
      * Determines the number of available bytes. If <var>resph</var> is null, return
      * available bytes on the socket stream itself (used by HTTPConnection).
      */
-    synchronized int available(ResponseHandler resph) throws IOException
+    /** ++GRINDER MODIFICATION **/
+    int available(ResponseHandler resph) throws IOException
+    /** --GRINDER MODIFICATION **/
     {
+	/** ++GRINDER MODIFICATION **/
+	lock.lock();
+	try
+	{
+	/** --GRINDER MODIFICATION **/
 	if (resph != null  &&  resph.exception != null)
 	{
 	    resph.exception.fillInStackTrace();
@@ -447,6 +485,11 @@ class StreamDemultiplexor implements GlobalConstants
 				"Invalid cd_type " + resph.resp.cd_type);
 	}
 
+	/** ++GRINDER MODIFICATION **/
+	}
+	finally
+	    { lock.unlock(); }
+	/** --GRINDER MODIFICATION **/
     }
 
 
@@ -466,8 +509,15 @@ class StreamDemultiplexor implements GlobalConstants
      *                  reset; otherwise it means we generated the exception
      *                  ourselves and this is a "normal" close.
      */
-    synchronized void close(IOException exception, boolean was_reset)
+    /** ++GRINDER MODIFICATION **/
+    void close(IOException exception, boolean was_reset)
+    /** --GRINDER MODIFICATION **/
     {
+	/** ++GRINDER MODIFICATION **/
+	lock.lock();
+	try
+	{
+	/** --GRINDER MODIFICATION **/
 	if (Sock == null)	// already cleaned up
 	    return;
 
@@ -496,6 +546,11 @@ class StreamDemultiplexor implements GlobalConstants
 	if (exception != null)
 	    synchronized (RespHandlerList)
 		{ retry_requests(exception, was_reset); }
+	/** ++GRINDER MODIFICATION **/
+	}
+	finally
+	    { lock.unlock(); }
+	/** --GRINDER MODIFICATION **/
     }
 
 
@@ -594,8 +649,15 @@ class StreamDemultiplexor implements GlobalConstants
      * requests to the server than it's willing to serve on a single
      * connection. These requests will be retried if possible.
      */
-    synchronized void closeSocketIfAllStreamsClosed()
+    /** ++GRINDER MODIFICATION **/
+    void closeSocketIfAllStreamsClosed()
+    /** --GRINDER MODIFICATION **/
     {
+	/** ++GRINDER MODIFICATION **/
+	lock.lock();
+	try
+	{
+	/** --GRINDER MODIFICATION **/
 	synchronized (RespHandlerList)
 	{
 	    ResponseHandler resph = (ResponseHandler) RespHandlerList.enumerate();
@@ -621,19 +683,36 @@ class StreamDemultiplexor implements GlobalConstants
 		resph = (ResponseHandler) RespHandlerList.next();
 	    }
 	}
+	/** ++GRINDER MODIFICATION **/
+	}
+	finally
+	    { lock.unlock(); }
+	/** --GRINDER MODIFICATION **/
     }
 
 
     /**
      * returns the socket associated with this demux
      */
-    synchronized Socket getSocket()
+    /** ++GRINDER MODIFICATION **/
+    Socket getSocket()
+    /** --GRINDER MODIFICATION **/
     {
+	/** ++GRINDER MODIFICATION **/
+	lock.lock();
+	try
+	{
+	/** --GRINDER MODIFICATION **/
 	if (MarkedForClose != null)
 	    return null;
 
 	if (Timer != null)  Timer.hyber();
 	return Sock;
+	/** ++GRINDER MODIFICATION **/
+	}
+	finally
+	    { lock.unlock(); }
+	/** --GRINDER MODIFICATION **/
     }
 
 
@@ -645,8 +724,15 @@ class StreamDemultiplexor implements GlobalConstants
      * @param response the Response after which the connection should
      *                 be closed.
      */
-    synchronized void markForClose(Response resp)
+    /** ++GRINDER MODIFICATION **/
+    void markForClose(Response resp)
+    /** --GRINDER MODIFICATION **/
     {
+	/** ++GRINDER MODIFICATION **/
+	lock.lock();
+	try
+	{
+	/** --GRINDER MODIFICATION **/
 	synchronized (RespHandlerList)
 	{
 	    if (RespHandlerList.getFirst() == null)	// no active request,
@@ -693,6 +779,11 @@ class StreamDemultiplexor implements GlobalConstants
 	    Log.write(Log.DEMUX, "Demux: stream " + lasth.stream.hashCode() +
 				 " marked for close");
 	}
+	/** ++GRINDER MODIFICATION **/
+	}
+	finally
+	    { lock.unlock(); }
+	/** --GRINDER MODIFICATION **/
     }
 
 
@@ -141,7 +141,7 @@ public class TestSampleStatisticsTableModel extends AbstractJUnit4FileTestCase {
     assertSame(m_sampleModel, model.getModel());
     assertSame(m_sampleModelViews, model.getModelViews());
 
-    assertEquals(7, model.getColumnCount());
+    assertEquals(10, model.getColumnCount());
     assertEquals(0, model.getRowCount());
     assertEquals(0, model.getLastModelTestIndex().getNumberOfTests());
 
@@ -161,7 +161,7 @@ public class TestSampleStatisticsTableModel extends AbstractJUnit4FileTestCase {
 
     model.write(writer, "::", "**");
 
-    assertEquals("Test Column::Test Description Column::Tests::Errors::Mean Test Time (ms)::Test Time Standard Deviation (ms)::TPS::**",
+    assertEquals("Test Column::Test Description Column::Tests::Errors::Mean Test Time (ms)::Test Time Standard Deviation (ms)::TPS::Median Test Time (ms)::95th Percentile Test Time (ms)::99th Percentile Test Time (ms)::**",
                  writer.toString());
   }
 
@@ -175,19 +175,19 @@ public class TestSampleStatisticsTableModel extends AbstractJUnit4FileTestCase {
     m_resources.put("statistic.Errors", "Blah");
     m_resources.put("statistic.Mean_Test_Time_(ms)", "meantime");
 
-    assertEquals(7, model.getColumnCount());
+    assertEquals(10, model.getColumnCount());
 
     model.addColumns(m_statisticsServices.getSummaryStatisticsView());
 
     // Adding same columns again is a no-op.
-    assertEquals(7, model.getColumnCount());
+    assertEquals(10, model.getColumnCount());
     assertEquals("Tests", model.getColumnName(2));
     assertEquals("Errors", model.getColumnName(3));
     assertEquals("Mean Test Time (ms)", model.getColumnName(4));
 
     model.addColumns(m_statisticsServices.getDetailStatisticsView());
 
-    assertEquals(8, model.getColumnCount());
+    assertEquals(11, model.getColumnCount());
     assertEquals("Test time", model.getColumnName(2));
     assertEquals("Blah", model.getColumnName(4));
     assertEquals("meantime", model.getColumnName(5));
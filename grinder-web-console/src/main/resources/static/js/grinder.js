@@ -1,8 +1,10 @@
-chartTitles = ["Transactions Per Second", "Average Response Time(ms)", "Response Time Standard Deviation(ms)"]
-chartIndexes = [4, 2, 3]
+chartTitles = ["Transactions Per Second", "Average Response Time(ms)", "Response Time Standard Deviation(ms)", "99th Percentile Response Time(ms)"]
+chartIndexes = [4, 2, 3, 7]
 MAX_NUMBER_SAMPLE = 720
 GRAPH_SAMPLE = 5
 charts = []
+recordingStream = null
+liveData = null
 
 function loadFiles(data) {
     document.getElementById("currentPath").innerText = data.currentPath;
@@ -207,6 +209,8 @@ $(document).ready(function() {
 
     $("#refreshPeriod").attr("value", 1000);
     resetCharts();
+    // Start streaming once the charts have been filled with the history.
+    loadHistory().always(streamRecording);
     refreshGrinder(1000);
 });
 
@@ -250,6 +254,69 @@ function updateResultTable(data) {
     document.getElementById('dashboard_tps').innerText = roundToTwo(data.totals[4]);
 }
 
+function randomCurveColor() {
+    return "rgba(" +
+             (Math.floor(Math.random() * 155) + 100) + ", " +
+             (Math.floor(Math.random() * 155) + 100) + ", " +
+             (Math.floor(Math.random() * 155) + 100) + ", 1)"
+}
+
+// Fill the charts with the samples recorded by the console, so they show the
+// run so far rather than starting when the page is loaded. Older samples
+// cover longer periods.
+function loadHistory() {
+    // History columns for each chart. There is no history of percentiles.
+    historyIndexes = [4, 5, 6, -1]
+
+    return $.getJSON('/recording/history', {}, function(data) {
+        if (graphInitialized || data.tests.length == 0) {
+            return;
+        }
+
+        times = []
+        for (i = 0; i < data.totals.length; i++) {
+            times.push(data.totals[i][0]);
+        }
+        times = times.slice(-MAX_NUMBER_SAMPLE);
+
+        for (chartId = 0; chartId < charts.length; chartId++) {
+            charts[chartId].data.labels = times.map(function(time) {
+                d = new Date(time);
+                return d.getHours() + ":" + d.getMinutes() + ":" + d.getSeconds();
+            });
+        }
+
+        for (curveIndex = 0; curveIndex < data.tests.length; curveIndex++) {
+            test = data.tests[curveIndex]
+            samples = {}
+            for (i = 0; i < test.samples.length; i++) {
+                samples[test.samples[i][0]] = test.samples[i];
+            }
+            curveColor = randomCurveColor()
+            for (chartId = 0; chartId < charts.length; chartId++) {
+                values = times.map(function(time) {
+                    sample = samples[time];
+                    return sample != null && historyIndexes[chartId] >= 0 ?
+                        sample[historyIndexes[chartId]] : null;
+                });
+                charts[chartId].data.datasets.push({
+                   label: test.description,
+                   borderColor: curveColor,
+                   pointBackgroundColor: curveColor,
+                   data: values
+                })
+            }
+        }
+
+        for (chartId = 0; chartId < charts.length; chartId++) {
+            charts[chartId].update();
+        }
+
+        graphSampleId = Math.min(times.length, MAX_NUMBER_SAMPLE);
+        graphInitialized = true;
+    });
+}
+
 function updateResultGraphs(data) {
     if (data.tests.length > 0) {
         d = new Date();
@@ -258,10 +325,7 @@ function updateResultGraphs(data) {
             graphSampleId = 0;
             graphInitialized = true;
             for (curveIndex = 0; curveIndex < data.tests.length; curveIndex++) {
-                curveColor = "rgba(" +
-                               (Math.floor(Math.random() * 155) + 100) + ", " +
-                               (Math.floor(Math.random() * 155) + 100) + ", " +
-                               (Math.floor(Math.random() * 155) + 100) + ", 1)"
+                curveColor = randomCurveColor()
                 for (chartId = 0; chartId < charts.length; chartId++) {
                     charts[chartId].data.labels[graphSampleId] = curTime;
                     charts[chartId].data.datasets.push({
@@ -297,6 +361,75 @@ function updateResultGraphs(data) {
     }
 }
 
+function updateRecordingData(data) {
+    updateResultTable(data)
+    if (sampleId == 0) {
+        updateResultGraphs(data);
+    }
+    sampleId = (sampleId + 1) % GRAPH_SAMPLE
+}
+
+// Receive the recording data from the console as it is sampled, rather than
+// polling for it. refreshGrinder() polls if the browser has no EventSource.
+function streamRecording() {
+    if (typeof(EventSource) === "undefined") {
+        return;
+    }
+    recordingStream = new EventSource('/recording/stream');
+    recordingStream.onmessage = function(event) {
+        updateLiveData(JSON.parse(event.data));
+    };
+}
+
+// Full frames replace the data; other frames only contain the tests that
+// have changed.
+function updateLiveData(frame) {
+    if (frame.full) {
+        liveData = {
+            columns: frame.columns,
+            tests: {},
+            order: []
+        }
+        for (j = 0; j < frame.tests.length; j++) {
+            liveData.tests[frame.tests[j].test] = frame.tests[j];
+            liveData.order.push(frame.tests[j].test);
+        }
+    }
+    else if (liveData != null && frame.tests) {
+        for (j = 0; j < frame.tests.length; j++) {
+            var test = liveData.tests[frame.tests[j].test];
+            if (test != null) {
+                test.cumulative = frame.tests[j].cumulative;
+                test.latest = frame.tests[j].latest;
+            }
+        }
+    }
+
+    if (liveData == null || !frame.tests) {
+        return;
+    }
+
+    liveData.status = frame.status;
+    liveData.totals = frame.totals;
+
+    var type = $('#checkboxD').is(":checked") ? 'latest' : 'cumulative';
+    var data = {
+        status: liveData.status,
+        columns: liveData.columns[type],
+        tests: [],
+        totals: liveData.totals[type]
+    }
+    for (j = 0; j < liveData.order.length; j++) {
+        var test = liveData.tests[liveData.order[j]];
+        data.tests.push({
+            test: test.test,
+            description: test.description,
+            statistics: test[type]
+        });
+    }
+    updateRecordingData(data);
+}
+
 function refreshGrinder(refreshPeriod) {
         interval = setInterval(function() {
             $.getJSON('/agents/status', {}, function(data) {
@@ -330,14 +463,11 @@ function refreshGrinder(refreshPeriod) {
                 }
             });
 
-            $.getJSON('/recording/data' + ($('#checkboxD').is(":checked")?'-latest':''), {}, function(data) {
-                updateResultTable(data)
-                if (sampleId == 0) {
-                    updateResultGraphs(data);
-                }
-                sampleId = (sampleId + 1) % GRAPH_SAMPLE
-
-            });
+            if (typeof(EventSource) === "undefined") {
+                $.getJSON('/recording/data' + ($('#checkboxD').is(":checked")?'-latest':''), {}, function(data) {
+                    updateRecordingData(data);
+                });
+            }
         }, refreshPeriod);
     }
 